@@ -20,6 +20,7 @@ import com.facebook.presto.common.type.DecimalType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.UuidType;
 import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.plugin.jdbc.optimization.JdbcExpression;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorSession;
@@ -32,6 +33,7 @@ import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.statistics.TableStatistics;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
@@ -47,6 +49,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -70,6 +73,7 @@ import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.common.type.Varchars.isVarcharType;
 import static com.facebook.presto.plugin.jdbc.JdbcErrorCode.JDBC_ERROR;
+import static com.facebook.presto.plugin.jdbc.SplitPartitioningStrategy.MODULO;
 import static com.facebook.presto.plugin.jdbc.StandardReadMappings.jdbcTypeToPrestoType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
@@ -117,19 +121,41 @@ public class BaseJdbcClient
     protected final boolean caseInsensitiveNameMatching;
     protected final Cache<JdbcIdentity, Map<String, String>> remoteSchemaNames;
     protected final Cache<RemoteTableNameCacheKey, Map<String, String>> remoteTableNames;
+    protected final Optional<Integer> maxConnections;
+    protected final boolean splitPartitioningEnabled;
+    protected final SplitPartitioningStrategy splitPartitioningStrategy;
+    protected final Map<SchemaTableName, String> splitPartitioningColumns;
+    protected final Optional<Integer> fetchSize;
 
     public BaseJdbcClient(JdbcConnectorId connectorId, BaseJdbcConfig config, String identifierQuote, ConnectionFactory connectionFactory)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null").toString();
         requireNonNull(config, "config is null"); // currently unused, retained as parameter for future extensions
         this.identifierQuote = requireNonNull(identifierQuote, "identifierQuote is null");
-        this.connectionFactory = requireNonNull(connectionFactory, "connectionFactory is null");
+        requireNonNull(connectionFactory, "connectionFactory is null");
+        this.maxConnections = Optional.ofNullable(config.getMaxConnections());
+        // the limit is shared by the scans, the metadata calls and the page sinks of all the queries on the catalog
+        this.connectionFactory = maxConnections.isPresent() ? new LimitedConnectionFactory(connectionFactory, maxConnections.get()) : connectionFactory;
 
         this.caseInsensitiveNameMatching = config.isCaseInsensitiveNameMatching();
         CacheBuilder<Object, Object> remoteNamesCacheBuilder = CacheBuilder.newBuilder()
                 .expireAfterWrite(config.getCaseInsensitiveNameMatchingCacheTtl().toMillis(), MILLISECONDS);
         this.remoteSchemaNames = remoteNamesCacheBuilder.build();
         this.remoteTableNames = remoteNamesCacheBuilder.build();
+
+        this.splitPartitioningEnabled = config.isSplitPartitioningEnabled();
+        this.splitPartitioningStrategy = config.getSplitPartitioningStrategy();
+        this.splitPartitioningColumns = parseSplitPartitioningColumns(config.getSplitPartitioningColumns());
+        this.fetchSize = Optional.ofNullable(config.getFetchSize());
+    }
+
+    private static Map<SchemaTableName, String> parseSplitPartitioningColumns(@Nullable String columns)
+    {
+        if (isNullOrEmpty(columns)) {
+            return ImmutableMap.of();
+        }
+        return Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(columns).entrySet().stream()
+                .collect(toImmutableMap(entry -> SchemaTableName.valueOf(entry.getKey()), Map.Entry::getValue));
     }
 
     @PreDestroy
@@ -270,14 +296,144 @@ public class BaseJdbcClient
     public ConnectorSplitSource getSplits(JdbcIdentity identity, JdbcTableLayoutHandle layoutHandle)
     {
         JdbcTableHandle tableHandle = layoutHandle.getTable();
-        JdbcSplit jdbcSplit = new JdbcSplit(
-                connectorId,
-                tableHandle.getCatalogName(),
-                tableHandle.getSchemaName(),
-                tableHandle.getTableName(),
-                layoutHandle.getTupleDomain(),
-                layoutHandle.getAdditionalPredicate());
-        return new FixedSplitSource(ImmutableList.of(jdbcSplit));
+        List<JdbcExpression> partitions = ImmutableList.of();
+        // a scan is partitioned into as many splits as the connections the catalog may open, so that they can all be read at the same time
+        if (splitPartitioningEnabled && maxConnections.orElse(1) > 1 && !layoutHandle.getTupleDomain().isNone()) {
+            partitions = getSplitPartitions(identity, tableHandle);
+        }
+
+        if (partitions.isEmpty()) {
+            JdbcSplit jdbcSplit = new JdbcSplit(
+                    connectorId,
+                    tableHandle.getCatalogName(),
+                    tableHandle.getSchemaName(),
+                    tableHandle.getTableName(),
+                    layoutHandle.getTupleDomain(),
+                    layoutHandle.getAdditionalPredicate());
+            return new FixedSplitSource(ImmutableList.of(jdbcSplit));
+        }
+
+        ImmutableList.Builder<JdbcSplit> splits = ImmutableList.builder();
+        for (JdbcExpression partition : partitions) {
+            splits.add(new JdbcSplit(
+                    connectorId,
+                    tableHandle.getCatalogName(),
+                    tableHandle.getSchemaName(),
+                    tableHandle.getTableName(),
+                    layoutHandle.getTupleDomain(),
+                    Optional.of(JdbcSplitPartitioner.and(layoutHandle.getAdditionalPredicate(), partition))));
+        }
+        return new FixedSplitSource(splits.build());
+    }
+
+    /**
+     * Returns the predicates that partition a scan of the table into several splits, or an empty list
+     * if the table should be read by a single split. The table is partitioned on the configured column,
+     * or on its primary key when it is a single integer or date column.
+     */
+    protected List<JdbcExpression> getSplitPartitions(JdbcIdentity identity, JdbcTableHandle tableHandle)
+    {
+        try (Connection connection = connectionFactory.openConnection(identity)) {
+            Optional<String> configuredColumn = Optional.ofNullable(splitPartitioningColumns.get(tableHandle.getSchemaTableName()));
+            Optional<String> columnName = configuredColumn.isPresent() ? configuredColumn : getSinglePrimaryKeyColumn(connection, tableHandle);
+            if (!columnName.isPresent()) {
+                return ImmutableList.of();
+            }
+
+            String partitioningColumn = null;
+            Type partitioningType = null;
+            try (ResultSet resultSet = getColumns(tableHandle, connection.getMetaData())) {
+                while (resultSet.next()) {
+                    if (resultSet.getString("COLUMN_NAME").equalsIgnoreCase(columnName.get())) {
+                        partitioningColumn = resultSet.getString("COLUMN_NAME");
+                        partitioningType = toSplitPartitioningType(resultSet.getInt("DATA_TYPE")).orElse(null);
+                    }
+                }
+            }
+            if (partitioningColumn == null) {
+                if (configuredColumn.isPresent()) {
+                    throw new PrestoException(JDBC_ERROR, format("Split partitioning column %s not found in table %s", columnName.get(), tableHandle.getSchemaTableName()));
+                }
+                return ImmutableList.of();
+            }
+            if (partitioningType == null) {
+                if (configuredColumn.isPresent()) {
+                    throw new PrestoException(NOT_SUPPORTED, format("Unsupported type of split partitioning column %s of table %s", partitioningColumn, tableHandle.getSchemaTableName()));
+                }
+                return ImmutableList.of();
+            }
+
+            String column = quoted(partitioningColumn);
+            if (splitPartitioningStrategy == MODULO && !partitioningType.equals(DATE)) {
+                return JdbcSplitPartitioner.moduloPartitions(column, moduloExpression(column), maxConnections.get());
+            }
+
+            String sql = format("SELECT min(%s), max(%s) FROM %s", column, column, quoted(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName()));
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(sql)) {
+                if (!resultSet.next()) {
+                    return ImmutableList.of();
+                }
+                Optional<Long> min = getSplitPartitioningValue(resultSet, 1, partitioningType);
+                Optional<Long> max = getSplitPartitioningValue(resultSet, 2, partitioningType);
+                if (!min.isPresent() || !max.isPresent()) {
+                    // the table is empty, or the column only contains nulls
+                    return ImmutableList.of();
+                }
+                return JdbcSplitPartitioner.rangePartitions(column, partitioningType, min.get(), max.get(), maxConnections.get());
+            }
+        }
+        catch (SQLException e) {
+            throw new PrestoException(JDBC_ERROR, e);
+        }
+    }
+
+    /**
+     * Returns the remainder of the division of the column by a bound parameter, as supported by the database.
+     */
+    protected String moduloExpression(String column)
+    {
+        return format("MOD(%s, ?)", column);
+    }
+
+    private static Optional<String> getSinglePrimaryKeyColumn(Connection connection, JdbcTableHandle tableHandle)
+            throws SQLException
+    {
+        try (ResultSet resultSet = connection.getMetaData().getPrimaryKeys(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName())) {
+            List<String> columns = new ArrayList<>();
+            while (resultSet.next()) {
+                columns.add(resultSet.getString("COLUMN_NAME"));
+            }
+            return columns.size() == 1 ? Optional.of(getOnlyElement(columns)) : Optional.empty();
+        }
+    }
+
+    private static Optional<Type> toSplitPartitioningType(int jdbcType)
+    {
+        switch (jdbcType) {
+            case Types.TINYINT:
+                return Optional.of(TINYINT);
+            case Types.SMALLINT:
+                return Optional.of(SMALLINT);
+            case Types.INTEGER:
+                return Optional.of(INTEGER);
+            case Types.BIGINT:
+                return Optional.of(BIGINT);
+            case Types.DATE:
+                return Optional.of(DATE);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<Long> getSplitPartitioningValue(ResultSet resultSet, int columnIndex, Type type)
+            throws SQLException
+    {
+        if (type.equals(DATE)) {
+            return Optional.ofNullable(resultSet.getDate(columnIndex)).map(date -> date.toLocalDate().toEpochDay());
+        }
+        long value = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? Optional.empty() : Optional.of(value);
     }
 
     @Override
@@ -299,7 +455,7 @@ public class BaseJdbcClient
     public PreparedStatement buildSql(ConnectorSession session, Connection connection, JdbcSplit split, List<JdbcColumnHandle> columnHandles)
             throws SQLException
     {
-        return new QueryBuilder(identifierQuote).buildSql(
+        PreparedStatement statement = new QueryBuilder(identifierQuote).buildSql(
                 this,
                 session,
                 connection,
@@ -309,6 +465,11 @@ public class BaseJdbcClient
                 columnHandles,
                 split.getTupleDomain(),
                 split.getAdditionalPredicate());
+        if (fetchSize.isPresent()) {
+            // applied last, so that it takes precedence over the fetch size set by getPreparedStatement
+            statement.setFetchSize(fetchSize.get());
+        }
+        return statement;
     }
 
     @Override
@@ -14,13 +14,17 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.airlift.configuration.ConfigSecuritySensitive;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
 import javax.annotation.Nullable;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import static com.facebook.presto.plugin.jdbc.SplitPartitioningStrategy.RANGE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 public class BaseJdbcConfig
@@ -32,6 +36,11 @@ public class BaseJdbcConfig
     private String passwordCredentialName;
     private boolean caseInsensitiveNameMatching;
     private Duration caseInsensitiveNameMatchingCacheTtl = new Duration(1, MINUTES);
+    private Integer maxConnections;
+    private boolean splitPartitioningEnabled;
+    private SplitPartitioningStrategy splitPartitioningStrategy = RANGE;
+    private String splitPartitioningColumns;
+    private Integer fetchSize;
 
     @NotNull
     public String getConnectionUrl()
@@ -124,4 +133,84 @@ public class BaseJdbcConfig
         this.caseInsensitiveNameMatchingCacheTtl = caseInsensitiveNameMatchingCacheTtl;
         return this;
     }
+
+    @Nullable
+    @Min(1)
+    public Integer getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    @Config("max-connections")
+    @ConfigDescription("Maximum number of connections the catalog keeps open to the remote database at the same time on a node, " +
+            "across all queries. Opening a connection waits while the limit is reached, leave unset for no limit")
+    public BaseJdbcConfig setMaxConnections(Integer maxConnections)
+    {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public boolean isSplitPartitioningEnabled()
+    {
+        return splitPartitioningEnabled;
+    }
+
+    @Config("split-partitioning.enabled")
+    @ConfigDescription("Partition table scans into as many splits as max-connections, read in parallel through their own connections")
+    public BaseJdbcConfig setSplitPartitioningEnabled(boolean splitPartitioningEnabled)
+    {
+        this.splitPartitioningEnabled = splitPartitioningEnabled;
+        return this;
+    }
+
+    @AssertTrue(message = "max-connections must be set when split-partitioning.enabled is true")
+    public boolean isMaxConnectionsSetForSplitPartitioning()
+    {
+        return !splitPartitioningEnabled || maxConnections != null;
+    }
+
+    @NotNull
+    public SplitPartitioningStrategy getSplitPartitioningStrategy()
+    {
+        return splitPartitioningStrategy;
+    }
+
+    @Config("split-partitioning.strategy")
+    @ConfigDescription("How the rows of a table are assigned to the splits: RANGE or MODULO of the partitioning column")
+    public BaseJdbcConfig setSplitPartitioningStrategy(SplitPartitioningStrategy splitPartitioningStrategy)
+    {
+        this.splitPartitioningStrategy = splitPartitioningStrategy;
+        return this;
+    }
+
+    @Nullable
+    public String getSplitPartitioningColumns()
+    {
+        return splitPartitioningColumns;
+    }
+
+    @Config("split-partitioning.columns")
+    @ConfigDescription("Comma separated list of schema.table=column entries, the column to partition the scans of a table on. " +
+            "Tables without an entry are partitioned on their primary key, if it is a single integer or date column")
+    public BaseJdbcConfig setSplitPartitioningColumns(String splitPartitioningColumns)
+    {
+        this.splitPartitioningColumns = splitPartitioningColumns;
+        return this;
+    }
+
+    @Nullable
+    @Min(1)
+    public Integer getFetchSize()
+    {
+        return fetchSize;
+    }
+
+    @Config("fetch-size")
+    @ConfigDescription("Number of rows fetched from the remote database per round trip when reading a table. " +
+            "Overrides the default of the connector, leave unset to keep it")
+    public BaseJdbcConfig setFetchSize(Integer fetchSize)
+    {
+        this.fetchSize = fetchSize;
+        return this;
+    }
 }
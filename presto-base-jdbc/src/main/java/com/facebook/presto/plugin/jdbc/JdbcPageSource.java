@@ -0,0 +1,322 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.plugin.jdbc.JdbcErrorCode.JDBC_ERROR;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the rows of a split straight into the blocks of a page. The values of a batch of rows
+ * are read into a primitive array per column, and each column is then written to its block in
+ * a loop specialized for its Java type, instead of dispatching on the type of every value like
+ * a {@link com.facebook.presto.spi.RecordPageSource} over a {@link JdbcRecordCursor} does.
+ */
+public class JdbcPageSource
+        implements ConnectorPageSource
+{
+    private static final Logger log = Logger.get(JdbcPageSource.class);
+
+    private static final int ROWS_PER_REQUEST = 4096;
+    // the page is checked for being full after each batch
+    private static final int ROWS_PER_BATCH = 256;
+
+    private final JdbcClient jdbcClient;
+    private final List<Type> types;
+    private final ReadFunction[] readFunctions;
+    private final PageBuilder pageBuilder;
+
+    // the values of the rows of a batch, only the array of the Java type of each column is set
+    private final boolean[][] nulls;
+    private final boolean[][] booleanValues;
+    private final long[][] longValues;
+    private final double[][] doubleValues;
+    private final Slice[][] sliceValues;
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+
+    private long completedPositions;
+    private long readTimeNanos;
+    private boolean finished;
+    private boolean closed;
+
+    public JdbcPageSource(JdbcClient jdbcClient, ConnectorSession session, JdbcSplit split, List<JdbcColumnHandle> columnHandles)
+    {
+        this.jdbcClient = requireNonNull(jdbcClient, "jdbcClient is null");
+
+        int columnCount = columnHandles.size();
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        readFunctions = new ReadFunction[columnCount];
+        nulls = new boolean[columnCount][ROWS_PER_BATCH];
+        booleanValues = new boolean[columnCount][];
+        longValues = new long[columnCount][];
+        doubleValues = new double[columnCount][];
+        sliceValues = new Slice[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            Type type = columnHandles.get(i).getColumnType();
+            ReadMapping readMapping = jdbcClient.toPrestoType(session, columnHandles.get(i).getJdbcTypeHandle())
+                    .orElseThrow(() -> new VerifyException("Unsupported column type"));
+            types.add(type);
+            readFunctions[i] = readMapping.getReadFunction();
+
+            Class<?> javaType = type.getJavaType();
+            if (javaType == boolean.class) {
+                booleanValues[i] = new boolean[ROWS_PER_BATCH];
+            }
+            else if (javaType == long.class) {
+                longValues[i] = new long[ROWS_PER_BATCH];
+            }
+            else if (javaType == double.class) {
+                doubleValues[i] = new double[ROWS_PER_BATCH];
+            }
+            else if (javaType == Slice.class) {
+                sliceValues[i] = new Slice[ROWS_PER_BATCH];
+            }
+            else {
+                throw new IllegalStateException(format("Unsupported java type %s", javaType));
+            }
+        }
+        this.types = types.build();
+        pageBuilder = new PageBuilder(this.types);
+
+        long start = System.nanoTime();
+        try {
+            connection = jdbcClient.getConnection(JdbcIdentity.from(session), split);
+            statement = jdbcClient.buildSql(session, connection, split, columnHandles);
+            log.debug("Executing: %s", statement.toString());
+            resultSet = statement.executeQuery();
+        }
+        catch (SQLException | RuntimeException e) {
+            throw handleSqlException(e);
+        }
+        finally {
+            readTimeNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return completedPositions;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            int rows = 0;
+            while (!finished && rows < ROWS_PER_REQUEST && !pageBuilder.isFull()) {
+                int batchRows = readBatch();
+                for (int column = 0; column < readFunctions.length; column++) {
+                    writeColumn(column, batchRows);
+                }
+                pageBuilder.declarePositions(batchRows);
+                rows += batchRows;
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            throw handleSqlException(e);
+        }
+        finally {
+            readTimeNanos += System.nanoTime() - start;
+        }
+
+        if (finished) {
+            close();
+        }
+
+        // only return a page if the buffer is full or we are finishing
+        if (pageBuilder.isEmpty() || (!finished && !pageBuilder.isFull())) {
+            return null;
+        }
+
+        Page page = pageBuilder.build();
+        completedPositions += page.getPositionCount();
+        pageBuilder.reset();
+        return page;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return pageBuilder.getRetainedSizeInBytes();
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finished = true;
+
+        // use try with resources to close everything properly
+        try (Connection connection = this.connection;
+                Statement statement = this.statement;
+                ResultSet resultSet = this.resultSet) {
+            jdbcClient.abortReadConnection(connection);
+        }
+        catch (SQLException e) {
+            // ignore exception from close
+        }
+    }
+
+    /**
+     * Reads the values of the next rows into the arrays of the columns, and returns the number of rows read.
+     */
+    private int readBatch()
+            throws SQLException
+    {
+        int rows = 0;
+        while (rows < ROWS_PER_BATCH) {
+            if (!resultSet.next()) {
+                finished = true;
+                break;
+            }
+            for (int column = 0; column < readFunctions.length; column++) {
+                // JDBC only reports a null after the value has been read
+                int columnIndex = column + 1;
+                if (longValues[column] != null) {
+                    longValues[column][rows] = ((LongReadFunction) readFunctions[column]).readLong(resultSet, columnIndex);
+                }
+                else if (doubleValues[column] != null) {
+                    doubleValues[column][rows] = ((DoubleReadFunction) readFunctions[column]).readDouble(resultSet, columnIndex);
+                }
+                else if (booleanValues[column] != null) {
+                    booleanValues[column][rows] = ((BooleanReadFunction) readFunctions[column]).readBoolean(resultSet, columnIndex);
+                }
+                else {
+                    sliceValues[column][rows] = ((SliceReadFunction) readFunctions[column]).readSlice(resultSet, columnIndex);
+                }
+                nulls[column][rows] = resultSet.wasNull();
+            }
+            rows++;
+        }
+        return rows;
+    }
+
+    private void writeColumn(int column, int rows)
+    {
+        Type type = types.get(column);
+        BlockBuilder output = pageBuilder.getBlockBuilder(column);
+        boolean[] columnNulls = nulls[column];
+        if (longValues[column] != null) {
+            long[] values = longValues[column];
+            for (int row = 0; row < rows; row++) {
+                if (columnNulls[row]) {
+                    output.appendNull();
+                }
+                else {
+                    type.writeLong(output, values[row]);
+                }
+            }
+        }
+        else if (doubleValues[column] != null) {
+            double[] values = doubleValues[column];
+            for (int row = 0; row < rows; row++) {
+                if (columnNulls[row]) {
+                    output.appendNull();
+                }
+                else {
+                    type.writeDouble(output, values[row]);
+                }
+            }
+        }
+        else if (booleanValues[column] != null) {
+            boolean[] values = booleanValues[column];
+            for (int row = 0; row < rows; row++) {
+                if (columnNulls[row]) {
+                    output.appendNull();
+                }
+                else {
+                    type.writeBoolean(output, values[row]);
+                }
+            }
+        }
+        else {
+            Slice[] values = sliceValues[column];
+            for (int row = 0; row < rows; row++) {
+                if (columnNulls[row]) {
+                    output.appendNull();
+                }
+                else {
+                    type.writeSlice(output, values[row], 0, values[row].length());
+                }
+            }
+            // do not retain the values of the batch
+            Arrays.fill(values, 0, rows, null);
+        }
+    }
+
+    private RuntimeException handleSqlException(Exception e)
+    {
+        try {
+            close();
+        }
+        catch (Exception closeException) {
+            // Self-suppression not permitted
+            if (e != closeException) {
+                e.addSuppressed(closeException);
+            }
+        }
+        return new PrestoException(JDBC_ERROR, e);
+    }
+}
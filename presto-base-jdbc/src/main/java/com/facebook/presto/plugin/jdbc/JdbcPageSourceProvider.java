@@ -14,10 +14,11 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
-import com.facebook.presto.spi.RecordSet;
-import com.facebook.presto.spi.connector.ConnectorRecordSetProvider;
+import com.facebook.presto.spi.SplitContext;
+import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.google.common.collect.ImmutableList;
 
@@ -27,19 +28,24 @@ import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
-public class JdbcRecordSetProvider
-        implements ConnectorRecordSetProvider
+public class JdbcPageSourceProvider
+        implements ConnectorPageSourceProvider
 {
     private final JdbcClient jdbcClient;
 
     @Inject
-    public JdbcRecordSetProvider(JdbcClient jdbcClient)
+    public JdbcPageSourceProvider(JdbcClient jdbcClient)
     {
         this.jdbcClient = requireNonNull(jdbcClient, "jdbcClient is null");
     }
 
     @Override
-    public RecordSet getRecordSet(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorSplit split, List<? extends ColumnHandle> columns)
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            SplitContext splitContext)
     {
         JdbcSplit jdbcSplit = (JdbcSplit) split;
 
@@ -48,6 +54,6 @@ public class JdbcRecordSetProvider
             handles.add((JdbcColumnHandle) handle);
         }
 
-        return new JdbcRecordSet(jdbcClient, session, jdbcSplit, handles.build());
+        return new JdbcPageSource(jdbcClient, session, jdbcSplit, handles.build());
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.plugin.jdbc.optimization.JdbcExpression;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+/**
+ * Builds the predicates that partition a table scan into several splits. Together, the predicates
+ * select every row of the table exactly once, including the rows with a null partitioning column
+ * and the rows outside of the range the partitions were computed for.
+ */
+public final class JdbcSplitPartitioner
+{
+    private JdbcSplitPartitioner() {}
+
+    /**
+     * @param column the quoted partitioning column
+     * @param type the type of the column, whose values are represented as longs
+     * @param min the minimum value of the column
+     * @param max the maximum value of the column
+     */
+    public static List<JdbcExpression> rangePartitions(String column, Type type, long min, long max, int maxPartitions)
+    {
+        checkArgument(min <= max, "min is greater than max");
+        checkArgument(maxPartitions > 0, "maxPartitions must be positive");
+
+        BigInteger rangeSize = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min)).add(BigInteger.ONE);
+        int partitions = rangeSize.min(BigInteger.valueOf(maxPartitions)).intValueExact();
+        if (partitions == 1) {
+            return ImmutableList.of();
+        }
+
+        long[] boundaries = new long[partitions - 1];
+        for (int i = 1; i < partitions; i++) {
+            boundaries[i - 1] = rangeSize.multiply(BigInteger.valueOf(i))
+                    .divide(BigInteger.valueOf(partitions))
+                    .add(BigInteger.valueOf(min))
+                    .longValueExact();
+        }
+
+        ImmutableList.Builder<JdbcExpression> predicates = ImmutableList.builder();
+        predicates.add(new JdbcExpression(
+                format("(%s < ? OR %s IS NULL)", column, column),
+                ImmutableList.of(new ConstantExpression(boundaries[0], type))));
+        for (int i = 1; i < boundaries.length; i++) {
+            predicates.add(new JdbcExpression(
+                    format("(%s >= ? AND %s < ?)", column, column),
+                    ImmutableList.of(new ConstantExpression(boundaries[i - 1], type), new ConstantExpression(boundaries[i], type))));
+        }
+        predicates.add(new JdbcExpression(
+                format("(%s >= ?)", column),
+                ImmutableList.of(new ConstantExpression(boundaries[boundaries.length - 1], type))));
+        return predicates.build();
+    }
+
+    /**
+     * @param column the quoted partitioning column
+     * @param moduloExpression the remainder of the division of the column by the single bound parameter
+     */
+    public static List<JdbcExpression> moduloPartitions(String column, String moduloExpression, int partitions)
+    {
+        checkArgument(partitions > 0, "partitions must be positive");
+        if (partitions == 1) {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<JdbcExpression> predicates = ImmutableList.builder();
+        predicates.add(new JdbcExpression(
+                format("(%s = ? OR %s IS NULL)", moduloExpression, column),
+                ImmutableList.of(new ConstantExpression((long) partitions, BIGINT), new ConstantExpression(0L, BIGINT))));
+        for (long remainder = 1; remainder < partitions; remainder++) {
+            // the sign of the remainder follows the dividend in most databases
+            predicates.add(new JdbcExpression(
+                    format("(%s IN (?, ?))", moduloExpression),
+                    ImmutableList.of(new ConstantExpression((long) partitions, BIGINT), new ConstantExpression(remainder, BIGINT), new ConstantExpression(-remainder, BIGINT))));
+        }
+        return predicates.build();
+    }
+
+    public static JdbcExpression and(Optional<JdbcExpression> predicate, JdbcExpression partition)
+    {
+        if (!predicate.isPresent()) {
+            return partition;
+        }
+        return new JdbcExpression(
+                format("(%s AND %s)", predicate.get().getExpression(), partition.getExpression()),
+                ImmutableList.<ConstantExpression>builder()
+                        .addAll(predicate.get().getBoundConstantValues())
+                        .addAll(partition.getBoundConstantValues())
+                        .build());
+    }
+}
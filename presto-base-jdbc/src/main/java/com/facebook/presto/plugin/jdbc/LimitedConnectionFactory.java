@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Limits the number of connections of a catalog that are open at the same time. Opening a
+ * connection waits until one of the open connections is closed when the limit is reached.
+ */
+public class LimitedConnectionFactory
+        implements ConnectionFactory
+{
+    private final ConnectionFactory delegate;
+    private final Semaphore connections;
+
+    public LimitedConnectionFactory(ConnectionFactory delegate, int maxConnections)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        checkArgument(maxConnections > 0, "maxConnections must be positive");
+        this.connections = new Semaphore(maxConnections, true);
+    }
+
+    @Override
+    public Connection openConnection(JdbcIdentity identity)
+            throws SQLException
+    {
+        try {
+            connections.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        Connection connection;
+        try {
+            connection = delegate.openConnection(identity);
+        }
+        catch (Throwable t) {
+            connections.release();
+            throw t;
+        }
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new ReleasingInvocationHandler(connection));
+    }
+
+    @Override
+    public void close()
+            throws SQLException
+    {
+        delegate.close();
+    }
+
+    private class ReleasingInvocationHandler
+            implements InvocationHandler
+    {
+        private final Connection connection;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public ReleasingInvocationHandler(Connection connection)
+        {
+            this.connection = requireNonNull(connection, "connection is null");
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable
+        {
+            try {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            finally {
+                // the connection is given back even when closing it fails
+                if (method.getName().equals("close") && method.getParameterCount() == 0 && released.compareAndSet(false, true)) {
+                    connections.release();
+                }
+            }
+        }
+    }
+}
@@ -13,6 +13,11 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+/**
+ * Reads a column of the current row of a {@link java.sql.ResultSet}. Read functions are also
+ * called for SQL NULL values, which the caller detects with {@link java.sql.ResultSet#wasNull()}
+ * afterwards, so they must not fail on them. The value they return for a NULL is ignored.
+ */
 public interface ReadFunction
 {
     Class<?> getJavaType();
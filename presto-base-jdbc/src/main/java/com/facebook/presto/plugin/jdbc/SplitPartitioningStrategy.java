@@ -0,0 +1,27 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+public enum SplitPartitioningStrategy
+{
+    /**
+     * Splits the values between the minimum and the maximum of the partitioning column into ranges of the same width.
+     */
+    RANGE,
+    /**
+     * Assigns the rows to the splits by the remainder of the partitioning column. This avoids computing the
+     * bounds of the column, but only applies to integer columns: date columns are still partitioned on ranges.
+     */
+    MODULO,
+}
@@ -18,8 +18,14 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import javax.validation.constraints.AssertTrue;
+
 import java.util.Map;
 
+import static com.facebook.airlift.testing.ValidationAssertions.assertFailsValidation;
+import static com.facebook.airlift.testing.ValidationAssertions.assertValidates;
+import static com.facebook.presto.plugin.jdbc.SplitPartitioningStrategy.MODULO;
+import static com.facebook.presto.plugin.jdbc.SplitPartitioningStrategy.RANGE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -35,7 +41,12 @@ public class TestBaseJdbcConfig
                 .setUserCredentialName(null)
                 .setPasswordCredentialName(null)
                 .setCaseInsensitiveNameMatching(false)
-                .setCaseInsensitiveNameMatchingCacheTtl(new Duration(1, MINUTES)));
+                .setCaseInsensitiveNameMatchingCacheTtl(new Duration(1, MINUTES))
+                .setMaxConnections(null)
+                .setSplitPartitioningEnabled(false)
+                .setSplitPartitioningStrategy(RANGE)
+                .setSplitPartitioningColumns(null)
+                .setFetchSize(null));
     }
 
     @Test
@@ -49,6 +60,11 @@ public class TestBaseJdbcConfig
                 .put("password-credential-name", "bar")
                 .put("case-insensitive-name-matching", "true")
                 .put("case-insensitive-name-matching.cache-ttl", "1s")
+                .put("max-connections", "16")
+                .put("split-partitioning.enabled", "true")
+                .put("split-partitioning.strategy", "MODULO")
+                .put("split-partitioning.columns", "tpch.orders=orderkey")
+                .put("fetch-size", "5000")
                 .build();
 
         BaseJdbcConfig expected = new BaseJdbcConfig()
@@ -58,8 +74,24 @@ public class TestBaseJdbcConfig
                 .setUserCredentialName("foo")
                 .setPasswordCredentialName("bar")
                 .setCaseInsensitiveNameMatching(true)
-                .setCaseInsensitiveNameMatchingCacheTtl(new Duration(1, SECONDS));
+                .setCaseInsensitiveNameMatchingCacheTtl(new Duration(1, SECONDS))
+                .setMaxConnections(16)
+                .setSplitPartitioningEnabled(true)
+                .setSplitPartitioningStrategy(MODULO)
+                .setSplitPartitioningColumns("tpch.orders=orderkey")
+                .setFetchSize(5000);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
+
+    @Test
+    public void testSplitPartitioningValidation()
+    {
+        assertFailsValidation(
+                new BaseJdbcConfig().setConnectionUrl("jdbc:h2:mem:config").setSplitPartitioningEnabled(true),
+                "maxConnectionsSetForSplitPartitioning",
+                "max-connections must be set when split-partitioning.enabled is true",
+                AssertTrue.class);
+        assertValidates(new BaseJdbcConfig().setConnectionUrl("jdbc:h2:mem:config").setSplitPartitioningEnabled(true).setMaxConnections(4));
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.common.type.VarcharType.createVarcharType;
+import static com.facebook.presto.plugin.jdbc.TestingJdbcTypeHandle.JDBC_BIGINT;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test
+public class TestJdbcPageSource
+{
+    private static final ConnectorSession session = testSessionBuilder().build().toConnectorSession();
+
+    private TestingDatabase database;
+    private JdbcClient jdbcClient;
+    private JdbcSplit split;
+    private Map<String, JdbcColumnHandle> columnHandles;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase();
+        jdbcClient = database.getJdbcClient();
+        split = database.getSplit("example", "numbers");
+        columnHandles = database.getColumnHandles("example", "numbers");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        database.close();
+    }
+
+    @Test
+    public void testPageSourceSimple()
+    {
+        try (JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, session, split, ImmutableList.of(
+                columnHandles.get("text"),
+                columnHandles.get("text_short"),
+                columnHandles.get("value")))) {
+            Map<String, Long> data = new LinkedHashMap<>();
+            for (Page page : readPages(pageSource)) {
+                assertEquals(page.getChannelCount(), 3);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    String text = VARCHAR.getSlice(page.getBlock(0), position).toStringUtf8();
+                    assertEquals(createVarcharType(32).getSlice(page.getBlock(1), position).toStringUtf8(), text);
+                    data.put(text, BIGINT.getLong(page.getBlock(2), position));
+                }
+            }
+
+            assertEquals(data, ImmutableMap.<String, Long>builder()
+                    .put("one", 1L)
+                    .put("two", 2L)
+                    .put("three", 3L)
+                    .put("ten", 10L)
+                    .put("eleven", 11L)
+                    .put("twelve", 12L)
+                    .build());
+            assertEquals(pageSource.getCompletedPositions(), 6);
+            assertTrue(pageSource.isFinished());
+        }
+    }
+
+    @Test
+    public void testPageSourceMixedOrder()
+    {
+        try (JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, session, split, ImmutableList.of(
+                columnHandles.get("value"),
+                columnHandles.get("value"),
+                columnHandles.get("text")))) {
+            Map<String, Long> data = new LinkedHashMap<>();
+            for (Page page : readPages(pageSource)) {
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    assertEquals(BIGINT.getLong(page.getBlock(0), position), BIGINT.getLong(page.getBlock(1), position));
+                    data.put(VARCHAR.getSlice(page.getBlock(2), position).toStringUtf8(), BIGINT.getLong(page.getBlock(0), position));
+                }
+            }
+
+            assertEquals(data, ImmutableMap.<String, Long>builder()
+                    .put("one", 1L)
+                    .put("two", 2L)
+                    .put("three", 3L)
+                    .put("ten", 10L)
+                    .put("eleven", 11L)
+                    .put("twelve", 12L)
+                    .build());
+        }
+    }
+
+    @Test
+    public void testNulls()
+            throws Exception
+    {
+        try (Statement statement = database.getConnection().createStatement()) {
+            statement.execute("CREATE TABLE example.nullable_values(id bigint primary key, name varchar, amount double)");
+            statement.execute("INSERT INTO example.nullable_values VALUES (1, 'one', 1.5), (2, null, 2.5), (3, 'three', null)");
+        }
+        database.getConnection().commit();
+
+        Map<String, JdbcColumnHandle> handles = database.getColumnHandles("example", "nullable_values");
+        try (JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, session, database.getSplit("example", "nullable_values"), ImmutableList.of(
+                handles.get("id"),
+                handles.get("name"),
+                handles.get("amount")))) {
+            Map<Long, List<Object>> rows = new LinkedHashMap<>();
+            for (Page page : readPages(pageSource)) {
+                Block names = page.getBlock(1);
+                Block amounts = page.getBlock(2);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    List<Object> row = new ArrayList<>();
+                    row.add(names.isNull(position) ? null : VARCHAR.getSlice(names, position).toStringUtf8());
+                    row.add(amounts.isNull(position) ? null : DOUBLE.getDouble(amounts, position));
+                    rows.put(BIGINT.getLong(page.getBlock(0), position), row);
+                }
+            }
+
+            assertEquals(rows.size(), 3);
+            assertEquals(rows.get(1L), ImmutableList.of("one", 1.5));
+            assertNull(rows.get(2L).get(0));
+            assertEquals(rows.get(2L).get(1), 2.5);
+            assertEquals(rows.get(3L).get(0), "three");
+            assertNull(rows.get(3L).get(1));
+        }
+    }
+
+    @Test
+    public void testNoColumns()
+    {
+        try (JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, session, split, ImmutableList.of())) {
+            int positions = 0;
+            for (Page page : readPages(pageSource)) {
+                assertEquals(page.getChannelCount(), 0);
+                positions += page.getPositionCount();
+            }
+            assertEquals(positions, 6);
+        }
+    }
+
+    @Test
+    public void testUnknownColumn()
+    {
+        try {
+            new JdbcPageSource(jdbcClient, session, split, ImmutableList.of(
+                    new JdbcColumnHandle("test", "missing", JDBC_BIGINT, BIGINT, true, Optional.empty())));
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), JdbcErrorCode.JDBC_ERROR.toErrorCode());
+        }
+    }
+
+    @Test
+    public void testIdempotentClose()
+    {
+        JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, session, split, ImmutableList.of(
+                columnHandles.get("value"),
+                columnHandles.get("text")));
+        assertFalse(pageSource.isFinished());
+        pageSource.close();
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+    }
+
+    private static List<Page> readPages(ConnectorPageSource pageSource)
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                pages.add(page.getLoadedPage());
+            }
+        }
+        return pages.build();
+    }
+}
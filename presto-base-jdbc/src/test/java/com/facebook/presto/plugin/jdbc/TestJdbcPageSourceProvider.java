@@ -17,10 +17,10 @@ import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.common.Page;
 import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSplitSource;
-import com.facebook.presto.spi.RecordCursor;
-import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.google.common.collect.ImmutableList;
@@ -38,6 +38,7 @@ import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.common.type.VarcharType.createVarcharType;
+import static com.facebook.presto.spi.SplitContext.NON_CACHEABLE;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
 import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
 import static com.google.common.collect.Iterables.getOnlyElement;
@@ -46,7 +47,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
 @Test
-public class TestJdbcRecordSetProvider
+public class TestJdbcPageSourceProvider
 {
     private static final JdbcIdentity IDENTITY = new JdbcIdentity("user", ImmutableMap.of());
 
@@ -83,20 +84,24 @@ public class TestJdbcRecordSetProvider
     }
 
     @Test
-    public void testGetRecordSet()
+    public void testCreatePageSource()
+            throws Exception
     {
         ConnectorTransactionHandle transaction = new JdbcTransactionHandle();
-        JdbcRecordSetProvider recordSetProvider = new JdbcRecordSetProvider(jdbcClient);
-        RecordSet recordSet = recordSetProvider.getRecordSet(transaction, SESSION, split, ImmutableList.of(textColumn, textShortColumn, valueColumn));
-        assertNotNull(recordSet, "recordSet is null");
-
-        RecordCursor cursor = recordSet.cursor();
-        assertNotNull(cursor, "cursor is null");
-
+        JdbcPageSourceProvider pageSourceProvider = new JdbcPageSourceProvider(jdbcClient);
         Map<String, Long> data = new LinkedHashMap<>();
-        while (cursor.advanceNextPosition()) {
-            data.put(cursor.getSlice(0).toStringUtf8(), cursor.getLong(2));
-            assertEquals(cursor.getSlice(0), cursor.getSlice(1));
+        try (ConnectorPageSource pageSource = pageSourceProvider.createPageSource(transaction, SESSION, split, ImmutableList.of(textColumn, textShortColumn, valueColumn), NON_CACHEABLE)) {
+            assertNotNull(pageSource, "pageSource is null");
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    data.put(VARCHAR.getSlice(page.getBlock(0), position).toStringUtf8(), BIGINT.getLong(page.getBlock(2), position));
+                    assertEquals(VARCHAR.getSlice(page.getBlock(0), position), VARCHAR.getSlice(page.getBlock(1), position));
+                }
+            }
         }
         assertEquals(data, ImmutableMap.<String, Long>builder()
                 .put("one", 1L)
@@ -110,44 +115,45 @@ public class TestJdbcRecordSetProvider
 
     @Test
     public void testTupleDomain()
+            throws Exception
     {
         // single value
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.singleValue(VARCHAR, utf8Slice("foo")))));
 
         // multiple values (string)
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.union(ImmutableList.of(Domain.singleValue(VARCHAR, utf8Slice("foo")), Domain.singleValue(VARCHAR, utf8Slice("bar")))))));
 
         // inequality (string)
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.create(ValueSet.ofRanges(Range.greaterThan(VARCHAR, utf8Slice("foo"))), false))));
 
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.create(ValueSet.ofRanges(Range.greaterThan(VARCHAR, utf8Slice("foo"))), false))));
 
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.create(ValueSet.ofRanges(Range.lessThanOrEqual(VARCHAR, utf8Slice("foo"))), false))));
 
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.create(ValueSet.ofRanges(Range.lessThan(VARCHAR, utf8Slice("foo"))), false))));
 
         // is null
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.onlyNull(VARCHAR))));
 
         // not null
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.notNull(VARCHAR))));
 
         // specific value or null
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.union(ImmutableList.of(Domain.singleValue(VARCHAR, utf8Slice("foo")), Domain.onlyNull(VARCHAR))))));
 
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(textColumn, Domain.create(ValueSet.ofRanges(Range.range(VARCHAR, utf8Slice("bar"), true, utf8Slice("foo"), true)), false))));
 
-        getCursor(table, ImmutableList.of(textColumn, textShortColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, textShortColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(
                         textColumn,
                         Domain.create(ValueSet.ofRanges(
@@ -161,7 +167,7 @@ public class TestJdbcRecordSetProvider
                                 Range.range(createVarcharType(32), utf8Slice("hello"), false, utf8Slice("world"), false)),
                                 false))));
 
-        getCursor(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
+        readAll(table, ImmutableList.of(textColumn, valueColumn), TupleDomain.withColumnDomains(
                 ImmutableMap.of(
                         textColumn,
                         Domain.create(ValueSet.ofRanges(
@@ -179,16 +185,19 @@ public class TestJdbcRecordSetProvider
                                 true))));
     }
 
-    private RecordCursor getCursor(JdbcTableHandle jdbcTableHandle, List<JdbcColumnHandle> columns, TupleDomain<ColumnHandle> domain)
+    private void readAll(JdbcTableHandle jdbcTableHandle, List<JdbcColumnHandle> columns, TupleDomain<ColumnHandle> domain)
+            throws Exception
     {
         JdbcTableLayoutHandle layoutHandle = new JdbcTableLayoutHandle(SESSION.getSqlFunctionProperties(), jdbcTableHandle, domain, Optional.empty());
         ConnectorSplitSource splits = jdbcClient.getSplits(IDENTITY, layoutHandle);
         JdbcSplit split = (JdbcSplit) getOnlyElement(getFutureValue(splits.getNextBatch(NOT_PARTITIONED, 1000)).getSplits());
 
         ConnectorTransactionHandle transaction = new JdbcTransactionHandle();
-        JdbcRecordSetProvider recordSetProvider = new JdbcRecordSetProvider(jdbcClient);
-        RecordSet recordSet = recordSetProvider.getRecordSet(transaction, SESSION, split, columns);
-
-        return recordSet.cursor();
+        JdbcPageSourceProvider pageSourceProvider = new JdbcPageSourceProvider(jdbcClient);
+        try (ConnectorPageSource pageSource = pageSourceProvider.createPageSource(transaction, SESSION, split, ImmutableList.copyOf(columns), NON_CACHEABLE)) {
+            while (!pageSource.isFinished()) {
+                pageSource.getNextPage();
+            }
+        }
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.plugin.jdbc.optimization.JdbcExpression;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.plugin.jdbc.JdbcSplitPartitioner.and;
+import static com.facebook.presto.plugin.jdbc.JdbcSplitPartitioner.moduloPartitions;
+import static com.facebook.presto.plugin.jdbc.JdbcSplitPartitioner.rangePartitions;
+import static com.facebook.presto.plugin.jdbc.SplitPartitioningStrategy.MODULO;
+import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static java.util.Comparator.naturalOrder;
+import static org.testng.Assert.assertEquals;
+
+public class TestJdbcSplitPartitioning
+{
+    private static final ConnectorSession session = testSessionBuilder().build().toConnectorSession();
+    private static final List<Long> IDS = LongStream.range(-10, 90).boxed().collect(ImmutableList.toImmutableList());
+
+    @Test
+    public void testRangePartitions()
+    {
+        assertEquals(rangePartitions("c", INTEGER, 1, 12, 4), ImmutableList.of(
+                new JdbcExpression("(c < ? OR c IS NULL)", ImmutableList.of(new ConstantExpression(4L, INTEGER))),
+                new JdbcExpression("(c >= ? AND c < ?)", ImmutableList.of(new ConstantExpression(4L, INTEGER), new ConstantExpression(7L, INTEGER))),
+                new JdbcExpression("(c >= ? AND c < ?)", ImmutableList.of(new ConstantExpression(7L, INTEGER), new ConstantExpression(10L, INTEGER))),
+                new JdbcExpression("(c >= ?)", ImmutableList.of(new ConstantExpression(10L, INTEGER)))));
+
+        // no more partitions than values
+        assertEquals(rangePartitions("c", BIGINT, 5, 6, 4).size(), 2);
+        assertEquals(rangePartitions("c", BIGINT, 5, 5, 4), ImmutableList.of());
+
+        // the width of the range does not fit in a long
+        List<JdbcExpression> partitions = rangePartitions("c", BIGINT, Long.MIN_VALUE, Long.MAX_VALUE, 2);
+        assertEquals(partitions.get(1), new JdbcExpression("(c >= ?)", ImmutableList.of(new ConstantExpression(0L, BIGINT))));
+    }
+
+    @Test
+    public void testModuloPartitions()
+    {
+        assertEquals(moduloPartitions("c", "MOD(c, ?)", 3), ImmutableList.of(
+                new JdbcExpression("(MOD(c, ?) = ? OR c IS NULL)", ImmutableList.of(new ConstantExpression(3L, BIGINT), new ConstantExpression(0L, BIGINT))),
+                new JdbcExpression("(MOD(c, ?) IN (?, ?))", ImmutableList.of(new ConstantExpression(3L, BIGINT), new ConstantExpression(1L, BIGINT), new ConstantExpression(-1L, BIGINT))),
+                new JdbcExpression("(MOD(c, ?) IN (?, ?))", ImmutableList.of(new ConstantExpression(3L, BIGINT), new ConstantExpression(2L, BIGINT), new ConstantExpression(-2L, BIGINT)))));
+        assertEquals(moduloPartitions("c", "MOD(c, ?)", 1), ImmutableList.of());
+    }
+
+    @Test
+    public void testAnd()
+    {
+        JdbcExpression partition = new JdbcExpression("(c >= ?)", ImmutableList.of(new ConstantExpression(1L, BIGINT)));
+        assertEquals(and(Optional.empty(), partition), partition);
+        assertEquals(
+                and(Optional.of(new JdbcExpression("(d = ?)", ImmutableList.of(new ConstantExpression(2L, BIGINT)))), partition),
+                new JdbcExpression("((d = ?) AND (c >= ?))", ImmutableList.of(new ConstantExpression(2L, BIGINT), new ConstantExpression(1L, BIGINT))));
+    }
+
+    @Test
+    public void testPrimaryKeyPartitioning()
+            throws Exception
+    {
+        assertSplits(new BaseJdbcConfig().setSplitPartitioningEnabled(true).setMaxConnections(4), 4);
+        assertSplits(new BaseJdbcConfig().setSplitPartitioningEnabled(true).setMaxConnections(4).setSplitPartitioningStrategy(MODULO), 4);
+    }
+
+    @Test
+    public void testConfiguredColumnPartitioning()
+            throws Exception
+    {
+        // the rows with a null value are read by the first split
+        assertSplits(new BaseJdbcConfig().setSplitPartitioningEnabled(true).setMaxConnections(3).setSplitPartitioningColumns("example.events=value"), 3);
+        assertSplits(new BaseJdbcConfig().setSplitPartitioningEnabled(true).setMaxConnections(3).setSplitPartitioningColumns("example.events=value").setSplitPartitioningStrategy(MODULO), 3);
+        assertSplits(new BaseJdbcConfig().setSplitPartitioningEnabled(true).setMaxConnections(5).setSplitPartitioningColumns("example.events=day"), 5);
+    }
+
+    @Test
+    public void testNotPartitioned()
+            throws Exception
+    {
+        assertSplits(new BaseJdbcConfig(), 1);
+        // the primary key of the table is not an integer
+        try (TestingDatabase database = new TestingDatabase(new BaseJdbcConfig().setSplitPartitioningEnabled(true).setMaxConnections(4))) {
+            assertEquals(database.getSplit("example", "numbers").getAdditionalPredicate(), Optional.empty());
+        }
+    }
+
+    private static void assertSplits(BaseJdbcConfig config, int expectedSplits)
+            throws SQLException
+    {
+        try (TestingDatabase database = new TestingDatabase(config)) {
+            try (Statement statement = database.getConnection().createStatement()) {
+                statement.execute("CREATE TABLE example.events(id integer primary key, value bigint, day date)");
+                for (long id : IDS) {
+                    statement.execute(String.format("INSERT INTO example.events VALUES (%s, %s, DATE '2020-01-01' + %s)", id, id % 7 == 0 ? "null" : id * 1000, id));
+                }
+            }
+            database.getConnection().commit();
+
+            JdbcClient jdbcClient = database.getJdbcClient();
+            JdbcIdentity identity = JdbcIdentity.from(session);
+            JdbcTableHandle tableHandle = jdbcClient.getTableHandle(identity, new SchemaTableName("example", "events"));
+            JdbcColumnHandle idColumn = database.getColumnHandles("example", "events").get("id");
+            ConnectorSplitSource splitSource = jdbcClient.getSplits(identity, new JdbcTableLayoutHandle(session.getSqlFunctionProperties(), tableHandle, TupleDomain.all(), Optional.empty()));
+            List<ConnectorSplit> splits = getFutureValue(splitSource.getNextBatch(NOT_PARTITIONED, 1000)).getSplits();
+            assertEquals(splits.size(), expectedSplits);
+
+            List<Long> ids = new ArrayList<>();
+            for (ConnectorSplit split : splits) {
+                try (RecordCursor cursor = new JdbcRecordSet(jdbcClient, session, (JdbcSplit) split, ImmutableList.of(idColumn)).cursor()) {
+                    while (cursor.advanceNextPosition()) {
+                        ids.add(cursor.getLong(0));
+                    }
+                }
+            }
+            // every row is read exactly once
+            ids.sort(naturalOrder());
+            assertEquals(ids, IDS);
+        }
+    }
+}
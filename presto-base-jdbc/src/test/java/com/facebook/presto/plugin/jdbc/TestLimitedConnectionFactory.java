@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import org.h2.Driver;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestLimitedConnectionFactory
+{
+    private static final JdbcIdentity IDENTITY = JdbcIdentity.from(testSessionBuilder().build().toConnectorSession());
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMaxConnections()
+            throws Exception
+    {
+        ConnectionFactory connectionFactory = new LimitedConnectionFactory(
+                new DriverConnectionFactory(new Driver(), "jdbc:h2:mem:test" + System.nanoTime(), Optional.empty(), Optional.empty(), new Properties()),
+                2);
+
+        Connection first = connectionFactory.openConnection(IDENTITY);
+        Connection second = connectionFactory.openConnection(IDENTITY);
+        Future<Connection> third = executor.submit(() -> connectionFactory.openConnection(IDENTITY));
+        assertBlocked(third);
+
+        // closing a connection lets the waiting one open, and closing it again does not allow one more
+        first.close();
+        third.get(10, TimeUnit.SECONDS).close();
+        first.close();
+        Connection fourth = connectionFactory.openConnection(IDENTITY);
+        Future<Connection> fifth = executor.submit(() -> connectionFactory.openConnection(IDENTITY));
+        assertBlocked(fifth);
+
+        second.close();
+        fifth.get(10, TimeUnit.SECONDS).close();
+        fourth.close();
+    }
+
+    private static void assertBlocked(Future<Connection> connection)
+            throws Exception
+    {
+        try {
+            connection.get(100, TimeUnit.MILLISECONDS);
+            fail("expected opening the connection to wait");
+        }
+        catch (TimeoutException expected) {
+        }
+    }
+}
@@ -46,11 +46,17 @@ final class TestingDatabase
 
     public TestingDatabase()
             throws SQLException
+    {
+        this(new BaseJdbcConfig());
+    }
+
+    public TestingDatabase(BaseJdbcConfig config)
+            throws SQLException
     {
         String connectionUrl = "jdbc:h2:mem:test" + System.nanoTime() + "_" + ThreadLocalRandom.current().nextInt();
         jdbcClient = new BaseJdbcClient(
                 new JdbcConnectorId(CONNECTOR_ID),
-                new BaseJdbcConfig(),
+                config,
                 "\"",
                 new DriverConnectionFactory(new Driver(), connectionUrl, Optional.empty(), Optional.empty(), new Properties()));
 
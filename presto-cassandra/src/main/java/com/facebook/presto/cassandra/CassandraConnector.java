@@ -16,6 +16,7 @@ package com.facebook.presto.cassandra;
 import com.facebook.airlift.bootstrap.LifeCycleManager;
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.spi.connector.Connector;
+import com.facebook.presto.spi.connector.ConnectorCapabilities;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorRecordSetProvider;
@@ -27,9 +28,12 @@ import com.facebook.presto.spi.transaction.IsolationLevel;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Set;
 
+import static com.facebook.presto.spi.connector.ConnectorCapabilities.BLOCKING_PAGE_SOURCE;
 import static com.facebook.presto.spi.transaction.IsolationLevel.READ_UNCOMMITTED;
 import static com.facebook.presto.spi.transaction.IsolationLevel.checkConnectorSupports;
+import static com.google.common.collect.Sets.immutableEnumSet;
 import static java.util.Objects.requireNonNull;
 
 public class CassandraConnector
@@ -104,6 +108,12 @@ public class CassandraConnector
         return sessionProperties;
     }
 
+    @Override
+    public Set<ConnectorCapabilities> getCapabilities()
+    {
+        return immutableEnumSet(BLOCKING_PAGE_SOURCE);
+    }
+
     @Override
     public final void shutdown()
     {
@@ -143,6 +143,9 @@ public class ClientOptions
     @Option(name = "--disable-compression", title = "disable response compression", description = "Disable compression of query results")
     public boolean disableCompression;
 
+    @Option(name = "--binary-results", title = "binary results", description = "Request the query results as serialized pages instead of JSON rows")
+    public boolean binaryResults;
+
     public enum OutputFormat
     {
         ALIGNED,
@@ -175,6 +178,7 @@ public class ClientOptions
                 null,
                 clientRequestTimeout,
                 disableCompression,
+                binaryResults,
                 emptyMap(),
                 emptyMap());
     }
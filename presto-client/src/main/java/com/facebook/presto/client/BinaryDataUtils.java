@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockEncodingManager;
+import com.facebook.presto.common.type.BigintType;
+import com.facebook.presto.common.type.BooleanType;
+import com.facebook.presto.common.type.DateType;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.Decimals;
+import com.facebook.presto.common.type.DoubleType;
+import com.facebook.presto.common.type.IntegerType;
+import com.facebook.presto.common.type.RealType;
+import com.facebook.presto.common.type.SmallintType;
+import com.facebook.presto.common.type.TinyintType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeSignature;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.spi.page.PageCompressor;
+import com.facebook.presto.spi.page.PageDecompressor;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slices;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.common.type.StandardTypes.BIGINT;
+import static com.facebook.presto.common.type.StandardTypes.BOOLEAN;
+import static com.facebook.presto.common.type.StandardTypes.DATE;
+import static com.facebook.presto.common.type.StandardTypes.DECIMAL;
+import static com.facebook.presto.common.type.StandardTypes.DOUBLE;
+import static com.facebook.presto.common.type.StandardTypes.INTEGER;
+import static com.facebook.presto.common.type.StandardTypes.REAL;
+import static com.facebook.presto.common.type.StandardTypes.SMALLINT;
+import static com.facebook.presto.common.type.StandardTypes.TINYINT;
+import static com.facebook.presto.common.type.StandardTypes.VARBINARY;
+import static com.facebook.presto.common.type.StandardTypes.VARCHAR;
+import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPage;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPages;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Binary encoding of the query results, used when the client sends {@link PrestoHeaders#PRESTO_BINARY_RESULTS}.
+ * The rows are sent as base64 encoded serialized pages, which are either uncompressed or compressed with LZ4.
+ * The decoded values are the same Java objects as the values of the JSON results.
+ */
+public final class BinaryDataUtils
+{
+    private static final Set<String> SUPPORTED_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, REAL, BOOLEAN, VARCHAR, VARBINARY, DATE, DECIMAL);
+
+    private static final BlockEncodingManager BLOCK_ENCODING_MANAGER = new BlockEncodingManager();
+
+    private BinaryDataUtils() {}
+
+    /**
+     * Returns whether the values of all the columns can be sent as binary results.
+     * The results of the other queries are sent as JSON.
+     */
+    public static boolean isBinaryDataSupported(List<Column> columns)
+    {
+        return columns.stream()
+                .map(column -> parseTypeSignature(column.getType()))
+                .allMatch(BinaryDataUtils::isBinaryDataSupported);
+    }
+
+    public static boolean isBinaryDataSupported(TypeSignature signature)
+    {
+        return !signature.isDistinctType() && !signature.isEnum() && SUPPORTED_TYPES.contains(signature.getBase());
+    }
+
+    public static String encodeSerializedPage(SerializedPage page)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(page.getSizeInBytes());
+        writeSerializedPage(output, page);
+        return Base64.getEncoder().encodeToString(output.slice().getBytes());
+    }
+
+    public static SerializedPage decodeSerializedPage(String page)
+    {
+        return readSerializedPage(Slices.wrappedBuffer(Base64.getDecoder().decode(page)).getInput());
+    }
+
+    public static PagesSerde createPagesSerde()
+    {
+        return new PagesSerde(BLOCK_ENCODING_MANAGER, Optional.of(new Lz4PageCompressor()), Optional.of(new Lz4PageDecompressor()), Optional.empty());
+    }
+
+    public static Iterable<List<Object>> decodeData(List<Column> columns, List<String> binaryData)
+    {
+        if (binaryData == null) {
+            return null;
+        }
+        requireNonNull(columns, "columns is null");
+        return decodePages(columns, binaryData.stream()
+                .map(BinaryDataUtils::decodeSerializedPage)
+                .iterator());
+    }
+
+    /**
+     * Decodes a spooled result segment, which holds the serialized pages one after another.
+     */
+    public static List<List<Object>> decodeSegment(List<Column> columns, byte[] segment)
+    {
+        requireNonNull(columns, "columns is null");
+        return decodePages(columns, readSerializedPages(Slices.wrappedBuffer(segment).getInput()));
+    }
+
+    private static List<List<Object>> decodePages(List<Column> columns, Iterator<SerializedPage> serializedPages)
+    {
+        List<Type> types = columns.stream()
+                .map(column -> getType(parseTypeSignature(column.getType())))
+                .collect(toList());
+        PagesSerde serde = createPagesSerde();
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        while (serializedPages.hasNext()) {
+            Page page = serde.deserialize(serializedPages.next());
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                List<Object> row = new ArrayList<>(types.size());
+                for (int channel = 0; channel < types.size(); channel++) {
+                    row.add(getValue(types.get(channel), page.getBlock(channel), position));
+                }
+                rows.add(unmodifiableList(row)); // allow nulls in list
+            }
+        }
+        return rows.build();
+    }
+
+    private static Type getType(TypeSignature signature)
+    {
+        switch (signature.getBase()) {
+            case BIGINT:
+                return BigintType.BIGINT;
+            case INTEGER:
+                return IntegerType.INTEGER;
+            case SMALLINT:
+                return SmallintType.SMALLINT;
+            case TINYINT:
+                return TinyintType.TINYINT;
+            case DOUBLE:
+                return DoubleType.DOUBLE;
+            case REAL:
+                return RealType.REAL;
+            case BOOLEAN:
+                return BooleanType.BOOLEAN;
+            case VARCHAR:
+                return VarcharType.VARCHAR;
+            case VARBINARY:
+                return VarbinaryType.VARBINARY;
+            case DATE:
+                return DateType.DATE;
+            case DECIMAL:
+                return DecimalType.createDecimalType(
+                        toIntExact(signature.getParameters().get(0).getLongLiteral()),
+                        toIntExact(signature.getParameters().get(1).getLongLiteral()));
+            default:
+                throw new IllegalArgumentException("Unsupported type for binary results: " + signature);
+        }
+    }
+
+    /**
+     * Returns the value in the same form as the JSON results after {@link FixJsonDataUtils}.
+     */
+    private static Object getValue(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+        switch (type.getTypeSignature().getBase()) {
+            case BIGINT:
+                return type.getLong(block, position);
+            case INTEGER:
+                return toIntExact(type.getLong(block, position));
+            case SMALLINT:
+                return (short) type.getLong(block, position);
+            case TINYINT:
+                return (byte) type.getLong(block, position);
+            case DOUBLE:
+                return type.getDouble(block, position);
+            case REAL:
+                return intBitsToFloat(toIntExact(type.getLong(block, position)));
+            case BOOLEAN:
+                return type.getBoolean(block, position);
+            case VARCHAR:
+                return type.getSlice(block, position).toStringUtf8();
+            case VARBINARY:
+                return type.getSlice(block, position).getBytes();
+            case DATE:
+                return LocalDate.ofEpochDay(type.getLong(block, position)).toString();
+            case DECIMAL:
+                DecimalType decimalType = (DecimalType) type;
+                if (decimalType.isShort()) {
+                    return Decimals.toString(type.getLong(block, position), decimalType.getScale());
+                }
+                return Decimals.toString(type.getSlice(block, position), decimalType.getScale());
+            default:
+                throw new IllegalArgumentException("Unsupported type for binary results: " + type);
+        }
+    }
+
+    private static class Lz4PageCompressor
+            implements PageCompressor
+    {
+        private final Lz4Compressor compressor = new Lz4Compressor();
+
+        @Override
+        public int maxCompressedLength(int uncompressedSize)
+        {
+            return compressor.maxCompressedLength(uncompressedSize);
+        }
+
+        @Override
+        public int compress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
+        {
+            return compressor.compress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+        }
+
+        @Override
+        public void compress(ByteBuffer input, ByteBuffer output)
+        {
+            compressor.compress(input, output);
+        }
+    }
+
+    private static class Lz4PageDecompressor
+            implements PageDecompressor
+    {
+        private final Lz4Decompressor decompressor = new Lz4Decompressor();
+
+        @Override
+        public int decompress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
+        {
+            return decompressor.decompress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+        }
+
+        @Override
+        public void decompress(ByteBuffer input, ByteBuffer output)
+        {
+            decompressor.decompress(input, output);
+        }
+    }
+}
@@ -53,6 +53,7 @@ public class ClientSession
     private final String transactionId;
     private final Duration clientRequestTimeout;
     private final boolean compressionDisabled;
+    private final boolean binaryResults;
     private final Map<String, String> sessionFunctions;
 
     public static Builder builder(ClientSession clientSession)
@@ -88,6 +89,53 @@ public class ClientSession
             boolean compressionDisabled,
             Map<String, String> sessionFunctions,
             Map<String, String> customHeaders)
+    {
+        this(
+                server,
+                user,
+                source,
+                traceToken,
+                clientTags,
+                clientInfo,
+                catalog,
+                schema,
+                timeZoneId,
+                locale,
+                resourceEstimates,
+                properties,
+                preparedStatements,
+                roles,
+                extraCredentials,
+                transactionId,
+                clientRequestTimeout,
+                compressionDisabled,
+                false,
+                sessionFunctions,
+                customHeaders);
+    }
+
+    public ClientSession(
+            URI server,
+            String user,
+            String source,
+            Optional<String> traceToken,
+            Set<String> clientTags,
+            String clientInfo,
+            String catalog,
+            String schema,
+            String timeZoneId,
+            Locale locale,
+            Map<String, String> resourceEstimates,
+            Map<String, String> properties,
+            Map<String, String> preparedStatements,
+            Map<String, SelectedRole> roles,
+            Map<String, String> extraCredentials,
+            String transactionId,
+            Duration clientRequestTimeout,
+            boolean compressionDisabled,
+            boolean binaryResults,
+            Map<String, String> sessionFunctions,
+            Map<String, String> customHeaders)
     {
         this.server = requireNonNull(server, "server is null");
         this.user = user;
@@ -108,6 +156,7 @@ public class ClientSession
         this.customHeaders = ImmutableMap.copyOf(requireNonNull(customHeaders, "customHeaders is null"));
         this.clientRequestTimeout = clientRequestTimeout;
         this.compressionDisabled = compressionDisabled;
+        this.binaryResults = binaryResults;
         this.sessionFunctions = ImmutableMap.copyOf(requireNonNull(sessionFunctions, "sessionFunctions is null"));
 
         for (String clientTag : clientTags) {
@@ -250,6 +299,11 @@ public class ClientSession
         return compressionDisabled;
     }
 
+    public boolean isBinaryResults()
+    {
+        return binaryResults;
+    }
+
     public Map<String, String> getSessionFunctions()
     {
         return sessionFunctions;
@@ -295,6 +349,7 @@ public class ClientSession
         private String transactionId;
         private Duration clientRequestTimeout;
         private boolean compressionDisabled;
+        private boolean binaryResults;
         private Map<String, String> sessionFunctions;
 
         private Builder(ClientSession clientSession)
@@ -319,6 +374,7 @@ public class ClientSession
             transactionId = clientSession.getTransactionId();
             clientRequestTimeout = clientSession.getClientRequestTimeout();
             compressionDisabled = clientSession.isCompressionDisabled();
+            binaryResults = clientSession.isBinaryResults();
             sessionFunctions = clientSession.getSessionFunctions();
         }
 
@@ -382,6 +438,12 @@ public class ClientSession
             return this;
         }
 
+        public Builder withBinaryResults(boolean binaryResults)
+        {
+            this.binaryResults = binaryResults;
+            return this;
+        }
+
         public Builder withSessionFunctions(Map<String, String> sessionFunctions)
         {
             this.sessionFunctions = requireNonNull(sessionFunctions, "sessionFunctions is null");
@@ -409,6 +471,7 @@ public class ClientSession
                     transactionId,
                     clientRequestTimeout,
                     compressionDisabled,
+                    binaryResults,
                     sessionFunctions,
                     customHeaders);
         }
@@ -24,6 +24,7 @@ import javax.annotation.concurrent.Immutable;
 import java.net.URI;
 import java.util.List;
 
+import static com.facebook.presto.client.BinaryDataUtils.decodeData;
 import static com.facebook.presto.client.FixJsonDataUtils.fixData;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -41,12 +42,42 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final List<String> binaryData;
+    private final List<URI> segments;
     private final StatementStats stats;
     private final QueryError error;
     private final List<PrestoWarning> warnings;
     private final String updateType;
     private final Long updateCount;
 
+    public QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            List<List<Object>> data,
+            StatementStats stats,
+            QueryError error,
+            List<PrestoWarning> warnings,
+            String updateType,
+            Long updateCount)
+    {
+        this(
+                id,
+                infoUri,
+                partialCancelUri,
+                nextUri,
+                columns,
+                data,
+                null,
+                stats,
+                error,
+                warnings,
+                updateType,
+                updateCount);
+    }
+
     @JsonCreator
     public QueryResults(
             @JsonProperty("id") String id,
@@ -55,6 +86,8 @@ public class QueryResults
             @JsonProperty("nextUri") URI nextUri,
             @JsonProperty("columns") List<Column> columns,
             @JsonProperty("data") List<List<Object>> data,
+            @JsonProperty("binaryData") List<String> binaryData,
+            @JsonProperty("segments") List<URI> segments,
             @JsonProperty("stats") StatementStats stats,
             @JsonProperty("error") QueryError error,
             @JsonProperty("warnings") List<PrestoWarning> warnings,
@@ -67,7 +100,9 @@ public class QueryResults
                 partialCancelUri,
                 nextUri,
                 columns,
-                fixData(columns, data),
+                (binaryData != null) ? decodeData(columns, binaryData) : fixData(columns, data),
+                null,
+                segments,
                 stats,
                 error,
                 firstNonNull(warnings, ImmutableList.of()),
@@ -87,6 +122,45 @@ public class QueryResults
             List<PrestoWarning> warnings,
             String updateType,
             Long updateCount)
+    {
+        this(id, infoUri, partialCancelUri, nextUri, columns, data, null, stats, error, warnings, updateType, updateCount);
+    }
+
+    public QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            Iterable<List<Object>> data,
+            List<String> binaryData,
+            StatementStats stats,
+            QueryError error,
+            List<PrestoWarning> warnings,
+            String updateType,
+            Long updateCount)
+    {
+        this(id, infoUri, partialCancelUri, nextUri, columns, data, binaryData, null, stats, error, warnings, updateType, updateCount);
+    }
+
+    /**
+     * @param binaryData the rows encoded as serialized pages, which are sent instead of the data when the client requested binary results
+     * @param segments the locations of the spooled result segments, whose rows follow the rows of the data
+     */
+    public QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            Iterable<List<Object>> data,
+            List<String> binaryData,
+            List<URI> segments,
+            StatementStats stats,
+            QueryError error,
+            List<PrestoWarning> warnings,
+            String updateType,
+            Long updateCount)
     {
         this.id = requireNonNull(id, "id is null");
         this.infoUri = requireNonNull(infoUri, "infoUri is null");
@@ -94,7 +168,12 @@ public class QueryResults
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
         this.data = (data != null) ? unmodifiableIterable(data) : null;
+        this.binaryData = (binaryData != null) ? ImmutableList.copyOf(binaryData) : null;
         checkArgument(data == null || columns != null, "data present without columns");
+        checkArgument(binaryData == null || columns != null, "binary data present without columns");
+        checkArgument(data == null || binaryData == null, "data and binary data are both present");
+        this.segments = (segments != null) ? ImmutableList.copyOf(segments) : null;
+        checkArgument(segments == null || columns != null, "segments present without columns");
         this.stats = requireNonNull(stats, "stats is null");
         this.error = error;
         this.warnings = ImmutableList.copyOf(requireNonNull(warnings, "warnings is null"));
@@ -169,6 +248,28 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * Returns the payload as base64 encoded serialized pages, when the client requested binary results.
+     * The payload is decoded by the client, so this is only present on the server side.
+     */
+    @Nullable
+    @JsonProperty
+    public List<String> getBinaryData()
+    {
+        return binaryData;
+    }
+
+    /**
+     * Returns the URIs of the spooled result segments, which the client downloads from the workers.
+     * The segments hold serialized pages, in the same encoding as the binary data.
+     */
+    @Nullable
+    @JsonProperty
+    public List<URI> getSegments()
+    {
+        return segments;
+    }
+
     /**
      * Returns cumulative statistics on the query being executed
      * @return {@link com.facebook.presto.client.StatementStats}
@@ -237,6 +338,8 @@ public class QueryResults
                 .add("nextUri", nextUri)
                 .add("columns", columns)
                 .add("hasData", data != null)
+                .add("hasBinaryData", binaryData != null)
+                .add("segments", segments)
                 .add("stats", stats)
                 .add("error", error)
                 .add("updateType", updateType)
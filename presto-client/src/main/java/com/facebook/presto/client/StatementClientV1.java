@@ -19,19 +19,25 @@ import com.facebook.presto.common.type.TimeZoneKey;
 import com.facebook.presto.spi.security.SelectedRole;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.units.Duration;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
@@ -41,13 +47,17 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.client.BinaryDataUtils.decodeSegment;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_SESSION_FUNCTION;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_BINARY_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_TRANSACTION_ID;
@@ -67,6 +77,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_ROLE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SOURCE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_SPOOLED_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_STARTED_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TIME_ZONE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TRACE_TOKEN;
@@ -74,6 +85,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_USER;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
@@ -112,6 +124,7 @@ class StatementClientV1
     private final Duration requestTimeoutNanos;
     private final String user;
     private final boolean compressionDisabled;
+    private final boolean binaryResults;
     private final Map<String, String> addedSessionFunctions = new ConcurrentHashMap<>();
     private final Set<String> removedSessionFunctions = newConcurrentHashSet();
 
@@ -129,6 +142,7 @@ class StatementClientV1
         this.requestTimeoutNanos = session.getClientRequestTimeout();
         this.user = session.getUser();
         this.compressionDisabled = session.isCompressionDisabled();
+        this.binaryResults = session.isBinaryResults();
 
         Request request = buildQueryRequest(session, query);
 
@@ -350,6 +364,11 @@ class StatementClientV1
         if (compressionDisabled) {
             builder.header(ACCEPT_ENCODING, "identity");
         }
+        if (binaryResults) {
+            builder.header(PRESTO_BINARY_RESULTS, "true");
+        }
+        // this client downloads the segments of spooled results
+        builder.header(PRESTO_SPOOLED_RESULTS, "true");
         return builder;
     }
 
@@ -474,7 +493,76 @@ class StatementClientV1
             removedSessionFunctions.add(urlDecode(signature));
         }
 
-        currentResults.set(results);
+        currentResults.set(downloadSegments(results));
+    }
+
+    private QueryResults downloadSegments(QueryResults results)
+    {
+        if (results.getSegments() == null) {
+            return results;
+        }
+
+        // the segments are downloaded in parallel, and their rows follow the rows of the data in order
+        List<CompletableFuture<byte[]>> downloads = results.getSegments().stream()
+                .map(this::downloadSegment)
+                .collect(toImmutableList());
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        if (results.getData() != null) {
+            rows.addAll(results.getData());
+        }
+        try {
+            for (CompletableFuture<byte[]> download : downloads) {
+                rows.addAll(decodeSegment(results.getColumns(), download.join()));
+            }
+        }
+        catch (CompletionException e) {
+            state.compareAndSet(State.RUNNING, State.CLIENT_ERROR);
+            throw new RuntimeException("Error downloading result segments", e.getCause());
+        }
+        results.getSegments().forEach(this::httpDelete);
+
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                rows.build(),
+                results.getStats(),
+                results.getError(),
+                results.getWarnings(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+    }
+
+    private CompletableFuture<byte[]> downloadSegment(URI uri)
+    {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        Request request = prepareRequest(HttpUrl.get(uri)).build();
+        httpClient.newCall(request).enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                try (ResponseBody body = response.body()) {
+                    if (response.code() != HTTP_OK) {
+                        future.completeExceptionally(new RuntimeException(format("Error downloading result segment at %s returned HTTP %s", uri, response.code())));
+                        return;
+                    }
+                    future.complete(body.bytes());
+                }
+                catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
     }
 
     private RuntimeException requestFailedException(String task, Request request, JsonResponse<QueryResults> response)
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slices;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.client.BinaryDataUtils.createPagesSerde;
+import static com.facebook.presto.client.BinaryDataUtils.encodeSerializedPage;
+import static com.facebook.presto.client.BinaryDataUtils.isBinaryDataSupported;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DecimalType.createDecimalType;
+import static com.facebook.presto.common.type.Decimals.encodeUnscaledValue;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.createVarcharType;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.lang.Float.floatToRawIntBits;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestBinaryDataUtils
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+
+    @Test
+    public void testDecodeData()
+    {
+        assertQueryResult(BIGINT, builder -> BIGINT.writeLong(builder, 1000), 1000L);
+        assertQueryResult(INTEGER, builder -> INTEGER.writeLong(builder, 100), 100);
+        assertQueryResult(SMALLINT, builder -> SMALLINT.writeLong(builder, 10), (short) 10);
+        assertQueryResult(TINYINT, builder -> TINYINT.writeLong(builder, 1), (byte) 1);
+        assertQueryResult(BOOLEAN, builder -> BOOLEAN.writeBoolean(builder, true), true);
+        assertQueryResult(DATE, builder -> DATE.writeLong(builder, LocalDate.parse("2017-07-01").toEpochDay()), "2017-07-01");
+        assertQueryResult(createDecimalType(3, 2), builder -> createDecimalType(3, 2).writeLong(builder, 215), "2.15");
+        assertQueryResult(
+                createDecimalType(30, 2),
+                builder -> createDecimalType(30, 2).writeSlice(builder, encodeUnscaledValue(new BigInteger("123456789012345678901234567889"))),
+                "1234567890123456789012345678.89");
+        assertQueryResult(REAL, builder -> REAL.writeLong(builder, floatToRawIntBits(100.23456f)), (float) 100.23456);
+        assertQueryResult(DOUBLE, builder -> DOUBLE.writeDouble(builder, 100.23456), 100.23456);
+        assertQueryResult(VARBINARY, builder -> VARBINARY.writeSlice(builder, Slices.wrappedBuffer("garbage".getBytes(UTF_8))), "garbage".getBytes(UTF_8));
+        assertQueryResult(createVarcharType(10), builder -> createVarcharType(10).writeSlice(builder, Slices.utf8Slice("teststring")), "teststring");
+    }
+
+    @Test
+    public void testBinaryDataSupported()
+    {
+        assertTrue(isBinaryDataSupported(ImmutableList.of(new Column("a", parseTypeSignature("bigint")), new Column("b", parseTypeSignature("decimal(10,2)")))));
+        assertFalse(isBinaryDataSupported(ImmutableList.of(new Column("a", parseTypeSignature("bigint")), new Column("b", parseTypeSignature("timestamp")))));
+        assertFalse(isBinaryDataSupported(ImmutableList.of(new Column("a", parseTypeSignature("array(bigint)")))));
+    }
+
+    private static void assertQueryResult(Type type, Consumer<BlockBuilder> writer, Object expected)
+    {
+        BlockBuilder builder = type.createBlockBuilder(null, 2);
+        writer.accept(builder);
+        builder.appendNull();
+        Page page = new Page(builder.build());
+
+        QueryResults results = new QueryResults(
+                "test",
+                URI.create("http://localhost"),
+                null,
+                null,
+                ImmutableList.of(new Column("test", type)),
+                null,
+                ImmutableList.of(encodeSerializedPage(createPagesSerde().serialize(page))),
+                StatementStats.builder().setState("FINISHED").build(),
+                null,
+                ImmutableList.of(),
+                null,
+                null);
+
+        // the pages are decoded when the results are received by the client
+        QueryResults decodedResults = QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS_CODEC.toJson(results));
+        assertNull(decodedResults.getBinaryData());
+        List<List<Object>> rows = newArrayList(decodedResults.getData());
+        assertEquals(rows.size(), 2);
+        assertEquals(rows.get(0).size(), 1);
+        assertEquals(rows.get(0).get(0), expected);
+        assertNull(rows.get(1).get(0));
+    }
+}
@@ -53,4 +53,12 @@ public class RuntimeMetricName
     public static final String STORAGE_READ_TIME_NANOS = "storageReadTimeNanos";
     // Size of the data retrieved by read call to storage
     public static final String STORAGE_READ_DATA_BYTES = "storageReadDataBytes";
+    // Rows passed through a partial aggregation after it was disabled for not reducing its input enough
+    public static final String PARTIAL_AGGREGATION_SKIPPED_ROWS = "partialAggregationSkippedRows";
+    // Time spent compressing serialized pages, whether or not the compressed page was used
+    public static final String PAGE_COMPRESSION_TIME_NANOS = "pageCompressionTimeNanos";
+    // Bytes saved by compressing serialized pages
+    public static final String PAGE_COMPRESSION_SAVED_BYTES = "pageCompressionSavedBytes";
+    // Bytes of serialized pages sent uncompressed without attempting compression, as earlier pages did not compress well
+    public static final String PAGE_COMPRESSION_SKIPPED_BYTES = "pageCompressionSkippedBytes";
 }
@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.common.predicate;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.slice.XxHash64;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+
+import static com.facebook.presto.common.type.RealType.REAL;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Split block Bloom filter, as described in the Parquet format specification. Every value
+ * sets one bit in each of the eight 32-bit words of a single 256-bit block, so a lookup
+ * touches one cache line only. The filter is backed by a flat int array that can be
+ * serialized, or copied off-heap, as is.
+ * <p>
+ * Values are hashed on their stack representation, so that the filter built from the
+ * blocks of a join build side can be tested with the raw values decoded by a reader.
+ * Only the types for which this representation is canonical are supported.
+ */
+public class SplitBlockBloomFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(SplitBlockBloomFilter.class).instanceSize();
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BYTES_PER_BLOCK = WORDS_PER_BLOCK * Integer.BYTES;
+    private static final int MAX_BLOCKS = 1 << 22;
+    private static final int[] SALT = {
+            0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+            0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31};
+
+    private final int[] words;
+    private final int blockCount;
+
+    @JsonCreator
+    public SplitBlockBloomFilter(@JsonProperty("words") int[] words)
+    {
+        requireNonNull(words, "words is null");
+        if (words.length == 0 || words.length % WORDS_PER_BLOCK != 0) {
+            throw new IllegalArgumentException(format("Invalid number of words: %s", words.length));
+        }
+        this.words = words;
+        this.blockCount = words.length / WORDS_PER_BLOCK;
+    }
+
+    /**
+     * Creates a filter sized for the expected number of distinct values and false positive probability.
+     */
+    public static SplitBlockBloomFilter create(long expectedValues, double falsePositiveProbability)
+    {
+        if (expectedValues <= 0) {
+            throw new IllegalArgumentException("expectedValues must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1");
+        }
+        // each of the eight bits of a value falls in its own word, so a block behaves as eight 32-bit Bloom filters with one hash function
+        double bits = -WORDS_PER_BLOCK * expectedValues / Math.log(1 - Math.pow(falsePositiveProbability, 1.0 / WORDS_PER_BLOCK));
+        long blocks = (long) Math.ceil(bits / (BYTES_PER_BLOCK * Byte.SIZE));
+        return new SplitBlockBloomFilter(new int[(int) Math.max(1, Math.min(blocks, MAX_BLOCKS)) * WORDS_PER_BLOCK]);
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return (type.getJavaType() == long.class && !type.equals(REAL)) || type instanceof VarcharType || type instanceof VarbinaryType;
+    }
+
+    public static long hash(Type type, Block block, int position)
+    {
+        if (type.getJavaType() == long.class) {
+            return hashLong(type.getLong(block, position));
+        }
+        return hashBytes(type.getSlice(block, position));
+    }
+
+    public static long hash(Type type, Object value)
+    {
+        if (type.getJavaType() == long.class) {
+            return hashLong((long) value);
+        }
+        return hashBytes((Slice) value);
+    }
+
+    public static long hashLong(long value)
+    {
+        return XxHash64.hash(value);
+    }
+
+    public static long hashBytes(Slice value)
+    {
+        return XxHash64.hash(value);
+    }
+
+    @JsonProperty
+    public int[] getWords()
+    {
+        return words;
+    }
+
+    public void insert(long hash)
+    {
+        int offset = blockOffset(hash);
+        int key = (int) hash;
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            words[offset + i] |= 1 << ((key * SALT[i]) >>> 27);
+        }
+    }
+
+    public boolean mightContain(long hash)
+    {
+        int offset = blockOffset(hash);
+        int key = (int) hash;
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            if ((words[offset + i] & (1 << ((key * SALT[i]) >>> 27))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean mightContainLong(long value)
+    {
+        return mightContain(hashLong(value));
+    }
+
+    public boolean mightContainBytes(byte[] buffer, int offset, int length)
+    {
+        return mightContain(XxHash64.hash(Slices.wrappedBuffer(buffer, offset, length)));
+    }
+
+    /**
+     * Adds the values of the other filter to this filter. Both filters must have the same size.
+     */
+    public void merge(SplitBlockBloomFilter other)
+    {
+        if (other.words.length != words.length) {
+            throw new IllegalArgumentException(format("Cannot merge Bloom filters of different sizes: %s and %s", words.length, other.words.length));
+        }
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public SplitBlockBloomFilter copy()
+    {
+        return new SplitBlockBloomFilter(words.clone());
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(words);
+    }
+
+    private int blockOffset(long hash)
+    {
+        // maps the upper half of the hash uniformly to [0, blockCount) without a division
+        return (int) (((hash >>> 32) * blockCount) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(words, ((SplitBlockBloomFilter) o).words);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString()
+    {
+        return format("SplitBlockBloomFilter{blocks=%s}", blockCount);
+    }
+}
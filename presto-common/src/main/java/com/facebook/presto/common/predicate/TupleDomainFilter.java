@@ -1321,6 +1321,86 @@ public interface TupleDomainFilter
         }
     }
 
+    /**
+     * Tests the values against a Bloom filter of the values of a join build side, after the
+     * filter derived from the domain of the column. Null values never match.
+     */
+    class BloomFilterValues
+            extends AbstractTupleDomainFilter
+    {
+        private final SplitBlockBloomFilter bloomFilter;
+        private final TupleDomainFilter delegate;
+
+        private BloomFilterValues(SplitBlockBloomFilter bloomFilter, TupleDomainFilter delegate)
+        {
+            super(delegate.isDeterministic(), false);
+            this.bloomFilter = requireNonNull(bloomFilter, "bloomFilter is null");
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        public static BloomFilterValues of(SplitBlockBloomFilter bloomFilter, TupleDomainFilter delegate)
+        {
+            return new BloomFilterValues(bloomFilter, delegate);
+        }
+
+        @Override
+        public boolean testNonNull()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            return delegate.testLong(value) && bloomFilter.mightContainLong(value);
+        }
+
+        @Override
+        public boolean testBytes(byte[] buffer, int offset, int length)
+        {
+            return delegate.testBytes(buffer, offset, length) && bloomFilter.mightContainBytes(buffer, offset, length);
+        }
+
+        @Override
+        public boolean testLength(int length)
+        {
+            return delegate.testLength(length);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            BloomFilterValues that = (BloomFilterValues) o;
+            return bloomFilter.equals(that.bloomFilter) &&
+                    delegate.equals(that.delegate);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(bloomFilter, delegate);
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder(this.getClass().getName());
+            sb.append("{bloomFilter=").append(bloomFilter);
+            sb.append(", delegate=").append(delegate);
+            sb.append("}");
+
+            return sb.toString();
+        }
+    }
+
     class BigintMultiRange
             extends AbstractTupleDomainFilter
     {
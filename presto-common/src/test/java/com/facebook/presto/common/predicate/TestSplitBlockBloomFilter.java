@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.common.predicate;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class TestSplitBlockBloomFilter
+{
+    @Test
+    public void testMightContain()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(10_000, 0.01);
+        for (long value = 0; value < 10_000; value++) {
+            filter.insert(SplitBlockBloomFilter.hashLong(value * 7));
+        }
+        for (long value = 0; value < 10_000; value++) {
+            assertTrue(filter.mightContainLong(value * 7));
+        }
+
+        long falsePositives = LongStream.range(0, 10_000)
+                .map(value -> value * 7 + 1)
+                .filter(filter::mightContainLong)
+                .count();
+        assertTrue(falsePositives < 200, "Too many false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testBytes()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(100, 0.01);
+        filter.insert(SplitBlockBloomFilter.hash(VARCHAR, utf8Slice("presto")));
+
+        byte[] buffer = "xprestox".getBytes();
+        assertTrue(filter.mightContainBytes(buffer, 1, 6));
+        assertFalse(filter.mightContainBytes(buffer, 0, 6));
+    }
+
+    @Test
+    public void testBlockHashMatchesValueHash()
+    {
+        BlockBuilder integers = INTEGER.createBlockBuilder(null, 1);
+        INTEGER.writeLong(integers, 42);
+        Block integerBlock = integers.build();
+        assertEquals(SplitBlockBloomFilter.hash(INTEGER, integerBlock, 0), SplitBlockBloomFilter.hashLong(42));
+
+        Slice value = utf8Slice("presto");
+        BlockBuilder varchars = VARCHAR.createBlockBuilder(null, 1);
+        VARCHAR.writeSlice(varchars, value);
+        Block varcharBlock = varchars.build();
+        assertEquals(SplitBlockBloomFilter.hash(VARCHAR, varcharBlock, 0), SplitBlockBloomFilter.hash(VARCHAR, value));
+    }
+
+    @Test
+    public void testMerge()
+    {
+        SplitBlockBloomFilter left = SplitBlockBloomFilter.create(1_000, 0.01);
+        SplitBlockBloomFilter right = SplitBlockBloomFilter.create(1_000, 0.01);
+        left.insert(SplitBlockBloomFilter.hashLong(1));
+        right.insert(SplitBlockBloomFilter.hashLong(2));
+
+        SplitBlockBloomFilter merged = left.copy();
+        merged.merge(right);
+        assertTrue(merged.mightContainLong(1));
+        assertTrue(merged.mightContainLong(2));
+        assertFalse(left.mightContainLong(2));
+
+        assertThrows(IllegalArgumentException.class, () -> left.merge(SplitBlockBloomFilter.create(1_000_000, 0.01)));
+    }
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(SplitBlockBloomFilter.isSupportedType(BIGINT));
+        assertTrue(SplitBlockBloomFilter.isSupportedType(DATE));
+        assertTrue(SplitBlockBloomFilter.isSupportedType(VARCHAR));
+        assertTrue(SplitBlockBloomFilter.isSupportedType(VARBINARY));
+        assertFalse(SplitBlockBloomFilter.isSupportedType(REAL));
+        assertFalse(SplitBlockBloomFilter.isSupportedType(DOUBLE));
+        assertFalse(SplitBlockBloomFilter.isSupportedType(BOOLEAN));
+    }
+
+    @Test
+    public void testJsonRoundTrip()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(1_000, 0.01);
+        filter.insert(SplitBlockBloomFilter.hashLong(123));
+
+        JsonCodec<SplitBlockBloomFilter> codec = JsonCodec.jsonCodec(SplitBlockBloomFilter.class);
+        SplitBlockBloomFilter copy = codec.fromJson(codec.toJson(filter));
+        assertEquals(copy, filter);
+        assertTrue(copy.mightContainLong(123));
+    }
+}
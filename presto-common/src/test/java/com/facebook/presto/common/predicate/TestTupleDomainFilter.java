@@ -17,6 +17,7 @@ import com.facebook.presto.common.predicate.TupleDomainFilter.BigintMultiRange;
 import com.facebook.presto.common.predicate.TupleDomainFilter.BigintRange;
 import com.facebook.presto.common.predicate.TupleDomainFilter.BigintValuesUsingBitmask;
 import com.facebook.presto.common.predicate.TupleDomainFilter.BigintValuesUsingHashTable;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BloomFilterValues;
 import com.facebook.presto.common.predicate.TupleDomainFilter.BooleanValue;
 import com.facebook.presto.common.predicate.TupleDomainFilter.BytesRange;
 import com.facebook.presto.common.predicate.TupleDomainFilter.BytesValues;
@@ -32,6 +33,7 @@ import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
 
+import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NOT_NULL;
 import static com.facebook.presto.common.type.Decimals.encodeScaledValue;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static org.testng.Assert.assertEquals;
@@ -345,6 +347,29 @@ public class TestTupleDomainFilter
         assertTrue(filter.testBytes(toBytes("apple"), 0, 5));
     }
 
+    @Test
+    public void testBloomFilterValues()
+    {
+        SplitBlockBloomFilter bloomFilter = SplitBlockBloomFilter.create(100, 0.01);
+        bloomFilter.insert(SplitBlockBloomFilter.hashLong(1));
+        bloomFilter.insert(SplitBlockBloomFilter.hashLong(20));
+
+        TupleDomainFilter filter = BloomFilterValues.of(bloomFilter, BigintRange.of(1, 10, false));
+        assertTrue(filter.testLong(1));
+
+        assertFalse(filter.testNull());
+        assertFalse(filter.testLong(2));
+        assertFalse(filter.testLong(20));
+
+        bloomFilter.insert(SplitBlockBloomFilter.hashBytes(Slices.utf8Slice("Igne")));
+        filter = BloomFilterValues.of(bloomFilter, IS_NOT_NULL);
+        assertTrue(filter.testBytes(toBytes("Igne"), 0, 4));
+        assertTrue(filter.testLength(6));
+
+        assertFalse(filter.testNull());
+        assertFalse(filter.testBytes(toBytes("natura"), 0, 6));
+    }
+
     private static byte[] sequentialBytes(byte base, int length)
     {
         byte[] bytes = new byte[length];
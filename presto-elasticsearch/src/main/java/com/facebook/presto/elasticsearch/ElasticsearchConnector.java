@@ -17,6 +17,7 @@ import com.facebook.airlift.bootstrap.LifeCycleManager;
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.connector.Connector;
+import com.facebook.presto.spi.connector.ConnectorCapabilities;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorSplitManager;
@@ -28,8 +29,10 @@ import javax.inject.Inject;
 
 import java.util.Set;
 
+import static com.facebook.presto.spi.connector.ConnectorCapabilities.BLOCKING_PAGE_SOURCE;
 import static com.facebook.presto.spi.transaction.IsolationLevel.READ_COMMITTED;
 import static com.facebook.presto.spi.transaction.IsolationLevel.checkConnectorSupports;
+import static com.google.common.collect.Sets.immutableEnumSet;
 import static java.util.Objects.requireNonNull;
 
 public class ElasticsearchConnector
@@ -89,6 +92,12 @@ public class ElasticsearchConnector
         return ImmutableSet.of(nodesSystemTable);
     }
 
+    @Override
+    public Set<ConnectorCapabilities> getCapabilities()
+    {
+        return immutableEnumSet(BLOCKING_PAGE_SOURCE);
+    }
+
     @Override
     public final void shutdown()
     {
@@ -16,6 +16,8 @@ package com.facebook.presto.hive;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.FilterFunction;
 import com.facebook.presto.common.predicate.TupleDomain;
@@ -26,6 +28,7 @@ import com.facebook.presto.common.type.MapType;
 import com.facebook.presto.common.type.RowType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.common.type.VarbinaryType;
 import com.facebook.presto.expressions.DynamicFilters;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
@@ -71,6 +74,10 @@ import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 public class FilteringPageSource
         implements ConnectorPageSource
 {
+    private static final byte DICTIONARY_ENTRY_NOT_TESTED = 0;
+    private static final byte DICTIONARY_ENTRY_PASSED = 1;
+    private static final byte DICTIONARY_ENTRY_FAILED = 2;
+
     private final ConnectorPageSource delegate;
     private final TupleDomainFilter[] domainFilters;
     private final Type[] columnTypes;
@@ -216,18 +223,45 @@ public class FilteringPageSource
         delegate.close();
     }
 
-    private static int filterBlock(Block block, Type type, TupleDomainFilter filter, int[] positions, int positionCount)
+    public static int filterBlock(Block block, Type type, TupleDomainFilter filter, int[] positions, int positionCount)
     {
+        if (block instanceof RunLengthEncodedBlock) {
+            // all the positions have the same value, e.g. partition keys and missing columns
+            Block value = ((RunLengthEncodedBlock) block).getValue();
+            boolean passed = value.isNull(0) ? filter.testNull() : testNonNullPosition(value, 0, type, filter);
+            return passed ? positionCount : 0;
+        }
+
+        Block loadedBlock = block.getLoadedBlock();
+        if (loadedBlock instanceof DictionaryBlock && ((DictionaryBlock) loadedBlock).getDictionary().getPositionCount() < positionCount) {
+            return filterDictionaryBlock((DictionaryBlock) loadedBlock, type, filter, positions, positionCount);
+        }
+
         int outputPositionsCount = 0;
         for (int i = 0; i < positionCount; i++) {
             int position = positions[i];
-            if (block.isNull(position)) {
-                if (filter.testNull()) {
-                    positions[outputPositionsCount] = position;
-                    outputPositionsCount++;
-                }
+            if (testPosition(loadedBlock, position, type, filter)) {
+                positions[outputPositionsCount] = position;
+                outputPositionsCount++;
+            }
+        }
+
+        return outputPositionsCount;
+    }
+
+    private static int filterDictionaryBlock(DictionaryBlock block, Type type, TupleDomainFilter filter, int[] positions, int positionCount)
+    {
+        // each dictionary entry is tested once, however many positions refer to it
+        Block dictionary = block.getDictionary();
+        byte[] results = new byte[dictionary.getPositionCount()];
+        int outputPositionsCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            int id = block.getId(position);
+            if (results[id] == DICTIONARY_ENTRY_NOT_TESTED) {
+                results[id] = testPosition(dictionary, id, type, filter) ? DICTIONARY_ENTRY_PASSED : DICTIONARY_ENTRY_FAILED;
             }
-            else if (testNonNullPosition(block, position, type, filter)) {
+            if (results[id] == DICTIONARY_ENTRY_PASSED) {
                 positions[outputPositionsCount] = position;
                 outputPositionsCount++;
             }
@@ -236,6 +270,14 @@ public class FilteringPageSource
         return outputPositionsCount;
     }
 
+    private static boolean testPosition(Block block, int position, Type type, TupleDomainFilter filter)
+    {
+        if (block.isNull(position)) {
+            return filter.testNull();
+        }
+        return testNonNullPosition(block, position, type, filter);
+    }
+
     private static boolean testNonNullPosition(Block block, int position, Type type, TupleDomainFilter filter)
     {
         if (type == BIGINT || type == INTEGER || type == SMALLINT || type == TINYINT || type == TIMESTAMP || type == DATE) {
@@ -263,7 +305,7 @@ public class FilteringPageSource
             }
         }
 
-        if (isVarcharType(type) || isCharType(type)) {
+        if (isVarcharType(type) || isCharType(type) || type instanceof VarbinaryType) {
             Slice slice = block.getSlice(position, 0, block.getSliceLength(position));
             return filter.testBytes((byte[]) slice.getBase(), (int) slice.getAddress() - ARRAY_BYTE_BASE_OFFSET, slice.length());
         }
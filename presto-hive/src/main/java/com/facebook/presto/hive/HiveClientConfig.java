@@ -217,6 +217,7 @@ public class HiveClientConfig
     private boolean userDefinedTypeEncodingEnabled;
 
     private boolean columnIndexFilterEnabled;
+    private boolean parquetBloomFilterEnabled = true;
     private boolean fileSplittable = true;
     private Protocol thriftProtocol = Protocol.BINARY;
     private DataSize thriftBufferSize = new DataSize(128, BYTE);
@@ -1769,6 +1770,19 @@ public class HiveClientConfig
         return this.columnIndexFilterEnabled;
     }
 
+    @Config("hive.parquet-bloom-filter-enabled")
+    @ConfigDescription("Enable pruning parquet row groups with the bloom filters of the columns")
+    public HiveClientConfig setParquetBloomFilterEnabled(boolean parquetBloomFilterEnabled)
+    {
+        this.parquetBloomFilterEnabled = parquetBloomFilterEnabled;
+        return this;
+    }
+
+    public boolean isParquetBloomFilterEnabled()
+    {
+        return parquetBloomFilterEnabled;
+    }
+
     @Config("hive.size-based-split-weights-enabled")
     public HiveClientConfig setSizeBasedSplitWeightsEnabled(boolean sizeBasedSplitWeightsEnabled)
     {
@@ -19,6 +19,7 @@ import com.facebook.airlift.event.client.EventClient;
 import com.facebook.drift.codec.guice.ThriftCodecModule;
 import com.facebook.drift.codec.utils.DefaultThriftCodecsModule;
 import com.facebook.presto.cache.ForCachingFileSystem;
+import com.facebook.presto.common.block.Block;
 import com.facebook.presto.hive.HiveDwrfEncryptionProvider.ForCryptoService;
 import com.facebook.presto.hive.HiveDwrfEncryptionProvider.ForUnknown;
 import com.facebook.presto.hive.cache.HiveCachingHdfsConfiguration;
@@ -52,14 +53,18 @@ import com.facebook.presto.orc.StripeReader.StripeId;
 import com.facebook.presto.orc.StripeReader.StripeStreamId;
 import com.facebook.presto.orc.UnsupportedEncryptionLibrary;
 import com.facebook.presto.orc.cache.CachingOrcFileTailSource;
+import com.facebook.presto.orc.cache.DecodedBlockCache;
+import com.facebook.presto.orc.cache.DecodedBlockCache.DecodedBlockId;
 import com.facebook.presto.orc.cache.OrcCacheConfig;
 import com.facebook.presto.orc.cache.OrcFileTailSource;
 import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.OrcFileTail;
 import com.facebook.presto.orc.metadata.RowGroupIndex;
 import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.parquet.cache.BloomFilterCacheKey;
 import com.facebook.presto.parquet.cache.CachingParquetMetadataSource;
 import com.facebook.presto.parquet.cache.MetadataReader;
+import com.facebook.presto.parquet.cache.ParquetBloomFilter;
 import com.facebook.presto.parquet.cache.ParquetCacheConfig;
 import com.facebook.presto.parquet.cache.ParquetFileMetadata;
 import com.facebook.presto.parquet.cache.ParquetMetadataSource;
@@ -94,6 +99,7 @@ import static com.facebook.airlift.configuration.ConfigBinder.configBinder;
 import static com.facebook.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static com.facebook.airlift.json.smile.SmileCodecBinder.smileCodecBinder;
 import static com.facebook.drift.codec.guice.ThriftCodecBinder.thriftCodecBinder;
+import static com.facebook.presto.orc.cache.DecodedBlockCache.disabledDecodedBlockCache;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static java.lang.Math.toIntExact;
@@ -179,6 +185,11 @@ public class HiveClientModule
         binder.bind(FileFormatDataSourceStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(FileFormatDataSourceStats.class).as(generatedNameOf(FileFormatDataSourceStats.class, connectorId));
 
+        configBinder(binder).bindConfig(ReadAheadConfig.class);
+        binder.bind(ReadAheadStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ReadAheadStats.class).as(generatedNameOf(ReadAheadStats.class, connectorId));
+        binder.bind(ReadAheadScheduler.class).in(Scopes.SINGLETON);
+
         binder.bind(EncryptionLibrary.class).annotatedWith(ForCryptoService.class).to(UnsupportedEncryptionLibrary.class).in(Scopes.SINGLETON);
         binder.bind(EncryptionLibrary.class).annotatedWith(ForUnknown.class).to(UnsupportedEncryptionLibrary.class).in(Scopes.SINGLETON);
         binder.bind(HiveDwrfEncryptionProvider.class).in(Scopes.SINGLETON);
@@ -254,6 +265,16 @@ public class HiveClientModule
         return newCachedThreadPool(daemonThreadsNamed("hive-metadata-updater-" + hiveClientId + "-%s"));
     }
 
+    @ForReadAhead
+    @Singleton
+    @Provides
+    public ExecutorService createReadAheadExecutor(HiveConnectorId hiveClientId, ReadAheadConfig readAheadConfig)
+    {
+        return newFixedThreadPool(
+                readAheadConfig.getThreads(),
+                daemonThreadsNamed("hive-read-ahead-" + hiveClientId + "-%s"));
+    }
+
     @ForFileRename
     @Singleton
     @Provides
@@ -342,6 +363,24 @@ public class HiveClientModule
         return factory;
     }
 
+    @Singleton
+    @Provides
+    public DecodedBlockCache createDecodedBlockCache(OrcCacheConfig orcCacheConfig, MBeanExporter exporter)
+    {
+        if (!orcCacheConfig.isDecodedBlockCacheEnabled()) {
+            return disabledDecodedBlockCache();
+        }
+        Cache<DecodedBlockId, Block> cache = CacheBuilder.newBuilder()
+                .maximumWeight(orcCacheConfig.getDecodedBlockCacheSize().toBytes())
+                .weigher((id, block) -> toIntExact(((Block) block).getRetainedSizeInBytes()))
+                .expireAfterAccess(orcCacheConfig.getDecodedBlockCacheTtlSinceLastAccess().toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+        CacheStatsMBean cacheStatsMBean = new CacheStatsMBean(cache);
+        exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_DecodedBlock"), cacheStatsMBean);
+        return new DecodedBlockCache(cache);
+    }
+
     @Singleton
     @Provides
     public ParquetMetadataSource createParquetMetadataSource(ParquetCacheConfig parquetCacheConfig, MBeanExporter exporter)
@@ -355,7 +394,18 @@ public class HiveClientModule
                     .recordStats()
                     .build();
             CacheStatsMBean cacheStatsMBean = new CacheStatsMBean(cache);
-            parquetMetadataSource = new CachingParquetMetadataSource(cache, parquetMetadataSource);
+            Optional<Cache<BloomFilterCacheKey, ParquetBloomFilter>> bloomFilterCache = Optional.empty();
+            if (parquetCacheConfig.getBloomFilterCacheSize().toBytes() > 0) {
+                Cache<BloomFilterCacheKey, ParquetBloomFilter> cacheOfBloomFilters = CacheBuilder.newBuilder()
+                        .maximumWeight(parquetCacheConfig.getBloomFilterCacheSize().toBytes())
+                        .weigher((key, bloomFilter) -> ((ParquetBloomFilter) bloomFilter).getBitsetSize())
+                        .expireAfterAccess(parquetCacheConfig.getMetadataCacheTtlSinceLastAccess().toMillis(), MILLISECONDS)
+                        .recordStats()
+                        .build();
+                exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_ParquetBloomFilter"), new CacheStatsMBean(cacheOfBloomFilters));
+                bloomFilterCache = Optional.of(cacheOfBloomFilters);
+            }
+            parquetMetadataSource = new CachingParquetMetadataSource(cache, bloomFilterCache, parquetMetadataSource);
             exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_ParquetMetadata"), cacheStatsMBean);
         }
         return parquetMetadataSource;
@@ -18,6 +18,7 @@ import com.facebook.presto.common.Subfield.NestedField;
 import com.facebook.presto.common.Subfield.PathElement;
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.NullableValue;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeManager;
@@ -36,6 +37,7 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SplitContext;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionService;
 import com.google.common.annotations.VisibleForTesting;
@@ -47,10 +49,12 @@ import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -99,6 +103,7 @@ public class HivePageSourceProvider
     private final Set<HiveSelectivePageSourceFactory> selectivePageSourceFactories;
     private final TypeManager typeManager;
     private final RowExpressionService rowExpressionService;
+    private final StandardFunctionResolution functionResolution;
     private final LoadingCache<RowExpressionCacheKey, RowExpression> optimizedRowExpressionCache;
 
     @Inject
@@ -109,7 +114,8 @@ public class HivePageSourceProvider
             Set<HiveBatchPageSourceFactory> pageSourceFactories,
             Set<HiveSelectivePageSourceFactory> selectivePageSourceFactories,
             TypeManager typeManager,
-            RowExpressionService rowExpressionService)
+            RowExpressionService rowExpressionService,
+            StandardFunctionResolution functionResolution)
     {
         requireNonNull(hiveClientConfig, "hiveClientConfig is null");
         this.hiveStorageTimeZone = hiveClientConfig.getDateTimeZone();
@@ -119,6 +125,7 @@ public class HivePageSourceProvider
         this.selectivePageSourceFactories = ImmutableSet.copyOf(requireNonNull(selectivePageSourceFactories, "selectivePageSourceFactories is null"));
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
+        this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
         this.optimizedRowExpressionCache = CacheBuilder.newBuilder()
                 .recordStats()
                 .maximumSize(10_000)
@@ -141,6 +148,10 @@ public class HivePageSourceProvider
                 .collect(toList());
 
         HiveSplit hiveSplit = (HiveSplit) split;
+        if (isFilteredAggregationOfNonOrcFile(hiveLayout, hiveSplit, selectedColumns)) {
+            return createPartialAggregationPageSource(transaction, session, hiveSplit, hiveLayout, selectedColumns, splitContext);
+        }
+
         Path path = new Path(hiveSplit.getFileSplit().getPath());
 
         Configuration configuration = hdfsEnvironment.getConfiguration(
@@ -225,6 +236,55 @@ public class HivePageSourceProvider
         throw new IllegalStateException("Could not find a file reader for split " + hiveSplit);
     }
 
+    /**
+     * Partial aggregations are only pushed into filtered scans of ORC tables, whose partitions may still have files of
+     * other formats. These files cannot answer the aggregations, so the rows matching the filter are read and aggregated.
+     */
+    private static boolean isFilteredAggregationOfNonOrcFile(HiveTableLayoutHandle layout, HiveSplit split, List<HiveColumnHandle> columns)
+    {
+        return layout.isPushdownFilterEnabled() &&
+                !layout.getPredicateColumns().isEmpty() &&
+                !OrcSerde.class.getName().equals(split.getStorage().getStorageFormat().getSerDe()) &&
+                columns.stream().anyMatch(column -> column.getColumnType() == AGGREGATED);
+    }
+
+    private ConnectorPageSource createPartialAggregationPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            HiveSplit split,
+            HiveTableLayoutHandle layout,
+            List<HiveColumnHandle> columns,
+            SplitContext splitContext)
+    {
+        List<HiveColumnHandle> argumentColumns = new ArrayList<>();
+        ImmutableList.Builder<Integer> inputChannels = ImmutableList.builder();
+        for (HiveColumnHandle column : columns) {
+            checkArgument(column.getColumnType() == AGGREGATED, "Unexpected column in an aggregated scan: %s", column);
+            if (column.getPartialAggregation().get().getArguments().isEmpty()) {
+                inputChannels.add(-1);
+                continue;
+            }
+            // aggregated columns have the index of their argument
+            checkArgument(column.getHiveColumnIndex() < layout.getDataColumns().size(), "Argument of %s is not a data column", column);
+            Column dataColumn = layout.getDataColumns().get(column.getHiveColumnIndex());
+            HiveColumnHandle argumentColumn = new HiveColumnHandle(
+                    dataColumn.getName(),
+                    column.getHiveType(),
+                    column.getHiveType().getTypeSignature(),
+                    column.getHiveColumnIndex(),
+                    REGULAR,
+                    Optional.empty(),
+                    Optional.empty());
+            if (!argumentColumns.contains(argumentColumn)) {
+                argumentColumns.add(argumentColumn);
+            }
+            inputChannels.add(argumentColumns.indexOf(argumentColumn));
+        }
+
+        ConnectorPageSource delegate = createPageSource(transaction, session, split, layout, ImmutableList.copyOf(argumentColumns), splitContext);
+        return new PartialAggregationPageSource(columns, inputChannels.build(), delegate, typeManager, functionResolution);
+    }
+
     @VisibleForTesting
     protected static CacheQuota generateCacheQuota(HiveSplit hiveSplit)
     {
@@ -316,6 +376,7 @@ public class HivePageSourceProvider
                     outputColumns,
                     splitContext.getDynamicFilterPredicate().map(filter -> filter.transform(
                             handle -> new Subfield(((HiveColumnHandle) handle).getName())).intersect(layout.getDomainPredicate())).orElse(layout.getDomainPredicate()),
+                    toSubfieldBloomFilters(splitContext.getDynamicFilterBloomFilters()),
                     optimizedRemainingPredicate,
                     hiveStorageTimeZone,
                     new HiveFileContext(
@@ -516,7 +577,7 @@ public class HivePageSourceProvider
             List<ColumnMapping> regularAndInterimColumnMappings,
             Optional<BucketAdaptation> bucketAdaptation)
     {
-        if (!hiveColumns.isEmpty() && hiveColumns.stream().allMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
+        if (hiveColumns.stream().anyMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
             throw new UnsupportedOperationException("Partial aggregation pushdown only supported for ORC/Parquet files. " +
                     "Table " + tableName.toString() + " has file (" + fileSplit.getPath() + ") of format " + storage.getStorageFormat().getOutputFormat() +
                     ". Set session property hive.pushdown_partial_aggregations_into_scan=false and execute query again");
@@ -600,6 +661,13 @@ public class HivePageSourceProvider
         return Optional.empty();
     }
 
+    private static Map<Subfield, SplitBlockBloomFilter> toSubfieldBloomFilters(Map<ColumnHandle, SplitBlockBloomFilter> bloomFilters)
+    {
+        return bloomFilters.entrySet().stream()
+                .filter(entry -> ((HiveColumnHandle) entry.getKey()).getColumnType() == REGULAR)
+                .collect(toImmutableMap(entry -> new Subfield(((HiveColumnHandle) entry.getKey()).getName()), Map.Entry::getValue));
+    }
+
     private static boolean shouldSkipBucket(HiveTableLayoutHandle hiveLayout, HiveSplit hiveSplit, SplitContext splitContext)
     {
         if (!splitContext.getDynamicFilterPredicate().isPresent()
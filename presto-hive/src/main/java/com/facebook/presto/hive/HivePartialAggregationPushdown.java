@@ -49,6 +49,8 @@ import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveSessionProperties.isPartialAggregationPushdownEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isPartialAggregationPushdownForVariableLengthDatatypesEnabled;
 import static com.facebook.presto.hive.HiveStorageFormat.ORC;
@@ -144,7 +146,7 @@ public class HivePartialAggregationPushdown
 
             if (tableScanNode.getTable().getLayout().isPresent()) {
                 HiveTableLayoutHandle hiveTableLayoutHandle = (HiveTableLayoutHandle) tableScanNode.getTable().getLayout().get();
-                if (!hiveTableLayoutHandle.getPredicateColumns().isEmpty()) {
+                if (!hiveTableLayoutHandle.getPredicateColumns().isEmpty() && !isFilterSupported(hiveStorageFormat, hiveTableLayoutHandle)) {
                     return false;
                 }
             }
@@ -198,6 +200,27 @@ public class HivePartialAggregationPushdown
             return true;
         }
 
+        /**
+         * ORC files answer the aggregations of the stripes that only have rows matching the filter from the stripe
+         * statistics, and read the other stripes with the filter applied. The filter must be a conjunction of
+         * domains on the data columns, which is checked against the statistics of each stripe.
+         */
+        private boolean isFilterSupported(HiveStorageFormat hiveStorageFormat, HiveTableLayoutHandle hiveTableLayoutHandle)
+        {
+            if (hiveStorageFormat != ORC || !hiveTableLayoutHandle.isPushdownFilterEnabled() || hiveTableLayoutHandle.isFooterStatsUnreliable()) {
+                return false;
+            }
+            if (!TRUE_CONSTANT.equals(hiveTableLayoutHandle.getRemainingPredicate())) {
+                return false;
+            }
+            if (!hiveTableLayoutHandle.getDomainPredicate().getDomains().isPresent() ||
+                    hiveTableLayoutHandle.getDomainPredicate().getDomains().get().keySet().stream().anyMatch(subfield -> !subfield.getPath().isEmpty())) {
+                return false;
+            }
+            return hiveTableLayoutHandle.getPredicateColumns().values().stream()
+                    .allMatch(column -> column.getColumnType() == REGULAR);
+        }
+
         private Optional<PlanNode> tryPartialAggregationPushdown(PlanNode plan)
         {
             if (!(plan instanceof AggregationNode
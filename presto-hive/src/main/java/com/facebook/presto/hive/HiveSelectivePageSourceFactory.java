@@ -14,6 +14,7 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.spi.ConnectorPageSource;
@@ -39,6 +40,7 @@ public interface HiveSelectivePageSourceFactory
             Optional<BucketAdaptation> bucketAdaptation,
             List<Integer> outputColumns,                    // element is hiveColumnIndex
             TupleDomain<Subfield> domainPredicate,
+            Map<Subfield, SplitBlockBloomFilter> bloomFilters,   // join build-side values of entire columns; tested after domainPredicate
             RowExpression remainingPredicate,               // refers to columns by name; already optimized
             DateTimeZone hiveStorageTimeZone,
             HiveFileContext hiveFileContext,
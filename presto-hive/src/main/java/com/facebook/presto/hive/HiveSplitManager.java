@@ -17,6 +17,7 @@ import com.facebook.airlift.concurrent.BoundedExecutor;
 import com.facebook.airlift.stats.CounterStat;
 import com.facebook.presto.common.Subfield;
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.NullableValue;
 import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.SortedRangeSet;
 import com.facebook.presto.common.predicate.TupleDomain;
@@ -240,6 +241,14 @@ public class HiveSplitManager
         List<HivePartition> partitions = layout.getPartitions()
                 .orElseThrow(() -> new PrestoException(GENERIC_INTERNAL_ERROR, "Layout does not contain partitions"));
 
+        // prune the partitions rejected by the dynamic filters produced by the other stages of the query
+        if (splitSchedulingContext.getDynamicFilter().isPresent()) {
+            TupleDomain<ColumnHandle> dynamicFilter = splitSchedulingContext.getDynamicFilter().get().get();
+            partitions = partitions.stream()
+                    .filter(hivePartition -> partitionMatches(hivePartition, dynamicFilter))
+                    .collect(toImmutableList());
+        }
+
         // short circuit if we don't have any partitions
         HivePartition partition = Iterables.getFirst(partitions, null);
         if (partition == null) {
@@ -298,6 +307,21 @@ public class HiveSplitManager
         return splitSource;
     }
 
+    private static boolean partitionMatches(HivePartition partition, TupleDomain<ColumnHandle> predicate)
+    {
+        if (predicate.isNone()) {
+            return false;
+        }
+        Map<ColumnHandle, Domain> domains = predicate.getDomains().get();
+        for (Entry<ColumnHandle, NullableValue> entry : partition.getKeys().entrySet()) {
+            Domain allowedDomain = domains.get(entry.getKey());
+            if (allowedDomain != null && !allowedDomain.includesNullableValue(entry.getValue().getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private HiveSplitSource computeSplitSource(SplitSchedulingContext splitSchedulingContext,
                                                Table table,
                                                ConnectorSession session,
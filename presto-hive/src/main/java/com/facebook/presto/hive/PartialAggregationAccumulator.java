@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.spi.function.FunctionHandle;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.AGGREGATED;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Accumulates the rows of a scan for a partial aggregation (count, min or max) pushed down into the scan.
+ */
+public class PartialAggregationAccumulator
+{
+    private final Kind kind;
+    private final Type type;
+    private final Type inputType;
+    private final int inputChannel;
+
+    private long count;
+    private Block value;
+
+    /**
+     * @param inputChannel the channel of the argument of the aggregation in the input pages, or -1 for count(*)
+     */
+    public PartialAggregationAccumulator(HiveColumnHandle columnHandle, int inputChannel, TypeManager typeManager, StandardFunctionResolution functionResolution)
+    {
+        checkArgument(columnHandle.getColumnType() == AGGREGATED, "column is not aggregated: %s", columnHandle);
+        FunctionHandle functionHandle = columnHandle.getPartialAggregation().get().getFunctionHandle();
+        boolean hasArgument = !columnHandle.getPartialAggregation().get().getArguments().isEmpty();
+        if (functionResolution.isCountFunction(functionHandle)) {
+            kind = hasArgument ? Kind.COUNT : Kind.COUNT_ALL;
+        }
+        else if (functionResolution.isMinFunction(functionHandle)) {
+            kind = Kind.MIN;
+        }
+        else if (functionResolution.isMaxFunction(functionHandle)) {
+            kind = Kind.MAX;
+        }
+        else {
+            throw new UnsupportedOperationException(functionHandle + " is not supported");
+        }
+        checkArgument(hasArgument == (inputChannel >= 0), "inputChannel must be set if and only if the aggregation has an argument");
+
+        this.type = typeManager.getType(columnHandle.getTypeSignature());
+        this.inputType = hasArgument ? columnHandle.getHiveType().getType(typeManager) : BIGINT;
+        this.inputChannel = inputChannel;
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public Type getInputType()
+    {
+        return inputType;
+    }
+
+    public void addInput(Page page)
+    {
+        if (kind == Kind.COUNT_ALL) {
+            count += page.getPositionCount();
+            return;
+        }
+
+        Block block = page.getBlock(inputChannel);
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            if (kind == Kind.COUNT) {
+                count++;
+            }
+            else if (value == null || isBetter(inputType.compareTo(block, position, value, 0))) {
+                value = block.getSingleValueBlock(position);
+            }
+        }
+    }
+
+    public void writeResult(BlockBuilder blockBuilder)
+    {
+        if (kind == Kind.COUNT_ALL || kind == Kind.COUNT) {
+            BIGINT.writeLong(blockBuilder, count);
+        }
+        else if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else {
+            type.appendTo(value, 0, blockBuilder);
+        }
+    }
+
+    private boolean isBetter(int comparison)
+    {
+        return kind == Kind.MIN ? comparison < 0 : comparison > 0;
+    }
+
+    public enum Kind
+    {
+        COUNT_ALL,
+        COUNT,
+        MIN,
+        MAX
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the partial aggregations pushed down into a scan of a file that cannot answer them by itself.
+ * The delegate reads the arguments of the aggregations with the filter of the scan applied, and its rows
+ * are aggregated into a single row.
+ */
+public class PartialAggregationPageSource
+        implements ConnectorPageSource
+{
+    private final List<PartialAggregationAccumulator> accumulators;
+    private final ConnectorPageSource delegate;
+
+    private boolean finished;
+
+    /**
+     * @param inputChannels the channel of the argument of each aggregation in the pages of the delegate, or -1 for count(*)
+     */
+    public PartialAggregationPageSource(
+            List<HiveColumnHandle> columnHandles,
+            List<Integer> inputChannels,
+            ConnectorPageSource delegate,
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution)
+    {
+        requireNonNull(columnHandles, "columnHandles is null");
+        requireNonNull(inputChannels, "inputChannels is null");
+        checkArgument(columnHandles.size() == inputChannels.size(), "columnHandles and inputChannels have different sizes");
+        ImmutableList.Builder<PartialAggregationAccumulator> accumulators = ImmutableList.builder();
+        for (int i = 0; i < columnHandles.size(); i++) {
+            accumulators.add(new PartialAggregationAccumulator(columnHandles.get(i), inputChannels.get(i), typeManager, functionResolution));
+        }
+        this.accumulators = accumulators.build();
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return delegate.getCompletedPositions();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        return delegate.getRuntimeStats();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+
+        if (!delegate.isFinished()) {
+            Page page = delegate.getNextPage();
+            if (page != null) {
+                page = page.getLoadedPage();
+                for (PartialAggregationAccumulator accumulator : accumulators) {
+                    accumulator.addInput(page);
+                }
+            }
+            return null;
+        }
+
+        finished = true;
+        PageBuilder pageBuilder = new PageBuilder(accumulators.stream()
+                .map(PartialAggregationAccumulator::getType)
+                .collect(toImmutableList()));
+        pageBuilder.declarePosition();
+        for (int i = 0; i < accumulators.size(); i++) {
+            accumulators.get(i).writeResult(pageBuilder.getBlockBuilder(i));
+        }
+        return pageBuilder.build();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+}
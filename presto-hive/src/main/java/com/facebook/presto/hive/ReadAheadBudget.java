@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Bounds the bytes read ahead and not yet consumed by the read ahead buffers of a query on a worker.
+ */
+public class ReadAheadBudget
+{
+    private final long maxBufferedBytes;
+
+    @GuardedBy("this")
+    private long bufferedBytes;
+
+    public ReadAheadBudget(long maxBufferedBytes)
+    {
+        checkArgument(maxBufferedBytes > 0, "maxBufferedBytes must be positive");
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * @return true if the bytes are reserved, false if they would exceed the budget
+     */
+    public synchronized boolean tryReserve(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        if (bufferedBytes + bytes > maxBufferedBytes) {
+            return false;
+        }
+        bufferedBytes += bytes;
+        return true;
+    }
+
+    public synchronized void free(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkState(bytes <= bufferedBytes, "freed bytes exceed the reserved bytes");
+        bufferedBytes -= bytes;
+    }
+
+    public synchronized long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+}
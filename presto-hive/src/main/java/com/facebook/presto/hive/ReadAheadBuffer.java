@@ -0,0 +1,336 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.orc.DiskRange;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.max;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads ahead the regions of a file that a reader reads in order, such as the stripes of an ORC file or the row
+ * groups of a Parquet file. When the reader starts reading a region, the ranges of the next region are coalesced
+ * and read on the read ahead pool while the current region is decoded. The buffer is used by the thread of the
+ * reader, only the reads of the ranges run on the pool.
+ */
+public class ReadAheadBuffer
+        implements Closeable
+{
+    private final PositionReader reader;
+    private final ListeningExecutorService executor;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadSize;
+    private final ReadAheadBudget budget;
+    private final Runnable onClose;
+    private final ReadAheadStats stats;
+
+    // updated by the threads of the pool
+    private final AtomicLong readBytes = new AtomicLong();
+    private final AtomicLong readTimeNanos = new AtomicLong();
+
+    private final Map<Integer, List<BufferedRange>> bufferedRanges = new HashMap<>();
+    private List<Region> regions = ImmutableList.of();
+    private int currentRegion = -1;
+    private long bufferedBytes;
+    private boolean closed;
+
+    ReadAheadBuffer(
+            PositionReader reader,
+            ListeningExecutorService executor,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            ReadAheadBudget budget,
+            Runnable onClose,
+            ReadAheadStats stats)
+    {
+        this.reader = requireNonNull(reader, "reader is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
+        this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+        this.budget = requireNonNull(budget, "budget is null");
+        this.onClose = requireNonNull(onClose, "onClose is null");
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    /**
+     * Sets the regions in the order they are read, and starts reading the first one.
+     */
+    public void setRegions(List<Region> regions)
+    {
+        checkState(this.regions.isEmpty(), "regions are already set");
+        this.regions = ImmutableList.copyOf(requireNonNull(regions, "regions is null"));
+        readAhead(0);
+    }
+
+    /**
+     * @return the data of the range, or null if the range was not read ahead and must be read by the caller
+     */
+    public Slice read(long position, int length)
+            throws IOException
+    {
+        int region = findRegion(position);
+        if (region < 0) {
+            return null;
+        }
+        if (region != currentRegion) {
+            startRegion(region);
+        }
+
+        for (BufferedRange range : bufferedRanges.getOrDefault(region, ImmutableList.of())) {
+            if (range.contains(position, length)) {
+                return range.read(position, length);
+            }
+        }
+        if (regions.get(region).isReadAhead(position, length)) {
+            stats.miss();
+        }
+        return null;
+    }
+
+    public long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    public long getReadBytes()
+    {
+        return readBytes.get();
+    }
+
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos.get();
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (List<BufferedRange> ranges : bufferedRanges.values()) {
+            release(ranges);
+        }
+        bufferedRanges.clear();
+        onClose.run();
+    }
+
+    private int findRegion(long position)
+    {
+        for (int region = max(currentRegion, 0); region < regions.size(); region++) {
+            if (regions.get(region).contains(position)) {
+                return region;
+            }
+        }
+        return -1;
+    }
+
+    private void startRegion(int region)
+    {
+        // the regions before the current one are not read again
+        Iterator<Map.Entry<Integer, List<BufferedRange>>> iterator = bufferedRanges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, List<BufferedRange>> entry = iterator.next();
+            if (entry.getKey() < region) {
+                release(entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        currentRegion = region;
+        readAhead(region);
+        readAhead(region + 1);
+    }
+
+    private void readAhead(int region)
+    {
+        if (closed || region >= regions.size() || bufferedRanges.containsKey(region)) {
+            return;
+        }
+
+        ImmutableList.Builder<BufferedRange> ranges = ImmutableList.builder();
+        List<DiskRange> regionRanges;
+        try {
+            regionRanges = regions.get(region).loadRanges();
+        }
+        catch (IOException e) {
+            // the region is read by the reader, which reports the failure
+            regionRanges = ImmutableList.of();
+        }
+        for (DiskRange range : regionRanges.isEmpty() ? regionRanges : mergeAdjacentDiskRanges(regionRanges, maxMergeDistance, maxReadSize)) {
+            // the ranges over the budget of the query are read by the reader when it needs them
+            if (!budget.tryReserve(range.getLength())) {
+                continue;
+            }
+            ranges.add(new BufferedRange(range, executor.submit(() -> readRange(range))));
+            bufferedBytes += range.getLength();
+            stats.readAhead(range.getLength());
+        }
+        bufferedRanges.put(region, ranges.build());
+    }
+
+    private byte[] readRange(DiskRange range)
+            throws IOException
+    {
+        byte[] buffer = new byte[range.getLength()];
+        long start = System.nanoTime();
+        reader.readFully(range.getOffset(), buffer, 0, buffer.length);
+        readTimeNanos.addAndGet(System.nanoTime() - start);
+        readBytes.addAndGet(buffer.length);
+        return buffer;
+    }
+
+    private void release(List<BufferedRange> ranges)
+    {
+        for (BufferedRange range : ranges) {
+            // interrupting a read can close the channel of the file, which is shared with the reader
+            range.future.cancel(false);
+            if (!range.consumed) {
+                stats.discarded(range.range.getLength());
+            }
+            bufferedBytes -= range.range.getLength();
+            budget.free(range.range.getLength());
+        }
+    }
+
+    public interface PositionReader
+    {
+        void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException;
+    }
+
+    public interface RangeLoader
+    {
+        List<DiskRange> load()
+                throws IOException;
+    }
+
+    public static final class Region
+    {
+        private final long offset;
+        private final long length;
+        private final RangeLoader rangeLoader;
+        private List<DiskRange> ranges;
+
+        /**
+         * @param offset the start of the range of the file that the reader reads when it reads the region
+         * @param length the length of the range of the file that the reader reads when it reads the region
+         * @param ranges the ranges of the region that are read ahead
+         */
+        public Region(long offset, long length, List<DiskRange> ranges)
+        {
+            this(offset, length, fixedRanges(ranges));
+        }
+
+        /**
+         * @param rangeLoader loads the ranges of the region that are read ahead, when the region is about to be
+         * read ahead, for the formats that list the ranges of a region in the region itself
+         */
+        public Region(long offset, long length, RangeLoader rangeLoader)
+        {
+            checkArgument(offset >= 0, "offset is negative");
+            checkArgument(length >= 0, "length is negative");
+            this.offset = offset;
+            this.length = length;
+            this.rangeLoader = requireNonNull(rangeLoader, "rangeLoader is null");
+        }
+
+        private List<DiskRange> loadRanges()
+                throws IOException
+        {
+            if (ranges == null) {
+                List<DiskRange> loadedRanges = ImmutableList.copyOf(rangeLoader.load());
+                checkArgument(loadedRanges.stream().allMatch(range -> range.getOffset() >= offset && range.getEnd() <= offset + length), "ranges must be in the region");
+                ranges = loadedRanges;
+            }
+            return ranges;
+        }
+
+        private static RangeLoader fixedRanges(List<DiskRange> ranges)
+        {
+            List<DiskRange> fixedRanges = ImmutableList.copyOf(requireNonNull(ranges, "ranges is null"));
+            return () -> fixedRanges;
+        }
+
+        private boolean contains(long position)
+        {
+            return position >= offset && position < offset + length;
+        }
+
+        private boolean isReadAhead(long position, int length)
+        {
+            if (ranges == null) {
+                return false;
+            }
+            DiskRange diskRange = new DiskRange(position, length);
+            return ranges.stream().anyMatch(range -> range.contains(diskRange));
+        }
+    }
+
+    private final class BufferedRange
+    {
+        private final DiskRange range;
+        private final ListenableFuture<byte[]> future;
+        private boolean consumed;
+
+        private BufferedRange(DiskRange range, ListenableFuture<byte[]> future)
+        {
+            this.range = requireNonNull(range, "range is null");
+            this.future = requireNonNull(future, "future is null");
+        }
+
+        private boolean contains(long position, int length)
+        {
+            return position >= range.getOffset() && position + length <= range.getEnd();
+        }
+
+        private Slice read(long position, int length)
+                throws IOException
+        {
+            byte[] data;
+            if (future.isDone()) {
+                data = getFutureValue(future, IOException.class);
+                stats.hit();
+            }
+            else {
+                long start = System.nanoTime();
+                data = getFutureValue(future, IOException.class);
+                stats.stalled(System.nanoTime() - start);
+            }
+            consumed = true;
+            return wrappedBuffer(data, toIntExact(position - range.getOffset()), length);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.MaxDataSize;
+import io.airlift.units.MinDataSize;
+
+import javax.validation.constraints.Min;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class ReadAheadConfig
+{
+    private boolean enabled;
+    private int threads = 32;
+    private DataSize maxMergeDistance = new DataSize(1, MEGABYTE);
+    private DataSize maxReadSize = new DataSize(8, MEGABYTE);
+    private DataSize maxBufferedSize = new DataSize(64, MEGABYTE);
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("hive.read-ahead.enabled")
+    @ConfigDescription("Read the next stripe or row group of ORC and Parquet files in the background while the current one is decoded")
+    public ReadAheadConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    @Config("hive.read-ahead.threads")
+    @ConfigDescription("Number of threads reading ahead for all the queries on a worker")
+    public ReadAheadConfig setThreads(int threads)
+    {
+        this.threads = threads;
+        return this;
+    }
+
+    public DataSize getMaxMergeDistance()
+    {
+        return maxMergeDistance;
+    }
+
+    @Config("hive.read-ahead.max-merge-distance")
+    @ConfigDescription("Maximum gap between two ranges that are read ahead in a single request")
+    public ReadAheadConfig setMaxMergeDistance(DataSize maxMergeDistance)
+    {
+        this.maxMergeDistance = maxMergeDistance;
+        return this;
+    }
+
+    @MinDataSize("1kB")
+    @MaxDataSize("1GB")
+    public DataSize getMaxReadSize()
+    {
+        return maxReadSize;
+    }
+
+    @Config("hive.read-ahead.max-read-size")
+    @ConfigDescription("Maximum size of a single request that reads ahead")
+    public ReadAheadConfig setMaxReadSize(DataSize maxReadSize)
+    {
+        this.maxReadSize = maxReadSize;
+        return this;
+    }
+
+    @MinDataSize("1kB")
+    public DataSize getMaxBufferedSize()
+    {
+        return maxBufferedSize;
+    }
+
+    @Config("hive.read-ahead.max-buffered-size")
+    @ConfigDescription("Maximum size of the data read ahead and not yet consumed for a query on a worker")
+    public ReadAheadConfig setMaxBufferedSize(DataSize maxBufferedSize)
+    {
+        this.maxBufferedSize = maxBufferedSize;
+        return this;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates the read ahead buffers of the ORC and Parquet files read by a worker. The buffers share a bounded pool
+ * of threads that read the data ahead of the readers, and the buffers of a query share a budget of buffered bytes.
+ */
+public class ReadAheadScheduler
+{
+    private final boolean enabled;
+    private final ListeningExecutorService executor;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadSize;
+    private final DataSize maxBufferedSize;
+    private final ReadAheadStats stats;
+
+    @GuardedBy("this")
+    private final Map<String, QueryBudget> queryBudgets = new HashMap<>();
+
+    @Inject
+    public ReadAheadScheduler(ReadAheadConfig config, @ForReadAhead ExecutorService executor, ReadAheadStats stats)
+    {
+        requireNonNull(config, "config is null");
+        this.enabled = config.isEnabled();
+        this.executor = listeningDecorator(requireNonNull(executor, "executor is null"));
+        this.maxMergeDistance = config.getMaxMergeDistance();
+        this.maxReadSize = config.getMaxReadSize();
+        this.maxBufferedSize = config.getMaxBufferedSize();
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    public static ReadAheadScheduler disabledReadAheadScheduler()
+    {
+        return new ReadAheadScheduler(new ReadAheadConfig().setEnabled(false), newDirectExecutorService(), new ReadAheadStats());
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public ReadAheadBuffer createBuffer(String queryId, ReadAheadBuffer.PositionReader reader)
+    {
+        requireNonNull(queryId, "queryId is null");
+        checkState(enabled, "read ahead is disabled");
+        ReadAheadBudget budget = acquireBudget(queryId);
+        return new ReadAheadBuffer(reader, executor, maxMergeDistance, maxReadSize, budget, () -> releaseBudget(queryId), stats);
+    }
+
+    synchronized int getQueryBudgetCount()
+    {
+        return queryBudgets.size();
+    }
+
+    private synchronized ReadAheadBudget acquireBudget(String queryId)
+    {
+        QueryBudget queryBudget = queryBudgets.computeIfAbsent(queryId, id -> new QueryBudget(new ReadAheadBudget(maxBufferedSize.toBytes())));
+        queryBudget.buffers++;
+        return queryBudget.budget;
+    }
+
+    private synchronized void releaseBudget(String queryId)
+    {
+        QueryBudget queryBudget = queryBudgets.get(queryId);
+        checkState(queryBudget != null, "no budget for query %s", queryId);
+        queryBudget.buffers--;
+        if (queryBudget.buffers == 0) {
+            queryBudgets.remove(queryId);
+        }
+    }
+
+    private static class QueryBudget
+    {
+        private final ReadAheadBudget budget;
+        // the open buffers of the query, guarded by the scheduler
+        private int buffers;
+
+        private QueryBudget(ReadAheadBudget budget)
+        {
+            this.budget = requireNonNull(budget, "budget is null");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class ReadAheadStats
+{
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final TimeStat stallTime = new TimeStat(MILLISECONDS);
+    private final CounterStat readAheadBytes = new CounterStat();
+    private final CounterStat discardedBytes = new CounterStat();
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getStallTime()
+    {
+        return stallTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getReadAheadBytes()
+    {
+        return readAheadBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDiscardedBytes()
+    {
+        return discardedBytes;
+    }
+
+    public void hit()
+    {
+        hits.update(1);
+    }
+
+    public void miss()
+    {
+        misses.update(1);
+    }
+
+    public void stalled(long nanos)
+    {
+        stallTime.add(nanos, NANOSECONDS);
+    }
+
+    public void readAhead(long bytes)
+    {
+        readAheadBytes.update(bytes);
+    }
+
+    public void discarded(long bytes)
+    {
+        discardedBytes.update(bytes);
+    }
+}
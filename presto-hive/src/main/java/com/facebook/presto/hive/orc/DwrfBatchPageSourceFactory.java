@@ -52,6 +52,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxReadBlockS
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcTinyStripeThreshold;
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcZstdJniDecompressionEnabled;
+import static com.facebook.presto.hive.ReadAheadScheduler.disabledReadAheadScheduler;
 import static com.facebook.presto.hive.orc.OrcBatchPageSourceFactory.createOrcPageSource;
 import static com.facebook.presto.orc.OrcEncoding.DWRF;
 import static java.util.Objects.requireNonNull;
@@ -115,6 +116,7 @@ public class DwrfBatchPageSourceFactory
                 DWRF,
                 hdfsEnvironment,
                 session.getUser(),
+                session.getQueryId(),
                 configuration,
                 fileSplit,
                 columns,
@@ -139,6 +141,8 @@ public class DwrfBatchPageSourceFactory
                         .withZstdJniDecompressionEnabled(isOrcZstdJniDecompressionEnabled(session))
                         .build(),
                 encryptionInformation,
-                dwrfEncryptionProvider));
+                dwrfEncryptionProvider,
+                // the stripe metadata of DWRF files can be served by the stripe cache of the file tail
+                disabledReadAheadScheduler()));
     }
 }
@@ -15,6 +15,7 @@ package com.facebook.presto.hive.orc;
 
 import com.facebook.hive.orc.OrcSerde;
 import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.hive.BucketAdaptation;
@@ -48,8 +49,10 @@ import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.facebook.presto.hive.ReadAheadScheduler.disabledReadAheadScheduler;
 import static com.facebook.presto.hive.orc.OrcSelectivePageSourceFactory.createOrcPageSource;
 import static com.facebook.presto.orc.OrcEncoding.DWRF;
+import static com.facebook.presto.orc.cache.DecodedBlockCache.disabledDecodedBlockCache;
 import static java.util.Objects.requireNonNull;
 
 public class DwrfSelectivePageSourceFactory
@@ -103,6 +106,7 @@ public class DwrfSelectivePageSourceFactory
             Optional<BucketAdaptation> bucketAdaptation,
             List<Integer> outputColumns,
             TupleDomain<Subfield> domainPredicate,
+            Map<Subfield, SplitBlockBloomFilter> bloomFilters,
             RowExpression remainingPredicate,
             DateTimeZone hiveStorageTimeZone,
             HiveFileContext hiveFileContext,
@@ -130,6 +134,7 @@ public class DwrfSelectivePageSourceFactory
                 bucketAdaptation,
                 outputColumns,
                 domainPredicate,
+                bloomFilters,
                 remainingPredicate,
                 false,
                 hiveStorageTimeZone,
@@ -146,6 +151,9 @@ public class DwrfSelectivePageSourceFactory
                 encryptionInformation,
                 dwrfEncryptionProvider,
                 appendRowNumberEnabled,
-                footerStatsUnreliable));
+                footerStatsUnreliable,
+                // the stripe metadata of DWRF files can be served by the stripe cache of the file tail
+                disabledReadAheadScheduler(),
+                disabledDecodedBlockCache()));
     }
 }
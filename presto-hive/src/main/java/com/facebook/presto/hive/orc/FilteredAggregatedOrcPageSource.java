@@ -0,0 +1,334 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.PartialAggregationAccumulator;
+import com.facebook.presto.hive.PartialAggregationAccumulator.Kind;
+import com.facebook.presto.orc.OrcAggregatedMemoryContext;
+import com.facebook.presto.orc.OrcCorruptionException;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcSelectiveRecordReader;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.facebook.presto.common.type.TypeUtils.writeNativeValue;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.facebook.presto.orc.TupleDomainOrcPredicate.getDomain;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the partial aggregations pushed down into a scan of an ORC file with a filter on its data columns.
+ * A row with the partial aggregations of each stripe that only has rows matching the filter is computed from
+ * the stripe statistics, without reading the data streams of the stripe. The stripes that may have rows that
+ * do not match the filter are read with the filter applied, and are aggregated into one more row.
+ */
+public class FilteredAggregatedOrcPageSource
+        implements ConnectorPageSource
+{
+    private final List<PartialAggregation> aggregations;
+    private final List<Type> types;
+    private final PageBuilder statisticsRows;
+    private final Deque<StripeInformation> scannedStripes = new ArrayDeque<>();
+    private final Function<StripeInformation, OrcSelectiveRecordReader> recordReaderFactory;
+    private final OrcDataSource orcDataSource;
+    private final OrcAggregatedMemoryContext systemMemoryContext;
+    private final FileFormatDataSourceStats stats;
+    private final RuntimeStats runtimeStats;
+
+    private OrcSelectiveRecordReader recordReader;
+    private boolean scannedRows;
+    private long completedPositions;
+    private boolean closed;
+
+    /**
+     * @param inputChannels the channel of the argument of each aggregation in the pages of the scanned stripes, or -1 for count(*)
+     */
+    public FilteredAggregatedOrcPageSource(
+            List<HiveColumnHandle> columnHandles,
+            List<Integer> inputChannels,
+            Function<StripeInformation, OrcSelectiveRecordReader> recordReaderFactory,
+            OrcDataSource orcDataSource,
+            OrcAggregatedMemoryContext systemMemoryContext,
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            FileFormatDataSourceStats stats,
+            RuntimeStats runtimeStats)
+    {
+        requireNonNull(columnHandles, "columnHandles is null");
+        requireNonNull(inputChannels, "inputChannels is null");
+        checkArgument(columnHandles.size() == inputChannels.size(), "columnHandles and inputChannels have different sizes");
+        requireNonNull(typeManager, "typeManager is null");
+        requireNonNull(functionResolution, "functionResolution is null");
+
+        ImmutableList.Builder<PartialAggregation> aggregations = ImmutableList.builder();
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        for (int i = 0; i < columnHandles.size(); i++) {
+            PartialAggregation aggregation = new PartialAggregation(columnHandles.get(i), inputChannels.get(i), typeManager, functionResolution);
+            aggregations.add(aggregation);
+            types.add(aggregation.getType());
+        }
+        this.aggregations = aggregations.build();
+        this.types = types.build();
+        this.statisticsRows = new PageBuilder(this.types);
+        this.recordReaderFactory = requireNonNull(recordReaderFactory, "recordReaderFactory is null");
+        this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
+        this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.runtimeStats = runtimeStats;
+    }
+
+    /**
+     * Adds a row with the partial aggregations of a stripe that only has rows matching the filter.
+     *
+     * @return false if the statistics do not have the values of all the aggregations, and the stripe must be scanned
+     */
+    public boolean addStripeStatistics(long rowCount, Map<Integer, ColumnStatistics> statisticsByColumnIndex)
+    {
+        Object[] values = new Object[aggregations.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = aggregations.get(i).getValue(rowCount, statisticsByColumnIndex);
+            if (values[i] == PartialAggregation.UNKNOWN) {
+                return false;
+            }
+        }
+
+        statisticsRows.declarePosition();
+        for (int i = 0; i < values.length; i++) {
+            writeNativeValue(types.get(i), statisticsRows.getBlockBuilder(i), values[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a stripe that may have rows that do not match the filter, and is read with the filter applied.
+     */
+    public void addScannedStripe(StripeInformation stripe)
+    {
+        checkState(!scannedRows && recordReader == null, "stripes must be added before the first page is read");
+        scannedStripes.add(requireNonNull(stripe, "stripe is null"));
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return orcDataSource.getReadBytes();
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return completedPositions;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return orcDataSource.getReadTimeNanos();
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        return runtimeStats;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+
+        try {
+            if (recordReader == null && !scannedStripes.isEmpty()) {
+                recordReader = recordReaderFactory.apply(scannedStripes.poll());
+            }
+
+            if (recordReader != null) {
+                Page page = recordReader.getNextPage();
+                if (page == null) {
+                    completedPositions += recordReader.getReadPositions();
+                    stats.addMaxCombinedBytesPerRow(recordReader.getMaxCombinedBytesPerRow());
+                    // closes the stream readers of the stripe, the data source is shared by the stripes
+                    recordReader.close();
+                    recordReader = null;
+                }
+                else {
+                    page = page.getLoadedPage();
+                    for (PartialAggregation aggregation : aggregations) {
+                        aggregation.addInput(page);
+                    }
+                    scannedRows = true;
+                }
+                return null;
+            }
+
+            // the rows of the scanned stripes are aggregated into a single row
+            if (scannedRows) {
+                statisticsRows.declarePosition();
+                for (int i = 0; i < aggregations.size(); i++) {
+                    aggregations.get(i).writeResult(statisticsRows.getBlockBuilder(i));
+                }
+            }
+            Page page = statisticsRows.isEmpty() ? null : statisticsRows.build();
+            close();
+            return page;
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (OrcCorruptionException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_BAD_DATA, e);
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, format("Failed to read ORC file: %s", orcDataSource.getId()), e);
+        }
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return systemMemoryContext.getBytes();
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (Closer closer = Closer.create()) {
+            closer.register(orcDataSource);
+            if (recordReader != null) {
+                closer.register(recordReader::close);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeWithSuppression(Throwable throwable)
+    {
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            // Self-suppression not permitted
+            if (throwable != e) {
+                throwable.addSuppressed(e);
+            }
+        }
+    }
+
+    private static class PartialAggregation
+    {
+        // the value of an aggregation that the statistics do not have
+        private static final Object UNKNOWN = new Object();
+
+        private final PartialAggregationAccumulator accumulator;
+        private final int columnIndex;
+
+        public PartialAggregation(HiveColumnHandle columnHandle, int inputChannel, TypeManager typeManager, StandardFunctionResolution functionResolution)
+        {
+            this.accumulator = new PartialAggregationAccumulator(columnHandle, inputChannel, typeManager, functionResolution);
+            this.columnIndex = columnHandle.getHiveColumnIndex();
+        }
+
+        public Type getType()
+        {
+            return accumulator.getType();
+        }
+
+        /**
+         * @return the partial aggregation of a stripe as a native value, or {@link #UNKNOWN} if the statistics do not have it
+         */
+        public Object getValue(long rowCount, Map<Integer, ColumnStatistics> statisticsByColumnIndex)
+        {
+            Kind kind = accumulator.getKind();
+            if (kind == Kind.COUNT_ALL) {
+                return rowCount;
+            }
+
+            ColumnStatistics statistics = statisticsByColumnIndex.get(columnIndex);
+            if (statistics == null || !statistics.hasNumberOfValues()) {
+                return UNKNOWN;
+            }
+            if (kind == Kind.COUNT) {
+                return statistics.getNumberOfValues();
+            }
+            if (statistics.getNumberOfValues() == 0) {
+                return null;
+            }
+
+            Domain domain = getDomain(accumulator.getInputType(), rowCount, statistics);
+            if (domain.getValues().isNone()) {
+                return null;
+            }
+            Range span = domain.getValues().getRanges().getSpan();
+            if (kind == Kind.MIN) {
+                return span.isLowUnbounded() ? UNKNOWN : span.getLowBoundedValue();
+            }
+            return span.isHighUnbounded() ? UNKNOWN : span.getHighBoundedValue();
+        }
+
+        public void addInput(Page page)
+        {
+            accumulator.addInput(page);
+        }
+
+        public void writeResult(BlockBuilder blockBuilder)
+        {
+            accumulator.writeResult(blockBuilder);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.OrcDataSourceInput;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shares a data source between several record readers, which close their data source when they are closed.
+ * The owner of the delegate is responsible for closing it.
+ */
+final class NonClosingOrcDataSource
+        implements OrcDataSource
+{
+    private final OrcDataSource delegate;
+
+    public NonClosingOrcDataSource(OrcDataSource delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public OrcDataSourceId getId()
+    {
+        return delegate.getId();
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return delegate.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        delegate.readFully(position, buffer);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        delegate.readFully(position, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, OrcDataSourceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        return delegate.readFully(diskRanges);
+    }
+
+    @Override
+    public void close()
+    {
+        // the delegate is closed by its owner
+    }
+
+    @Override
+    public String toString()
+    {
+        return delegate.toString();
+    }
+}
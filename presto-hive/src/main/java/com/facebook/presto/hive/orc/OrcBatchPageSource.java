@@ -134,6 +134,14 @@ public class OrcBatchPageSource
         return orcDataSource.getReadTimeNanos();
     }
 
+    /**
+     * Returns the position in the file of the first row of the last page.
+     */
+    public long getFilePosition()
+    {
+        return recordReader.getFilePosition();
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -25,6 +25,7 @@ import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
+import com.facebook.presto.hive.ReadAheadScheduler;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.DwrfKeyProvider;
@@ -76,6 +77,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcTinyStripeThr
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcZstdJniDecompressionEnabled;
 import static com.facebook.presto.hive.HiveUtil.getPhysicalHiveColumnHandles;
+import static com.facebook.presto.hive.ReadAheadScheduler.disabledReadAheadScheduler;
 import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
@@ -95,6 +97,7 @@ public class OrcBatchPageSourceFactory
     private final int domainCompactionThreshold;
     private final OrcFileTailSource orcFileTailSource;
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
+    private final ReadAheadScheduler readAheadScheduler;
 
     @Inject
     public OrcBatchPageSourceFactory(
@@ -104,7 +107,8 @@ public class OrcBatchPageSourceFactory
             HdfsEnvironment hdfsEnvironment,
             FileFormatDataSourceStats stats,
             OrcFileTailSource orcFileTailSource,
-            StripeMetadataSourceFactory stripeMetadataSourceFactory)
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            ReadAheadScheduler readAheadScheduler)
     {
         this(
                 typeManager,
@@ -114,7 +118,8 @@ public class OrcBatchPageSourceFactory
                 stats,
                 config.getDomainCompactionThreshold(),
                 orcFileTailSource,
-                stripeMetadataSourceFactory);
+                stripeMetadataSourceFactory,
+                readAheadScheduler);
     }
 
     public OrcBatchPageSourceFactory(
@@ -126,6 +131,29 @@ public class OrcBatchPageSourceFactory
             int domainCompactionThreshold,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory)
+    {
+        this(
+                typeManager,
+                functionResolution,
+                useOrcColumnNames,
+                hdfsEnvironment,
+                stats,
+                domainCompactionThreshold,
+                orcFileTailSource,
+                stripeMetadataSourceFactory,
+                disabledReadAheadScheduler());
+    }
+
+    public OrcBatchPageSourceFactory(
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            int domainCompactionThreshold,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            ReadAheadScheduler readAheadScheduler)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
@@ -135,6 +163,7 @@ public class OrcBatchPageSourceFactory
         this.domainCompactionThreshold = domainCompactionThreshold;
         this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailSource is null");
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
+        this.readAheadScheduler = requireNonNull(readAheadScheduler, "readAheadScheduler is null");
     }
 
     @Override
@@ -164,6 +193,7 @@ public class OrcBatchPageSourceFactory
                 ORC,
                 hdfsEnvironment,
                 session.getUser(),
+                session.getQueryId(),
                 configuration,
                 fileSplit,
                 columns,
@@ -188,13 +218,15 @@ public class OrcBatchPageSourceFactory
                         .withZstdJniDecompressionEnabled(isOrcZstdJniDecompressionEnabled(session))
                         .build(),
                 encryptionInformation,
-                NO_ENCRYPTION));
+                NO_ENCRYPTION,
+                readAheadScheduler));
     }
 
     public static ConnectorPageSource createOrcPageSource(
             OrcEncoding orcEncoding,
             HdfsEnvironment hdfsEnvironment,
             String sessionUser,
+            String queryId,
             Configuration configuration,
             HiveFileSplit fileSplit,
             List<HiveColumnHandle> columns,
@@ -214,14 +246,16 @@ public class OrcBatchPageSourceFactory
             HiveFileContext hiveFileContext,
             OrcReaderOptions orcReaderOptions,
             Optional<EncryptionInformation> encryptionInformation,
-            DwrfEncryptionProvider dwrfEncryptionProvider)
+            DwrfEncryptionProvider dwrfEncryptionProvider,
+            ReadAheadScheduler readAheadScheduler)
     {
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
 
         OrcDataSource orcDataSource;
+        FSDataInputStream inputStream;
         Path path = new Path(fileSplit.getPath());
         try {
-            FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(sessionUser, path, configuration).openFile(path, hiveFileContext);
+            inputStream = hdfsEnvironment.getFileSystem(sessionUser, path, configuration).openFile(path, hiveFileContext);
 
             orcDataSource = new HdfsOrcDataSource(
                     new OrcDataSourceId(fileSplit.getPath()),
@@ -242,6 +276,14 @@ public class OrcBatchPageSourceFactory
         }
 
         OrcAggregatedMemoryContext systemMemoryUsage = new HiveOrcAggregatedMemoryContext();
+        Optional<ReadAheadOrcDataSource> readAheadDataSource = Optional.empty();
+        if (readAheadScheduler.isEnabled()) {
+            readAheadDataSource = Optional.of(new ReadAheadOrcDataSource(
+                    orcDataSource,
+                    readAheadScheduler.createBuffer(queryId, inputStream::readFully),
+                    systemMemoryUsage.newOrcLocalMemoryContext(ReadAheadOrcDataSource.class.getSimpleName())));
+            orcDataSource = readAheadDataSource.get();
+        }
         try {
             DwrfKeyProvider dwrfKeyProvider = new ProjectionBasedDwrfKeyProvider(encryptionInformation, columns, useOrcColumnNames, path);
             OrcReader reader = new OrcReader(
@@ -281,6 +323,7 @@ public class OrcBatchPageSourceFactory
                     hiveStorageTimeZone,
                     systemMemoryUsage,
                     INITIAL_BATCH_SIZE);
+            readAheadDataSource.ifPresent(dataSource -> dataSource.readAhead(reader, recordReader.getIncludedOrcColumns(), fileSplit.getStart(), fileSplit.getLength(), predicate));
 
             return new OrcBatchPageSource(
                     recordReader,
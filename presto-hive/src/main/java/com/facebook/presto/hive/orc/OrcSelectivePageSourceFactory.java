@@ -16,9 +16,12 @@ package com.facebook.presto.hive.orc;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.Subfield;
 import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BloomFilterValues;
 import com.facebook.presto.common.relation.Predicate;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeManager;
@@ -36,6 +39,7 @@ import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
 import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
 import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.ReadAheadScheduler;
 import com.facebook.presto.hive.SubfieldExtractor;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
@@ -50,7 +54,10 @@ import com.facebook.presto.orc.OrcReaderOptions;
 import com.facebook.presto.orc.OrcSelectiveRecordReader;
 import com.facebook.presto.orc.StripeMetadataSourceFactory;
 import com.facebook.presto.orc.TupleDomainOrcPredicate;
+import com.facebook.presto.orc.cache.DecodedBlockCache;
 import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.FixedPageSource;
@@ -97,6 +104,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NOT_NULL;
 import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
 import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.expressions.LogicalRowExpressions.and;
@@ -120,9 +128,11 @@ import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEn
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcZstdJniDecompressionEnabled;
 import static com.facebook.presto.hive.HiveUtil.getPhysicalHiveColumnHandles;
 import static com.facebook.presto.hive.HiveUtil.typedPartitionKey;
+import static com.facebook.presto.hive.ReadAheadScheduler.disabledReadAheadScheduler;
 import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.orc.cache.DecodedBlockCache.disabledDecodedBlockCache;
 import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.AND;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.nullToEmpty;
@@ -147,6 +157,8 @@ public class OrcSelectivePageSourceFactory
     private final OrcFileTailSource orcFileTailSource;
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
     private final TupleDomainFilterCache tupleDomainFilterCache;
+    private final ReadAheadScheduler readAheadScheduler;
+    private final DecodedBlockCache decodedBlockCache;
 
     @Inject
     public OrcSelectivePageSourceFactory(
@@ -158,7 +170,9 @@ public class OrcSelectivePageSourceFactory
             FileFormatDataSourceStats stats,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
-            TupleDomainFilterCache tupleDomainFilterCache)
+            TupleDomainFilterCache tupleDomainFilterCache,
+            ReadAheadScheduler readAheadScheduler,
+            DecodedBlockCache decodedBlockCache)
     {
         this(
                 typeManager,
@@ -170,7 +184,9 @@ public class OrcSelectivePageSourceFactory
                 config.getDomainCompactionThreshold(),
                 orcFileTailSource,
                 stripeMetadataSourceFactory,
-                tupleDomainFilterCache);
+                tupleDomainFilterCache,
+                readAheadScheduler,
+                decodedBlockCache);
     }
 
     public OrcSelectivePageSourceFactory(
@@ -184,6 +200,35 @@ public class OrcSelectivePageSourceFactory
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
             TupleDomainFilterCache tupleDomainFilterCache)
+    {
+        this(
+                typeManager,
+                functionResolution,
+                rowExpressionService,
+                useOrcColumnNames,
+                hdfsEnvironment,
+                stats,
+                domainCompactionThreshold,
+                orcFileTailSource,
+                stripeMetadataSourceFactory,
+                tupleDomainFilterCache,
+                disabledReadAheadScheduler(),
+                disabledDecodedBlockCache());
+    }
+
+    public OrcSelectivePageSourceFactory(
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            RowExpressionService rowExpressionService,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            int domainCompactionThreshold,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            TupleDomainFilterCache tupleDomainFilterCache,
+            ReadAheadScheduler readAheadScheduler,
+            DecodedBlockCache decodedBlockCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
@@ -195,6 +240,8 @@ public class OrcSelectivePageSourceFactory
         this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailCache is null");
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
         this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
+        this.readAheadScheduler = requireNonNull(readAheadScheduler, "readAheadScheduler is null");
+        this.decodedBlockCache = requireNonNull(decodedBlockCache, "decodedBlockCache is null");
     }
 
     @Override
@@ -209,6 +256,7 @@ public class OrcSelectivePageSourceFactory
             Optional<BucketAdaptation> bucketAdaptation,
             List<Integer> outputColumns,
             TupleDomain<Subfield> domainPredicate,
+            Map<Subfield, SplitBlockBloomFilter> bloomFilters,
             RowExpression remainingPredicate,
             DateTimeZone hiveStorageTimeZone,
             HiveFileContext hiveFileContext,
@@ -237,6 +285,7 @@ public class OrcSelectivePageSourceFactory
                 bucketAdaptation,
                 outputColumns,
                 domainPredicate,
+                bloomFilters,
                 remainingPredicate,
                 useOrcColumnNames,
                 hiveStorageTimeZone,
@@ -253,7 +302,9 @@ public class OrcSelectivePageSourceFactory
                 encryptionInformation,
                 NO_ENCRYPTION,
                 appendRowNumberEnabled,
-                footerStatsUnreliable));
+                footerStatsUnreliable,
+                readAheadScheduler,
+                decodedBlockCache));
     }
 
     public static ConnectorPageSource createOrcPageSource(
@@ -268,6 +319,7 @@ public class OrcSelectivePageSourceFactory
             Optional<BucketAdaptation> bucketAdaptation,
             List<Integer> outputColumns,
             TupleDomain<Subfield> domainPredicate,
+            Map<Subfield, SplitBlockBloomFilter> bloomFilters,
             RowExpression remainingPredicate,
             boolean useOrcColumnNames,
             DateTimeZone hiveStorageTimeZone,
@@ -284,7 +336,9 @@ public class OrcSelectivePageSourceFactory
             Optional<EncryptionInformation> encryptionInformation,
             DwrfEncryptionProvider dwrfEncryptionProvider,
             boolean appendRowNumberEnabled,
-            boolean footerStatsUnreliable)
+            boolean footerStatsUnreliable,
+            ReadAheadScheduler readAheadScheduler,
+            DecodedBlockCache decodedBlockCache)
     {
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
 
@@ -303,9 +357,10 @@ public class OrcSelectivePageSourceFactory
         boolean lazyReadSmallRanges = getOrcLazyReadSmallRanges(session);
 
         OrcDataSource orcDataSource;
+        FSDataInputStream inputStream;
         Path path = new Path(fileSplit.getPath());
         try {
-            FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration).openFile(path, hiveFileContext);
+            inputStream = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration).openFile(path, hiveFileContext);
             orcDataSource = new HdfsOrcDataSource(
                     new OrcDataSourceId(fileSplit.getPath()),
                     fileSplit.getFileSize(),
@@ -325,6 +380,14 @@ public class OrcSelectivePageSourceFactory
         }
 
         OrcAggregatedMemoryContext systemMemoryUsage = new HiveOrcAggregatedMemoryContext();
+        Optional<ReadAheadOrcDataSource> readAheadDataSource = Optional.empty();
+        if (readAheadScheduler.isEnabled()) {
+            readAheadDataSource = Optional.of(new ReadAheadOrcDataSource(
+                    orcDataSource,
+                    readAheadScheduler.createBuffer(session.getQueryId(), inputStream::readFully),
+                    systemMemoryUsage.newOrcLocalMemoryContext(ReadAheadOrcDataSource.class.getSimpleName())));
+            orcDataSource = readAheadDataSource.get();
+        }
         try {
             checkArgument(!domainPredicate.isNone(), "Unexpected NONE domain");
 
@@ -343,8 +406,41 @@ public class OrcSelectivePageSourceFactory
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader.getTypes(), path);
 
-            if (!footerStatsUnreliable && !physicalColumns.isEmpty() && physicalColumns.stream().allMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
-                return new AggregatedOrcPageSource(physicalColumns, reader.getFooter(), typeManager, functionResolution);
+            if (!footerStatsUnreliable && physicalColumns.stream().anyMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
+                if (physicalColumns.stream().allMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
+                    return new AggregatedOrcPageSource(physicalColumns, reader.getFooter(), typeManager, functionResolution);
+                }
+
+                // the record readers of the scanned stripes close their data source, which is shared by the stripes
+                OrcReader stripeReader = new OrcReader(
+                        new NonClosingOrcDataSource(orcDataSource),
+                        orcEncoding,
+                        orcFileTailSource,
+                        stripeMetadataSourceFactory,
+                        systemMemoryUsage,
+                        orcReaderOptions,
+                        hiveFileContext.isCacheable(),
+                        dwrfEncryptionProvider,
+                        dwrfKeyProvider,
+                        hiveFileContext.getStats());
+                return createFilteredAggregatedOrcPageSource(
+                        stripeReader,
+                        orcDataSource,
+                        fileSplit,
+                        columns,
+                        physicalColumns,
+                        coercers,
+                        domainPredicate,
+                        bloomFilters,
+                        hiveStorageTimeZone,
+                        typeManager,
+                        functionResolution,
+                        orcBloomFiltersEnabled,
+                        stats,
+                        domainCompactionThreshold,
+                        hiveFileContext,
+                        tupleDomainFilterCache,
+                        systemMemoryUsage);
             }
 
             Map<Integer, Integer> indexMapping = IntStream.range(0, columns.size())
@@ -359,7 +455,11 @@ public class OrcSelectivePageSourceFactory
             OrcPredicate orcPredicate = toOrcPredicate(domainPredicate, physicalColumns, mappedCoercers, typeManager, domainCompactionThreshold, orcBloomFiltersEnabled);
 
             Map<String, Integer> columnIndices = ImmutableBiMap.copyOf(columnNames).inverse();
-            Map<Integer, Map<Subfield, TupleDomainFilter>> tupleDomainFilters = toTupleDomainFilters(domainPredicate, columnIndices, mappedCoercers, tupleDomainFilterCache);
+            Map<Integer, Map<Subfield, TupleDomainFilter>> tupleDomainFilters = addBloomFilters(
+                    toTupleDomainFilters(domainPredicate, columnIndices, mappedCoercers, tupleDomainFilterCache),
+                    bloomFilters,
+                    columnIndices,
+                    mappedCoercers);
 
             List<Integer> outputIndices = outputColumns.stream().map(indexMapping::get).collect(toImmutableList());
             Map<Integer, List<Subfield>> requiredSubfields = collectRequiredSubfields(physicalColumns, outputIndices, tupleDomainFilters, remainingPredicate, columnIndices, functionResolution, rowExpressionService, session);
@@ -409,7 +509,10 @@ public class OrcSelectivePageSourceFactory
                     hiveStorageTimeZone,
                     systemMemoryUsage,
                     Optional.empty(),
-                    INITIAL_BATCH_SIZE);
+                    INITIAL_BATCH_SIZE,
+                    decodedBlockCache,
+                    fileSplit.getFileModifiedTime());
+            readAheadDataSource.ifPresent(dataSource -> dataSource.readAhead(reader, recordReader.getIncludedOrcColumns(), fileSplit.getStart(), fileSplit.getLength(), orcPredicate));
 
             return new OrcSelectivePageSource(
                     recordReader,
@@ -439,6 +542,149 @@ public class OrcSelectivePageSourceFactory
         }
     }
 
+    /**
+     * Creates a page source for partial aggregations pushed down into a scan with a filter on the data columns.
+     * The stripes whose statistics show that all their rows match the filter are answered from the statistics,
+     * the stripes whose statistics show that none of their rows match the filter are skipped, and the other
+     * stripes are read with the filter applied.
+     */
+    private static ConnectorPageSource createFilteredAggregatedOrcPageSource(
+            OrcReader reader,
+            OrcDataSource orcDataSource,
+            HiveFileSplit fileSplit,
+            List<HiveColumnHandle> columns,
+            List<HiveColumnHandle> physicalColumns,
+            Map<Integer, HiveCoercer> coercers,
+            TupleDomain<Subfield> domainPredicate,
+            Map<Subfield, SplitBlockBloomFilter> bloomFilters,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            boolean orcBloomFiltersEnabled,
+            FileFormatDataSourceStats stats,
+            int domainCompactionThreshold,
+            HiveFileContext hiveFileContext,
+            TupleDomainFilterCache tupleDomainFilterCache,
+            OrcAggregatedMemoryContext systemMemoryUsage)
+    {
+        List<HiveColumnHandle> aggregatedColumns = physicalColumns.stream()
+                .filter(column -> column.getColumnType() == AGGREGATED)
+                .collect(toImmutableList());
+        List<HiveColumnHandle> predicateColumns = physicalColumns.stream()
+                .filter(column -> column.getColumnType() == REGULAR)
+                .collect(toImmutableList());
+        verify(aggregatedColumns.size() + predicateColumns.size() == physicalColumns.size(), "Unexpected columns in an aggregated scan: %s", physicalColumns);
+
+        // aggregated columns share the indices of their arguments, so only the predicate columns are mapped
+        Map<Integer, HiveCoercer> mappedCoercers = IntStream.range(0, columns.size())
+                .filter(i -> physicalColumns.get(i).getColumnType() == REGULAR && coercers.containsKey(columns.get(i).getHiveColumnIndex()))
+                .boxed()
+                .collect(toImmutableMap(i -> physicalColumns.get(i).getHiveColumnIndex(), i -> coercers.get(columns.get(i).getHiveColumnIndex())));
+
+        // the scanned stripes are read with the predicate columns and the arguments of the aggregations
+        Map<Integer, Type> columnTypes = new LinkedHashMap<>();
+        for (HiveColumnHandle column : predicateColumns) {
+            columnTypes.put(column.getHiveColumnIndex(), typeManager.getType(column.getTypeSignature()));
+        }
+        List<Integer> outputIndices = new ArrayList<>();
+        ImmutableList.Builder<Integer> inputChannels = ImmutableList.builder();
+        for (HiveColumnHandle column : aggregatedColumns) {
+            if (column.getPartialAggregation().get().getArguments().isEmpty()) {
+                inputChannels.add(-1);
+                continue;
+            }
+            int hiveColumnIndex = column.getHiveColumnIndex();
+            columnTypes.putIfAbsent(hiveColumnIndex, column.getHiveType().getType(typeManager));
+            if (!outputIndices.contains(hiveColumnIndex)) {
+                outputIndices.add(hiveColumnIndex);
+            }
+            inputChannels.add(outputIndices.indexOf(hiveColumnIndex));
+        }
+
+        Map<String, HiveColumnHandle> predicateColumnsByName = uniqueIndex(predicateColumns, HiveColumnHandle::getName);
+        Map<String, Integer> columnIndices = Maps.transformValues(predicateColumnsByName, HiveColumnHandle::getHiveColumnIndex);
+        OrcPredicate orcPredicate = toOrcPredicate(domainPredicate, predicateColumns, mappedCoercers, typeManager, domainCompactionThreshold, orcBloomFiltersEnabled);
+        Map<Integer, Map<Subfield, TupleDomainFilter>> tupleDomainFilters = addBloomFilters(
+                toTupleDomainFilters(domainPredicate, columnIndices, mappedCoercers, tupleDomainFilterCache),
+                bloomFilters,
+                columnIndices,
+                mappedCoercers);
+
+        FilteredAggregatedOrcPageSource pageSource = new FilteredAggregatedOrcPageSource(
+                aggregatedColumns,
+                inputChannels.build(),
+                stripe -> reader.createSelectiveRecordReader(
+                        columnTypes,
+                        outputIndices,
+                        tupleDomainFilters,
+                        ImmutableList.of(),
+                        ImmutableMap.of(),
+                        ImmutableMap.of(),
+                        ImmutableMap.of(),
+                        Maps.transformValues(mappedCoercers, Function.class::cast),
+                        orcPredicate,
+                        stripe.getOffset(),
+                        stripe.getTotalLength(),
+                        hiveStorageTimeZone,
+                        systemMemoryUsage,
+                        Optional.empty(),
+                        INITIAL_BATCH_SIZE),
+                orcDataSource,
+                systemMemoryUsage,
+                typeManager,
+                functionResolution,
+                stats,
+                hiveFileContext.getStats());
+
+        List<StripeInformation> stripes = reader.getFooter().getStripes();
+        for (int i = 0; i < stripes.size(); i++) {
+            StripeInformation stripe = stripes.get(i);
+            if (stripe.getOffset() < fileSplit.getStart() || stripe.getOffset() >= fileSplit.getStart() + fileSplit.getLength()) {
+                continue;
+            }
+            Optional<Map<Integer, ColumnStatistics>> stripeStatistics = reader.getStripeStatisticsByColumnOrdinal(i);
+            // the statistics are in the types of the partition, which may differ from the types of the filter,
+            // and the bloom filters of dynamic filters can only be applied to the rows
+            if (mappedCoercers.isEmpty() && bloomFilters.isEmpty() && stripeStatistics.isPresent()) {
+                Map<Integer, ColumnStatistics> statistics = stripeStatistics.get();
+                if (!orcPredicate.matches(stripe.getNumberOfRows(), statistics)) {
+                    continue;
+                }
+                if (allRowsMatch(domainPredicate, predicateColumnsByName, stripe.getNumberOfRows(), statistics, typeManager) &&
+                        pageSource.addStripeStatistics(stripe.getNumberOfRows(), statistics)) {
+                    continue;
+                }
+            }
+            pageSource.addScannedStripe(stripe);
+        }
+        return pageSource;
+    }
+
+    private static boolean allRowsMatch(
+            TupleDomain<Subfield> domainPredicate,
+            Map<String, HiveColumnHandle> predicateColumnsByName,
+            long rowCount,
+            Map<Integer, ColumnStatistics> statisticsByColumnIndex,
+            TypeManager typeManager)
+    {
+        for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+            Subfield subfield = entry.getKey();
+            HiveColumnHandle column = predicateColumnsByName.get(subfield.getRootName());
+            if (!subfield.getPath().isEmpty() || column == null) {
+                return false;
+            }
+            ColumnStatistics statistics = statisticsByColumnIndex.get(column.getHiveColumnIndex());
+            if (statistics == null) {
+                return false;
+            }
+            Type type = typeManager.getType(column.getTypeSignature());
+            if (!entry.getValue().contains(TupleDomainOrcPredicate.getDomain(type, rowCount, statistics))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static Type getColumnTypeFromTableSchema(Map<Integer, HiveCoercer> coercers, Map<Integer, Type> columnTypes, int hiveColumnIndex)
     {
         return coercers.containsKey(hiveColumnIndex) ? coercers.get(hiveColumnIndex).getToType() : columnTypes.get(hiveColumnIndex);
@@ -598,6 +844,28 @@ public class OrcSelectivePageSourceFactory
         return ImmutableMap.copyOf(filtersByColumn);
     }
 
+    private static Map<Integer, Map<Subfield, TupleDomainFilter>> addBloomFilters(Map<Integer, Map<Subfield, TupleDomainFilter>> tupleDomainFilters, Map<Subfield, SplitBlockBloomFilter> bloomFilters, Map<String, Integer> columnIndices, Map<Integer, HiveCoercer> coercers)
+    {
+        if (bloomFilters.isEmpty()) {
+            return tupleDomainFilters;
+        }
+
+        Map<Integer, Map<Subfield, TupleDomainFilter>> filtersByColumn = new HashMap<>();
+        tupleDomainFilters.forEach((columnIndex, filters) -> filtersByColumn.put(columnIndex, new HashMap<>(filters)));
+        for (Map.Entry<Subfield, SplitBlockBloomFilter> entry : bloomFilters.entrySet()) {
+            Subfield subfield = entry.getKey();
+            Integer columnIndex = columnIndices.get(subfield.getRootName());
+            // the values of coerced columns are hashed before the coercion, so they cannot be tested
+            if (!isEntireColumn(subfield) || columnIndex == null || coercers.containsKey(columnIndex)) {
+                continue;
+            }
+            Map<Subfield, TupleDomainFilter> filters = filtersByColumn.computeIfAbsent(columnIndex, k -> new HashMap<>());
+            filters.put(subfield, BloomFilterValues.of(entry.getValue(), filters.getOrDefault(subfield, IS_NOT_NULL)));
+        }
+
+        return ImmutableMap.copyOf(filtersByColumn);
+    }
+
     private static boolean isEntireColumn(Subfield subfield)
     {
         return subfield.getPath().isEmpty();
@@ -625,7 +893,7 @@ public class OrcSelectivePageSourceFactory
      * Split filter expression into groups of conjuncts that depend on the same set of inputs,
      * then compile each group into FilterFunction.
      */
-    private static List<FilterFunction> toFilterFunctions(RowExpression filter, Optional<BucketAdapter> bucketAdapter, ConnectorSession session, DeterminismEvaluator determinismEvaluator, PredicateCompiler predicateCompiler)
+    public static List<FilterFunction> toFilterFunctions(RowExpression filter, Optional<BucketAdapter> bucketAdapter, ConnectorSession session, DeterminismEvaluator determinismEvaluator, PredicateCompiler predicateCompiler)
     {
         ImmutableList.Builder<FilterFunction> filterFunctions = ImmutableList.builder();
 
@@ -689,7 +957,7 @@ public class OrcSelectivePageSourceFactory
         return format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, t.getMessage());
     }
 
-    private static class BucketAdapter
+    public static class BucketAdapter
             implements Predicate
     {
         public final int[] bucketColumns;
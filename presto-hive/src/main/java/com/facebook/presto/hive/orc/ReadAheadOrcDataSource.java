@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.ReadAheadBuffer;
+import com.facebook.presto.hive.ReadAheadBuffer.Region;
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.OrcDataSourceInput;
+import com.facebook.presto.orc.OrcLocalMemoryContext;
+import com.facebook.presto.orc.OrcPredicate;
+import com.facebook.presto.orc.OrcReader;
+import com.facebook.presto.orc.StreamId;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Closer;
+import io.airlift.slice.Slice;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.orc.StripeReader.getDiskRanges;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serves the reads of an ORC file from a read ahead buffer. The offsets of the streams of a stripe are in its footer,
+ * so the footer of the next stripe is read first, and then the index and data streams of the columns that are read
+ * are read ahead while the current stripe is decoded. The footer is kept until the reader reads it, and the other
+ * reads are served by the delegate. The streams that do not fit in the budget of the query are read by the delegate.
+ */
+public class ReadAheadOrcDataSource
+        implements OrcDataSource
+{
+    private final OrcDataSource delegate;
+    private final ReadAheadBuffer readAheadBuffer;
+    private final OrcLocalMemoryContext systemMemoryContext;
+    // the stripe footers that were read to find the streams to read ahead, by offset; they are tiny, so they are not accounted
+    private final Map<Long, Slice> stripeFooters = new HashMap<>();
+
+    public ReadAheadOrcDataSource(OrcDataSource delegate, ReadAheadBuffer readAheadBuffer, OrcLocalMemoryContext systemMemoryContext)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.readAheadBuffer = requireNonNull(readAheadBuffer, "readAheadBuffer is null");
+        this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+    }
+
+    /**
+     * Starts reading ahead the streams of the included columns of the stripes of the split that may match the
+     * predicate, in the order they are read.
+     *
+     * @param includedOrcColumns the ORC columns whose streams are read, including the nested ones
+     */
+    public void readAhead(OrcReader reader, Set<Integer> includedOrcColumns, long splitStart, long splitLength, OrcPredicate predicate)
+    {
+        List<StripeInformation> stripes = reader.getFooter().getStripes();
+        ImmutableList.Builder<Region> regions = ImmutableList.builder();
+        for (int i = 0; i < stripes.size(); i++) {
+            StripeInformation stripe = stripes.get(i);
+            if (stripe.getOffset() < splitStart || stripe.getOffset() >= splitStart + splitLength) {
+                continue;
+            }
+            Optional<Map<Integer, ColumnStatistics>> statistics = reader.getStripeStatisticsByColumnOrdinal(i);
+            if (statistics.isPresent() && !predicate.matches(stripe.getNumberOfRows(), statistics.get())) {
+                continue;
+            }
+            regions.add(new Region(stripe.getOffset(), stripe.getTotalLength(), () -> getStreamRanges(reader, includedOrcColumns, stripe)));
+        }
+        readAheadBuffer.setRegions(regions.build());
+        updateMemoryUsage();
+    }
+
+    private List<DiskRange> getStreamRanges(OrcReader reader, Set<Integer> includedOrcColumns, StripeInformation stripe)
+            throws IOException
+    {
+        // the footer is read by the delegate, since reading it from the buffer would start reading the stripe
+        long footerOffset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
+        byte[] footer = new byte[toIntExact(stripe.getFooterLength())];
+        delegate.readFully(footerOffset, footer);
+        stripeFooters.put(footerOffset, wrappedBuffer(footer));
+        StripeFooter stripeFooter = reader.readStripeFooter(wrappedBuffer(footer));
+
+        ImmutableList.Builder<DiskRange> ranges = ImmutableList.builder();
+        if (!stripeFooter.getStripeEncryptionGroups().isEmpty()) {
+            // the streams of the encrypted columns are in the encrypted footers, so the whole index and data are read ahead
+            if (stripe.getIndexLength() > 0) {
+                ranges.add(new DiskRange(stripe.getOffset(), toIntExact(stripe.getIndexLength())));
+            }
+            if (stripe.getDataLength() > 0) {
+                ranges.add(new DiskRange(stripe.getOffset() + stripe.getIndexLength(), toIntExact(stripe.getDataLength())));
+            }
+            return ranges.build();
+        }
+
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(ImmutableList.of(stripeFooter.getStreams())).entrySet()) {
+            if (includedOrcColumns.contains(entry.getKey().getColumn())) {
+                DiskRange range = entry.getValue();
+                ranges.add(new DiskRange(stripe.getOffset() + range.getOffset(), range.getLength()));
+            }
+        }
+        return ranges.build();
+    }
+
+    @Override
+    public OrcDataSourceId getId()
+    {
+        return delegate.getId();
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return delegate.getReadBytes() + readAheadBuffer.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos() + readAheadBuffer.getReadTimeNanos();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        Slice footer = stripeFooters.remove(position);
+        if (footer != null && footer.length() == bufferLength) {
+            footer.getBytes(0, buffer, bufferOffset, bufferLength);
+            return;
+        }
+
+        Slice data = readAheadBuffer.read(position, bufferLength);
+        updateMemoryUsage();
+        if (data == null) {
+            delegate.readFully(position, buffer, bufferOffset, bufferLength);
+            return;
+        }
+        data.getBytes(0, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, OrcDataSourceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        ImmutableMap.Builder<K, OrcDataSourceInput> inputs = ImmutableMap.builder();
+        ImmutableMap.Builder<K, DiskRange> remainingRanges = ImmutableMap.builder();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            Slice data = readAheadBuffer.read(diskRange.getOffset(), diskRange.getLength());
+            if (data == null) {
+                remainingRanges.put(entry);
+            }
+            else {
+                inputs.put(entry.getKey(), new OrcDataSourceInput(data.getInput(), diskRange.getLength()));
+            }
+        }
+        updateMemoryUsage();
+        inputs.putAll(delegate.readFully(remainingRanges.build()));
+        return inputs.build();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(delegate);
+            closer.register(systemMemoryContext::close);
+            closer.register(readAheadBuffer);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return delegate.toString();
+    }
+
+    private void updateMemoryUsage()
+    {
+        systemMemoryContext.setBytes(readAheadBuffer.getBufferedBytes());
+    }
+}
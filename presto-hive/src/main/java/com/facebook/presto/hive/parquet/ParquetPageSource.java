@@ -20,6 +20,7 @@ import com.facebook.presto.common.block.LazyBlock;
 import com.facebook.presto.common.block.LazyBlockLoader;
 import com.facebook.presto.common.block.LongArrayBlock;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.ParquetCorruptionException;
@@ -29,8 +30,11 @@ import com.facebook.presto.spi.PrestoException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,6 +61,9 @@ public class ParquetPageSource
     private final List<Boolean> rowIndexLocations;
 
     private int batchId;
+    // channels of the current batch whose blocks were loaded, and channels that were read by position instead
+    private final boolean[] loadedChannels;
+    private final boolean[] positionReadChannels;
     private long completedPositions;
     private boolean closed;
 
@@ -86,6 +93,8 @@ public class ParquetPageSource
         this.rowIndexLocations = requireNonNull(rowIndexLocations, "rowIndexLocations is null");
         this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
         this.runtimeStats = requireNonNull(runtimeStats, "runtimeStats is null");
+        this.loadedChannels = new boolean[fields.size()];
+        this.positionReadChannels = new boolean[fields.size()];
 
         checkArgument(
                 types.size() == rowIndexLocations.size() && types.size() == fields.size(),
@@ -122,6 +131,14 @@ public class ParquetPageSource
         return parquetReader.getDataSource().getReadTimeNanos();
     }
 
+    /**
+     * Returns the position in the file of the first row of the last page.
+     */
+    public long getFilePosition()
+    {
+        return parquetReader.lastBatchStartRow();
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -140,6 +157,8 @@ public class ParquetPageSource
         try {
             batchId++;
             int batchSize = parquetReader.nextBatch();
+            Arrays.fill(loadedChannels, false);
+            Arrays.fill(positionReadChannels, false);
 
             if (closed || batchSize <= 0) {
                 close();
@@ -156,7 +175,7 @@ public class ParquetPageSource
                 else {
                     Optional<Field> field = fields.get(fieldId);
                     if (field.isPresent()) {
-                        blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(field.get()));
+                        blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(fieldId, field.get()));
                     }
                     else {
                         blocks[fieldId] = RunLengthEncodedBlock.create(types.get(fieldId), null, batchSize);
@@ -175,6 +194,58 @@ public class ParquetPageSource
         }
     }
 
+    /**
+     * Returns whether the column at the channel can be read by position with {@link #readPositions},
+     * instead of loading its block of the current page.
+     */
+    public boolean canReadPositions(int channel)
+    {
+        return fields.get(channel).map(parquetReader::canReadPositions).orElse(false);
+    }
+
+    /**
+     * Returns whether the filter of the column at the channel can be evaluated by {@link #readPositions}
+     * while its values are decoded.
+     */
+    public boolean canFilterPositions(int channel)
+    {
+        return fields.get(channel).map(parquetReader::canFilterPositions).orElse(false);
+    }
+
+    /**
+     * Decodes the values of the column at the given positions of the current page, skipping the values
+     * of the other positions, and keeps the positions whose values pass the filter. The kept positions
+     * are written to the front of the array. The block of the column in the current page must not be
+     * loaded before or after this call.
+     *
+     * @param filter the filter of the column, or null to keep all the given positions
+     * @return the number of kept positions
+     */
+    public int readPositions(int channel, int[] positions, int positionCount, @Nullable TupleDomainFilter filter)
+    {
+        checkState(!loadedChannels[channel] && !positionReadChannels[channel], "channel %s was already read", channel);
+        positionReadChannels[channel] = true;
+        try {
+            return parquetReader.readPositions(fields.get(channel).get(), positions, positionCount, filter);
+        }
+        catch (ParquetCorruptionException e) {
+            throw new PrestoException(HIVE_BAD_DATA, e);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    /**
+     * Returns the values of the column at positions kept by the last {@link #readPositions} of the channel
+     * in the current page.
+     */
+    public Block getPositions(int channel, int[] positions, int positionCount)
+    {
+        checkState(positionReadChannels[channel], "channel %s was not read by position", channel);
+        return parquetReader.getPositions(fields.get(channel).get(), positions, positionCount);
+    }
+
     private void closeWithSuppression(Throwable throwable)
     {
         requireNonNull(throwable, "throwable is null");
@@ -209,11 +280,13 @@ public class ParquetPageSource
             implements LazyBlockLoader<LazyBlock>
     {
         private final int expectedBatchId = batchId;
+        private final int channel;
         private final Field field;
         private boolean loaded;
 
-        public ParquetBlockLoader(Field field)
+        public ParquetBlockLoader(int channel, Field field)
         {
+            this.channel = channel;
             this.field = requireNonNull(field, "field is null");
         }
 
@@ -225,6 +298,8 @@ public class ParquetPageSource
             }
 
             checkState(batchId == expectedBatchId);
+            checkState(!positionReadChannels[channel], "channel %s was already read by position", channel);
+            loadedChannels[channel] = true;
 
             try {
                 Block block = parquetReader.readBlock(field);
@@ -28,6 +28,7 @@ import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.ReadAheadScheduler;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.parquet.Field;
@@ -35,6 +36,7 @@ import com.facebook.presto.parquet.ParquetCorruptionException;
 import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.RichColumnDescriptor;
 import com.facebook.presto.parquet.cache.ParquetMetadataSource;
+import com.facebook.presto.parquet.predicate.BloomFilterStore;
 import com.facebook.presto.parquet.predicate.Predicate;
 import com.facebook.presto.parquet.reader.ColumnIndexFilterUtils;
 import com.facebook.presto.parquet.reader.ParquetReader;
@@ -110,7 +112,9 @@ import static com.facebook.presto.hive.HiveSessionProperties.getParquetMaxReadBl
 import static com.facebook.presto.hive.HiveSessionProperties.getReadNullMaskedParquetEncryptedValue;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetBatchReaderVerificationEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetBatchReadsEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetBloomFilterEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isUseParquetColumnNames;
+import static com.facebook.presto.hive.ReadAheadScheduler.disabledReadAheadScheduler;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.parquet.ParquetTypeUtils.columnPathFromSubfield;
@@ -160,19 +164,31 @@ public class ParquetPageSourceFactory
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
     private final ParquetMetadataSource parquetMetadataSource;
+    private final ReadAheadScheduler readAheadScheduler;
 
-    @Inject
     public ParquetPageSourceFactory(TypeManager typeManager,
             StandardFunctionResolution functionResolution,
             HdfsEnvironment hdfsEnvironment,
             FileFormatDataSourceStats stats,
             ParquetMetadataSource parquetMetadataSource)
+    {
+        this(typeManager, functionResolution, hdfsEnvironment, stats, parquetMetadataSource, disabledReadAheadScheduler());
+    }
+
+    @Inject
+    public ParquetPageSourceFactory(TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            ParquetMetadataSource parquetMetadataSource,
+            ReadAheadScheduler readAheadScheduler)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
         this.parquetMetadataSource = requireNonNull(parquetMetadataSource, "parquetMetadataSource is null");
+        this.readAheadScheduler = requireNonNull(readAheadScheduler, "readAheadScheduler is null");
     }
 
     public static ConnectorPageSource createParquetPageSource(
@@ -187,7 +203,8 @@ public class ParquetPageSourceFactory
             TupleDomain<HiveColumnHandle> effectivePredicate,
             FileFormatDataSourceStats stats,
             HiveFileContext hiveFileContext,
-            ParquetMetadataSource parquetMetadataSource)
+            ParquetMetadataSource parquetMetadataSource,
+            ReadAheadScheduler readAheadScheduler)
     {
         AggregatedMemoryContext systemMemoryContext = newSimpleAggregatedMemoryContext();
 
@@ -246,12 +263,16 @@ public class ParquetPageSourceFactory
             final ParquetDataSource finalDataSource = dataSource;
             ImmutableList.Builder<BlockMetaData> blocks = ImmutableList.builder();
             List<ColumnIndexStore> blockIndexStores = new ArrayList<>();
+            Optional<BloomFilterStore> bloomFilterStore = Optional.empty();
+            if (isParquetBloomFilterEnabled(session) && !fileDecryptor.isPresent()) {
+                bloomFilterStore = Optional.of(new BloomFilterStore(parquetMetadataSource, finalDataSource, hiveFileContext.isCacheable(), hiveFileContext.getModificationTime()));
+            }
 
             long nextStart = 0;
             ImmutableList.Builder<Long> blockStarts = ImmutableList.builder();
             for (BlockMetaData block : footerBlocks.build()) {
                 Optional<ColumnIndexStore> columnIndexStore = ColumnIndexFilterUtils.getColumnIndexStore(parquetPredicate, finalDataSource, block, descriptorsByPath, columnIndexFilterEnabled);
-                if (predicateMatches(parquetPredicate, block, finalDataSource, descriptorsByPath, parquetTupleDomain, columnIndexStore, columnIndexFilterEnabled, Optional.of(session.getWarningCollector()))) {
+                if (predicateMatches(parquetPredicate, block, finalDataSource, descriptorsByPath, parquetTupleDomain, columnIndexStore, columnIndexFilterEnabled, Optional.of(session.getWarningCollector()), bloomFilterStore)) {
                     blocks.add(block);
                     blockStarts.add(nextStart);
                     blockIndexStores.add(columnIndexStore.orElse(null));
@@ -266,6 +287,14 @@ public class ParquetPageSourceFactory
                 }
                 nextStart += block.getRowCount();
             }
+            if (readAheadScheduler.isEnabled()) {
+                ReadAheadParquetDataSource readAheadDataSource = new ReadAheadParquetDataSource(
+                        dataSource,
+                        readAheadScheduler.createBuffer(session.getQueryId(), inputStream::readFully),
+                        systemMemoryContext.newLocalMemoryContext(ReadAheadParquetDataSource.class.getSimpleName()));
+                dataSource = readAheadDataSource;
+                readAheadDataSource.readAhead(blocks.build(), requestedSchema);
+            }
             MessageColumnIO messageColumnIO = getColumnIO(fileSchema, requestedSchema);
             ParquetReader parquetReader = new ParquetReader(
                     messageColumnIO,
@@ -564,6 +593,7 @@ public class ParquetPageSourceFactory
                 effectivePredicate,
                 stats,
                 hiveFileContext,
-                parquetMetadataSource));
+                parquetMetadataSource,
+                readAheadScheduler));
     }
 }
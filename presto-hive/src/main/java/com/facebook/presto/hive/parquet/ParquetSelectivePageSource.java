@@ -0,0 +1,419 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.LazyBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.facebook.presto.common.Utils.nativeValueToBlock;
+import static com.facebook.presto.hive.FilteringPageSource.filterBlock;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applies the pushed down filters to the pages produced by a {@link ParquetPageSource}.
+ * <p>
+ * The filters are evaluated column by column, and a column is decoded only if some positions
+ * of the batch survived the filters on the columns that precede it. The flat integer and string
+ * columns are read by position: their column readers skip the values of the positions dropped
+ * by the previous filters, evaluate the filter of the column as they decode the values, once
+ * per entry for dictionary encoded pages, and decode the output columns only at the surviving
+ * positions. The other columns are loaded as blocks of the whole batch and filtered afterwards.
+ * When adaptive filter reordering is enabled, the filters are ordered by the time spent per
+ * dropped position, so that the cheapest and most selective filters are applied first.
+ */
+public class ParquetSelectivePageSource
+        implements ConnectorPageSource
+{
+    private final ConnectorPageSource delegate;
+    private final ParquetPageSource parquetPageSource; // the delegate, if its columns can be read by position
+    private final int[] delegateChannels;           // aligned with columns; -1 for prefilled columns
+    private final Type[] columnTypes;               // aligned with columns
+    private final Block[] constantBlocks;           // aligned with columns; single value blocks of prefilled columns
+    private final Function<Block, Block>[] coercers; // aligned with columns; null for columns that are not coerced
+    private final int[] outputColumns;              // indices into columns
+    private final boolean reorderFilters;
+
+    private List<ColumnFilter> columnFilters;
+    private List<FilterFunctionWithStats> filterFunctions;
+
+    private int[] positions;
+    private RuntimeException[] errors;
+    private int batchId;
+
+    public ParquetSelectivePageSource(
+            ConnectorPageSource delegate,
+            List<Type> columnTypes,
+            List<Optional<Integer>> delegateChannels,
+            Map<Integer, Object> constantValues,
+            Map<Integer, Function<Block, Block>> coercers,
+            List<Integer> outputColumns,
+            Map<Integer, TupleDomainFilter> columnFilters,
+            List<FilterFunction> filterFunctions,
+            boolean reorderFilters)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.parquetPageSource = delegate instanceof ParquetPageSource ? (ParquetPageSource) delegate : null;
+        requireNonNull(columnTypes, "columnTypes is null");
+        requireNonNull(delegateChannels, "delegateChannels is null");
+        requireNonNull(constantValues, "constantValues is null");
+        requireNonNull(coercers, "coercers is null");
+        checkArgument(columnTypes.size() == delegateChannels.size(), "columnTypes and delegateChannels must have the same size");
+
+        int columnCount = columnTypes.size();
+        this.columnTypes = columnTypes.toArray(new Type[columnCount]);
+        this.delegateChannels = new int[columnCount];
+        this.constantBlocks = new Block[columnCount];
+        this.coercers = new Function[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            this.delegateChannels[i] = delegateChannels.get(i).orElse(-1);
+            checkArgument(delegateChannels.get(i).isPresent() || constantValues.containsKey(i), "column %s is neither read nor prefilled", i);
+            if (!delegateChannels.get(i).isPresent()) {
+                this.constantBlocks[i] = nativeValueToBlock(this.columnTypes[i], constantValues.get(i));
+            }
+            this.coercers[i] = coercers.get(i);
+        }
+        this.outputColumns = requireNonNull(outputColumns, "outputColumns is null").stream().mapToInt(Integer::intValue).toArray();
+
+        ImmutableList.Builder<ColumnFilter> filters = ImmutableList.builder();
+        requireNonNull(columnFilters, "columnFilters is null").forEach((column, filter) -> filters.add(new ColumnFilter(column, filter)));
+        this.columnFilters = filters.build();
+        this.filterFunctions = requireNonNull(filterFunctions, "filterFunctions is null").stream()
+                .map(FilterFunctionWithStats::new)
+                .collect(toImmutableList());
+        this.reorderFilters = reorderFilters;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        batchId++;
+        Page page = delegate.getNextPage();
+        if (page == null || page.getPositionCount() == 0) {
+            return page;
+        }
+
+        int batchSize = page.getPositionCount();
+        Block[] blocks = new Block[columnTypes.length];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = getBlock(page, i);
+        }
+
+        if (columnFilters.isEmpty() && filterFunctions.isEmpty()) {
+            return new Page(batchSize, getOutputBlocks(blocks));
+        }
+
+        if (reorderFilters) {
+            columnFilters = reorder(columnFilters, ColumnFilter::getStats);
+            filterFunctions = reorder(filterFunctions, FilterFunctionWithStats::getStats);
+        }
+
+        initializePositions(batchSize);
+        int positionCount = batchSize;
+
+        // a column is read only when its filter is evaluated, which does not happen once all the positions are filtered out
+        boolean[] positionReadColumns = new boolean[columnTypes.length];
+        for (ColumnFilter filter : columnFilters) {
+            int column = filter.getColumn();
+            long start = System.nanoTime();
+            int inputPositionCount = positionCount;
+            if (canReadPositions(column, true)) {
+                positionCount = parquetPageSource.readPositions(delegateChannels[column], positions, positionCount, filter.getFilter());
+                positionReadColumns[column] = true;
+            }
+            else {
+                positionCount = filterBlock(blocks[column], columnTypes[column], filter.getFilter(), positions, positionCount);
+            }
+            filter.getStats().update(inputPositionCount, positionCount, System.nanoTime() - start);
+            if (positionCount == 0) {
+                return new Page(0);
+            }
+        }
+
+        if (!filterFunctions.isEmpty()) {
+            // the filter functions address the positions of the batch, which the columns read by position are mapped to
+            int[] keptPositions = Arrays.copyOf(positions, positionCount);
+            int keptPositionCount = positionCount;
+            for (int column = 0; column < blocks.length; column++) {
+                if (positionReadColumns[column]) {
+                    int channel = delegateChannels[column];
+                    int expectedBatchId = batchId;
+                    blocks[column] = new LazyBlock(batchSize, lazyBlock -> {
+                        checkState(batchId == expectedBatchId, "block of a previous batch");
+                        lazyBlock.setBlock(toBatchBlock(parquetPageSource.getPositions(channel, keptPositions, keptPositionCount), keptPositions, keptPositionCount, batchSize));
+                    });
+                }
+            }
+        }
+
+        for (FilterFunctionWithStats function : filterFunctions) {
+            int[] inputs = function.getFunction().getInputChannels();
+            Block[] inputBlocks = new Block[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                inputBlocks[i] = blocks[inputs[i]];
+            }
+
+            long start = System.nanoTime();
+            int inputPositionCount = positionCount;
+            positionCount = function.getFunction().filter(new Page(batchSize, inputBlocks), positions, positionCount, errors);
+            function.getStats().update(inputPositionCount, positionCount, System.nanoTime() - start);
+            if (positionCount == 0) {
+                return new Page(0);
+            }
+        }
+
+        for (int i = 0; i < positionCount; i++) {
+            if (errors[i] != null) {
+                throw errors[i];
+            }
+        }
+
+        // the columns that are only output are decoded when, and if, the engine accesses them
+        int[] outputPositions = Arrays.copyOf(positions, positionCount);
+        int outputPositionCount = positionCount;
+        Block[] columnOutputBlocks = new Block[columnTypes.length];
+        Block[] outputBlocks = new Block[outputColumns.length];
+        for (int i = 0; i < outputColumns.length; i++) {
+            int column = outputColumns[i];
+            if (columnOutputBlocks[column] == null) {
+                columnOutputBlocks[column] = getOutputBlock(column, blocks[column], positionReadColumns[column], batchSize, outputPositions, outputPositionCount);
+            }
+            outputBlocks[i] = columnOutputBlocks[column];
+        }
+        return new Page(outputPositionCount, outputBlocks);
+    }
+
+    private Block getOutputBlock(int column, Block block, boolean positionRead, int batchSize, int[] outputPositions, int outputPositionCount)
+    {
+        int channel = delegateChannels[column];
+        int expectedBatchId = batchId;
+        if (positionRead) {
+            return new LazyBlock(outputPositionCount, lazyBlock -> {
+                checkState(batchId == expectedBatchId, "block of a previous batch");
+                lazyBlock.setBlock(parquetPageSource.getPositions(channel, outputPositions, outputPositionCount));
+            });
+        }
+        if (!block.isLoaded() && canReadPositions(column, false)) {
+            // the values of the positions dropped by the filters are skipped in the decoders
+            return new LazyBlock(outputPositionCount, lazyBlock -> {
+                checkState(batchId == expectedBatchId, "block of a previous batch");
+                int[] readPositions = Arrays.copyOf(outputPositions, outputPositionCount);
+                parquetPageSource.readPositions(channel, readPositions, outputPositionCount, null);
+                lazyBlock.setBlock(parquetPageSource.getPositions(channel, readPositions, outputPositionCount));
+            });
+        }
+        if (outputPositionCount == batchSize) {
+            return block;
+        }
+        return new LazyBlock(outputPositionCount, lazyBlock -> lazyBlock.setBlock(block.getPositions(outputPositions, 0, outputPositionCount)));
+    }
+
+    private boolean canReadPositions(int column, boolean filtered)
+    {
+        if (parquetPageSource == null || delegateChannels[column] < 0 || coercers[column] != null) {
+            return false;
+        }
+        int channel = delegateChannels[column];
+        return filtered ? parquetPageSource.canFilterPositions(channel) : parquetPageSource.canReadPositions(channel);
+    }
+
+    private static Block toBatchBlock(Block block, int[] positions, int positionCount, int batchSize)
+    {
+        // the positions of the batch that were dropped are mapped to the first value, and are not accessed
+        int[] ids = new int[batchSize];
+        for (int i = 0; i < positionCount; i++) {
+            ids[positions[i]] = i;
+        }
+        return new DictionaryBlock(batchSize, block, ids);
+    }
+
+    private Block getBlock(Page page, int column)
+    {
+        if (delegateChannels[column] < 0) {
+            return new RunLengthEncodedBlock(constantBlocks[column], page.getPositionCount());
+        }
+
+        Block block = page.getBlock(delegateChannels[column]);
+        Function<Block, Block> coercer = coercers[column];
+        if (coercer == null) {
+            return block;
+        }
+        return new LazyBlock(block.getPositionCount(), lazyBlock -> lazyBlock.setBlock(coercer.apply(block.getLoadedBlock())));
+    }
+
+    private Block[] getOutputBlocks(Block[] blocks)
+    {
+        Block[] outputBlocks = new Block[outputColumns.length];
+        for (int i = 0; i < outputColumns.length; i++) {
+            outputBlocks[i] = blocks[outputColumns[i]];
+        }
+        return outputBlocks;
+    }
+
+    private void initializePositions(int batchSize)
+    {
+        if (positions == null || positions.length < batchSize) {
+            positions = new int[batchSize];
+            errors = new RuntimeException[batchSize];
+        }
+        else {
+            Arrays.fill(errors, null);
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            positions[i] = i;
+        }
+    }
+
+    private static <T> List<T> reorder(List<T> filters, Function<T, FilterStats> stats)
+    {
+        if (filters.size() < 2) {
+            return filters;
+        }
+        List<T> ordered = new ArrayList<>(filters);
+        ordered.sort(Comparator.comparingDouble(filter -> stats.apply(filter).getElapsedNanosPerDroppedPosition()));
+        return ordered;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return delegate.getCompletedPositions();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        return delegate.getRuntimeStats();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+
+    private static final class ColumnFilter
+    {
+        private final int column;
+        private final TupleDomainFilter filter;
+        private final FilterStats stats = new FilterStats();
+
+        private ColumnFilter(int column, TupleDomainFilter filter)
+        {
+            this.column = column;
+            this.filter = requireNonNull(filter, "filter is null");
+        }
+
+        public int getColumn()
+        {
+            return column;
+        }
+
+        public TupleDomainFilter getFilter()
+        {
+            return filter;
+        }
+
+        public FilterStats getStats()
+        {
+            return stats;
+        }
+    }
+
+    private static final class FilterFunctionWithStats
+    {
+        private final FilterFunction function;
+        private final FilterStats stats = new FilterStats();
+
+        private FilterFunctionWithStats(FilterFunction function)
+        {
+            this.function = requireNonNull(function, "function is null");
+        }
+
+        public FilterFunction getFunction()
+        {
+            return function;
+        }
+
+        public FilterStats getStats()
+        {
+            return stats;
+        }
+    }
+
+    private static final class FilterStats
+    {
+        private long inputPositions;
+        private long outputPositions;
+        private long elapsedNanos;
+
+        public void update(int inputPositions, int outputPositions, long elapsedNanos)
+        {
+            this.inputPositions += inputPositions;
+            this.outputPositions += outputPositions;
+            this.elapsedNanos += elapsedNanos;
+        }
+
+        public double getElapsedNanosPerDroppedPosition()
+        {
+            return (double) elapsedNanos / (1 + inputPositions - outputPositions);
+        }
+    }
+}
@@ -14,32 +14,69 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BloomFilterValues;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.hive.BucketAdaptation;
 import com.facebook.presto.hive.EncryptionInformation;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveCoercer;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
+import com.facebook.presto.hive.ReadAheadScheduler;
 import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.orc.OrcSelectivePageSourceFactory.BucketAdapter;
+import com.facebook.presto.hive.orc.TupleDomainFilterCache;
+import com.facebook.presto.parquet.cache.ParquetMetadataSource;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
 import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.RowExpressionService;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
 import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
+import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NOT_NULL;
+import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.AGGREGATED;
+import static com.facebook.presto.hive.HiveSessionProperties.isAdaptiveFilterReorderingEnabled;
+import static com.facebook.presto.hive.HiveUtil.typedPartitionKey;
+import static com.facebook.presto.hive.ReadAheadScheduler.disabledReadAheadScheduler;
+import static com.facebook.presto.hive.orc.OrcSelectivePageSourceFactory.toFilterFunctions;
+import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.createParquetPageSource;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetSelectivePageSourceFactory
         implements HiveSelectivePageSourceFactory
@@ -49,9 +86,49 @@ public class ParquetSelectivePageSourceFactory
             .add("parquet.hive.serde.ParquetHiveSerDe")
             .build();
 
+    // the table name is not known to the selective page source factories; it is only used in the schema mismatch errors, which also report the file
+    private static final SchemaTableName UNKNOWN_TABLE_NAME = new SchemaTableName("unknown", "unknown");
+
+    private final TypeManager typeManager;
+    private final StandardFunctionResolution functionResolution;
+    private final RowExpressionService rowExpressionService;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+    private final ParquetMetadataSource parquetMetadataSource;
+    private final TupleDomainFilterCache tupleDomainFilterCache;
+    private final ReadAheadScheduler readAheadScheduler;
+
+    public ParquetSelectivePageSourceFactory(
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            RowExpressionService rowExpressionService,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            ParquetMetadataSource parquetMetadataSource,
+            TupleDomainFilterCache tupleDomainFilterCache)
+    {
+        this(typeManager, functionResolution, rowExpressionService, hdfsEnvironment, stats, parquetMetadataSource, tupleDomainFilterCache, disabledReadAheadScheduler());
+    }
+
     @Inject
-    public ParquetSelectivePageSourceFactory()
+    public ParquetSelectivePageSourceFactory(
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            RowExpressionService rowExpressionService,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            ParquetMetadataSource parquetMetadataSource,
+            TupleDomainFilterCache tupleDomainFilterCache,
+            ReadAheadScheduler readAheadScheduler)
     {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
+        this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.parquetMetadataSource = requireNonNull(parquetMetadataSource, "parquetMetadataSource is null");
+        this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
+        this.readAheadScheduler = requireNonNull(readAheadScheduler, "readAheadScheduler is null");
     }
 
     @Override
@@ -66,6 +143,7 @@ public class ParquetSelectivePageSourceFactory
             Optional<BucketAdaptation> bucketAdaptation,
             List<Integer> outputColumns,
             TupleDomain<Subfield> domainPredicate,
+            Map<Subfield, SplitBlockBloomFilter> bloomFilters,
             RowExpression remainingPredicate,
             DateTimeZone hiveStorageTimeZone,
             HiveFileContext hiveFileContext,
@@ -77,6 +155,123 @@ public class ParquetSelectivePageSourceFactory
             return Optional.empty();
         }
         checkState(!appendRowNumberEnabled, "append row number is not supported for Parquet Reader");
-        throw new PrestoException(NOT_SUPPORTED, "Parquet reader doesn't support filter pushdown yet");
+        checkArgument(!domainPredicate.isNone(), "Unexpected NONE domain");
+        if (domainPredicate.getDomains().get().keySet().stream().anyMatch(subfield -> !isEntireColumn(subfield))) {
+            throw new PrestoException(NOT_SUPPORTED, "Parquet reader doesn't support filter pushdown on subfields of nested columns yet");
+        }
+        // the page source provider reads and aggregates the rows of Parquet files when the aggregations are pushed into a filtered scan
+        if (columns.stream().anyMatch(column -> column.getColumnType() == AGGREGATED) && !columns.stream().allMatch(column -> column.getColumnType() == AGGREGATED)) {
+            throw new PrestoException(NOT_SUPPORTED, "Parquet reader doesn't support partial aggregation pushdown with a filter");
+        }
+
+        // prefilled columns are not read from the file, and the coerced columns are read with the type of the partition
+        List<HiveColumnHandle> readColumns = columns.stream()
+                .filter(column -> !prefilledValues.containsKey(column.getHiveColumnIndex()))
+                .collect(toImmutableList());
+        Map<String, HiveColumnHandle> readColumnsByName = readColumns.stream()
+                .filter(column -> !coercers.containsKey(column.getHiveColumnIndex()))
+                .collect(toImmutableMap(HiveColumnHandle::getName, Function.identity()));
+        TupleDomain<HiveColumnHandle> effectivePredicate = domainPredicate.transform(subfield -> readColumnsByName.get(subfield.getRootName()));
+
+        ConnectorPageSource delegate = createParquetPageSource(
+                hdfsEnvironment,
+                session,
+                configuration,
+                fileSplit,
+                readColumns,
+                UNKNOWN_TABLE_NAME,
+                typeManager,
+                functionResolution,
+                effectivePredicate,
+                stats,
+                hiveFileContext,
+                parquetMetadataSource,
+                readAheadScheduler);
+
+        if (!footerStatsUnreliable && !readColumns.isEmpty() && readColumns.stream().allMatch(column -> column.getColumnType() == AGGREGATED)) {
+            return Optional.of(delegate);
+        }
+
+        ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
+        ImmutableList.Builder<Optional<Integer>> delegateChannels = ImmutableList.builder();
+        Map<Integer, Object> constantValues = new HashMap<>();
+        ImmutableMap.Builder<Integer, Function<Block, Block>> columnCoercers = ImmutableMap.builder();
+        Map<String, Integer> columnIndices = new HashMap<>();
+        Map<Integer, Integer> hiveColumnIndices = new HashMap<>();
+        int delegateChannel = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            HiveColumnHandle column = columns.get(i);
+            int hiveColumnIndex = column.getHiveColumnIndex();
+            HiveCoercer coercer = coercers.get(hiveColumnIndex);
+            // use column types from the current table schema; these types might be different from this partition's schema
+            Type type = coercer == null ? typeManager.getType(column.getTypeSignature()) : coercer.getToType();
+            columnTypes.add(type);
+            if (prefilledValues.containsKey(hiveColumnIndex)) {
+                delegateChannels.add(Optional.empty());
+                constantValues.put(i, typedPartitionKey(prefilledValues.get(hiveColumnIndex), type, column.getName(), hiveStorageTimeZone));
+            }
+            else {
+                delegateChannels.add(Optional.of(delegateChannel++));
+            }
+            if (coercer != null) {
+                columnCoercers.put(i, coercer);
+            }
+            columnIndices.put(column.getName(), i);
+            hiveColumnIndices.put(hiveColumnIndex, i);
+        }
+        List<Type> types = columnTypes.build();
+
+        Map<VariableReferenceExpression, InputReferenceExpression> variableToInput = IntStream.range(0, columns.size())
+                .boxed()
+                .collect(toImmutableMap(
+                        i -> new VariableReferenceExpression(Optional.empty(), columns.get(i).getName(), types.get(i)),
+                        i -> new InputReferenceExpression(Optional.empty(), i, types.get(i))));
+
+        Optional<BucketAdapter> bucketAdapter = bucketAdaptation.map(adaptation -> new BucketAdapter(
+                Arrays.stream(adaptation.getBucketColumnIndices())
+                        .map(hiveColumnIndices::get)
+                        .toArray(),
+                adaptation.getBucketColumnHiveTypes(),
+                adaptation.getTableBucketCount(),
+                adaptation.getPartitionBucketCount(),
+                adaptation.getBucketToKeep()));
+
+        List<FilterFunction> filterFunctions = toFilterFunctions(replaceExpression(remainingPredicate, variableToInput), bucketAdapter, session, rowExpressionService.getDeterminismEvaluator(), rowExpressionService.getPredicateCompiler());
+
+        return Optional.of(new ParquetSelectivePageSource(
+                delegate,
+                types,
+                delegateChannels.build(),
+                constantValues,
+                columnCoercers.build(),
+                outputColumns.stream().map(hiveColumnIndices::get).collect(toImmutableList()),
+                toColumnFilters(domainPredicate, bloomFilters, columnIndices),
+                filterFunctions,
+                isAdaptiveFilterReorderingEnabled(session)));
+    }
+
+    private Map<Integer, TupleDomainFilter> toColumnFilters(TupleDomain<Subfield> domainPredicate, Map<Subfield, SplitBlockBloomFilter> bloomFilters, Map<String, Integer> columnIndices)
+    {
+        // the filters of coerced columns are tested on the coerced values, so that they do not need to be translated to the type of the partition
+        Map<Integer, TupleDomainFilter> filters = new HashMap<>();
+        for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+            filters.put(columnIndices.get(entry.getKey().getRootName()), tupleDomainFilterCache.getFilter(entry.getValue()));
+        }
+
+        for (Map.Entry<Subfield, SplitBlockBloomFilter> entry : bloomFilters.entrySet()) {
+            Subfield subfield = entry.getKey();
+            Integer columnIndex = columnIndices.get(subfield.getRootName());
+            if (!isEntireColumn(subfield) || columnIndex == null) {
+                continue;
+            }
+            filters.put(columnIndex, BloomFilterValues.of(entry.getValue(), filters.getOrDefault(columnIndex, IS_NOT_NULL)));
+        }
+
+        return ImmutableMap.copyOf(filters);
+    }
+
+    private static boolean isEntireColumn(Subfield subfield)
+    {
+        return subfield.getPath().isEmpty();
     }
 }
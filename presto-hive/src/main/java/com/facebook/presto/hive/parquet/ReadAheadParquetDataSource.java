@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.ReadAheadBuffer;
+import com.facebook.presto.hive.ReadAheadBuffer.Region;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import io.airlift.slice.Slice;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.apache.parquet.crypto.HiddenColumnChunkMetaData.isHiddenColumn;
+
+/**
+ * Serves the reads of a Parquet file from a read ahead buffer. The requested column chunks of the next row group
+ * are read ahead while the current row group is decoded, and the other reads are served by the delegate.
+ */
+public class ReadAheadParquetDataSource
+        implements ParquetDataSource
+{
+    private final ParquetDataSource delegate;
+    private final ReadAheadBuffer readAheadBuffer;
+    private final LocalMemoryContext systemMemoryContext;
+
+    public ReadAheadParquetDataSource(ParquetDataSource delegate, ReadAheadBuffer readAheadBuffer, LocalMemoryContext systemMemoryContext)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.readAheadBuffer = requireNonNull(readAheadBuffer, "readAheadBuffer is null");
+        this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+    }
+
+    /**
+     * Starts reading ahead the column chunks of the requested schema in the row groups, which must be in the order they are read.
+     */
+    public void readAhead(List<BlockMetaData> blocks, MessageType requestedSchema)
+    {
+        Set<ColumnPath> requestedPaths = requestedSchema.getColumns().stream()
+                .map(column -> ColumnPath.get(column.getPath()))
+                .collect(toImmutableSet());
+
+        ImmutableList.Builder<Region> regions = ImmutableList.builder();
+        for (BlockMetaData block : blocks) {
+            long start = Long.MAX_VALUE;
+            long end = 0;
+            ImmutableList.Builder<DiskRange> ranges = ImmutableList.builder();
+            for (ColumnChunkMetaData column : block.getColumns()) {
+                // the offsets of the columns without an accessible key are not known
+                if (isHiddenColumn(column)) {
+                    continue;
+                }
+                start = min(start, column.getStartingPos());
+                end = max(end, column.getStartingPos() + column.getTotalSize());
+                if (requestedPaths.contains(column.getPath()) && column.getTotalSize() > 0) {
+                    ranges.add(new DiskRange(column.getStartingPos(), toIntExact(column.getTotalSize())));
+                }
+            }
+            if (start < end) {
+                regions.add(new Region(start, end - start, ranges.build()));
+            }
+        }
+        readAheadBuffer.setRegions(regions.build());
+        updateMemoryUsage();
+    }
+
+    @Override
+    public ParquetDataSourceId getId()
+    {
+        return delegate.getId();
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return delegate.getReadBytes() + readAheadBuffer.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos() + readAheadBuffer.getReadTimeNanos();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    {
+        Slice data;
+        try {
+            data = readAheadBuffer.read(position, bufferLength);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Error reading from %s at position %s", getId(), position), e);
+        }
+        updateMemoryUsage();
+        if (data == null) {
+            delegate.readFully(position, buffer, bufferOffset, bufferLength);
+            return;
+        }
+        data.getBytes(0, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public Optional<ColumnIndex> readColumnIndex(ColumnChunkMetaData column)
+            throws IOException
+    {
+        return delegate.readColumnIndex(column);
+    }
+
+    @Override
+    public Optional<OffsetIndex> readOffsetIndex(ColumnChunkMetaData column)
+            throws IOException
+    {
+        return delegate.readOffsetIndex(column);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(delegate);
+            closer.register(systemMemoryContext::close);
+            closer.register(readAheadBuffer);
+        }
+    }
+
+    private void updateMemoryUsage()
+    {
+        systemMemoryContext.setBytes(readAheadBuffer.getBufferedBytes());
+    }
+}
@@ -109,7 +109,7 @@ public class RcFilePageSourceFactory
             HiveFileContext hiveFileContext,
             Optional<EncryptionInformation> encryptionInformation)
     {
-        if (!columns.isEmpty() && columns.stream().allMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
+        if (columns.stream().anyMatch(hiveColumnHandle -> hiveColumnHandle.getColumnType() == AGGREGATED)) {
             throw new UnsupportedOperationException("Partial aggregation pushdown only supported for ORC/Parquet files. " +
                     "Table " + tableName.toString() + " has file (" + fileSplit.getPath() + ") of format " + storage.getStorageFormat().getOutputFormat() +
                     ". Set session property hive.pushdown_partial_aggregations_into_scan=false and execute query again");
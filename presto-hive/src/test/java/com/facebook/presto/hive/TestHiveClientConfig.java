@@ -161,6 +161,7 @@ public class TestHiveClientConfig
                 .setMaterializedViewMissingPartitionsThreshold(100)
                 .setLooseMemoryAccountingEnabled(false)
                 .setReadColumnIndexFilter(false)
+                .setParquetBloomFilterEnabled(true)
                 .setSizeBasedSplitWeightsEnabled(true)
                 .setMinimumAssignedSplitWeight(0.05)
                 .setUserDefinedTypeEncodingEnabled(false)
@@ -291,6 +292,7 @@ public class TestHiveClientConfig
                 .put("hive.verbose-runtime-stats-enabled", "true")
                 .put("hive.materialized-view-missing-partitions-threshold", "50")
                 .put("hive.parquet-column-index-filter-enabled", "true")
+                .put("hive.parquet-bloom-filter-enabled", "false")
                 .put("hive.size-based-split-weights-enabled", "false")
                 .put("hive.user-defined-type-encoding-enabled", "true")
                 .put("hive.minimum-assigned-split-weight", "1.0")
@@ -417,6 +419,7 @@ public class TestHiveClientConfig
                 .setMaterializedViewMissingPartitionsThreshold(50)
                 .setLooseMemoryAccountingEnabled(true)
                 .setReadColumnIndexFilter(true)
+                .setParquetBloomFilterEnabled(false)
                 .setSizeBasedSplitWeightsEnabled(false)
                 .setMinimumAssignedSplitWeight(1.0)
                 .setUserDefinedTypeEncodingEnabled(true)
@@ -5484,7 +5484,7 @@ public class TestHiveIntegrationSmokeTest
     }
 
     @Test
-    public void testParquetSelectivePageSourceFails()
+    public void testParquetSelectivePageSource()
     {
         assertUpdate("CREATE TABLE test_parquet_filter_pushdoown (a BIGINT, b BOOLEAN) WITH (format = 'parquet')");
         assertUpdate(getSession(), "INSERT INTO test_parquet_filter_pushdoown VALUES (1, true)", 1);
@@ -5509,9 +5509,18 @@ public class TestHiveIntegrationSmokeTest
                 .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "true")
                 .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "true")
                 .build();
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "Parquet reader doesn't support filter pushdown yet");
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "Parquet reader doesn't support filter pushdown yet");
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false", "Parquet reader doesn't support filter pushdown yet");
+        assertQuery(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "select 1");
+        assertQuery(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "select 1");
+        assertQueryReturnsEmptyResult(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false");
+        assertUpdate("DROP TABLE test_parquet_filter_pushdoown");
+
+        assertUpdate("CREATE TABLE test_parquet_selective_reader (a BIGINT, b VARCHAR, c DOUBLE, ds VARCHAR) WITH (format = 'parquet', partitioned_by = ARRAY['ds'])");
+        assertUpdate(getSession(), "INSERT INTO test_parquet_selective_reader SELECT orderkey, orderstatus, totalprice, orderpriority FROM orders", "SELECT count(*) FROM orders");
+        assertQuery(parquetFilterPushdownSession, "SELECT a, c FROM test_parquet_selective_reader WHERE b = 'F' AND ds = '1-URGENT'", "SELECT orderkey, totalprice FROM orders WHERE orderstatus = 'F' AND orderpriority = '1-URGENT'");
+        assertQuery(parquetFilterPushdownSession, "SELECT a, ds FROM test_parquet_selective_reader WHERE a % 7 = 0 AND c > 100000", "SELECT orderkey, orderpriority FROM orders WHERE orderkey % 7 = 0 AND totalprice > 100000");
+        assertQuery(parquetFilterPushdownSession, "SELECT count(*) FROM test_parquet_selective_reader WHERE a BETWEEN 1000 AND 2000 AND b IN ('F', 'P')", "SELECT count(*) FROM orders WHERE orderkey BETWEEN 1000 AND 2000 AND orderstatus IN ('F', 'P')");
+        assertQueryReturnsEmptyResult(parquetFilterPushdownSession, "SELECT a FROM test_parquet_selective_reader WHERE a < 0");
+        assertUpdate("DROP TABLE test_parquet_selective_reader");
     }
 
     private void testPageFileCompression(String compression)
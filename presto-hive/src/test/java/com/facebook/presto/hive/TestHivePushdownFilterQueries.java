@@ -188,6 +188,47 @@ public class TestHivePushdownFilterQueries
                         "SELECT orderkey, day(receiptdate) FROM lineitem WHERE orderkey % 31 <> 0");
     }
 
+    @Test
+    public void testPartialAggregationPushdownWithFilter()
+    {
+        // the filter matches all the rows of the stripes, some of the rows, and none of the rows
+        assertQuery("SELECT count(*), count(partkey), min(quantity), max(extendedprice) FROM lineitem_ex WHERE orderkey > 0",
+                "SELECT count(*), count(partkey), min(quantity), max(extendedprice) FROM lineitem");
+        assertQuery("SELECT count(*), count(partkey), min(quantity), max(extendedprice) FROM lineitem_ex WHERE orderkey BETWEEN 1000 AND 5000",
+                "SELECT count(*), count(partkey), min(quantity), max(extendedprice) FROM lineitem WHERE orderkey BETWEEN 1000 AND 5000");
+        assertQuery("SELECT count(*), min(orderkey), max(orderkey) FROM lineitem_ex WHERE orderkey < 0", "SELECT 0, null, null");
+
+        assertQuery("SELECT count(discount), min(discount), max(partkey) FROM lineitem_ex WHERE discount > 0.05 AND suppkey < 50",
+                "SELECT count(discount), min(discount), max(partkey) FROM lineitem WHERE orderkey % 43 <> 0 AND discount > 0.05 AND suppkey < 50");
+    }
+
+    @Test
+    public void testPartialAggregationPushdownWithFilterOnParquetFile()
+            throws IOException
+    {
+        // Make an ORC table backed by a Parquet file
+        QueryRunner queryRunner = getQueryRunner();
+        queryRunner.execute("CREATE TABLE test_aggregation_orc WITH (format='ORC', partitioned_by=ARRAY['ds']) AS " +
+                "SELECT orderkey, partkey, quantity, '2019-11-01' AS ds FROM lineitem LIMIT 1");
+        try {
+            queryRunner.execute("CREATE TABLE test_aggregation_parquet WITH (format='PARQUET', partitioned_by=ARRAY['ds']) AS " +
+                    "SELECT orderkey, partkey, quantity, '2019-11-01' AS ds FROM lineitem");
+            Path orcDirectory = getPartitionDirectory("test_aggregation_orc", "ds='2019-11-01'");
+            deleteRecursively(orcDirectory, ALLOW_INSECURE);
+
+            Path parquetDirectory = getPartitionDirectory("test_aggregation_parquet", "ds='2019-11-01'");
+            Files.move(parquetDirectory, orcDirectory, REPLACE_EXISTING);
+
+            assertQuery("SELECT count(*), count(partkey), min(quantity), max(partkey) FROM test_aggregation_orc WHERE orderkey < 1000",
+                    "SELECT count(*), count(partkey), min(quantity), max(partkey) FROM lineitem WHERE orderkey < 1000");
+            assertQuery("SELECT count(*), min(orderkey) FROM test_aggregation_orc WHERE orderkey < 0", "SELECT 0, null");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS test_aggregation_parquet");
+            assertUpdate("DROP TABLE test_aggregation_orc");
+        }
+    }
+
     @Test
     public void testPushdownWithDisjointFilters()
     {
@@ -1066,6 +1107,9 @@ public class TestHivePushdownFilterQueries
             assertQueryUsingH2Cte("SELECT COUNT(*) FROM test_file_format_orc WHERE discount_real > 0.01", cte);
             assertQueryUsingH2Cte("SELECT * FROM test_file_format_orc WHERE tax_real > 0.01 and discount_real > 0.01", cte);
 
+            // the rows of the files of the other format are read and aggregated
+            assertQueryUsingH2Cte("SELECT count(partkey), min(quantity), max(extendedprice), max(quantity) FROM test_file_format_orc WHERE orderkey < 1000", cte);
+
             assertQueryUsingH2Cte("SELECT keys FROM test_file_format_orc WHERE keys IS NOT NULL", cte);
             assertQueryUsingH2Cte("SELECT keys FROM test_file_format_orc WHERE keys IS NULL", cte);
             assertQueryUsingH2Cte("SELECT linenumber FROM test_file_format_orc WHERE keys[1] % 5 = 0 AND keys[2] > 100", cte);
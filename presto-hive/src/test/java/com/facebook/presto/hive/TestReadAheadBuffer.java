@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.ReadAheadBuffer.Region;
+import com.facebook.presto.orc.DiskRange;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestReadAheadBuffer
+{
+    private static final byte[] DATA = new byte[1000];
+
+    static {
+        for (int i = 0; i < DATA.length; i++) {
+            DATA[i] = (byte) i;
+        }
+    }
+
+    @Test
+    public void testReadAhead()
+            throws IOException
+    {
+        ReadAheadStats stats = new ReadAheadStats();
+        try (ReadAheadBuffer buffer = createBuffer(1000, stats)) {
+            buffer.setRegions(ImmutableList.of(
+                    new Region(0, 100, ImmutableList.of(new DiskRange(0, 10), new DiskRange(90, 10))),
+                    new Region(100, 100, ImmutableList.of(new DiskRange(100, 10))),
+                    new Region(200, 100, ImmutableList.of(new DiskRange(200, 10)))));
+            assertEquals(buffer.getBufferedBytes(), 20);
+
+            // reading the first region reads ahead the second one
+            assertData(buffer.read(2, 5), 2, 5);
+            assertEquals(buffer.getBufferedBytes(), 30);
+            assertEquals(stats.getHits().getTotalCount(), 1);
+
+            // the ranges that are not read ahead are read by the caller
+            assertNull(buffer.read(20, 5));
+            assertEquals(stats.getMisses().getTotalCount(), 0);
+
+            // skipping the second region releases its buffers
+            assertData(buffer.read(200, 10), 200, 10);
+            assertEquals(buffer.getBufferedBytes(), 10);
+            assertEquals(stats.getDiscardedBytes().getTotalCount(), 20);
+            assertEquals(stats.getReadAheadBytes().getTotalCount(), 40);
+
+            // the regions before the current one are not read ahead anymore
+            assertNull(buffer.read(0, 10));
+            assertNull(buffer.read(500, 10));
+            assertEquals(buffer.getReadBytes(), 40);
+        }
+    }
+
+    @Test
+    public void testLoadedRanges()
+            throws IOException
+    {
+        ReadAheadStats stats = new ReadAheadStats();
+        AtomicInteger loads = new AtomicInteger();
+        try (ReadAheadBuffer buffer = createBuffer(1000, stats)) {
+            buffer.setRegions(ImmutableList.of(
+                    new Region(0, 100, ImmutableList.of(new DiskRange(0, 10))),
+                    new Region(100, 100, () -> {
+                        loads.incrementAndGet();
+                        return ImmutableList.of(new DiskRange(150, 10));
+                    }),
+                    new Region(200, 100, () -> {
+                        throw new IOException("cannot load the ranges");
+                    })));
+
+            // the ranges of a region are loaded when the region is read ahead, once
+            assertEquals(loads.get(), 0);
+            assertData(buffer.read(0, 10), 0, 10);
+            assertEquals(loads.get(), 1);
+            assertData(buffer.read(150, 10), 150, 10);
+            assertEquals(loads.get(), 1);
+
+            // the regions whose ranges cannot be loaded are read by the caller
+            assertNull(buffer.read(200, 10));
+            assertEquals(stats.getMisses().getTotalCount(), 0);
+        }
+    }
+
+    @Test
+    public void testMaxBufferedBytes()
+            throws IOException
+    {
+        ReadAheadStats stats = new ReadAheadStats();
+        try (ReadAheadBuffer buffer = createBuffer(15, stats)) {
+            buffer.setRegions(ImmutableList.of(new Region(0, 100, ImmutableList.of(new DiskRange(0, 10), new DiskRange(90, 10)))));
+            assertEquals(buffer.getBufferedBytes(), 10);
+
+            assertData(buffer.read(0, 10), 0, 10);
+            assertNull(buffer.read(90, 10));
+            assertEquals(stats.getHits().getTotalCount(), 1);
+            assertEquals(stats.getMisses().getTotalCount(), 1);
+        }
+    }
+
+    @Test
+    public void testQueryBudget()
+            throws IOException
+    {
+        ReadAheadStats stats = new ReadAheadStats();
+        ReadAheadBudget budget = new ReadAheadBudget(25);
+        try (ReadAheadBuffer first = createBuffer(budget, stats);
+                ReadAheadBuffer second = createBuffer(budget, stats)) {
+            first.setRegions(ImmutableList.of(new Region(0, 100, ImmutableList.of(new DiskRange(0, 20)))));
+            assertEquals(budget.getBufferedBytes(), 20);
+
+            // the ranges that do not fit in the budget shared by the buffers are skipped, the smaller ones are read ahead
+            second.setRegions(ImmutableList.of(new Region(0, 100, ImmutableList.of(new DiskRange(0, 10), new DiskRange(90, 5)))));
+            assertEquals(second.getBufferedBytes(), 5);
+            assertEquals(budget.getBufferedBytes(), 25);
+            assertNull(second.read(0, 10));
+            assertData(second.read(90, 5), 90, 5);
+
+            first.close();
+            assertEquals(budget.getBufferedBytes(), 5);
+        }
+        assertEquals(budget.getBufferedBytes(), 0);
+    }
+
+    @Test
+    public void testSchedulerQueryBudgets()
+    {
+        ReadAheadScheduler scheduler = new ReadAheadScheduler(new ReadAheadConfig().setEnabled(true), newDirectExecutorService(), new ReadAheadStats());
+        ReadAheadBuffer first = scheduler.createBuffer("query1", (position, buffer, bufferOffset, bufferLength) -> {});
+        ReadAheadBuffer second = scheduler.createBuffer("query1", (position, buffer, bufferOffset, bufferLength) -> {});
+        ReadAheadBuffer third = scheduler.createBuffer("query2", (position, buffer, bufferOffset, bufferLength) -> {});
+        assertEquals(scheduler.getQueryBudgetCount(), 2);
+
+        first.close();
+        first.close();
+        assertEquals(scheduler.getQueryBudgetCount(), 2);
+        second.close();
+        assertEquals(scheduler.getQueryBudgetCount(), 1);
+        third.close();
+        assertEquals(scheduler.getQueryBudgetCount(), 0);
+    }
+
+    @Test
+    public void testClose()
+            throws IOException
+    {
+        ReadAheadStats stats = new ReadAheadStats();
+        ReadAheadBuffer buffer = createBuffer(1000, stats);
+        buffer.setRegions(ImmutableList.of(new Region(0, 100, ImmutableList.of(new DiskRange(0, 10)))));
+        buffer.close();
+        assertEquals(buffer.getBufferedBytes(), 0);
+        assertEquals(stats.getDiscardedBytes().getTotalCount(), 10);
+        assertNull(buffer.read(0, 10));
+    }
+
+    private static ReadAheadBuffer createBuffer(long maxBufferedBytes, ReadAheadStats stats)
+    {
+        return createBuffer(new ReadAheadBudget(maxBufferedBytes), stats);
+    }
+
+    private static ReadAheadBuffer createBuffer(ReadAheadBudget budget, ReadAheadStats stats)
+    {
+        return new ReadAheadBuffer(
+                (position, buffer, bufferOffset, bufferLength) -> System.arraycopy(DATA, (int) position, buffer, bufferOffset, bufferLength),
+                newDirectExecutorService(),
+                new DataSize(1, BYTE),
+                new DataSize(1, MEGABYTE),
+                budget,
+                () -> {},
+                stats);
+    }
+
+    private static void assertData(Slice slice, int offset, int length)
+    {
+        assertEquals(slice, wrappedBuffer(DATA, offset, length));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
+import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static com.facebook.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class TestReadAheadConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        assertRecordedDefaults(recordDefaults(ReadAheadConfig.class)
+                .setEnabled(false)
+                .setThreads(32)
+                .setMaxMergeDistance(new DataSize(1, MEGABYTE))
+                .setMaxReadSize(new DataSize(8, MEGABYTE))
+                .setMaxBufferedSize(new DataSize(64, MEGABYTE)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("hive.read-ahead.enabled", "true")
+                .put("hive.read-ahead.threads", "8")
+                .put("hive.read-ahead.max-merge-distance", "512kB")
+                .put("hive.read-ahead.max-read-size", "16MB")
+                .put("hive.read-ahead.max-buffered-size", "128MB")
+                .build();
+
+        ReadAheadConfig expected = new ReadAheadConfig()
+                .setEnabled(true)
+                .setThreads(8)
+                .setMaxMergeDistance(new DataSize(512, KILOBYTE))
+                .setMaxReadSize(new DataSize(16, MEGABYTE))
+                .setMaxBufferedSize(new DataSize(128, MEGABYTE));
+
+        assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.LazyBlock;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BigintRange;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static java.util.Collections.nCopies;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetSelectivePageSource
+{
+    private static final int BATCH_SIZE = 1000;
+
+    @Test
+    public void testDropBatchesWithoutSurvivingPositions()
+    {
+        LazyBlock[] firstBatch = {createLazyBlock(0), createLazyBlock(0)};
+        LazyBlock[] secondBatch = {createLazyBlock(BATCH_SIZE / 2), createLazyBlock(BATCH_SIZE)};
+
+        // keep the values of the first column from BATCH_SIZE and output the second column
+        ConnectorPageSource pageSource = createPageSource(
+                ImmutableList.of(new Page(firstBatch), new Page(secondBatch)),
+                ImmutableList.of(Optional.of(0), Optional.of(1)),
+                ImmutableMap.of(),
+                ImmutableList.of(1),
+                ImmutableMap.of(0, BigintRange.of(BATCH_SIZE, Long.MAX_VALUE, false)),
+                false);
+
+        // no position of the first batch survives, so the second column is not decoded
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 0);
+        assertTrue(firstBatch[0].isLoaded());
+        assertFalse(firstBatch[1].isLoaded());
+
+        // the second half of the second batch survives, and the output column stays lazy
+        page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), BATCH_SIZE / 2);
+        assertTrue(secondBatch[0].isLoaded());
+        assertFalse(secondBatch[1].isLoaded());
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), BATCH_SIZE + BATCH_SIZE / 2);
+        assertEquals(BIGINT.getLong(page.getBlock(0), BATCH_SIZE / 2 - 1), 2 * BATCH_SIZE - 1);
+
+        assertNull(pageSource.getNextPage());
+    }
+
+    @Test
+    public void testPrefilledColumns()
+    {
+        // the prefilled value passes the filter, so all the positions survive without decoding the read column
+        LazyBlock block = createLazyBlock(0);
+        ConnectorPageSource pageSource = createPrefilledPageSource(block, BigintRange.of(7, 7, false));
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), BATCH_SIZE);
+        assertFalse(block.isLoaded());
+        assertTrue(page.getBlock(1) instanceof RunLengthEncodedBlock);
+        assertEquals(BIGINT.getLong(page.getBlock(1), BATCH_SIZE - 1), 7);
+
+        // the prefilled value does not pass the filter, so the batch is dropped without decoding the read column
+        block = createLazyBlock(0);
+        pageSource = createPrefilledPageSource(block, BigintRange.of(8, 8, false));
+        page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 0);
+        assertFalse(block.isLoaded());
+    }
+
+    @Test
+    public void testDictionaryBlocks()
+    {
+        // the filter is tested on the two dictionary entries, which the positions refer to in turn
+        int[] ids = IntStream.range(0, BATCH_SIZE).map(position -> position % 2).toArray();
+        Block block = new DictionaryBlock(new LongArrayBlock(2, Optional.empty(), new long[] {5, 10}), ids);
+        ConnectorPageSource pageSource = createPageSource(
+                ImmutableList.of(new Page(block)),
+                ImmutableList.of(Optional.of(0)),
+                ImmutableMap.of(),
+                ImmutableList.of(0),
+                ImmutableMap.of(0, BigintRange.of(10, 10, false)),
+                false);
+
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), BATCH_SIZE / 2);
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertEquals(BIGINT.getLong(page.getBlock(0), position), 10);
+        }
+    }
+
+    @Test
+    public void testReorderFilters()
+    {
+        // the filter on the second column drops every position, so it is moved before the filter on the first column,
+        // which then no longer decodes the first column of the later batches
+        assertFalse(isFirstColumnLoadedAfterFirstBatch(true));
+        assertTrue(isFirstColumnLoadedAfterFirstBatch(false));
+    }
+
+    private static boolean isFirstColumnLoadedAfterFirstBatch(boolean reorderFilters)
+    {
+        LazyBlock[] firstBatch = {createLazyBlock(0), createLazyBlock(0)};
+        LazyBlock[] secondBatch = {createLazyBlock(0), createLazyBlock(0)};
+        ConnectorPageSource pageSource = createPageSource(
+                ImmutableList.of(new Page(firstBatch), new Page(secondBatch)),
+                ImmutableList.of(Optional.of(0), Optional.of(1)),
+                ImmutableMap.of(),
+                ImmutableList.of(0, 1),
+                ImmutableMap.of(
+                        0, BigintRange.of(Long.MIN_VALUE, Long.MAX_VALUE, false),
+                        1, BigintRange.of(-1, -1, false)),
+                reorderFilters);
+
+        // the filters are applied in the order in which they are given
+        assertEquals(pageSource.getNextPage().getPositionCount(), 0);
+        assertTrue(firstBatch[0].isLoaded());
+        assertTrue(firstBatch[1].isLoaded());
+
+        assertEquals(pageSource.getNextPage().getPositionCount(), 0);
+        assertTrue(secondBatch[1].isLoaded());
+        return secondBatch[0].isLoaded();
+    }
+
+    private static ConnectorPageSource createPrefilledPageSource(LazyBlock block, TupleDomainFilter prefilledColumnFilter)
+    {
+        return createPageSource(
+                ImmutableList.of(new Page(block)),
+                ImmutableList.of(Optional.of(0), Optional.empty()),
+                ImmutableMap.of(1, 7L),
+                ImmutableList.of(0, 1),
+                ImmutableMap.of(1, prefilledColumnFilter),
+                false);
+    }
+
+    private static ConnectorPageSource createPageSource(
+            List<Page> pages,
+            List<Optional<Integer>> delegateChannels,
+            Map<Integer, Object> constantValues,
+            List<Integer> outputColumns,
+            Map<Integer, TupleDomainFilter> columnFilters,
+            boolean reorderFilters)
+    {
+        return new ParquetSelectivePageSource(
+                new FixedPageSource(pages),
+                nCopies(delegateChannels.size(), BIGINT),
+                delegateChannels,
+                constantValues,
+                ImmutableMap.of(),
+                outputColumns,
+                columnFilters,
+                ImmutableList.of(),
+                reorderFilters);
+    }
+
+    private static LazyBlock createLazyBlock(long start)
+    {
+        long[] values = LongStream.range(start, start + BATCH_SIZE).toArray();
+        return new LazyBlock(BATCH_SIZE, lazyBlock -> lazyBlock.setBlock(new LongArrayBlock(BATCH_SIZE, Optional.empty(), values)));
+    }
+}
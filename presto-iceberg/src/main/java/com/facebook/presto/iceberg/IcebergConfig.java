@@ -18,6 +18,7 @@ import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.presto.hive.HiveCompressionCodec;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
 import org.apache.iceberg.FileFormat;
 
 import javax.validation.constraints.DecimalMax;
@@ -30,6 +31,7 @@ import java.util.List;
 import static com.facebook.presto.hive.HiveCompressionCodec.GZIP;
 import static com.facebook.presto.iceberg.CatalogType.HIVE;
 import static com.facebook.presto.iceberg.IcebergFileFormat.PARQUET;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class IcebergConfig
 {
@@ -41,6 +43,9 @@ public class IcebergConfig
     private int maxPartitionsPerWriter = 100;
     private List<String> hadoopConfigResources = ImmutableList.of();
     private double minimumAssignedSplitWeight = 0.05;
+    private DataSize deleteFileCacheSize = new DataSize(128, MEGABYTE);
+    private int splitManagerThreads = Runtime.getRuntime().availableProcessors() * 2;
+    private int maxOutstandingSplits = 1_000;
 
     @NotNull
     public FileFormat getFileFormat()
@@ -152,4 +157,46 @@ public class IcebergConfig
     {
         return minimumAssignedSplitWeight;
     }
+
+    @NotNull
+    public DataSize getDeleteFileCacheSize()
+    {
+        return deleteFileCacheSize;
+    }
+
+    @Config("iceberg.delete-file-cache-size")
+    @ConfigDescription("Maximum size of the delete files that are loaded and shared by the splits of a query on a worker")
+    public IcebergConfig setDeleteFileCacheSize(DataSize deleteFileCacheSize)
+    {
+        this.deleteFileCacheSize = deleteFileCacheSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getSplitManagerThreads()
+    {
+        return splitManagerThreads;
+    }
+
+    @Config("iceberg.split-manager-threads")
+    @ConfigDescription("Number of threads used to read the manifests of the tables scanned by all queries")
+    public IcebergConfig setSplitManagerThreads(int splitManagerThreads)
+    {
+        this.splitManagerThreads = splitManagerThreads;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxOutstandingSplits()
+    {
+        return maxOutstandingSplits;
+    }
+
+    @Config("iceberg.max-outstanding-splits")
+    @ConfigDescription("Maximum number of enumerated splits buffered for a table scan before manifest reading is paused")
+    public IcebergConfig setMaxOutstandingSplits(int maxOutstandingSplits)
+    {
+        this.maxOutstandingSplits = maxOutstandingSplits;
+        return this;
+    }
 }
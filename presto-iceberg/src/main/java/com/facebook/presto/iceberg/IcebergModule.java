@@ -89,6 +89,7 @@ import static com.facebook.airlift.configuration.ConfigBinder.configBinder;
 import static com.facebook.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static java.lang.Math.toIntExact;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.weakref.jmx.ObjectNames.generatedNameOf;
@@ -139,6 +140,8 @@ public class IcebergModule
         binder.bind(IcebergTableProperties.class).in(Scopes.SINGLETON);
 
         binder.bind(ConnectorSplitManager.class).to(IcebergSplitManager.class).in(Scopes.SINGLETON);
+        binder.bind(IcebergSplitManagerStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(IcebergSplitManagerStats.class).as(generatedNameOf(IcebergSplitManagerStats.class, connectorId));
         binder.bind(ConnectorPageSourceProvider.class).to(IcebergPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorPageSinkProvider.class).to(IcebergPageSinkProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorNodePartitioningProvider.class).to(HiveNodePartitioningProvider.class).in(Scopes.SINGLETON);
@@ -169,6 +172,25 @@ public class IcebergModule
         binder.bind(IcebergPlanOptimizer.class).in(Scopes.SINGLETON);
     }
 
+    @ForIcebergSplitManager
+    @Singleton
+    @Provides
+    public ExecutorService createSplitManagerExecutor()
+    {
+        return newCachedThreadPool(daemonThreadsNamed("iceberg-split-loader-" + connectorId + "-%s"));
+    }
+
+    @ForIcebergManifestReader
+    @Singleton
+    @Provides
+    public ExecutorService createManifestReaderExecutor(IcebergConfig config)
+    {
+        // the manifest readers must not share a pool with the split loaders, which wait for them
+        return newFixedThreadPool(
+                config.getSplitManagerThreads(),
+                daemonThreadsNamed("iceberg-manifest-reader-" + connectorId + "-%s"));
+    }
+
     @ForCachingHiveMetastore
     @Singleton
     @Provides
@@ -23,6 +23,7 @@ import com.facebook.presto.common.type.TimeZoneKey;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.VarbinaryType;
 import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.iceberg.delete.DeleteFilter;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.PrestoException;
 import io.airlift.slice.Slice;
@@ -33,6 +34,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
@@ -62,16 +64,19 @@ public class IcebergPageSource
     private final Block[] prefilledBlocks;
     private final int[] delegateIndexes;
     private final ConnectorPageSource delegate;
+    private final Optional<DeleteFilter> deleteFilter;
 
     public IcebergPageSource(
             List<IcebergColumnHandle> columns,
             Map<Integer, String> partitionKeys,
             ConnectorPageSource delegate,
+            Optional<DeleteFilter> deleteFilter,
             TimeZoneKey timeZoneKey)
     {
         int size = requireNonNull(columns, "columns is null").size();
         requireNonNull(partitionKeys, "partitionKeys is null");
         this.delegate = requireNonNull(delegate, "delegate is null");
+        this.deleteFilter = requireNonNull(deleteFilter, "deleteFilter is null");
 
         prefilledBlocks = new Block[size];
         delegateIndexes = new int[size];
@@ -136,7 +141,11 @@ public class IcebergPageSource
                     blocks[i] = dataPage.getBlock(delegateIndexes[i]);
                 }
             }
-            return new Page(batchSize, blocks);
+            Page page = new Page(batchSize, blocks);
+            if (deleteFilter.isPresent()) {
+                page = deleteFilter.get().filter(page);
+            }
+            return page;
         }
         catch (RuntimeException e) {
             closeWithSuppression(e);
@@ -154,6 +163,9 @@ public class IcebergPageSource
         catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        finally {
+            deleteFilter.ifPresent(DeleteFilter::close);
+        }
     }
 
     @Override
@@ -33,6 +33,12 @@ import com.facebook.presto.hive.orc.HdfsOrcDataSource;
 import com.facebook.presto.hive.orc.OrcBatchPageSource;
 import com.facebook.presto.hive.orc.ProjectionBasedDwrfKeyProvider;
 import com.facebook.presto.hive.parquet.ParquetPageSource;
+import com.facebook.presto.iceberg.delete.DeleteFile;
+import com.facebook.presto.iceberg.delete.DeleteFileCache;
+import com.facebook.presto.iceberg.delete.DeleteFilter;
+import com.facebook.presto.iceberg.delete.EqualityDeletes;
+import com.facebook.presto.iceberg.delete.PositionDeleteFile;
+import com.facebook.presto.iceberg.delete.PositionDeletes;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.DwrfKeyProvider;
@@ -67,6 +73,8 @@ import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -87,12 +95,16 @@ import javax.inject.Inject;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.IntStream;
 
 import static com.facebook.presto.hive.CacheQuota.NO_CACHE_CONSTRAINTS;
@@ -128,14 +140,19 @@ import static com.facebook.presto.parquet.predicate.PredicateUtils.buildPredicat
 import static com.facebook.presto.parquet.predicate.PredicateUtils.predicateMatches;
 import static com.facebook.presto.parquet.reader.ColumnIndexFilterUtils.getColumnIndexStore;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.Maps.uniqueIndex;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.String.format;
 import static java.time.ZoneOffset.UTC;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
+import static org.apache.iceberg.MetadataColumns.DELETE_FILE_PATH;
+import static org.apache.iceberg.MetadataColumns.DELETE_FILE_POS;
 import static org.apache.parquet.io.ColumnIOConverter.constructField;
 
 public class IcebergPageSourceProvider
@@ -148,6 +165,7 @@ public class IcebergPageSourceProvider
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
     private final DwrfEncryptionProvider dwrfEncryptionProvider;
     private final HiveClientConfig hiveClientConfig;
+    private final DeleteFileCache deleteFileCache;
 
     @Inject
     public IcebergPageSourceProvider(
@@ -157,7 +175,8 @@ public class IcebergPageSourceProvider
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
             HiveDwrfEncryptionProvider dwrfEncryptionProvider,
-            HiveClientConfig hiveClientConfig)
+            HiveClientConfig hiveClientConfig,
+            IcebergConfig icebergConfig)
     {
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.fileFormatDataSourceStats = requireNonNull(fileFormatDataSourceStats, "fileFormatDataSourceStats is null");
@@ -166,6 +185,9 @@ public class IcebergPageSourceProvider
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
         this.dwrfEncryptionProvider = requireNonNull(dwrfEncryptionProvider, "DwrfEncryptionProvider is null").toDwrfEncryptionProvider();
         this.hiveClientConfig = requireNonNull(hiveClientConfig, "hiveClientConfig is null");
+
+        // delete files are shared by the splits of a data file, and often by the data files of a partition
+        this.deleteFileCache = new DeleteFileCache(requireNonNull(icebergConfig, "icebergConfig is null").getDeleteFileCacheSize().toBytes());
     }
 
     private static ConnectorPageSource createParquetPageSource(
@@ -231,7 +253,9 @@ public class IcebergPageSourceProvider
             Predicate parquetPredicate = buildPredicate(requestedSchema, parquetTupleDomain, descriptorsByPath);
             final ParquetDataSource finalDataSource = dataSource;
             List<BlockMetaData> blocks = new ArrayList<>();
+            List<Long> firstRowsOfBlocks = new ArrayList<>();
             List<ColumnIndexStore> blockIndexStores = new ArrayList<>();
+            long nextFirstRow = 0;
             for (BlockMetaData block : parquetMetadata.getBlocks()) {
                 Optional<Integer> firstIndex = findFirstNonHiddenColumnId(block);
                 if (firstIndex.isPresent()) {
@@ -240,16 +264,18 @@ public class IcebergPageSourceProvider
                     if ((firstDataPage >= start) && (firstDataPage < (start + length)) &&
                             predicateMatches(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain, columnIndexStore, false, Optional.of(session.getWarningCollector()))) {
                         blocks.add(block);
+                        firstRowsOfBlocks.add(nextFirstRow);
                         blockIndexStores.add(columnIndexStore.orElse(null));
                     }
                 }
+                nextFirstRow += block.getRowCount();
             }
 
             MessageColumnIO messageColumnIO = getColumnIO(fileSchema, requestedSchema);
             ParquetReader parquetReader = new ParquetReader(
                     messageColumnIO,
                     blocks,
-                    Optional.empty(),
+                    Optional.of(firstRowsOfBlocks),
                     dataSource,
                     systemMemoryContext,
                     getParquetMaxReadBlockSize(session),
@@ -600,10 +626,12 @@ public class IcebergPageSourceProvider
                 .map(IcebergColumnHandle.class::cast)
                 .collect(toImmutableList());
 
+        // equality deletes are applied on columns that may not be projected, those are read after the projected columns
+        List<IcebergColumnHandle> readColumns = getReadColumns(icebergColumns, split.getDeletes());
+
         Map<Integer, String> partitionKeys = split.getPartitionKeys();
 
-        List<IcebergColumnHandle> regularColumns = columns.stream()
-                .map(IcebergColumnHandle.class::cast)
+        List<IcebergColumnHandle> regularColumns = readColumns.stream()
                 .filter(column -> !partitionKeys.containsKey(column.getId()))
                 .collect(toImmutableList());
 
@@ -621,7 +649,134 @@ public class IcebergPageSourceProvider
                 table.getPredicate(),
                 splitContext.isCacheable());
 
-        return new IcebergPageSource(icebergColumns, partitionKeys, dataPageSource, session.getSqlFunctionProperties().getTimeZoneKey());
+        Optional<DeleteFilter> deleteFilter = Optional.empty();
+        if (!split.getDeletes().isEmpty()) {
+            try {
+                deleteFilter = Optional.of(createDeleteFilter(session, hdfsContext, table, split, readColumns, icebergColumns.size(), getFilePosition(dataPageSource)));
+            }
+            catch (RuntimeException e) {
+                try {
+                    dataPageSource.close();
+                }
+                catch (IOException | RuntimeException closeException) {
+                    if (e != closeException) {
+                        e.addSuppressed(closeException);
+                    }
+                }
+                throw e;
+            }
+        }
+
+        return new IcebergPageSource(readColumns, partitionKeys, dataPageSource, deleteFilter, session.getSqlFunctionProperties().getTimeZoneKey());
+    }
+
+    private static List<IcebergColumnHandle> getReadColumns(List<IcebergColumnHandle> columns, List<DeleteFile> deletes)
+    {
+        Set<Integer> columnIds = columns.stream()
+                .map(IcebergColumnHandle::getId)
+                .collect(toCollection(HashSet::new));
+        ImmutableList.Builder<IcebergColumnHandle> readColumns = ImmutableList.<IcebergColumnHandle>builder().addAll(columns);
+        for (DeleteFile delete : deletes) {
+            for (IcebergColumnHandle column : delete.getEqualityColumns()) {
+                if (columnIds.add(column.getId())) {
+                    readColumns.add(column);
+                }
+            }
+        }
+        return readColumns.build();
+    }
+
+    private static LongSupplier getFilePosition(ConnectorPageSource dataPageSource)
+    {
+        if (dataPageSource instanceof OrcBatchPageSource) {
+            return ((OrcBatchPageSource) dataPageSource)::getFilePosition;
+        }
+        if (dataPageSource instanceof ParquetPageSource) {
+            return ((ParquetPageSource) dataPageSource)::getFilePosition;
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Row positions are not supported by page source: " + dataPageSource.getClass().getName());
+    }
+
+    private DeleteFilter createDeleteFilter(
+            ConnectorSession session,
+            HdfsContext hdfsContext,
+            IcebergTableHandle table,
+            IcebergSplit split,
+            List<IcebergColumnHandle> readColumns,
+            int outputColumnCount,
+            LongSupplier filePosition)
+    {
+        String queryId = session.getQueryId();
+        Slice dataFilePath = utf8Slice(split.getPath());
+        ImmutableList.Builder<PositionDeletes> positionDeletes = ImmutableList.builder();
+        ImmutableList.Builder<EqualityDeletes> equalityDeletes = ImmutableList.builder();
+        deleteFileCache.acquire(queryId);
+        try {
+            for (DeleteFile delete : split.getDeletes()) {
+                try {
+                    switch (delete.getContent()) {
+                        case POSITION_DELETES:
+                            // the positional delete file is loaded whole, so that the data files sharing it read it once
+                            PositionDeleteFile positionDeleteFile = deleteFileCache.getPositionDeletes(queryId, delete.getPath(), () -> readPositionDeletes(session, hdfsContext, table, delete));
+                            positionDeletes.add(positionDeleteFile.getDeletes(dataFilePath));
+                            break;
+                        case EQUALITY_DELETES:
+                            equalityDeletes.add(deleteFileCache.getEqualityDeletes(queryId, delete.getPath(), () -> readEqualityDeletes(session, hdfsContext, table, delete)));
+                            break;
+                        default:
+                            throw new PrestoException(NOT_SUPPORTED, "Unsupported delete file content: " + delete.getContent());
+                    }
+                }
+                catch (ExecutionException | UncheckedExecutionException e) {
+                    throwIfInstanceOf(e.getCause(), PrestoException.class);
+                    throw new PrestoException(ICEBERG_CANNOT_OPEN_SPLIT, format("Error reading Iceberg delete file %s: %s", delete.getPath(), e.getCause().getMessage()), e.getCause());
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            deleteFileCache.release(queryId);
+            throw e;
+        }
+        return new DeleteFilter(positionDeletes.build(), equalityDeletes.build(), readColumns, outputColumnCount, filePosition, () -> deleteFileCache.release(queryId));
+    }
+
+    private PositionDeleteFile readPositionDeletes(ConnectorSession session, HdfsContext hdfsContext, IcebergTableHandle table, DeleteFile delete)
+            throws IOException
+    {
+        IcebergColumnHandle filePathColumn = IcebergColumnHandle.create(DELETE_FILE_PATH, typeManager);
+        IcebergColumnHandle positionColumn = IcebergColumnHandle.create(DELETE_FILE_POS, typeManager);
+        try (ConnectorPageSource pageSource = createDeleteFilePageSource(session, hdfsContext, table, delete, ImmutableList.of(filePathColumn, positionColumn), TupleDomain.all())) {
+            return PositionDeleteFile.read(pageSource);
+        }
+    }
+
+    private EqualityDeletes readEqualityDeletes(ConnectorSession session, HdfsContext hdfsContext, IcebergTableHandle table, DeleteFile delete)
+            throws IOException
+    {
+        try (ConnectorPageSource pageSource = createDeleteFilePageSource(session, hdfsContext, table, delete, delete.getEqualityColumns(), TupleDomain.all())) {
+            return EqualityDeletes.read(pageSource, delete.getEqualityColumns());
+        }
+    }
+
+    private ConnectorPageSource createDeleteFilePageSource(
+            ConnectorSession session,
+            HdfsContext hdfsContext,
+            IcebergTableHandle table,
+            DeleteFile delete,
+            List<IcebergColumnHandle> columns,
+            TupleDomain<IcebergColumnHandle> predicate)
+    {
+        return createDataPageSource(
+                session,
+                hdfsContext,
+                new Path(delete.getPath()),
+                0,
+                delete.getFileSizeInBytes(),
+                delete.getFormat(),
+                table.getSchemaTableName(),
+                columns,
+                predicate,
+                false);
     }
 
     private ConnectorPageSource createDataPageSource(
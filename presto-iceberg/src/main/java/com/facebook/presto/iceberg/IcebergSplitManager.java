@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.iceberg;
 
+import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
 import com.facebook.presto.spi.ConnectorSession;
@@ -28,6 +29,8 @@ import org.apache.iceberg.util.TableScanUtil;
 
 import javax.inject.Inject;
 
+import java.util.concurrent.ExecutorService;
+
 import static com.facebook.presto.iceberg.CatalogType.HADOOP;
 import static com.facebook.presto.iceberg.CatalogType.NESSIE;
 import static com.facebook.presto.iceberg.ExpressionConverter.toIcebergExpression;
@@ -43,19 +46,33 @@ public class IcebergSplitManager
     private final HdfsEnvironment hdfsEnvironment;
     private final IcebergResourceFactory resourceFactory;
     private final CatalogType catalogType;
+    private final TypeManager typeManager;
+    private final int maxOutstandingSplits;
+    private final ExecutorService splitLoaderExecutor;
+    private final ExecutorService manifestReaderExecutor;
+    private final IcebergSplitManagerStats stats;
 
     @Inject
     public IcebergSplitManager(
             IcebergConfig config,
             IcebergResourceFactory resourceFactory,
             IcebergTransactionManager transactionManager,
-            HdfsEnvironment hdfsEnvironment)
+            HdfsEnvironment hdfsEnvironment,
+            TypeManager typeManager,
+            @ForIcebergSplitManager ExecutorService splitLoaderExecutor,
+            @ForIcebergManifestReader ExecutorService manifestReaderExecutor,
+            IcebergSplitManagerStats stats)
     {
         this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.resourceFactory = requireNonNull(resourceFactory, "resourceFactory is null");
         requireNonNull(config, "config is null");
         this.catalogType = config.getCatalogType();
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.maxOutstandingSplits = config.getMaxOutstandingSplits();
+        this.splitLoaderExecutor = requireNonNull(splitLoaderExecutor, "splitLoaderExecutor is null");
+        this.manifestReaderExecutor = requireNonNull(manifestReaderExecutor, "manifestReaderExecutor is null");
+        this.stats = requireNonNull(stats, "stats is null");
     }
 
     @Override
@@ -83,7 +100,8 @@ public class IcebergSplitManager
 
         TableScan tableScan = icebergTable.newScan()
                 .filter(toIcebergExpression(table.getPredicate()))
-                .useSnapshot(table.getSnapshotId().get());
+                .useSnapshot(table.getSnapshotId().get())
+                .planWith(manifestReaderExecutor);
 
         // TODO Use residual. Right now there is no way to propagate residual to presto but at least we can
         //      propagate it at split level so the parquet pushdown can leverage it.
@@ -91,7 +109,12 @@ public class IcebergSplitManager
                 session,
                 tableScan,
                 TableScanUtil.splitFiles(tableScan.planFiles(), tableScan.targetSplitSize()),
-                getMinimumAssignedSplitWeight(session));
+                getMinimumAssignedSplitWeight(session),
+                typeManager,
+                maxOutstandingSplits,
+                splitLoaderExecutor,
+                stats);
+        splitSource.start();
         return splitSource;
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class IcebergSplitManagerStats
+{
+    private final TimeStat timeToFirstSplit = new TimeStat(MILLISECONDS);
+    private final TimeStat planningTime = new TimeStat(MILLISECONDS);
+    private final TimeStat loaderBlockedTime = new TimeStat(MILLISECONDS);
+    private final CounterStat fileScanTasks = new CounterStat();
+    private final CounterStat deleteFiles = new CounterStat();
+    private final CounterStat planningFailures = new CounterStat();
+
+    @Managed
+    @Nested
+    public TimeStat getTimeToFirstSplit()
+    {
+        return timeToFirstSplit;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getPlanningTime()
+    {
+        return planningTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLoaderBlockedTime()
+    {
+        return loaderBlockedTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getFileScanTasks()
+    {
+        return fileScanTasks;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDeleteFiles()
+    {
+        return deleteFiles;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPlanningFailures()
+    {
+        return planningFailures;
+    }
+
+    public void firstSplitEnumerated(long nanos)
+    {
+        timeToFirstSplit.add(nanos, NANOSECONDS);
+    }
+
+    public void planningFinished(long nanos)
+    {
+        planningTime.add(nanos, NANOSECONDS);
+    }
+
+    public void loaderBlocked(long nanos)
+    {
+        loaderBlockedTime.add(nanos, NANOSECONDS);
+    }
+
+    public void fileScanTaskEnumerated(int deleteFileCount)
+    {
+        fileScanTasks.update(1);
+        deleteFiles.update(deleteFileCount);
+    }
+
+    public void planningFailed()
+    {
+        planningFailures.update(1);
+    }
+}
@@ -13,13 +13,17 @@
  */
 package com.facebook.presto.iceberg;
 
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.hive.util.AsyncQueue;
+import com.facebook.presto.iceberg.delete.DeleteFile;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SplitWeight;
 import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
 import com.google.common.collect.ImmutableList;
-import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.iceberg.FileScanTask;
 import org.apache.iceberg.PartitionField;
 import org.apache.iceberg.PartitionSpec;
@@ -29,80 +33,167 @@ import org.apache.iceberg.io.CloseableIterable;
 import org.apache.iceberg.io.CloseableIterator;
 import org.apache.iceberg.types.Type;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
+import javax.annotation.concurrent.GuardedBy;
+
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.airlift.concurrent.MoreFutures.toCompletableFuture;
+import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_FILESYSTEM_ERROR;
 import static com.facebook.presto.iceberg.IcebergSessionProperties.getNodeSelectionStrategy;
 import static com.facebook.presto.iceberg.IcebergUtil.getIdentityPartitions;
-import static com.google.common.collect.Iterators.limit;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
-import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.apache.iceberg.types.Type.TypeID.BINARY;
 import static org.apache.iceberg.types.Type.TypeID.FIXED;
 
+/**
+ * Enumerates the file scan tasks of a table scan in the background, and buffers them in a
+ * bounded queue. Splits are scheduled as soon as the first manifest is read, and the
+ * enumeration pauses while the queue is full.
+ */
 public class IcebergSplitSource
         implements ConnectorSplitSource
 {
-    private CloseableIterable<FileScanTask> fileScanTaskIterable;
-    private CloseableIterator<FileScanTask> fileScanTaskIterator;
-
+    private final ConnectorSession session;
     private final TableScan tableScan;
-    private final Closer closer = Closer.create();
+    private final CloseableIterable<FileScanTask> fileScanTaskIterable;
     private final double minimumAssignedSplitWeight;
-    private final ConnectorSession session;
+    private final TypeManager typeManager;
+    private final ExecutorService executor;
+    private final IcebergSplitManagerStats stats;
+    private final AsyncQueue<FileScanTask> queue;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final long createTimeNanos = System.nanoTime();
+
+    private volatile boolean closed;
+    @GuardedBy("this")
+    private Future<?> loaderFuture;
 
     public IcebergSplitSource(
             ConnectorSession session,
             TableScan tableScan,
             CloseableIterable<FileScanTask> fileScanTaskIterable,
-            double minimumAssignedSplitWeight)
+            double minimumAssignedSplitWeight,
+            TypeManager typeManager,
+            int maxOutstandingSplits,
+            ExecutorService executor,
+            IcebergSplitManagerStats stats)
     {
         this.session = requireNonNull(session, "session is null");
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.tableScan = requireNonNull(tableScan, "tableScan is null");
-        this.fileScanTaskIterable = requireNonNull(fileScanTaskIterable, "combinedScanIterable is null");
-        this.fileScanTaskIterator = fileScanTaskIterable.iterator();
+        this.fileScanTaskIterable = requireNonNull(fileScanTaskIterable, "fileScanTaskIterable is null");
         this.minimumAssignedSplitWeight = minimumAssignedSplitWeight;
-        closer.register(fileScanTaskIterable);
-        closer.register(fileScanTaskIterator);
+        this.executor = requireNonNull(executor, "executor is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.queue = new AsyncQueue<>(maxOutstandingSplits, executor);
+    }
+
+    /**
+     * Starts the enumeration of the file scan tasks on the executor.
+     */
+    public synchronized void start()
+    {
+        checkState(loaderFuture == null, "IcebergSplitSource is already started");
+        loaderFuture = executor.submit(this::loadFileScanTasks);
+    }
+
+    private void loadFileScanTasks()
+    {
+        try (CloseableIterable<FileScanTask> iterable = fileScanTaskIterable;
+                CloseableIterator<FileScanTask> iterator = iterable.iterator()) {
+            boolean firstTask = true;
+            while (!closed && iterator.hasNext()) {
+                FileScanTask task = iterator.next();
+                if (firstTask) {
+                    stats.firstSplitEnumerated(System.nanoTime() - createTimeNanos);
+                    firstTask = false;
+                }
+                stats.fileScanTaskEnumerated(task.deletes().size());
+
+                ListenableFuture<?> notFull = queue.offer(task);
+                if (!notFull.isDone()) {
+                    long blockedStart = System.nanoTime();
+                    getFutureValue(notFull);
+                    stats.loaderBlocked(System.nanoTime() - blockedStart);
+                }
+            }
+            if (!closed) {
+                stats.planningFinished(System.nanoTime() - createTimeNanos);
+            }
+        }
+        catch (Throwable t) {
+            // the enumeration is interrupted when the split source is closed
+            if (!closed) {
+                stats.planningFailed();
+                failure.compareAndSet(null, t);
+            }
+        }
+        finally {
+            // the failure must be set before the queue is finished, so that it is not reported as the end of the splits
+            queue.finish();
+        }
     }
 
     @Override
     public CompletableFuture<ConnectorSplitBatch> getNextBatch(ConnectorPartitionHandle partitionHandle, int maxSize)
     {
-        // TODO: move this to a background thread
-        List<ConnectorSplit> splits = new ArrayList<>();
-        Iterator<FileScanTask> iterator = limit(fileScanTaskIterator, maxSize);
-        while (iterator.hasNext()) {
-            FileScanTask task = iterator.next();
-            splits.add(toIcebergSplit(task));
-        }
-        return completedFuture(new ConnectorSplitBatch(splits, isFinished()));
+        checkState(!closed, "IcebergSplitSource is already closed");
+        checkFailure();
+
+        ListenableFuture<ConnectorSplitBatch> batch = transform(queue.getBatchAsync(maxSize), tasks -> {
+            checkFailure();
+            List<ConnectorSplit> splits = tasks.stream()
+                    .map(this::toIcebergSplit)
+                    .collect(toImmutableList());
+            // only an empty batch claims to be the last one, so that two concurrent batches cannot both claim it
+            return new ConnectorSplitBatch(splits, splits.isEmpty() && queue.isFinished());
+        }, directExecutor());
+        return toCompletableFuture(batch);
     }
 
     @Override
     public boolean isFinished()
     {
-        return !fileScanTaskIterator.hasNext();
+        checkFailure();
+        return queue.isFinished();
     }
 
     @Override
     public void close()
     {
-        try {
-            closer.close();
+        closed = true;
+        queue.finish();
+        synchronized (this) {
+            if (loaderFuture != null) {
+                loaderFuture.cancel(true);
+            }
+        }
+    }
+
+    private void checkFailure()
+    {
+        Throwable throwable = failure.get();
+        if (throwable == null) {
+            return;
         }
-        catch (IOException e) {
-            throw new UncheckedIOException(e);
+        if (throwable instanceof PrestoException) {
+            throw (PrestoException) throwable;
         }
+        throw new PrestoException(ICEBERG_FILESYSTEM_ERROR, "Failed to enumerate the files of " + tableScan.table().name(), throwable);
     }
 
     private ConnectorSplit toIcebergSplit(FileScanTask task)
@@ -120,7 +211,10 @@ public class IcebergSplitSource
                 ImmutableList.of(),
                 getPartitionKeys(task),
                 getNodeSelectionStrategy(session),
-                SplitWeight.fromProportion(Math.min(Math.max((double) task.length() / tableScan.targetSplitSize(), minimumAssignedSplitWeight), 1.0)));
+                SplitWeight.fromProportion(Math.min(Math.max((double) task.length() / tableScan.targetSplitSize(), minimumAssignedSplitWeight), 1.0)),
+                task.deletes().stream()
+                        .map(deleteFile -> DeleteFile.fromIceberg(deleteFile, tableScan.schema(), typeManager))
+                        .collect(toImmutableList()));
     }
 
     private static Map<Integer, String> getPartitionKeys(FileScanTask scanTask)
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caches the loaded delete files of the queries running on a worker, so that the splits of a query
+ * that share a delete file read it once. A query holds its entries while it reads splits with deletes,
+ * and they are evicted once it has no more of these splits open.
+ */
+@ThreadSafe
+public class DeleteFileCache
+{
+    private final Cache<DeleteFileKey, PositionDeleteFile> positionDeletes;
+    private final Cache<DeleteFileKey, EqualityDeletes> equalityDeletes;
+
+    @GuardedBy("this")
+    private final Map<String, Integer> openSplits = new HashMap<>();
+
+    public DeleteFileCache(long maxSizeInBytes)
+    {
+        this.positionDeletes = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .weigher((key, deletes) -> toIntExact(min(((PositionDeleteFile) deletes).getRetainedSizeInBytes(), Integer.MAX_VALUE)))
+                .build();
+        this.equalityDeletes = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .weigher((key, deletes) -> toIntExact(min(((EqualityDeletes) deletes).getRetainedSizeInBytes(), Integer.MAX_VALUE)))
+                .build();
+    }
+
+    /**
+     * Registers a split of the query that reads delete files, which must be released once it is done.
+     */
+    public synchronized void acquire(String queryId)
+    {
+        openSplits.merge(queryId, 1, Integer::sum);
+    }
+
+    public synchronized void release(String queryId)
+    {
+        int remaining = openSplits.merge(queryId, -1, Integer::sum);
+        if (remaining > 0) {
+            return;
+        }
+        // a worker gets no notice of the end of a query, so its entries go when its last open split is done
+        openSplits.remove(queryId);
+        positionDeletes.asMap().keySet().removeIf(key -> key.getQueryId().equals(queryId));
+        equalityDeletes.asMap().keySet().removeIf(key -> key.getQueryId().equals(queryId));
+    }
+
+    public PositionDeleteFile getPositionDeletes(String queryId, String deleteFilePath, Callable<PositionDeleteFile> loader)
+            throws ExecutionException
+    {
+        return positionDeletes.get(new DeleteFileKey(queryId, deleteFilePath), loader);
+    }
+
+    public EqualityDeletes getEqualityDeletes(String queryId, String deleteFilePath, Callable<EqualityDeletes> loader)
+            throws ExecutionException
+    {
+        return equalityDeletes.get(new DeleteFileKey(queryId, deleteFilePath), loader);
+    }
+
+    private static final class DeleteFileKey
+    {
+        private final String queryId;
+        private final String deleteFilePath;
+
+        public DeleteFileKey(String queryId, String deleteFilePath)
+        {
+            this.queryId = requireNonNull(queryId, "queryId is null");
+            this.deleteFilePath = requireNonNull(deleteFilePath, "deleteFilePath is null");
+        }
+
+        public String getQueryId()
+        {
+            return queryId;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DeleteFileKey other = (DeleteFileKey) o;
+            return queryId.equals(other.queryId) &&
+                    deleteFilePath.equals(other.deleteFilePath);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(queryId, deleteFilePath);
+        }
+    }
+}
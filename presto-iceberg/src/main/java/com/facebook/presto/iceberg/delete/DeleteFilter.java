@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Removes the deleted rows from the pages of a data file. The pages have a channel for each
+ * of the columns, the columns after the output columns are only read to apply equality deletes
+ * and are removed from the filtered pages.
+ */
+public class DeleteFilter
+        implements Closeable
+{
+    private final List<PositionDeletes> positionDeletes;
+    private final List<EqualityDeletes> equalityDeletes;
+    private final List<List<Type>> equalityTypes;
+    private final List<int[]> equalityChannels;
+    private final int[] outputChannels;
+    private final LongSupplier startRowPosition;
+    private final Runnable onClose;
+    private boolean closed;
+
+    /**
+     * @param startRowPosition the position in the data file of the first row of the last page
+     * @param onClose called when the deletes are no longer used
+     */
+    public DeleteFilter(
+            List<PositionDeletes> positionDeletes,
+            List<EqualityDeletes> equalityDeletes,
+            List<IcebergColumnHandle> columns,
+            int outputColumnCount,
+            LongSupplier startRowPosition,
+            Runnable onClose)
+    {
+        this.positionDeletes = requireNonNull(positionDeletes, "positionDeletes is null").stream()
+                .filter(deletes -> !deletes.isEmpty())
+                .collect(toImmutableList());
+        this.equalityDeletes = requireNonNull(equalityDeletes, "equalityDeletes is null").stream()
+                .filter(deletes -> !deletes.isEmpty())
+                .collect(toImmutableList());
+        requireNonNull(columns, "columns is null");
+        checkArgument(outputColumnCount <= columns.size(), "outputColumnCount is larger than the number of columns");
+        this.startRowPosition = requireNonNull(startRowPosition, "startRowPosition is null");
+        this.onClose = requireNonNull(onClose, "onClose is null");
+
+        ImmutableList.Builder<List<Type>> equalityTypes = ImmutableList.builder();
+        ImmutableList.Builder<int[]> equalityChannels = ImmutableList.builder();
+        for (EqualityDeletes deletes : this.equalityDeletes) {
+            List<IcebergColumnHandle> equalityColumns = deletes.getColumns();
+            int[] channels = new int[equalityColumns.size()];
+            for (int i = 0; i < channels.length; i++) {
+                channels[i] = getChannel(columns, equalityColumns.get(i));
+            }
+            equalityTypes.add(equalityColumns.stream()
+                    .map(IcebergColumnHandle::getType)
+                    .collect(toImmutableList()));
+            equalityChannels.add(channels);
+        }
+        this.equalityTypes = equalityTypes.build();
+        this.equalityChannels = equalityChannels.build();
+
+        this.outputChannels = new int[outputColumnCount];
+        for (int channel = 0; channel < outputColumnCount; channel++) {
+            outputChannels[channel] = channel;
+        }
+    }
+
+    public Page filter(Page page)
+    {
+        long startPosition = startRowPosition.getAsLong();
+        int[] retainedPositions = new int[page.getPositionCount()];
+        int retainedPositionCount = 0;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (!isDeleted(page, position, startPosition + position)) {
+                retainedPositions[retainedPositionCount] = position;
+                retainedPositionCount++;
+            }
+        }
+
+        if (retainedPositionCount < page.getPositionCount()) {
+            page = page.getPositions(retainedPositions, 0, retainedPositionCount);
+        }
+        if (outputChannels.length < page.getChannelCount()) {
+            page = page.extractChannels(outputChannels);
+        }
+        return page;
+    }
+
+    @Override
+    public void close()
+    {
+        if (!closed) {
+            closed = true;
+            onClose.run();
+        }
+    }
+
+    private boolean isDeleted(Page page, int position, long rowPosition)
+    {
+        for (PositionDeletes deletes : positionDeletes) {
+            if (deletes.isDeleted(rowPosition)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < equalityDeletes.size(); i++) {
+            if (equalityDeletes.get(i).isDeleted(equalityTypes.get(i), page, equalityChannels.get(i), position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getChannel(List<IcebergColumnHandle> columns, IcebergColumnHandle column)
+    {
+        for (int channel = 0; channel < columns.size(); channel++) {
+            if (columns.get(channel).getId() == column.getId()) {
+                return channel;
+            }
+        }
+        throw new IllegalArgumentException("Equality delete column is not read: " + column);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.common.type.TypeUtils.readNativeValue;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The keys of the rows that are deleted by an equality delete file. A null value in a key
+ * deletes the rows with a null value in the same column.
+ */
+public final class EqualityDeletes
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(EqualityDeletes.class).instanceSize();
+    // estimated size of a hash set entry and the list of a key, without the values
+    private static final int KEY_OVERHEAD_SIZE = 64;
+    // estimated size of a boxed value of a key
+    private static final int VALUE_SIZE = 24;
+
+    private final List<IcebergColumnHandle> columns;
+    private final Set<List<Object>> deletedKeys;
+
+    private EqualityDeletes(List<IcebergColumnHandle> columns, Set<List<Object>> deletedKeys)
+    {
+        this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.deletedKeys = requireNonNull(deletedKeys, "deletedKeys is null");
+    }
+
+    /**
+     * Reads the deleted keys from a page source with the equality columns of a delete file.
+     */
+    public static EqualityDeletes read(ConnectorPageSource pageSource, List<IcebergColumnHandle> columns)
+    {
+        List<Type> types = columns.stream()
+                .map(IcebergColumnHandle::getType)
+                .collect(toImmutableList());
+        int[] channels = new int[types.size()];
+        Arrays.setAll(channels, channel -> channel);
+
+        Set<List<Object>> deletedKeys = new HashSet<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                deletedKeys.add(getKey(types, page, channels, position));
+            }
+        }
+        return new EqualityDeletes(columns, deletedKeys);
+    }
+
+    public List<IcebergColumnHandle> getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * @param channels the channels of the equality columns in the page
+     */
+    public boolean isDeleted(List<Type> types, Page page, int[] channels, int position)
+    {
+        return deletedKeys.contains(getKey(types, page, channels, position));
+    }
+
+    public boolean isEmpty()
+    {
+        return deletedKeys.isEmpty();
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + (long) deletedKeys.size() * (KEY_OVERHEAD_SIZE + (long) VALUE_SIZE * columns.size());
+    }
+
+    private static List<Object> getKey(List<Type> types, Page page, int[] channels, int position)
+    {
+        Object[] values = new Object[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            values[i] = readNativeValue(types.get(i), page.getBlock(channels[i]), position);
+        }
+        // the list allows null values, and compares and hashes like the list of the values
+        return Arrays.asList(values);
+    }
+}
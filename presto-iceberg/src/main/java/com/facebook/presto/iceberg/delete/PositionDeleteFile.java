@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.openjdk.jol.info.ClassLayout;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The deleted positions of a positional delete file, for each of the data files it deletes rows of.
+ */
+public final class PositionDeleteFile
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(PositionDeleteFile.class).instanceSize();
+
+    private final Map<Slice, Roaring64Bitmap> deletedPositions;
+    private final long retainedSizeInBytes;
+
+    private PositionDeleteFile(Map<Slice, Roaring64Bitmap> deletedPositions)
+    {
+        this.deletedPositions = ImmutableMap.copyOf(requireNonNull(deletedPositions, "deletedPositions is null"));
+        long retainedSizeInBytes = INSTANCE_SIZE;
+        for (Map.Entry<Slice, Roaring64Bitmap> entry : this.deletedPositions.entrySet()) {
+            retainedSizeInBytes += entry.getKey().getRetainedSize() + entry.getValue().getLongSizeInBytes();
+        }
+        this.retainedSizeInBytes = retainedSizeInBytes;
+    }
+
+    /**
+     * Reads the deleted positions from a page source with the file path and the position columns of a delete file.
+     */
+    public static PositionDeleteFile read(ConnectorPageSource pageSource)
+    {
+        Map<Slice, Roaring64Bitmap> deletedPositions = new HashMap<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            Block paths = page.getBlock(0);
+            Block positions = page.getBlock(1);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                // the path is copied, as a slice of the block retains the whole page
+                Slice path = VARCHAR.getSlice(paths, position);
+                Roaring64Bitmap dataFilePositions = deletedPositions.get(path);
+                if (dataFilePositions == null) {
+                    dataFilePositions = new Roaring64Bitmap();
+                    deletedPositions.put(Slices.copyOf(path), dataFilePositions);
+                }
+                dataFilePositions.addLong(BIGINT.getLong(positions, position));
+            }
+        }
+        deletedPositions.values().forEach(Roaring64Bitmap::runOptimize);
+        return new PositionDeleteFile(deletedPositions);
+    }
+
+    public PositionDeletes getDeletes(Slice dataFilePath)
+    {
+        return new PositionDeletes(deletedPositions.getOrDefault(dataFilePath, new Roaring64Bitmap()));
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+}
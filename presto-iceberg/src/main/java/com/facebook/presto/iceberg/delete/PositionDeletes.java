@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The positions of the rows of one data file that are deleted by a positional delete file.
+ */
+public final class PositionDeletes
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(PositionDeletes.class).instanceSize();
+
+    private final Roaring64Bitmap deletedPositions;
+
+    PositionDeletes(Roaring64Bitmap deletedPositions)
+    {
+        this.deletedPositions = requireNonNull(deletedPositions, "deletedPositions is null");
+    }
+
+    public boolean isDeleted(long rowPosition)
+    {
+        return deletedPositions.contains(rowPosition);
+    }
+
+    public boolean isEmpty()
+    {
+        return deletedPositions.isEmpty();
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + deletedPositions.getLongSizeInBytes();
+    }
+}
@@ -14,6 +14,7 @@
 package com.facebook.presto.iceberg;
 
 import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -27,6 +28,7 @@ import static com.facebook.presto.iceberg.CatalogType.HADOOP;
 import static com.facebook.presto.iceberg.CatalogType.HIVE;
 import static com.facebook.presto.iceberg.IcebergFileFormat.ORC;
 import static com.facebook.presto.iceberg.IcebergFileFormat.PARQUET;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestIcebergConfig
 {
@@ -41,7 +43,10 @@ public class TestIcebergConfig
                 .setCatalogCacheSize(10)
                 .setHadoopConfigResources(null)
                 .setMaxPartitionsPerWriter(100)
-                .setMinimumAssignedSplitWeight(0.05));
+                .setMinimumAssignedSplitWeight(0.05)
+                .setDeleteFileCacheSize(new DataSize(128, MEGABYTE))
+                .setSplitManagerThreads(Runtime.getRuntime().availableProcessors() * 2)
+                .setMaxOutstandingSplits(1_000));
     }
 
     @Test
@@ -56,6 +61,9 @@ public class TestIcebergConfig
                 .put("iceberg.hadoop.config.resources", "/etc/hadoop/conf/core-site.xml")
                 .put("iceberg.max-partitions-per-writer", "222")
                 .put("iceberg.minimum-assigned-split-weight", "0.01")
+                .put("iceberg.delete-file-cache-size", "16MB")
+                .put("iceberg.split-manager-threads", "42")
+                .put("iceberg.max-outstanding-splits", "200")
                 .build();
 
         IcebergConfig expected = new IcebergConfig()
@@ -66,7 +74,10 @@ public class TestIcebergConfig
                 .setCatalogCacheSize(6)
                 .setHadoopConfigResources("/etc/hadoop/conf/core-site.xml")
                 .setMaxPartitionsPerWriter(222)
-                .setMinimumAssignedSplitWeight(0.01);
+                .setMinimumAssignedSplitWeight(0.01)
+                .setDeleteFileCacheSize(new DataSize(16, MEGABYTE))
+                .setSplitManagerThreads(42)
+                .setMaxOutstandingSplits(200);
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,393 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg;
+
+import com.facebook.presto.cache.CacheConfig;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.OrcFileWriterConfig;
+import com.facebook.presto.hive.ParquetFileWriterConfig;
+import com.facebook.presto.iceberg.nessie.NessieConfig;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource.ConnectorSplitBatch;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.testing.TestingConnectorSession;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.AppendFiles;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableScan;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.CloseableIterator;
+import org.apache.iceberg.types.Types;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_FILESYSTEM_ERROR;
+import static com.facebook.presto.metadata.FunctionAndTypeManager.createTestFunctionAndTypeManager;
+import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestIcebergSplitSource
+{
+    private static final ConnectorSession SESSION = new TestingConnectorSession(new IcebergSessionProperties(
+            new IcebergConfig(),
+            new HiveClientConfig(),
+            new ParquetFileWriterConfig(),
+            new OrcFileWriterConfig(),
+            new CacheConfig(),
+            new NessieConfig()).getSessionProperties());
+
+    private File tempDir;
+    private ExecutorService executor;
+    private TableScan tableScan;
+    private List<FileScanTask> fileScanTasks;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        tempDir = createTempDirectory("test_iceberg_split_source").toFile();
+        executor = newCachedThreadPool(daemonThreadsNamed("test-iceberg-split-source-%s"));
+
+        // the splits are created from the metadata of the data files, so the files themselves are not written
+        Schema schema = new Schema(Types.NestedField.required(1, "x", Types.LongType.get()));
+        Table table = new HadoopTables(new Configuration()).create(schema, PartitionSpec.unpartitioned(), new File(tempDir, "table").toURI().toString());
+        AppendFiles append = table.newAppend();
+        for (int i = 0; i < 3; i++) {
+            append.appendFile(DataFiles.builder(PartitionSpec.unpartitioned())
+                    .withPath(new File(tempDir, "data-" + i + ".parquet").toURI().toString())
+                    .withFileSizeInBytes(1024)
+                    .withRecordCount(10)
+                    .withFormat(FileFormat.PARQUET)
+                    .build());
+        }
+        append.commit();
+
+        tableScan = table.newScan();
+        try (CloseableIterable<FileScanTask> tasks = tableScan.planFiles()) {
+            fileScanTasks = ImmutableList.copyOf(tasks);
+        }
+        assertEquals(fileScanTasks.size(), 3);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (tempDir != null) {
+            deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+            tempDir = null;
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void testSplitsBeforePlanningFinishes()
+    {
+        TestingFileScanTasks tasks = new TestingFileScanTasks();
+        IcebergSplitManagerStats stats = new IcebergSplitManagerStats();
+        IcebergSplitSource splitSource = createSplitSource(tasks, 10, stats);
+
+        // the first split is scheduled while the rest of the table is still being planned
+        tasks.add(fileScanTasks.get(0));
+        splitSource.start();
+        ConnectorSplitBatch batch = getNextBatch(splitSource, 10);
+        assertSplits(batch, fileScanTasks.get(0));
+        assertFalse(batch.isNoMoreSplits());
+        assertFalse(splitSource.isFinished());
+
+        tasks.add(fileScanTasks.get(1));
+        tasks.add(fileScanTasks.get(2));
+        tasks.finish();
+        tasks.awaitClose();
+
+        // a batch with splits never claims to be the last one, only the following empty batch does
+        batch = getNextBatch(splitSource, 10);
+        assertSplits(batch, fileScanTasks.get(1), fileScanTasks.get(2));
+        assertFalse(batch.isNoMoreSplits());
+        batch = getNextBatch(splitSource, 10);
+        assertSplits(batch);
+        assertTrue(batch.isNoMoreSplits());
+        assertTrue(splitSource.isFinished());
+
+        assertEquals(stats.getFileScanTasks().getTotalCount(), 3);
+        assertEquals(stats.getTimeToFirstSplit().getAllTime().getCount(), 1.0);
+        assertEquals(stats.getPlanningTime().getAllTime().getCount(), 1.0);
+        assertEquals(stats.getPlanningFailures().getTotalCount(), 0);
+        splitSource.close();
+    }
+
+    @Test(timeOut = 10_000)
+    public void testBackpressure()
+    {
+        TestingFileScanTasks tasks = new TestingFileScanTasks();
+        IcebergSplitManagerStats stats = new IcebergSplitManagerStats();
+        IcebergSplitSource splitSource = createSplitSource(tasks, 1, stats);
+        fileScanTasks.forEach(tasks::add);
+        tasks.finish();
+
+        // the queue holds one split, so the loader waits after the first one
+        splitSource.start();
+        tasks.awaitEnumerated(1);
+        sleepUninterruptibly(100, MILLISECONDS);
+        assertEquals(tasks.getEnumeratedCount(), 1);
+
+        // taking the split lets the loader continue with the next one
+        assertSplits(getNextBatch(splitSource, 10), fileScanTasks.get(0));
+        tasks.awaitEnumerated(2);
+        sleepUninterruptibly(100, MILLISECONDS);
+        assertEquals(tasks.getEnumeratedCount(), 2);
+
+        assertSplits(getNextBatch(splitSource, 10), fileScanTasks.get(1));
+        assertSplits(getNextBatch(splitSource, 10), fileScanTasks.get(2));
+        ConnectorSplitBatch batch = getNextBatch(splitSource, 10);
+        assertSplits(batch);
+        assertTrue(batch.isNoMoreSplits());
+        assertTrue(stats.getLoaderBlockedTime().getAllTime().getCount() > 0);
+        splitSource.close();
+    }
+
+    @Test(timeOut = 10_000)
+    public void testPlanningFailure()
+    {
+        TestingFileScanTasks tasks = new TestingFileScanTasks();
+        IcebergSplitManagerStats stats = new IcebergSplitManagerStats();
+        IcebergSplitSource splitSource = createSplitSource(tasks, 10, stats);
+
+        tasks.add(fileScanTasks.get(0));
+        splitSource.start();
+        assertSplits(getNextBatch(splitSource, 10), fileScanTasks.get(0));
+
+        // the failure of the planning is reported by the next batch instead of the end of the splits
+        tasks.fail(new RuntimeException("planning failed"));
+        assertPlanningFailure(() -> getNextBatch(splitSource, 10));
+        assertPlanningFailure(splitSource::isFinished);
+        tasks.awaitClose();
+
+        assertEquals(stats.getPlanningFailures().getTotalCount(), 1);
+        assertEquals(stats.getPlanningTime().getAllTime().getCount(), 0.0);
+        splitSource.close();
+    }
+
+    @Test(timeOut = 10_000)
+    public void testClose()
+    {
+        TestingFileScanTasks tasks = new TestingFileScanTasks();
+        IcebergSplitManagerStats stats = new IcebergSplitManagerStats();
+        IcebergSplitSource splitSource = createSplitSource(tasks, 10, stats);
+
+        tasks.add(fileScanTasks.get(0));
+        splitSource.start();
+        assertSplits(getNextBatch(splitSource, 10), fileScanTasks.get(0));
+
+        // the loader waits for the planning of the next task, and is stopped by closing the split source
+        splitSource.close();
+        tasks.awaitClose();
+        tasks.add(fileScanTasks.get(1));
+        sleepUninterruptibly(100, MILLISECONDS);
+        assertEquals(tasks.getEnumeratedCount(), 1);
+
+        // closing the split source is not a failure of the planning
+        assertEquals(stats.getPlanningFailures().getTotalCount(), 0);
+        try {
+            splitSource.getNextBatch(NOT_PARTITIONED, 10);
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "IcebergSplitSource is already closed");
+        }
+    }
+
+    private IcebergSplitSource createSplitSource(TestingFileScanTasks tasks, int maxOutstandingSplits, IcebergSplitManagerStats stats)
+    {
+        return new IcebergSplitSource(
+                SESSION,
+                tableScan,
+                tasks,
+                0.05,
+                createTestFunctionAndTypeManager(),
+                maxOutstandingSplits,
+                executor,
+                stats);
+    }
+
+    private static ConnectorSplitBatch getNextBatch(IcebergSplitSource splitSource, int maxSize)
+    {
+        return getFutureValue(splitSource.getNextBatch(NOT_PARTITIONED, maxSize));
+    }
+
+    private static void assertSplits(ConnectorSplitBatch batch, FileScanTask... expectedTasks)
+    {
+        List<String> paths = batch.getSplits().stream()
+                .map(IcebergSplit.class::cast)
+                .map(IcebergSplit::getPath)
+                .collect(toImmutableList());
+        List<String> expectedPaths = ImmutableList.copyOf(expectedTasks).stream()
+                .map(task -> task.file().path().toString())
+                .collect(toImmutableList());
+        assertEquals(paths, expectedPaths);
+        for (ConnectorSplit split : batch.getSplits()) {
+            assertEquals(((IcebergSplit) split).getFileFormat(), FileFormat.PARQUET);
+        }
+    }
+
+    private static void assertPlanningFailure(Runnable runnable)
+    {
+        try {
+            runnable.run();
+            fail("expected PrestoException");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), ICEBERG_FILESYSTEM_ERROR.toErrorCode());
+            assertEquals(e.getCause().getMessage(), "planning failed");
+        }
+    }
+
+    /**
+     * File scan tasks that are planned when the test adds them.
+     */
+    private static class TestingFileScanTasks
+            implements CloseableIterable<FileScanTask>
+    {
+        // a supplier returns the next task, returns null at the end of the tasks, or throws the failure of the planning
+        private final BlockingQueue<Supplier<FileScanTask>> tasks = new LinkedBlockingQueue<>();
+        private final AtomicInteger enumeratedCount = new AtomicInteger();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        public void add(FileScanTask task)
+        {
+            tasks.add(() -> task);
+        }
+
+        public void finish()
+        {
+            tasks.add(() -> null);
+        }
+
+        public void fail(RuntimeException failure)
+        {
+            tasks.add(() -> {
+                throw failure;
+            });
+        }
+
+        public int getEnumeratedCount()
+        {
+            return enumeratedCount.get();
+        }
+
+        public void awaitEnumerated(int count)
+        {
+            while (enumeratedCount.get() < count) {
+                sleepUninterruptibly(10, MILLISECONDS);
+            }
+        }
+
+        public void awaitClose()
+        {
+            try {
+                assertTrue(closed.await(10, SECONDS), "file scan tasks were not closed");
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public CloseableIterator<FileScanTask> iterator()
+        {
+            return new CloseableIterator<FileScanTask>()
+            {
+                private FileScanTask next;
+                private boolean finished;
+
+                @Override
+                public boolean hasNext()
+                {
+                    if (next == null && !finished) {
+                        try {
+                            next = tasks.take().get();
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(e);
+                        }
+                        finished = next == null;
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public FileScanTask next()
+                {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    FileScanTask task = next;
+                    next = null;
+                    enumeratedCount.incrementAndGet();
+                    return task;
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        }
+
+        @Override
+        public void close()
+        {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestDeleteFileCache
+{
+    private static final String DELETE_FILE = "s3://bucket/table/data/delete-1.parquet";
+
+    @Test
+    public void testEvictWhenQueryIsDone()
+            throws Exception
+    {
+        DeleteFileCache cache = new DeleteFileCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+
+        // the splits of a query share the loaded delete file
+        cache.acquire("query-1");
+        cache.acquire("query-1");
+        cache.getPositionDeletes("query-1", DELETE_FILE, () -> load(loads));
+        cache.getPositionDeletes("query-1", DELETE_FILE, () -> load(loads));
+        assertEquals(loads.get(), 1);
+
+        // other queries load it again
+        cache.acquire("query-2");
+        cache.getPositionDeletes("query-2", DELETE_FILE, () -> load(loads));
+        assertEquals(loads.get(), 2);
+
+        // the entries are evicted when the last split of the query is released
+        cache.release("query-1");
+        cache.getPositionDeletes("query-1", DELETE_FILE, () -> load(loads));
+        assertEquals(loads.get(), 2);
+        cache.release("query-1");
+        cache.acquire("query-1");
+        cache.getPositionDeletes("query-1", DELETE_FILE, () -> load(loads));
+        assertEquals(loads.get(), 3);
+
+        // the entries of the other query are kept
+        cache.getPositionDeletes("query-2", DELETE_FILE, () -> load(loads));
+        assertEquals(loads.get(), 3);
+    }
+
+    private static PositionDeleteFile load(AtomicInteger loads)
+    {
+        loads.incrementAndGet();
+        return PositionDeleteFile.read(new FixedPageSource(ImmutableList.of()));
+    }
+}
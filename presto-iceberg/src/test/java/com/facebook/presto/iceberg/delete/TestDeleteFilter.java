@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.iceberg.IcebergColumnHandle.primitiveIcebergColumnHandle;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestDeleteFilter
+{
+    private static final String DATA_FILE = "s3://bucket/table/data/file-1.parquet";
+    private static final IcebergColumnHandle ID = primitiveIcebergColumnHandle(1, "id", BIGINT, Optional.empty());
+    private static final IcebergColumnHandle NAME = primitiveIcebergColumnHandle(2, "name", VARCHAR, Optional.empty());
+
+    @Test
+    public void testPositionDeletes()
+    {
+        Page deletes = new Page(
+                varcharBlock("s3://bucket/table/data/file-0.parquet", DATA_FILE, DATA_FILE, DATA_FILE),
+                bigintBlock(1L, 1L, 3L, 100L));
+        PositionDeleteFile positionDeleteFile = PositionDeleteFile.read(new FixedPageSource(ImmutableList.of(deletes)));
+        PositionDeletes positionDeletes = positionDeleteFile.getDeletes(utf8Slice(DATA_FILE));
+        assertFalse(positionDeletes.isDeleted(0));
+        assertTrue(positionDeletes.isDeleted(1));
+        assertTrue(positionDeletes.isDeleted(3));
+        assertTrue(positionDeletes.isDeleted(100));
+
+        // the delete file is shared by the data files it deletes rows of
+        PositionDeletes otherPositionDeletes = positionDeleteFile.getDeletes(utf8Slice("s3://bucket/table/data/file-0.parquet"));
+        assertTrue(otherPositionDeletes.isDeleted(1));
+        assertFalse(otherPositionDeletes.isDeleted(3));
+        assertTrue(positionDeleteFile.getDeletes(utf8Slice("s3://bucket/table/data/file-2.parquet")).isEmpty());
+
+        // the page starts at position 98 of the data file
+        DeleteFilter filter = new DeleteFilter(ImmutableList.of(positionDeletes), ImmutableList.of(), ImmutableList.of(ID), 1, () -> 98, () -> {});
+        Page page = filter.filter(new Page(bigintBlock(0L, 1L, 2L, 3L)));
+        assertPage(page, ImmutableList.of(0L, 1L, 3L));
+    }
+
+    @Test
+    public void testEqualityDeletes()
+    {
+        Page deletes = new Page(bigintBlock(2L, null));
+        EqualityDeletes equalityDeletes = EqualityDeletes.read(new FixedPageSource(ImmutableList.of(deletes)), ImmutableList.of(ID));
+
+        // the id column is only read to apply the deletes, and is removed from the output
+        DeleteFilter filter = new DeleteFilter(ImmutableList.of(), ImmutableList.of(equalityDeletes), ImmutableList.of(NAME, ID), 1, () -> 0, () -> {});
+        Page page = filter.filter(new Page(varcharBlock("a", "b", "c", "d"), bigintBlock(1L, 2L, null, 4L)));
+        assertEquals(page.getChannelCount(), 1);
+        assertEquals(page.getPositionCount(), 2);
+        assertEquals(VARCHAR.getSlice(page.getBlock(0), 0).toStringUtf8(), "a");
+        assertEquals(VARCHAR.getSlice(page.getBlock(0), 1).toStringUtf8(), "d");
+    }
+
+    @Test
+    public void testNoDeletedRows()
+    {
+        PositionDeletes positionDeletes = PositionDeleteFile.read(new FixedPageSource(ImmutableList.of())).getDeletes(utf8Slice(DATA_FILE));
+        DeleteFilter filter = new DeleteFilter(ImmutableList.of(positionDeletes), ImmutableList.of(), ImmutableList.of(ID), 1, () -> 0, () -> {});
+        Page page = new Page(bigintBlock(0L, 1L));
+        assertSame(filter.filter(page), page);
+    }
+
+    private static void assertPage(Page page, List<Long> expected)
+    {
+        assertEquals(page.getPositionCount(), expected.size());
+        for (int position = 0; position < expected.size(); position++) {
+            assertEquals(BIGINT.getLong(page.getBlock(0), position), (long) expected.get(position));
+        }
+    }
+
+    private static Block bigintBlock(Long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, values.length);
+        for (Long value : values) {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(blockBuilder, value);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block varcharBlock(String... values)
+    {
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, values.length);
+        for (String value : values) {
+            VARCHAR.writeSlice(blockBuilder, utf8Slice(value));
+        }
+        return blockBuilder.build();
+    }
+}
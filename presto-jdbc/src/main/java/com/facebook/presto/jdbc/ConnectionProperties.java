@@ -43,6 +43,7 @@ final class ConnectionProperties
     public static final ConnectionProperty<HostAndPort> HTTP_PROXY = new HttpProxy();
     public static final ConnectionProperty<String> APPLICATION_NAME_PREFIX = new ApplicationNamePrefix();
     public static final ConnectionProperty<Boolean> DISABLE_COMPRESSION = new DisableCompression();
+    public static final ConnectionProperty<Boolean> BINARY_RESULTS = new BinaryResults();
     public static final ConnectionProperty<Boolean> SSL = new Ssl();
     public static final ConnectionProperty<String> SSL_KEY_STORE_PATH = new SslKeyStorePath();
     public static final ConnectionProperty<String> SSL_KEY_STORE_PASSWORD = new SslKeyStorePassword();
@@ -70,6 +71,7 @@ final class ConnectionProperties
             .add(HTTP_PROXY)
             .add(APPLICATION_NAME_PREFIX)
             .add(DISABLE_COMPRESSION)
+            .add(BINARY_RESULTS)
             .add(SSL)
             .add(SSL_KEY_STORE_PATH)
             .add(SSL_KEY_STORE_PASSWORD)
@@ -190,6 +192,15 @@ final class ConnectionProperties
         }
     }
 
+    private static class BinaryResults
+            extends AbstractConnectionProperty<Boolean>
+    {
+        public BinaryResults()
+        {
+            super("binaryResults", NOT_REQUIRED, ALLOWED, BOOLEAN_CONVERTER);
+        }
+    }
+
     private static class Ssl
             extends AbstractConnectionProperty<Boolean>
     {
@@ -17,6 +17,7 @@ import com.facebook.presto.common.WarningHandlingLevel;
 import com.facebook.presto.execution.QueryManagerConfig;
 import com.facebook.presto.execution.QueryManagerConfig.ExchangeMaterializationStrategy;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.buffer.CompressionCodec;
 import com.facebook.presto.execution.scheduler.NodeSchedulerConfig;
 import com.facebook.presto.execution.scheduler.NodeSchedulerConfig.ResourceAwareSchedulingStrategy;
 import com.facebook.presto.execution.warnings.WarningCollectorConfig;
@@ -52,6 +53,8 @@ import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.execution.buffer.PagesSerdeFactory.MAX_ZSTD_COMPRESSION_LEVEL;
+import static com.facebook.presto.execution.buffer.PagesSerdeFactory.MIN_ZSTD_COMPRESSION_LEVEL;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
 import static com.facebook.presto.spi.session.PropertyMetadata.booleanProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.dataSizeProperty;
@@ -138,6 +141,10 @@ public final class SystemSessionProperties
     public static final String ORDER_BY_AGGREGATION_SPILL_ENABLED = "order_by_aggregation_spill_enabled";
     public static final String WINDOW_SPILL_ENABLED = "window_spill_enabled";
     public static final String ORDER_BY_SPILL_ENABLED = "order_by_spill_enabled";
+    public static final String TOPN_ROW_NUMBER_SPILL_ENABLED = "topn_row_number_spill_enabled";
+    public static final String ROW_NUMBER_SPILL_ENABLED = "row_number_spill_enabled";
+    public static final String MARK_DISTINCT_SPILL_ENABLED = "mark_distinct_spill_enabled";
+    public static final String SEMI_JOIN_SPILL_ENABLED = "semi_join_spill_enabled";
     public static final String AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT = "aggregation_operator_unspill_memory_limit";
     public static final String QUERY_MAX_REVOCABLE_MEMORY_PER_NODE = "query_max_revocable_memory_per_node";
     public static final String TEMP_STORAGE_SPILLER_BUFFER_SIZE = "temp_storage_spiller_buffer_size";
@@ -150,6 +157,9 @@ public final class SystemSessionProperties
     public static final String RUNTIME_OPTIMIZER_ENABLED = "runtime_optimizer_enabled";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
     public static final String EXCHANGE_CHECKSUM = "exchange_checksum";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
+    public static final String EXCHANGE_COMPRESSION_LEVEL = "exchange_compression_level";
+    public static final String EXCHANGE_ADAPTIVE_COMPRESSION = "exchange_adaptive_compression";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -198,6 +208,9 @@ public final class SystemSessionProperties
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_ROW_COUNT = "dynamic_filtering_max_per_driver_row_count";
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_SIZE = "dynamic_filtering_max_per_driver_size";
     public static final String DYNAMIC_FILTERING_RANGE_ROW_LIMIT_PER_DRIVER = "dynamic_filtering_range_row_limit_per_driver";
+    public static final String DYNAMIC_FILTERING_BLOOM_FILTER_ROW_LIMIT_PER_DRIVER = "dynamic_filtering_bloom_filter_row_limit_per_driver";
+    public static final String ENABLE_DISTRIBUTED_DYNAMIC_FILTERING = "enable_distributed_dynamic_filtering";
+    public static final String DISTRIBUTED_DYNAMIC_FILTERING_WAIT_TIMEOUT = "distributed_dynamic_filtering_wait_timeout";
     public static final String FRAGMENT_RESULT_CACHING_ENABLED = "fragment_result_caching_enabled";
     public static final String LEGACY_TYPE_COERCION_WARNING_ENABLED = "legacy_type_coercion_warning_enabled";
     public static final String INLINE_SQL_FUNCTIONS = "inline_sql_functions";
@@ -210,6 +223,8 @@ public final class SystemSessionProperties
     public static final String MAX_UNACKNOWLEDGED_SPLITS_PER_TASK = "max_unacknowledged_splits_per_task";
     public static final String OPTIMIZE_JOINS_WITH_EMPTY_SOURCES = "optimize_joins_with_empty_sources";
     public static final String SPOOLING_OUTPUT_BUFFER_ENABLED = "spooling_output_buffer_enabled";
+    public static final String SPOOLED_QUERY_RESULTS_ENABLED = "spooled_query_results_enabled";
+    public static final String PERSISTENT_EXCHANGE_ENABLED = "persistent_exchange_enabled";
     public static final String SPARK_ASSIGN_BUCKET_TO_PARTITION_FOR_PARTITIONED_TABLE_WRITE_ENABLED = "spark_assign_bucket_to_partition_for_partitioned_table_write_enabled";
     public static final String LOG_FORMATTED_QUERY_ENABLED = "log_formatted_query_enabled";
     public static final String QUERY_RETRY_LIMIT = "query_retry_limit";
@@ -229,6 +244,9 @@ public final class SystemSessionProperties
     public static final String DISTRIBUTED_TRACING_MODE = "distributed_tracing_mode";
     public static final String VERBOSE_RUNTIME_STATS_ENABLED = "verbose_runtime_stats_enabled";
     public static final String STREAMING_FOR_PARTIAL_AGGREGATION_ENABLED = "streaming_for_partial_aggregation_enabled";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = "adaptive_partial_aggregation_min_rows";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
     public static final String MAX_STAGE_COUNT_FOR_EAGER_SCHEDULING = "max_stage_count_for_eager_scheduling";
     public static final String HYPERLOGLOG_STANDARD_ERROR_WARNING_THRESHOLD = "hyperloglog_standard_error_warning_threshold";
     public static final String PREFER_MERGE_JOIN = "prefer_merge_join";
@@ -728,6 +746,26 @@ public final class SystemSessionProperties
                         "Enable order by spilling if spill_enabled",
                         featuresConfig.isOrderBySpillEnabled(),
                         false),
+                booleanProperty(
+                        TOPN_ROW_NUMBER_SPILL_ENABLED,
+                        "Enable topN row number spilling if spill_enabled",
+                        featuresConfig.isTopNRowNumberSpillEnabled(),
+                        false),
+                booleanProperty(
+                        ROW_NUMBER_SPILL_ENABLED,
+                        "Enable row number spilling if spill_enabled",
+                        featuresConfig.isRowNumberSpillEnabled(),
+                        false),
+                booleanProperty(
+                        MARK_DISTINCT_SPILL_ENABLED,
+                        "Enable mark distinct spilling if spill_enabled",
+                        featuresConfig.isMarkDistinctSpillEnabled(),
+                        false),
+                booleanProperty(
+                        SEMI_JOIN_SPILL_ENABLED,
+                        "Enable semi join set builder spilling if spill_enabled",
+                        featuresConfig.isSemiJoinSpillEnabled(),
+                        false),
                 new PropertyMetadata<>(
                         AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT,
                         "Experimental: How much memory can should be allocated per aggregation operator in unspilling process",
@@ -808,6 +846,40 @@ public final class SystemSessionProperties
                         "Enable checksum in exchanges",
                         featuresConfig.isExchangeChecksumEnabled(),
                         false),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        format("Codec used to compress exchanged pages when exchange compression is enabled. Options are %s",
+                                Stream.of(CompressionCodec.values())
+                                        .map(CompressionCodec::name)
+                                        .collect(joining(","))),
+                        VARCHAR,
+                        CompressionCodec.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false,
+                        value -> CompressionCodec.valueOf(((String) value).toUpperCase()),
+                        CompressionCodec::name),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_LEVEL,
+                        "Compression level of the ZSTD exchange compression codec",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getExchangeCompressionLevel(),
+                        false,
+                        value -> {
+                            int intValue = ((Number) requireNonNull(value, "value is null")).intValue();
+                            if (intValue < MIN_ZSTD_COMPRESSION_LEVEL || intValue > MAX_ZSTD_COMPRESSION_LEVEL) {
+                                throw new PrestoException(
+                                        INVALID_SESSION_PROPERTY,
+                                        format("%s must be between %s and %s: %s", EXCHANGE_COMPRESSION_LEVEL, MIN_ZSTD_COMPRESSION_LEVEL, MAX_ZSTD_COMPRESSION_LEVEL, intValue));
+                            }
+                            return intValue;
+                        },
+                        value -> value),
+                booleanProperty(
+                        EXCHANGE_ADAPTIVE_COMPRESSION,
+                        "Stop compressing exchanged pages for a while after pages that do not compress well",
+                        featuresConfig.isExchangeAdaptiveCompressionEnabled(),
+                        false),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -1096,6 +1168,25 @@ public final class SystemSessionProperties
                         "Maximum number of build-side rows per driver up to which min and max values will be collected for dynamic filtering",
                         featuresConfig.getDynamicFilteringRangeRowLimitPerDriver(),
                         false),
+                integerProperty(
+                        DYNAMIC_FILTERING_BLOOM_FILTER_ROW_LIMIT_PER_DRIVER,
+                        "Maximum number of build-side rows per driver up to which a Bloom filter will be collected for dynamic filtering",
+                        featuresConfig.getDynamicFilteringBloomFilterRowLimitPerDriver(),
+                        false),
+                booleanProperty(
+                        ENABLE_DISTRIBUTED_DYNAMIC_FILTERING,
+                        "Experimental: Collect dynamic filters on the coordinator and apply them to table scans in other stages",
+                        featuresConfig.isEnableDistributedDynamicFiltering(),
+                        false),
+                new PropertyMetadata<>(
+                        DISTRIBUTED_DYNAMIC_FILTERING_WAIT_TIMEOUT,
+                        "Experimental: Maximum time to delay split enumeration of a table scan waiting for its distributed dynamic filters",
+                        VARCHAR,
+                        Duration.class,
+                        featuresConfig.getDistributedDynamicFilteringWaitTimeout(),
+                        false,
+                        value -> Duration.valueOf((String) value),
+                        Duration::toString),
                 booleanProperty(
                         FRAGMENT_RESULT_CACHING_ENABLED,
                         "Enable fragment result caching and read/write leaf fragment result pages from/to cache when applicable",
@@ -1160,6 +1251,16 @@ public final class SystemSessionProperties
                         "Enable spooling output buffer for terminal task",
                         featuresConfig.isSpoolingOutputBufferEnabled(),
                         false),
+                booleanProperty(
+                        SPOOLED_QUERY_RESULTS_ENABLED,
+                        "Write the query results to temp storage segments that the clients download from the workers",
+                        featuresConfig.isSpooledQueryResultsEnabled(),
+                        false),
+                booleanProperty(
+                        PERSISTENT_EXCHANGE_ENABLED,
+                        "Keep the output of intermediate tasks in temp storage, so that failed tasks that read it can be retried",
+                        featuresConfig.isPersistentExchangeEnabled(),
+                        false),
                 booleanProperty(
                         SPARK_ASSIGN_BUCKET_TO_PARTITION_FOR_PARTITIONED_TABLE_WRITE_ENABLED,
                         "Assign bucket to partition map for partitioned table write when adding an exchange",
@@ -1243,6 +1344,21 @@ public final class SystemSessionProperties
                         "Enable streaming for partial aggregation",
                         featuresConfig.isStreamingForPartialAggregationEnabled(),
                         false),
+                booleanProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Disable partial aggregation at runtime when it does not reduce the number of rows enough",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                longProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS,
+                        "Number of input rows a partial aggregation processes before its reduction is evaluated",
+                        featuresConfig.getAdaptivePartialAggregationMinRows(),
+                        false),
+                doubleProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD,
+                        "Ratio of output groups to input rows above which partial aggregation is disabled",
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
+                        false),
                 booleanProperty(
                         PREFER_MERGE_JOIN,
                         "Prefer merge join for sorted join inputs, e.g., tables pre-sorted, pre-partitioned by join columns." +
@@ -1423,6 +1539,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(SPOOLING_OUTPUT_BUFFER_ENABLED, Boolean.class);
     }
 
+    public static boolean isSpooledQueryResultsEnabled(Session session)
+    {
+        return session.getSystemProperty(SPOOLED_QUERY_RESULTS_ENABLED, Boolean.class);
+    }
+
+    public static boolean isPersistentExchangeEnabled(Session session)
+    {
+        return session.getSystemProperty(PERSISTENT_EXCHANGE_ENABLED, Boolean.class);
+    }
+
     public static boolean isSkipRedundantSort(Session session)
     {
         return session.getSystemProperty(SKIP_REDUNDANT_SORT, Boolean.class);
@@ -1797,6 +1923,26 @@ public final class SystemSessionProperties
         return session.getSystemProperty(ORDER_BY_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
     }
 
+    public static boolean isTopNRowNumberSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(TOPN_ROW_NUMBER_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
+    public static boolean isRowNumberSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(ROW_NUMBER_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
+    public static boolean isMarkDistinctSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(MARK_DISTINCT_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
+    public static boolean isSemiJoinSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(SEMI_JOIN_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
     public static DataSize getAggregationOperatorUnspillMemoryLimit(Session session)
     {
         DataSize memoryLimitForMerge = session.getSystemProperty(AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT, DataSize.class);
@@ -1867,6 +2013,27 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_CHECKSUM, Boolean.class);
     }
 
+    /**
+     * Returns the codec used to compress exchanged pages, or {@link CompressionCodec#NONE} if exchange compression is disabled.
+     */
+    public static CompressionCodec getExchangeCompressionCodec(Session session)
+    {
+        if (!isExchangeCompressionEnabled(session)) {
+            return CompressionCodec.NONE;
+        }
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, CompressionCodec.class);
+    }
+
+    public static int getExchangeCompressionLevel(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_LEVEL, Integer.class);
+    }
+
+    public static boolean isExchangeAdaptiveCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_ADAPTIVE_COMPRESSION, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -2146,6 +2313,21 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DYNAMIC_FILTERING_RANGE_ROW_LIMIT_PER_DRIVER, Integer.class);
     }
 
+    public static int getDynamicFilteringBloomFilterRowLimitPerDriver(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_BLOOM_FILTER_ROW_LIMIT_PER_DRIVER, Integer.class);
+    }
+
+    public static boolean isEnableDistributedDynamicFiltering(Session session)
+    {
+        return isEnableDynamicFiltering(session) && session.getSystemProperty(ENABLE_DISTRIBUTED_DYNAMIC_FILTERING, Boolean.class);
+    }
+
+    public static Duration getDistributedDynamicFilteringWaitTimeout(Session session)
+    {
+        return session.getSystemProperty(DISTRIBUTED_DYNAMIC_FILTERING_WAIT_TIMEOUT, Duration.class);
+    }
+
     public static boolean isFragmentResultCachingEnabled(Session session)
     {
         return session.getSystemProperty(FRAGMENT_RESULT_CACHING_ENABLED, Boolean.class);
@@ -2266,6 +2448,21 @@ public final class SystemSessionProperties
         return session.getSystemProperty(STREAMING_FOR_PARTIAL_AGGREGATION_ENABLED, Boolean.class);
     }
 
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static long getAdaptivePartialAggregationMinRows(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, Long.class);
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatioThreshold(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
+    }
+
     public static boolean preferMergeJoin(Session session)
     {
         return session.getSystemProperty(PREFER_MERGE_JOIN, Boolean.class);
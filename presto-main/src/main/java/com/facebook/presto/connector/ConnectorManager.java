@@ -56,6 +56,7 @@ import com.facebook.presto.spi.relation.DeterminismEvaluator;
 import com.facebook.presto.spi.relation.DomainTranslator;
 import com.facebook.presto.spi.relation.PredicateCompiler;
 import com.facebook.presto.spi.session.PropertyMetadata;
+import com.facebook.presto.split.BlockingPageSourceExecutor;
 import com.facebook.presto.split.PageSinkManager;
 import com.facebook.presto.split.PageSourceManager;
 import com.facebook.presto.split.RecordPageSourceProvider;
@@ -85,6 +86,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.facebook.presto.spi.ConnectorId.createInformationSchemaConnectorId;
 import static com.facebook.presto.spi.ConnectorId.createSystemTablesConnectorId;
+import static com.facebook.presto.spi.connector.ConnectorCapabilities.BLOCKING_PAGE_SOURCE;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
@@ -119,6 +121,7 @@ public class ConnectorManager
     private final DeterminismEvaluator determinismEvaluator;
     private final FilterStatsCalculator filterStatsCalculator;
     private final BlockEncodingSerde blockEncodingSerde;
+    private final BlockingPageSourceExecutor blockingPageSourceExecutor;
 
     @GuardedBy("this")
     private final ConcurrentMap<String, ConnectorFactory> connectorFactories = new ConcurrentHashMap<>();
@@ -152,7 +155,8 @@ public class ConnectorManager
             PredicateCompiler predicateCompiler,
             DeterminismEvaluator determinismEvaluator,
             FilterStatsCalculator filterStatsCalculator,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            BlockingPageSourceExecutor blockingPageSourceExecutor)
     {
         this.metadataManager = requireNonNull(metadataManager, "metadataManager is null");
         this.catalogManager = requireNonNull(catalogManager, "catalogManager is null");
@@ -177,6 +181,7 @@ public class ConnectorManager
         this.determinismEvaluator = requireNonNull(determinismEvaluator, "determinismEvaluator is null");
         this.filterStatsCalculator = requireNonNull(filterStatsCalculator, "filterStatsCalculator is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.blockingPageSourceExecutor = requireNonNull(blockingPageSourceExecutor, "blockingPageSourceExecutor is null");
     }
 
     @PreDestroy
@@ -289,7 +294,11 @@ public class ConnectorManager
         connectors.put(connectorId, connector);
 
         splitManager.addConnectorSplitManager(connectorId, connector.getSplitManager());
-        pageSourceManager.addConnectorPageSourceProvider(connectorId, connector.getPageSourceProvider());
+        ConnectorPageSourceProvider pageSourceProvider = connector.getPageSourceProvider();
+        if (connector.getConnector().getCapabilities().contains(BLOCKING_PAGE_SOURCE)) {
+            pageSourceProvider = blockingPageSourceExecutor.wrap(pageSourceProvider, connector.getConnector().getClass().getClassLoader());
+        }
+        pageSourceManager.addConnectorPageSourceProvider(connectorId, pageSourceProvider);
 
         connector.getPageSinkProvider()
                 .ifPresent(pageSinkProvider -> pageSinkManager.addConnectorPageSinkProvider(connectorId, pageSinkProvider));
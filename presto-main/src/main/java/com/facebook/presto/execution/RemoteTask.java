@@ -17,10 +17,12 @@ import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.net.URI;
+import java.util.Map;
 
 public interface RemoteTask
 {
@@ -75,4 +77,14 @@ public interface RemoteTask
     PartitionedSplitsInfo getQueuedPartitionedSplitsInfo();
 
     int getUnacknowledgedPartitionedSplitCount();
+
+    /**
+     * Gets the domains of the dynamic filters produced by the task so far, keyed by dynamic filter ID.
+     */
+    ListenableFuture<Map<String, DynamicFilterSummary>> getDynamicFilters();
+
+    /**
+     * Sends the domains of dynamic filters produced by other stages to the task.
+     */
+    ListenableFuture<?> addDynamicFilters(Map<String, DynamicFilterSummary> dynamicFilters);
 }
@@ -29,6 +29,7 @@ import com.facebook.presto.split.RemoteSplit;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanFragmentId;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
@@ -44,11 +45,13 @@ import javax.annotation.concurrent.ThreadSafe;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
@@ -111,6 +114,17 @@ public final class SqlStageExecution
     @GuardedBy("this")
     private final Set<TaskId> allTasks = newConcurrentHashSet();
     @GuardedBy("this")
+    private final Map<TaskId, Integer> taskPartitions = new ConcurrentHashMap<>();
+    // the ids of the tasks that replace failed tasks, which follow the ids of the tasks of the partitions
+    @GuardedBy("this")
+    private OptionalInt nextRetriedTaskId = OptionalInt.empty();
+    // the splits of each task, which are only kept when the failed tasks of a stage that scans tables are retried
+    @GuardedBy("this")
+    private Optional<Map<TaskId, Multimap<PlanNodeId, Split>>> taskSplits = Optional.empty();
+    // the tasks that replace the failed tasks of a stage that scans tables, which get the later splits of the failed tasks
+    @GuardedBy("this")
+    private final Map<TaskId, RemoteTask> retriedSourceTasks = new HashMap<>();
+    @GuardedBy("this")
     private final Set<TaskId> finishedTasks = newConcurrentHashSet();
     @GuardedBy("this")
     private final Set<TaskId> failedTasks = newConcurrentHashSet();
@@ -375,7 +389,7 @@ public final class SqlStageExecution
             ImmutableMultimap.Builder<PlanNodeId, Split> newSplits = ImmutableMultimap.builder();
             for (RemoteTask sourceTask : sourceTasks) {
                 TaskStatus sourceTaskStatus = sourceTask.getTaskStatus();
-                newSplits.put(remoteSource.getId(), createRemoteSplitFor(task.getTaskId(), sourceTask.getRemoteTaskLocation(), sourceTask.getTaskId()));
+                newSplits.put(remoteSource.getId(), createRemoteSplitFor(taskPartitions.get(task.getTaskId()), sourceTask.getRemoteTaskLocation(), sourceTask.getTaskId()));
             }
             task.addSplits(newSplits.build());
         }
@@ -393,6 +407,31 @@ public final class SqlStageExecution
         }
     }
 
+    /**
+     * Replaces the exchange location of a failed source task by the location of the task
+     * that retries it. The tasks of this stage stop reading from the failed task, which has
+     * not published any output, since a persistent exchange only publishes the output of a
+     * task once it is complete.
+     */
+    public synchronized void replaceExchangeLocation(PlanFragmentId fragmentId, TaskId failedSourceTaskId, RemoteTask newSourceTask)
+    {
+        requireNonNull(fragmentId, "fragmentId is null");
+        requireNonNull(failedSourceTaskId, "failedSourceTaskId is null");
+        requireNonNull(newSourceTask, "newSourceTask is null");
+
+        RemoteSourceNode remoteSource = exchangeSources.get(fragmentId);
+        checkArgument(remoteSource != null, "Unknown remote source %s. Known sources are %s", fragmentId, exchangeSources.keySet());
+        checkState(!completeSourceFragments.contains(fragmentId), "Exchange locations of %s are already complete", fragmentId);
+
+        sourceTasks.get(remoteSource.getId()).removeIf(task -> task.getTaskId().equals(failedSourceTaskId));
+        for (RemoteTask task : getAllTasks()) {
+            if (!task.getTaskStatus().getState().isDone()) {
+                task.removeRemoteSource(failedSourceTaskId);
+            }
+        }
+        addExchangeLocations(fragmentId, ImmutableSet.of(newSourceTask), false);
+    }
+
     public synchronized void setOutputBuffers(OutputBuffers outputBuffers)
     {
         requireNonNull(outputBuffers, "outputBuffers is null");
@@ -450,7 +489,63 @@ public final class SqlStageExecution
             return Optional.empty();
         }
         checkState(!splitsScheduled.get(), "scheduleTask can not be called once splits have been scheduled");
-        return Optional.of(scheduleTask(node, new TaskId(stateMachine.getStageExecutionId(), partition), ImmutableMultimap.of()));
+        return Optional.of(scheduleTask(node, new TaskId(stateMachine.getStageExecutionId(), partition), partition, ImmutableMultimap.of(), false));
+    }
+
+    /**
+     * Schedules a task that replaces a failed task of a stage without table scans. The new task
+     * reads the same partition of the output of the source tasks from the start, so the source
+     * stages must write to a persistent exchange. A source task that finished concurrently is read
+     * as well, and fails the read since its output was removed, rather than being skipped.
+     */
+    public synchronized RemoteTask retryTask(TaskId failedTaskId, InternalNode node, int partitionCount)
+    {
+        requireNonNull(failedTaskId, "failedTaskId is null");
+        requireNonNull(node, "node is null");
+
+        Integer partition = taskPartitions.get(failedTaskId);
+        checkArgument(partition != null, "Unknown task %s", failedTaskId);
+        checkArgument(partition < partitionCount, "Partition %s of task %s is not less than the partition count %s", partition, failedTaskId, partitionCount);
+        checkState(!splitsScheduled.get(), "A task can not be retried once splits have been scheduled");
+
+        // the task of a partition may not be scheduled yet, so the ids of the partitions are never used for a retried task
+        int id = nextRetriedTaskId.orElse(partitionCount);
+        nextRetriedTaskId = OptionalInt.of(id + 1);
+        return scheduleTask(node, new TaskId(stateMachine.getStageExecutionId(), id), partition, ImmutableMultimap.of(), true);
+    }
+
+    /**
+     * Keeps the splits scheduled on each task, so that a failed task can be retried with its splits.
+     */
+    public synchronized void retainTaskSplits()
+    {
+        checkState(!splitsScheduled.get(), "The splits of the tasks must be retained before splits are scheduled");
+        checkState(!planFragment.getStageExecutionDescriptor().isStageGroupedExecution(), "The splits of the tasks can not be retained for grouped execution");
+        taskSplits = Optional.of(new HashMap<>());
+    }
+
+    /**
+     * Schedules a task that replaces a failed task of a stage that scans tables. The new task gets
+     * the splits of the failed task, and the splits that are later assigned to the failed task, and
+     * reads the same partition of the output of the source tasks.
+     */
+    public synchronized RemoteTask retrySourceTask(TaskId failedTaskId, InternalNode node)
+    {
+        requireNonNull(failedTaskId, "failedTaskId is null");
+        requireNonNull(node, "node is null");
+        checkState(taskSplits.isPresent(), "The splits of the tasks are not retained");
+
+        Integer partition = taskPartitions.get(failedTaskId);
+        checkArgument(partition != null, "Unknown task %s", failedTaskId);
+        checkState(!retriedSourceTasks.containsKey(failedTaskId), "Task %s was already retried", failedTaskId);
+
+        Multimap<PlanNodeId, Split> splits = taskSplits.get().getOrDefault(failedTaskId, ImmutableMultimap.of());
+        TaskId taskId = new TaskId(stateMachine.getStageExecutionId(), nextTaskId.getAndIncrement());
+        RemoteTask task = scheduleTask(node, taskId, partition, splits, true);
+        taskSplits.get().put(taskId, ArrayListMultimap.create(splits));
+        taskSplits.get().remove(failedTaskId);
+        retriedSourceTasks.put(failedTaskId, task);
+        return task;
     }
 
     public synchronized Set<RemoteTask> scheduleSplits(InternalNode node, Multimap<PlanNodeId, Split> splits, Multimap<PlanNodeId, Lifespan> noMoreSplitsNotification)
@@ -472,13 +567,19 @@ public final class SqlStageExecution
             // The output buffer depends on the task id starting from 0 and being sequential, since each
             // task is assigned a private buffer based on task id.
             TaskId taskId = new TaskId(stateMachine.getStageExecutionId(), nextTaskId.getAndIncrement());
-            task = scheduleTask(node, taskId, splits);
+            task = scheduleTask(node, taskId, taskId.getId(), splits, false);
             newTasks.add(task);
         }
         else {
             task = tasks.iterator().next();
+            // the splits of a failed task go to the task that retries it
+            while (retriedSourceTasks.containsKey(task.getTaskId())) {
+                task = retriedSourceTasks.get(task.getTaskId());
+            }
             task.addSplits(splits);
         }
+        RemoteTask scheduledTask = task;
+        taskSplits.ifPresent(splitsByTask -> splitsByTask.computeIfAbsent(scheduledTask.getTaskId(), taskId -> ArrayListMultimap.create()).putAll(splits));
         if (noMoreSplitsNotification.size() > 1) {
             // The assumption that `noMoreSplitsNotification.size() <= 1` currently holds.
             // If this assumption no longer holds, we should consider calling task.noMoreSplits with multiple entries in one shot.
@@ -491,7 +592,7 @@ public final class SqlStageExecution
         return newTasks.build();
     }
 
-    private synchronized RemoteTask scheduleTask(InternalNode node, TaskId taskId, Multimap<PlanNodeId, Split> sourceSplits)
+    private synchronized RemoteTask scheduleTask(InternalNode node, TaskId taskId, int partition, Multimap<PlanNodeId, Split> sourceSplits, boolean readFinishedSourceTasks)
     {
         checkArgument(!allTasks.contains(taskId), "A task with id %s already exists", taskId);
 
@@ -500,8 +601,8 @@ public final class SqlStageExecution
 
         sourceTasks.forEach((planNodeId, task) -> {
             TaskStatus status = task.getTaskStatus();
-            if (status.getState() != TaskState.FINISHED) {
-                initialSplits.put(planNodeId, createRemoteSplitFor(taskId, task.getRemoteTaskLocation(), task.getTaskId()));
+            if (readFinishedSourceTasks || status.getState() != TaskState.FINISHED) {
+                initialSplits.put(planNodeId, createRemoteSplitFor(partition, task.getRemoteTaskLocation(), task.getTaskId()));
             }
         });
 
@@ -521,6 +622,7 @@ public final class SqlStageExecution
 
         completeSources.forEach(task::noMoreSplits);
 
+        taskPartitions.put(taskId, partition);
         allTasks.add(taskId);
         tasks.computeIfAbsent(node, key -> newConcurrentHashSet()).add(task);
         nodeTaskMap.addTask(node, task);
@@ -549,10 +651,11 @@ public final class SqlStageExecution
         stateMachine.recordGetSplitTime(start);
     }
 
-    private static Split createRemoteSplitFor(TaskId taskId, URI remoteSourceTaskLocation, TaskId remoteSourceTaskId)
+    private static Split createRemoteSplitFor(int partition, URI remoteSourceTaskLocation, TaskId remoteSourceTaskId)
     {
-        // Fetch the results from the buffer assigned to the task based on id
-        String splitLocation = remoteSourceTaskLocation.toASCIIString() + "/results/" + taskId.getId();
+        // Fetch the results from the buffer assigned to the task based on its partition, which is the
+        // task id unless the task replaces a failed task
+        String splitLocation = remoteSourceTaskLocation.toASCIIString() + "/results/" + partition;
         return new Split(REMOTE_CONNECTOR_ID, new RemoteTransactionHandle(), new RemoteSplit(new Location(splitLocation), remoteSourceTaskId));
     }
 
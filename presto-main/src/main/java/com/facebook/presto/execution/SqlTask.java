@@ -37,9 +37,12 @@ import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.ConnectorMetadataUpdateHandle;
 import com.facebook.presto.spi.connector.ConnectorMetadataUpdater;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
+import com.facebook.presto.sql.planner.LocalDynamicFiltersCollector;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -47,9 +50,12 @@ import io.airlift.units.DataSize;
 import org.joda.time.DateTime;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -60,6 +66,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.execution.TaskState.ABORTED;
 import static com.facebook.presto.execution.TaskState.FAILED;
+import static com.facebook.presto.execution.buffer.BufferResult.emptyResults;
 import static com.facebook.presto.util.Failures.toFailures;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -87,6 +94,13 @@ public class SqlTask
 
     private final AtomicReference<TaskHolder> taskHolderReference = new AtomicReference<>(new TaskHolder());
     private final AtomicBoolean needsPlan = new AtomicBoolean(true);
+
+    // dynamic filters received before the task is planned
+    @GuardedBy("this")
+    private final Map<String, DynamicFilterSummary> pendingDynamicFilters = new HashMap<>();
+    // retained after the task finishes, so that the coordinator can still collect the produced dynamic filters
+    @GuardedBy("this")
+    private LocalDynamicFiltersCollector dynamicFiltersCollector;
     private final long creationTimeInMillis = System.currentTimeMillis();
 
     public static SqlTask createSqlTask(
@@ -463,6 +477,11 @@ public class SqlTask
                             tableWriteInfo.get());
                     taskHolderReference.compareAndSet(taskHolder, new TaskHolder(taskExecution));
                     needsPlan.set(false);
+                    dynamicFiltersCollector = taskExecution.getTaskContext().getDynamicFiltersCollector();
+                    if (!pendingDynamicFilters.isEmpty()) {
+                        dynamicFiltersCollector.addRemoteFilters(pendingDynamicFilters);
+                        pendingDynamicFilters.clear();
+                    }
                 }
             }
 
@@ -481,6 +500,24 @@ public class SqlTask
         return getTaskInfo();
     }
 
+    public synchronized Map<String, DynamicFilterSummary> getDynamicFilters()
+    {
+        if (dynamicFiltersCollector == null) {
+            return ImmutableMap.of();
+        }
+        return dynamicFiltersCollector.getProducedFilters();
+    }
+
+    public synchronized void addDynamicFilters(Map<String, DynamicFilterSummary> dynamicFilters)
+    {
+        if (dynamicFiltersCollector != null) {
+            dynamicFiltersCollector.addRemoteFilters(dynamicFilters);
+        }
+        else if (!taskHolderReference.get().isFinished()) {
+            pendingDynamicFilters.putAll(dynamicFilters);
+        }
+    }
+
     public TaskMetadataContext getTaskMetadataContext()
     {
         return taskHolderReference.get().taskExecution.getTaskContext().getTaskMetadataContext();
@@ -494,6 +531,15 @@ public class SqlTask
         return outputBuffer.get(bufferId, startingSequenceId, maxSize);
     }
 
+    public BufferResult prefetchTaskResults(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, int maxPages)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return outputBuffer.prefetch(bufferId, startingSequenceId, maxSize, maxPages)
+                .orElseGet(() -> emptyResults(taskInstanceId.getUuidString(), startingSequenceId, false));
+    }
+
     public void acknowledgeTaskResults(OutputBufferId bufferId, long sequenceId)
     {
         requireNonNull(bufferId, "bufferId is null");
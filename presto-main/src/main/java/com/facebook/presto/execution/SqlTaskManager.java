@@ -45,6 +45,7 @@ import com.facebook.presto.spi.connector.ConnectorMetadataUpdater;
 import com.facebook.presto.spiller.LocalSpillManager;
 import com.facebook.presto.spiller.NodeSpillConfig;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.LocalExecutionPlanner;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -68,9 +69,11 @@ import javax.inject.Inject;
 
 import java.io.Closeable;
 import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -117,6 +120,7 @@ public class SqlTaskManager
     private final JsonCodec<List<TaskMemoryReservationSummary>> memoryReservationSummaryJsonCodec;
     private final LoadingCache<QueryId, QueryContext> queryContexts;
     private final LoadingCache<TaskId, SqlTask> tasks;
+    private final SpoolingOutputBufferFactory spoolingOutputBufferFactory;
 
     private final SqlTaskIoStats cachedStats = new SqlTaskIoStats();
     private final SqlTaskIoStats finishedTaskStats = new SqlTaskIoStats();
@@ -181,7 +185,7 @@ public class SqlTaskManager
         queryContexts = CacheBuilder.newBuilder().weakValues().build(CacheLoader.from(
                 queryId -> createQueryContext(queryId, localMemoryManager, localSpillManager, gcMonitor, maxQueryUserMemoryPerNode, maxQueryTotalMemoryPerNode, maxRevocableMemoryPerNode, maxQuerySpillPerNode, maxQueryBroadcastMemory)));
 
-        requireNonNull(spoolingOutputBufferFactory, "spoolingOutputBufferFactory is null");
+        this.spoolingOutputBufferFactory = requireNonNull(spoolingOutputBufferFactory, "spoolingOutputBufferFactory is null");
 
         tasks = CacheBuilder.newBuilder().build(CacheLoader.from(
                 taskId -> createSqlTask(
@@ -452,6 +456,18 @@ public class SqlTaskManager
         return tasks.getUnchecked(taskId).getTaskResults(bufferId, startingSequenceId, maxSize);
     }
 
+    @Override
+    public BufferResult prefetchTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, int maxPages)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(startingSequenceId >= 0, "startingSequenceId is negative");
+        requireNonNull(maxSize, "maxSize is null");
+        checkArgument(maxPages > 0, "maxPages must be at least 1");
+
+        return tasks.getUnchecked(taskId).prefetchTaskResults(bufferId, startingSequenceId, maxSize, maxPages);
+    }
+
     @Override
     public void acknowledgeTaskResults(TaskId taskId, OutputBufferId bufferId, long sequenceId)
     {
@@ -471,6 +487,23 @@ public class SqlTaskManager
         return tasks.getUnchecked(taskId).abortTaskResults(bufferId);
     }
 
+    @Override
+    public Map<String, DynamicFilterSummary> getTaskDynamicFilters(TaskId taskId)
+    {
+        requireNonNull(taskId, "taskId is null");
+
+        return tasks.getUnchecked(taskId).getDynamicFilters();
+    }
+
+    @Override
+    public void addTaskDynamicFilters(TaskId taskId, Map<String, DynamicFilterSummary> dynamicFilters)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(dynamicFilters, "dynamicFilters is null");
+
+        tasks.getUnchecked(taskId).addDynamicFilters(dynamicFilters);
+    }
+
     @Override
     public void removeRemoteSource(TaskId taskId, TaskId remoteSourceTaskId)
     {
@@ -499,18 +532,24 @@ public class SqlTaskManager
     public void removeOldTasks()
     {
         DateTime oldestAllowedTask = DateTime.now().minus(infoCacheTime.toMillis());
+        Set<QueryId> removedQueries = new HashSet<>();
         for (TaskInfo taskInfo : filter(transform(tasks.asMap().values(), SqlTask::getTaskInfo), notNull())) {
             TaskId taskId = taskInfo.getTaskId();
             try {
                 DateTime endTime = taskInfo.getStats().getEndTime();
                 if (endTime != null && endTime.isBefore(oldestAllowedTask)) {
                     tasks.asMap().remove(taskId);
+                    removedQueries.add(taskId.getQueryId());
                 }
             }
             catch (RuntimeException e) {
                 log.warn(e, "Error while inspecting age of complete task %s", taskId);
             }
         }
+
+        // the output of a persistent exchange is read by retried consumers until the worker removed every task of the query
+        tasks.asMap().keySet().forEach(taskId -> removedQueries.remove(taskId.getQueryId()));
+        removedQueries.forEach(spoolingOutputBufferFactory::removePersistentOutputs);
     }
 
     public void failAbandonedTasks()
@@ -21,11 +21,13 @@ import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.metadata.MetadataUpdates;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TaskManager
@@ -114,6 +116,13 @@ public interface TaskManager
      */
     ListenableFuture<BufferResult> getTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
 
+    /**
+     * Gets up to maxPages results that are already buffered, starting at the specified
+     * sequence id. The results before the sequence id are not acknowledged, so that a
+     * client can fetch several ranges of the buffer concurrently.
+     */
+    BufferResult prefetchTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, int maxPages);
+
     /**
      * Acknowledges previously received results.
      */
@@ -148,4 +157,18 @@ public interface TaskManager
      * Update the results of metadata requests sent
      */
     void updateMetadataResults(TaskId taskId, MetadataUpdates metadataUpdates);
+
+    /**
+     * Gets the domains of the dynamic filters produced by the specified task
+     * so far, keyed by dynamic filter ID.
+     */
+    Map<String, DynamicFilterSummary> getTaskDynamicFilters(TaskId taskId);
+
+    /**
+     * Adds domains of dynamic filters produced by other stages of the query,
+     * to be applied to the table scans of the specified task.  If the task
+     * does not already exist, is is created and the domains are applied once
+     * the task is planned.
+     */
+    void addTaskDynamicFilters(TaskId taskId, Map<String, DynamicFilterSummary> dynamicFilters);
 }
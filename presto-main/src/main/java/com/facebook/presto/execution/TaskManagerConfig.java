@@ -85,6 +85,11 @@ public class TaskManagerConfig
 
     private boolean legacyLifespanCompletionCondition;
     private TaskPriorityTracking taskPriorityTracking = TaskPriorityTracking.TASK_FAIR;
+    private SplitQueuePolicy splitQueuePolicy = SplitQueuePolicy.SHARED;
+    private boolean numaAwareSchedulingEnabled;
+    private boolean blockingPageSourceOffloadEnabled;
+    private int blockingPageSourceMaxThreads = 100;
+    private int parallelSortThreads = 1;
 
     private Duration interruptRunawaySplitsTimeout = new Duration(600, SECONDS);
 
@@ -562,6 +567,80 @@ public class TaskManagerConfig
         QUERY_FAIR,
     }
 
+    @NotNull
+    public SplitQueuePolicy getSplitQueuePolicy()
+    {
+        return splitQueuePolicy;
+    }
+
+    @Config("task.split-queue-policy")
+    @ConfigDescription("Whether runner threads take splits from a shared queue or from local queues with work stealing")
+    public TaskManagerConfig setSplitQueuePolicy(SplitQueuePolicy splitQueuePolicy)
+    {
+        this.splitQueuePolicy = splitQueuePolicy;
+        return this;
+    }
+
+    public enum SplitQueuePolicy
+    {
+        SHARED,
+        WORK_STEALING,
+    }
+
+    public boolean isNumaAwareSchedulingEnabled()
+    {
+        return numaAwareSchedulingEnabled;
+    }
+
+    @Config("task.numa-aware-scheduling-enabled")
+    @ConfigDescription("Group the runner threads by NUMA node and keep the splits of a task on one node, with the work stealing split queue")
+    public TaskManagerConfig setNumaAwareSchedulingEnabled(boolean numaAwareSchedulingEnabled)
+    {
+        this.numaAwareSchedulingEnabled = numaAwareSchedulingEnabled;
+        return this;
+    }
+
+    public boolean isBlockingPageSourceOffloadEnabled()
+    {
+        return blockingPageSourceOffloadEnabled;
+    }
+
+    @Config("task.blocking-page-source-offload-enabled")
+    @ConfigDescription("Read the page sources of connectors that block on I/O outside of the runner threads")
+    public TaskManagerConfig setBlockingPageSourceOffloadEnabled(boolean blockingPageSourceOffloadEnabled)
+    {
+        this.blockingPageSourceOffloadEnabled = blockingPageSourceOffloadEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getBlockingPageSourceMaxThreads()
+    {
+        return blockingPageSourceMaxThreads;
+    }
+
+    @Config("task.blocking-page-source-max-threads")
+    @ConfigDescription("Number of threads that read blocking page sources when virtual threads are not available")
+    public TaskManagerConfig setBlockingPageSourceMaxThreads(int blockingPageSourceMaxThreads)
+    {
+        this.blockingPageSourceMaxThreads = blockingPageSourceMaxThreads;
+        return this;
+    }
+
+    @Min(1)
+    public int getParallelSortThreads()
+    {
+        return parallelSortThreads;
+    }
+
+    @Config("task.parallel-sort-threads")
+    @ConfigDescription("Number of threads that sort large indexes of ORDER BY concurrently, 1 sorts on the driver thread")
+    public TaskManagerConfig setParallelSortThreads(int parallelSortThreads)
+    {
+        this.parallelSortThreads = parallelSortThreads;
+        return this;
+    }
+
     @MinDuration("1s")
     public Duration getInterruptRunawaySplitsTimeout()
     {
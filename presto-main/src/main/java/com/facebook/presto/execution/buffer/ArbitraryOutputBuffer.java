@@ -288,6 +288,17 @@ public class ArbitraryOutputBuffer
         return getBuffer(bufferId).getPages(startingSequenceId, maxSize, Optional.of(masterBuffer));
     }
 
+    @Override
+    public Optional<BufferResult> prefetch(OutputBufferId bufferId, long token, DataSize maxSize, int maxPages)
+    {
+        checkState(!Thread.holdsLock(this), "Can not get pages while holding a lock on this");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        // only the pages that the client buffer has already taken from the master buffer can be read ahead
+        return Optional.of(getBuffer(bufferId).prefetchPages(token, maxSize, maxPages));
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long sequenceId)
     {
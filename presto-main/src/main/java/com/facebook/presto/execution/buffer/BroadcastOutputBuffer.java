@@ -267,6 +267,16 @@ public class BroadcastOutputBuffer
         return getBuffer(outputBufferId).getPages(startingSequenceId, maxSize);
     }
 
+    @Override
+    public Optional<BufferResult> prefetch(OutputBufferId outputBufferId, long token, DataSize maxSize, int maxPages)
+    {
+        checkState(!Thread.holdsLock(this), "Can not get pages while holding a lock on this");
+        requireNonNull(outputBufferId, "outputBufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return Optional.of(getBuffer(outputBufferId).prefetchPages(token, maxSize, maxPages));
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long sequenceId)
     {
@@ -212,6 +212,33 @@ class ClientBuffer
         }
     }
 
+    /**
+     * Returns up to maxPages of the pages already in the buffer, starting at the specified
+     * sequence id. Unlike {@link #getPages}, the pages before the sequence id are not
+     * acknowledged, and the read does not wait for pages to be added, so that a client can
+     * fetch several ranges of the buffer concurrently.
+     */
+    public synchronized BufferResult prefetchPages(long sequenceId, DataSize maxSize, int maxPages)
+    {
+        checkArgument(maxPages > 0, "maxPages must be at least 1");
+        long offset = sequenceId - currentSequenceId.get();
+        if (offset < 0 || offset >= pages.size()) {
+            return emptyResults(taskInstanceId, sequenceId, false);
+        }
+
+        long maxBytes = maxSize.toBytes();
+        List<SerializedPage> result = new ArrayList<>();
+        long bytes = 0;
+        for (SerializedPageReference page : pages.subList(toIntExact(offset), pages.size())) {
+            bytes += page.getRetainedSizeInBytes();
+            if (result.size() == maxPages || (!result.isEmpty() && bytes > maxBytes)) {
+                break;
+            }
+            result.add(page.getSerializedPage());
+        }
+        return new BufferResult(taskInstanceId, sequenceId, sequenceId + result.size(), false, result);
+    }
+
     public void setNoMorePages()
     {
         PendingRead pendingRead;
@@ -32,6 +32,7 @@ import javax.annotation.concurrent.GuardedBy;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -175,6 +176,9 @@ public class LazyOutputBuffer
                         case SPOOLING:
                             outputBuffer = spoolingOutputBufferFactory.createSpoolingOutputBuffer(taskId, taskInstanceId, newOutputBuffers, state);
                             break;
+                        case PERSISTENT:
+                            outputBuffer = spoolingOutputBufferFactory.createPersistentOutputBuffer(taskId, taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier);
+                            break;
                     }
 
                     // process pending aborts and reads outside of synchronized lock
@@ -218,6 +222,16 @@ public class LazyOutputBuffer
         return outputBuffer.get(bufferId, token, maxSize);
     }
 
+    @Override
+    public Optional<BufferResult> prefetch(OutputBufferId bufferId, long token, DataSize maxSize, int maxPages)
+    {
+        OutputBuffer outputBuffer = delegate;
+        if (outputBuffer == null) {
+            return Optional.empty();
+        }
+        return outputBuffer.prefetch(bufferId, token, maxSize, maxPages);
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long token)
     {
@@ -21,6 +21,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 public interface OutputBuffer
@@ -69,6 +70,17 @@ public interface OutputBuffer
      */
     ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize);
 
+    /**
+     * Gets up to maxPages pages that are already buffered, starting at the specified token,
+     * without acknowledging the pages before the token and without waiting for more pages.
+     * This lets a client fetch several token ranges of the buffer concurrently. Returns an
+     * empty result if the buffer does not support reading ahead.
+     */
+    default Optional<BufferResult> prefetch(OutputBufferId bufferId, long token, DataSize maxSize, int maxPages)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Acknowledges the previously received pages from the output buffer.
      */
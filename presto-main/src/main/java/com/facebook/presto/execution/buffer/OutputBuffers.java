@@ -83,6 +83,7 @@ public final class OutputBuffers
         ARBITRARY,
         DISCARDING,
         SPOOLING,
+        PERSISTENT,
     }
 
     private final BufferType type;
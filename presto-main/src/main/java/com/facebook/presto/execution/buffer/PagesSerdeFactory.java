@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.execution.buffer;
 
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.spi.page.PageCompressor;
 import com.facebook.presto.spi.page.PageDecompressor;
@@ -22,16 +23,27 @@ import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
 import io.airlift.compress.lz4.Lz4Compressor;
 import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
 
 import java.nio.ByteBuffer;
 import java.util.Optional;
 
+import static com.facebook.presto.execution.buffer.CompressionCodec.LZ4;
+import static com.facebook.presto.execution.buffer.CompressionCodec.NONE;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeFactory
 {
+    public static final int DEFAULT_ZSTD_COMPRESSION_LEVEL = 3;
+    // the negative levels of zstd trade compression ratio for speed
+    public static final int MIN_ZSTD_COMPRESSION_LEVEL = -(1 << 17);
+    public static final int MAX_ZSTD_COMPRESSION_LEVEL = 22;
+
     private final BlockEncodingSerde blockEncodingSerde;
-    private final boolean compressionEnabled;
+    private final CompressionCodec compressionCodec;
+    private final int compressionLevel;
+    private final boolean adaptiveCompression;
     private final boolean checksumEnabled;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled)
@@ -40,78 +52,130 @@ public class PagesSerdeFactory
     }
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled, boolean checksumEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled ? LZ4 : NONE, DEFAULT_ZSTD_COMPRESSION_LEVEL, false, checksumEnabled);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec, int compressionLevel, boolean adaptiveCompression, boolean checksumEnabled)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        this.compressionEnabled = compressionEnabled;
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.compressionLevel = compressionLevel;
+        this.adaptiveCompression = adaptiveCompression;
         this.checksumEnabled = checksumEnabled;
     }
 
     public PagesSerde createPagesSerde()
     {
-        return createPagesSerdeInternal(Optional.empty());
+        return createPagesSerdeInternal(Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * Creates a serde that reports the time spent compressing pages, and the bytes
+     * saved or left uncompressed, to the given runtime stats.
+     */
+    public PagesSerde createPagesSerde(RuntimeStats runtimeStats)
+    {
+        return createPagesSerdeInternal(Optional.empty(), Optional.of(runtimeStats));
     }
 
     public PagesSerde createPagesSerdeForSpill(Optional<SpillCipher> spillCipher)
     {
-        return createPagesSerdeInternal(spillCipher);
+        return createPagesSerdeInternal(spillCipher, Optional.empty());
+    }
+
+    private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher, Optional<RuntimeStats> runtimeStats)
+    {
+        if (compressionCodec == NONE) {
+            return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher, checksumEnabled);
+        }
+        return new PagesSerde(
+                blockEncodingSerde,
+                Optional.of(new AirliftPageCompressor(createCompressor())),
+                Optional.of(new AirliftPageDecompressor(createDecompressor())),
+                spillCipher,
+                checksumEnabled,
+                adaptiveCompression,
+                runtimeStats);
+    }
+
+    private Compressor createCompressor()
+    {
+        switch (compressionCodec) {
+            case LZ4:
+                return new Lz4Compressor();
+            case SNAPPY:
+                return new SnappyCompressor();
+            case ZSTD:
+                return new ZstdJniCompressor(compressionLevel);
+            default:
+                throw new IllegalArgumentException("Unsupported compression codec: " + compressionCodec);
+        }
+    }
+
+    private Decompressor createDecompressor()
+    {
+        switch (compressionCodec) {
+            case LZ4:
+                return new Lz4Decompressor();
+            case SNAPPY:
+                return new SnappyDecompressor();
+            case ZSTD:
+                return new ZstdJniDecompressor();
+            default:
+                throw new IllegalArgumentException("Unsupported compression codec: " + compressionCodec);
+        }
     }
 
-    private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher)
+    private static class AirliftPageCompressor
+            implements PageCompressor
     {
-        if (compressionEnabled) {
-            return new PagesSerde(
-                    blockEncodingSerde,
-                    Optional.of(new PageCompressor()
-                    {
-                        Compressor compressor = new Lz4Compressor();
-                        @Override
-                        public int maxCompressedLength(int uncompressedSize)
-                        {
-                            return compressor.maxCompressedLength(uncompressedSize);
-                        }
-
-                        @Override
-                        public int compress(
-                                byte[] input,
-                                int inputOffset,
-                                int inputLength,
-                                byte[] output,
-                                int outputOffset,
-                                int maxOutputLength)
-                        {
-                            return compressor.compress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
-                        }
-
-                        @Override
-                        public void compress(ByteBuffer input, ByteBuffer output)
-                        {
-                            compressor.compress(input, output);
-                        }
-                    }),
-                    Optional.of(new PageDecompressor()
-                    {
-                        Decompressor decompressor = new Lz4Decompressor();
-                        @Override
-                        public int decompress(
-                                byte[] input,
-                                int inputOffset,
-                                int inputLength,
-                                byte[] output,
-                                int outputOffset,
-                                int maxOutputLength)
-                        {
-                            return decompressor.decompress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
-                        }
-
-                        @Override
-                        public void decompress(ByteBuffer input, ByteBuffer output)
-                        {
-                            decompressor.decompress(input, output);
-                        }
-                    }),
-                    spillCipher, checksumEnabled);
+        private final Compressor compressor;
+
+        private AirliftPageCompressor(Compressor compressor)
+        {
+            this.compressor = requireNonNull(compressor, "compressor is null");
+        }
+
+        @Override
+        public int maxCompressedLength(int uncompressedSize)
+        {
+            return compressor.maxCompressedLength(uncompressedSize);
         }
 
-        return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher, checksumEnabled);
+        @Override
+        public int compress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
+        {
+            return compressor.compress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+        }
+
+        @Override
+        public void compress(ByteBuffer input, ByteBuffer output)
+        {
+            compressor.compress(input, output);
+        }
+    }
+
+    private static class AirliftPageDecompressor
+            implements PageDecompressor
+    {
+        private final Decompressor decompressor;
+
+        private AirliftPageDecompressor(Decompressor decompressor)
+        {
+            this.decompressor = requireNonNull(decompressor, "decompressor is null");
+        }
+
+        @Override
+        public int decompress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
+        {
+            return decompressor.decompress(input, inputOffset, inputLength, output, outputOffset, maxOutputLength);
+        }
+
+        @Override
+        public void decompress(ByteBuffer input, ByteBuffer output)
+        {
+            decompressor.decompress(input, output);
+        }
     }
 }
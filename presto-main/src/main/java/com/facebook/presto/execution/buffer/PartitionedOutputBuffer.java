@@ -25,6 +25,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -238,6 +239,15 @@ public class PartitionedOutputBuffer
         return partitions.get(outputBufferId.getId()).getPages(startingSequenceId, maxSize);
     }
 
+    @Override
+    public Optional<BufferResult> prefetch(OutputBufferId outputBufferId, long token, DataSize maxSize, int maxPages)
+    {
+        requireNonNull(outputBufferId, "outputBufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return Optional.of(partitions.get(outputBufferId.getId()).prefetchPages(token, maxSize, maxPages));
+    }
+
     @Override
     public void acknowledge(OutputBufferId outputBufferId, long sequenceId)
     {
@@ -0,0 +1,739 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.io.DataOutput;
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.PageDataOutput;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.security.Identity;
+import com.facebook.presto.spi.storage.TempDataOperationContext;
+import com.facebook.presto.spi.storage.TempDataSink;
+import com.facebook.presto.spi.storage.TempStorage;
+import com.facebook.presto.spi.storage.TempStorageHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.SliceInput;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.execution.buffer.BufferResult.emptyResults;
+import static com.facebook.presto.execution.buffer.BufferState.FAILED;
+import static com.facebook.presto.execution.buffer.BufferState.FINISHED;
+import static com.facebook.presto.execution.buffer.BufferState.FLUSHING;
+import static com.facebook.presto.execution.buffer.BufferState.NO_MORE_BUFFERS;
+import static com.facebook.presto.execution.buffer.BufferState.NO_MORE_PAGES;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PERSISTENT;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.StandardErrorCode.SPOOLING_STORAGE_ERROR;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPages;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.advance;
+import static com.google.common.collect.Iterators.peekingIterator;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output buffer of a persistent exchange. The pages of each partition are written to
+ * {@link TempStorage}, and can only be read once the task produced all of its output and
+ * the output is durable, so a consumer never reads the output of a task that may still fail.
+ * The output is kept after it has been read, and every consumer reads its partition from
+ * any token, so a consumer task that failed can be retried and read its partition again.
+ * <p>
+ * The pages are accounted to the memory of the task until they are written, and the producer is
+ * blocked when the pages that are not written yet exceed the maximum size of the buffer.
+ * <p>
+ * The buffer finishes once every consumer read its buffer to the end and aborted it. A consumer
+ * that fails does not abort its buffer, or aborts it before reading it to the end, so the output
+ * stays available to the task that retries it. The committed output is kept after the task finished,
+ * since a consumer may fail and be retried until the query ends, and its files are only removed by
+ * {@link #removeOutput()} once the worker drops the tasks of the query. The files of a task that failed,
+ * or that was canceled before its output was committed, are removed right away.
+ */
+@ThreadSafe
+@SuppressWarnings("UnstableApiUsage")
+public class PersistentOutputBuffer
+        implements OutputBuffer
+{
+    private static final Logger log = Logger.get(PersistentOutputBuffer.class);
+
+    private final TaskId taskId;
+    private final String taskInstanceId;
+    private final StateMachine<BufferState> state;
+    private final TempStorage tempStorage;
+    private final TempDataOperationContext tempDataOperationContext;
+    private final long thresholdBytes;
+    private final OutputBufferMemoryManager memoryManager;
+    private final ListeningExecutorService executor;
+    private final SpooledFiles spooledFiles;
+
+    // set once all pages were written to storage
+    private final SettableFuture<Void> committed = SettableFuture.create();
+
+    @GuardedBy("this")
+    private OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(PERSISTENT);
+    @GuardedBy("this")
+    private final Map<Integer, PartitionSpool> partitions = new HashMap<>();
+    // the buffers that were read to the end
+    @GuardedBy("this")
+    private final Set<OutputBufferId> completedBuffers = new HashSet<>();
+    @GuardedBy("this")
+    private final Set<OutputBufferId> abortedBuffers = new HashSet<>();
+
+    private final Set<Lifespan> noMorePagesLifespans = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<Lifespan> lifespanCompletionCallback;
+
+    private final AtomicLong totalInMemoryPages = new AtomicLong();
+    private final AtomicLong totalPagesAdded = new AtomicLong();
+    private final AtomicLong totalRowsAdded = new AtomicLong();
+
+    public PersistentOutputBuffer(
+            TaskId taskId,
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            TempStorage tempStorage,
+            DataSize threshold,
+            DataSize maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            ListeningExecutorService executor)
+    {
+        this.taskId = requireNonNull(taskId, "taskId is null");
+        this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
+        this.state = requireNonNull(state, "state is null");
+        this.tempStorage = requireNonNull(tempStorage, "tempStorage is null");
+        this.thresholdBytes = requireNonNull(threshold, "threshold is null").toBytes();
+        this.executor = requireNonNull(executor, "executor is null");
+        this.memoryManager = new OutputBufferMemoryManager(
+                requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes(),
+                requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null"),
+                executor);
+
+        this.tempDataOperationContext = new TempDataOperationContext(Optional.empty(), taskId.getQueryId().toString(), Optional.empty(), Optional.empty(), new Identity("persistent-exchange", Optional.empty()));
+        this.spooledFiles = new SpooledFiles(tempStorage, tempDataOperationContext, executor);
+    }
+
+    @Override
+    public OutputBufferInfo getInfo()
+    {
+        BufferState state = this.state.get();
+        return new OutputBufferInfo(
+                "PERSISTENT",
+                state,
+                state.canAddBuffers(),
+                state.canAddPages(),
+                memoryManager.getBufferedBytes(),
+                totalInMemoryPages.get(),
+                totalRowsAdded.get(),
+                totalPagesAdded.get(),
+                ImmutableList.of());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return state.get() == FINISHED;
+    }
+
+    @Override
+    public double getUtilization()
+    {
+        return memoryManager.getUtilization();
+    }
+
+    @Override
+    public boolean isOverutilized()
+    {
+        return memoryManager.isOverutilized();
+    }
+
+    @Override
+    public long getPeakMemoryUsage()
+    {
+        return memoryManager.getPeakMemoryUsage();
+    }
+
+    @Override
+    public void addStateChangeListener(StateChangeListener<BufferState> stateChangeListener)
+    {
+        state.addStateChangeListener(stateChangeListener);
+    }
+
+    @Override
+    public void setOutputBuffers(OutputBuffers newOutputBuffers)
+    {
+        requireNonNull(newOutputBuffers, "newOutputBuffers is null");
+        checkArgument(newOutputBuffers.getType() == PERSISTENT, "Invalid output buffers type");
+
+        synchronized (this) {
+            if (state.get().isTerminal() || outputBuffers.getVersion() >= newOutputBuffers.getVersion()) {
+                return;
+            }
+            outputBuffers.checkValidTransition(newOutputBuffers);
+            outputBuffers = newOutputBuffers;
+
+            if (newOutputBuffers.isNoMoreBufferIds()) {
+                state.compareAndSet(OPEN, NO_MORE_BUFFERS);
+                state.compareAndSet(NO_MORE_PAGES, FLUSHING);
+            }
+        }
+        checkFinished();
+    }
+
+    @Override
+    public ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(token >= 0, "token is negative");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        Integer partition;
+        synchronized (this) {
+            partition = outputBuffers.getBuffers().get(bufferId);
+            checkArgument(partition != null || !outputBuffers.isNoMoreBufferIds(), "Invalid buffer id %s", bufferId);
+            // a task that retries the consumer reads the buffer again from the start
+            if (token == 0) {
+                abortedBuffers.remove(bufferId);
+            }
+        }
+
+        // a failed buffer blocks the readers, the consumers are cleaned up elsewhere
+        if (partition == null || state.get() == FAILED) {
+            return immediateFuture(emptyResults(taskInstanceId, token, false));
+        }
+        if (spooledFiles.isRemoved()) {
+            return immediateFailedFuture(new PrestoException(GENERIC_INTERNAL_ERROR, format("Output of task %s was already removed", taskId)));
+        }
+        // the pages are only readable once all of them are durable
+        if (!committed.isDone()) {
+            return transformAsync(committed, ignored -> readPages(bufferId, partition, token, maxSize), executor);
+        }
+        return readPages(bufferId, partition, token, maxSize);
+    }
+
+    private ListenableFuture<BufferResult> readPages(OutputBufferId bufferId, int partition, long token, DataSize maxSize)
+    {
+        PartitionSpool spool;
+        synchronized (this) {
+            spool = partitions.get(partition);
+        }
+
+        if (spool == null || token >= spool.getPageCount()) {
+            synchronized (this) {
+                completedBuffers.add(bufferId);
+            }
+            checkFinished();
+            return immediateFuture(emptyResults(taskInstanceId, token, true));
+        }
+
+        return transform(
+                spool.read(bufferId, token, maxSize.toBytes()),
+                pages -> new BufferResult(taskInstanceId, token, token + pages.size(), false, pages),
+                directExecutor());
+    }
+
+    @Override
+    public void acknowledge(OutputBufferId bufferId, long token)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(token >= 0, "token is negative");
+
+        // the pages are kept for retried consumers, the acknowledgement only completes a buffer that was read to the end
+        if (!committed.isDone()) {
+            return;
+        }
+        synchronized (this) {
+            Integer partition = outputBuffers.getBuffers().get(bufferId);
+            if (partition == null) {
+                return;
+            }
+            PartitionSpool spool = partitions.get(partition);
+            if (spool == null || token >= spool.getPageCount()) {
+                completedBuffers.add(bufferId);
+            }
+        }
+        checkFinished();
+    }
+
+    @Override
+    public void abort(OutputBufferId bufferId)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+
+        // A consumer aborts its buffer when it finishes, or when it fails before reading its buffer to the end.
+        // The buffer finishes once every consumer aborted its buffer after reading it to the end.
+        synchronized (this) {
+            abortedBuffers.add(bufferId);
+            partitions.values().forEach(spool -> spool.closeReader(bufferId));
+        }
+        checkFinished();
+    }
+
+    @Override
+    public ListenableFuture<?> isFull()
+    {
+        return memoryManager.getBufferBlockedFuture();
+    }
+
+    @Override
+    public void enqueue(Lifespan lifespan, List<SerializedPage> pages)
+    {
+        enqueue(lifespan, 0, pages);
+    }
+
+    @Override
+    public void enqueue(Lifespan lifespan, int partition, List<SerializedPage> pages)
+    {
+        requireNonNull(lifespan, "lifespan is null");
+        requireNonNull(pages, "pages is null");
+
+        if (!state.get().canAddPages() || noMorePagesLifespans.contains(lifespan)) {
+            return;
+        }
+
+        synchronized (this) {
+            partitions.computeIfAbsent(partition, PartitionSpool::new).add(pages);
+        }
+        totalPagesAdded.addAndGet(pages.size());
+        totalRowsAdded.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+    }
+
+    @Override
+    public void setNoMorePages()
+    {
+        List<ListenableFuture<TempStorageHandle>> writes;
+        synchronized (this) {
+            if (!state.compareAndSet(OPEN, NO_MORE_PAGES) && !state.compareAndSet(NO_MORE_BUFFERS, FLUSHING)) {
+                return;
+            }
+            partitions.values().forEach(PartitionSpool::flush);
+            writes = spooledFiles.getHandles();
+        }
+        memoryManager.setNoBlockOnFull();
+
+        addCallback(allAsList(writes), new FutureCallback<List<TempStorageHandle>>()
+        {
+            @Override
+            public void onSuccess(List<TempStorageHandle> handles)
+            {
+                committed.set(null);
+                checkFinished();
+            }
+
+            @Override
+            public void onFailure(Throwable throwable)
+            {
+                log.error(throwable, "Task %s: Failed to write the output to temp storage", taskId);
+                committed.setException(throwable);
+            }
+        }, directExecutor());
+    }
+
+    private void checkFinished()
+    {
+        synchronized (this) {
+            Set<OutputBufferId> bufferIds = outputBuffers.getBuffers().keySet();
+            if (state.get() != FLUSHING || !committed.isDone() || !completedBuffers.containsAll(bufferIds) || !abortedBuffers.containsAll(bufferIds)) {
+                return;
+            }
+        }
+        state.setIf(FINISHED, oldState -> !oldState.isTerminal());
+    }
+
+    @Override
+    public void destroy()
+    {
+        // the task finished after every consumer read its buffer to the end, or the task was canceled
+        state.setIf(FINISHED, oldState -> !oldState.isTerminal());
+        // a retried consumer may still read the committed output, which is only removed once the query ends
+        release(!committed.isDone());
+    }
+
+    @Override
+    public void fail()
+    {
+        if (state.setIf(FAILED, oldState -> !oldState.isTerminal())) {
+            release(true);
+        }
+    }
+
+    /**
+     * Removes the files of the buffer. This is called once the worker removed the tasks of the query,
+     * so no consumer reads the output any more.
+     */
+    public void removeOutput()
+    {
+        spooledFiles.removeAll();
+        synchronized (this) {
+            partitions.values().forEach(PartitionSpool::closeReaders);
+        }
+    }
+
+    private void release(boolean removeFiles)
+    {
+        synchronized (this) {
+            partitions.values().forEach(PartitionSpool::clear);
+        }
+        memoryManager.setNoBlockOnFull();
+        memoryManager.close();
+        if (removeFiles) {
+            removeOutput();
+        }
+    }
+
+    @Override
+    public void setNoMorePagesForLifespan(Lifespan lifespan)
+    {
+        requireNonNull(lifespan, "lifespan is null");
+        if (noMorePagesLifespans.add(lifespan)) {
+            // the pages of the lifespan do not hold memory once they are handed to the buffer
+            Consumer<Lifespan> callback = lifespanCompletionCallback;
+            if (callback != null) {
+                callback.accept(lifespan);
+            }
+        }
+    }
+
+    @Override
+    public void registerLifespanCompletionCallback(Consumer<Lifespan> callback)
+    {
+        checkState(lifespanCompletionCallback == null, "lifespanCompletionCallback is already registered");
+        lifespanCompletionCallback = requireNonNull(callback, "callback is null");
+    }
+
+    @Override
+    public boolean isFinishedForLifespan(Lifespan lifespan)
+    {
+        return noMorePagesLifespans.contains(lifespan);
+    }
+
+    /**
+     * The pages of one partition. The pages are numbered from zero in the order they were added,
+     * and are written to a new file each time the pages in memory exceed the threshold.
+     */
+    private class PartitionSpool
+    {
+        private final int partition;
+
+        @GuardedBy("PersistentOutputBuffer.this")
+        private final List<SerializedPage> pages = new ArrayList<>();
+        @GuardedBy("PersistentOutputBuffer.this")
+        private long bytes;
+        @GuardedBy("PersistentOutputBuffer.this")
+        private long flushedPageCount;
+        // first token of each file
+        @GuardedBy("PersistentOutputBuffer.this")
+        private final TreeMap<Long, ListenableFuture<TempStorageHandle>> files = new TreeMap<>();
+        // the reader of the last read of each buffer, which is kept while the buffer did not read its file to the end
+        @GuardedBy("PersistentOutputBuffer.this")
+        private final Map<OutputBufferId, SpoolFileReader> readers = new HashMap<>();
+
+        private PartitionSpool(int partition)
+        {
+            this.partition = partition;
+        }
+
+        public void add(List<SerializedPage> newPages)
+        {
+            long newBytes = newPages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
+            pages.addAll(newPages);
+            bytes += newBytes;
+
+            totalInMemoryPages.addAndGet(newPages.size());
+            memoryManager.updateMemoryUsage(newBytes);
+
+            if (bytes >= thresholdBytes) {
+                flush();
+            }
+        }
+
+        public void flush()
+        {
+            if (pages.isEmpty()) {
+                return;
+            }
+
+            List<DataOutput> dataOutputs = pages.stream()
+                    .map(PageDataOutput::new)
+                    .collect(toImmutableList());
+            ListenableFuture<TempStorageHandle> handle = executor.submit(() -> {
+                TempDataSink dataSink = tempStorage.create(tempDataOperationContext);
+                dataSink.write(dataOutputs);
+                return dataSink.commit();
+            });
+            spooledFiles.add(handle);
+            files.put(flushedPageCount, handle);
+            flushedPageCount += pages.size();
+
+            // the pages are held by the write until it completes
+            int writtenPages = pages.size();
+            long writtenBytes = bytes;
+            handle.addListener(() -> {
+                totalInMemoryPages.addAndGet(-writtenPages);
+                memoryManager.updateMemoryUsage(-writtenBytes);
+            }, directExecutor());
+            pages.clear();
+            bytes = 0;
+        }
+
+        public void clear()
+        {
+            totalInMemoryPages.addAndGet(-pages.size());
+            memoryManager.updateMemoryUsage(-bytes);
+            pages.clear();
+            bytes = 0;
+        }
+
+        public long getPageCount()
+        {
+            synchronized (PersistentOutputBuffer.this) {
+                return flushedPageCount;
+            }
+        }
+
+        public ListenableFuture<List<SerializedPage>> read(OutputBufferId bufferId, long token, long maxBytes)
+        {
+            Entry<Long, ListenableFuture<TempStorageHandle>> file;
+            Optional<SpoolFileReader> reader;
+            synchronized (PersistentOutputBuffer.this) {
+                file = files.floorEntry(token);
+                checkArgument(file != null, "Invalid token %s for partition %s", token, partition);
+
+                // a consumer reads its buffer in order, so it goes on reading from the position of its last read
+                reader = Optional.ofNullable(readers.remove(bufferId));
+            }
+            long firstToken = file.getKey();
+            if (reader.isPresent() && !reader.get().canRead(firstToken, token)) {
+                reader.get().close();
+                reader = Optional.empty();
+            }
+
+            Optional<SpoolFileReader> currentReader = reader;
+            return transform(file.getValue(), handle -> readFile(bufferId, currentReader.orElseGet(() -> new SpoolFileReader(handle, firstToken)), token, maxBytes), executor);
+        }
+
+        private List<SerializedPage> readFile(OutputBufferId bufferId, SpoolFileReader reader, long token, long maxBytes)
+        {
+            List<SerializedPage> pages;
+            try {
+                pages = reader.read(token, maxBytes);
+            }
+            catch (RuntimeException e) {
+                reader.close();
+                throw e;
+            }
+
+            if (reader.isFinished()) {
+                reader.close();
+                return pages;
+            }
+            SpoolFileReader previousReader;
+            synchronized (PersistentOutputBuffer.this) {
+                if (spooledFiles.isRemoved()) {
+                    previousReader = reader;
+                }
+                else {
+                    previousReader = readers.put(bufferId, reader);
+                }
+            }
+            if (previousReader != null) {
+                previousReader.close();
+            }
+            return pages;
+        }
+
+        public void closeReader(OutputBufferId bufferId)
+        {
+            SpoolFileReader reader = readers.remove(bufferId);
+            if (reader != null) {
+                reader.close();
+            }
+        }
+
+        public void closeReaders()
+        {
+            readers.values().forEach(SpoolFileReader::close);
+            readers.clear();
+        }
+    }
+
+    /**
+     * Reads the pages of a file in order from an open stream.
+     */
+    private class SpoolFileReader
+    {
+        private final long firstToken;
+        private final SliceInput input;
+        private final PeekingIterator<SerializedPage> pages;
+        private long nextToken;
+
+        public SpoolFileReader(TempStorageHandle handle, long firstToken)
+        {
+            this.firstToken = firstToken;
+            this.nextToken = firstToken;
+            try {
+                this.input = new InputStreamSliceInput(tempStorage.open(tempDataOperationContext, handle));
+            }
+            catch (IOException e) {
+                throw new PrestoException(SPOOLING_STORAGE_ERROR, "Failed to read the persistent exchange output from temp storage", e);
+            }
+            this.pages = peekingIterator(readSerializedPages(input));
+        }
+
+        public boolean canRead(long firstToken, long token)
+        {
+            return this.firstToken == firstToken && nextToken <= token;
+        }
+
+        public synchronized List<SerializedPage> read(long token, long maxBytes)
+        {
+            checkArgument(token >= nextToken, "Token %s is before the position %s of the reader", token, nextToken);
+            nextToken += advance(pages, toIntExact(token - nextToken));
+
+            ImmutableList.Builder<SerializedPage> result = ImmutableList.builder();
+            long bytes = 0;
+            int pageCount = 0;
+            while (pages.hasNext()) {
+                bytes += pages.peek().getRetainedSizeInBytes();
+                if (pageCount > 0 && bytes > maxBytes) {
+                    break;
+                }
+                result.add(pages.next());
+                pageCount++;
+            }
+            nextToken += pageCount;
+            return result.build();
+        }
+
+        public synchronized boolean isFinished()
+        {
+            return !pages.hasNext();
+        }
+
+        public void close()
+        {
+            try {
+                input.close();
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to close persistent exchange file");
+            }
+        }
+    }
+
+    /**
+     * The files written by a buffer. A file that is still being written when the files are removed
+     * is removed once it is committed.
+     */
+    private static class SpooledFiles
+    {
+        private final TempStorage tempStorage;
+        private final TempDataOperationContext context;
+        private final Executor executor;
+
+        @GuardedBy("this")
+        private final List<ListenableFuture<TempStorageHandle>> handles = new ArrayList<>();
+        @GuardedBy("this")
+        private boolean removed;
+
+        public SpooledFiles(TempStorage tempStorage, TempDataOperationContext context, Executor executor)
+        {
+            this.tempStorage = requireNonNull(tempStorage, "tempStorage is null");
+            this.context = requireNonNull(context, "context is null");
+            this.executor = requireNonNull(executor, "executor is null");
+        }
+
+        public synchronized void add(ListenableFuture<TempStorageHandle> handle)
+        {
+            if (removed) {
+                remove(handle);
+                return;
+            }
+            handles.add(handle);
+        }
+
+        public synchronized List<ListenableFuture<TempStorageHandle>> getHandles()
+        {
+            return ImmutableList.copyOf(handles);
+        }
+
+        public synchronized boolean isRemoved()
+        {
+            return removed;
+        }
+
+        public synchronized void removeAll()
+        {
+            if (removed) {
+                return;
+            }
+            removed = true;
+            handles.forEach(this::remove);
+            handles.clear();
+        }
+
+        private void remove(ListenableFuture<TempStorageHandle> handle)
+        {
+            handle.addListener(() -> {
+                try {
+                    tempStorage.remove(context, handle.get());
+                }
+                catch (Exception e) {
+                    log.warn(e, "Failed to remove persistent exchange file from temp storage");
+                }
+            }, executor);
+        }
+    }
+}
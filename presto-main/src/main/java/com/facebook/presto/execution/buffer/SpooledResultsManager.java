@@ -0,0 +1,344 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.Session;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.io.DataOutput;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.PageDataOutput;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.storage.TempDataOperationContext;
+import com.facebook.presto.spi.storage.TempDataSink;
+import com.facebook.presto.spi.storage.TempStorage;
+import com.facebook.presto.spi.storage.TempStorageHandle;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.storage.TempStorageManager;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static com.facebook.presto.SystemSessionProperties.isSpooledQueryResultsEnabled;
+import static com.facebook.presto.client.BinaryDataUtils.isBinaryDataSupported;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.spi.StandardErrorCode.SPOOLING_STORAGE_ERROR;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPages;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Keeps the segments of the spooled query results written by the output stage tasks of this node.
+ * <p>
+ * The output tasks write the result pages to segments in temp storage, and send a descriptor page
+ * with the location of each segment to the coordinator, in place of the result pages. The clients
+ * then download the segments from this node, and remove them once downloaded. The segments that
+ * are never downloaded are removed when they expire.
+ * <p>
+ * Small results are not worth a round trip to the workers, so the descriptor carries their pages
+ * inline instead.
+ */
+@ThreadSafe
+public class SpooledResultsManager
+{
+    private static final Logger log = Logger.get(SpooledResultsManager.class);
+
+    public static final List<Type> DESCRIPTOR_TYPES = ImmutableList.of(VARCHAR, VARBINARY, BIGINT);
+
+    private static final int URI_CHANNEL = 0;
+    private static final int INLINE_PAGES_CHANNEL = 1;
+    private static final int ROW_COUNT_CHANNEL = 2;
+
+    private final TempStorageManager tempStorageManager;
+    private final String tempStorageName;
+    private final DataSize segmentSize;
+    private final Duration segmentTtl;
+    private final Supplier<URI> baseUri;
+    private final Ticker ticker;
+
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    private final ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("spooled-results-%s"));
+    private final ListeningExecutorService executor = listeningDecorator(coreExecutor);
+    private final ScheduledExecutorService expirationExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("spooled-results-expiration"));
+
+    @Inject
+    public SpooledResultsManager(FeaturesConfig featuresConfig, TempStorageManager tempStorageManager, InternalNodeManager nodeManager)
+    {
+        this(featuresConfig, tempStorageManager, () -> nodeManager.getCurrentNode().getInternalUri(), Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    public SpooledResultsManager(FeaturesConfig featuresConfig, TempStorageManager tempStorageManager, URI baseUri, Ticker ticker)
+    {
+        this(featuresConfig, tempStorageManager, () -> baseUri, ticker);
+    }
+
+    private SpooledResultsManager(FeaturesConfig featuresConfig, TempStorageManager tempStorageManager, Supplier<URI> baseUri, Ticker ticker)
+    {
+        requireNonNull(featuresConfig, "featuresConfig is null");
+        this.tempStorageManager = requireNonNull(tempStorageManager, "tempStorageManager is null");
+        this.tempStorageName = featuresConfig.getSpooledQueryResultsTempStorage();
+        this.segmentSize = featuresConfig.getSpooledQueryResultsSegmentSize();
+        this.segmentTtl = featuresConfig.getSpooledQueryResultsTtl();
+        this.baseUri = requireNonNull(baseUri, "baseUri is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        expirationExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                removeExpiredSegments();
+            }
+            catch (Throwable e) {
+                log.error(e, "Error removing expired spooled result segments");
+            }
+        }, 1, 1, MINUTES);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        expirationExecutor.shutdownNow();
+        coreExecutor.shutdownNow();
+        segments.keySet().forEach(this::removeSegment);
+    }
+
+    /**
+     * Returns whether the results of the query are spooled. The coordinator and the workers
+     * must agree on it, as the coordinator receives descriptor pages instead of result pages.
+     */
+    public static boolean isSpooledResultsEnabled(Session session, List<Type> types)
+    {
+        return isSpooledQueryResultsEnabled(session) && types.stream()
+                .map(Type::getTypeSignature)
+                .allMatch(signature -> isBinaryDataSupported(signature));
+    }
+
+    public DataSize getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    /**
+     * Writes the pages to a new segment, and returns the location the clients download it from.
+     * The pages must be encoded the same way as the binary query results.
+     */
+    public ListenableFuture<URI> createSegment(Session session, List<SerializedPage> pages)
+    {
+        List<DataOutput> dataOutputs = pages.stream()
+                .map(PageDataOutput::new)
+                .collect(toImmutableList());
+        TempDataOperationContext context = new TempDataOperationContext(
+                session.getSource(),
+                session.getQueryId().getId(),
+                session.getClientInfo(),
+                Optional.of(session.getClientTags()),
+                session.getIdentity());
+
+        return executor.submit(() -> {
+            TempStorage tempStorage = tempStorageManager.getTempStorage(tempStorageName);
+            TempStorageHandle handle;
+            try {
+                TempDataSink dataSink = tempStorage.create(context);
+                dataSink.write(dataOutputs);
+                handle = dataSink.commit();
+            }
+            catch (IOException e) {
+                throw new PrestoException(SPOOLING_STORAGE_ERROR, "Failed to write spooled result segment", e);
+            }
+
+            String segmentId = UUID.randomUUID().toString();
+            segments.put(segmentId, new Segment(tempStorage, context, handle, ticker.read()));
+            return uriBuilderFrom(baseUri.get())
+                    .appendPath("/v1/spooled")
+                    .appendPath(segmentId)
+                    .build();
+        });
+    }
+
+    public Optional<InputStream> openSegment(String segmentId)
+            throws IOException
+    {
+        Segment segment = segments.get(segmentId);
+        if (segment == null) {
+            return Optional.empty();
+        }
+        return Optional.of(segment.getTempStorage().open(segment.getContext(), segment.getHandle()));
+    }
+
+    public void removeSegment(String segmentId)
+    {
+        Segment segment = segments.remove(segmentId);
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.getTempStorage().remove(segment.getContext(), segment.getHandle());
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to remove spooled result segment %s", segment.getHandle());
+        }
+    }
+
+    @VisibleForTesting
+    public int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    @VisibleForTesting
+    public void removeExpiredSegments()
+    {
+        long now = ticker.read();
+        segments.forEach((segmentId, segment) -> {
+            if (now - segment.getCreateTimeNanos() > segmentTtl.roundTo(NANOSECONDS)) {
+                removeSegment(segmentId);
+            }
+        });
+    }
+
+    public static Page createSegmentDescriptor(URI segmentUri, long rowCount)
+    {
+        return createDescriptor(Optional.of(segmentUri), Optional.empty(), rowCount);
+    }
+
+    public static Page createInlineDescriptor(List<SerializedPage> pages)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(pages.stream().mapToInt(SerializedPage::getSizeInBytes).sum());
+        pages.forEach(page -> writeSerializedPage(output, page));
+        return createDescriptor(Optional.empty(), Optional.of(output.slice()), pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+    }
+
+    private static Page createDescriptor(Optional<URI> segmentUri, Optional<Slice> inlinePages, long rowCount)
+    {
+        BlockBuilder uriBuilder = VARCHAR.createBlockBuilder(null, 1);
+        if (segmentUri.isPresent()) {
+            VARCHAR.writeSlice(uriBuilder, utf8Slice(segmentUri.get().toString()));
+        }
+        else {
+            uriBuilder.appendNull();
+        }
+        BlockBuilder inlinePagesBuilder = VARBINARY.createBlockBuilder(null, 1);
+        if (inlinePages.isPresent()) {
+            VARBINARY.writeSlice(inlinePagesBuilder, inlinePages.get());
+        }
+        else {
+            inlinePagesBuilder.appendNull();
+        }
+        BlockBuilder rowCountBuilder = BIGINT.createBlockBuilder(null, 1);
+        BIGINT.writeLong(rowCountBuilder, rowCount);
+        return new Page(uriBuilder.build(), inlinePagesBuilder.build(), rowCountBuilder.build());
+    }
+
+    public static Optional<URI> getSegmentUri(Page descriptor, int position)
+    {
+        Block block = descriptor.getBlock(URI_CHANNEL);
+        if (block.isNull(position)) {
+            return Optional.empty();
+        }
+        return Optional.of(URI.create(VARCHAR.getSlice(block, position).toStringUtf8()));
+    }
+
+    public static Iterator<SerializedPage> getInlinePages(Page descriptor, int position)
+    {
+        Block block = descriptor.getBlock(INLINE_PAGES_CHANNEL);
+        if (block.isNull(position)) {
+            return ImmutableList.<SerializedPage>of().iterator();
+        }
+        return readSerializedPages(VARBINARY.getSlice(block, position).getInput());
+    }
+
+    public static long getRowCount(Page descriptor, int position)
+    {
+        return BIGINT.getLong(descriptor.getBlock(ROW_COUNT_CHANNEL), position);
+    }
+
+    private static class Segment
+    {
+        private final TempStorage tempStorage;
+        private final TempDataOperationContext context;
+        private final TempStorageHandle handle;
+        private final long createTimeNanos;
+
+        public Segment(TempStorage tempStorage, TempDataOperationContext context, TempStorageHandle handle, long createTimeNanos)
+        {
+            this.tempStorage = requireNonNull(tempStorage, "tempStorage is null");
+            this.context = requireNonNull(context, "context is null");
+            this.handle = requireNonNull(handle, "handle is null");
+            this.createTimeNanos = createTimeNanos;
+        }
+
+        public TempStorage getTempStorage()
+        {
+            return tempStorage;
+        }
+
+        public TempDataOperationContext getContext()
+        {
+            return context;
+        }
+
+        public TempStorageHandle getHandle()
+        {
+            return handle;
+        }
+
+        public long getCreateTimeNanos()
+        {
+            return createTimeNanos;
+        }
+    }
+}
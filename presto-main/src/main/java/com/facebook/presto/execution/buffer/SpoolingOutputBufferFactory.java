@@ -15,6 +15,8 @@ package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.execution.StateMachine;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spiller.LocalTempStorage;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.storage.TempStorageManager;
@@ -24,14 +26,20 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
+import io.airlift.units.DataSize;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
@@ -48,6 +56,9 @@ public class SpoolingOutputBufferFactory
 
     private final ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("spooling-outputbuffer-%s"));
 
+    // the output of the persistent output buffers is kept until the worker removes the tasks of the query
+    private final Map<QueryId, Set<PersistentOutputBuffer>> persistentOutputBuffers = new ConcurrentHashMap<>();
+
     @Inject
     public SpoolingOutputBufferFactory(FeaturesConfig featuresConfig, TempStorageManager tempStorageManager, FinalizerService finalizerService)
     {
@@ -96,4 +107,32 @@ public class SpoolingOutputBufferFactory
                 executor,
                 finalizerService);
     }
+
+    public PersistentOutputBuffer createPersistentOutputBuffer(
+            TaskId taskId,
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            DataSize maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier)
+    {
+        PersistentOutputBuffer outputBuffer = new PersistentOutputBuffer(
+                taskId,
+                taskInstanceId,
+                state,
+                tempStorageManager.getTempStorage(featuresConfig.getPersistentExchangeTempStorage()),
+                featuresConfig.getSpoolingOutputBufferThreshold(),
+                maxBufferSize,
+                systemMemoryContextSupplier,
+                executor);
+        persistentOutputBuffers.computeIfAbsent(taskId.getQueryId(), queryId -> newConcurrentHashSet()).add(outputBuffer);
+        return outputBuffer;
+    }
+
+    public void removePersistentOutputs(QueryId queryId)
+    {
+        Set<PersistentOutputBuffer> outputBuffers = persistentOutputBuffers.remove(queryId);
+        if (outputBuffers != null) {
+            outputBuffers.forEach(PersistentOutputBuffer::removeOutput);
+        }
+    }
 }
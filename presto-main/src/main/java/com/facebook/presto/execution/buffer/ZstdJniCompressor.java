@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.github.luben.zstd.Zstd;
+import io.airlift.compress.Compressor;
+
+import java.nio.ByteBuffer;
+
+import static java.lang.Math.toIntExact;
+
+/**
+ * Zstd compressor with a configurable compression level, which the pure Java
+ * implementation of aircompressor does not support.
+ */
+public class ZstdJniCompressor
+        implements Compressor
+{
+    private final int compressionLevel;
+
+    public ZstdJniCompressor(int compressionLevel)
+    {
+        if (compressionLevel < Zstd.minCompressionLevel() || compressionLevel > Zstd.maxCompressionLevel()) {
+            throw new IllegalArgumentException("Invalid Zstd compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public int maxCompressedLength(int uncompressedSize)
+    {
+        return toIntExact(Zstd.compressBound(uncompressedSize));
+    }
+
+    @Override
+    public int compress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset, int maxOutputLength)
+    {
+        long size = Zstd.compressByteArray(output, outputOffset, maxOutputLength, input, inputOffset, inputLength, compressionLevel);
+        if (Zstd.isError(size)) {
+            throw new IllegalStateException("Zstd compression failed: " + Zstd.getErrorName(size));
+        }
+        return toIntExact(size);
+    }
+
+    @Override
+    public void compress(ByteBuffer input, ByteBuffer output)
+    {
+        if (!input.hasArray() || !output.hasArray()) {
+            throw new IllegalArgumentException("Byte buffers backed by byte arrays are required");
+        }
+        int written = compress(
+                input.array(),
+                input.arrayOffset() + input.position(),
+                input.remaining(),
+                output.array(),
+                output.arrayOffset() + output.position(),
+                output.remaining());
+        input.position(input.limit());
+        output.position(output.position() + written);
+    }
+}
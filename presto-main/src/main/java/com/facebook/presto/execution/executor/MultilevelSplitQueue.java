@@ -31,6 +31,7 @@ import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -104,14 +105,7 @@ public class MultilevelSplitQueue
         lock.lock();
         try {
             if (levelWaitingSplits.get(level).isEmpty()) {
-                // Accesses to levelScheduledTime are not synchronized, so we have a data race
-                // here - our level time math will be off. However, the staleness is bounded by
-                // the fact that only running splits that complete during this computation
-                // can update the level time. Therefore, this is benign.
-                long level0Time = getLevel0TargetTime();
-                long levelExpectedTime = (long) (level0Time / Math.pow(levelTimeMultiplier, level));
-                long delta = levelExpectedTime - levelScheduledTime[level].get();
-                levelScheduledTime[level].addAndGet(delta);
+                catchUpLevelScheduledTime(level);
             }
 
             levelWaitingSplits.get(level).offer(split);
@@ -138,10 +132,7 @@ public class MultilevelSplitQueue
                     continue;
                 }
 
-                int selectedLevel = result.getPriority().getLevel();
-                levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
-                selectedLevelCounters.get(selectedLevel).update(1);
-
+                recordSelectedSplit(result);
                 return result;
             }
             finally {
@@ -150,6 +141,38 @@ public class MultilevelSplitQueue
         }
     }
 
+    /**
+     * Takes the next split for the runner thread in the given slot. All runner
+     * threads share the same queue, so the slot is ignored.
+     */
+    public PrioritizedSplitRunner take(int runnerSlot)
+            throws InterruptedException
+    {
+        return take();
+    }
+
+    /**
+     * Sets the scheduled time of a level that had no waiting splits to its expected time.
+     */
+    protected void catchUpLevelScheduledTime(int level)
+    {
+        // Accesses to levelScheduledTime are not synchronized, so we have a data race
+        // here - our level time math will be off. However, the staleness is bounded by
+        // the fact that only running splits that complete during this computation
+        // can update the level time. Therefore, this is benign.
+        long level0Time = getLevel0TargetTime();
+        long levelExpectedTime = (long) (level0Time / Math.pow(levelTimeMultiplier, level));
+        long delta = levelExpectedTime - levelScheduledTime[level].get();
+        levelScheduledTime[level].addAndGet(delta);
+    }
+
+    protected void recordSelectedSplit(PrioritizedSplitRunner split)
+    {
+        int selectedLevel = split.getPriority().getLevel();
+        levelMinPriority[selectedLevel].set(split.getPriority().getLevelPriority());
+        selectedLevelCounters.get(selectedLevel).update(1);
+    }
+
     /**
      * Presto attempts to give each level a target amount of scheduled time, which is configurable
      * using levelTimeMultiplier.
@@ -160,12 +183,29 @@ public class MultilevelSplitQueue
      */
     @GuardedBy("lock")
     private PrioritizedSplitRunner pollSplit()
+    {
+        int selectedLevel = selectLevel(level -> !levelWaitingSplits.get(level).isEmpty());
+        if (selectedLevel == -1) {
+            return null;
+        }
+
+        PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
+        checkState(result != null, "pollSplit cannot return null");
+
+        return result;
+    }
+
+    /**
+     * Selects the level with the lowest ratio of actual to target scheduled time among
+     * the levels with waiting splits, or returns -1 if no level has waiting splits.
+     */
+    protected int selectLevel(IntPredicate hasWaitingSplits)
     {
         long targetScheduledTime = getLevel0TargetTime();
         double worstRatio = 1;
         int selectedLevel = -1;
         for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
-            if (!levelWaitingSplits.get(level).isEmpty()) {
+            if (hasWaitingSplits.test(level)) {
                 long levelTime = levelScheduledTime[level].get();
                 double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
                 if (selectedLevel == -1 || ratio > worstRatio) {
@@ -177,17 +217,9 @@ public class MultilevelSplitQueue
             targetScheduledTime /= levelTimeMultiplier;
         }
 
-        if (selectedLevel == -1) {
-            return null;
-        }
-
-        PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
-        checkState(result != null, "pollSplit cannot return null");
-
-        return result;
+        return selectedLevel;
     }
 
-    @GuardedBy("lock")
     private long getLevel0TargetTime()
     {
         long level0TargetTime = levelScheduledTime[0].get();
@@ -301,7 +301,7 @@ public class TaskExecutor
     {
         checkState(!closed, "TaskExecutor is closed");
         for (int i = 0; i < runnerThreads; i++) {
-            addRunnerThread();
+            addRunnerThread(i);
         }
         if (interruptRunawaySplitsTimeout != null) {
             long interval = (long) interruptSplitInterval.getValue(SECONDS);
@@ -330,10 +330,10 @@ public class TaskExecutor
                 .toString();
     }
 
-    private synchronized void addRunnerThread()
+    private synchronized void addRunnerThread(int runnerSlot)
     {
         try {
-            executor.execute(embedVersion.embedVersion(new TaskRunner()));
+            executor.execute(embedVersion.embedVersion(new TaskRunner(runnerSlot)));
         }
         catch (RejectedExecutionException ignored) {
         }
@@ -576,6 +576,13 @@ public class TaskExecutor
             implements Runnable
     {
         private final long runnerId = NEXT_RUNNER_ID.getAndIncrement();
+        // a replacement runner takes over the slot, and with it any runner-local queue
+        private final int runnerSlot;
+
+        public TaskRunner(int runnerSlot)
+        {
+            this.runnerSlot = runnerSlot;
+        }
 
         @Override
         public void run()
@@ -585,7 +592,7 @@ public class TaskExecutor
                     // select next worker
                     final PrioritizedSplitRunner split;
                     try {
-                        split = waitingSplits.take();
+                        split = waitingSplits.take(runnerSlot);
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -647,7 +654,7 @@ public class TaskExecutor
             finally {
                 // unless we have been closed, we need to replace this thread
                 if (!closed) {
-                    addRunnerThread();
+                    addRunnerThread(runnerSlot);
                 }
             }
         }
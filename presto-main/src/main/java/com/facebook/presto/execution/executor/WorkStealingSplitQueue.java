@@ -0,0 +1,434 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.min;
+
+/**
+ * A split queue with a local queue for each runner thread. A runner takes splits
+ * from its own queue and steals from the queues of other runners when its own queue
+ * has no split of the selected level, preferring the runners of its own NUMA node.
+ * <p>
+ * The level is selected with the same scheduled time accounting as the shared
+ * {@link MultilevelSplitQueue}, over the waiting splits of all runners, so the
+ * fairness between levels is the same. Within a level, a runner takes the split with
+ * the lowest priority in its own queue, which is not necessarily the lowest priority
+ * across all runners.
+ * <p>
+ * The runners are divided into groups, one for each NUMA node, and the splits of a
+ * task are queued on the runners of the same group, so that they share the caches
+ * of one node. The groups do not pin the runner threads to the CPUs of a node.
+ */
+@ThreadSafe
+public class WorkStealingSplitQueue
+        extends MultilevelSplitQueue
+{
+    private static final File NUMA_NODES_DIRECTORY = new File("/sys/devices/system/node");
+
+    private final List<RunnerQueue> runnerQueues;
+    private final List<List<RunnerQueue>> nodeRunnerQueues;
+    private final AtomicInteger[] nextNodeRunnerQueue;
+
+    private final AtomicIntegerArray levelWaitingSplitCounts = new AtomicIntegerArray(LEVEL_THRESHOLD_SECONDS.length);
+    private final AtomicInteger waitingSplitCount = new AtomicInteger();
+
+    private final ThreadLocal<RunnerQueue> currentRunnerQueue = new ThreadLocal<>();
+
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final List<Condition> nodeNotEmpty;
+    @GuardedBy("idleLock")
+    private final int[] nodeIdleRunners;
+    private final AtomicInteger idleRunners = new AtomicInteger();
+
+    private final CounterStat stolenSplits = new CounterStat();
+
+    @Inject
+    public WorkStealingSplitQueue(TaskManagerConfig taskManagerConfig)
+    {
+        this(
+                taskManagerConfig.getLevelTimeMultiplier().doubleValue(),
+                taskManagerConfig.getMaxWorkerThreads(),
+                taskManagerConfig.isNumaAwareSchedulingEnabled() ? getNumaNodeCount() : 1);
+    }
+
+    public WorkStealingSplitQueue(double levelTimeMultiplier, int runnerThreads, int nodeCount)
+    {
+        super(levelTimeMultiplier);
+        checkArgument(runnerThreads > 0, "runnerThreads must be at least 1");
+        checkArgument(nodeCount > 0, "nodeCount must be at least 1");
+        nodeCount = min(nodeCount, runnerThreads);
+
+        List<List<RunnerQueue>> nodeRunnerQueues = new ArrayList<>(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            nodeRunnerQueues.add(new ArrayList<>());
+        }
+        ImmutableList.Builder<RunnerQueue> runnerQueues = ImmutableList.builder();
+        for (int slot = 0; slot < runnerThreads; slot++) {
+            // assign contiguous ranges of runner slots to each node
+            int node = (int) ((long) slot * nodeCount / runnerThreads);
+            RunnerQueue runnerQueue = new RunnerQueue(node);
+            runnerQueues.add(runnerQueue);
+            nodeRunnerQueues.get(node).add(runnerQueue);
+        }
+        this.runnerQueues = runnerQueues.build();
+        this.nodeRunnerQueues = nodeRunnerQueues.stream()
+                .map(ImmutableList::copyOf)
+                .collect(toImmutableList());
+
+        this.nextNodeRunnerQueue = new AtomicInteger[nodeCount];
+        ImmutableList.Builder<Condition> nodeNotEmpty = ImmutableList.builder();
+        for (int node = 0; node < nodeCount; node++) {
+            nextNodeRunnerQueue[node] = new AtomicInteger();
+            nodeNotEmpty.add(idleLock.newCondition());
+        }
+        this.nodeNotEmpty = nodeNotEmpty.build();
+        this.nodeIdleRunners = new int[nodeCount];
+    }
+
+    @Override
+    public void offer(PrioritizedSplitRunner split)
+    {
+        checkArgument(split != null, "split is null");
+
+        split.setReady();
+        int level = split.getPriority().getLevel();
+        if (levelWaitingSplitCounts.getAndIncrement(level) == 0) {
+            catchUpLevelScheduledTime(level);
+        }
+
+        // a split offered by a runner of the home node of its task stays with that runner
+        int node = getHomeNode(split);
+        RunnerQueue runnerQueue = currentRunnerQueue.get();
+        if (runnerQueue == null || runnerQueue.getNode() != node) {
+            List<RunnerQueue> queues = nodeRunnerQueues.get(node);
+            runnerQueue = queues.get(floorMod(nextNodeRunnerQueue[node].getAndIncrement(), queues.size()));
+        }
+        runnerQueue.add(level, split);
+        waitingSplitCount.incrementAndGet();
+
+        signalIdleRunner(node);
+    }
+
+    @Override
+    public PrioritizedSplitRunner take()
+    {
+        throw new UnsupportedOperationException("Splits must be taken by a runner slot");
+    }
+
+    @Override
+    public PrioritizedSplitRunner take(int runnerSlot)
+            throws InterruptedException
+    {
+        checkArgument(runnerSlot >= 0 && runnerSlot < runnerQueues.size(), "Invalid runner slot: %s", runnerSlot);
+        RunnerQueue runnerQueue = runnerQueues.get(runnerSlot);
+        currentRunnerQueue.set(runnerQueue);
+
+        while (true) {
+            PrioritizedSplitRunner result = pollSplit(runnerQueue);
+            if (result == null) {
+                awaitSplits(runnerQueue.getNode());
+                continue;
+            }
+
+            if (result.updateLevelPriority()) {
+                offer(result);
+                continue;
+            }
+
+            recordSelectedSplit(result);
+            return result;
+        }
+    }
+
+    private PrioritizedSplitRunner pollSplit(RunnerQueue runnerQueue)
+    {
+        int level = selectLevel(candidate -> levelWaitingSplitCounts.get(candidate) > 0);
+        if (level == -1) {
+            return null;
+        }
+
+        PrioritizedSplitRunner split = runnerQueue.poll(level);
+        if (split == null) {
+            split = steal(runnerQueue, level);
+        }
+        if (split == null) {
+            // the splits of the selected level were taken by other runners
+            int localLevel = selectLevel(runnerQueue::hasWaitingSplits);
+            if (localLevel != -1) {
+                split = runnerQueue.poll(localLevel);
+            }
+        }
+        if (split != null) {
+            splitRemoved(split.getPriority().getLevel());
+        }
+        return split;
+    }
+
+    private PrioritizedSplitRunner steal(RunnerQueue thief, int level)
+    {
+        // prefer the runners of the same node, then the runners of the other nodes
+        int nodeCount = nodeRunnerQueues.size();
+        for (int i = 0; i < nodeCount; i++) {
+            List<RunnerQueue> victims = nodeRunnerQueues.get((thief.getNode() + i) % nodeCount);
+            int start = victims.indexOf(thief) + 1;
+            for (int j = 0; j < victims.size(); j++) {
+                RunnerQueue victim = victims.get((start + j) % victims.size());
+                if (victim == thief) {
+                    continue;
+                }
+                PrioritizedSplitRunner split = victim.poll(level);
+                if (split != null) {
+                    stolenSplits.update(1);
+                    return split;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void awaitSplits(int node)
+            throws InterruptedException
+    {
+        idleLock.lockInterruptibly();
+        try {
+            nodeIdleRunners[node]++;
+            idleRunners.incrementAndGet();
+            try {
+                // offer increments the waiting splits before it checks for idle runners
+                if (waitingSplitCount.get() == 0) {
+                    nodeNotEmpty.get(node).await();
+                }
+            }
+            finally {
+                nodeIdleRunners[node]--;
+                idleRunners.decrementAndGet();
+            }
+        }
+        finally {
+            idleLock.unlock();
+        }
+    }
+
+    private void signalIdleRunner(int node)
+    {
+        if (idleRunners.get() == 0) {
+            return;
+        }
+
+        idleLock.lock();
+        try {
+            // wake a runner of the home node, or any idle runner that can steal the split
+            int nodeCount = nodeRunnerQueues.size();
+            for (int i = 0; i < nodeCount; i++) {
+                int candidate = (node + i) % nodeCount;
+                if (nodeIdleRunners[candidate] > 0) {
+                    nodeNotEmpty.get(candidate).signal();
+                    return;
+                }
+            }
+        }
+        finally {
+            idleLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(PrioritizedSplitRunner split)
+    {
+        checkArgument(split != null, "split is null");
+        for (RunnerQueue runnerQueue : runnerQueues) {
+            int level = runnerQueue.remove(split);
+            if (level != -1) {
+                splitRemoved(level);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<PrioritizedSplitRunner> splits)
+    {
+        Set<PrioritizedSplitRunner> splitsToRemove = ImmutableSet.copyOf(splits);
+        for (RunnerQueue runnerQueue : runnerQueues) {
+            runnerQueue.removeAll(splitsToRemove, this::splitRemoved);
+        }
+    }
+
+    private void splitRemoved(int level)
+    {
+        levelWaitingSplitCounts.decrementAndGet(level);
+        waitingSplitCount.decrementAndGet();
+    }
+
+    @Override
+    public int size()
+    {
+        return waitingSplitCount.get();
+    }
+
+    private int getHomeNode(PrioritizedSplitRunner split)
+    {
+        return floorMod(split.getTaskHandle().getTaskId().hashCode(), nodeRunnerQueues.size());
+    }
+
+    private static int getNumaNodeCount()
+    {
+        File[] nodes = NUMA_NODES_DIRECTORY.listFiles((directory, name) -> name.matches("node\\d+"));
+        if (nodes == null || nodes.length == 0) {
+            return 1;
+        }
+        return nodes.length;
+    }
+
+    @Managed
+    public int getNumaNodes()
+    {
+        return nodeRunnerQueues.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStolenSplits()
+    {
+        return stolenSplits;
+    }
+
+    @ThreadSafe
+    private static class RunnerQueue
+    {
+        private final int node;
+        private final ReentrantLock lock = new ReentrantLock();
+        @GuardedBy("lock")
+        private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+        // read without the lock to skip the levels with no waiting splits
+        private final AtomicIntegerArray levelSizes = new AtomicIntegerArray(LEVEL_THRESHOLD_SECONDS.length);
+
+        public RunnerQueue(int node)
+        {
+            this.node = node;
+            ImmutableList.Builder<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits = ImmutableList.builder();
+            for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                levelWaitingSplits.add(new PriorityQueue<>());
+            }
+            this.levelWaitingSplits = levelWaitingSplits.build();
+        }
+
+        public int getNode()
+        {
+            return node;
+        }
+
+        public boolean hasWaitingSplits(int level)
+        {
+            return levelSizes.get(level) > 0;
+        }
+
+        public void add(int level, PrioritizedSplitRunner split)
+        {
+            lock.lock();
+            try {
+                levelWaitingSplits.get(level).offer(split);
+                levelSizes.incrementAndGet(level);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public PrioritizedSplitRunner poll(int level)
+        {
+            if (!hasWaitingSplits(level)) {
+                return null;
+            }
+            lock.lock();
+            try {
+                PrioritizedSplitRunner split = levelWaitingSplits.get(level).poll();
+                if (split != null) {
+                    levelSizes.decrementAndGet(level);
+                }
+                return split;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the level the split was removed from, or -1 if the split is not in this queue
+         */
+        public int remove(PrioritizedSplitRunner split)
+        {
+            lock.lock();
+            try {
+                for (int level = 0; level < levelWaitingSplits.size(); level++) {
+                    if (levelWaitingSplits.get(level).remove(split)) {
+                        levelSizes.decrementAndGet(level);
+                        return level;
+                    }
+                }
+                return -1;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public void removeAll(Set<PrioritizedSplitRunner> splits, IntConsumer onRemoved)
+        {
+            lock.lock();
+            try {
+                for (int level = 0; level < levelWaitingSplits.size(); level++) {
+                    Iterator<PrioritizedSplitRunner> iterator = levelWaitingSplits.get(level).iterator();
+                    while (iterator.hasNext()) {
+                        if (splits.contains(iterator.next())) {
+                            iterator.remove();
+                            levelSizes.decrementAndGet(level);
+                            onRemoved.accept(level);
+                        }
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package com.facebook.presto.execution.scheduler;
 
 import com.facebook.presto.execution.buffer.OutputBuffers;
+import com.facebook.presto.execution.buffer.OutputBuffers.BufferType;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -34,11 +35,17 @@ class BroadcastOutputBufferManager
     private final Consumer<OutputBuffers> outputBufferTarget;
 
     @GuardedBy("this")
-    private OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(BROADCAST);
+    private OutputBuffers outputBuffers;
 
     public BroadcastOutputBufferManager(Consumer<OutputBuffers> outputBufferTarget)
+    {
+        this(BROADCAST, outputBufferTarget);
+    }
+
+    public BroadcastOutputBufferManager(BufferType bufferType, Consumer<OutputBuffers> outputBufferTarget)
     {
         this.outputBufferTarget = requireNonNull(outputBufferTarget, "outputBufferTarget is null");
+        this.outputBuffers = createInitialEmptyOutputBuffers(requireNonNull(bufferType, "bufferType is null"));
         outputBufferTarget.accept(outputBuffers);
     }
 
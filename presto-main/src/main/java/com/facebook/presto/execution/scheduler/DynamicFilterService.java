@@ -0,0 +1,448 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
+import com.facebook.presto.operator.ForScheduler;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
+import com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher;
+import com.facebook.presto.sql.planner.plan.AbstractJoinNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.units.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static com.facebook.airlift.concurrent.MoreFutures.addTimeout;
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Collects the dynamic filters produced by the tasks of a stage, merges them once
+ * every task of the stage has reported them, and makes the merged filters available
+ * to the table scans of the other stages of the query: the domains to the split
+ * enumeration on the coordinator, and the domains and the Bloom filters to the
+ * running tasks of the consuming stages.
+ */
+@ThreadSafe
+public class DynamicFilterService
+{
+    private static final Logger log = Logger.get(DynamicFilterService.class);
+    private static final long COLLECTION_INTERVAL_MILLIS = 100;
+
+    private final ScheduledExecutorService executor;
+    private final Map<QueryId, QueryDynamicFilters> queries = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> collectionFuture;
+
+    @Inject
+    public DynamicFilterService(@ForScheduler ScheduledExecutorService executor)
+    {
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    @PostConstruct
+    public synchronized void start()
+    {
+        if (collectionFuture != null) {
+            return;
+        }
+        collectionFuture = executor.scheduleWithFixedDelay(() -> {
+            try {
+                collectDynamicFilters();
+            }
+            catch (Throwable e) {
+                log.error(e, "Error collecting dynamic filters");
+            }
+        }, COLLECTION_INTERVAL_MILLIS, COLLECTION_INTERVAL_MILLIS, MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop()
+    {
+        if (collectionFuture != null) {
+            collectionFuture.cancel(true);
+            collectionFuture = null;
+        }
+    }
+
+    /**
+     * Registers a stage that produces the specified dynamic filters.
+     *
+     * @param tasks the tasks of the stage
+     * @param noMoreTasks true once all the tasks of the stage have been created
+     * @param failed true if the stage failed or was canceled, in which case its dynamic filters are never completed
+     */
+    public void registerProducerStage(QueryId queryId, Set<String> dynamicFilterIds, Supplier<? extends Collection<RemoteTask>> tasks, BooleanSupplier noMoreTasks, BooleanSupplier failed)
+    {
+        checkArgument(!dynamicFilterIds.isEmpty(), "dynamicFilterIds is empty");
+        getQuery(queryId).addProducer(new ProducerStage(dynamicFilterIds, tasks, noMoreTasks, failed));
+    }
+
+    /**
+     * Registers a stage with table scans that consume the specified dynamic filters.
+     * The filters are sent to the tasks of the stage as soon as they are complete.
+     */
+    public void registerConsumerStage(QueryId queryId, Set<String> dynamicFilterIds, Supplier<? extends Collection<RemoteTask>> tasks)
+    {
+        checkArgument(!dynamicFilterIds.isEmpty(), "dynamicFilterIds is empty");
+        getQuery(queryId).addConsumer(new ConsumerStage(dynamicFilterIds, tasks));
+    }
+
+    /**
+     * Returns a future that completes when all the specified dynamic filters are complete, or the timeout elapses.
+     */
+    public ListenableFuture<?> getDynamicFiltersFuture(QueryId queryId, Set<String> dynamicFilterIds, Duration timeout)
+    {
+        QueryDynamicFilters query = getQuery(queryId);
+        ListenableFuture<List<DynamicFilterSummary>> future = nonCancellationPropagating(allAsList(dynamicFilterIds.stream()
+                .map(query::getFilterFuture)
+                .collect(toImmutableList())));
+        return addTimeout(future, () -> null, timeout, executor);
+    }
+
+    public Map<String, Domain> getCompletedDynamicFilters(QueryId queryId)
+    {
+        QueryDynamicFilters query = queries.get(queryId);
+        if (query == null) {
+            return ImmutableMap.of();
+        }
+        return query.getCompletedFilters().entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().getDomain()));
+    }
+
+    /**
+     * Creates a supplier of the predicate over the table scan columns, made of the dynamic filters completed so far.
+     */
+    public Supplier<TupleDomain<ColumnHandle>> createDynamicFilterSupplier(
+            QueryId queryId,
+            List<DynamicFilterPlaceholder> dynamicFilters,
+            Map<VariableReferenceExpression, ColumnHandle> assignments)
+    {
+        return () -> {
+            Map<String, Domain> completedFilters = getCompletedDynamicFilters(queryId);
+            TupleDomain<ColumnHandle> predicate = TupleDomain.all();
+            for (DynamicFilterPlaceholder placeholder : dynamicFilters) {
+                Domain domain = completedFilters.get(placeholder.getId());
+                if (domain == null) {
+                    continue;
+                }
+                ColumnHandle column = assignments.get((VariableReferenceExpression) placeholder.getInput());
+                predicate = predicate.intersect(TupleDomain.withColumnDomains(ImmutableMap.of(column, placeholder.applyComparison(domain))));
+            }
+            return predicate;
+        };
+    }
+
+    public void removeQuery(QueryId queryId)
+    {
+        queries.remove(queryId);
+    }
+
+    @VisibleForTesting
+    void collectDynamicFilters()
+    {
+        for (QueryDynamicFilters query : queries.values()) {
+            query.collect();
+        }
+    }
+
+    private QueryDynamicFilters getQuery(QueryId queryId)
+    {
+        return queries.computeIfAbsent(queryId, ignored -> new QueryDynamicFilters());
+    }
+
+    /**
+     * Returns the IDs of the dynamic filters produced by the joins of a plan fragment.
+     */
+    public static Set<String> getProducedDynamicFilterIds(PlanNode root)
+    {
+        return PlanNodeSearcher.searchFrom(root)
+                .where(AbstractJoinNode.class::isInstance)
+                .<AbstractJoinNode>findAll()
+                .stream()
+                .flatMap(node -> node.getDynamicFilters().keySet().stream())
+                .collect(toImmutableSet());
+    }
+
+    /**
+     * Returns the dynamic filters applied to the table scans of a plan fragment that are produced by other plan fragments.
+     */
+    public static List<DynamicFilterPlaceholder> getRemoteDynamicFilters(PlanNode root, FilterNode filterNode)
+    {
+        Set<String> producedDynamicFilterIds = getProducedDynamicFilterIds(root);
+        return extractDynamicFilters(filterNode.getPredicate()).getDynamicConjuncts().stream()
+                .filter(placeholder -> placeholder.getInput() instanceof VariableReferenceExpression)
+                .filter(placeholder -> !producedDynamicFilterIds.contains(placeholder.getId()))
+                .collect(toImmutableList());
+    }
+
+    /**
+     * Returns the IDs of the dynamic filters applied to the table scans of a plan fragment that are produced by other plan fragments.
+     */
+    public static Set<String> getConsumedRemoteDynamicFilterIds(PlanNode root)
+    {
+        return PlanNodeSearcher.searchFrom(root)
+                .where(node -> node instanceof FilterNode && ((FilterNode) node).getSource() instanceof TableScanNode)
+                .<FilterNode>findAll()
+                .stream()
+                .flatMap(filterNode -> getRemoteDynamicFilters(root, filterNode).stream())
+                .map(DynamicFilterPlaceholder::getId)
+                .collect(toImmutableSet());
+    }
+
+    private static class QueryDynamicFilters
+    {
+        private final Map<String, SettableFuture<DynamicFilterSummary>> filters = new ConcurrentHashMap<>();
+        private final List<ProducerStage> producers = new CopyOnWriteArrayList<>();
+        private final List<ConsumerStage> consumers = new CopyOnWriteArrayList<>();
+
+        public void addProducer(ProducerStage producer)
+        {
+            producers.add(producer);
+        }
+
+        public void addConsumer(ConsumerStage consumer)
+        {
+            consumers.add(consumer);
+        }
+
+        public SettableFuture<DynamicFilterSummary> getFilterFuture(String dynamicFilterId)
+        {
+            return filters.computeIfAbsent(dynamicFilterId, ignored -> SettableFuture.create());
+        }
+
+        public Map<String, DynamicFilterSummary> getCompletedFilters()
+        {
+            ImmutableMap.Builder<String, DynamicFilterSummary> completedFilters = ImmutableMap.builder();
+            for (Map.Entry<String, SettableFuture<DynamicFilterSummary>> entry : filters.entrySet()) {
+                SettableFuture<DynamicFilterSummary> future = entry.getValue();
+                if (future.isDone() && !future.isCancelled()) {
+                    completedFilters.put(entry.getKey(), getFutureValue(future));
+                }
+            }
+            return completedFilters.build();
+        }
+
+        public void collect()
+        {
+            for (ProducerStage producer : producers) {
+                if (producer.isDone()) {
+                    continue;
+                }
+                producer.collect().ifPresent(summaries -> summaries.forEach((dynamicFilterId, summary) -> getFilterFuture(dynamicFilterId).set(summary)));
+            }
+
+            Map<String, DynamicFilterSummary> completedFilters = getCompletedFilters();
+            if (!completedFilters.isEmpty()) {
+                for (ConsumerStage consumer : consumers) {
+                    consumer.sendDynamicFilters(completedFilters);
+                }
+            }
+        }
+    }
+
+    private static class ProducerStage
+    {
+        private final Set<String> dynamicFilterIds;
+        private final Supplier<? extends Collection<RemoteTask>> tasks;
+        private final BooleanSupplier noMoreTasks;
+        private final BooleanSupplier failed;
+
+        @GuardedBy("this")
+        private final Map<TaskId, Map<String, DynamicFilterSummary>> taskFilters = new HashMap<>();
+        @GuardedBy("this")
+        private final Set<TaskId> pendingRequests = new HashSet<>();
+        @GuardedBy("this")
+        private boolean done;
+
+        public ProducerStage(Set<String> dynamicFilterIds, Supplier<? extends Collection<RemoteTask>> tasks, BooleanSupplier noMoreTasks, BooleanSupplier failed)
+        {
+            this.dynamicFilterIds = ImmutableSet.copyOf(requireNonNull(dynamicFilterIds, "dynamicFilterIds is null"));
+            this.tasks = requireNonNull(tasks, "tasks is null");
+            this.noMoreTasks = requireNonNull(noMoreTasks, "noMoreTasks is null");
+            this.failed = requireNonNull(failed, "failed is null");
+        }
+
+        public synchronized boolean isDone()
+        {
+            return done;
+        }
+
+        /**
+         * Requests the dynamic filters from the tasks that did not report them yet, and
+         * returns the merged filters once every task of the stage has reported them.
+         */
+        public synchronized Optional<Map<String, DynamicFilterSummary>> collect()
+        {
+            if (done) {
+                return Optional.empty();
+            }
+            if (failed.getAsBoolean()) {
+                done = true;
+                return Optional.empty();
+            }
+
+            // read the flag before the tasks, so that no task created in between is missed
+            boolean allTasksCreated = noMoreTasks.getAsBoolean();
+            Collection<RemoteTask> currentTasks = tasks.get();
+            boolean allTasksReported = true;
+            for (RemoteTask task : currentTasks) {
+                TaskId taskId = task.getTaskId();
+                if (taskFilters.containsKey(taskId)) {
+                    continue;
+                }
+                if (pendingRequests.add(taskId)) {
+                    addCallback(task.getDynamicFilters(), new FutureCallback<Map<String, DynamicFilterSummary>>()
+                    {
+                        @Override
+                        public void onSuccess(Map<String, DynamicFilterSummary> summaries)
+                        {
+                            taskReported(taskId, summaries);
+                        }
+
+                        @Override
+                        public void onFailure(Throwable t)
+                        {
+                            // the request is retried on the next collection
+                            taskReported(taskId, ImmutableMap.of());
+                        }
+                    }, directExecutor());
+                }
+                // the response may already be available
+                allTasksReported &= taskFilters.containsKey(taskId);
+            }
+
+            if (!allTasksCreated || !allTasksReported || currentTasks.isEmpty()) {
+                return Optional.empty();
+            }
+
+            done = true;
+            ImmutableMap.Builder<String, DynamicFilterSummary> result = ImmutableMap.builder();
+            for (String dynamicFilterId : dynamicFilterIds) {
+                result.put(dynamicFilterId, DynamicFilterSummary.union(taskFilters.values().stream()
+                        .map(summaries -> summaries.get(dynamicFilterId))
+                        .collect(toImmutableList())));
+            }
+            return Optional.of(result.build());
+        }
+
+        private synchronized void taskReported(TaskId taskId, Map<String, DynamicFilterSummary> summaries)
+        {
+            pendingRequests.remove(taskId);
+            if (summaries.keySet().containsAll(dynamicFilterIds)) {
+                taskFilters.put(taskId, summaries);
+            }
+        }
+    }
+
+    private static class ConsumerStage
+    {
+        private final Set<String> dynamicFilterIds;
+        private final Supplier<? extends Collection<RemoteTask>> tasks;
+
+        @GuardedBy("this")
+        private final Map<TaskId, Set<String>> sentFilters = new HashMap<>();
+        @GuardedBy("this")
+        private final Set<TaskId> pendingRequests = new HashSet<>();
+
+        public ConsumerStage(Set<String> dynamicFilterIds, Supplier<? extends Collection<RemoteTask>> tasks)
+        {
+            this.dynamicFilterIds = ImmutableSet.copyOf(requireNonNull(dynamicFilterIds, "dynamicFilterIds is null"));
+            this.tasks = requireNonNull(tasks, "tasks is null");
+        }
+
+        public synchronized void sendDynamicFilters(Map<String, DynamicFilterSummary> completedFilters)
+        {
+            for (RemoteTask task : tasks.get()) {
+                TaskId taskId = task.getTaskId();
+                if (pendingRequests.contains(taskId) || task.getTaskStatus().getState().isDone()) {
+                    continue;
+                }
+                Set<String> sent = sentFilters.computeIfAbsent(taskId, ignored -> new HashSet<>());
+                Map<String, DynamicFilterSummary> newFilters = completedFilters.entrySet().stream()
+                        .filter(entry -> dynamicFilterIds.contains(entry.getKey()) && !sent.contains(entry.getKey()))
+                        .collect(toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+                if (newFilters.isEmpty()) {
+                    continue;
+                }
+                pendingRequests.add(taskId);
+                addCallback(task.addDynamicFilters(newFilters), new FutureCallback<Object>()
+                {
+                    @Override
+                    public void onSuccess(Object result)
+                    {
+                        filtersSent(taskId, newFilters.keySet());
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t)
+                    {
+                        // the filters are sent again on the next collection
+                        filtersSent(taskId, ImmutableSet.of());
+                    }
+                }, directExecutor());
+            }
+        }
+
+        private synchronized void filtersSent(TaskId taskId, Set<String> dynamicFilterIds)
+        {
+            pendingRequests.remove(taskId);
+            sentFilters.get(taskId).addAll(dynamicFilterIds);
+        }
+    }
+}
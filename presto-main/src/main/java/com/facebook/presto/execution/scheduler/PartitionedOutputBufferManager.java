@@ -14,6 +14,7 @@
 package com.facebook.presto.execution.scheduler;
 
 import com.facebook.presto.execution.buffer.OutputBuffers;
+import com.facebook.presto.execution.buffer.OutputBuffers.BufferType;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.sql.planner.PartitioningHandle;
 import com.google.common.collect.ImmutableMap;
@@ -35,6 +36,11 @@ public class PartitionedOutputBufferManager
     private final Map<OutputBufferId, Integer> outputBuffers;
 
     public PartitionedOutputBufferManager(PartitioningHandle partitioningHandle, int partitionCount, Consumer<OutputBuffers> outputBufferTarget)
+    {
+        this(createInitialEmptyOutputBuffers(requireNonNull(partitioningHandle, "partitioningHandle is null")).getType(), partitionCount, outputBufferTarget);
+    }
+
+    public PartitionedOutputBufferManager(BufferType bufferType, int partitionCount, Consumer<OutputBuffers> outputBufferTarget)
     {
         checkArgument(partitionCount >= 1, "partitionCount must be at least 1");
 
@@ -43,7 +49,7 @@ public class PartitionedOutputBufferManager
             partitions.put(new OutputBufferId(partition), partition);
         }
 
-        OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(requireNonNull(partitioningHandle, "partitioningHandle is null"))
+        OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(requireNonNull(bufferType, "bufferType is null"))
                 .withBuffers(partitions.build())
                 .withNoMoreBufferIds();
         outputBufferTarget.accept(outputBuffers);
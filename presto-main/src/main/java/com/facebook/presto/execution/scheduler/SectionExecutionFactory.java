@@ -23,7 +23,9 @@ import com.facebook.presto.execution.SqlStageExecution;
 import com.facebook.presto.execution.StageExecutionId;
 import com.facebook.presto.execution.StageExecutionState;
 import com.facebook.presto.execution.StageId;
+import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.execution.buffer.BufferState;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.scheduler.nodeSelection.NodeSelector;
 import com.facebook.presto.failureDetector.FailureDetector;
@@ -31,6 +33,7 @@ import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
 import com.facebook.presto.spi.plan.PlanNode;
 import com.facebook.presto.spi.plan.PlanNodeId;
@@ -39,10 +42,13 @@ import com.facebook.presto.split.SplitSource;
 import com.facebook.presto.sql.planner.NodePartitionMap;
 import com.facebook.presto.sql.planner.NodePartitioningManager;
 import com.facebook.presto.sql.planner.PartitioningHandle;
+import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.SplitSourceFactory;
 import com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher;
 import com.facebook.presto.sql.planner.plan.PlanFragmentId;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.facebook.presto.sql.planner.plan.TableFinishNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -59,6 +65,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -66,11 +73,20 @@ import java.util.function.Supplier;
 import static com.facebook.presto.SystemSessionProperties.getConcurrentLifespansPerNode;
 import static com.facebook.presto.SystemSessionProperties.getMaxTasksPerStage;
 import static com.facebook.presto.SystemSessionProperties.getWriterMinSize;
+import static com.facebook.presto.SystemSessionProperties.isEnableDistributedDynamicFiltering;
 import static com.facebook.presto.SystemSessionProperties.isOptimizedScaleWriterProducerBuffer;
+import static com.facebook.presto.SystemSessionProperties.isPersistentExchangeEnabled;
 import static com.facebook.presto.execution.SqlStageExecution.createSqlStageExecution;
+import static com.facebook.presto.execution.StageExecutionState.FINISHED;
+import static com.facebook.presto.execution.StageExecutionState.PLANNED;
+import static com.facebook.presto.execution.StageExecutionState.SCHEDULING;
+import static com.facebook.presto.execution.scheduler.DynamicFilterService.getConsumedRemoteDynamicFilterIds;
+import static com.facebook.presto.execution.scheduler.DynamicFilterService.getProducedDynamicFilterIds;
 import static com.facebook.presto.execution.scheduler.SourcePartitionedScheduler.newSourcePartitionedSchedulerAsStageScheduler;
+import static com.facebook.presto.execution.scheduler.StageLinkage.isPersistentExchangeSupported;
 import static com.facebook.presto.execution.scheduler.TableWriteInfo.createTableWriteInfo;
 import static com.facebook.presto.spi.ConnectorId.isInternalSystemConnector;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_RECOVERY_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
@@ -81,10 +97,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.collect.MoreCollectors.onlyElement;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -100,6 +119,7 @@ public class SectionExecutionFactory
     private final SplitSchedulerStats schedulerStats;
     private final NodeScheduler nodeScheduler;
     private final int splitBatchSize;
+    private final DynamicFilterService dynamicFilterService;
 
     @Inject
     public SectionExecutionFactory(
@@ -111,7 +131,8 @@ public class SectionExecutionFactory
             FailureDetector failureDetector,
             SplitSchedulerStats schedulerStats,
             NodeScheduler nodeScheduler,
-            QueryManagerConfig queryManagerConfig)
+            QueryManagerConfig queryManagerConfig,
+            DynamicFilterService dynamicFilterService)
     {
         this(
                 metadata,
@@ -122,7 +143,8 @@ public class SectionExecutionFactory
                 failureDetector,
                 schedulerStats,
                 nodeScheduler,
-                requireNonNull(queryManagerConfig, "queryManagerConfig is null").getScheduleSplitBatchSize());
+                requireNonNull(queryManagerConfig, "queryManagerConfig is null").getScheduleSplitBatchSize(),
+                dynamicFilterService);
     }
 
     public SectionExecutionFactory(
@@ -134,7 +156,8 @@ public class SectionExecutionFactory
             FailureDetector failureDetector,
             SplitSchedulerStats schedulerStats,
             NodeScheduler nodeScheduler,
-            int splitBatchSize)
+            int splitBatchSize,
+            DynamicFilterService dynamicFilterService)
     {
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.nodePartitioningManager = requireNonNull(nodePartitioningManager, "nodePartitioningManager is null");
@@ -145,6 +168,7 @@ public class SectionExecutionFactory
         this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
         this.nodeScheduler = requireNonNull(nodeScheduler, "nodeScheduler is null");
         this.splitBatchSize = splitBatchSize;
+        this.dynamicFilterService = requireNonNull(dynamicFilterService, "dynamicFilterService is null");
     }
 
     /**
@@ -210,6 +234,9 @@ public class SectionExecutionFactory
                 failureDetector,
                 schedulerStats,
                 tableWriteInfo);
+        if (isEnableDistributedDynamicFiltering(session)) {
+            registerDynamicFilters(session, plan.getFragment(), stageExecution);
+        }
 
         PartitioningHandle partitioningHandle = plan.getFragment().getPartitioning();
         List<RemoteSourceNode> remoteSourceNodes = plan.getFragment().getRemoteSourceNodes();
@@ -239,7 +266,18 @@ public class SectionExecutionFactory
             }
         });
 
-        StageLinkage stageLinkage = new StageLinkage(fragmentId, parent, childStageExecutions);
+        boolean persistentExchange = isPersistentExchangeEnabled(session);
+        boolean retriedTasks = persistentExchange && isTaskRetrySupported(plan, parentStageExecution, childStageExecutions);
+        if (retriedTasks) {
+            // the exchange locations of the parent stage are only complete once the retried tasks finished
+            stageExecution.addStateChangeListener(newState -> {
+                if (newState == FINISHED) {
+                    parent.addExchangeLocations(fragmentId, ImmutableSet.of(), true);
+                }
+            });
+        }
+
+        StageLinkage stageLinkage = new StageLinkage(fragmentId, parent, childStageExecutions, persistentExchange, retriedTasks);
         StageScheduler stageScheduler = createStageScheduler(
                 splitSourceFactory,
                 session,
@@ -250,7 +288,8 @@ public class SectionExecutionFactory
                 stageExecution,
                 partitioningHandle,
                 tableWriteInfo,
-                childStageExecutions);
+                childStageExecutions,
+                retriedTasks);
         stageExecutionAndSchedulers.add(new StageExecutionAndScheduler(
                 stageExecution,
                 stageLinkage,
@@ -259,6 +298,23 @@ public class SectionExecutionFactory
         return stageExecutionAndSchedulers.build();
     }
 
+    private void registerDynamicFilters(Session session, PlanFragment fragment, SqlStageExecution stageExecution)
+    {
+        Set<String> producedDynamicFilterIds = getProducedDynamicFilterIds(fragment.getRoot());
+        if (!producedDynamicFilterIds.isEmpty()) {
+            dynamicFilterService.registerProducerStage(
+                    session.getQueryId(),
+                    producedDynamicFilterIds,
+                    stageExecution::getAllTasks,
+                    () -> stageExecution.getState() != PLANNED && stageExecution.getState() != SCHEDULING,
+                    () -> stageExecution.getState().isDone() && stageExecution.getState() != FINISHED);
+        }
+        Set<String> consumedDynamicFilterIds = getConsumedRemoteDynamicFilterIds(fragment.getRoot());
+        if (!consumedDynamicFilterIds.isEmpty()) {
+            dynamicFilterService.registerConsumerStage(session.getQueryId(), consumedDynamicFilterIds, stageExecution::getAllTasks);
+        }
+    }
+
     private StageScheduler createStageScheduler(
             SplitSourceFactory splitSourceFactory,
             Session session,
@@ -269,7 +325,8 @@ public class SectionExecutionFactory
             SqlStageExecution stageExecution,
             PartitioningHandle partitioningHandle,
             TableWriteInfo tableWriteInfo,
-            Set<SqlStageExecution> childStageExecutions)
+            Set<SqlStageExecution> childStageExecutions,
+            boolean retriedTasks)
     {
         Map<PlanNodeId, SplitSource> splitSources = splitSourceFactory.createSplitSources(plan.getFragment(), session, tableWriteInfo);
         int maxTasksPerStage = getMaxTasksPerStage(session);
@@ -287,6 +344,11 @@ public class SectionExecutionFactory
             SplitPlacementPolicy placementPolicy = new DynamicSplitPlacementPolicy(nodeSelector, stageExecution::getAllTasks);
 
             checkArgument(!plan.getFragment().getStageExecutionDescriptor().isStageGroupedExecution());
+            if (retriedTasks) {
+                // a failed task is retried with the splits that were scheduled on it
+                stageExecution.retainTaskSplits();
+                registerTaskRetry(stageExecution, parentStageExecution.get(), nodeSelector, stageExecution::retrySourceTask);
+            }
             return newSourcePartitionedSchedulerAsStageScheduler(stageExecution, planNodeId, splitSource, placementPolicy, splitBatchSize);
         }
         else if (partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION)) {
@@ -389,11 +451,78 @@ public class SectionExecutionFactory
                 List<InternalNode> partitionToNode = nodePartitionMap.getPartitionToNode();
                 // todo this should asynchronously wait a standard timeout period before failing
                 checkCondition(!partitionToNode.isEmpty(), NO_NODES_AVAILABLE, "No worker nodes available");
+                if (retriedTasks) {
+                    registerTaskRetry(
+                            stageExecution,
+                            parentStageExecution.get(),
+                            nodeScheduler.createNodeSelector(session, null),
+                            (taskId, node) -> stageExecution.retryTask(taskId, node, partitionToNode.size()));
+                }
                 return new FixedCountScheduler(stageExecution, partitionToNode);
             }
         }
     }
 
+    /**
+     * Retries a failed task of the stage on another node, and replaces the exchange location of the
+     * failed task in the parent stage by the location of the new task.
+     */
+    private static void registerTaskRetry(
+            SqlStageExecution stageExecution,
+            SqlStageExecution parentStageExecution,
+            NodeSelector nodeSelector,
+            BiFunction<TaskId, InternalNode, RemoteTask> retry)
+    {
+        StageId stageId = stageExecution.getStageExecutionId().getStageId();
+        PlanFragmentId fragmentId = stageExecution.getFragment().getId();
+        stageExecution.registerStageTaskRecoveryCallback(taskId -> {
+            checkArgument(taskId.getStageExecutionId().getStageId().equals(stageId), "The task did not execute this stage");
+            RemoteTask failedTask = stageExecution.getAllTasks().stream()
+                    .filter(task -> task.getTaskId().equals(taskId))
+                    .collect(onlyElement());
+
+            // The output of a task is published once it is complete, so it is only safe to retry the
+            // task if it failed before. The last known state of the buffer may be stale, but the
+            // buffer is only readable after it is flushing.
+            BufferState bufferState = failedTask.getTaskInfo().getOutputBuffers().getState();
+            if (bufferState == BufferState.FLUSHING || bufferState == BufferState.FINISHED) {
+                throw new PrestoException(GENERIC_RECOVERY_ERROR, format("Output of task %s may have been read", taskId));
+            }
+
+            Set<InternalNode> failedNodes = stageExecution.getScheduledNodes().stream()
+                    .filter(node -> node.getNodeIdentifier().equals(failedTask.getNodeId()))
+                    .collect(toImmutableSet());
+            List<InternalNode> nodes = nodeSelector.selectRandomNodes(1, failedNodes);
+            checkCondition(!nodes.isEmpty(), NO_NODES_AVAILABLE, "No worker nodes available to retry task %s", taskId);
+
+            RemoteTask task = retry.apply(taskId, getOnlyElement(nodes));
+            parentStageExecution.replaceExchangeLocation(fragmentId, taskId, task);
+        });
+    }
+
+    /**
+     * The failed tasks of a stage are retried if the stage only reads from a persistent exchange,
+     * and writes to a persistent exchange that publishes the output of a task once it is complete.
+     * A stage that scans tables is only retried when its splits are distributed to the tasks dynamically,
+     * so that a failed task can be retried with its splits. Tasks that write to tables or run on the
+     * coordinator are not retried.
+     */
+    private static boolean isTaskRetrySupported(StreamingSubPlan plan, Optional<SqlStageExecution> parentStageExecution, Set<SqlStageExecution> childStageExecutions)
+    {
+        PlanFragment fragment = plan.getFragment();
+        return parentStageExecution.isPresent() &&
+                isPersistentExchangeSupported(fragment.getPartitioningScheme().getPartitioning().getHandle()) &&
+                childStageExecutions.stream()
+                        .map(childStage -> childStage.getFragment().getPartitioningScheme().getPartitioning().getHandle())
+                        .allMatch(StageLinkage::isPersistentExchangeSupported) &&
+                (fragment.getTableScanSchedulingOrder().isEmpty() || fragment.getPartitioning().equals(SOURCE_DISTRIBUTION)) &&
+                !fragment.getPartitioning().isCoordinatorOnly() &&
+                !fragment.getPartitioning().equals(SCALED_WRITER_DISTRIBUTION) &&
+                !PlanNodeSearcher.searchFrom(fragment.getRoot())
+                        .where(node -> node instanceof TableWriterNode || node instanceof TableFinishNode)
+                        .matches();
+    }
+
     private static Optional<int[]> getBucketToPartition(
             PartitioningHandle partitioningHandle,
             Function<PartitioningHandle, NodePartitionMap> partitioningCache,
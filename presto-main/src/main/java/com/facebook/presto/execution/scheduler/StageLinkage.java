@@ -24,6 +24,9 @@ import com.google.common.primitives.Ints;
 import java.util.List;
 import java.util.Set;
 
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.BROADCAST;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PERSISTENT;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -34,20 +37,37 @@ public class StageLinkage
     private final PlanFragmentId currentStageFragmentId;
     private final ExchangeLocationsConsumer parent;
     private final Set<OutputBufferManager> childOutputBufferManagers;
+    private final boolean retriedTasks;
 
     public StageLinkage(PlanFragmentId fragmentId, ExchangeLocationsConsumer parent, Set<SqlStageExecution> children)
+    {
+        this(fragmentId, parent, children, false, false);
+    }
+
+    /**
+     * @param persistentExchange whether the child stages write their output to a persistent exchange when they can
+     * @param retriedTasks whether the failed tasks of this stage are retried, in which case the parent stage
+     * only gets the last exchange location once this stage finished
+     */
+    public StageLinkage(PlanFragmentId fragmentId, ExchangeLocationsConsumer parent, Set<SqlStageExecution> children, boolean persistentExchange, boolean retriedTasks)
     {
         this.currentStageFragmentId = fragmentId;
         this.parent = parent;
+        this.retriedTasks = retriedTasks;
         this.childOutputBufferManagers = children.stream()
                 .map(childStage -> {
                     PartitioningHandle partitioningHandle = childStage.getFragment().getPartitioningScheme().getPartitioning().getHandle();
+                    boolean persistent = persistentExchange && isPersistentExchangeSupported(partitioningHandle);
                     if (partitioningHandle.equals(FIXED_BROADCAST_DISTRIBUTION)) {
-                        return new BroadcastOutputBufferManager(childStage::setOutputBuffers);
+                        return new BroadcastOutputBufferManager(persistent ? PERSISTENT : BROADCAST, childStage::setOutputBuffers);
                     }
                     else if (partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION)) {
                         return new ScaledOutputBufferManager(childStage::setOutputBuffers);
                     }
+                    else if (persistent) {
+                        int partitionCount = Ints.max(childStage.getFragment().getPartitioningScheme().getBucketToPartition().get()) + 1;
+                        return new PartitionedOutputBufferManager(PERSISTENT, partitionCount, childStage::setOutputBuffers);
+                    }
                     else {
                         int partitionCount = Ints.max(childStage.getFragment().getPartitioningScheme().getBucketToPartition().get()) + 1;
                         return new PartitionedOutputBufferManager(partitioningHandle, partitionCount, childStage::setOutputBuffers);
@@ -56,6 +76,15 @@ public class StageLinkage
                 .collect(toImmutableSet());
     }
 
+    /**
+     * The pages of an arbitrary distribution go to whichever consumer asks first, so they
+     * cannot be read again by a retried consumer.
+     */
+    public static boolean isPersistentExchangeSupported(PartitioningHandle partitioningHandle)
+    {
+        return !partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION) && !partitioningHandle.equals(FIXED_ARBITRARY_DISTRIBUTION);
+    }
+
     public void processScheduleResults(StageExecutionState newState, Set<RemoteTask> newTasks)
     {
         boolean noMoreTasks = false;
@@ -80,8 +109,9 @@ public class StageLinkage
                 break;
         }
 
-        // Add an exchange location to the parent stage for each new task
-        parent.addExchangeLocations(currentStageFragmentId, newTasks, noMoreTasks);
+        // Add an exchange location to the parent stage for each new task.
+        // A failed task is replaced by a new one, so the locations are only complete once the stage is done.
+        parent.addExchangeLocations(currentStageFragmentId, newTasks, noMoreTasks && (!retriedTasks || newState.isDone()));
 
         if (!childOutputBufferManagers.isEmpty()) {
             // Add an output buffer to the child stages for each new task
@@ -86,6 +86,11 @@ public class ChannelSet
         private final LocalMemoryContext localMemoryContext;
 
         public ChannelSetBuilder(Type type, Optional<Integer> hashChannel, int expectedPositions, OperatorContext operatorContext, JoinCompiler joinCompiler)
+        {
+            this(type, hashChannel, expectedPositions, operatorContext, joinCompiler, operatorContext.localUserMemoryContext());
+        }
+
+        public ChannelSetBuilder(Type type, Optional<Integer> hashChannel, int expectedPositions, OperatorContext operatorContext, JoinCompiler joinCompiler, LocalMemoryContext localMemoryContext)
         {
             List<Type> types = ImmutableList.of(type);
             this.hash = createGroupByHash(
@@ -98,12 +103,22 @@ public class ChannelSet
                     this::updateMemoryReservation);
             this.nullBlockPage = new Page(type.createBlockBuilder(null, 1, UNKNOWN.getFixedSize()).appendNull().build());
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
-            this.localMemoryContext = operatorContext.localUserMemoryContext();
+            this.localMemoryContext = requireNonNull(localMemoryContext, "localMemoryContext is null");
         }
 
         public ChannelSet build()
         {
-            return new ChannelSet(hash, hash.contains(0, nullBlockPage, HASH_CHANNELS), HASH_CHANNELS);
+            return new ChannelSet(hash, containsNull(), HASH_CHANNELS);
+        }
+
+        public boolean containsNull()
+        {
+            return hash.contains(0, nullBlockPage, HASH_CHANNELS);
+        }
+
+        GroupByHash getGroupByHash()
+        {
+            return hash;
         }
 
         public long getEstimatedSize()
@@ -17,9 +17,11 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.aggregation.TypedSet;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
@@ -28,8 +30,12 @@ import io.airlift.units.DataSize;
 
 import javax.annotation.Nullable;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static com.facebook.presto.common.predicate.Range.range;
@@ -46,12 +52,14 @@ import static java.util.stream.Collectors.toSet;
  * This operator acts as a simple "pass-through" pipe, while saving its input pages.
  * The collected pages' value are used for creating a run-time filtering constraint (for probe-side table scan in an inner join).
  * We record all values for the run-time filter only for small build-side pages (which should be the case when using "broadcast" join).
- * For large inputs on build side, we can optionally record the min and max values per channel for orderable types (except Double and Real).
+ * For large inputs on build side, we can optionally record the min and max values per channel for orderable types (except Double and Real),
+ * and a Bloom filter of the values per channel for the types supported by {@link SplitBlockBloomFilter}.
  */
 public class DynamicFilterSourceOperator
         implements Operator
 {
     private static final int EXPECTED_BLOCK_BUILDER_SIZE = 8;
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
 
     public static class Channel
     {
@@ -92,6 +100,8 @@ public class DynamicFilterSourceOperator
         private final int maxFilterPositionsCount;
         private final DataSize maxFilterSize;
         private final int minMaxCollectionLimit;
+        private final BiConsumer<TupleDomain<String>, Map<String, SplitBlockBloomFilter>> bloomFilterConsumer;
+        private final int bloomFilterCollectionLimit;
 
         private boolean closed;
 
@@ -103,6 +113,24 @@ public class DynamicFilterSourceOperator
                 int maxFilterPositionsCount,
                 DataSize maxFilterSize,
                 int minMaxCollectionLimit)
+        {
+            this(operatorId, planNodeId, dynamicPredicateConsumer, channels, maxFilterPositionsCount, maxFilterSize, minMaxCollectionLimit, (predicate, bloomFilters) -> dynamicPredicateConsumer.accept(predicate), 0);
+        }
+
+        /**
+         * @param bloomFilterConsumer notified, instead of the dynamicPredicateConsumer, with the predicate and the Bloom filters
+         * of a driver whose exact predicate became too large
+         */
+        public DynamicFilterSourceOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+                List<Channel> channels,
+                int maxFilterPositionsCount,
+                DataSize maxFilterSize,
+                int minMaxCollectionLimit,
+                BiConsumer<TupleDomain<String>, Map<String, SplitBlockBloomFilter>> bloomFilterConsumer,
+                int bloomFilterCollectionLimit)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -117,6 +145,8 @@ public class DynamicFilterSourceOperator
             this.maxFilterPositionsCount = maxFilterPositionsCount;
             this.maxFilterSize = maxFilterSize;
             this.minMaxCollectionLimit = minMaxCollectionLimit;
+            this.bloomFilterConsumer = requireNonNull(bloomFilterConsumer, "bloomFilterConsumer is null");
+            this.bloomFilterCollectionLimit = bloomFilterCollectionLimit;
         }
 
         @Override
@@ -130,7 +160,9 @@ public class DynamicFilterSourceOperator
                     planNodeId,
                     maxFilterPositionsCount,
                     maxFilterSize,
-                    minMaxCollectionLimit);
+                    minMaxCollectionLimit,
+                    bloomFilterConsumer,
+                    bloomFilterCollectionLimit);
         }
 
         @Override
@@ -153,6 +185,8 @@ public class DynamicFilterSourceOperator
     private final long maxFilterSizeInBytes;
     private final List<Channel> channels;
     private final List<Integer> minMaxChannels;
+    private final BiConsumer<TupleDomain<String>, Map<String, SplitBlockBloomFilter>> bloomFilterConsumer;
+    private final LocalMemoryContext bloomFilterMemoryContext;
 
     private boolean finished;
     private Page current;
@@ -169,6 +203,12 @@ public class DynamicFilterSourceOperator
     @Nullable
     private Block[] maxValues;
 
+    private final int bloomFilterRowLimit;
+    private int bloomFilterCollectionLimit;
+    // Created once the exact predicate becomes too large. Contains null for the channels of unsupported types.
+    @Nullable
+    private SplitBlockBloomFilter[] bloomFilters;
+
     private DynamicFilterSourceOperator(
             OperatorContext context,
             Consumer<TupleDomain<String>> dynamicPredicateConsumer,
@@ -176,7 +216,9 @@ public class DynamicFilterSourceOperator
             PlanNodeId planNodeId,
             int maxFilterPositionsCount,
             DataSize maxFilterSize,
-            int minMaxCollectionLimit)
+            int minMaxCollectionLimit,
+            BiConsumer<TupleDomain<String>, Map<String, SplitBlockBloomFilter>> bloomFilterConsumer,
+            int bloomFilterCollectionLimit)
     {
         this.context = requireNonNull(context, "context is null");
         this.maxFilterPositionsCount = maxFilterPositionsCount;
@@ -208,6 +250,10 @@ public class DynamicFilterSourceOperator
             minValues = new Block[channels.size()];
             maxValues = new Block[channels.size()];
         }
+        this.bloomFilterConsumer = requireNonNull(bloomFilterConsumer, "bloomFilterConsumer is null");
+        this.bloomFilterRowLimit = bloomFilterCollectionLimit;
+        this.bloomFilterCollectionLimit = bloomFilterCollectionLimit;
+        this.bloomFilterMemoryContext = context.localUserMemoryContext();
     }
 
     @Override
@@ -229,6 +275,15 @@ public class DynamicFilterSourceOperator
         current = page;
         if (valueSets == null) {
             // the exact predicate became too large.
+            if (bloomFilters != null) {
+                bloomFilterCollectionLimit -= page.getPositionCount();
+                if (bloomFilterCollectionLimit < 0) {
+                    handleBloomFilterCollectionLimitExceeded();
+                }
+                else {
+                    updateBloomFilters(page);
+                }
+            }
             if (minValues == null) {
                 // there are too many rows to collect min/max range
                 return;
@@ -246,6 +301,7 @@ public class DynamicFilterSourceOperator
             return;
         }
         minMaxCollectionLimit -= page.getPositionCount();
+        bloomFilterCollectionLimit -= page.getPositionCount();
         // TODO: we should account for the memory used for collecting build-side values using MemoryContext
         long filterSizeInBytes = 0;
         int filterPositionsCount = 0;
@@ -268,9 +324,14 @@ public class DynamicFilterSourceOperator
     private void handleTooLargePredicate()
     {
         // The resulting predicate is too large
+        if (bloomFilterRowLimit > 0 && bloomFilterCollectionLimit >= 0) {
+            createBloomFilters();
+        }
         if (minMaxChannels.isEmpty()) {
-            // allow all probe-side values to be read.
-            dynamicPredicateConsumer.accept(TupleDomain.all());
+            if (bloomFilters == null) {
+                // allow all probe-side values to be read.
+                dynamicPredicateConsumer.accept(TupleDomain.all());
+            }
         }
         else {
             if (minMaxCollectionLimit < 0) {
@@ -292,13 +353,68 @@ public class DynamicFilterSourceOperator
 
     private void handleMinMaxCollectionLimitExceeded()
     {
-        // allow all probe-side values to be read.
-        dynamicPredicateConsumer.accept(TupleDomain.all());
+        if (bloomFilters == null) {
+            // allow all probe-side values to be read.
+            dynamicPredicateConsumer.accept(TupleDomain.all());
+        }
         // Drop references to collected values.
         minValues = null;
         maxValues = null;
     }
 
+    private void createBloomFilters()
+    {
+        SplitBlockBloomFilter[] filters = new SplitBlockBloomFilter[channels.size()];
+        boolean supported = false;
+        for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+            Type type = channels.get(channelIndex).getType();
+            if (!SplitBlockBloomFilter.isSupportedType(type)) {
+                continue;
+            }
+            supported = true;
+            // all the drivers size the filters the same, so that they can be merged
+            filters[channelIndex] = SplitBlockBloomFilter.create(bloomFilterRowLimit, BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY);
+            insertValues(filters[channelIndex], type, blockBuilders[channelIndex].build());
+        }
+        if (supported) {
+            bloomFilters = filters;
+            bloomFilterMemoryContext.setBytes(Arrays.stream(filters)
+                    .filter(Objects::nonNull)
+                    .mapToLong(SplitBlockBloomFilter::getRetainedSizeInBytes)
+                    .sum());
+        }
+    }
+
+    private void updateBloomFilters(Page page)
+    {
+        checkState(bloomFilters != null);
+        for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+            if (bloomFilters[channelIndex] != null) {
+                insertValues(bloomFilters[channelIndex], channels.get(channelIndex).getType(), page.getBlock(channels.get(channelIndex).getIndex()));
+            }
+        }
+    }
+
+    private static void insertValues(SplitBlockBloomFilter bloomFilter, Type type, Block block)
+    {
+        for (int position = 0; position < block.getPositionCount(); ++position) {
+            // Inner and right join doesn't match rows with null key column values.
+            if (!block.isNull(position)) {
+                bloomFilter.insert(SplitBlockBloomFilter.hash(type, block, position));
+            }
+        }
+    }
+
+    private void handleBloomFilterCollectionLimitExceeded()
+    {
+        bloomFilters = null;
+        bloomFilterMemoryContext.setBytes(0);
+        if (minValues == null) {
+            // allow all probe-side values to be read.
+            dynamicPredicateConsumer.accept(TupleDomain.all());
+        }
+    }
+
     private void updateMinMaxValues(Block block, int channelIndex)
     {
         checkState(minValues != null && maxValues != null);
@@ -361,10 +477,27 @@ public class DynamicFilterSourceOperator
         finished = true;
         ImmutableMap.Builder<String, Domain> domainsBuilder = ImmutableMap.builder();
         if (valueSets == null) {
-            if (minValues == null) {
-                // there were too many rows to collect min/max range
+            Optional<Map<String, SplitBlockBloomFilter>> collectedBloomFilters = Optional.empty();
+            if (bloomFilters != null) {
+                ImmutableMap.Builder<String, SplitBlockBloomFilter> bloomFiltersBuilder = ImmutableMap.builder();
+                for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+                    if (bloomFilters[channelIndex] != null) {
+                        bloomFiltersBuilder.put(channels.get(channelIndex).getFilterId(), bloomFilters[channelIndex]);
+                    }
+                }
+                collectedBloomFilters = Optional.of(bloomFiltersBuilder.build());
+                bloomFilters = null;
+                bloomFilterMemoryContext.setBytes(0);
+            }
+            else if (minValues == null) {
+                // there were too many rows to collect min/max range and Bloom filters
                 // dynamicPredicateConsumer was notified with 'all' in handleTooLargePredicate if there are no orderable types,
-                // else it was notified with 'all' in handleMinMaxCollectionLimitExceeded
+                // else it was notified with 'all' in handleMinMaxCollectionLimitExceeded or handleBloomFilterCollectionLimitExceeded
+                return;
+            }
+            if (minValues == null) {
+                // the Bloom filters are not restricted to a range of values
+                bloomFilterConsumer.accept(TupleDomain.all(), collectedBloomFilters.get());
                 return;
             }
             // valueSets became too large, create TupleDomain from min/max values
@@ -384,7 +517,13 @@ public class DynamicFilterSourceOperator
             }
             minValues = null;
             maxValues = null;
-            dynamicPredicateConsumer.accept(TupleDomain.withColumnDomains(domainsBuilder.build()));
+            TupleDomain<String> predicate = TupleDomain.withColumnDomains(domainsBuilder.build());
+            if (collectedBloomFilters.isPresent()) {
+                bloomFilterConsumer.accept(predicate, collectedBloomFilters.get());
+            }
+            else {
+                dynamicPredicateConsumer.accept(predicate);
+            }
             return;
         }
 
@@ -38,9 +38,11 @@ import java.io.Closeable;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -86,6 +88,7 @@ public class ExchangeClient
     private final long bufferCapacity;
     private final DataSize maxResponseSize;
     private final int concurrentRequestMultiplier;
+    private final int maxPipelinedRequests;
     private final Duration maxErrorDuration;
     private final boolean acknowledgePages;
     private final HttpClient httpClient;
@@ -114,6 +117,11 @@ public class ExchangeClient
     private long bufferRetainedSizeInBytes;
     @GuardedBy("this")
     private long maxBufferRetainedSizeInBytes;
+    // buffer space reserved for the responses of the pipelined requests of each client
+    @GuardedBy("this")
+    private final Map<PageBufferClient, Long> pipelinedResponseReservations = new HashMap<>();
+    @GuardedBy("this")
+    private long pipelinedResponseReservedBytes;
     @GuardedBy("this")
     private long successfulRequests;
     @GuardedBy("this")
@@ -131,6 +139,7 @@ public class ExchangeClient
             DataSize bufferCapacity,
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
+            int maxPipelinedRequests,
             Duration maxErrorDuration,
             boolean acknowledgePages,
             boolean asyncPageTransportEnabled,
@@ -145,6 +154,8 @@ public class ExchangeClient
         this.bufferCapacity = bufferCapacity.toBytes();
         this.maxResponseSize = maxResponseSize;
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
+        checkArgument(maxPipelinedRequests > 0, "maxPipelinedRequests must be at least 1: %s", maxPipelinedRequests);
+        this.maxPipelinedRequests = maxPipelinedRequests;
         this.maxErrorDuration = maxErrorDuration;
         this.acknowledgePages = acknowledgePages;
         this.asyncPageTransportEnabled = asyncPageTransportEnabled;
@@ -310,7 +321,7 @@ public class ExchangeClient
         synchronized (this) {
             if (!closed.get()) {
                 bufferRetainedSizeInBytes -= page.getRetainedSizeInBytes();
-                systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
+                updateMemoryUsage();
             }
             scheduleRequestIfNecessary();
         }
@@ -343,6 +354,8 @@ public class ExchangeClient
         pageBuffer.clear();
         systemMemoryContext.setBytes(0);
         bufferRetainedSizeInBytes = 0;
+        pipelinedResponseReservations.clear();
+        pipelinedResponseReservedBytes = 0;
         if (pageBuffer.peekLast() != NO_MORE_PAGES) {
             checkState(pageBuffer.add(NO_MORE_PAGES), "Could not add no more pages marker");
         }
@@ -367,7 +380,7 @@ public class ExchangeClient
             return;
         }
 
-        long neededBytes = bufferCapacity - bufferRetainedSizeInBytes;
+        long neededBytes = bufferCapacity - bufferRetainedSizeInBytes - pipelinedResponseReservedBytes;
         if (neededBytes <= 0) {
             return;
         }
@@ -390,7 +403,16 @@ public class ExchangeClient
             }
 
             DataSize max = new DataSize(min(averageResponseSize * 2, maxResponseSize.toBytes()), BYTE);
-            client.scheduleRequest(max);
+            int maxRequests = (int) max(1, min(maxPipelinedRequests, neededBytes / max.toBytes()));
+            int requestCount = client.scheduleRequest(max, maxRequests);
+            if (requestCount > 1) {
+                // the responses of the pipelined requests are held by the client until all of them arrive
+                long reservedBytes = (requestCount - 1) * max.toBytes();
+                pipelinedResponseReservations.put(client, reservedBytes);
+                pipelinedResponseReservedBytes += reservedBytes;
+                neededBytes -= reservedBytes;
+                updateMemoryUsage();
+            }
             i++;
         }
     }
@@ -433,7 +455,7 @@ public class ExchangeClient
 
                 bufferRetainedSizeInBytes += pagesRetainedSizeInBytes;
                 maxBufferRetainedSizeInBytes = max(maxBufferRetainedSizeInBytes, bufferRetainedSizeInBytes);
-                systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
+                updateMemoryUsage();
 
                 // Notify pending listeners that a page has been added
                 notify = ImmutableList.copyOf(blockedCallers);
@@ -467,8 +489,25 @@ public class ExchangeClient
         }
     }
 
+    private synchronized void updateMemoryUsage()
+    {
+        systemMemoryContext.setBytes(bufferRetainedSizeInBytes + pipelinedResponseReservedBytes);
+    }
+
+    private synchronized void releasePipelinedResponseReservation(PageBufferClient client)
+    {
+        Long reservedBytes = pipelinedResponseReservations.remove(client);
+        if (reservedBytes != null) {
+            pipelinedResponseReservedBytes -= reservedBytes;
+            if (!closed.get()) {
+                updateMemoryUsage();
+            }
+        }
+    }
+
     private synchronized void requestComplete(PageBufferClient client)
     {
+        releasePipelinedResponseReservation(client);
         if (!queuedClients.contains(client)) {
             queuedClients.add(client);
         }
@@ -478,6 +517,7 @@ public class ExchangeClient
     private synchronized void clientFinished(PageBufferClient client)
     {
         requireNonNull(client, "client is null");
+        releasePipelinedResponseReservation(client);
         completedClients.add(client);
         scheduleRequestIfNecessary();
     }
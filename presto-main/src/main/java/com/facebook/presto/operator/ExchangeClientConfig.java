@@ -30,6 +30,7 @@ public class ExchangeClientConfig
 {
     private DataSize maxBufferSize = new DataSize(32, Unit.MEGABYTE);
     private int concurrentRequestMultiplier = 3;
+    private int maxPipelinedRequests = 1;
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
     private Duration maxErrorDuration = new Duration(5, TimeUnit.MINUTES);
     private Duration asyncPageTransportTimeout = new Duration(60, TimeUnit.SECONDS);
@@ -66,6 +67,19 @@ public class ExchangeClientConfig
         return this;
     }
 
+    @Min(1)
+    public int getMaxPipelinedRequests()
+    {
+        return maxPipelinedRequests;
+    }
+
+    @Config("exchange.max-pipelined-requests")
+    public ExchangeClientConfig setMaxPipelinedRequests(int maxPipelinedRequests)
+    {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        return this;
+    }
+
     @Deprecated
     public Duration getMinErrorDuration()
     {
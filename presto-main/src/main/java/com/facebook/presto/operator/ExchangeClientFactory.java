@@ -41,6 +41,7 @@ public class ExchangeClientFactory
 {
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
+    private final int maxPipelinedRequests;
     private final Duration maxErrorDuration;
     private final HttpClient httpClient;
     private final DriftClient<ThriftTaskClient> driftClient;
@@ -63,6 +64,7 @@ public class ExchangeClientFactory
                 config.getMaxBufferSize(),
                 config.getMaxResponseSize(),
                 config.getConcurrentRequestMultiplier(),
+                config.getMaxPipelinedRequests(),
                 config.getMaxErrorDuration(),
                 config.isAcknowledgePages(),
                 config.isAsyncPageTransportEnabled(),
@@ -77,6 +79,7 @@ public class ExchangeClientFactory
             DataSize maxBufferedBytes,
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
+            int maxPipelinedRequests,
             Duration maxErrorDuration,
             boolean acknowledgePages,
             boolean asyncPageTransportEnabled,
@@ -88,6 +91,7 @@ public class ExchangeClientFactory
     {
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
+        this.maxPipelinedRequests = maxPipelinedRequests;
         this.maxErrorDuration = requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         this.acknowledgePages = acknowledgePages;
         this.asyncPageTransportEnabled = asyncPageTransportEnabled;
@@ -110,6 +114,7 @@ public class ExchangeClientFactory
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
         checkArgument(concurrentRequestMultiplier > 0, "concurrentRequestMultiplier must be at least 1: %s", concurrentRequestMultiplier);
+        checkArgument(maxPipelinedRequests > 0, "maxPipelinedRequests must be at least 1: %s", maxPipelinedRequests);
         checkArgument(responseSizeExponentialMovingAverageDecayingAlpha >= 0.0 && responseSizeExponentialMovingAverageDecayingAlpha <= 1.0, "responseSizeExponentialMovingAverageDecayingAlpha must be between 0 and 1: %s", responseSizeExponentialMovingAverageDecayingAlpha);
     }
 
@@ -133,6 +138,7 @@ public class ExchangeClientFactory
                 maxBufferedBytes,
                 maxResponseSize,
                 concurrentRequestMultiplier,
+                maxPipelinedRequests,
                 maxErrorDuration,
                 acknowledgePages,
                 asyncPageTransportEnabled,
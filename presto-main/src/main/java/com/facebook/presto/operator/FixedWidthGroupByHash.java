@@ -0,0 +1,547 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.array.IntBigArray;
+import com.facebook.presto.common.array.LongBigArray;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.facebook.presto.type.TypeUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.INITIAL_HASH_VALUE;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link GroupByHash} for keys whose types are all fixed width and are equal exactly when their
+ * representations are equal. Each slot of the hash table holds the group id, the raw hash, the null
+ * bits and the value of every key in consecutive longs of a single array, so a lookup compares the
+ * key without following an address into the value blocks of the groups.
+ */
+public class FixedWidthGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FixedWidthGroupByHash.class).instanceSize();
+
+    private static final float FILL_RATIO = 0.75f;
+
+    // layout of a slot, the values of the keys follow the null bits
+    private static final int GROUP_ID_OFFSET = 0;
+    private static final int RAW_HASH_OFFSET = 1;
+    private static final int NULLS_OFFSET = 2;
+    private static final int KEYS_OFFSET = 3;
+
+    private final Type[] hashTypes;
+    private final List<Type> keyTypes;
+    private final List<Type> types;
+    private final int[] channels;
+    private final boolean outputRawHash;
+    private final HashGenerator hashGenerator;
+    private final int slotWidth;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+
+    // the hash table of slots
+    private LongBigArray slots;
+
+    // reverse index from the groupId back to the slot
+    private final IntBigArray hashPositionByGroupId;
+
+    // the key of the row that is looked up
+    private final long[] currentKeys;
+    private long currentNulls;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    public FixedWidthGroupByHash(List<? extends Type> hashTypes, int[] hashChannels, Optional<Integer> inputHashChannel, int expectedSize, UpdateMemory updateMemory)
+    {
+        requireNonNull(hashTypes, "hashTypes is null");
+        requireNonNull(hashChannels, "hashChannels is null");
+        requireNonNull(inputHashChannel, "inputHashChannel is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(hashChannels.length <= Long.SIZE, "too many hash channels");
+        checkArgument(hashTypes.stream().allMatch(FixedWidthGroupByHash::isSupportedType), "unsupported hash types: %s", hashTypes);
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.hashTypes = hashTypes.toArray(new Type[0]);
+        this.keyTypes = ImmutableList.copyOf(hashTypes);
+        this.types = inputHashChannel.isPresent() ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : ImmutableList.copyOf(hashTypes);
+        this.channels = hashChannels.clone();
+        this.outputRawHash = inputHashChannel.isPresent();
+        this.hashGenerator = inputHashChannel.isPresent() ? new PrecomputedHashGenerator(inputHashChannel.get()) : new InterpretedHashGenerator(ImmutableList.copyOf(hashTypes), hashChannels);
+        this.slotWidth = KEYS_OFFSET + hashChannels.length;
+        this.currentKeys = new long[hashChannels.length];
+
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        slots = new LongBigArray(-1);
+        slots.ensureCapacity((long) hashCapacity * slotWidth);
+
+        hashPositionByGroupId = new IntBigArray();
+        hashPositionByGroupId.ensureCapacity(maxFill);
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        // floating point types are excluded, since distinct representations of zero and NaN are not distinct values
+        return type.equals(BIGINT) ||
+                type.equals(INTEGER) ||
+                type.equals(SMALLINT) ||
+                type.equals(TINYINT) ||
+                type.equals(DATE) ||
+                type.equals(TIMESTAMP) ||
+                type.equals(BOOLEAN);
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                slots.sizeOf() +
+                hashPositionByGroupId.sizeOf() +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        long slotAddress = getSlotAddress(hashPositionByGroupId.get(groupId));
+        appendKeysTo(slotAddress, pageBuilder, outputChannelOffset);
+
+        if (outputRawHash) {
+            BlockBuilder hashBlockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + hashTypes.length);
+            BIGINT.writeLong(hashBlockBuilder, slots.get(slotAddress + RAW_HASH_OFFSET));
+        }
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new AddPageWork(page);
+    }
+
+    @Override
+    public List<Page> getBufferedPages()
+    {
+        // the keys are not kept in pages, so they are copied out of the slots in group id order
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(keyTypes);
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            pageBuilder.declarePosition();
+            appendKeysTo(getSlotAddress(hashPositionByGroupId.get(groupId)), pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            pages.add(pageBuilder.build());
+        }
+        return pages.build();
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new GetGroupIdsWork(page);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        long rawHash = INITIAL_HASH_VALUE;
+        for (int i = 0; i < hashTypes.length; i++) {
+            rawHash = CombineHashFunction.getHash(rawHash, TypeUtils.hashPosition(hashTypes[i], page.getBlock(hashChannels[i]), position));
+        }
+        return contains(position, page, hashChannels, rawHash);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels, long rawHash)
+    {
+        loadCurrentKey(position, page, hashChannels);
+        long hashPosition = getHashPosition(rawHash, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            if (slots.get(getSlotAddress(hashPosition) + GROUP_ID_OFFSET) == -1) {
+                return false;
+            }
+            else if (isCurrentKey(hashPosition, rawHash)) {
+                return true;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return slots.get(getSlotAddress(hashPositionByGroupId.get(groupId)) + RAW_HASH_OFFSET);
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    private int putIfAbsent(int position, Page page)
+    {
+        loadCurrentKey(position, page, channels);
+        long rawHash = hashGenerator.hashPosition(position, page);
+        long hashPosition = getHashPosition(rawHash, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            long groupId = slots.get(getSlotAddress(hashPosition) + GROUP_ID_OFFSET);
+            if (groupId == -1) {
+                break;
+            }
+
+            if (isCurrentKey(hashPosition, rawHash)) {
+                return toIntExact(groupId);
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+            hashCollisions++;
+        }
+
+        return addNewGroup(hashPosition, rawHash);
+    }
+
+    private int addNewGroup(long hashPosition, long rawHash)
+    {
+        // record group id in hash
+        int groupId = nextGroupId++;
+
+        long slotAddress = getSlotAddress(hashPosition);
+        slots.set(slotAddress + GROUP_ID_OFFSET, groupId);
+        slots.set(slotAddress + RAW_HASH_OFFSET, rawHash);
+        slots.set(slotAddress + NULLS_OFFSET, currentNulls);
+        for (int i = 0; i < currentKeys.length; i++) {
+            slots.set(slotAddress + KEYS_OFFSET + i, currentKeys[i]);
+        }
+        hashPositionByGroupId.set(groupId, toIntExact(hashPosition));
+
+        // increase capacity, if necessary
+        if (needRehash()) {
+            tryRehash();
+        }
+        return groupId;
+    }
+
+    private void appendKeysTo(long slotAddress, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        long nulls = slots.get(slotAddress + NULLS_OFFSET);
+        for (int i = 0; i < hashTypes.length; i++) {
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + i);
+            if ((nulls & (1L << i)) != 0) {
+                blockBuilder.appendNull();
+            }
+            else {
+                writeKey(hashTypes[i], blockBuilder, slots.get(slotAddress + KEYS_OFFSET + i));
+            }
+        }
+    }
+
+    private void loadCurrentKey(int position, Page page, int[] hashChannels)
+    {
+        currentNulls = 0;
+        for (int i = 0; i < hashTypes.length; i++) {
+            Block block = page.getBlock(hashChannels[i]);
+            if (block.isNull(position)) {
+                currentNulls |= 1L << i;
+                currentKeys[i] = 0;
+            }
+            else {
+                currentKeys[i] = readKey(hashTypes[i], block, position);
+            }
+        }
+    }
+
+    private boolean isCurrentKey(long hashPosition, long rawHash)
+    {
+        long slotAddress = getSlotAddress(hashPosition);
+        if (slots.get(slotAddress + RAW_HASH_OFFSET) != rawHash || slots.get(slotAddress + NULLS_OFFSET) != currentNulls) {
+            return false;
+        }
+        for (int i = 0; i < currentKeys.length; i++) {
+            if (slots.get(slotAddress + KEYS_OFFSET + i) != currentKeys[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for slots and hashPositionByGroupId as well as the size of the current page
+        preallocatedMemoryInBytes = (newCapacity - hashCapacity) * (long) slotWidth * Long.BYTES + (calculateMaxFill(newCapacity) - maxFill) * Integer.BYTES + currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+        preallocatedMemoryInBytes = 0;
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        LongBigArray newSlots = new LongBigArray(-1);
+        newSlots.ensureCapacity((long) newCapacity * slotWidth);
+
+        for (long oldHashPosition = 0; oldHashPosition < hashCapacity; oldHashPosition++) {
+            long oldSlotAddress = getSlotAddress(oldHashPosition);
+            long groupId = slots.get(oldSlotAddress + GROUP_ID_OFFSET);
+            if (groupId == -1) {
+                continue;
+            }
+
+            // find an empty slot for the key
+            long hashPosition = getHashPosition(slots.get(oldSlotAddress + RAW_HASH_OFFSET), newMask);
+            while (newSlots.get(getSlotAddress(hashPosition) + GROUP_ID_OFFSET) != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+                hashCollisions++;
+            }
+
+            // move the slot
+            long slotAddress = getSlotAddress(hashPosition);
+            for (int i = 0; i < slotWidth; i++) {
+                newSlots.set(slotAddress + i, slots.get(oldSlotAddress + i));
+            }
+            hashPositionByGroupId.set(groupId, toIntExact(hashPosition));
+        }
+
+        mask = newMask;
+        hashCapacity = newCapacity;
+        maxFill = calculateMaxFill(hashCapacity);
+        slots = newSlots;
+
+        hashPositionByGroupId.ensureCapacity(maxFill);
+        return true;
+    }
+
+    private boolean needRehash()
+    {
+        return nextGroupId >= maxFill;
+    }
+
+    private long getSlotAddress(long hashPosition)
+    {
+        return hashPosition * slotWidth;
+    }
+
+    private static long readKey(Type type, Block block, int position)
+    {
+        if (type.equals(BOOLEAN)) {
+            return type.getBoolean(block, position) ? 1 : 0;
+        }
+        return type.getLong(block, position);
+    }
+
+    private static void writeKey(Type type, BlockBuilder blockBuilder, long key)
+    {
+        if (type.equals(BOOLEAN)) {
+            type.writeBoolean(blockBuilder, key != 0);
+        }
+        else {
+            type.writeLong(blockBuilder, key);
+        }
+    }
+
+    private static long getHashPosition(long rawHash, int mask)
+    {
+        return murmurHash3(rawHash) & mask;
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final Page page;
+
+        private int lastPosition;
+
+        public AddPageWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+
+            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // get the group for the current row
+                putIfAbsent(lastPosition, page);
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final BlockBuilder blockBuilder;
+        private final Page page;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+            // we know the exact size required for the block
+            this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(page.getPositionCount());
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+            checkState(!finished);
+
+            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // output the group id for this row
+                BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, page));
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == page.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+    }
+}
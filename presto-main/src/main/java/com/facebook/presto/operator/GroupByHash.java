@@ -53,6 +53,10 @@ public interface GroupByHash
         if (hashTypes.size() == 1 && hashTypes.get(0).equals(BIGINT) && hashChannels.length == 1) {
             return new BigintGroupByHash(hashChannels[0], inputHashChannel.isPresent(), expectedSize, updateMemory);
         }
+        // dictionary processing only applies to single channel keys, and the packed slots replace the compiled hash strategy
+        if (hashChannels.length > 1 && hashChannels.length <= Long.SIZE && hashTypes.stream().allMatch(FixedWidthGroupByHash::isSupportedType)) {
+            return new FixedWidthGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, updateMemory);
+        }
         return new MultiChannelGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary, joinCompiler, updateMemory);
     }
 
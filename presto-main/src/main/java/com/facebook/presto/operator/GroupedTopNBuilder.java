@@ -18,7 +18,6 @@ import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.array.ObjectBigArray;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
@@ -118,7 +117,6 @@ public class GroupedTopNBuilder
                 emptyPageReferenceSlots.getEstimatedSizeInBytes();
     }
 
-    @VisibleForTesting
     List<Page> getBufferedPages()
     {
         return IntStream.range(0, currentPageCount)
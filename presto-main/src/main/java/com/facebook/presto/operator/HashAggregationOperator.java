@@ -21,6 +21,7 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.SkipAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.function.aggregation.Accumulator;
@@ -40,9 +41,12 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.common.RuntimeMetricName.PARTIAL_AGGREGATION_SKIPPED_ROWS;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.INITIAL_HASH_VALUE;
 import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -78,6 +82,7 @@ public class HashAggregationOperator
         private final SpillerFactory spillerFactory;
         private final JoinCompiler joinCompiler;
         private final boolean useSystemMemory;
+        private final Optional<PartialAggregationController> partialAggregationController;
 
         private boolean closed;
 
@@ -140,6 +145,48 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    preGroupedChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    unspillMemoryLimit,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize unspillMemoryLimit,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this(operatorId,
                     planNodeId,
@@ -159,7 +206,8 @@ public class HashAggregationOperator
                     DataSize.succinctBytes((long) (unspillMemoryLimit.toBytes() * MERGE_WITH_MEMORY_RATIO)),
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
         }
 
         @VisibleForTesting
@@ -183,6 +231,50 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    preGroupedChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitForMerge,
+                    memoryLimitForMergeWithMemory,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty());
+        }
+
+        private HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitForMerge,
+                DataSize memoryLimitForMergeWithMemory,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -203,6 +295,8 @@ public class HashAggregationOperator
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.useSystemMemory = useSystemMemory;
+            this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+            checkArgument(!partialAggregationController.isPresent() || step == Step.PARTIAL, "partialAggregationController is only supported for partial aggregations");
         }
 
         @Override
@@ -229,7 +323,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
             return hashAggregationOperator;
         }
 
@@ -261,7 +356,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController.map(PartialAggregationController::duplicate));
         }
     }
 
@@ -284,6 +380,7 @@ public class HashAggregationOperator
     private final JoinCompiler joinCompiler;
     private final boolean useSystemMemory;
     private final Optional<PagesHashStrategy> preGroupedHashStrategy;
+    private final Optional<PartialAggregationController> partialAggregationController;
 
     private final List<Type> types;
     private final HashCollisionsCounter hashCollisionsCounter;
@@ -295,6 +392,8 @@ public class HashAggregationOperator
     private boolean finished;
     private Page firstUnfinishedSegment;
     private Page remainingPageForSegmentedAggregation;
+    // input rows added to the current aggregation builder
+    private long inputRowsProcessed;
 
     // for yield when memory is not available
     private Work<?> unfinishedWork;
@@ -318,6 +417,48 @@ public class HashAggregationOperator
             SpillerFactory spillerFactory,
             JoinCompiler joinCompiler,
             boolean useSystemMemory)
+    {
+        this(operatorContext,
+                groupByTypes,
+                groupByChannels,
+                preGroupedChannels,
+                globalAggregationGroupIds,
+                step,
+                produceDefaultOutput,
+                accumulatorFactories,
+                hashChannel,
+                groupIdChannel,
+                expectedGroups,
+                maxPartialMemory,
+                spillEnabled,
+                memoryLimitForMerge,
+                memoryLimitForMergeWithMemory,
+                spillerFactory,
+                joinCompiler,
+                useSystemMemory,
+                Optional.empty());
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> globalAggregationGroupIds,
+            Step step,
+            boolean produceDefaultOutput,
+            List<AccumulatorFactory> accumulatorFactories,
+            Optional<Integer> hashChannel,
+            Optional<Integer> groupIdChannel,
+            int expectedGroups,
+            Optional<DataSize> maxPartialMemory,
+            boolean spillEnabled,
+            DataSize memoryLimitForMerge,
+            DataSize memoryLimitForMergeWithMemory,
+            SpillerFactory spillerFactory,
+            JoinCompiler joinCompiler,
+            boolean useSystemMemory,
+            Optional<PartialAggregationController> partialAggregationController)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -344,6 +485,7 @@ public class HashAggregationOperator
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
         operatorContext.setInfoSupplier(hashCollisionsCounter);
         this.useSystemMemory = useSystemMemory;
+        this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
 
         checkState(ImmutableSet.copyOf(groupByChannels).containsAll(preGroupedChannels), "groupByChannels must include all channels in preGroupedChannels");
         this.preGroupedHashStrategy = preGroupedChannels.isEmpty()
@@ -375,7 +517,7 @@ public class HashAggregationOperator
     // - 1. It has not received finish() signal (more input to come).
     // - 2. Current page has been processed.
     // - 3. Aggregation builder has not been triggered or has finished processing.
-    // - 4. If this is partial aggregation then it must have not reached the memory limit.
+    // - 4. If this is partial aggregation then it must have not reached the memory limit, nor be due for a reduction evaluation.
     // - 5. If running in segmented aggregation mode, there must be no remaining page to process.
     @Override
     public boolean needsInput()
@@ -397,6 +539,10 @@ public class HashAggregationOperator
 
         initializeAggregationBuilderIfNeeded();
         processInputPage(page);
+        inputRowsProcessed += page.getPositionCount();
+        if (aggregationBuilder instanceof SkipAggregationBuilder) {
+            operatorContext.getRuntimeStats().addMetricValue(PARTIAL_AGGREGATION_SKIPPED_ROWS, NONE, page.getPositionCount());
+        }
 
         // process the current page; save the unfinished work if we are waiting for memory
         if (unfinishedWork != null && unfinishedWork.process()) {
@@ -536,6 +682,10 @@ public class HashAggregationOperator
     {
         outputPages = null;
         if (aggregationBuilder != null) {
+            if (partialAggregationController.isPresent() && aggregationBuilder instanceof InMemoryHashAggregationBuilder) {
+                partialAggregationController.get().onFlush(inputRowsProcessed, ((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount());
+            }
+            inputRowsProcessed = 0;
             aggregationBuilder.recordHashCollisions(hashCollisionsCounter);
             aggregationBuilder.close();
             // aggregationBuilder.close() will release all memory reserved in memory accounting.
@@ -563,7 +713,14 @@ public class HashAggregationOperator
             return;
         }
 
-        if (step.isOutputPartial() || !spillEnabled) {
+        if (partialAggregationController.isPresent() && partialAggregationController.get().isPartialAggregationDisabled()) {
+            aggregationBuilder = new SkipAggregationBuilder(
+                    groupByChannels,
+                    hashChannel,
+                    accumulatorFactories,
+                    useSystemMemory ? operatorContext.newLocalSystemMemoryContext(SkipAggregationBuilder.class.getSimpleName()) : operatorContext.localUserMemoryContext());
+        }
+        else if (step.isOutputPartial() || !spillEnabled) {
             aggregationBuilder = new InMemoryHashAggregationBuilder(
                     accumulatorFactories,
                     step,
@@ -596,7 +753,7 @@ public class HashAggregationOperator
 
     // Flush if one of the following is true:
     // - received finish() signal (no more input to come).
-    // - it is a partial aggregation and has reached memory limit
+    // - it is a partial aggregation and has reached memory limit, or processed enough rows to evaluate its reduction
     // - running in segmented aggregation mode and at least one segment has been fully processed
     private boolean shouldFlush()
     {
@@ -605,7 +762,11 @@ public class HashAggregationOperator
 
     private boolean partialAggregationReachedMemoryLimit()
     {
-        return aggregationBuilder != null && aggregationBuilder.isFull();
+        if (aggregationBuilder == null) {
+            return false;
+        }
+        // flush early once enough rows have been seen to decide whether partial aggregation should be disabled
+        return aggregationBuilder.isFull() || (partialAggregationController.isPresent() && partialAggregationController.get().shouldFlushForEvaluation(inputRowsProcessed));
     }
 
     private Page getGlobalAggregationOutput()
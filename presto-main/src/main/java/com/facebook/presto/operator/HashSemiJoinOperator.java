@@ -18,18 +18,27 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
+import com.facebook.presto.operator.SetBuilderOperator.SpilledChannelSet;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getDone;
 import static com.facebook.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.operator.PartitionedHashSpiller.SPILL_PARTITIONS;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.Objects.requireNonNull;
 
 public class HashSemiJoinOperator
@@ -46,9 +55,22 @@ public class HashSemiJoinOperator
         private final List<Type> probeTypes;
         private final int probeJoinChannel;
         private final Optional<Integer> probeJoinHashChannel;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public HashSemiJoinOperatorFactory(int operatorId, PlanNodeId planNodeId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel, Optional<Integer> probeJoinHashChannel)
+        {
+            this(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, unsupportedPartitioningSpillerFactory());
+        }
+
+        public HashSemiJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                SetSupplier setSupplier,
+                List<? extends Type> probeTypes,
+                int probeJoinChannel,
+                Optional<Integer> probeJoinHashChannel,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -57,6 +79,7 @@ public class HashSemiJoinOperator
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
             this.probeJoinChannel = probeJoinChannel;
             this.probeJoinHashChannel = probeJoinHashChannel;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -64,31 +87,57 @@ public class HashSemiJoinOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, HashSemiJoinOperator.class.getSimpleName());
-            return new HashSemiJoinOperator(operatorContext, setSupplier, probeJoinChannel, probeJoinHashChannel);
+            setSupplier.addProbeOperator();
+            return new HashSemiJoinOperator(operatorContext, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, partitioningSpillerFactory);
         }
 
         @Override
         public void noMoreOperators()
         {
+            if (closed) {
+                return;
+            }
             closed = true;
+            setSupplier.noMoreProbeOperators();
         }
 
         @Override
         public OperatorFactory duplicate()
         {
-            return new HashSemiJoinOperatorFactory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel);
+            return new HashSemiJoinOperatorFactory(operatorId, planNodeId, setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, partitioningSpillerFactory);
         }
     }
 
+    private final SetSupplier setSupplier;
+    private final List<Type> probeTypes;
     private final int probeJoinChannel;
     private final ListenableFuture<ChannelSet> channelSetFuture;
     private final Optional<Integer> probeHashChannel;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
 
     private ChannelSet channelSet;
     private Page outputPage;
     private boolean finishing;
 
+    private SpilledChannelSet spilledChannelSet;
+    private Optional<PartitionedHashSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private int nextPartition;
+    private ListenableFuture<ChannelSet> partitionChannelSet = immediateFuture(null);
+    private Iterator<Page> unspilledInput = Collections.emptyIterator();
+
     public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, int probeJoinChannel, Optional<Integer> probeHashChannel)
+    {
+        this(operatorContext, channelSetFuture, ImmutableList.of(), probeJoinChannel, probeHashChannel, unsupportedPartitioningSpillerFactory());
+    }
+
+    public HashSemiJoinOperator(
+            OperatorContext operatorContext,
+            SetSupplier channelSetFuture,
+            List<Type> probeTypes,
+            int probeJoinChannel,
+            Optional<Integer> probeHashChannel,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
@@ -96,9 +145,12 @@ public class HashSemiJoinOperator
         requireNonNull(channelSetFuture, "hashProvider is null");
         checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
 
+        this.setSupplier = channelSetFuture;
         this.channelSetFuture = channelSetFuture.getChannelSet();
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
         this.probeJoinChannel = probeJoinChannel;
         this.probeHashChannel = probeHashChannel;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
     }
 
     @Override
@@ -116,26 +168,33 @@ public class HashSemiJoinOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && outputPage == null;
+        return finishing && outputPage == null && (spilledChannelSet == null || nextPartition > SPILL_PARTITIONS);
     }
 
     @Override
     public ListenableFuture<?> isBlocked()
     {
-        return channelSetFuture;
+        if (!setSupplier.getSetBuilt().isDone()) {
+            return setSupplier.getSetBuilt();
+        }
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return partitionChannelSet;
     }
 
     @Override
     public boolean needsInput()
     {
-        if (finishing || outputPage != null) {
+        if (finishing || outputPage != null || !spillInProgress.isDone()) {
             return false;
         }
 
-        if (channelSet == null) {
+        if (channelSet == null && spilledChannelSet == null) {
             channelSet = tryGetFutureValue(channelSetFuture).orElse(null);
+            spilledChannelSet = tryGetFutureValue(setSupplier.getSpilledChannelSet()).orElse(null);
         }
-        return channelSet != null;
+        return channelSet != null || spilledChannelSet != null;
     }
 
     @Override
@@ -143,11 +202,93 @@ public class HashSemiJoinOperator
     {
         requireNonNull(page, "page is null");
         checkState(!finishing, "Operator is finishing");
-        // use an effectively-final local variable instead of the non-final instance field inside of the loop
-        ChannelSet channelSet = this.channelSet;
-        checkState(channelSet != null, "Set has not been built yet");
+        checkState(channelSet != null || spilledChannelSet != null, "Set has not been built yet");
         checkState(outputPage == null, "Operator still has pending output");
 
+        if (spilledChannelSet != null) {
+            // the page is joined once the partition of the set it falls into is restored
+            checkSpillSucceeded(spillInProgress);
+            spillInProgress = getSpiller().spillInput(page);
+            return;
+        }
+
+        outputPage = semiJoin(page, channelSet, channelSet.isEmpty(), channelSet.containsNull());
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        if (outputPage == null && finishing && spilledChannelSet != null) {
+            outputPage = joinSpilledInput();
+        }
+
+        Page result = outputPage;
+        outputPage = null;
+        return result;
+    }
+
+    @Override
+    public void close()
+    {
+        // the set builder waits for every probe operator before restoring a partition, even when the set is not spilled yet
+        if (nextPartition <= SPILL_PARTITIONS) {
+            setSupplier.releasePartitions(nextPartition);
+            nextPartition = SPILL_PARTITIONS + 1;
+        }
+        spiller.ifPresent(PartitionedHashSpiller::close);
+    }
+
+    private Page joinSpilledInput()
+    {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        while (!unspilledInput.hasNext()) {
+            if (nextPartition == SPILL_PARTITIONS) {
+                setSupplier.releasePartitions(nextPartition);
+                nextPartition++;
+                return null;
+            }
+            if (nextPartition > SPILL_PARTITIONS) {
+                return null;
+            }
+
+            // the probe operators request every partition, so that the set builder knows when they are done with the previous one
+            partitionChannelSet = setSupplier.requestPartition(nextPartition);
+            unspilledInput = spiller.map(inputSpiller -> inputSpiller.getSpilledInput(nextPartition)).orElse(Collections.emptyIterator());
+            nextPartition++;
+            if (!unspilledInput.hasNext()) {
+                partitionChannelSet = immediateFuture(null);
+            }
+        }
+
+        if (!partitionChannelSet.isDone()) {
+            return null;
+        }
+        return semiJoin(unspilledInput.next(), getDone(partitionChannelSet), spilledChannelSet.isEmpty(), spilledChannelSet.containsNull());
+    }
+
+    private PartitionedHashSpiller getSpiller()
+    {
+        if (!spiller.isPresent()) {
+            ImmutableList.Builder<Type> groupByHashTypes = ImmutableList.<Type>builder().add(setSupplier.getType());
+            probeHashChannel.ifPresent(channel -> groupByHashTypes.add(BIGINT));
+            spiller = Optional.of(new PartitionedHashSpiller(
+                    probeTypes,
+                    ImmutableList.of(probeJoinChannel),
+                    probeHashChannel,
+                    groupByHashTypes.build(),
+                    ImmutableList.of(),
+                    partitioningSpillerFactory,
+                    operatorContext));
+        }
+        return spiller.get();
+    }
+
+    private Page semiJoin(Page page, ChannelSet channelSet, boolean setEmpty, boolean setContainsNull)
+    {
         // create the block builder for the new boolean column
         // we know the exact size required for the block
         BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(page.getPositionCount());
@@ -159,7 +300,7 @@ public class HashSemiJoinOperator
         // update hashing strategy to use probe cursor
         for (int position = 0; position < page.getPositionCount(); position++) {
             if (probeJoinNulls != null && probeJoinNulls.isNull(position)) {
-                if (channelSet.isEmpty()) {
+                if (setEmpty) {
                     BOOLEAN.writeBoolean(blockBuilder, false);
                 }
                 else {
@@ -175,7 +316,7 @@ public class HashSemiJoinOperator
                 else {
                     contains = channelSet.contains(position, probeJoinPage);
                 }
-                if (!contains && channelSet.containsNull()) {
+                if (!contains && setContainsNull) {
                     blockBuilder.appendNull();
                 }
                 else {
@@ -185,14 +326,6 @@ public class HashSemiJoinOperator
         }
 
         // add the new boolean column to the page
-        outputPage = page.appendColumn(blockBuilder.build());
-    }
-
-    @Override
-    public Page getOutput()
-    {
-        Page result = outputPage;
-        outputPage = null;
-        return result;
+        return page.appendColumn(blockBuilder.build());
     }
 }
@@ -50,6 +50,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREFETCH_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.operator.PageBufferClient.PagesResponse.createEmptyPagesResponse;
 import static com.facebook.presto.operator.PageBufferClient.PagesResponse.createPagesResponse;
@@ -93,6 +94,25 @@ public final class HttpRpcShuffleClient
                 new PageResponseHandler());
     }
 
+    @Override
+    public boolean isPrefetchSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<PagesResponse> prefetchResults(long token, DataSize maxResponseSize, int maxPages)
+    {
+        URI uriBase = asyncPageTransportLocation.orElse(location);
+        URI uri = uriBuilderFrom(uriBase).appendPath(String.valueOf(token)).build();
+        return httpClient.executeAsync(
+                prepareGet()
+                        .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                        .setHeader(PRESTO_PREFETCH_PAGES, String.valueOf(maxPages))
+                        .setUri(uri).build(),
+                new PageResponseHandler());
+    }
+
     @Override
     public void acknowledgeResultsAsync(long nextToken)
     {
@@ -61,6 +61,11 @@ public class MarkDistinctHash
         return groupByHash.getCapacity();
     }
 
+    GroupByHash getGroupByHash()
+    {
+        return groupByHash;
+    }
+
     public List<Page> getDistinctPages()
     {
         return groupByHash.getBufferedPages();
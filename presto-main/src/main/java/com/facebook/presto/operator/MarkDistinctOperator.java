@@ -18,18 +18,26 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class MarkDistinctOperator
@@ -44,6 +52,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -53,6 +63,19 @@ public class MarkDistinctOperator
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public MarkDistinctOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                Collection<Integer> markDistinctChannels,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -64,6 +87,8 @@ public class MarkDistinctOperator
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
                     .build();
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -71,7 +96,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +108,23 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final List<Type> types;
+    private final List<Integer> markDistinctChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<Type> distinctTypes;
+    private final JoinCompiler joinCompiler;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    private MarkDistinctHash markDistinctHash;
 
     private Page inputPage;
     private boolean finishing;
@@ -97,19 +132,44 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
+    private Optional<PartitionedHashSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+
+    // once the distinct values have been spilled, the input is deferred and processed one spill partition at a time when finishing
+    private int unspilledPartitions;
+    private Iterator<Page> spilledInput = emptyIterator();
+
     public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
     {
-        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
 
-        requireNonNull(hashChannel, "hashChannel is null");
-        requireNonNull(markDistinctChannels, "markDistinctChannels is null");
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.markDistinctChannels = ImmutableList.copyOf(requireNonNull(markDistinctChannels, "markDistinctChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
         ImmutableList.Builder<Type> distinctTypes = ImmutableList.builder();
         for (int channel : markDistinctChannels) {
             distinctTypes.add(types.get(channel));
         }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
+        this.distinctTypes = distinctTypes.build();
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.markDistinctHash = createMarkDistinctHash(this::updateMemoryReservation);
     }
 
     @Override
@@ -127,13 +187,19 @@ public class MarkDistinctOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && !hasUnspilledPartitions();
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
     }
 
     @Override
@@ -141,6 +207,13 @@ public class MarkDistinctOperator
     {
         requireNonNull(page, "page is null");
         checkState(needsInput());
+        checkSpillSucceeded(spillInProgress);
+
+        if (spiller.isPresent()) {
+            // the page may contain values that have been spilled, so it can only be processed with the spill partition
+            spillInProgress = spiller.get().spillInput(page);
+            return;
+        }
 
         inputPage = page;
 
@@ -151,9 +224,22 @@ public class MarkDistinctOperator
     @Override
     public Page getOutput()
     {
-        if (unfinishedWork == null) {
+        if (!spillInProgress.isDone()) {
             return null;
         }
+        checkSpillSucceeded(spillInProgress);
+
+        if (unfinishedWork == null) {
+            if (!finishing || !hasUnspilledPartitions()) {
+                return null;
+            }
+            if (!spilledInput.hasNext()) {
+                unspillNextPartition();
+                return null;
+            }
+            inputPage = spilledInput.next();
+            unfinishedWork = markDistinctHash.markDistinctRows(inputPage);
+        }
 
         if (!unfinishedWork.process()) {
             return null;
@@ -169,11 +255,81 @@ public class MarkDistinctOperator
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finishing || hasUnfinishedInput() || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(new PartitionedHashSpiller(
+                    types.subList(0, types.size() - 1),
+                    markDistinctChannels,
+                    hashChannel,
+                    markDistinctHash.getGroupByHash().getTypes(),
+                    ImmutableList.of(),
+                    partitioningSpillerFactory,
+                    operatorContext));
+        }
+
+        ListenableFuture<?> spillFuture = spiller.get().spillGroups(markDistinctHash.getGroupByHash(), (pageBuilder, groupId) -> {});
+        finishMemoryRevoke = () -> {
+            markDistinctHash = createMarkDistinctHash(this::updateMemoryReservation);
+            updateMemoryReservation();
+        };
+        return spillFuture;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(PartitionedHashSpiller::close);
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
     }
 
+    private boolean hasUnspilledPartitions()
+    {
+        return spiller.isPresent() && (unspilledPartitions < spiller.get().getPartitionCount() || spilledInput.hasNext());
+    }
+
+    private void unspillNextPartition()
+    {
+        PartitionedHashSpiller spiller = this.spiller.get();
+        int partition = unspilledPartitions++;
+
+        // the distinct values seen before the spill are restored first, so that they are not marked again
+        markDistinctHash = createMarkDistinctHash(() -> {
+            updateMemoryReservation();
+            return true;
+        });
+        Iterator<Page> spilledValues = spiller.getSpilledState(partition);
+        while (spilledValues.hasNext()) {
+            Work<Block> work = markDistinctHash.markDistinctRows(spiller.toInputLayout(spilledValues.next()));
+            verify(work.process(), "restoring the spilled distinct values did not complete");
+        }
+        spilledInput = spiller.getSpilledInput(partition);
+        updateMemoryReservation();
+    }
+
+    private MarkDistinctHash createMarkDistinctHash(UpdateMemory updateMemory)
+    {
+        return new MarkDistinctHash(operatorContext.getSession(), distinctTypes, Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, updateMemory);
+    }
+
     /**
      * Update memory usage.
      *
@@ -186,7 +342,14 @@ public class MarkDistinctOperator
     {
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        // the hash of a partition restored from the spill cannot be revoked
+        if (spillEnabled && unspilledPartitions == 0) {
+            localRevocableMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -0,0 +1,559 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streaming sort-merge join. Both inputs must be sorted on the join keys in
+ * {@code ASC NULLS FIRST} order. The left side is the operator input and the right
+ * side is read from a {@link MergeJoinSource}. Only the right side rows of the
+ * current key group are retained while the matching left rows are streamed.
+ */
+public class MergeJoinOperator
+        implements Operator
+{
+    public static class MergeJoinOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager;
+        private final JoinNode.Type joinType;
+        private final List<Type> leftTypes;
+        private final List<Integer> leftJoinChannels;
+        private final List<Integer> leftOutputChannels;
+        private final List<Type> rightTypes;
+        private final List<Integer> rightJoinChannels;
+        private final List<Integer> rightOutputChannels;
+        private boolean closed;
+
+        public MergeJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager,
+                JoinNode.Type joinType,
+                List<Type> leftTypes,
+                List<Integer> leftJoinChannels,
+                List<Integer> leftOutputChannels,
+                List<Type> rightTypes,
+                List<Integer> rightJoinChannels,
+                List<Integer> rightOutputChannels)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.mergeJoinSourceManager = requireNonNull(mergeJoinSourceManager, "mergeJoinSourceManager is null");
+            this.joinType = requireNonNull(joinType, "joinType is null");
+            this.leftTypes = ImmutableList.copyOf(requireNonNull(leftTypes, "leftTypes is null"));
+            this.leftJoinChannels = ImmutableList.copyOf(requireNonNull(leftJoinChannels, "leftJoinChannels is null"));
+            this.leftOutputChannels = ImmutableList.copyOf(requireNonNull(leftOutputChannels, "leftOutputChannels is null"));
+            this.rightTypes = ImmutableList.copyOf(requireNonNull(rightTypes, "rightTypes is null"));
+            this.rightJoinChannels = ImmutableList.copyOf(requireNonNull(rightJoinChannels, "rightJoinChannels is null"));
+            this.rightOutputChannels = ImmutableList.copyOf(requireNonNull(rightOutputChannels, "rightOutputChannels is null"));
+            checkArgument(leftJoinChannels.size() == rightJoinChannels.size(), "left and right join channels do not match");
+            this.mergeJoinSourceManager.incrementProbeFactoryCount();
+        }
+
+        private MergeJoinOperatorFactory(MergeJoinOperatorFactory other)
+        {
+            requireNonNull(other, "other is null");
+            this.operatorId = other.operatorId;
+            this.planNodeId = other.planNodeId;
+            this.mergeJoinSourceManager = other.mergeJoinSourceManager;
+            this.joinType = other.joinType;
+            this.leftTypes = other.leftTypes;
+            this.leftJoinChannels = other.leftJoinChannels;
+            this.leftOutputChannels = other.leftOutputChannels;
+            this.rightTypes = other.rightTypes;
+            this.rightJoinChannels = other.rightJoinChannels;
+            this.rightOutputChannels = other.rightOutputChannels;
+
+            // closed is intentionally not copied
+            closed = false;
+
+            mergeJoinSourceManager.incrementProbeFactoryCount();
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            MergeJoinSource mergeJoinSource = mergeJoinSourceManager.getJoinBridge(driverContext.getLifespan());
+
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MergeJoinOperator.class.getSimpleName());
+
+            mergeJoinSourceManager.probeOperatorCreated(driverContext.getLifespan());
+            return new MergeJoinOperator(
+                    operatorContext,
+                    mergeJoinSource,
+                    joinType,
+                    leftTypes,
+                    leftJoinChannels,
+                    leftOutputChannels,
+                    rightTypes,
+                    rightJoinChannels,
+                    rightOutputChannels,
+                    () -> mergeJoinSourceManager.probeOperatorClosed(driverContext.getLifespan()));
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            mergeJoinSourceManager.probeOperatorFactoryClosedForAllLifespans();
+        }
+
+        @Override
+        public void noMoreOperators(Lifespan lifespan)
+        {
+            mergeJoinSourceManager.probeOperatorFactoryClosed(lifespan);
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new MergeJoinOperatorFactory(this);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final MergeJoinSource mergeJoinSource;
+    private final int consumer;
+    private final boolean leftOuter;
+    private final boolean rightOuter;
+    private final List<Type> keyTypes;
+    private final int[] leftJoinChannels;
+    private final int[] leftOutputChannels;
+    private final int[] rightJoinChannels;
+    private final int[] rightOutputChannels;
+    private final PageBuilder pageBuilder;
+    private final LocalMemoryContext localUserMemoryContext;
+    private final Runnable afterClose;
+
+    private Page leftPage;
+    private int leftPosition;
+    private boolean finishing;
+
+    private Page rightPage;
+    private int rightPosition;
+    private boolean rightFinished;
+    private boolean waitingForRight;
+
+    // right side rows sharing the key of the current match; the key is taken from the first row of the first page
+    private final List<Page> matchGroup = new ArrayList<>();
+    private boolean matchGroupComplete;
+    private long matchGroupRetainedSizeInBytes;
+
+    // progress of the cross product of the current left row with the match group
+    private boolean joiningLeftRow;
+    private int matchGroupPageIndex;
+    private int matchGroupPosition;
+
+    private boolean done;
+    private boolean closed;
+
+    public MergeJoinOperator(
+            OperatorContext operatorContext,
+            MergeJoinSource mergeJoinSource,
+            JoinNode.Type joinType,
+            List<Type> leftTypes,
+            List<Integer> leftJoinChannels,
+            List<Integer> leftOutputChannels,
+            List<Type> rightTypes,
+            List<Integer> rightJoinChannels,
+            List<Integer> rightOutputChannels,
+            Runnable afterClose)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.mergeJoinSource = requireNonNull(mergeJoinSource, "mergeJoinSource is null");
+        this.consumer = mergeJoinSource.addConsumer();
+        requireNonNull(joinType, "joinType is null");
+        this.leftOuter = joinType == LEFT || joinType == FULL;
+        this.rightOuter = joinType == RIGHT || joinType == FULL;
+        this.keyTypes = leftJoinChannels.stream()
+                .map(leftTypes::get)
+                .collect(toImmutableList());
+        this.leftJoinChannels = Ints.toArray(leftJoinChannels);
+        this.leftOutputChannels = Ints.toArray(leftOutputChannels);
+        this.rightJoinChannels = Ints.toArray(rightJoinChannels);
+        this.rightOutputChannels = Ints.toArray(rightOutputChannels);
+        this.pageBuilder = new PageBuilder(ImmutableList.<Type>builder()
+                .addAll(leftOutputChannels.stream().map(leftTypes::get).iterator())
+                .addAll(rightOutputChannels.stream().map(rightTypes::get).iterator())
+                .build());
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.afterClose = requireNonNull(afterClose, "afterClose is null");
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        finishing = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        boolean finished = done && pageBuilder.isEmpty();
+        if (finished) {
+            close();
+        }
+        return finished;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (waitingForRight) {
+            return mergeJoinSource.isBlocked();
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && !done && !hasLeftRow();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator does not need input");
+        leftPage = page;
+        leftPosition = 0;
+        updateMemoryUsage();
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        while (!pageBuilder.isFull() && !done && processNextRow()) {
+            // keep joining until the output is full or more input is needed
+        }
+
+        if (pageBuilder.isFull() || (done && !pageBuilder.isEmpty())) {
+            Page page = pageBuilder.build();
+            pageBuilder.reset();
+            return page;
+        }
+        return null;
+    }
+
+    /**
+     * Performs a single step of the merge. Returns false if no progress can be made
+     * until more input arrives, the right side produces more pages or the output is flushed.
+     */
+    private boolean processNextRow()
+    {
+        waitingForRight = false;
+
+        if (joiningLeftRow) {
+            return joinLeftRowWithMatchGroup();
+        }
+
+        if (!matchGroup.isEmpty()) {
+            if (!matchGroupComplete) {
+                return collectMatchGroup();
+            }
+            if (!hasLeftRow()) {
+                if (finishing) {
+                    clearMatchGroup();
+                    return true;
+                }
+                return false;
+            }
+            if (compareKeys(leftPage, leftPosition, matchGroup.get(0), 0) == 0) {
+                joiningLeftRow = true;
+                matchGroupPageIndex = 0;
+                matchGroupPosition = 0;
+                return true;
+            }
+            clearMatchGroup();
+            return true;
+        }
+
+        if (!hasLeftRow()) {
+            if (!finishing) {
+                return false;
+            }
+            if (!rightOuter) {
+                done = true;
+                mergeJoinSource.consumerFinished(consumer);
+                return true;
+            }
+            if (!hasRightRow()) {
+                if (rightFinished) {
+                    done = true;
+                }
+                return done;
+            }
+            appendRightRowWithNulls(rightPage, rightPosition);
+            rightPosition++;
+            return true;
+        }
+
+        if (!hasRightRow()) {
+            if (!rightFinished) {
+                return false;
+            }
+            if (leftOuter) {
+                appendLeftRowWithNulls(leftPage, leftPosition);
+                leftPosition++;
+            }
+            else {
+                // no more matches are possible for the rest of the page
+                leftPosition = leftPage.getPositionCount();
+            }
+            return true;
+        }
+
+        int comparison = compareKeys(leftPage, leftPosition, rightPage, rightPosition);
+        if (comparison < 0 || (comparison == 0 && hasNullKey(leftPage, leftJoinChannels, leftPosition))) {
+            // null keys never match, but they sort equal so the left side is advanced first
+            if (leftOuter) {
+                appendLeftRowWithNulls(leftPage, leftPosition);
+            }
+            leftPosition++;
+            return true;
+        }
+        if (comparison > 0) {
+            if (rightOuter) {
+                appendRightRowWithNulls(rightPage, rightPosition);
+            }
+            rightPosition++;
+            return true;
+        }
+
+        // keys match, so gather all right side rows of this key before streaming the left rows
+        matchGroupComplete = false;
+        return collectMatchGroup();
+    }
+
+    private boolean collectMatchGroup()
+    {
+        while (true) {
+            if (!hasRightRow()) {
+                if (!rightFinished) {
+                    return false;
+                }
+                matchGroupComplete = true;
+                return true;
+            }
+
+            if (!matchGroup.isEmpty() && compareKeys(matchGroup.get(0), 0, rightPage, rightPosition, rightJoinChannels) != 0) {
+                matchGroupComplete = true;
+                return true;
+            }
+
+            int start = rightPosition;
+            Page keyPage = matchGroup.isEmpty() ? rightPage : matchGroup.get(0);
+            int keyPosition = matchGroup.isEmpty() ? rightPosition : 0;
+            int end = start + 1;
+            while (end < rightPage.getPositionCount() && compareKeys(keyPage, keyPosition, rightPage, end, rightJoinChannels) == 0) {
+                end++;
+            }
+            Page region = rightPage.getRegion(start, end - start);
+            matchGroup.add(region);
+            matchGroupRetainedSizeInBytes += region.getRetainedSizeInBytes();
+            rightPosition = end;
+            updateMemoryUsage();
+
+            if (end < rightPage.getPositionCount()) {
+                matchGroupComplete = true;
+                return true;
+            }
+        }
+    }
+
+    private boolean joinLeftRowWithMatchGroup()
+    {
+        while (matchGroupPageIndex < matchGroup.size()) {
+            Page groupPage = matchGroup.get(matchGroupPageIndex);
+            while (matchGroupPosition < groupPage.getPositionCount()) {
+                if (pageBuilder.isFull()) {
+                    return false;
+                }
+                appendRow(leftPage, leftPosition, groupPage, matchGroupPosition);
+                matchGroupPosition++;
+            }
+            matchGroupPageIndex++;
+            matchGroupPosition = 0;
+        }
+        joiningLeftRow = false;
+        leftPosition++;
+        return true;
+    }
+
+    private boolean hasLeftRow()
+    {
+        return leftPage != null && leftPosition < leftPage.getPositionCount();
+    }
+
+    private boolean hasRightRow()
+    {
+        while (rightPage == null || rightPosition >= rightPage.getPositionCount()) {
+            if (rightFinished) {
+                return false;
+            }
+            rightPage = mergeJoinSource.pollPage(consumer);
+            rightPosition = 0;
+            if (rightPage == null) {
+                if (mergeJoinSource.isFinished()) {
+                    rightFinished = true;
+                }
+                else {
+                    waitingForRight = true;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clearMatchGroup()
+    {
+        matchGroup.clear();
+        matchGroupComplete = false;
+        matchGroupRetainedSizeInBytes = 0;
+        updateMemoryUsage();
+    }
+
+    private int compareKeys(Page left, int leftPosition, Page right, int rightPosition)
+    {
+        for (int i = 0; i < keyTypes.size(); i++) {
+            Block leftBlock = left.getBlock(leftJoinChannels[i]);
+            Block rightBlock = right.getBlock(rightJoinChannels[i]);
+            int result = ASC_NULLS_FIRST.compareBlockValue(keyTypes.get(i), leftBlock, leftPosition, rightBlock, rightPosition);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private int compareKeys(Page first, int firstPosition, Page second, int secondPosition, int[] joinChannels)
+    {
+        for (int i = 0; i < keyTypes.size(); i++) {
+            int result = ASC_NULLS_FIRST.compareBlockValue(keyTypes.get(i), first.getBlock(joinChannels[i]), firstPosition, second.getBlock(joinChannels[i]), secondPosition);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean hasNullKey(Page page, int[] joinChannels, int position)
+    {
+        for (int channel : joinChannels) {
+            if (page.getBlock(channel).isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendRow(Page left, int leftPosition, Page right, int rightPosition)
+    {
+        pageBuilder.declarePosition();
+        for (int i = 0; i < leftOutputChannels.length; i++) {
+            Type type = pageBuilder.getType(i);
+            type.appendTo(left.getBlock(leftOutputChannels[i]), leftPosition, pageBuilder.getBlockBuilder(i));
+        }
+        int offset = leftOutputChannels.length;
+        for (int i = 0; i < rightOutputChannels.length; i++) {
+            Type type = pageBuilder.getType(offset + i);
+            type.appendTo(right.getBlock(rightOutputChannels[i]), rightPosition, pageBuilder.getBlockBuilder(offset + i));
+        }
+    }
+
+    private void appendLeftRowWithNulls(Page left, int leftPosition)
+    {
+        pageBuilder.declarePosition();
+        for (int i = 0; i < leftOutputChannels.length; i++) {
+            Type type = pageBuilder.getType(i);
+            type.appendTo(left.getBlock(leftOutputChannels[i]), leftPosition, pageBuilder.getBlockBuilder(i));
+        }
+        int offset = leftOutputChannels.length;
+        for (int i = 0; i < rightOutputChannels.length; i++) {
+            pageBuilder.getBlockBuilder(offset + i).appendNull();
+        }
+    }
+
+    private void appendRightRowWithNulls(Page right, int rightPosition)
+    {
+        pageBuilder.declarePosition();
+        for (int i = 0; i < leftOutputChannels.length; i++) {
+            pageBuilder.getBlockBuilder(i).appendNull();
+        }
+        int offset = leftOutputChannels.length;
+        for (int i = 0; i < rightOutputChannels.length; i++) {
+            Type type = pageBuilder.getType(offset + i);
+            type.appendTo(right.getBlock(rightOutputChannels[i]), rightPosition, pageBuilder.getBlockBuilder(offset + i));
+        }
+    }
+
+    private void updateMemoryUsage()
+    {
+        long leftPageSize = leftPage == null ? 0 : leftPage.getRetainedSizeInBytes();
+        localUserMemoryContext.setBytes(leftPageSize + matchGroupRetainedSizeInBytes);
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        leftPage = null;
+        rightPage = null;
+        matchGroup.clear();
+        localUserMemoryContext.setBytes(0);
+        mergeJoinSource.consumerFinished(consumer);
+        afterClose.run();
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+
+/**
+ * Bounded hand-off of the sorted right side pages of a merge join from the
+ * {@link MergeJoinSourceOperator} pipeline to the {@link MergeJoinOperator}.
+ * <p>
+ * Like a local exchange, the source counts its producers, and only finishes once no more
+ * producers are created and all of them finished. A lifespan may have several drivers on
+ * each side, one per split, but the pages of two producers or the rows of two consumers
+ * would not be in order, so only one producer may add pages and only one consumer may read
+ * them. The others must be empty.
+ */
+@ThreadSafe
+public final class MergeJoinSource
+        implements JoinBridge
+{
+    private static final ListenableFuture<?> NOT_BLOCKED = immediateFuture(null);
+
+    private final long maxBufferedBytes;
+
+    @GuardedBy("this")
+    private final Queue<Page> pages = new ArrayDeque<>();
+    @GuardedBy("this")
+    private long bufferedBytes;
+    @GuardedBy("this")
+    private boolean noMorePages;
+    @GuardedBy("this")
+    private boolean consumerClosed;
+
+    @GuardedBy("this")
+    private int producerCount;
+    @GuardedBy("this")
+    private int finishedProducerCount;
+    @GuardedBy("this")
+    private boolean noMoreProducers;
+    // the producer that added pages, or -1 if no producer added pages yet
+    @GuardedBy("this")
+    private int pageProducer = -1;
+
+    @GuardedBy("this")
+    private int consumerCount;
+    // the consumer that read pages, or -1 if no consumer read pages yet
+    @GuardedBy("this")
+    private int pageConsumer = -1;
+
+    @Nullable
+    @GuardedBy("this")
+    private SettableFuture<?> notFullFuture; // null indicates the buffer is not full
+    @Nullable
+    @GuardedBy("this")
+    private SettableFuture<?> notEmptyFuture; // null indicates no callback present
+
+    private final SettableFuture<?> noMorePagesFuture = SettableFuture.create();
+    private final SettableFuture<?> drainedFuture = SettableFuture.create();
+
+    public MergeJoinSource(long maxBufferedBytes)
+    {
+        checkArgument(maxBufferedBytes > 0, "maxBufferedBytes must be positive");
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Registers a producer, and returns its id.
+     */
+    public synchronized int addProducer()
+    {
+        checkState(!noMoreProducers, "noMoreProducers already set");
+        return producerCount++;
+    }
+
+    public void producerFinished()
+    {
+        boolean noMorePages;
+        synchronized (this) {
+            finishedProducerCount++;
+            checkState(finishedProducerCount <= producerCount, "More producers finished than were added");
+            noMorePages = noMoreProducers && finishedProducerCount == producerCount;
+        }
+        if (noMorePages) {
+            noMorePages();
+        }
+    }
+
+    /**
+     * Invoked once no more producers will be added.
+     */
+    public void noMoreProducers()
+    {
+        boolean noMorePages;
+        synchronized (this) {
+            if (noMoreProducers) {
+                return;
+            }
+            noMoreProducers = true;
+            noMorePages = finishedProducerCount == producerCount;
+        }
+        if (noMorePages) {
+            noMorePages();
+        }
+    }
+
+    /**
+     * Adds a page to the buffer. The returned future completes once the buffer
+     * has room for more pages.
+     */
+    public ListenableFuture<?> addPage(int producer, Page page)
+    {
+        SettableFuture<?> notEmptyFuture;
+        ListenableFuture<?> result;
+        synchronized (this) {
+            checkState(!noMorePages, "noMorePages already set");
+            if (consumerClosed) {
+                // the join no longer needs the right side
+                return NOT_BLOCKED;
+            }
+            if (pageProducer == -1) {
+                pageProducer = producer;
+            }
+            else if (pageProducer != producer) {
+                throw new PrestoException(NOT_SUPPORTED, "Merge join requires the right side of each lifespan to be produced by a single driver");
+            }
+            pages.add(page);
+            bufferedBytes += page.getRetainedSizeInBytes();
+
+            notEmptyFuture = this.notEmptyFuture;
+            this.notEmptyFuture = null;
+
+            if (bufferedBytes >= maxBufferedBytes) {
+                if (notFullFuture == null) {
+                    notFullFuture = SettableFuture.create();
+                }
+                result = notFullFuture;
+            }
+            else {
+                result = NOT_BLOCKED;
+            }
+        }
+        if (notEmptyFuture != null) {
+            notEmptyFuture.set(null);
+        }
+        return result;
+    }
+
+    private void noMorePages()
+    {
+        SettableFuture<?> notEmptyFuture;
+        boolean drained;
+        synchronized (this) {
+            if (noMorePages) {
+                return;
+            }
+            noMorePages = true;
+            notEmptyFuture = this.notEmptyFuture;
+            this.notEmptyFuture = null;
+            drained = pages.isEmpty() || consumerClosed;
+        }
+        noMorePagesFuture.set(null);
+        if (notEmptyFuture != null) {
+            notEmptyFuture.set(null);
+        }
+        if (drained) {
+            drainedFuture.set(null);
+        }
+    }
+
+    /**
+     * Registers a consumer, and returns its id.
+     */
+    public synchronized int addConsumer()
+    {
+        return consumerCount++;
+    }
+
+    /**
+     * Removes the next page from the buffer, or returns null if no page is
+     * currently available.
+     */
+    @Nullable
+    public Page pollPage(int consumer)
+    {
+        Page page;
+        SettableFuture<?> notFullFuture = null;
+        boolean drained;
+        synchronized (this) {
+            if (pageConsumer == -1) {
+                pageConsumer = consumer;
+            }
+            else if (pageConsumer != consumer) {
+                throw new PrestoException(NOT_SUPPORTED, "Merge join requires the left side of each lifespan to be read by a single driver");
+            }
+            page = pages.poll();
+            if (page == null) {
+                return null;
+            }
+            bufferedBytes -= page.getRetainedSizeInBytes();
+            if (bufferedBytes < maxBufferedBytes) {
+                notFullFuture = this.notFullFuture;
+                this.notFullFuture = null;
+            }
+            drained = noMorePages && pages.isEmpty();
+        }
+        if (notFullFuture != null) {
+            notFullFuture.set(null);
+        }
+        if (drained) {
+            drainedFuture.set(null);
+        }
+        return page;
+    }
+
+    /**
+     * Returns a future that completes when a page is available or the right side has finished.
+     */
+    public synchronized ListenableFuture<?> isBlocked()
+    {
+        if (!pages.isEmpty() || noMorePages) {
+            return NOT_BLOCKED;
+        }
+        if (notEmptyFuture == null) {
+            notEmptyFuture = SettableFuture.create();
+        }
+        return notEmptyFuture;
+    }
+
+    /**
+     * True when all right side pages have been produced and consumed.
+     */
+    public synchronized boolean isFinished()
+    {
+        return noMorePages && pages.isEmpty();
+    }
+
+    public synchronized long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    /**
+     * Returns a future that completes once the consumer either consumed all pages or was closed.
+     */
+    public ListenableFuture<?> getDrainedFuture()
+    {
+        return drainedFuture;
+    }
+
+    /**
+     * Invoked by a join operator when it will not request any more pages. The right side is
+     * released once the consumer that read it finished, since no other consumer may read it.
+     * A consumer that did not read any page leaves the right side to the other consumers.
+     */
+    public void consumerFinished(int consumer)
+    {
+        synchronized (this) {
+            if (pageConsumer != consumer) {
+                return;
+            }
+        }
+        close();
+    }
+
+    /**
+     * Buffered pages are released and any pending producer is unblocked.
+     */
+    private void close()
+    {
+        SettableFuture<?> notFullFuture;
+        synchronized (this) {
+            if (consumerClosed) {
+                return;
+            }
+            consumerClosed = true;
+            pages.clear();
+            bufferedBytes = 0;
+            notFullFuture = this.notFullFuture;
+            this.notFullFuture = null;
+        }
+        if (notFullFuture != null) {
+            notFullFuture.set(null);
+        }
+        drainedFuture.set(null);
+    }
+
+    @Override
+    public OuterPositionIterator getOuterPositionIterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void destroy()
+    {
+        close();
+    }
+
+    @Override
+    public ListenableFuture<?> whenBuildFinishes()
+    {
+        return noMorePagesFuture;
+    }
+}
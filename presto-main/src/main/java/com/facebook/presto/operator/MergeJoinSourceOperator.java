@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sink of the right side pipeline of a merge join. Pages are handed over to the
+ * {@link MergeJoinOperator} through a bounded {@link MergeJoinSource}.
+ */
+public class MergeJoinSourceOperator
+        implements Operator
+{
+    public static class MergeJoinSourceOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager;
+
+        private boolean closed;
+
+        public MergeJoinSourceOperatorFactory(int operatorId, PlanNodeId planNodeId, JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.mergeJoinSourceManager = requireNonNull(mergeJoinSourceManager, "mergeJoinSourceManager is null");
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MergeJoinSourceOperator.class.getSimpleName());
+            return new MergeJoinSourceOperator(operatorContext, mergeJoinSourceManager.getJoinBridge(driverContext.getLifespan()));
+        }
+
+        @Override
+        public void noMoreOperators(Lifespan lifespan)
+        {
+            mergeJoinSourceManager.getJoinBridge(lifespan).noMoreProducers();
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // the drivers of an ungrouped pipeline all belong to the task wide lifespan
+            if (mergeJoinSourceManager.getBuildExecutionStrategy() == UNGROUPED_EXECUTION) {
+                mergeJoinSourceManager.getJoinBridge(Lifespan.taskWide()).noMoreProducers();
+            }
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            throw new UnsupportedOperationException("Merge join source can not be duplicated");
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final MergeJoinSource mergeJoinSource;
+    private final int producer;
+    private final LocalMemoryContext localUserMemoryContext;
+
+    private ListenableFuture<?> blocked = NOT_BLOCKED;
+    private boolean finishing;
+
+    public MergeJoinSourceOperator(OperatorContext operatorContext, MergeJoinSource mergeJoinSource)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.mergeJoinSource = requireNonNull(mergeJoinSource, "mergeJoinSource is null");
+        this.producer = mergeJoinSource.addProducer();
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (finishing) {
+            return;
+        }
+        finishing = true;
+        mergeJoinSource.producerFinished();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        boolean finished = finishing && mergeJoinSource.getDrainedFuture().isDone();
+        updateMemoryUsage();
+        if (finished) {
+            localUserMemoryContext.setBytes(0);
+        }
+        return finished;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        updateMemoryUsage();
+        if (finishing) {
+            // keep the pages accounted for until the join operator consumed them
+            return mergeJoinSource.getDrainedFuture();
+        }
+        if (blocked.isDone()) {
+            blocked = NOT_BLOCKED;
+        }
+        return blocked;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && blocked.isDone();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator is already finishing or blocked");
+
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        blocked = mergeJoinSource.addPage(producer, page);
+        updateMemoryUsage();
+        operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        return null;
+    }
+
+    @Override
+    public void close()
+    {
+        localUserMemoryContext.setBytes(0);
+    }
+
+    private void updateMemoryUsage()
+    {
+        localUserMemoryContext.setBytes(mergeJoinSource.getBufferedBytes());
+    }
+}
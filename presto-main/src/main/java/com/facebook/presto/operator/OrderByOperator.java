@@ -222,7 +222,8 @@ public class OrderByOperator
                 }
             }
 
-            pageIndex.sort(sortChannels, sortOrder);
+            // the driver thread waits while large indexes are sorted on the sort pool
+            operatorContext.recordAdditionalCpu(pageIndex.parallelSort(sortChannels, sortOrder));
             Iterator<Page> sortedPagesIndex = pageIndex.getSortedPages();
 
             List<WorkProcessor<Page>> spilledPages = getSpilledPages();
@@ -310,7 +311,7 @@ public class OrderByOperator
                     operatorContext.aggregateSystemMemoryContext()));
         }
 
-        pageIndex.sort(sortChannels, sortOrder);
+        operatorContext.recordAdditionalCpu(pageIndex.parallelSort(sortChannels, sortOrder));
         spillInProgress = spiller.get().spill(pageIndex.getSortedPages());
         finishMemoryRevoke = () -> {
             pageIndex.clear();
@@ -52,6 +52,7 @@ import static com.facebook.presto.spi.page.PagesSerdeUtil.isChecksumValid;
 import static com.facebook.presto.util.Failures.REMOTE_TASK_MISMATCH_ERROR;
 import static com.facebook.presto.util.Failures.WORKER_NODE_ERROR;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.lang.String.format;
@@ -106,6 +107,9 @@ public final class PageBufferClient
     private boolean completed;
     @GuardedBy("this")
     private String taskInstanceId;
+    // pages per pipelined request, zero unless the last response showed a backlog in the remote buffer
+    @GuardedBy("this")
+    private int prefetchPages;
 
     private final AtomicLong rowsReceived = new AtomicLong();
     private final AtomicInteger pagesReceived = new AtomicInteger();
@@ -226,10 +230,23 @@ public final class PageBufferClient
 
     public synchronized void scheduleRequest(DataSize maxResponseSize)
     {
+        scheduleRequest(maxResponseSize, 1);
+    }
+
+    /**
+     * Schedules the next request. When the remote buffer has a backlog of pages, the request is
+     * pipelined into up to maxRequests concurrent requests for consecutive ranges of tokens.
+     *
+     * @return the number of requests scheduled
+     */
+    public synchronized int scheduleRequest(DataSize maxResponseSize, int maxRequests)
+    {
+        checkArgument(maxRequests > 0, "maxRequests must be at least 1");
         if (closed || (future != null) || scheduled) {
-            return;
+            return 0;
         }
         scheduled = true;
+        int requestCount = !completed && prefetchPages > 0 && resultClient.isPrefetchSupported() ? maxRequests : 1;
 
         // start before scheduling to include error delay
         backoff.startRequest();
@@ -237,7 +254,7 @@ public final class PageBufferClient
         long delayNanos = backoff.getBackoffDelayNanos();
         scheduler.schedule(() -> {
             try {
-                initiateRequest(maxResponseSize);
+                initiateRequest(maxResponseSize, requestCount);
             }
             catch (Throwable t) {
                 // should not happen, but be safe and fail the operator
@@ -246,10 +263,11 @@ public final class PageBufferClient
         }, delayNanos, NANOSECONDS);
 
         lastUpdate = DateTime.now();
-        requestsScheduled.incrementAndGet();
+        requestsScheduled.addAndGet(requestCount);
+        return requestCount;
     }
 
-    private synchronized void initiateRequest(DataSize maxResponseSize)
+    private synchronized void initiateRequest(DataSize maxResponseSize, int requestCount)
     {
         scheduled = false;
         if (closed || (future != null)) {
@@ -259,6 +277,9 @@ public final class PageBufferClient
         if (completed) {
             sendDelete();
         }
+        else if (requestCount > 1) {
+            sendPrefetchResults(maxResponseSize, requestCount);
+        }
         else {
             sendGetResults(maxResponseSize);
         }
@@ -288,19 +309,15 @@ public final class PageBufferClient
                 try {
                     boolean shouldAcknowledge = false;
                     synchronized (PageBufferClient.this) {
-                        if (taskInstanceId == null) {
-                            taskInstanceId = result.getTaskInstanceId();
-                        }
-
-                        if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
-                            // TODO: update error message
-                            throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
-                        }
+                        checkTaskInstanceId(result, uri);
 
                         if (result.getToken() == token) {
                             pages = result.getPages();
                             token = result.getNextToken();
                             shouldAcknowledge = pages.size() > 0;
+                            // a response limited by its size shows that the remote buffer has a backlog,
+                            // so the next requests can fetch several ranges of it concurrently
+                            prefetchPages = isLimitedBySize(pages, maxResponseSize) ? pages.size() : 0;
                         }
                         else {
                             pages = ImmutableList.of();
@@ -314,11 +331,7 @@ public final class PageBufferClient
                         resultClient.acknowledgeResultsAsync(result.getNextToken());
                     }
 
-                    for (SerializedPage page : pages) {
-                        if (!isChecksumValid(page)) {
-                            throw new PrestoException(SERIALIZED_PAGE_CHECKSUM_ERROR, format("Received corrupted serialized page from host %s", HostAddress.fromUri(uri)));
-                        }
-                    }
+                    verifyChecksums(pages, uri);
 
                     // add pages:
                     // addPages must be called regardless of whether pages is an empty list because
@@ -333,18 +346,7 @@ public final class PageBufferClient
                 }
 
                 // update client stats
-                if (!pages.isEmpty()) {
-                    int pageCount = pages.size();
-                    long rowCount = pages.stream().mapToLong(SerializedPage::getPositionCount).sum();
-                    if (pagesAccepted) {
-                        pagesReceived.addAndGet(pageCount);
-                        rowsReceived.addAndGet(rowCount);
-                    }
-                    else {
-                        pagesRejected.addAndGet(pageCount);
-                        rowsRejected.addAndGet(rowCount);
-                    }
-                }
+                updatePageStats(pages, pagesAccepted);
                 requestsCompleted.incrementAndGet();
 
                 synchronized (PageBufferClient.this) {
@@ -363,24 +365,164 @@ public final class PageBufferClient
             @Override
             public void onFailure(Throwable t)
             {
-                log.debug("Request to %s failed %s", uri, t);
+                handleResultsFailure(t, uri, resultFuture);
+            }
+        }, pageBufferClientCallbackExecutor);
+    }
+
+    private synchronized void sendPrefetchResults(DataSize maxResponseSize, int requestCount)
+    {
+        URI uriBase = asyncPageTransportLocation.orElse(location);
+        URI uri = HttpUriBuilder.uriBuilderFrom(uriBase).appendPath(String.valueOf(token)).build();
+
+        // The requests read consecutive ranges of pages, assuming each range is as long as the last
+        // response. The remote buffer does not acknowledge pages on these reads, so a range that is
+        // not received is read again by a later request.
+        int pagesPerRequest = prefetchPages;
+        ImmutableList.Builder<ListenableFuture<PagesResponse>> requests = ImmutableList.builder();
+        for (int i = 0; i < requestCount; i++) {
+            requests.add(resultClient.prefetchResults(token + (long) i * pagesPerRequest, maxResponseSize, pagesPerRequest));
+        }
+        ListenableFuture<List<PagesResponse>> resultFuture = Futures.allAsList(requests.build());
+
+        future = resultFuture;
+        Futures.addCallback(resultFuture, new FutureCallback<List<PagesResponse>>()
+        {
+            @Override
+            public void onSuccess(List<PagesResponse> results)
+            {
                 checkNotHoldsLock(this);
 
-                t = resultClient.rewriteException(t);
-                if (!(t instanceof PrestoException) && backoff.failure()) {
-                    String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
-                            WORKER_NODE_ERROR,
-                            uri,
-                            backoff.getFailureCount(),
-                            backoff.getFailureDuration().convertTo(SECONDS),
-                            backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
-                    t = new PageTransportTimeoutException(fromUri(uri), message, t);
+                backoff.success();
+
+                List<SerializedPage> pages;
+                long nextToken;
+                boolean pagesAccepted;
+                try {
+                    ImmutableList.Builder<SerializedPage> receivedPages = ImmutableList.builder();
+                    boolean backlog = true;
+                    synchronized (PageBufferClient.this) {
+                        nextToken = token;
+                        for (PagesResponse result : results) {
+                            checkTaskInstanceId(result, uri);
+
+                            // the ranges after a short one do not follow the received pages
+                            if (result.getToken() != nextToken) {
+                                break;
+                            }
+                            receivedPages.addAll(result.getPages());
+                            nextToken = result.getNextToken();
+                            if (result.getPages().size() < pagesPerRequest) {
+                                backlog = false;
+                                break;
+                            }
+                        }
+                        pages = receivedPages.build();
+                        token = nextToken;
+                        if (!backlog) {
+                            // fall back to a single request, which waits for more pages or finds that the buffer is complete
+                            prefetchPages = 0;
+                        }
+                    }
+
+                    if (!pages.isEmpty()) {
+                        // the remote buffer does not acknowledge the pages on these reads
+                        resultClient.acknowledgeResultsAsync(nextToken);
+                    }
+
+                    verifyChecksums(pages, uri);
+                    pagesAccepted = clientCallback.addPages(PageBufferClient.this, pages);
                 }
-                handleFailure(t, resultFuture);
+                catch (PrestoException e) {
+                    handleFailure(e, resultFuture);
+                    return;
+                }
+
+                updatePageStats(pages, pagesAccepted);
+                requestsCompleted.addAndGet(results.size());
+
+                synchronized (PageBufferClient.this) {
+                    if (future == resultFuture) {
+                        future = null;
+                    }
+                    lastUpdate = DateTime.now();
+                }
+                clientCallback.requestComplete(PageBufferClient.this);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                handleResultsFailure(t, uri, resultFuture);
             }
         }, pageBufferClientCallbackExecutor);
     }
 
+    private synchronized void checkTaskInstanceId(PagesResponse result, URI uri)
+    {
+        if (taskInstanceId == null) {
+            taskInstanceId = result.getTaskInstanceId();
+        }
+
+        if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
+            // TODO: update error message
+            throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
+        }
+    }
+
+    private static void verifyChecksums(List<SerializedPage> pages, URI uri)
+    {
+        for (SerializedPage page : pages) {
+            if (!isChecksumValid(page)) {
+                throw new PrestoException(SERIALIZED_PAGE_CHECKSUM_ERROR, format("Received corrupted serialized page from host %s", HostAddress.fromUri(uri)));
+            }
+        }
+    }
+
+    private static boolean isLimitedBySize(List<SerializedPage> pages, DataSize maxResponseSize)
+    {
+        // the remote buffer stops adding pages to a response when the next one would exceed the maximum size
+        long responseSize = pages.stream()
+                .mapToLong(SerializedPage::getRetainedSizeInBytes)
+                .sum();
+        return responseSize >= maxResponseSize.toBytes() / 2;
+    }
+
+    private void updatePageStats(List<SerializedPage> pages, boolean pagesAccepted)
+    {
+        if (pages.isEmpty()) {
+            return;
+        }
+        int pageCount = pages.size();
+        long rowCount = pages.stream().mapToLong(SerializedPage::getPositionCount).sum();
+        if (pagesAccepted) {
+            pagesReceived.addAndGet(pageCount);
+            rowsReceived.addAndGet(rowCount);
+        }
+        else {
+            pagesRejected.addAndGet(pageCount);
+            rowsRejected.addAndGet(rowCount);
+        }
+    }
+
+    private void handleResultsFailure(Throwable t, URI uri, ListenableFuture<?> resultFuture)
+    {
+        log.debug("Request to %s failed %s", uri, t);
+        checkNotHoldsLock(this);
+
+        t = resultClient.rewriteException(t);
+        if (!(t instanceof PrestoException) && backoff.failure()) {
+            String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
+                    WORKER_NODE_ERROR,
+                    uri,
+                    backoff.getFailureCount(),
+                    backoff.getFailureDuration().convertTo(SECONDS),
+                    backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
+            t = new PageTransportTimeoutException(fromUri(uri), message, t);
+        }
+        handleFailure(t, resultFuture);
+    }
+
     private synchronized void sendDelete()
     {
         ListenableFuture<?> resultFuture = resultClient.abortResults();
@@ -49,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -77,11 +78,15 @@ public class PagesIndex
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(PagesIndex.class).instanceSize();
     private static final Logger log = Logger.get(PagesIndex.class);
+    // sides of a partitioned range are sorted concurrently if both have at least this many positions
+    private static final int MIN_PARALLEL_SORT_POSITIONS = 64 * 1024;
 
     private final OrderingCompiler orderingCompiler;
     private final JoinCompiler joinCompiler;
     private final FunctionAndTypeManager functionAndTypeManager;
     private final boolean groupByUsesEqualTo;
+    private final Optional<ForkJoinPool> sortPool;
+    private final boolean radixSortEnabled;
 
     private final List<Type> types;
     private final AdaptiveLongBigArray valueAddresses;
@@ -98,6 +103,8 @@ public class PagesIndex
             JoinCompiler joinCompiler,
             FunctionAndTypeManager functionAndTypeManager,
             boolean groupByUsesEqualTo,
+            Optional<ForkJoinPool> sortPool,
+            boolean radixSortEnabled,
             List<Type> types,
             int expectedPositions,
             boolean eagerCompact)
@@ -106,6 +113,8 @@ public class PagesIndex
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.functionAndTypeManager = requireNonNull(functionAndTypeManager, "functionManager is null");
         this.groupByUsesEqualTo = groupByUsesEqualTo;
+        this.sortPool = requireNonNull(sortPool, "sortPool is null");
+        this.radixSortEnabled = radixSortEnabled;
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.valueAddresses = new AdaptiveLongBigArray();
         this.valueAddresses.ensureCapacity(expectedPositions);
@@ -132,16 +141,25 @@ public class PagesIndex
         private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(MetadataManager.createTestMetadataManager(), new FeaturesConfig());
         private final boolean groupByUsesEqualTo = new FeaturesConfig().isGroupByUsesEqualTo();
         private final boolean eagerCompact;
+        private final Optional<ForkJoinPool> sortPool;
+        private final boolean radixSortEnabled;
 
         public TestingFactory(boolean eagerCompact)
+        {
+            this(eagerCompact, Optional.empty(), false);
+        }
+
+        public TestingFactory(boolean eagerCompact, Optional<ForkJoinPool> sortPool, boolean radixSortEnabled)
         {
             this.eagerCompact = eagerCompact;
+            this.sortPool = requireNonNull(sortPool, "sortPool is null");
+            this.radixSortEnabled = radixSortEnabled;
         }
 
         @Override
         public PagesIndex newPagesIndex(List<Type> types, int expectedPositions)
         {
-            return new PagesIndex(ORDERING_COMPILER, JOIN_COMPILER, MetadataManager.createTestMetadataManager().getFunctionAndTypeManager(), groupByUsesEqualTo, types, expectedPositions, eagerCompact);
+            return new PagesIndex(ORDERING_COMPILER, JOIN_COMPILER, MetadataManager.createTestMetadataManager().getFunctionAndTypeManager(), groupByUsesEqualTo, sortPool, radixSortEnabled, types, expectedPositions, eagerCompact);
         }
     }
 
@@ -153,21 +171,25 @@ public class PagesIndex
         private final boolean eagerCompact;
         private final FunctionAndTypeManager functionAndTypeManager;
         private final boolean groupByUsesEqualTo;
+        private final Optional<ForkJoinPool> sortPool;
+        private final boolean radixSortEnabled;
 
         @Inject
-        public DefaultFactory(OrderingCompiler orderingCompiler, JoinCompiler joinCompiler, FeaturesConfig featuresConfig, Metadata metadata)
+        public DefaultFactory(OrderingCompiler orderingCompiler, JoinCompiler joinCompiler, FeaturesConfig featuresConfig, Metadata metadata, PagesIndexSortPool sortPool)
         {
             this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.eagerCompact = requireNonNull(featuresConfig, "featuresConfig is null").isPagesIndexEagerCompactionEnabled();
             this.functionAndTypeManager = requireNonNull(metadata, "metadata is null").getFunctionAndTypeManager();
             this.groupByUsesEqualTo = featuresConfig.isGroupByUsesEqualTo();
+            this.sortPool = requireNonNull(sortPool, "sortPool is null").getPool();
+            this.radixSortEnabled = featuresConfig.isPagesIndexRadixSortEnabled();
         }
 
         @Override
         public PagesIndex newPagesIndex(List<Type> types, int expectedPositions)
         {
-            return new PagesIndex(orderingCompiler, joinCompiler, functionAndTypeManager, groupByUsesEqualTo, types, expectedPositions, eagerCompact);
+            return new PagesIndex(orderingCompiler, joinCompiler, functionAndTypeManager, groupByUsesEqualTo, sortPool, radixSortEnabled, types, expectedPositions, eagerCompact);
         }
     }
 
@@ -378,7 +400,27 @@ public class PagesIndex
 
     public void sort(List<Integer> sortChannels, List<SortOrder> sortOrders, int startPosition, int endPosition)
     {
-        createPagesIndexComparator(sortChannels, sortOrders).sort(this, startPosition, endPosition);
+        PagesIndexOrdering ordering = createPagesIndexComparator(sortChannels, sortOrders);
+        if (radixSortEnabled && PagesIndexRadixSort.isSupported(types.get(sortChannels.get(0)), endPosition - startPosition)) {
+            PagesIndexRadixSort.sort(this, ordering, sortChannels, sortOrders, startPosition, endPosition);
+            return;
+        }
+        ordering.sort(this, startPosition, endPosition);
+    }
+
+    /**
+     * Sorts all positions, on the threads of the sort pool if the index is large enough.
+     *
+     * @return the CPU time spent sorting on the threads of the sort pool, which is not
+     * accounted to the calling thread
+     */
+    public long parallelSort(List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        if (!sortPool.isPresent() || positionCount < 2 * MIN_PARALLEL_SORT_POSITIONS) {
+            sort(sortChannels, sortOrders);
+            return 0;
+        }
+        return createPagesIndexComparator(sortChannels, sortOrders).parallelSort(this, 0, positionCount, sortPool.get(), MIN_PARALLEL_SORT_POSITIONS);
     }
 
     public boolean positionEqualsPosition(PagesHashStrategy partitionHashStrategy, int leftPosition, int rightPosition)
@@ -13,6 +13,17 @@
  */
 package com.facebook.presto.operator;
 
+import javax.annotation.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public class PagesIndexOrdering
@@ -20,6 +31,8 @@ public class PagesIndexOrdering
     private static final int SMALL = 7;
     private static final int MEDIUM = 40;
 
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
     private final PagesIndexComparator comparator;
 
     public PagesIndexOrdering(PagesIndexComparator comparator)
@@ -34,7 +47,22 @@ public class PagesIndexOrdering
 
     public void sort(PagesIndex pagesIndex, int startPosition, int endPosition)
     {
-        quickSort(pagesIndex, startPosition, endPosition);
+        quickSort(pagesIndex, startPosition, endPosition, null);
+    }
+
+    /**
+     * Sorts the specified range on the threads of the pool. Once a range is partitioned, both sides are
+     * sorted concurrently if they have at least {@code minForkPositions} positions. The ranges are disjoint,
+     * so the threads never swap the same positions.
+     *
+     * @return the CPU time spent sorting on the threads of the pool
+     */
+    public long parallelSort(PagesIndex pagesIndex, int startPosition, int endPosition, ForkJoinPool pool, int minForkPositions)
+    {
+        checkArgument(minForkPositions > SMALL, "minForkPositions must be greater than %s", SMALL);
+        AtomicLong cpuNanos = new AtomicLong();
+        pool.invoke(new SortTask(pagesIndex, startPosition, endPosition, minForkPositions, cpuNanos));
+        return cpuNanos.get();
     }
 
     /**
@@ -50,7 +78,7 @@ public class PagesIndexOrdering
      */
     // note this code was forked from Fastutils
     @SuppressWarnings("InnerAssignment")
-    private void quickSort(PagesIndex pagesIndex, int from, int to)
+    private void quickSort(PagesIndex pagesIndex, int from, int to, @Nullable SortTask task)
     {
         int len = to - from;
         // Insertion sort on smallest arrays
@@ -129,12 +157,19 @@ public class PagesIndexOrdering
         s = Math.min(d - c, n - d - 1);
         vectorSwap(pagesIndex, b, n - s, s);
 
+        // Sort both sides concurrently if they are large enough
+        if (task != null && b - a >= task.minForkPositions && d - c >= task.minForkPositions) {
+            task.fork(from, from + (b - a));
+            task.fork(n - (d - c), n);
+            return;
+        }
+
         // Recursively sort non-partition-elements
         if ((s = b - a) > 1) {
-            quickSort(pagesIndex, from, from + s);
+            quickSort(pagesIndex, from, from + s, task);
         }
         if ((s = d - c) > 1) {
-            quickSort(pagesIndex, n - s, n);
+            quickSort(pagesIndex, n - s, n, task);
         }
     }
 
@@ -160,4 +195,39 @@ public class PagesIndexOrdering
             pagesIndex.swap(from, l);
         }
     }
+
+    private class SortTask
+            extends RecursiveAction
+    {
+        private final PagesIndex pagesIndex;
+        private final int from;
+        private final int to;
+        private final int minForkPositions;
+        private final AtomicLong cpuNanos;
+        private final List<SortTask> subtasks = new ArrayList<>();
+
+        private SortTask(PagesIndex pagesIndex, int from, int to, int minForkPositions, AtomicLong cpuNanos)
+        {
+            this.pagesIndex = pagesIndex;
+            this.from = from;
+            this.to = to;
+            this.minForkPositions = minForkPositions;
+            this.cpuNanos = cpuNanos;
+        }
+
+        private void fork(int from, int to)
+        {
+            subtasks.add(new SortTask(pagesIndex, from, to, minForkPositions, cpuNanos));
+        }
+
+        @Override
+        protected void compute()
+        {
+            long start = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            quickSort(pagesIndex, from, to, this);
+            // the subtasks account for their own time, including when this thread runs them while it waits
+            cpuNanos.addAndGet(THREAD_MX_BEAN.getCurrentThreadCpuTime() - start);
+            invokeAll(subtasks);
+        }
+    }
 }
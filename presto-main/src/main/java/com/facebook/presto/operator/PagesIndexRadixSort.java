@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.block.SortOrder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import io.airlift.slice.Slice;
+
+import java.util.List;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static java.lang.Double.doubleToLongBits;
+import static java.lang.Float.floatToIntBits;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Sorts a range of a {@link PagesIndex} by the first sort key with an in-place MSD radix sort
+ * (American flag sort). The first key of every position is encoded into a {@code long} whose
+ * unsigned order is the order of the key, including the direction of the sort. Null keys are
+ * moved to the start or the end of the range before the radix sort.
+ * <p>
+ * The encoded keys of integer and floating point types are exact. The encoded key of a varchar
+ * or varbinary is the prefix of its first 8 bytes. Runs of positions with equal encoded keys are
+ * sorted with the comparator, unless the key is exact and is the only sort key.
+ * <p>
+ * The encoded keys take a {@code long} per position, which is not accounted in the memory of
+ * the operator that owns the index, so the ranges of more than {@link #MAX_SORT_POSITIONS}
+ * positions are sorted with the comparator instead.
+ */
+public final class PagesIndexRadixSort
+{
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // bounds the unaccounted encoded keys to 8MB
+    public static final int MAX_SORT_POSITIONS = 1 << 20;
+
+    private PagesIndexRadixSort() {}
+
+    public static boolean isSupported(Type type, int positionCount)
+    {
+        return positionCount <= MAX_SORT_POSITIONS && (isExact(type) || type instanceof VarcharType || type instanceof VarbinaryType);
+    }
+
+    private static boolean isExact(Type type)
+    {
+        return isSignedLong(type) || type.equals(DOUBLE) || type.equals(REAL);
+    }
+
+    private static boolean isSignedLong(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE) || type.equals(TIMESTAMP);
+    }
+
+    public static void sort(PagesIndex pagesIndex, PagesIndexOrdering ordering, List<Integer> sortChannels, List<SortOrder> sortOrders, int startPosition, int endPosition)
+    {
+        int channel = sortChannels.get(0);
+        SortOrder sortOrder = sortOrders.get(0);
+        Type type = pagesIndex.getType(channel);
+
+        // move the null keys out of the way, they are equal to each other
+        int nonNullStart = startPosition;
+        int nonNullEnd = endPosition;
+        if (sortOrder.isNullsFirst()) {
+            for (int position = startPosition; position < endPosition; position++) {
+                if (pagesIndex.isNull(channel, position)) {
+                    pagesIndex.swap(position, nonNullStart++);
+                }
+            }
+        }
+        else {
+            for (int position = endPosition - 1; position >= startPosition; position--) {
+                if (pagesIndex.isNull(channel, position)) {
+                    pagesIndex.swap(position, --nonNullEnd);
+                }
+            }
+        }
+
+        boolean tieBreak = sortChannels.size() > 1;
+        if (tieBreak) {
+            if (sortOrder.isNullsFirst()) {
+                ordering.sort(pagesIndex, startPosition, nonNullStart);
+            }
+            else {
+                ordering.sort(pagesIndex, nonNullEnd, endPosition);
+            }
+        }
+
+        long[] keys = new long[nonNullEnd - nonNullStart];
+        for (int i = 0; i < keys.length; i++) {
+            long key = encodeKey(pagesIndex, type, channel, nonNullStart + i);
+            keys[i] = sortOrder.isAscending() ? key : ~key;
+        }
+
+        radixSort(pagesIndex, keys, nonNullStart, 0, keys.length, Long.SIZE - RADIX_BITS);
+
+        if (tieBreak || !isExact(type)) {
+            int runStart = 0;
+            for (int i = 1; i <= keys.length; i++) {
+                if (i == keys.length || keys[i] != keys[runStart]) {
+                    if (i - runStart > 1) {
+                        ordering.sort(pagesIndex, nonNullStart + runStart, nonNullStart + i);
+                    }
+                    runStart = i;
+                }
+            }
+        }
+    }
+
+    private static long encodeKey(PagesIndex pagesIndex, Type type, int channel, int position)
+    {
+        if (isSignedLong(type)) {
+            // flip the sign bit, so that negative values are before positive values
+            return pagesIndex.getLong(channel, position) ^ Long.MIN_VALUE;
+        }
+        if (type.equals(DOUBLE)) {
+            // doubleToLongBits collapses all NaNs to the largest value, which matches Double.compare
+            long bits = doubleToLongBits(pagesIndex.getDouble(channel, position));
+            return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+        }
+        if (type.equals(REAL)) {
+            int bits = floatToIntBits(intBitsToFloat(toIntExact(pagesIndex.getLong(channel, position))));
+            // the key is in the high bits, the low bits are the same for all keys and are skipped by the radix sort
+            return (long) (bits < 0 ? ~bits : bits ^ Integer.MIN_VALUE) << Integer.SIZE;
+        }
+        // the first bytes in big endian order, which compares like the unsigned bytes of the slice
+        Slice slice = pagesIndex.getSlice(channel, position);
+        long key = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            key <<= Byte.SIZE;
+            if (i < slice.length()) {
+                key |= slice.getByte(i) & 0xFF;
+            }
+        }
+        return key;
+    }
+
+    private static void radixSort(PagesIndex pagesIndex, long[] keys, int offset, int from, int to, int shift)
+    {
+        if (to - from < INSERTION_SORT_THRESHOLD) {
+            insertionSort(pagesIndex, keys, offset, from, to);
+            return;
+        }
+
+        int[] counts = new int[RADIX];
+        for (int i = from; i < to; i++) {
+            counts[digit(keys[i], shift)]++;
+        }
+
+        // all keys share this digit, so there is nothing to move
+        if (counts[digit(keys[from], shift)] == to - from) {
+            if (shift > 0) {
+                radixSort(pagesIndex, keys, offset, from, to, shift - RADIX_BITS);
+            }
+            return;
+        }
+
+        int[] bucketEnds = new int[RADIX];
+        int[] nextPositions = new int[RADIX];
+        int position = from;
+        for (int bucket = 0; bucket < RADIX; bucket++) {
+            nextPositions[bucket] = position;
+            position += counts[bucket];
+            bucketEnds[bucket] = position;
+        }
+
+        // move each key to its bucket, each swap places at least one key in its final bucket
+        for (int bucket = 0; bucket < RADIX; bucket++) {
+            while (nextPositions[bucket] < bucketEnds[bucket]) {
+                int current = nextPositions[bucket];
+                int target = digit(keys[current], shift);
+                if (target == bucket) {
+                    nextPositions[bucket]++;
+                }
+                else {
+                    swap(pagesIndex, keys, offset, current, nextPositions[target]++);
+                }
+            }
+        }
+
+        if (shift > 0) {
+            int bucketStart = from;
+            for (int bucket = 0; bucket < RADIX; bucket++) {
+                if (bucketEnds[bucket] - bucketStart > 1) {
+                    radixSort(pagesIndex, keys, offset, bucketStart, bucketEnds[bucket], shift - RADIX_BITS);
+                }
+                bucketStart = bucketEnds[bucket];
+            }
+        }
+    }
+
+    private static void insertionSort(PagesIndex pagesIndex, long[] keys, int offset, int from, int to)
+    {
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && Long.compareUnsigned(keys[j - 1], keys[j]) > 0; j--) {
+                swap(pagesIndex, keys, offset, j - 1, j);
+            }
+        }
+    }
+
+    private static int digit(long key, int shift)
+    {
+        return (int) (key >>> shift) & (RADIX - 1);
+    }
+
+    private static void swap(PagesIndex pagesIndex, long[] keys, int offset, int a, int b)
+    {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        pagesIndex.swap(offset + a, offset + b);
+    }
+}
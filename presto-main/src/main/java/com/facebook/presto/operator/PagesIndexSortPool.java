@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskManagerConfig;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The threads that sort large {@link PagesIndex} instances concurrently, shared by all tasks of the worker.
+ */
+public class PagesIndexSortPool
+{
+    private final Optional<ForkJoinPool> pool;
+
+    @Inject
+    public PagesIndexSortPool(TaskManagerConfig config)
+    {
+        this(requireNonNull(config, "config is null").getParallelSortThreads());
+    }
+
+    public PagesIndexSortPool(int threads)
+    {
+        if (threads <= 1) {
+            this.pool = Optional.empty();
+            return;
+        }
+        this.pool = Optional.of(new ForkJoinPool(
+                threads,
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("pages-index-sort-" + thread.getPoolIndex());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                null,
+                false));
+    }
+
+    public Optional<ForkJoinPool> getPool()
+    {
+        return pool;
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        pool.ifPresent(ForkJoinPool::shutdownNow);
+    }
+
+    @Managed
+    public int getParallelism()
+    {
+        return pool.map(ForkJoinPool::getParallelism).orElse(1);
+    }
+
+    @Managed
+    public long getStealCount()
+    {
+        return pool.map(ForkJoinPool::getStealCount).orElse(0L);
+    }
+}
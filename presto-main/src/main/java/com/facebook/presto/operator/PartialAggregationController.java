@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides at runtime whether a partial aggregation is worth running. The partial
+ * aggregation operators of a pipeline report how many rows went into each flushed
+ * hash table and how many groups came out of it. Once enough rows have been seen,
+ * partial aggregation is disabled for all the operators if the number of groups
+ * is too close to the number of rows, and the rows are sent to the final
+ * aggregation as they are.
+ */
+@ThreadSafe
+public class PartialAggregationController
+{
+    private final long minRows;
+    private final double uniqueRowsRatioThreshold;
+
+    private volatile boolean partialAggregationDisabled;
+    private volatile boolean evaluated;
+    @GuardedBy("this")
+    private long totalRowsProcessed;
+    @GuardedBy("this")
+    private long totalUniqueRowsProduced;
+
+    public PartialAggregationController(long minRows, double uniqueRowsRatioThreshold)
+    {
+        checkArgument(minRows > 0, "minRows must be positive");
+        checkArgument(uniqueRowsRatioThreshold >= 0 && uniqueRowsRatioThreshold <= 1, "uniqueRowsRatioThreshold must be between 0 and 1");
+        this.minRows = minRows;
+        this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
+    }
+
+    public boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationDisabled;
+    }
+
+    /**
+     * Returns true if an operator that processed the given number of rows should flush
+     * its hash table early, so that the reduction can be measured without waiting for
+     * the partial aggregation memory limit.
+     */
+    public boolean shouldFlushForEvaluation(long rowsProcessed)
+    {
+        return !evaluated && rowsProcessed >= minRows;
+    }
+
+    public synchronized void onFlush(long rowsProcessed, long uniqueRowsProduced)
+    {
+        if (partialAggregationDisabled) {
+            return;
+        }
+        totalRowsProcessed += rowsProcessed;
+        totalUniqueRowsProduced += uniqueRowsProduced;
+        if (totalRowsProcessed < minRows) {
+            return;
+        }
+        evaluated = true;
+        if (totalUniqueRowsProduced > totalRowsProcessed * uniqueRowsRatioThreshold) {
+            partialAggregationDisabled = true;
+        }
+    }
+
+    public PartialAggregationController duplicate()
+    {
+        return new PartialAggregationController(minRows, uniqueRowsRatioThreshold);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills the hash table of an operator keyed by some of its input channels, together with
+ * the input the operator defers once it has spilled. Both are partitioned on a hash of the
+ * key, so that each partition can later be processed on its own, with the part of the hash
+ * table it owns restored first.
+ * <p>
+ * The hash table is spilled as pages of the key channels, followed by the precomputed hash
+ * channel if there is one and by any per group state of the operator. These pages can be
+ * restored into a {@link GroupByHash} that reads the input layout with {@link #toInputLayout}.
+ */
+class PartitionedHashSpiller
+        implements Closeable
+{
+    static final int SPILL_PARTITIONS = 8;
+
+    private final List<Type> inputTypes;
+    private final int[] keyChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<Type> stateTypes;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final OperatorContext operatorContext;
+    private final LocalPartitionGenerator inputPartitionGenerator;
+    private final LocalPartitionGenerator statePartitionGenerator;
+    private final Closer closer = Closer.create();
+
+    private Optional<PartitioningSpiller> stateSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+
+    /**
+     * @param groupByHashTypes the types of the hash table, as reported by {@link GroupByHash#getTypes()}
+     * @param extraStateTypes the types of the per group state spilled after the hash table channels
+     */
+    public PartitionedHashSpiller(
+            List<Type> inputTypes,
+            List<Integer> keyChannels,
+            Optional<Integer> hashChannel,
+            List<Type> groupByHashTypes,
+            List<Type> extraStateTypes,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            OperatorContext operatorContext)
+    {
+        this.inputTypes = ImmutableList.copyOf(requireNonNull(inputTypes, "inputTypes is null"));
+        this.keyChannels = requireNonNull(keyChannels, "keyChannels is null").stream().mapToInt(Integer::intValue).toArray();
+        checkArgument(this.keyChannels.length > 0, "keyChannels is empty");
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.stateTypes = ImmutableList.<Type>builder()
+                .addAll(requireNonNull(groupByHashTypes, "groupByHashTypes is null"))
+                .addAll(requireNonNull(extraStateTypes, "extraStateTypes is null"))
+                .build();
+        checkArgument(groupByHashTypes.size() == this.keyChannels.length + (hashChannel.isPresent() ? 1 : 0), "groupByHashTypes does not match the key channels");
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+
+        // the precomputed hash is not used, as it is not guaranteed to be spilled with the hash table
+        ImmutableList.Builder<Type> keyTypes = ImmutableList.builder();
+        int[] stateKeyChannels = new int[this.keyChannels.length];
+        for (int i = 0; i < this.keyChannels.length; i++) {
+            keyTypes.add(inputTypes.get(this.keyChannels[i]));
+            stateKeyChannels[i] = i;
+        }
+        this.inputPartitionGenerator = new LocalPartitionGenerator(new InterpretedHashGenerator(keyTypes.build(), this.keyChannels), SPILL_PARTITIONS);
+        this.statePartitionGenerator = new LocalPartitionGenerator(new InterpretedHashGenerator(keyTypes.build(), stateKeyChannels), SPILL_PARTITIONS);
+    }
+
+    public int getPartitionCount()
+    {
+        return SPILL_PARTITIONS;
+    }
+
+    public boolean hasSpilled()
+    {
+        return stateSpiller.isPresent() || inputSpiller.isPresent();
+    }
+
+    /**
+     * Spills the groups of the hash table, with the per group state written by {@code extraStateWriter}
+     * starting at the first channel after the hash table channels. The hash table must not change
+     * until the returned future completes.
+     */
+    public ListenableFuture<?> spillGroups(GroupByHash groupByHash, ObjIntConsumer<PageBuilder> extraStateWriter)
+    {
+        return spillState(new GroupPagesIterator(groupByHash, extraStateWriter));
+    }
+
+    /**
+     * Spills pages in the layout of the hash table spilled by {@link #spillGroups}.
+     */
+    public ListenableFuture<?> spillState(Iterator<Page> pages)
+    {
+        if (!stateSpiller.isPresent()) {
+            stateSpiller = Optional.of(createSpiller(stateTypes, statePartitionGenerator));
+        }
+        return spillPages(stateSpiller.get(), pages);
+    }
+
+    public ListenableFuture<?> spillInput(Page page)
+    {
+        return spillInput(Collections.singletonList(page).iterator());
+    }
+
+    public ListenableFuture<?> spillInput(Iterator<Page> pages)
+    {
+        if (!inputSpiller.isPresent()) {
+            inputSpiller = Optional.of(createSpiller(inputTypes, inputPartitionGenerator));
+        }
+        return spillPages(inputSpiller.get(), pages);
+    }
+
+    public Iterator<Page> getSpilledState(int partition)
+    {
+        return stateSpiller.map(spiller -> spiller.getSpilledPages(partition)).orElse(Collections.emptyIterator());
+    }
+
+    public Iterator<Page> getSpilledInput(int partition)
+    {
+        return inputSpiller.map(spiller -> spiller.getSpilledPages(partition)).orElse(Collections.emptyIterator());
+    }
+
+    /**
+     * Places the hash table channels of a spilled state page at the channels they are read from in
+     * the input, so that the page can be added to a {@link GroupByHash} created for the input.
+     */
+    public Page toInputLayout(Page statePage)
+    {
+        int positionCount = statePage.getPositionCount();
+        Block[] blocks = new Block[inputTypes.size()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = RunLengthEncodedBlock.create(inputTypes.get(channel), null, positionCount);
+        }
+        for (int i = 0; i < keyChannels.length; i++) {
+            blocks[keyChannels[i]] = statePage.getBlock(i);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[hashChannel.get()] = statePage.getBlock(keyChannels.length);
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    @Override
+    public void close()
+    {
+        try {
+            closer.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PartitioningSpiller createSpiller(List<Type> types, LocalPartitionGenerator partitionGenerator)
+    {
+        return closer.register(partitioningSpillerFactory.create(
+                types,
+                partitionGenerator,
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext()));
+    }
+
+    private static ListenableFuture<?> spillPages(PartitioningSpiller spiller, Iterator<Page> pages)
+    {
+        // the spiller does not accept a page while the previous one is being written
+        while (pages.hasNext()) {
+            ListenableFuture<?> spillingFuture = spiller.partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+            if (!spillingFuture.isDone()) {
+                return transformAsync(spillingFuture, ignored -> spillPages(spiller, pages), directExecutor());
+            }
+            getFutureValue(spillingFuture);
+        }
+        return immediateFuture(null);
+    }
+
+    private class GroupPagesIterator
+            extends AbstractIterator<Page>
+    {
+        private final GroupByHash groupByHash;
+        private final ObjIntConsumer<PageBuilder> extraStateWriter;
+        private final PageBuilder pageBuilder = new PageBuilder(stateTypes);
+        private int groupId;
+
+        private GroupPagesIterator(GroupByHash groupByHash, ObjIntConsumer<PageBuilder> extraStateWriter)
+        {
+            this.groupByHash = requireNonNull(groupByHash, "groupByHash is null");
+            this.extraStateWriter = requireNonNull(extraStateWriter, "extraStateWriter is null");
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            int groupCount = groupByHash.getGroupCount();
+            if (groupId == groupCount) {
+                return endOfData();
+            }
+            pageBuilder.reset();
+            while (groupId < groupCount && !pageBuilder.isFull()) {
+                pageBuilder.declarePosition();
+                groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                extraStateWriter.accept(pageBuilder, groupId);
+                groupId++;
+            }
+            return pageBuilder.build();
+        }
+    }
+}
@@ -22,20 +22,27 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class RowNumberOperator
@@ -55,6 +62,8 @@ public class RowNumberOperator
         private final int expectedPositions;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public RowNumberOperatorFactory(
                 int operatorId,
@@ -67,6 +76,23 @@ public class RowNumberOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public RowNumberOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<Integer> partitionChannels,
+                List<? extends Type> partitionTypes,
+                Optional<Integer> maxRowsPerPartition,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -80,6 +106,8 @@ public class RowNumberOperator
             checkArgument(expectedPositions > 0, "expectedPositions < 0");
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -97,7 +125,9 @@ public class RowNumberOperator
                     maxRowsPerPartition,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
 
         @Override
@@ -109,22 +139,29 @@ public class RowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new RowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler);
+            return new RowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
     private boolean finishing;
 
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<Type> types;
+    private final List<Integer> partitionChannels;
+    private final List<Type> partitionTypes;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
 
     private GroupByIdBlock partitionIds;
-    private final Optional<GroupByHash> groupByHash;
+    private Optional<GroupByHash> groupByHash;
 
     private Page inputPage;
-    private final LongBigArray partitionRowCount;
+    private LongBigArray partitionRowCount;
 
     private final Optional<Integer> maxRowsPerPartition;
     // Only present if maxRowsPerPartition is present
@@ -133,6 +170,16 @@ public class RowNumberOperator
     // for yield when memory is not available
     private Work<GroupByIdBlock> unfinishedWork;
 
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private Optional<PartitionedHashSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+
+    // once the partition row counts have been spilled, the input is deferred and processed one spill partition at a time when finishing
+    private int unspilledPartitions;
+    private Iterator<Page> spilledInput = emptyIterator();
+
     public RowNumberOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -143,11 +190,36 @@ public class RowNumberOperator
             Optional<Integer> hashChannel,
             int expectedPositions,
             JoinCompiler joinCompiler)
+    {
+        this(operatorContext, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public RowNumberOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<Integer> partitionChannels,
+            List<Type> partitionTypes,
+            Optional<Integer> maxRowsPerPartition,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(outputChannels);
         this.types = toTypes(sourceTypes, outputChannels);
+        this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
         this.maxRowsPerPartition = maxRowsPerPartition;
         if (maxRowsPerPartition.isPresent()) {
@@ -162,8 +234,7 @@ public class RowNumberOperator
             this.groupByHash = Optional.empty();
         }
         else {
-            int[] channels = Ints.toArray(partitionChannels);
-            this.groupByHash = Optional.of(createGroupByHash(partitionTypes, channels, hashChannel, expectedPositions, isDictionaryAggregationEnabled(operatorContext.getSession()), joinCompiler, this::updateMemoryReservation));
+            this.groupByHash = Optional.of(createPartitionHash(this::updateMemoryReservation));
         }
     }
 
@@ -189,7 +260,7 @@ public class RowNumberOperator
             return partitionRowCount.get(0) == maxRowsPerPartition.get();
         }
 
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && !hasUnspilledPartitions();
     }
 
     @Override
@@ -199,7 +270,13 @@ public class RowNumberOperator
             // Check if single partition is done
             return partitionRowCount.get(0) < maxRowsPerPartition.get() && !finishing && !hasUnfinishedInput();
         }
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
     }
 
     @Override
@@ -208,6 +285,14 @@ public class RowNumberOperator
         checkState(!finishing, "Operator is already finishing");
         requireNonNull(page, "page is null");
         checkState(!hasUnfinishedInput());
+        checkSpillSucceeded(spillInProgress);
+
+        if (spiller.isPresent()) {
+            // the rows of the page may belong to partitions that have been spilled, so they can only be numbered with the spill partition
+            spillInProgress = spiller.get().spillInput(page);
+            return;
+        }
+
         inputPage = page;
         if (groupByHash.isPresent()) {
             unfinishedWork = groupByHash.get().getGroupIds(inputPage);
@@ -219,12 +304,28 @@ public class RowNumberOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
         if (unfinishedWork != null && !processUnfinishedWork()) {
             return null;
         }
 
         if (inputPage == null) {
-            return null;
+            if (!finishing || !hasUnspilledPartitions()) {
+                return null;
+            }
+            if (!spilledInput.hasNext()) {
+                unspillNextPartition();
+                return null;
+            }
+            inputPage = spilledInput.next();
+            unfinishedWork = groupByHash.get().getGroupIds(inputPage);
+            if (!processUnfinishedWork()) {
+                return null;
+            }
         }
 
         Page outputPage;
@@ -240,11 +341,96 @@ public class RowNumberOperator
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finishing || hasUnfinishedInput() || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        GroupByHash groupByHash = this.groupByHash.get();
+        int rowCountChannel = groupByHash.getTypes().size();
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(new PartitionedHashSpiller(
+                    sourceTypes,
+                    partitionChannels,
+                    hashChannel,
+                    groupByHash.getTypes(),
+                    ImmutableList.of(BIGINT),
+                    partitioningSpillerFactory,
+                    operatorContext));
+        }
+
+        ListenableFuture<?> spillFuture = spiller.get().spillGroups(
+                groupByHash,
+                (pageBuilder, groupId) -> BIGINT.writeLong(pageBuilder.getBlockBuilder(rowCountChannel), partitionRowCount.get(groupId)));
+        finishMemoryRevoke = () -> {
+            this.groupByHash = Optional.of(createPartitionHash(this::updateMemoryReservation));
+            partitionRowCount = new LongBigArray(0);
+            updateMemoryReservation();
+        };
+        return spillFuture;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(PartitionedHashSpiller::close);
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
     }
 
+    private boolean hasUnspilledPartitions()
+    {
+        return spiller.isPresent() && (unspilledPartitions < spiller.get().getPartitionCount() || spilledInput.hasNext());
+    }
+
+    private void unspillNextPartition()
+    {
+        PartitionedHashSpiller spiller = this.spiller.get();
+        int partition = unspilledPartitions++;
+
+        // the row counts of the partitions seen before the spill are restored first, so that the numbering continues from them
+        GroupByHash groupByHash = createPartitionHash(() -> {
+            updateMemoryReservation();
+            return true;
+        });
+        this.groupByHash = Optional.of(groupByHash);
+        partitionRowCount = new LongBigArray(0);
+        int rowCountChannel = groupByHash.getTypes().size();
+        Iterator<Page> spilledRowCounts = spiller.getSpilledState(partition);
+        while (spilledRowCounts.hasNext()) {
+            Page page = spilledRowCounts.next();
+            Work<GroupByIdBlock> work = groupByHash.getGroupIds(spiller.toInputLayout(page));
+            verify(work.process(), "restoring the spilled row counts did not complete");
+            GroupByIdBlock groupIds = work.getResult();
+            partitionRowCount.ensureCapacity(groupIds.getGroupCount());
+            Block rowCounts = page.getBlock(rowCountChannel);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                partitionRowCount.set(groupIds.getGroupId(position), BIGINT.getLong(rowCounts, position));
+            }
+        }
+        spilledInput = spiller.getSpilledInput(partition);
+        updateMemoryReservation();
+    }
+
+    private GroupByHash createPartitionHash(UpdateMemory updateMemory)
+    {
+        return createGroupByHash(partitionTypes, Ints.toArray(partitionChannels), hashChannel, expectedPositions, isDictionaryAggregationEnabled(operatorContext.getSession()), joinCompiler, updateMemory);
+    }
+
     /**
      * Update memory usage.
      *
@@ -258,7 +444,14 @@ public class RowNumberOperator
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
         long memorySizeInBytes = groupByHash.map(GroupByHash::getEstimatedSize).orElse(0L) + partitionRowCount.sizeOf();
-        localUserMemoryContext.setBytes(memorySizeInBytes);
+        // the partitions restored from the spill cannot be revoked
+        if (spillEnabled && groupByHash.isPresent() && unspilledPartitions == 0) {
+            localRevocableMemoryContext.setBytes(memorySizeInBytes);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(memorySizeInBytes);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
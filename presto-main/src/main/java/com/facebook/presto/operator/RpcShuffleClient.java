@@ -24,6 +24,23 @@ public interface RpcShuffleClient
 {
     ListenableFuture<PagesResponse> getResults(long token, DataSize maxResponseSize);
 
+    /**
+     * Whether the client can read ahead of the acknowledged token with {@link #prefetchResults}.
+     */
+    default boolean isPrefetchSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Gets up to {@param maxPages} pages that are already buffered, starting at {@param token},
+     * without acknowledging the pages before the token and without waiting for more pages.
+     */
+    default ListenableFuture<PagesResponse> prefetchResults(long token, DataSize maxResponseSize, int maxPages)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * A fire and forget call to issue the ack to the buffer.
      * No need to handle the response; it is ok for a server to miss the ack.
@@ -20,6 +20,7 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.LazyBlock;
 import com.facebook.presto.common.block.LazyBlockLoader;
 import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.execution.ScheduledSplit;
@@ -41,6 +42,7 @@ import com.facebook.presto.split.EmptySplitPageSource;
 import com.facebook.presto.split.PageSourceProvider;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
@@ -81,6 +83,7 @@ public class ScanFilterAndProjectOperator
     private final LocalMemoryContext outputMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
     private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier;
+    private final Optional<Supplier<Map<ColumnHandle, SplitBlockBloomFilter>>> dynamicBloomFilterSupplier;
     private final MergingPageOutput mergingOutput;
 
     private RecordCursor cursor;
@@ -104,6 +107,7 @@ public class ScanFilterAndProjectOperator
             Iterable<ColumnHandle> columns,
             Iterable<Type> types,
             Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
+            Optional<Supplier<Map<ColumnHandle, SplitBlockBloomFilter>>> dynamicBloomFilterSupplier,
             MergingPageOutput mergingOutput)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
@@ -118,6 +122,7 @@ public class ScanFilterAndProjectOperator
         this.pageProcessorMemoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.outputMemoryContext = operatorContext.newLocalSystemMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
+        this.dynamicBloomFilterSupplier = requireNonNull(dynamicBloomFilterSupplier, "dynamicBloomFilterSupplier is null");
         this.mergingOutput = requireNonNull(mergingOutput, "mergingOutput is null");
 
         this.pageBuilder = new PageBuilder(ImmutableList.copyOf(requireNonNull(types, "types is null")));
@@ -247,6 +252,16 @@ public class ScanFilterAndProjectOperator
         }
 
         if (!finishing && pageSource == null && cursor == null) {
+            Map<ColumnHandle, SplitBlockBloomFilter> splitBloomFilters = dynamicBloomFilterSupplier.map(Supplier::get).orElse(ImmutableMap.of());
+            if (!splitBloomFilters.isEmpty()) {
+                // the rows are tested against the Bloom filters by the connector, like the dynamic filter predicate
+                split = new Split(
+                        split.getConnectorId(),
+                        split.getTransactionHandle(),
+                        split.getConnectorSplit(),
+                        split.getLifespan(),
+                        split.getSplitContext().withDynamicFilterBloomFilters(splitBloomFilters));
+            }
             ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, dynamicFilterSupplier.map(table::withDynamicFilter).orElse(table), columns);
             if (source instanceof RecordPageSource) {
                 cursor = ((RecordPageSource) source).getCursor();
@@ -417,6 +432,7 @@ public class ScanFilterAndProjectOperator
         private final List<ColumnHandle> columns;
         private final List<Type> types;
         private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier;
+        private final Optional<Supplier<Map<ColumnHandle, SplitBlockBloomFilter>>> dynamicBloomFilterSupplier;
         private final DataSize minOutputPageSize;
         private final int minOutputPageRowCount;
         private boolean closed;
@@ -434,6 +450,40 @@ public class ScanFilterAndProjectOperator
                 Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
                 DataSize minOutputPageSize,
                 int minOutputPageRowCount)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceId,
+                    pageSourceProvider,
+                    cursorProcessor,
+                    pageProcessor,
+                    table,
+                    columns,
+                    types,
+                    dynamicFilterSupplier,
+                    Optional.empty(),
+                    minOutputPageSize,
+                    minOutputPageRowCount);
+        }
+
+        /**
+         * @param dynamicBloomFilterSupplier Bloom filters of the join build sides, which are passed to the connector with the split
+         */
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Supplier<CursorProcessor> cursorProcessor,
+                Supplier<PageProcessor> pageProcessor,
+                TableHandle table,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
+                Optional<Supplier<Map<ColumnHandle, SplitBlockBloomFilter>>> dynamicBloomFilterSupplier,
+                DataSize minOutputPageSize,
+                int minOutputPageRowCount)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -445,6 +495,7 @@ public class ScanFilterAndProjectOperator
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
             this.types = requireNonNull(types, "types is null");
             this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
+            this.dynamicBloomFilterSupplier = requireNonNull(dynamicBloomFilterSupplier, "dynamicBloomFilterSupplier is null");
             this.minOutputPageSize = requireNonNull(minOutputPageSize, "minOutputPageSize is null");
             this.minOutputPageRowCount = minOutputPageRowCount;
         }
@@ -470,6 +521,7 @@ public class ScanFilterAndProjectOperator
                     columns,
                     types,
                     dynamicFilterSupplier,
+                    dynamicBloomFilterSupplier,
                     new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount));
         }
 
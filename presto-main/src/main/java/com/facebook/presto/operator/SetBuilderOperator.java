@@ -15,34 +15,76 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.ChannelSet.ChannelSetBuilder;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.airlift.concurrent.MoreFutures.whenAnyComplete;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.operator.PartitionedHashSpiller.SPILL_PARTITIONS;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
 public class SetBuilderOperator
         implements Operator
 {
+    /**
+     * Hands the set to the probe operators. When the set builder has spilled, the values of the set are partitioned
+     * on their hash, and the probe operators spill their input with the same partitioning. Once every probe operator
+     * has finished its input and requested the first partition, the set builder restores it, and it restores each
+     * following partition once every probe operator is done with the previous one.
+     */
+    @ThreadSafe
     public static class SetSupplier
     {
         private final Type type;
         private final SettableFuture<ChannelSet> channelSetFuture = SettableFuture.create();
+        private final SettableFuture<SpilledChannelSet> spilledChannelSetFuture = SettableFuture.create();
+        private final ListenableFuture<?> setBuilt = whenAnyComplete(ImmutableList.<ListenableFuture<?>>of(channelSetFuture, spilledChannelSetFuture));
+
+        // the request of a partition by every probe operator, the last one once all the partitions are processed
+        private final List<SettableFuture<?>> partitionRequested = new ArrayList<>();
+
+        @GuardedBy("this")
+        private final List<SettableFuture<ChannelSet>> partitions = new ArrayList<>();
+        @GuardedBy("this")
+        private final int[] partitionRequests = new int[SPILL_PARTITIONS + 1];
+        @GuardedBy("this")
+        private int probeOperators;
+        @GuardedBy("this")
+        private boolean noMoreProbeOperators;
 
         public SetSupplier(Type type)
         {
             this.type = requireNonNull(type, "type is null");
+            for (int partition = 0; partition <= SPILL_PARTITIONS; partition++) {
+                partitionRequested.add(SettableFuture.create());
+            }
+            for (int partition = 0; partition < SPILL_PARTITIONS; partition++) {
+                partitions.add(SettableFuture.create());
+            }
         }
 
         public Type getType()
@@ -55,11 +97,140 @@ public class SetBuilderOperator
             return channelSetFuture;
         }
 
+        ListenableFuture<SpilledChannelSet> getSpilledChannelSet()
+        {
+            return spilledChannelSetFuture;
+        }
+
+        /**
+         * @return a future that completes when either the channel set or the spilled channel set is set
+         */
+        ListenableFuture<?> getSetBuilt()
+        {
+            return setBuilt;
+        }
+
         void setChannelSet(ChannelSet channelSet)
         {
             boolean wasSet = channelSetFuture.set(requireNonNull(channelSet, "channelSet is null"));
             checkState(wasSet, "ChannelSet already set");
         }
+
+        void setSpilledChannelSet(SpilledChannelSet spilledChannelSet)
+        {
+            checkState(!channelSetFuture.isDone(), "ChannelSet already set");
+            boolean wasSet = spilledChannelSetFuture.set(requireNonNull(spilledChannelSet, "spilledChannelSet is null"));
+            checkState(wasSet, "SpilledChannelSet already set");
+        }
+
+        synchronized void addProbeOperator()
+        {
+            checkState(!noMoreProbeOperators, "noMoreProbeOperators is already set");
+            probeOperators++;
+        }
+
+        void noMoreProbeOperators()
+        {
+            List<SettableFuture<?>> requested;
+            synchronized (this) {
+                noMoreProbeOperators = true;
+                requested = getRequestedPartitions();
+            }
+            requested.forEach(future -> future.set(null));
+        }
+
+        /**
+         * Requests a spilled partition of the set, which also declares that the probe operator is done with the
+         * previous partitions.
+         */
+        ListenableFuture<ChannelSet> requestPartition(int partition)
+        {
+            checkArgument(partition >= 0 && partition < SPILL_PARTITIONS, "invalid partition: %s", partition);
+            ListenableFuture<ChannelSet> channelSet;
+            List<SettableFuture<?>> requested;
+            synchronized (this) {
+                channelSet = partitions.get(partition);
+                partitionRequests[partition]++;
+                requested = getRequestedPartitions();
+            }
+            requested.forEach(future -> future.set(null));
+            return channelSet;
+        }
+
+        /**
+         * Declares that the probe operator does not need the spilled partitions starting at {@code fromPartition}.
+         */
+        void releasePartitions(int fromPartition)
+        {
+            List<SettableFuture<?>> requested;
+            synchronized (this) {
+                for (int partition = fromPartition; partition <= SPILL_PARTITIONS; partition++) {
+                    partitionRequests[partition]++;
+                }
+                requested = getRequestedPartitions();
+            }
+            requested.forEach(future -> future.set(null));
+        }
+
+        ListenableFuture<?> getPartitionRequested(int partition)
+        {
+            return partitionRequested.get(partition);
+        }
+
+        synchronized void setPartition(int partition, ChannelSet channelSet)
+        {
+            requireNonNull(channelSet, "channelSet is null");
+            SettableFuture<ChannelSet> future = partitions.get(partition);
+            // the probe operators may all have moved past a partition without spilled input before it is restored
+            if (future != null) {
+                future.set(channelSet);
+            }
+        }
+
+        @GuardedBy("this")
+        private List<SettableFuture<?>> getRequestedPartitions()
+        {
+            if (!noMoreProbeOperators) {
+                return ImmutableList.of();
+            }
+            ImmutableList.Builder<SettableFuture<?>> requested = ImmutableList.builder();
+            for (int partition = 0; partition <= SPILL_PARTITIONS; partition++) {
+                if (partitionRequests[partition] >= probeOperators) {
+                    requested.add(partitionRequested.get(partition));
+                    if (partition > 0) {
+                        // every probe operator is done with the previous partition, so let the memory go
+                        partitions.set(partition - 1, null);
+                    }
+                }
+            }
+            return requested.build();
+        }
+    }
+
+    /**
+     * The set of a semi join whose values are spilled. The probe operators answer the probe rows with null values,
+     * and the rows that are not in the set, from the properties of the whole set.
+     */
+    public static class SpilledChannelSet
+    {
+        private final boolean empty;
+        private final boolean containsNull;
+
+        public SpilledChannelSet(boolean empty, boolean containsNull)
+        {
+            this.empty = empty;
+            this.containsNull = containsNull;
+        }
+
+        public boolean isEmpty()
+        {
+            return empty;
+        }
+
+        public boolean containsNull()
+        {
+            return containsNull;
+        }
     }
 
     public static class SetBuilderOperatorFactory
@@ -73,6 +244,8 @@ public class SetBuilderOperator
         private final int expectedPositions;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public SetBuilderOperatorFactory(
                 int operatorId,
@@ -82,6 +255,20 @@ public class SetBuilderOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, type, setChannel, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public SetBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Type type,
+                int setChannel,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -91,6 +278,8 @@ public class SetBuilderOperator
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         public SetSupplier getSetProvider()
@@ -103,7 +292,7 @@ public class SetBuilderOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, SetBuilderOperator.class.getSimpleName());
-            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler);
+            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -115,21 +304,47 @@ public class SetBuilderOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler);
+            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
+    private enum State
+    {
+        CONSUMING_INPUT,
+        SPILLING_INPUT,
+        INPUT_SPILLED,
+        UNSPILLING_PARTITION,
+        FINISHED,
+    }
+
     private final OperatorContext operatorContext;
     private final SetSupplier setSupplier;
     private final int[] sourceChannels;
+    private final Optional<Integer> channelSetHashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
-    private final ChannelSetBuilder channelSetBuilder;
+    private State state = State.CONSUMING_INPUT;
 
-    private boolean finished;
+    @Nullable
+    private ChannelSetBuilder channelSetBuilder;
 
     @Nullable
     private Work<?> unfinishedWork;  // The pending work for current page.
 
+    private Optional<PartitionedHashSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Optional<Runnable> finishMemoryRevoke = Optional.empty();
+    private boolean spilledValues;
+    private boolean spilledNull;
+
+    private int unspilledPartitions;
+    private Iterator<Page> unspilledValues = emptyIterator();
+
     public SetBuilderOperator(
             OperatorContext operatorContext,
             SetSupplier setSupplier,
@@ -137,6 +352,19 @@ public class SetBuilderOperator
             Optional<Integer> hashChannel,
             int expectedPositions,
             JoinCompiler joinCompiler)
+    {
+        this(operatorContext, setSupplier, setChannel, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public SetBuilderOperator(
+            OperatorContext operatorContext,
+            SetSupplier setSupplier,
+            int setChannel,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.setSupplier = requireNonNull(setSupplier, "setProvider is null");
@@ -149,13 +377,16 @@ public class SetBuilderOperator
         }
 
         // Set builder is has a single channel which goes in channel 0, if hash is present, add a hashBlock to channel 1
-        Optional<Integer> channelSetHashChannel = hashChannel.isPresent() ? Optional.of(1) : Optional.empty();
-        this.channelSetBuilder = new ChannelSetBuilder(
-                setSupplier.getType(),
-                channelSetHashChannel,
-                expectedPositions,
-                requireNonNull(operatorContext, "operatorContext is null"),
-                requireNonNull(joinCompiler, "joinCompiler is null"));
+        this.channelSetHashChannel = hashChannel.isPresent() ? Optional.of(1) : Optional.empty();
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+
+        // the set can be revoked until the probe operators use it
+        this.channelSetBuilder = createChannelSetBuilder(spillEnabled ? localRevocableMemoryContext : localUserMemoryContext);
     }
 
     @Override
@@ -167,20 +398,121 @@ public class SetBuilderOperator
     @Override
     public void finish()
     {
-        if (finished) {
+        if (finishMemoryRevoke.isPresent()) {
+            return;
+        }
+
+        switch (state) {
+            case CONSUMING_INPUT:
+                finishInput();
+                return;
+
+            case SPILLING_INPUT:
+                finishSpilledInput();
+                return;
+
+            case INPUT_SPILLED:
+                unspillPartitionIfRequested();
+                return;
+
+            case UNSPILLING_PARTITION:
+                finishPartitionUnspilling();
+                return;
+
+            case FINISHED:
+                return;
+        }
+        throw new IllegalStateException("Unhandled state: " + state);
+    }
+
+    private void finishInput()
+    {
+        if (unfinishedWork != null && !processUnfinishedWork()) {
+            return;
+        }
+
+        if (spiller.isPresent()) {
+            // the values that are in memory are spilled as well, so that every partition can be restored on its own
+            spillInProgress = spillSet();
+            state = State.SPILLING_INPUT;
+            finishSpilledInput();
             return;
         }
 
         ChannelSet channelSet = channelSetBuilder.build();
+        if (spillEnabled) {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(channelSet.getEstimatedSizeInBytes());
+        }
         setSupplier.setChannelSet(channelSet);
         operatorContext.recordOutput(channelSet.getEstimatedSizeInBytes(), channelSet.size());
-        finished = true;
+        state = State.FINISHED;
+    }
+
+    private void finishSpilledInput()
+    {
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        channelSetBuilder = null;
+        localRevocableMemoryContext.setBytes(0);
+        setSupplier.setSpilledChannelSet(new SpilledChannelSet(!spilledValues, spilledNull));
+        state = State.INPUT_SPILLED;
+        unspillPartitionIfRequested();
+    }
+
+    private void unspillPartitionIfRequested()
+    {
+        if (!setSupplier.getPartitionRequested(unspilledPartitions).isDone()) {
+            return;
+        }
+
+        // every probe operator is done with the previous partition
+        channelSetBuilder = null;
+        localUserMemoryContext.setBytes(0);
+        if (unspilledPartitions == spiller.get().getPartitionCount()) {
+            close();
+            state = State.FINISHED;
+            return;
+        }
+
+        channelSetBuilder = createChannelSetBuilder(localUserMemoryContext);
+        unspilledValues = spiller.get().getSpilledState(unspilledPartitions);
+        state = State.UNSPILLING_PARTITION;
+        finishPartitionUnspilling();
+    }
+
+    private void finishPartitionUnspilling()
+    {
+        while (unfinishedWork == null || processUnfinishedWork()) {
+            if (!unspilledValues.hasNext()) {
+                ChannelSet channelSet = channelSetBuilder.build();
+                setSupplier.setPartition(unspilledPartitions, channelSet);
+                operatorContext.recordOutput(channelSet.getEstimatedSizeInBytes(), channelSet.size());
+                unspilledPartitions++;
+                unspilledValues = emptyIterator();
+                state = State.INPUT_SPILLED;
+                return;
+            }
+            unfinishedWork = channelSetBuilder.addPage(spiller.get().toInputLayout(unspilledValues.next()));
+        }
     }
 
     @Override
     public boolean isFinished()
     {
-        return finished;
+        return state == State.FINISHED;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (state == State.INPUT_SPILLED) {
+            return setSupplier.getPartitionRequested(unspilledPartitions);
+        }
+        return spillInProgress;
     }
 
     @Override
@@ -189,14 +521,14 @@ public class SetBuilderOperator
         // Since SetBuilderOperator doesn't produce any output, the getOutput()
         // method may never be called. We need to handle any unfinished work
         // before addInput() can be called again.
-        return !finished && (unfinishedWork == null || processUnfinishedWork());
+        return state == State.CONSUMING_INPUT && !finishMemoryRevoke.isPresent() && (unfinishedWork == null || processUnfinishedWork());
     }
 
     @Override
     public void addInput(Page page)
     {
         requireNonNull(page, "page is null");
-        checkState(!isFinished(), "Operator is already finished");
+        checkState(state == State.CONSUMING_INPUT, "Operator is already finished");
 
         unfinishedWork = channelSetBuilder.addPage(page.extractChannels(sourceChannels));
         processUnfinishedWork();
@@ -208,6 +540,63 @@ public class SetBuilderOperator
         return null;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(!finishMemoryRevoke.isPresent(), "Memory revoke is already in progress");
+        if (state != State.CONSUMING_INPUT || unfinishedWork != null || channelSetBuilder.size() == 0) {
+            finishMemoryRevoke = Optional.of(() -> {});
+            return immediateFuture(null);
+        }
+
+        ListenableFuture<?> spillFuture = spillSet();
+        finishMemoryRevoke = Optional.of(() -> {
+            channelSetBuilder = createChannelSetBuilder(localRevocableMemoryContext);
+            channelSetBuilder.updateMemoryReservation();
+        });
+        return spillFuture;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        checkState(finishMemoryRevoke.isPresent(), "Memory revoke is not in progress");
+        finishMemoryRevoke.get().run();
+        finishMemoryRevoke = Optional.empty();
+    }
+
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(PartitionedHashSpiller::close);
+    }
+
+    private ListenableFuture<?> spillSet()
+    {
+        if (!spiller.isPresent()) {
+            ImmutableList.Builder<Type> types = ImmutableList.<Type>builder().add(setSupplier.getType());
+            channelSetHashChannel.ifPresent(channel -> types.add(BIGINT));
+            spiller = Optional.of(new PartitionedHashSpiller(
+                    types.build(),
+                    ImmutableList.of(0),
+                    channelSetHashChannel,
+                    channelSetBuilder.getGroupByHash().getTypes(),
+                    ImmutableList.of(),
+                    partitioningSpillerFactory,
+                    operatorContext));
+        }
+
+        // the probe operators answer the rows that are not in the set from whether the whole set contains null
+        spilledValues |= channelSetBuilder.size() > 0;
+        spilledNull |= channelSetBuilder.containsNull();
+        return spiller.get().spillGroups(channelSetBuilder.getGroupByHash(), (pageBuilder, groupId) -> {});
+    }
+
+    private ChannelSetBuilder createChannelSetBuilder(LocalMemoryContext memoryContext)
+    {
+        return new ChannelSetBuilder(setSupplier.getType(), channelSetHashChannel, expectedPositions, operatorContext, joinCompiler, memoryContext);
+    }
+
     private boolean processUnfinishedWork()
     {
         // Processes the unfinishedWork for this page by adding the data to the hash table. If this page
@@ -0,0 +1,279 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.execution.buffer.OutputBuffer;
+import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.buffer.SpooledResultsManager;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.OutputPartitioning;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static com.facebook.presto.execution.buffer.PageSplitterUtil.splitPage;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.createInlineDescriptor;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.createSegmentDescriptor;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output operator of the root fragment of a query with spooled results. It writes the result
+ * pages to segments, and only sends the segment descriptors to the coordinator.
+ */
+public class SpooledResultsOutputOperator
+        implements Operator
+{
+    public static class SpooledResultsOutputFactory
+            implements OutputFactory
+    {
+        private final OutputBuffer outputBuffer;
+        private final SpooledResultsManager spooledResultsManager;
+        private final PagesSerdeFactory segmentSerdeFactory;
+
+        public SpooledResultsOutputFactory(OutputBuffer outputBuffer, SpooledResultsManager spooledResultsManager, PagesSerdeFactory segmentSerdeFactory)
+        {
+            this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+            this.spooledResultsManager = requireNonNull(spooledResultsManager, "spooledResultsManager is null");
+            this.segmentSerdeFactory = requireNonNull(segmentSerdeFactory, "segmentSerdeFactory is null");
+        }
+
+        @Override
+        public OperatorFactory createOutputOperator(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Function<Page, Page> pagePreprocessor,
+                Optional<OutputPartitioning> outputPartitioning,
+                PagesSerdeFactory serdeFactory)
+        {
+            checkArgument(!outputPartitioning.isPresent(), "outputPartitioning is not expected to be present");
+            return new SpooledResultsOutputOperatorFactory(operatorId, planNodeId, outputBuffer, spooledResultsManager, pagePreprocessor, serdeFactory, segmentSerdeFactory);
+        }
+    }
+
+    public static class SpooledResultsOutputOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final OutputBuffer outputBuffer;
+        private final SpooledResultsManager spooledResultsManager;
+        private final Function<Page, Page> pagePreprocessor;
+        private final PagesSerdeFactory serdeFactory;
+        private final PagesSerdeFactory segmentSerdeFactory;
+
+        public SpooledResultsOutputOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                OutputBuffer outputBuffer,
+                SpooledResultsManager spooledResultsManager,
+                Function<Page, Page> pagePreprocessor,
+                PagesSerdeFactory serdeFactory,
+                PagesSerdeFactory segmentSerdeFactory)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+            this.spooledResultsManager = requireNonNull(spooledResultsManager, "spooledResultsManager is null");
+            this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
+            this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
+            this.segmentSerdeFactory = requireNonNull(segmentSerdeFactory, "segmentSerdeFactory is null");
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, SpooledResultsOutputOperator.class.getSimpleName());
+            return new SpooledResultsOutputOperator(operatorContext, outputBuffer, spooledResultsManager, pagePreprocessor, serdeFactory, segmentSerdeFactory);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new SpooledResultsOutputOperatorFactory(operatorId, planNodeId, outputBuffer, spooledResultsManager, pagePreprocessor, serdeFactory, segmentSerdeFactory);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final OutputBuffer outputBuffer;
+    private final SpooledResultsManager spooledResultsManager;
+    private final Function<Page, Page> pagePreprocessor;
+    private final PagesSerde serde;
+    private final PagesSerde segmentSerde;
+    private final LocalMemoryContext memoryContext;
+    private final long segmentSizeInBytes;
+
+    private final List<SerializedPage> segmentPages = new ArrayList<>();
+    private long segmentBytes;
+    private long segmentRows;
+    private int segmentCount;
+
+    private ListenableFuture<URI> pendingSegment;
+    private long pendingSegmentRows;
+
+    private ListenableFuture<?> isBlocked = NOT_BLOCKED;
+    private boolean finishing;
+
+    public SpooledResultsOutputOperator(
+            OperatorContext operatorContext,
+            OutputBuffer outputBuffer,
+            SpooledResultsManager spooledResultsManager,
+            Function<Page, Page> pagePreprocessor,
+            PagesSerdeFactory serdeFactory,
+            PagesSerdeFactory segmentSerdeFactory)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+        this.spooledResultsManager = requireNonNull(spooledResultsManager, "spooledResultsManager is null");
+        this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
+        this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde(operatorContext.getRuntimeStats());
+        this.segmentSerde = requireNonNull(segmentSerdeFactory, "segmentSerdeFactory is null").createPagesSerde();
+        this.memoryContext = operatorContext.localSystemMemoryContext();
+        this.segmentSizeInBytes = spooledResultsManager.getSegmentSize().toBytes();
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        finishing = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finishing && isBlocked().isDone() && pendingSegment == null && segmentPages.isEmpty();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (pendingSegment != null) {
+            if (!pendingSegment.isDone()) {
+                return pendingSegment;
+            }
+            enqueue(createSegmentDescriptor(getFutureValue(pendingSegment), pendingSegmentRows));
+            pendingSegment = null;
+        }
+
+        if (finishing && !segmentPages.isEmpty()) {
+            // the results that fit in a single segment are sent inline
+            if (segmentCount == 0) {
+                enqueue(createInlineDescriptor(segmentPages));
+                clearSegment();
+            }
+            else {
+                flushSegment();
+                return pendingSegment;
+            }
+        }
+
+        // Avoid re-synchronizing on the output buffer when operator is already blocked
+        if (isBlocked.isDone()) {
+            isBlocked = outputBuffer.isFull();
+            if (isBlocked.isDone()) {
+                isBlocked = NOT_BLOCKED;
+            }
+        }
+        return isBlocked;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && isBlocked().isDone();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(pendingSegment == null, "a segment is being written");
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        page = pagePreprocessor.apply(page);
+
+        for (Page splitPage : splitPage(page, DEFAULT_MAX_PAGE_SIZE_IN_BYTES)) {
+            SerializedPage serializedPage = segmentSerde.serialize(splitPage);
+            segmentPages.add(serializedPage);
+            segmentBytes += serializedPage.getRetainedSizeInBytes();
+            segmentRows += serializedPage.getPositionCount();
+        }
+        memoryContext.setBytes(segmentBytes);
+        operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
+
+        if (segmentBytes >= segmentSizeInBytes) {
+            flushSegment();
+        }
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        return null;
+    }
+
+    @Override
+    public void close()
+    {
+        clearSegment();
+    }
+
+    private void flushSegment()
+    {
+        pendingSegment = spooledResultsManager.createSegment(operatorContext.getSession(), ImmutableList.copyOf(segmentPages));
+        pendingSegmentRows = segmentRows;
+        segmentCount++;
+        clearSegment();
+    }
+
+    private void clearSegment()
+    {
+        segmentPages.clear();
+        segmentBytes = 0;
+        segmentRows = 0;
+        memoryContext.setBytes(0);
+    }
+
+    private void enqueue(Page descriptor)
+    {
+        outputBuffer.enqueue(operatorContext.getDriverContext().getLifespan(), ImmutableList.of(serde.serialize(descriptor)));
+    }
+}
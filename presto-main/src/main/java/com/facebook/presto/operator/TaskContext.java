@@ -31,6 +31,7 @@ import com.facebook.presto.memory.context.MemoryTrackingContext;
 import com.facebook.presto.spi.plan.AggregationNode;
 import com.facebook.presto.spi.plan.PlanNode;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.LocalDynamicFiltersCollector;
 import com.facebook.presto.sql.planner.plan.JoinNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
@@ -130,6 +131,8 @@ public class TaskContext
 
     private final TaskMetadataContext taskMetadataContext;
 
+    private final LocalDynamicFiltersCollector dynamicFiltersCollector = new LocalDynamicFiltersCollector();
+
     private final Optional<PlanNode> taskPlan;
 
     // Only contains metrics exposed in this task. Doesn't contain the metrics exposed in the operators.
@@ -287,6 +290,11 @@ public class TaskContext
         return taskStateMachine.getState();
     }
 
+    public LocalDynamicFiltersCollector getDynamicFiltersCollector()
+    {
+        return dynamicFiltersCollector;
+    }
+
     public TaskMetadataContext getTaskMetadataContext()
     {
         return taskMetadataContext;
@@ -18,10 +18,14 @@ import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Iterator;
 import java.util.List;
@@ -30,8 +34,12 @@ import java.util.Optional;
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.Objects.requireNonNull;
 
 public class TopNRowNumberOperator
@@ -58,6 +66,8 @@ public class TopNRowNumberOperator
         private final boolean generateRowNumber;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public TopNRowNumberOperatorFactory(
                 int operatorId,
@@ -73,6 +83,26 @@ public class TopNRowNumberOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public TopNRowNumberOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<Integer> partitionChannels,
+                List<? extends Type> partitionTypes,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int maxRowCountPerPartition,
+                boolean partial,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -90,6 +120,8 @@ public class TopNRowNumberOperator
             this.generateRowNumber = !partial;
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -109,7 +141,9 @@ public class TopNRowNumberOperator
                     generateRowNumber,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
 
         @Override
@@ -121,22 +155,39 @@ public class TopNRowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new TopNRowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler);
+            return new TopNRowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
-
-    private final GroupByHash groupByHash;
-    private final GroupedTopNBuilder groupedTopNBuilder;
+    private final List<Integer> partitionChannels;
+    private final List<Type> partitionTypes;
+    private final PageWithPositionComparator comparator;
+    private final int maxRowCountPerPartition;
+    private final boolean generateRowNumber;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+
+    private GroupByHash groupByHash;
+    private GroupedTopNBuilder groupedTopNBuilder;
 
     private boolean finishing;
     private Work<?> unfinishedWork;
     private Iterator<Page> outputIterator;
 
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private Optional<PartitionedHashSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    private boolean unspilling;
+
     public TopNRowNumberOperator(
             OperatorContext operatorContext,
             List<? extends Type> sourceTypes,
@@ -150,9 +201,40 @@ public class TopNRowNumberOperator
             Optional<Integer> hashChannel,
             int expectedPositions,
             JoinCompiler joinCompiler)
+    {
+        this(operatorContext, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrders, maxRowCountPerPartition, generateRowNumber, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public TopNRowNumberOperator(
+            OperatorContext operatorContext,
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<Integer> partitionChannels,
+            List<Type> partitionTypes,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrders,
+            int maxRowCountPerPartition,
+            boolean generateRowNumber,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
+        this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.maxRowCountPerPartition = maxRowCountPerPartition;
+        this.generateRowNumber = generateRowNumber;
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        // there is nothing to gain from spilling a single partition, as it has to be restored at once
+        this.spillEnabled = spillEnabled && !partitionChannels.isEmpty();
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
         ImmutableList.Builder<Integer> outputChannelsBuilder = ImmutableList.builder();
         for (int channel : requireNonNull(outputChannels, "outputChannels is null")) {
@@ -164,29 +246,11 @@ public class TopNRowNumberOperator
         this.outputChannels = Ints.toArray(outputChannelsBuilder.build());
 
         checkArgument(maxRowCountPerPartition > 0, "maxRowCountPerPartition must be > 0");
-
-        if (!partitionChannels.isEmpty()) {
-            checkArgument(expectedPositions > 0, "expectedPositions must be > 0");
-            groupByHash = createGroupByHash(
-                    partitionTypes,
-                    Ints.toArray(partitionChannels),
-                    hashChannel,
-                    expectedPositions,
-                    isDictionaryAggregationEnabled(operatorContext.getSession()),
-                    joinCompiler,
-                    this::updateMemoryReservation);
-        }
-        else {
-            groupByHash = new NoChannelGroupByHash();
-        }
+        checkArgument(partitionChannels.isEmpty() || expectedPositions > 0, "expectedPositions must be > 0");
 
         List<Type> types = toTypes(sourceTypes, outputChannels, generateRowNumber);
-        this.groupedTopNBuilder = new GroupedTopNBuilder(
-                ImmutableList.copyOf(sourceTypes),
-                new SimplePageWithPositionComparator(types, sortChannels, sortOrders),
-                maxRowCountPerPartition,
-                generateRowNumber,
-                groupByHash);
+        this.comparator = new SimplePageWithPositionComparator(types, sortChannels, sortOrders);
+        createGroupedTopNBuilder(this::updateMemoryReservation);
     }
 
     @Override
@@ -205,7 +269,7 @@ public class TopNRowNumberOperator
     public boolean isFinished()
     {
         // has no more input, has finished flushing, and has no unfinished work
-        return finishing && outputIterator != null && !outputIterator.hasNext() && unfinishedWork == null;
+        return finishing && spillInProgress.isDone() && outputIterator != null && !outputIterator.hasNext() && unfinishedWork == null;
     }
 
     @Override
@@ -215,6 +279,12 @@ public class TopNRowNumberOperator
         return !finishing && outputIterator == null && unfinishedWork == null;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
     @Override
     public void addInput(Page page)
     {
@@ -232,6 +302,11 @@ public class TopNRowNumberOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
         if (unfinishedWork != null) {
             boolean finished = unfinishedWork.process();
             updateMemoryReservation();
@@ -246,6 +321,16 @@ public class TopNRowNumberOperator
         }
 
         if (outputIterator == null) {
+            if (spiller.isPresent()) {
+                // the partitions are split among the spill partitions, so the rows still in memory are spilled as well
+                // and the top rows of each spill partition are found on their own
+                spillInProgress = spiller.get().spillInput(groupedTopNBuilder.getBufferedPages().iterator());
+                unspilling = true;
+                createGroupedTopNBuilder(this::updateMemoryReservation);
+                updateMemoryReservation();
+                outputIterator = Iterators.concat(new UnspilledPartitionsIterator(spiller.get()));
+                return null;
+            }
             // start flushing
             outputIterator = groupedTopNBuilder.buildResult();
         }
@@ -258,6 +343,49 @@ public class TopNRowNumberOperator
         return output;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finishing || unfinishedWork != null || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(new PartitionedHashSpiller(
+                    sourceTypes,
+                    partitionChannels,
+                    hashChannel,
+                    groupByHash.getTypes(),
+                    ImmutableList.of(),
+                    partitioningSpillerFactory,
+                    operatorContext));
+        }
+
+        // the buffered rows are a superset of the top rows of each partition, so finding the top rows of the
+        // spilled and the remaining rows of a partition together gives the same result
+        ListenableFuture<?> spillFuture = spiller.get().spillInput(groupedTopNBuilder.getBufferedPages().iterator());
+        finishMemoryRevoke = () -> {
+            createGroupedTopNBuilder(this::updateMemoryReservation);
+            updateMemoryReservation();
+        };
+        return spillFuture;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        spiller.ifPresent(PartitionedHashSpiller::close);
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
@@ -268,10 +396,65 @@ public class TopNRowNumberOperator
     private boolean updateMemoryReservation()
     {
         // TODO: may need to use trySetMemoryReservation with a compaction to free memory (but that may cause GC pressure)
-        localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        // the partitions restored from the spill cannot be revoked
+        if (spillEnabled && !unspilling) {
+            localRevocableMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        }
         return operatorContext.isWaitingForMemory().isDone();
     }
 
+    private void createGroupedTopNBuilder(UpdateMemory updateMemory)
+    {
+        if (!partitionChannels.isEmpty()) {
+            groupByHash = createGroupByHash(
+                    partitionTypes,
+                    Ints.toArray(partitionChannels),
+                    hashChannel,
+                    expectedPositions,
+                    isDictionaryAggregationEnabled(operatorContext.getSession()),
+                    joinCompiler,
+                    updateMemory);
+        }
+        else {
+            groupByHash = new NoChannelGroupByHash();
+        }
+        groupedTopNBuilder = new GroupedTopNBuilder(sourceTypes, comparator, maxRowCountPerPartition, generateRowNumber, groupByHash);
+    }
+
+    private class UnspilledPartitionsIterator
+            extends AbstractIterator<Iterator<Page>>
+    {
+        private final PartitionedHashSpiller spiller;
+        private int partition;
+
+        private UnspilledPartitionsIterator(PartitionedHashSpiller spiller)
+        {
+            this.spiller = requireNonNull(spiller, "spiller is null");
+        }
+
+        @Override
+        protected Iterator<Page> computeNext()
+        {
+            if (partition == spiller.getPartitionCount()) {
+                return endOfData();
+            }
+            createGroupedTopNBuilder(() -> {
+                updateMemoryReservation();
+                return true;
+            });
+            Iterator<Page> pages = spiller.getSpilledInput(partition++);
+            while (pages.hasNext()) {
+                verify(groupedTopNBuilder.processPage(pages.next()).process(), "processing the spilled rows did not complete");
+            }
+            updateMemoryReservation();
+            return groupedTopNBuilder.buildResult();
+        }
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels, boolean generateRowNumber)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.CompletedWork;
+import com.facebook.presto.operator.HashCollisionsCounter;
+import com.facebook.presto.operator.UpdateMemory;
+import com.facebook.presto.operator.Work;
+import com.facebook.presto.operator.WorkProcessor;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.facebook.presto.spi.function.aggregation.GroupedAccumulator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Aggregation builder used once partial aggregation has been disabled at runtime.
+ * Instead of grouping the rows, every input row becomes its own group, and the raw
+ * input is converted to the intermediate form expected by the final aggregation.
+ * The builder holds a single page, and reports itself as full until that page has
+ * been emitted.
+ */
+public class SkipAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final int[] groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<AccumulatorFactory> accumulatorFactories;
+    private final LocalMemoryContext memoryContext;
+
+    @Nullable
+    private Page currentPage;
+
+    public SkipAggregationBuilder(
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            List<AccumulatorFactory> accumulatorFactories,
+            LocalMemoryContext memoryContext)
+    {
+        this.groupByChannels = Ints.toArray(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+    }
+
+    @Override
+    public Work<?> processPage(Page page)
+    {
+        checkState(currentPage == null, "Previous page has not been emitted");
+        currentPage = requireNonNull(page, "page is null");
+        return new CompletedWork<>(page);
+    }
+
+    @Override
+    public WorkProcessor<Page> buildResult()
+    {
+        if (currentPage == null) {
+            return WorkProcessor.of();
+        }
+        Page result = toIntermediatePage(currentPage);
+        currentPage = null;
+        updateMemory();
+        return WorkProcessor.of(result);
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        return currentPage != null;
+    }
+
+    @Override
+    public void updateMemory()
+    {
+        memoryContext.setBytes(currentPage == null ? 0 : currentPage.getRetainedSizeInBytes());
+    }
+
+    @Override
+    public void recordHashCollisions(HashCollisionsCounter hashCollisionsCounter)
+    {
+        // no hash table is built
+    }
+
+    @Override
+    public void close()
+    {
+        currentPage = null;
+        memoryContext.setBytes(0);
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        // no revocable memory is held, the buffered page is emitted on the next output
+        return immediateFuture(null);
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+    }
+
+    private Page toIntermediatePage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        Block[] blocks = new Block[groupByChannels.length + (hashChannel.isPresent() ? 1 : 0) + accumulatorFactories.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            blocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[channel++] = page.getBlock(hashChannel.get());
+        }
+        if (!accumulatorFactories.isEmpty()) {
+            GroupByIdBlock groupIds = createSequentialGroupIds(positionCount);
+            for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+                // the accumulator only lives for this page, so its memory is accounted with the page
+                GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator(UpdateMemory.NOOP);
+                accumulator.addInput(groupIds, page);
+                BlockBuilder blockBuilder = accumulator.getIntermediateType().createBlockBuilder(null, positionCount);
+                for (int groupId = 0; groupId < positionCount; groupId++) {
+                    accumulator.evaluateIntermediate(groupId, blockBuilder);
+                }
+                blocks[channel++] = blockBuilder.build();
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private static GroupByIdBlock createSequentialGroupIds(int positionCount)
+    {
+        long[] groupIds = new long[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            groupIds[position] = position;
+        }
+        return new GroupByIdBlock(positionCount, new LongArrayBlock(positionCount, Optional.empty(), groupIds));
+    }
+}
@@ -446,7 +446,7 @@ public class OptimizedPartitionedOutputOperator
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null").orElse(-1);
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
-            this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
+            this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde(operatorContext.getRuntimeStats());
 
             int partitionCount = partitionFunction.getPartitionCount();
 
@@ -326,7 +326,7 @@ public class PartitionedOutputOperator
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null").orElse(-1);
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.sourceTypes = requireNonNull(sourceTypes, "sourceTypes is null").toArray(new Type[0]);
-            this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
+            this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde(operatorContext.getRuntimeStats());
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
             this.systemMemoryContext = operatorContext.localSystemMemoryContext();
             this.systemMemoryContext.setBytes(getRetainedSizeInBytes());
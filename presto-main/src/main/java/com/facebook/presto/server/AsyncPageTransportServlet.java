@@ -48,6 +48,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREFETCH_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.server.security.RoleType.INTERNAL;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.PAGE_METADATA_SIZE;
@@ -56,6 +57,8 @@ import static com.facebook.presto.util.TaskUtils.randomizeWaitTime;
 import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.lang.Integer.parseInt;
 import static java.lang.Long.parseLong;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -185,7 +188,14 @@ public class AsyncPageTransportServlet
             }
         });
 
-        ListenableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(taskId, bufferId, token, maxSize);
+        String prefetchPages = request.getHeader(PRESTO_PREFETCH_PAGES);
+        ListenableFuture<BufferResult> bufferResultFuture;
+        if (prefetchPages != null) {
+            bufferResultFuture = immediateFuture(taskManager.prefetchTaskResults(taskId, bufferId, token, maxSize, parseInt(prefetchPages)));
+        }
+        else {
+            bufferResultFuture = taskManager.getTaskResults(taskId, bufferId, token, maxSize);
+        }
         bufferResultFuture = addTimeout(
                 bufferResultFuture,
                 () -> BufferResult.emptyResults(taskManager.getTaskInstanceId(taskId), token, false),
@@ -65,9 +65,11 @@ import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.execution.TaskSource;
 import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.execution.TaskThresholdMemoryRevokingScheduler;
+import com.facebook.presto.execution.buffer.SpooledResultsManager;
 import com.facebook.presto.execution.buffer.SpoolingOutputBufferFactory;
 import com.facebook.presto.execution.executor.MultilevelSplitQueue;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.executor.WorkStealingSplitQueue;
 import com.facebook.presto.execution.scheduler.FlatNetworkTopology;
 import com.facebook.presto.execution.scheduler.LegacyNetworkTopology;
 import com.facebook.presto.execution.scheduler.NetworkTopology;
@@ -117,6 +119,7 @@ import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.NoOpFragmentResultCacheManager;
 import com.facebook.presto.operator.OperatorStats;
 import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.PagesIndexSortPool;
 import com.facebook.presto.operator.TableCommitContext;
 import com.facebook.presto.operator.TaskMemoryReservationSummary;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
@@ -161,6 +164,7 @@ import com.facebook.presto.spiller.SpillerStats;
 import com.facebook.presto.spiller.StandaloneSpillerFactory;
 import com.facebook.presto.spiller.TempStorageSingleStreamSpillerFactory;
 import com.facebook.presto.spiller.TempStorageStandaloneSpillerFactory;
+import com.facebook.presto.split.BlockingPageSourceExecutor;
 import com.facebook.presto.split.PageSinkManager;
 import com.facebook.presto.split.PageSinkProvider;
 import com.facebook.presto.split.PageSourceManager;
@@ -188,6 +192,7 @@ import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.parser.SqlParserOptions;
 import com.facebook.presto.sql.planner.CompilerConfig;
 import com.facebook.presto.sql.planner.ConnectorPlanOptimizerManager;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.LocalExecutionPlanner;
 import com.facebook.presto.sql.planner.NodePartitioningManager;
 import com.facebook.presto.sql.planner.PartitioningProviderManager;
@@ -245,6 +250,7 @@ import static com.facebook.drift.client.ExceptionClassification.HostStatus.NORMA
 import static com.facebook.drift.client.guice.DriftClientBinder.driftClientBinder;
 import static com.facebook.drift.codec.guice.ThriftCodecBinder.thriftCodecBinder;
 import static com.facebook.drift.server.guice.DriftServerBinder.driftServerBinder;
+import static com.facebook.presto.execution.TaskManagerConfig.SplitQueuePolicy.WORK_STEALING;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.FLAT;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.LEGACY;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -386,6 +392,8 @@ public class ServerMainModule
         binder.bind(SqlTaskManager.class).in(Scopes.SINGLETON);
         binder.bind(TaskManager.class).to(Key.get(SqlTaskManager.class));
         binder.bind(SpoolingOutputBufferFactory.class).in(Scopes.SINGLETON);
+        binder.bind(SpooledResultsManager.class).in(Scopes.SINGLETON);
+        jaxrsBinder(binder).bind(SpooledResultsResource.class);
 
         binder.bind(RandomResourceManagerAddressSelector.class).in(Scopes.SINGLETON);
         driftClientBinder(binder)
@@ -476,7 +484,12 @@ public class ServerMainModule
         newExporter(binder).export(TaskManager.class).withGeneratedName();
         binder.bind(TaskExecutor.class).in(Scopes.SINGLETON);
         newExporter(binder).export(TaskExecutor.class).withGeneratedName();
-        binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
+        if (buildConfigObject(TaskManagerConfig.class).getSplitQueuePolicy() == WORK_STEALING) {
+            binder.bind(MultilevelSplitQueue.class).to(WorkStealingSplitQueue.class).in(Scopes.SINGLETON);
+        }
+        else {
+            binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
+        }
         newExporter(binder).export(MultilevelSplitQueue.class).withGeneratedName();
         binder.bind(LocalExecutionPlanner.class).in(Scopes.SINGLETON);
         configBinder(binder).bindConfig(FileFragmentResultCacheConfig.class);
@@ -499,6 +512,8 @@ public class ServerMainModule
         binder.bind(OrderingCompiler.class).in(Scopes.SINGLETON);
         newExporter(binder).export(OrderingCompiler.class).withGeneratedName();
         binder.bind(PagesIndex.Factory.class).to(PagesIndex.DefaultFactory.class);
+        binder.bind(PagesIndexSortPool.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(PagesIndexSortPool.class).withGeneratedName();
         binder.bind(LookupJoinOperators.class).in(Scopes.SINGLETON);
 
         jsonCodecBinder(binder).bindJsonCodec(TaskStatus.class);
@@ -552,6 +567,8 @@ public class ServerMainModule
         // data stream provider
         binder.bind(PageSourceManager.class).in(Scopes.SINGLETON);
         binder.bind(PageSourceProvider.class).to(PageSourceManager.class).in(Scopes.SINGLETON);
+        binder.bind(BlockingPageSourceExecutor.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(BlockingPageSourceExecutor.class).withGeneratedName();
 
         // connector distributed metadata manager
         binder.bind(ConnectorMetadataUpdaterManager.class).in(Scopes.SINGLETON);
@@ -635,6 +652,7 @@ public class ServerMainModule
         jsonCodecBinder(binder).bindJsonCodec(TaskUpdateRequest.class);
         jsonCodecBinder(binder).bindJsonCodec(ConnectorSplit.class);
         jsonCodecBinder(binder).bindJsonCodec(PlanFragment.class);
+        jsonCodecBinder(binder).bindMapJsonCodec(String.class, DynamicFilterSummary.class);
         smileCodecBinder(binder).bindSmileCodec(TaskUpdateRequest.class);
         smileCodecBinder(binder).bindSmileCodec(ConnectorSplit.class);
         smileCodecBinder(binder).bindSmileCodec(PlanFragment.class);
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.buffer.SpooledResultsManager;
+import com.google.common.io.ByteStreams;
+
+import javax.annotation.security.RolesAllowed;
+import javax.inject.Inject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.server.security.RoleType.USER;
+import static java.util.Objects.requireNonNull;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+
+/**
+ * Serves the segments of the spooled query results written by the tasks of this node
+ */
+@Path("/v1/spooled")
+@RolesAllowed(USER)
+public class SpooledResultsResource
+{
+    private final SpooledResultsManager spooledResultsManager;
+
+    @Inject
+    public SpooledResultsResource(SpooledResultsManager spooledResultsManager)
+    {
+        this.spooledResultsManager = requireNonNull(spooledResultsManager, "spooledResultsManager is null");
+    }
+
+    @GET
+    @Path("{segmentId}")
+    @Produces(PRESTO_PAGES)
+    public Response getSegment(@PathParam("segmentId") String segmentId)
+            throws IOException
+    {
+        Optional<InputStream> segment = spooledResultsManager.openSegment(segmentId);
+        if (!segment.isPresent()) {
+            return Response.status(NOT_FOUND).build();
+        }
+        StreamingOutput output = outputStream -> {
+            try (InputStream inputStream = segment.get()) {
+                ByteStreams.copy(inputStream, outputStream);
+            }
+        };
+        return Response.ok(output).build();
+    }
+
+    @DELETE
+    @Path("{segmentId}")
+    public void removeSegment(@PathParam("segmentId") String segmentId)
+    {
+        spooledResultsManager.removeSegment(segmentId);
+    }
+}
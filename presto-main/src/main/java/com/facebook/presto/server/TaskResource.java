@@ -32,6 +32,7 @@ import com.facebook.presto.metadata.HandleResolver;
 import com.facebook.presto.metadata.MetadataUpdates;
 import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.collect.ImmutableList;
 import com.google.common.reflect.TypeToken;
@@ -65,6 +66,7 @@ import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -81,6 +83,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREFETCH_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.server.TaskResourceUtils.convertToThriftTaskInfo;
 import static com.facebook.presto.server.TaskResourceUtils.isThriftRequest;
@@ -88,6 +91,7 @@ import static com.facebook.presto.server.security.RoleType.INTERNAL;
 import static com.facebook.presto.util.TaskUtils.DEFAULT_MAX_WAIT_TIME;
 import static com.facebook.presto.util.TaskUtils.randomizeWaitTime;
 import static com.google.common.collect.Iterables.transform;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -267,6 +271,26 @@ public class TaskResource
         return Response.ok().build();
     }
 
+    @GET
+    @Path("{taskId}/dynamicfilters")
+    @Produces(APPLICATION_JSON)
+    public Map<String, DynamicFilterSummary> getDynamicFilters(@PathParam("taskId") TaskId taskId)
+    {
+        requireNonNull(taskId, "taskId is null");
+        return taskManager.getTaskDynamicFilters(taskId);
+    }
+
+    @POST
+    @Path("{taskId}/dynamicfilters")
+    @Consumes(APPLICATION_JSON)
+    public Response addDynamicFilters(@PathParam("taskId") TaskId taskId, Map<String, DynamicFilterSummary> dynamicFilters)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(dynamicFilters, "dynamicFilters is null");
+        taskManager.addTaskDynamicFilters(taskId, dynamicFilters);
+        return Response.ok().build();
+    }
+
     @DELETE
     @Path("{taskId}")
     @Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE, APPLICATION_THRIFT_BINARY, APPLICATION_THRIFT_COMPACT, APPLICATION_THRIFT_FB_COMPACT})
@@ -306,13 +330,20 @@ public class TaskResource
             @PathParam("bufferId") OutputBufferId bufferId,
             @PathParam("token") final long token,
             @HeaderParam(PRESTO_MAX_SIZE) DataSize maxSize,
+            @HeaderParam(PRESTO_PREFETCH_PAGES) int prefetchPages,
             @Suspended AsyncResponse asyncResponse)
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(bufferId, "bufferId is null");
 
         long start = System.nanoTime();
-        ListenableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(taskId, bufferId, token, maxSize);
+        ListenableFuture<BufferResult> bufferResultFuture;
+        if (prefetchPages > 0) {
+            bufferResultFuture = immediateFuture(taskManager.prefetchTaskResults(taskId, bufferId, token, maxSize, prefetchPages));
+        }
+        else {
+            bufferResultFuture = taskManager.getTaskResults(taskId, bufferId, token, maxSize);
+        }
         Duration waitTime = randomizeWaitTime(DEFAULT_MAX_WAIT_TIME);
         bufferResultFuture = addTimeout(
                 bufferResultFuture,
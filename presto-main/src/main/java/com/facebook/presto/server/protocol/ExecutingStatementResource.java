@@ -43,7 +43,9 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import static com.facebook.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_BINARY_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREFIX_URL;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_SPOOLED_RESULTS;
 import static com.facebook.presto.server.protocol.QueryResourceUtil.abortIfPrefixUrlInvalid;
 import static com.facebook.presto.server.protocol.QueryResourceUtil.toResponse;
 import static com.facebook.presto.server.security.RoleType.USER;
@@ -101,6 +103,8 @@ public class ExecutingStatementResource
             @QueryParam("targetResultSize") DataSize targetResultSize,
             @HeaderParam(X_FORWARDED_PROTO) String proto,
             @HeaderParam(PRESTO_PREFIX_URL) String xPrestoPrefixUrl,
+            @HeaderParam(PRESTO_BINARY_RESULTS) boolean binaryResults,
+            @HeaderParam(PRESTO_SPOOLED_RESULTS) boolean spooledResults,
             @Context UriInfo uriInfo,
             @Suspended AsyncResponse asyncResponse)
     {
@@ -125,7 +129,7 @@ public class ExecutingStatementResource
                 acquirePermitAsync,
                 acquirePermitTimeSeconds -> {
                     queryRateLimiter.addRateLimiterBlockTime(new Duration(acquirePermitTimeSeconds, SECONDS));
-                    return query.waitForResults(token, uriInfo, effectiveFinalProto, wait, effectiveFinalTargetResultSize);
+                    return query.waitForResults(token, uriInfo, effectiveFinalProto, wait, effectiveFinalTargetResultSize, binaryResults, spooledResults);
                 },
                 responseExecutor);
         ListenableFuture<Response> queryResultsFuture = transform(
@@ -15,6 +15,7 @@ package com.facebook.presto.server.protocol;
 
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.Session;
+import com.facebook.presto.client.BinaryDataUtils;
 import com.facebook.presto.client.Column;
 import com.facebook.presto.client.FailureInfo;
 import com.facebook.presto.client.QueryError;
@@ -31,8 +32,10 @@ import com.facebook.presto.execution.QueryInfo;
 import com.facebook.presto.execution.QueryManager;
 import com.facebook.presto.execution.QueryState;
 import com.facebook.presto.execution.StageInfo;
+import com.facebook.presto.execution.buffer.CompressionCodec;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.operator.ExchangeClient;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.function.SqlFunctionId;
 import com.facebook.presto.spi.function.SqlInvokedFunction;
@@ -72,19 +75,30 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static com.facebook.airlift.concurrent.MoreFutures.addTimeout;
+import static com.facebook.presto.SystemSessionProperties.SPOOLED_QUERY_RESULTS_ENABLED;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionLevel;
 import static com.facebook.presto.SystemSessionProperties.getQueryRetryLimit;
 import static com.facebook.presto.SystemSessionProperties.getQueryRetryMaxExecutionTime;
 import static com.facebook.presto.SystemSessionProperties.getTargetResultSize;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isExchangeChecksumEnabled;
-import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
+import static com.facebook.presto.client.BinaryDataUtils.isBinaryDataSupported;
 import static com.facebook.presto.execution.QueryState.FAILED;
 import static com.facebook.presto.execution.QueryState.WAITING_FOR_PREREQUISITES;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.getInlinePages;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.getRowCount;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.getSegmentUri;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.isSpooledResultsEnabled;
 import static com.facebook.presto.server.protocol.QueryResourceUtil.toStatementStats;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.util.Failures.toFailure;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.lang.String.format;
@@ -95,6 +109,9 @@ class Query
 {
     private static final Logger log = Logger.get(Query.class);
 
+    // bounds the number of segments the client downloads before it polls for more results
+    private static final int MAX_SEGMENTS_PER_RESULT = 16;
+
     private final QueryManager queryManager;
     private final TransactionManager transactionManager;
     private final QueryId queryId;
@@ -108,6 +125,8 @@ class Query
     private final ScheduledExecutorService timeoutExecutor;
 
     private final PagesSerde serde;
+    private final CompressionCodec compressionCodec;
+    private final PagesSerde binaryResultsSerde;
     private final RetryCircuitBreaker retryCircuitBreaker;
 
     @GuardedBy("this")
@@ -125,6 +144,9 @@ class Query
     @GuardedBy("this")
     private List<Type> types;
 
+    @GuardedBy("this")
+    private boolean resultsSpooled;
+
     @GuardedBy("this")
     private Optional<String> setCatalog = Optional.empty();
 
@@ -220,7 +242,16 @@ class Query
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
 
-        this.serde = new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session), isExchangeChecksumEnabled(session)).createPagesSerde();
+        this.compressionCodec = getExchangeCompressionCodec(session);
+        this.serde = new PagesSerdeFactory(
+                blockEncodingSerde,
+                compressionCodec,
+                getExchangeCompressionLevel(session),
+                isExchangeAdaptiveCompressionEnabled(session),
+                isExchangeChecksumEnabled(session))
+                .createPagesSerde();
+        // clients can only decompress the binary results compressed with LZ4
+        this.binaryResultsSerde = new PagesSerdeFactory(blockEncodingSerde, true).createPagesSerde();
         this.retryCircuitBreaker = retryCircuitBreaker;
     }
 
@@ -307,7 +338,7 @@ class Query
         return removedSessionFunctions;
     }
 
-    public synchronized ListenableFuture<QueryResults> waitForResults(long token, UriInfo uriInfo, String scheme, Duration wait, DataSize targetResultSize)
+    public synchronized ListenableFuture<QueryResults> waitForResults(long token, UriInfo uriInfo, String scheme, Duration wait, DataSize targetResultSize, boolean binaryResults, boolean spooledResults)
     {
         // before waiting, check if this request has already been processed and cached
         Optional<QueryResults> cachedResult = getCachedResult(token);
@@ -323,7 +354,7 @@ class Query
                 timeoutExecutor);
 
         // when state changes, fetch the next result
-        return Futures.transform(futureStateChange, ignored -> getNextResultWithRetry(token, uriInfo, scheme, targetResultSize), resultsProcessorExecutor);
+        return Futures.transform(futureStateChange, ignored -> getNextResultWithRetry(token, uriInfo, scheme, targetResultSize, binaryResults, spooledResults), resultsProcessorExecutor);
     }
 
     private synchronized ListenableFuture<?> getFutureStateChange()
@@ -376,9 +407,9 @@ class Query
         return Optional.empty();
     }
 
-    private synchronized QueryResults getNextResultWithRetry(long token, UriInfo uriInfo, String scheme, DataSize targetResultSize)
+    private synchronized QueryResults getNextResultWithRetry(long token, UriInfo uriInfo, String scheme, DataSize targetResultSize, boolean binaryResults, boolean spooledResults)
     {
-        QueryResults queryResults = getNextResult(token, uriInfo, scheme, targetResultSize);
+        QueryResults queryResults = getNextResult(token, uriInfo, scheme, targetResultSize, binaryResults, spooledResults);
         if (queryResults.getError() == null || !queryResults.getError().isRetriable()) {
             return queryResults;
         }
@@ -420,7 +451,7 @@ class Query
                 queryResults.getUpdateCount());
     }
 
-    private synchronized QueryResults getNextResult(long token, UriInfo uriInfo, String scheme, DataSize targetResultSize)
+    private synchronized QueryResults getNextResult(long token, UriInfo uriInfo, String scheme, DataSize targetResultSize, boolean binaryResults, boolean spooledResults)
     {
         // check if the result for the token have already been created
         Optional<QueryResults> cachedResult = getCachedResult(token);
@@ -442,17 +473,61 @@ class Query
         // last page is removed.  If another thread observes this state before the response is cached
         // the pages will be lost.
         Iterable<List<Object>> data = null;
+        List<SerializedPage> binaryPages = ImmutableList.of();
+        List<URI> segments = ImmutableList.of();
         try {
+            // the pages are sent to the client as they are, without being converted to rows
+            boolean binary = binaryResults && columns != null && isBinaryDataSupported(columns);
             ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<SerializedPage> serializedPages = ImmutableList.builder();
+            ImmutableList.Builder<URI> segmentUris = ImmutableList.builder();
+            int segmentCount = 0;
             long bytes = 0;
             long rows = 0;
             long targetResultBytes = targetResultSize.toBytes();
-            while (bytes < targetResultBytes) {
+            while (bytes < targetResultBytes && segmentCount < MAX_SEGMENTS_PER_RESULT) {
                 SerializedPage serializedPage = exchangeClient.pollPage();
                 if (serializedPage == null) {
                     break;
                 }
 
+                if (resultsSpooled) {
+                    // the output stage sent the descriptors of the segments it wrote, or the small results inline
+                    Page descriptor = serde.deserialize(serializedPage);
+                    for (int position = 0; position < descriptor.getPositionCount(); position++) {
+                        Optional<URI> segmentUri = getSegmentUri(descriptor, position);
+                        if (segmentUri.isPresent()) {
+                            if (!spooledResults) {
+                                throw new PrestoException(NOT_SUPPORTED, format("Client does not support spooled query results, disable %s", SPOOLED_QUERY_RESULTS_ENABLED));
+                            }
+                            segmentUris.add(segmentUri.get());
+                            segmentCount++;
+                            rows += getRowCount(descriptor, position);
+                            continue;
+                        }
+                        Iterator<SerializedPage> inlinePages = getInlinePages(descriptor, position);
+                        while (inlinePages.hasNext()) {
+                            SerializedPage inlinePage = inlinePages.next();
+                            bytes += inlinePage.getUncompressedSizeInBytes();
+                            rows += inlinePage.getPositionCount();
+                            if (binary) {
+                                serializedPages.add(inlinePage);
+                            }
+                            else {
+                                pages.add(new RowIterable(session.toConnectorSession(), types, binaryResultsSerde.deserialize(inlinePage)));
+                            }
+                        }
+                    }
+                    continue;
+                }
+
+                if (binary) {
+                    bytes += serializedPage.getUncompressedSizeInBytes();
+                    rows += serializedPage.getPositionCount();
+                    serializedPages.add(toBinaryResultsPage(serializedPage));
+                    continue;
+                }
+
                 Page page = serde.deserialize(serializedPage);
                 bytes += page.getLogicalSizeInBytes();
                 rows += page.getPositionCount();
@@ -460,7 +535,14 @@ class Query
             }
             if (rows > 0) {
                 // client implementations do not properly handle empty list of data
-                data = Iterables.concat(pages.build());
+                if (binary) {
+                    binaryPages = serializedPages.build();
+                }
+                else {
+                    List<RowIterable> rowIterables = pages.build();
+                    data = rowIterables.isEmpty() ? null : Iterables.concat(rowIterables);
+                }
+                segments = segmentUris.build();
                 hasProducedResult = true;
             }
         }
@@ -475,9 +557,10 @@ class Query
 
         // TODO: figure out a better way to do this
         // grab the update count for non-queries
-        if ((data != null) && (queryInfo.getUpdateType() != null) && (updateCount == null) &&
+        if ((data != null || !binaryPages.isEmpty()) && (queryInfo.getUpdateType() != null) && (updateCount == null) &&
                 (columns.size() == 1) && (columns.get(0).getType().equals(StandardTypes.BIGINT))) {
-            Iterator<List<Object>> iterator = data.iterator();
+            Iterable<List<Object>> rows = (data != null) ? data : new RowIterable(session.toConnectorSession(), types, binaryResultsSerde.deserialize(binaryPages.get(0)));
+            Iterator<List<Object>> iterator = rows.iterator();
             if (iterator.hasNext()) {
                 Number number = (Number) iterator.next().get(0);
                 if (number != null) {
@@ -492,6 +575,8 @@ class Query
         if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent()) {
             columns = ImmutableList.of(new Column("result", BooleanType.BOOLEAN));
             data = ImmutableSet.of(ImmutableList.of(true));
+            binaryPages = ImmutableList.of();
+            segments = ImmutableList.of();
         }
 
         // advance next token
@@ -542,6 +627,10 @@ class Query
                 nextResultsUri,
                 columns,
                 data,
+                binaryPages.isEmpty() ? null : binaryPages.stream()
+                        .map(BinaryDataUtils::encodeSerializedPage)
+                        .collect(toImmutableList()),
+                segments.isEmpty() ? null : segments,
                 toStatementStats(queryInfo),
                 toQueryError(queryInfo),
                 queryInfo.getWarnings(),
@@ -555,6 +644,14 @@ class Query
         return queryResults;
     }
 
+    private SerializedPage toBinaryResultsPage(SerializedPage page)
+    {
+        if (!COMPRESSED.isSet(page.getPageCodecMarkers()) || compressionCodec == CompressionCodec.LZ4) {
+            return page;
+        }
+        return binaryResultsSerde.serialize(serde.deserialize(page));
+    }
+
     private synchronized void closeExchangeClientIfNecessary(QueryInfo queryInfo)
     {
         // Close the exchange client if the query has failed, or if the query
@@ -580,6 +677,7 @@ class Query
             }
             columns = list.build();
             types = outputInfo.getColumnTypes();
+            resultsSpooled = isSpooledResultsEnabled(session, types);
         }
 
         outputInfo.getBufferLocations().forEach(exchangeClient::addLocation);
@@ -139,6 +139,8 @@ public final class QueryResourceUtil
                 prependUri(queryResults.getNextUri(), xPrestoPrefixUri),
                 queryResults.getColumns(),
                 queryResults.getData(),
+                queryResults.getBinaryData(),
+                queryResults.getSegments(),
                 queryResults.getStats(),
                 queryResults.getError(),
                 queryResults.getWarnings(),
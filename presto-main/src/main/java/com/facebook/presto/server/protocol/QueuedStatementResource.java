@@ -74,7 +74,9 @@ import java.util.concurrent.atomic.AtomicLong;
 import static com.facebook.airlift.concurrent.MoreFutures.addTimeout;
 import static com.facebook.airlift.concurrent.Threads.threadsNamed;
 import static com.facebook.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_BINARY_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREFIX_URL;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_SPOOLED_RESULTS;
 import static com.facebook.presto.execution.QueryState.FAILED;
 import static com.facebook.presto.execution.QueryState.QUEUED;
 import static com.facebook.presto.execution.QueryState.WAITING_FOR_PREREQUISITES;
@@ -278,6 +280,8 @@ public class QueuedStatementResource
      * @param slug Unique security token generated for each query that controls access to that query's results
      * @param maxWait Time to wait for the query to be dispatched
      * @param xForwardedProto Forwarded protocol (http or https)
+     * @param binaryResults Whether the client requested the results as serialized pages
+     * @param spooledResults Whether the client can download the results from spooled segments
      * @param uriInfo {@link javax.ws.rs.core.UriInfo}
      * @param asyncResponse
      */
@@ -291,6 +295,8 @@ public class QueuedStatementResource
             @QueryParam("maxWait") Duration maxWait,
             @HeaderParam(X_FORWARDED_PROTO) String xForwardedProto,
             @HeaderParam(PRESTO_PREFIX_URL) String xPrestoPrefixUrl,
+            @HeaderParam(PRESTO_BINARY_RESULTS) boolean binaryResults,
+            @HeaderParam(PRESTO_SPOOLED_RESULTS) boolean spooledResults,
             @Context UriInfo uriInfo,
             @Suspended AsyncResponse asyncResponse)
     {
@@ -314,7 +320,7 @@ public class QueuedStatementResource
         // when state changes, fetch the next result
         ListenableFuture<Response> queryResultsFuture = transformAsync(
                 futureStateChange,
-                ignored -> query.toResponse(token, uriInfo, xForwardedProto, xPrestoPrefixUrl, WAIT_ORDERING.min(MAX_WAIT_TIME, maxWait), compressionEnabled),
+                ignored -> query.toResponse(token, uriInfo, xForwardedProto, xPrestoPrefixUrl, WAIT_ORDERING.min(MAX_WAIT_TIME, maxWait), compressionEnabled, binaryResults, spooledResults),
                 responseExecutor);
         bindAsyncResponse(asyncResponse, queryResultsFuture, responseExecutor);
     }
@@ -554,7 +560,7 @@ public class QueuedStatementResource
                     DispatchInfo.waitingForPrerequisites(NO_DURATION, NO_DURATION));
         }
 
-        public ListenableFuture<Response> toResponse(long token, UriInfo uriInfo, String xForwardedProto, String xPrestoPrefixUrl, Duration maxWait, boolean compressionEnabled)
+        public ListenableFuture<Response> toResponse(long token, UriInfo uriInfo, String xForwardedProto, String xPrestoPrefixUrl, Duration maxWait, boolean compressionEnabled, boolean binaryResults, boolean spooledResults)
         {
             long lastToken = this.lastToken.get();
             // token should be the last token or the next token
@@ -599,7 +605,7 @@ public class QueuedStatementResource
             // If this future completes successfully, the next URI will redirect to the executing statement endpoint.
             // Hence it is safe to hardcode the token to be 0.
             return transform(
-                    query.waitForResults(0, uriInfo, getScheme(xForwardedProto, uriInfo), maxWait, TARGET_RESULT_SIZE),
+                    query.waitForResults(0, uriInfo, getScheme(xForwardedProto, uriInfo), maxWait, TARGET_RESULT_SIZE, binaryResults, spooledResults),
                     results -> QueryResourceUtil.toResponse(query, results, xPrestoPrefixUrl, compressionEnabled),
                     directExecutor());
         }
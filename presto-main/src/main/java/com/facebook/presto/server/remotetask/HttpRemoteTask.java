@@ -61,6 +61,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SplitWeight;
 import com.facebook.presto.spi.plan.PlanNode;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.base.Ticker;
 import com.google.common.collect.HashMultimap;
@@ -103,7 +104,9 @@ import java.util.stream.Stream;
 import static com.facebook.airlift.http.client.HttpStatus.NO_CONTENT;
 import static com.facebook.airlift.http.client.HttpStatus.OK;
 import static com.facebook.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static com.facebook.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
 import static com.facebook.airlift.http.client.Request.Builder.prepareDelete;
+import static com.facebook.airlift.http.client.Request.Builder.prepareGet;
 import static com.facebook.airlift.http.client.Request.Builder.preparePost;
 import static com.facebook.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static com.facebook.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
@@ -114,6 +117,7 @@ import static com.facebook.presto.execution.TaskState.FAILED;
 import static com.facebook.presto.execution.TaskStatus.failWith;
 import static com.facebook.presto.server.RequestErrorTracker.isExpectedError;
 import static com.facebook.presto.server.RequestErrorTracker.taskRequestErrorTracker;
+import static com.facebook.presto.server.RequestHelpers.getJsonTransportBuilder;
 import static com.facebook.presto.server.RequestHelpers.setContentTypeHeaders;
 import static com.facebook.presto.server.TaskResourceUtils.convertFromThriftTaskInfo;
 import static com.facebook.presto.server.smile.AdaptingJsonResponseHandler.createAdaptingJsonResponseHandler;
@@ -198,6 +202,7 @@ public final class HttpRemoteTask
     private final Codec<TaskInfo> taskInfoJsonCodec;
     private final Codec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Codec<PlanFragment> planFragmentCodec;
+    private final JsonCodec<Map<String, DynamicFilterSummary>> dynamicFiltersCodec;
 
     private final RequestErrorTracker updateErrorTracker;
 
@@ -246,6 +251,7 @@ public final class HttpRemoteTask
             Codec<TaskUpdateRequest> taskUpdateRequestCodec,
             Codec<PlanFragment> planFragmentCodec,
             Codec<MetadataUpdates> metadataUpdatesCodec,
+            JsonCodec<Map<String, DynamicFilterSummary>> dynamicFiltersCodec,
             NodeStatsTracker nodeStatsTracker,
             RemoteTaskStats stats,
             boolean binaryTransportEnabled,
@@ -273,6 +279,7 @@ public final class HttpRemoteTask
         requireNonNull(taskInfoCodec, "taskInfoCodec is null");
         requireNonNull(taskUpdateRequestCodec, "taskUpdateRequestCodec is null");
         requireNonNull(planFragmentCodec, "planFragmentCodec is null");
+        requireNonNull(dynamicFiltersCodec, "dynamicFiltersCodec is null");
         requireNonNull(nodeStatsTracker, "nodeStatsTracker is null");
         requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         requireNonNull(stats, "stats is null");
@@ -301,6 +308,7 @@ public final class HttpRemoteTask
             this.taskInfoJsonCodec = taskInfoJsonCodec;
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
             this.planFragmentCodec = planFragmentCodec;
+            this.dynamicFiltersCodec = dynamicFiltersCodec;
             this.updateErrorTracker = taskRequestErrorTracker(taskId, location, maxErrorDuration, errorScheduledExecutor, "updating task");
             this.nodeStatsTracker = requireNonNull(nodeStatsTracker, "nodeStatsTracker is null");
             this.maxErrorDuration = maxErrorDuration;
@@ -591,6 +599,33 @@ public final class HttpRemoteTask
         addCallback(httpClient.executeAsync(request, createStatusResponseHandler()), callback, directExecutor());
     }
 
+    @Override
+    public ListenableFuture<Map<String, DynamicFilterSummary>> getDynamicFilters()
+    {
+        Request request = getJsonTransportBuilder(prepareGet())
+                .setUri(uriBuilderFrom(taskLocation).appendPath("dynamicfilters").build())
+                .build();
+        return httpClient.executeAsync(request, createJsonResponseHandler(dynamicFiltersCodec));
+    }
+
+    @Override
+    public ListenableFuture<?> addDynamicFilters(Map<String, DynamicFilterSummary> dynamicFilters)
+    {
+        Request request = getJsonTransportBuilder(preparePost())
+                .setUri(uriBuilderFrom(taskLocation).appendPath("dynamicfilters").build())
+                .setBodyGenerator(createStaticBodyGenerator(dynamicFiltersCodec.toJsonBytes(dynamicFilters)))
+                .build();
+        return Futures.transform(
+                httpClient.executeAsync(request, createStatusResponseHandler()),
+                response -> {
+                    if (response.getStatusCode() != OK.code() && response.getStatusCode() != NO_CONTENT.code()) {
+                        throw new PrestoException(GENERIC_INTERNAL_ERROR, "Request failed with HTTP status " + response.getStatusCode());
+                    }
+                    return null;
+                },
+                directExecutor());
+    }
+
     @Override
     public PartitionedSplitsInfo getPartitionedSplitsInfo()
     {
@@ -46,6 +46,7 @@ import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.server.InternalCommunicationConfig;
 import com.facebook.presto.server.TaskUpdateRequest;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.collect.Multimap;
 import io.airlift.units.Duration;
@@ -55,6 +56,7 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -79,6 +81,7 @@ public class HttpRemoteTaskFactory
     private final Codec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Codec<PlanFragment> planFragmentCodec;
     private final Codec<MetadataUpdates> metadataUpdatesCodec;
+    private final JsonCodec<Map<String, DynamicFilterSummary>> dynamicFiltersCodec;
     private final Duration maxErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
     private final Duration taskInfoRefreshMaxWait;
@@ -119,6 +122,7 @@ public class HttpRemoteTaskFactory
             SmileCodec<PlanFragment> planFragmentSmileCodec,
             JsonCodec<MetadataUpdates> metadataUpdatesJsonCodec,
             SmileCodec<MetadataUpdates> metadataUpdatesSmileCodec,
+            JsonCodec<Map<String, DynamicFilterSummary>> dynamicFiltersCodec,
             RemoteTaskStats stats,
             InternalCommunicationConfig communicationConfig,
             MetadataManager metadataManager,
@@ -176,6 +180,7 @@ public class HttpRemoteTaskFactory
             this.metadataUpdatesCodec = metadataUpdatesJsonCodec;
         }
         this.planFragmentCodec = planFragmentJsonCodec;
+        this.dynamicFiltersCodec = requireNonNull(dynamicFiltersCodec, "dynamicFiltersCodec is null");
 
         this.metadataManager = metadataManager;
         this.queryManager = queryManager;
@@ -242,6 +247,7 @@ public class HttpRemoteTaskFactory
                 taskUpdateRequestCodec,
                 planFragmentCodec,
                 metadataUpdatesCodec,
+                dynamicFiltersCodec,
                 nodeStatsTracker,
                 stats,
                 binaryTransportEnabled,
@@ -0,0 +1,261 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the pages of a page source that blocks on I/O in {@link #getNextPage} on a
+ * separate executor, and reports the pending read through {@link #isBlocked}, so that
+ * the driver yields the runner thread while the read waits. One page is read ahead
+ * while the previous page is processed.
+ * <p>
+ * The delegate is only used by one thread at a time: the executor while a read is
+ * pending, and the caller otherwise. The statistics of the delegate are captured by
+ * the executor after each read, and the captured values are reported to the caller.
+ */
+@ThreadSafe
+public class AsyncPageSource
+        implements ConnectorPageSource
+{
+    private static final Logger log = Logger.get(AsyncPageSource.class);
+
+    private final ConnectorPageSource delegate;
+    private final Executor executor;
+    private final ClassLoader classLoader;
+
+    @GuardedBy("this")
+    private CompletableFuture<Page> pendingRead;
+    @GuardedBy("this")
+    private boolean closed;
+    @GuardedBy("this")
+    private DelegateStats delegateStats;
+
+    public AsyncPageSource(ConnectorPageSource delegate, Executor executor, ClassLoader classLoader)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.classLoader = requireNonNull(classLoader, "classLoader is null");
+        this.delegateStats = new DelegateStats(delegate);
+    }
+
+    @Override
+    public synchronized long getCompletedBytes()
+    {
+        return delegateStats.getCompletedBytes();
+    }
+
+    @Override
+    public synchronized long getCompletedPositions()
+    {
+        return delegateStats.getCompletedPositions();
+    }
+
+    @Override
+    public synchronized long getReadTimeNanos()
+    {
+        return delegateStats.getReadTimeNanos();
+    }
+
+    @Override
+    public synchronized boolean isFinished()
+    {
+        return closed || (pendingRead == null && delegate.isFinished());
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        CompletableFuture<Page> completedRead;
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            if (pendingRead == null) {
+                if (!delegate.isFinished()) {
+                    pendingRead = startRead();
+                }
+                return null;
+            }
+            if (!pendingRead.isDone()) {
+                return null;
+            }
+            completedRead = pendingRead;
+            pendingRead = null;
+        }
+
+        Page page = getReadResult(completedRead);
+
+        synchronized (this) {
+            // read the next page while this one is processed
+            if (!closed && pendingRead == null && !delegate.isFinished()) {
+                pendingRead = startRead();
+            }
+        }
+        return page;
+    }
+
+    @GuardedBy("this")
+    private CompletableFuture<Page> startRead()
+    {
+        return delegate.isBlocked().thenApplyAsync(ignored -> {
+            try (ThreadContextClassLoader ignoredClassLoader = new ThreadContextClassLoader(classLoader)) {
+                return delegate.getNextPage();
+            }
+            finally {
+                updateDelegateStats();
+            }
+        }, executor);
+    }
+
+    private void updateDelegateStats()
+    {
+        // called by the thread using the delegate, before the read is reported as done
+        DelegateStats stats = new DelegateStats(delegate);
+        synchronized (this) {
+            delegateStats = stats;
+        }
+    }
+
+    private static Page getReadResult(CompletableFuture<Page> read)
+    {
+        try {
+            return read.join();
+        }
+        catch (CompletionException e) {
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public synchronized long getSystemMemoryUsage()
+    {
+        long memoryUsage = 0;
+        if (pendingRead != null && pendingRead.isDone() && !pendingRead.isCompletedExceptionally()) {
+            Page page = pendingRead.join();
+            if (page != null) {
+                memoryUsage += page.getRetainedSizeInBytes();
+            }
+        }
+        return memoryUsage + delegateStats.getSystemMemoryUsage();
+    }
+
+    @Override
+    public synchronized CompletableFuture<?> isBlocked()
+    {
+        if (pendingRead == null || pendingRead.isDone()) {
+            return NOT_BLOCKED;
+        }
+        // a failed read is reported by getNextPage
+        return pendingRead.exceptionally(ignored -> null);
+    }
+
+    @Override
+    public synchronized RuntimeStats getRuntimeStats()
+    {
+        return delegateStats.getRuntimeStats();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        CompletableFuture<Page> read;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            read = pendingRead;
+            pendingRead = null;
+        }
+
+        if (read == null || read.isDone()) {
+            delegate.close();
+            updateDelegateStats();
+            return;
+        }
+
+        // the delegate is still reading, so it is closed when the read completes
+        read.whenComplete((page, failure) -> {
+            try {
+                delegate.close();
+                updateDelegateStats();
+            }
+            catch (IOException | RuntimeException e) {
+                log.warn(e, "Error closing page source");
+            }
+        });
+    }
+
+    private static class DelegateStats
+    {
+        private final long completedBytes;
+        private final long completedPositions;
+        private final long readTimeNanos;
+        private final long systemMemoryUsage;
+        private final RuntimeStats runtimeStats;
+
+        public DelegateStats(ConnectorPageSource delegate)
+        {
+            this.completedBytes = delegate.getCompletedBytes();
+            this.completedPositions = delegate.getCompletedPositions();
+            this.readTimeNanos = delegate.getReadTimeNanos();
+            this.systemMemoryUsage = delegate.getSystemMemoryUsage();
+            RuntimeStats runtimeStats = delegate.getRuntimeStats();
+            this.runtimeStats = runtimeStats == null ? null : RuntimeStats.copyOf(runtimeStats);
+        }
+
+        public long getCompletedBytes()
+        {
+            return completedBytes;
+        }
+
+        public long getCompletedPositions()
+        {
+            return completedPositions;
+        }
+
+        public long getReadTimeNanos()
+        {
+            return readTimeNanos;
+        }
+
+        public long getSystemMemoryUsage()
+        {
+            return systemMemoryUsage;
+        }
+
+        public RuntimeStats getRuntimeStats()
+        {
+            return runtimeStats;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorTableLayoutHandle;
+import com.facebook.presto.spi.SplitContext;
+import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+public class AsyncPageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private final ConnectorPageSourceProvider delegate;
+    private final Executor executor;
+    private final ClassLoader classLoader;
+
+    public AsyncPageSourceProvider(ConnectorPageSourceProvider delegate, Executor executor, ClassLoader classLoader)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.classLoader = requireNonNull(classLoader, "classLoader is null");
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            SplitContext splitContext)
+    {
+        return createAsyncPageSource(delegate.createPageSource(transactionHandle, session, split, columns, splitContext));
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableLayoutHandle layout,
+            List<ColumnHandle> columns,
+            SplitContext splitContext)
+    {
+        return createAsyncPageSource(delegate.createPageSource(transactionHandle, session, split, layout, columns, splitContext));
+    }
+
+    private ConnectorPageSource createAsyncPageSource(ConnectorPageSource pageSource)
+    {
+        // the operators also write to an updatable page source, so it is read on the runner thread
+        if (pageSource instanceof UpdatablePageSource) {
+            return pageSource;
+        }
+        return new AsyncPageSource(pageSource, executor, classLoader);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+/**
+ * Runs the reads of the page sources of connectors that block on I/O, on virtual
+ * threads when the JVM supports them, or on a bounded thread pool otherwise.
+ */
+public class BlockingPageSourceExecutor
+{
+    private static final Logger log = Logger.get(BlockingPageSourceExecutor.class);
+
+    private final Optional<ExecutorService> executor;
+    private final boolean virtualThreads;
+
+    @Inject
+    public BlockingPageSourceExecutor(TaskManagerConfig config)
+    {
+        requireNonNull(config, "config is null");
+        if (!config.isBlockingPageSourceOffloadEnabled()) {
+            this.executor = Optional.empty();
+            this.virtualThreads = false;
+            return;
+        }
+
+        Optional<ExecutorService> virtualThreadExecutor = createVirtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor.isPresent();
+        this.executor = Optional.of(virtualThreadExecutor.orElseGet(() ->
+                newFixedThreadPool(config.getBlockingPageSourceMaxThreads(), daemonThreadsNamed("blocking-page-source-%s"))));
+    }
+
+    /**
+     * Returns a provider whose page sources read on this executor, or the provider
+     * itself if offloading the reads is disabled.
+     */
+    public ConnectorPageSourceProvider wrap(ConnectorPageSourceProvider pageSourceProvider, ClassLoader classLoader)
+    {
+        if (!executor.isPresent()) {
+            return pageSourceProvider;
+        }
+        return new AsyncPageSourceProvider(pageSourceProvider, executor.get(), classLoader);
+    }
+
+    private static Optional<ExecutorService> createVirtualThreadExecutor()
+    {
+        // virtual threads are only available at runtime on Java 21 and later
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        }
+        catch (ReflectiveOperationException e) {
+            log.info("Virtual threads are not available, blocking page source reads use a thread pool");
+            return Optional.empty();
+        }
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.ifPresent(ExecutorService::shutdownNow);
+    }
+
+    @Managed
+    public boolean isEnabled()
+    {
+        return executor.isPresent();
+    }
+
+    @Managed
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+}
@@ -72,7 +72,7 @@ public class PageSourceManager
                     split.getTransactionHandle(),
                     split.getConnectorSplit(),
                     split.getLifespan(),
-                    new SplitContext(split.getSplitContext().isCacheable(), dynamicFilter.get().get()));
+                    new SplitContext(split.getSplitContext().isCacheable(), dynamicFilter.get().get(), split.getSplitContext().getDynamicFilterBloomFilters()));
         }
 
         ConnectorSession connectorSession = session.toConnectorSession(split.getConnectorId());
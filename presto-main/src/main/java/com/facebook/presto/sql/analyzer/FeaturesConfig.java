@@ -16,6 +16,7 @@ package com.facebook.presto.sql.analyzer;
 import com.facebook.airlift.configuration.Config;
 import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.airlift.configuration.DefunctConfig;
+import com.facebook.presto.execution.buffer.CompressionCodec;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.facebook.presto.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -29,6 +30,7 @@ import io.airlift.units.MaxDataSize;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -36,6 +38,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
+import static com.facebook.presto.execution.buffer.PagesSerdeFactory.DEFAULT_ZSTD_COMPRESSION_LEVEL;
+import static com.facebook.presto.execution.buffer.PagesSerdeFactory.MAX_ZSTD_COMPRESSION_LEVEL;
+import static com.facebook.presto.execution.buffer.PagesSerdeFactory.MIN_ZSTD_COMPRESSION_LEVEL;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationPartitioningMergingStrategy.LEGACY;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.ORDER_BY_CREATE_TIME;
 import static com.facebook.presto.sql.analyzer.RegexLibrary.JONI;
@@ -43,6 +48,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -101,6 +107,9 @@ public class FeaturesConfig
     private boolean optimizeCaseExpressionPredicate;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private CompressionCodec exchangeCompressionCodec = CompressionCodec.LZ4;
+    private int exchangeCompressionLevel = DEFAULT_ZSTD_COMPRESSION_LEVEL;
+    private boolean exchangeAdaptiveCompressionEnabled;
     private boolean exchangeChecksumEnabled;
     private boolean legacyArrayAgg;
     private boolean reduceAggForComplexTypesEnabled = true;
@@ -115,6 +124,7 @@ public class FeaturesConfig
     private boolean optimizeMixedDistinctAggregations;
     private boolean forceSingleNodeOutput = true;
     private boolean pagesIndexEagerCompactionEnabled;
+    private boolean pagesIndexRadixSortEnabled;
     private boolean distributedSort = true;
     private boolean optimizeJoinsWithEmptySources;
     private boolean logFormattedQueryEnabled;
@@ -137,6 +147,10 @@ public class FeaturesConfig
     private boolean orderByAggregationSpillEnabled = true;
     private boolean windowSpillEnabled = true;
     private boolean orderBySpillEnabled = true;
+    private boolean topNRowNumberSpillEnabled = true;
+    private boolean rowNumberSpillEnabled = true;
+    private boolean markDistinctSpillEnabled = true;
+    private boolean semiJoinSpillEnabled = true;
     private DataSize aggregationOperatorUnspillMemoryLimit = new DataSize(4, MEGABYTE);
     private List<Path> spillerSpillPaths = ImmutableList.of();
     private int spillerThreads = 4;
@@ -167,6 +181,9 @@ public class FeaturesConfig
     private int dynamicFilteringMaxPerDriverRowCount = 100;
     private DataSize dynamicFilteringMaxPerDriverSize = new DataSize(10, KILOBYTE);
     private int dynamicFilteringRangeRowLimitPerDriver;
+    private int dynamicFilteringBloomFilterRowLimitPerDriver;
+    private boolean enableDistributedDynamicFiltering;
+    private Duration distributedDynamicFilteringWaitTimeout = new Duration(1, SECONDS);
 
     private boolean fragmentResultCachingEnabled;
 
@@ -202,6 +219,12 @@ public class FeaturesConfig
     private boolean spoolingOutputBufferEnabled;
     private DataSize spoolingOutputBufferThreshold = new DataSize(8, MEGABYTE);
     private String spoolingOutputBufferTempStorage = "local";
+    private boolean spooledQueryResultsEnabled;
+    private DataSize spooledQueryResultsSegmentSize = new DataSize(4, MEGABYTE);
+    private String spooledQueryResultsTempStorage = "local";
+    private Duration spooledQueryResultsTtl = new Duration(1, HOURS);
+    private boolean persistentExchangeEnabled;
+    private String persistentExchangeTempStorage = "local";
 
     private String warnOnNoTableLayoutFilter = "";
 
@@ -224,6 +247,9 @@ public class FeaturesConfig
     private boolean verboseRuntimeStatsEnabled;
 
     private boolean streamingForPartialAggregationEnabled;
+    private boolean adaptivePartialAggregationEnabled;
+    private long adaptivePartialAggregationMinRows = 100_000;
+    private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
     private boolean preferMergeJoin;
     private boolean segmentedAggregationEnabled;
 
@@ -1152,6 +1178,58 @@ public class FeaturesConfig
         return orderBySpillEnabled;
     }
 
+    @Config("experimental.topn-row-number-spill-enabled")
+    @ConfigDescription("Enable TopN Row Number Operator Spilling if spill is enabled")
+    public FeaturesConfig setTopNRowNumberSpillEnabled(boolean topNRowNumberSpillEnabled)
+    {
+        this.topNRowNumberSpillEnabled = topNRowNumberSpillEnabled;
+        return this;
+    }
+
+    public boolean isTopNRowNumberSpillEnabled()
+    {
+        return topNRowNumberSpillEnabled;
+    }
+
+    @Config("experimental.row-number-spill-enabled")
+    @ConfigDescription("Enable Row Number Operator Spilling if spill is enabled")
+    public FeaturesConfig setRowNumberSpillEnabled(boolean rowNumberSpillEnabled)
+    {
+        this.rowNumberSpillEnabled = rowNumberSpillEnabled;
+        return this;
+    }
+
+    public boolean isRowNumberSpillEnabled()
+    {
+        return rowNumberSpillEnabled;
+    }
+
+    @Config("experimental.mark-distinct-spill-enabled")
+    @ConfigDescription("Enable Mark Distinct Operator Spilling if spill is enabled")
+    public FeaturesConfig setMarkDistinctSpillEnabled(boolean markDistinctSpillEnabled)
+    {
+        this.markDistinctSpillEnabled = markDistinctSpillEnabled;
+        return this;
+    }
+
+    public boolean isMarkDistinctSpillEnabled()
+    {
+        return markDistinctSpillEnabled;
+    }
+
+    @Config("experimental.semi-join-spill-enabled")
+    @ConfigDescription("Enable Semi Join Set Builder Spilling if spill is enabled")
+    public FeaturesConfig setSemiJoinSpillEnabled(boolean semiJoinSpillEnabled)
+    {
+        this.semiJoinSpillEnabled = semiJoinSpillEnabled;
+        return this;
+    }
+
+    public boolean isSemiJoinSpillEnabled()
+    {
+        return semiJoinSpillEnabled;
+    }
+
     public boolean isIterativeOptimizerEnabled()
     {
         return iterativeOptimizerEnabled;
@@ -1398,6 +1476,46 @@ public class FeaturesConfig
         return this;
     }
 
+    public int getDynamicFilteringBloomFilterRowLimitPerDriver()
+    {
+        return dynamicFilteringBloomFilterRowLimitPerDriver;
+    }
+
+    @Config("experimental.dynamic-filtering-bloom-filter-row-limit-per-driver")
+    @ConfigDescription("Maximum number of build-side rows per driver up to which a Bloom filter will be collected for dynamic filtering")
+    public FeaturesConfig setDynamicFilteringBloomFilterRowLimitPerDriver(int dynamicFilteringBloomFilterRowLimitPerDriver)
+    {
+        this.dynamicFilteringBloomFilterRowLimitPerDriver = dynamicFilteringBloomFilterRowLimitPerDriver;
+        return this;
+    }
+
+    public boolean isEnableDistributedDynamicFiltering()
+    {
+        return enableDistributedDynamicFiltering;
+    }
+
+    @Config("experimental.enable-distributed-dynamic-filtering")
+    @ConfigDescription("Collect dynamic filters on the coordinator and apply them to table scans in other stages")
+    public FeaturesConfig setEnableDistributedDynamicFiltering(boolean enableDistributedDynamicFiltering)
+    {
+        this.enableDistributedDynamicFiltering = enableDistributedDynamicFiltering;
+        return this;
+    }
+
+    @NotNull
+    public Duration getDistributedDynamicFilteringWaitTimeout()
+    {
+        return distributedDynamicFilteringWaitTimeout;
+    }
+
+    @Config("experimental.distributed-dynamic-filtering-wait-timeout")
+    @ConfigDescription("Maximum time to delay split enumeration of a table scan waiting for its distributed dynamic filters")
+    public FeaturesConfig setDistributedDynamicFilteringWaitTimeout(Duration distributedDynamicFilteringWaitTimeout)
+    {
+        this.distributedDynamicFilteringWaitTimeout = distributedDynamicFilteringWaitTimeout;
+        return this;
+    }
+
     public boolean isFragmentResultCachingEnabled()
     {
         return fragmentResultCachingEnabled;
@@ -1447,6 +1565,48 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public CompressionCodec getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec used to compress exchanged pages when exchange compression is enabled")
+    public FeaturesConfig setExchangeCompressionCodec(CompressionCodec exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = exchangeCompressionCodec;
+        return this;
+    }
+
+    @Min(MIN_ZSTD_COMPRESSION_LEVEL)
+    @Max(MAX_ZSTD_COMPRESSION_LEVEL)
+    public int getExchangeCompressionLevel()
+    {
+        return exchangeCompressionLevel;
+    }
+
+    @Config("exchange.compression-level")
+    @ConfigDescription("Compression level of the ZSTD exchange compression codec")
+    public FeaturesConfig setExchangeCompressionLevel(int exchangeCompressionLevel)
+    {
+        this.exchangeCompressionLevel = exchangeCompressionLevel;
+        return this;
+    }
+
+    public boolean isExchangeAdaptiveCompressionEnabled()
+    {
+        return exchangeAdaptiveCompressionEnabled;
+    }
+
+    @Config("exchange.adaptive-compression-enabled")
+    @ConfigDescription("Stop compressing exchanged pages for a while after pages that do not compress well")
+    public FeaturesConfig setExchangeAdaptiveCompressionEnabled(boolean exchangeAdaptiveCompressionEnabled)
+    {
+        this.exchangeAdaptiveCompressionEnabled = exchangeAdaptiveCompressionEnabled;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -1507,6 +1667,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isPagesIndexRadixSortEnabled()
+    {
+        return pagesIndexRadixSortEnabled;
+    }
+
+    @Config("pages-index.radix-sort-enabled")
+    @ConfigDescription("Sort pages indexes with a radix sort of normalized keys when the first sort key has a supported type")
+    public FeaturesConfig setPagesIndexRadixSortEnabled(boolean pagesIndexRadixSortEnabled)
+    {
+        this.pagesIndexRadixSortEnabled = pagesIndexRadixSortEnabled;
+        return this;
+    }
+
     @MaxDataSize("1MB")
     public DataSize getFilterAndProjectMinOutputPageSize()
     {
@@ -1952,6 +2125,86 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isSpooledQueryResultsEnabled()
+    {
+        return spooledQueryResultsEnabled;
+    }
+
+    @Config("spooled-query-results-enabled")
+    @ConfigDescription("Write the query results to temp storage segments that the clients download from the workers")
+    public FeaturesConfig setSpooledQueryResultsEnabled(boolean spooledQueryResultsEnabled)
+    {
+        this.spooledQueryResultsEnabled = spooledQueryResultsEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSpooledQueryResultsSegmentSize()
+    {
+        return spooledQueryResultsSegmentSize;
+    }
+
+    @Config("spooled-query-results-segment-size")
+    @ConfigDescription("Size of the query results written to a single temp storage segment")
+    public FeaturesConfig setSpooledQueryResultsSegmentSize(DataSize spooledQueryResultsSegmentSize)
+    {
+        this.spooledQueryResultsSegmentSize = spooledQueryResultsSegmentSize;
+        return this;
+    }
+
+    @NotNull
+    public String getSpooledQueryResultsTempStorage()
+    {
+        return spooledQueryResultsTempStorage;
+    }
+
+    @Config("spooled-query-results-temp-storage")
+    public FeaturesConfig setSpooledQueryResultsTempStorage(String spooledQueryResultsTempStorage)
+    {
+        this.spooledQueryResultsTempStorage = spooledQueryResultsTempStorage;
+        return this;
+    }
+
+    @NotNull
+    public Duration getSpooledQueryResultsTtl()
+    {
+        return spooledQueryResultsTtl;
+    }
+
+    @Config("spooled-query-results-ttl")
+    @ConfigDescription("Time after which the segments that were not downloaded by the client are removed")
+    public FeaturesConfig setSpooledQueryResultsTtl(Duration spooledQueryResultsTtl)
+    {
+        this.spooledQueryResultsTtl = spooledQueryResultsTtl;
+        return this;
+    }
+
+    public boolean isPersistentExchangeEnabled()
+    {
+        return persistentExchangeEnabled;
+    }
+
+    @Config("persistent-exchange-enabled")
+    @ConfigDescription("Keep the output of intermediate tasks in temp storage, so that failed tasks that read it can be retried")
+    public FeaturesConfig setPersistentExchangeEnabled(boolean persistentExchangeEnabled)
+    {
+        this.persistentExchangeEnabled = persistentExchangeEnabled;
+        return this;
+    }
+
+    @NotNull
+    public String getPersistentExchangeTempStorage()
+    {
+        return persistentExchangeTempStorage;
+    }
+
+    @Config("persistent-exchange-temp-storage")
+    public FeaturesConfig setPersistentExchangeTempStorage(String persistentExchangeTempStorage)
+    {
+        this.persistentExchangeTempStorage = persistentExchangeTempStorage;
+        return this;
+    }
+
     public boolean isPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled()
     {
         return prestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled;
@@ -2106,6 +2359,48 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("adaptive-partial-aggregation-enabled")
+    @ConfigDescription("Disable partial aggregation at runtime when it does not reduce the number of rows enough")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public long getAdaptivePartialAggregationMinRows()
+    {
+        return adaptivePartialAggregationMinRows;
+    }
+
+    @Config("adaptive-partial-aggregation-min-rows")
+    @ConfigDescription("Number of input rows a partial aggregation processes before its reduction is evaluated")
+    public FeaturesConfig setAdaptivePartialAggregationMinRows(long adaptivePartialAggregationMinRows)
+    {
+        this.adaptivePartialAggregationMinRows = adaptivePartialAggregationMinRows;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationUniqueRowsRatioThreshold()
+    {
+        return adaptivePartialAggregationUniqueRowsRatioThreshold;
+    }
+
+    @Config("adaptive-partial-aggregation-unique-rows-ratio-threshold")
+    @ConfigDescription("Ratio of output groups to input rows above which partial aggregation is disabled")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatioThreshold(double adaptivePartialAggregationUniqueRowsRatioThreshold)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = adaptivePartialAggregationUniqueRowsRatioThreshold;
+        return this;
+    }
+
     public int getMaxStageCountForEagerScheduling()
     {
         return maxStageCountForEagerScheduling;
@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The build-side values of a dynamic filter that are exchanged between the tasks and the coordinator:
+ * a domain, and a Bloom filter of the values when the domain became too large to be exact.
+ */
+public class DynamicFilterSummary
+{
+    private final Domain domain;
+    private final Optional<SplitBlockBloomFilter> bloomFilter;
+
+    @JsonCreator
+    public DynamicFilterSummary(
+            @JsonProperty("domain") Domain domain,
+            @JsonProperty("bloomFilter") Optional<SplitBlockBloomFilter> bloomFilter)
+    {
+        this.domain = requireNonNull(domain, "domain is null");
+        this.bloomFilter = requireNonNull(bloomFilter, "bloomFilter is null");
+    }
+
+    public static DynamicFilterSummary of(Domain domain)
+    {
+        return new DynamicFilterSummary(domain, Optional.empty());
+    }
+
+    @JsonProperty
+    public Domain getDomain()
+    {
+        return domain;
+    }
+
+    @JsonProperty
+    public Optional<SplitBlockBloomFilter> getBloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    /**
+     * Merges the summaries of the tasks of a stage. The Bloom filter of the result is only present
+     * when it contains the values of every task.
+     */
+    public static DynamicFilterSummary union(List<DynamicFilterSummary> summaries)
+    {
+        checkArgument(!summaries.isEmpty(), "summaries is empty");
+        Domain domain = Domain.union(summaries.stream()
+                .map(DynamicFilterSummary::getDomain)
+                .collect(toImmutableList()));
+        return new DynamicFilterSummary(domain, unionBloomFilters(summaries));
+    }
+
+    private static Optional<SplitBlockBloomFilter> unionBloomFilters(List<DynamicFilterSummary> summaries)
+    {
+        List<SplitBlockBloomFilter> bloomFilters = summaries.stream()
+                .map(DynamicFilterSummary::getBloomFilter)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toImmutableList());
+        if (bloomFilters.isEmpty()) {
+            // every task has an exact domain
+            return Optional.empty();
+        }
+        SplitBlockBloomFilter result = bloomFilters.get(0).copy();
+        bloomFilters.stream().skip(1).forEach(result::merge);
+        for (DynamicFilterSummary summary : summaries) {
+            if (!summary.getBloomFilter().isPresent() && !insertValues(result, summary.getDomain())) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Adds the values of an exact domain to the Bloom filter. Returns false if the domain is not made of
+     * single values, in which case the filter could reject the values of the domain.
+     */
+    static boolean insertValues(SplitBlockBloomFilter bloomFilter, Domain domain)
+    {
+        // the types supported by the Bloom filters are orderable, and the nulls never match an equality join condition
+        List<Range> ranges = domain.getValues().getRanges().getOrderedRanges();
+        if (!ranges.stream().allMatch(Range::isSingleValue)) {
+            return false;
+        }
+        for (Range range : ranges) {
+            bloomFilter.insert(SplitBlockBloomFilter.hash(domain.getType(), range.getSingleValue()));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DynamicFilterSummary that = (DynamicFilterSummary) o;
+        return domain.equals(that.domain) &&
+                bloomFilter.equals(that.bloomFilter);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(domain, bloomFilter);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("domain", domain)
+                .add("bloomFilter", bloomFilter)
+                .toString();
+    }
+}
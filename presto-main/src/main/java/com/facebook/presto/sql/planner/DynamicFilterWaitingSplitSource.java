@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
+import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.split.SplitSource;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delays split enumeration until the dynamic filters of the table scan are available,
+ * so that the connector can use them to prune the splits. The delegate is expected to
+ * be lazy, as the split enumeration may start when it is created.
+ */
+public class DynamicFilterWaitingSplitSource
+        implements SplitSource
+{
+    private final ConnectorId connectorId;
+    private final ConnectorTransactionHandle transactionHandle;
+    private final ListenableFuture<?> dynamicFiltersFuture;
+    private final SplitSource delegate;
+
+    public DynamicFilterWaitingSplitSource(ConnectorId connectorId, ConnectorTransactionHandle transactionHandle, ListenableFuture<?> dynamicFiltersFuture, SplitSource delegate)
+    {
+        this.connectorId = requireNonNull(connectorId, "connectorId is null");
+        this.transactionHandle = requireNonNull(transactionHandle, "transactionHandle is null");
+        this.dynamicFiltersFuture = requireNonNull(dynamicFiltersFuture, "dynamicFiltersFuture is null");
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public ConnectorId getConnectorId()
+    {
+        return connectorId;
+    }
+
+    @Override
+    public ConnectorTransactionHandle getTransactionHandle()
+    {
+        return transactionHandle;
+    }
+
+    @Override
+    public ListenableFuture<SplitBatch> getNextBatch(ConnectorPartitionHandle partitionHandle, Lifespan lifespan, int maxSize)
+    {
+        if (dynamicFiltersFuture.isDone()) {
+            return delegate.getNextBatch(partitionHandle, lifespan, maxSize);
+        }
+        return transformAsync(dynamicFiltersFuture, ignored -> delegate.getNextBatch(partitionHandle, lifespan, maxSize), directExecutor());
+    }
+
+    @Override
+    public void rewind(ConnectorPartitionHandle partitionHandle)
+    {
+        delegate.rewind(partitionHandle);
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return dynamicFiltersFuture.isDone() && delegate.isFinished();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+}
@@ -14,7 +14,9 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.type.Type;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterExtractResult;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
 import com.facebook.presto.spi.plan.FilterNode;
@@ -26,19 +28,26 @@ import com.facebook.presto.sql.planner.plan.AbstractJoinNode;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import static com.facebook.presto.common.function.OperatorType.EQUAL;
 import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
+import static com.facebook.presto.sql.planner.DynamicFilterSummary.insertValues;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toMap;
 
@@ -50,38 +59,142 @@ public class LocalDynamicFilter
     // Mapping from dynamic filter ID to its build channel indices.
     private final Map<String, Integer> buildChannels;
 
+    // Mapping from dynamic filter ID to its build-side type, for the filters reported to the coordinator.
+    private final Map<String, Type> distributedFilterTypes;
+
     private final SettableFuture<TupleDomain<VariableReferenceExpression>> resultFuture;
 
+    private final SettableFuture<Map<String, DynamicFilterSummary>> distributedResultFuture;
+
+    private final SettableFuture<Map<VariableReferenceExpression, SplitBlockBloomFilter>> bloomFilterResultFuture;
+
     // Number of build-side partitions to be collected.
     private final int partitionCount;
 
     // The resulting predicates from each build-side partition.
     private final List<TupleDomain<String>> partitions;
 
+    // The Bloom filters collected by each build-side partition, empty unless its predicate became too large.
+    private final List<Map<String, SplitBlockBloomFilter>> partitionBloomFilters;
+
     public LocalDynamicFilter(Multimap<String, DynamicFilterPlaceholder> probeVariables, Map<String, Integer> buildChannels, int partitionCount)
+    {
+        this(probeVariables, buildChannels, ImmutableMap.of(), partitionCount);
+    }
+
+    public LocalDynamicFilter(
+            Multimap<String, DynamicFilterPlaceholder> probeVariables,
+            Map<String, Integer> buildChannels,
+            Map<String, Type> distributedFilterTypes,
+            int partitionCount)
     {
         this.probeVariables = requireNonNull(probeVariables, "probeVariables is null");
         this.buildChannels = requireNonNull(buildChannels, "buildChannels is null");
-        verify(probeVariables.keySet().equals(buildChannels.keySet()), "probeVariables and buildChannels must have same keys");
+        this.distributedFilterTypes = requireNonNull(distributedFilterTypes, "distributedFilterTypes is null");
+        verify(
+                Sets.union(probeVariables.keySet(), distributedFilterTypes.keySet()).equals(buildChannels.keySet()),
+                "buildChannels must have the keys of probeVariables and distributedFilterTypes");
 
         this.resultFuture = SettableFuture.create();
+        this.distributedResultFuture = SettableFuture.create();
+        this.bloomFilterResultFuture = SettableFuture.create();
 
         this.partitionCount = partitionCount;
         this.partitions = new ArrayList<>(partitionCount);
+        this.partitionBloomFilters = new ArrayList<>(partitionCount);
+    }
+
+    private void addPartition(TupleDomain<String> tupleDomain)
+    {
+        addPartition(tupleDomain, ImmutableMap.of());
     }
 
-    private synchronized void addPartition(TupleDomain<String> tupleDomain)
+    private synchronized void addPartition(TupleDomain<String> tupleDomain, Map<String, SplitBlockBloomFilter> bloomFilters)
     {
         // Called concurrently by each DynamicFilterSourceOperator instance (when collection is over).
         verify(partitions.size() < partitionCount);
         // NOTE: may result in a bit more relaxed constraint if there are multiple columns and multiple rows.
         // See the comment at TupleDomain::columnWiseUnion() for more details.
         partitions.add(tupleDomain);
+        partitionBloomFilters.add(bloomFilters);
         if (partitions.size() == partitionCount) {
             // No more partitions are left to be processed.
-            TupleDomain<VariableReferenceExpression> result = convertTupleDomain(TupleDomain.columnWiseUnion(partitions));
-            verify(resultFuture.set(result), "dynamic filter result is provided more than once");
+            TupleDomain<String> union = TupleDomain.columnWiseUnion(partitions);
+            // Set before the predicate, so that the probe side never reads the predicate without the Bloom filters
+            bloomFilterResultFuture.set(mergeBloomFilters());
+            verify(resultFuture.set(convertTupleDomain(union)), "dynamic filter result is provided more than once");
+            distributedResultFuture.set(extractDistributedFilters(union));
+        }
+    }
+
+    private Map<VariableReferenceExpression, SplitBlockBloomFilter> mergeBloomFilters()
+    {
+        ImmutableMap.Builder<VariableReferenceExpression, SplitBlockBloomFilter> builder = ImmutableMap.builder();
+        for (String filterId : probeVariables.keySet()) {
+            Optional<SplitBlockBloomFilter> bloomFilter = mergeBloomFilters(filterId);
+            if (!bloomFilter.isPresent()) {
+                continue;
+            }
+            for (DynamicFilterPlaceholder placeholder : probeVariables.get(filterId)) {
+                // Only equality can be tested with a Bloom filter
+                if (placeholder.getOperator() == EQUAL) {
+                    builder.put((VariableReferenceExpression) placeholder.getInput(), bloomFilter.get());
+                }
+            }
         }
+        return builder.build();
+    }
+
+    private Optional<SplitBlockBloomFilter> mergeBloomFilters(String filterId)
+    {
+        List<SplitBlockBloomFilter> bloomFilters = partitionBloomFilters.stream()
+                .map(filters -> filters.get(filterId))
+                .filter(Objects::nonNull)
+                .collect(toImmutableList());
+        if (bloomFilters.isEmpty()) {
+            // every partition has an exact predicate
+            return Optional.empty();
+        }
+        SplitBlockBloomFilter result = bloomFilters.get(0).copy();
+        bloomFilters.stream().skip(1).forEach(result::merge);
+        if (bloomFilters.size() == partitions.size()) {
+            return Optional.of(result);
+        }
+        // The values of the partitions with an exact predicate are added to the filter, unless a partition only
+        // collected a range of values (or nothing at all), in which case the filter could reject matching rows.
+        for (int partition = 0; partition < partitions.size(); partition++) {
+            if (partitionBloomFilters.get(partition).containsKey(filterId)) {
+                continue;
+            }
+            TupleDomain<String> tupleDomain = partitions.get(partition);
+            if (tupleDomain.isNone()) {
+                continue;
+            }
+            Domain domain = tupleDomain.getDomains().get().get(filterId);
+            if (domain == null || !insertValues(result, domain)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(result);
+    }
+
+    private Map<String, DynamicFilterSummary> extractDistributedFilters(TupleDomain<String> result)
+    {
+        // Keep a domain for every reported filter, so that the coordinator can tell
+        // an unrestricted (or empty) build side from a filter that is still being collected.
+        ImmutableMap.Builder<String, DynamicFilterSummary> builder = ImmutableMap.builder();
+        for (Map.Entry<String, Type> entry : distributedFilterTypes.entrySet()) {
+            Type type = entry.getValue();
+            if (result.isNone()) {
+                builder.put(entry.getKey(), DynamicFilterSummary.of(Domain.none(type)));
+            }
+            else {
+                builder.put(entry.getKey(), new DynamicFilterSummary(
+                        result.getDomains().get().getOrDefault(entry.getKey(), Domain.all(type)),
+                        mergeBloomFilters(entry.getKey())));
+            }
+        }
+        return builder.build();
     }
 
     private TupleDomain<VariableReferenceExpression> convertTupleDomain(TupleDomain<String> result)
@@ -104,6 +217,15 @@ public class LocalDynamicFilter
     }
 
     public static Optional<LocalDynamicFilter> create(AbstractJoinNode planNode, int partitionCount)
+    {
+        return create(planNode, partitionCount, false);
+    }
+
+    /**
+     * @param distributed whether all the dynamic filters of the join are collected in order to be reported
+     * to the coordinator, including the ones without a matching probe-side table scan in the current plan fragment
+     */
+    public static Optional<LocalDynamicFilter> create(AbstractJoinNode planNode, int partitionCount, boolean distributed)
     {
         Set<String> joinDynamicFilters = planNode.getDynamicFilters().keySet();
         List<FilterNode> filterNodes = PlanNodeSearcher
@@ -128,8 +250,8 @@ public class LocalDynamicFilter
         Multimap<String, DynamicFilterPlaceholder> probeVariables = probeVariablesBuilder.build();
         PlanNode buildNode = planNode.getBuild();
         Map<String, Integer> buildChannels = planNode.getDynamicFilters().entrySet().stream()
-                // Skip build channels that don't match local probe dynamic filters.
-                .filter(entry -> probeVariables.containsKey(entry.getKey()))
+                // Skip build channels that don't match local probe dynamic filters, unless they are reported to the coordinator.
+                .filter(entry -> distributed || probeVariables.containsKey(entry.getKey()))
                 .collect(toMap(
                         // Dynamic filter ID
                         Map.Entry::getKey,
@@ -144,7 +266,12 @@ public class LocalDynamicFilter
         if (buildChannels.isEmpty()) {
             return Optional.empty();
         }
-        return Optional.of(new LocalDynamicFilter(probeVariables, buildChannels, partitionCount));
+        Map<String, Type> distributedFilterTypes = ImmutableMap.of();
+        if (distributed) {
+            distributedFilterTypes = planNode.getDynamicFilters().entrySet().stream()
+                    .collect(toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().getType()));
+        }
+        return Optional.of(new LocalDynamicFilter(probeVariables, buildChannels, distributedFilterTypes, partitionCount));
     }
 
     private static boolean isFilterAboveTableScan(PlanNode node)
@@ -162,17 +289,40 @@ public class LocalDynamicFilter
         return resultFuture;
     }
 
+    /**
+     * Returns the domains and the Bloom filters of the dynamic filters that are reported to the coordinator, keyed by dynamic filter ID.
+     */
+    public ListenableFuture<Map<String, DynamicFilterSummary>> getDistributedResultFuture()
+    {
+        return distributedResultFuture;
+    }
+
+    /**
+     * Returns the Bloom filters of the values of the build side, keyed by the probe variables of the equality dynamic filters.
+     * A filter is only present when the build-side predicate of a partition became too large to be exact.
+     */
+    public ListenableFuture<Map<VariableReferenceExpression, SplitBlockBloomFilter>> getBloomFilterResultFuture()
+    {
+        return bloomFilterResultFuture;
+    }
+
     public Consumer<TupleDomain<String>> getTupleDomainConsumer()
     {
         return this::addPartition;
     }
 
+    public BiConsumer<TupleDomain<String>, Map<String, SplitBlockBloomFilter>> getBloomFilterConsumer()
+    {
+        return this::addPartition;
+    }
+
     @Override
     public String toString()
     {
         return toStringHelper(this)
                 .add("probeVariables", probeVariables)
                 .add("buildChannels", buildChannels)
+                .add("distributedFilterTypes", distributedFilterTypes)
                 .add("partitionCount", partitionCount)
                 .add("partitions", partitions)
                 .toString();
@@ -13,12 +13,24 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.facebook.presto.common.function.OperatorType.EQUAL;
+import static com.google.common.base.Preconditions.checkArgument;
+
 @ThreadSafe
 public class LocalDynamicFiltersCollector
 {
@@ -29,6 +41,28 @@ public class LocalDynamicFiltersCollector
     @GuardedBy ("this")
     private TupleDomain<VariableReferenceExpression> predicate;
 
+    /**
+     * Domains and Bloom filters of the dynamic filters produced by the task, reported to the coordinator.
+     */
+    @GuardedBy("this")
+    private final Map<String, DynamicFilterSummary> producedFilters = new HashMap<>();
+
+    /**
+     * Probe-side placeholders of dynamic filters whose domains are provided by the coordinator.
+     */
+    @GuardedBy("this")
+    private final Multimap<String, DynamicFilterPlaceholder> remotePlaceholders = ArrayListMultimap.create();
+
+    @GuardedBy("this")
+    private final Map<String, DynamicFilterSummary> remoteFilters = new HashMap<>();
+
+    /**
+     * Bloom filters of the build-side values of the equality dynamic filters whose domains became too large,
+     * produced by the task or provided by the coordinator.
+     */
+    @GuardedBy("this")
+    private final Map<VariableReferenceExpression, SplitBlockBloomFilter> bloomFilters = new HashMap<>();
+
     public LocalDynamicFiltersCollector()
     {
         this.predicate = TupleDomain.all();
@@ -43,4 +77,60 @@ public class LocalDynamicFiltersCollector
     {
         this.predicate = this.predicate.intersect(predicate);
     }
+
+    public synchronized Map<VariableReferenceExpression, SplitBlockBloomFilter> getBloomFilters()
+    {
+        return ImmutableMap.copyOf(bloomFilters);
+    }
+
+    public synchronized void addBloomFilters(Map<VariableReferenceExpression, SplitBlockBloomFilter> bloomFilters)
+    {
+        // testing a single Bloom filter is enough when a probe variable is filtered by several joins
+        bloomFilters.forEach(this.bloomFilters::putIfAbsent);
+    }
+
+    public synchronized void addProducedFilters(Map<String, DynamicFilterSummary> filters)
+    {
+        producedFilters.putAll(filters);
+    }
+
+    public synchronized Map<String, DynamicFilterSummary> getProducedFilters()
+    {
+        return ImmutableMap.copyOf(producedFilters);
+    }
+
+    public synchronized void registerRemoteDynamicFilter(DynamicFilterPlaceholder placeholder)
+    {
+        checkArgument(placeholder.getInput() instanceof VariableReferenceExpression, "placeholder input must be a variable");
+        remotePlaceholders.put(placeholder.getId(), placeholder);
+        DynamicFilterSummary filter = remoteFilters.get(placeholder.getId());
+        if (filter != null) {
+            apply(placeholder, filter);
+        }
+    }
+
+    public synchronized void addRemoteFilters(Map<String, DynamicFilterSummary> filters)
+    {
+        for (Map.Entry<String, DynamicFilterSummary> entry : filters.entrySet()) {
+            if (remoteFilters.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                // the coordinator may send the same dynamic filter more than once
+                continue;
+            }
+            for (DynamicFilterPlaceholder placeholder : remotePlaceholders.get(entry.getKey())) {
+                apply(placeholder, entry.getValue());
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void apply(DynamicFilterPlaceholder placeholder, DynamicFilterSummary filter)
+    {
+        VariableReferenceExpression variable = (VariableReferenceExpression) placeholder.getInput();
+        Domain updatedDomain = placeholder.applyComparison(filter.getDomain());
+        intersect(TupleDomain.withColumnDomains(ImmutableMap.of(variable, updatedDomain)));
+        // Only equality can be tested with a Bloom filter
+        if (filter.getBloomFilter().isPresent() && placeholder.getOperator() == EQUAL) {
+            bloomFilters.putIfAbsent(variable, filter.getBloomFilter().get());
+        }
+    }
 }
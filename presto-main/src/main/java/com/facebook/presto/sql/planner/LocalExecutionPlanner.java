@@ -23,6 +23,7 @@ import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.function.OperatorType;
 import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeSignature;
@@ -33,6 +34,7 @@ import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.execution.TaskMetadataContext;
 import com.facebook.presto.execution.buffer.OutputBuffer;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.buffer.SpooledResultsManager;
 import com.facebook.presto.execution.scheduler.ExecutionWriterTarget;
 import com.facebook.presto.execution.scheduler.ExecutionWriterTarget.CreateHandle;
 import com.facebook.presto.execution.scheduler.ExecutionWriterTarget.DeleteHandle;
@@ -73,6 +75,9 @@ import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.LookupOuterOperator.LookupOuterOperatorFactory;
 import com.facebook.presto.operator.LookupSourceFactory;
 import com.facebook.presto.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
+import com.facebook.presto.operator.MergeJoinOperator.MergeJoinOperatorFactory;
+import com.facebook.presto.operator.MergeJoinSource;
+import com.facebook.presto.operator.MergeJoinSourceOperator.MergeJoinSourceOperatorFactory;
 import com.facebook.presto.operator.MetadataDeleteOperator.MetadataDeleteOperatorFactory;
 import com.facebook.presto.operator.NestedLoopJoinBridge;
 import com.facebook.presto.operator.NestedLoopJoinPagesSupplier;
@@ -82,6 +87,7 @@ import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PageSinkCommitStrategy;
 import com.facebook.presto.operator.PagesIndex;
 import com.facebook.presto.operator.PagesSpatialIndexFactory;
+import com.facebook.presto.operator.PartialAggregationController;
 import com.facebook.presto.operator.PartitionFunction;
 import com.facebook.presto.operator.PartitionedLookupSourceFactory;
 import com.facebook.presto.operator.PipelineExecutionStrategy;
@@ -94,6 +100,7 @@ import com.facebook.presto.operator.SourceOperatorFactory;
 import com.facebook.presto.operator.SpatialIndexBuilderOperator.SpatialIndexBuilderOperatorFactory;
 import com.facebook.presto.operator.SpatialIndexBuilderOperator.SpatialPredicate;
 import com.facebook.presto.operator.SpatialJoinOperator.SpatialJoinOperatorFactory;
+import com.facebook.presto.operator.SpooledResultsOutputOperator.SpooledResultsOutputFactory;
 import com.facebook.presto.operator.StageExecutionDescriptor;
 import com.facebook.presto.operator.StatisticsWriterOperator.StatisticsWriterOperatorFactory;
 import com.facebook.presto.operator.StreamingAggregationOperator.StreamingAggregationOperatorFactory;
@@ -187,6 +194,7 @@ import com.facebook.presto.sql.planner.plan.IndexJoinNode;
 import com.facebook.presto.sql.planner.plan.IndexSourceNode;
 import com.facebook.presto.sql.planner.plan.InternalPlanVisitor;
 import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.MergeJoinNode;
 import com.facebook.presto.sql.planner.plan.MetadataDeleteNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
@@ -245,33 +253,45 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.facebook.airlift.concurrent.MoreFutures.addSuccessCallback;
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
 import static com.facebook.presto.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
+import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringBloomFilterRowLimitPerDriver;
 import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxPerDriverRowCount;
 import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxPerDriverSize;
 import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringRangeRowLimitPerDriver;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionLevel;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static com.facebook.presto.SystemSessionProperties.getIndexLoaderTimeout;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskPartitionedWriterCount;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
 import static com.facebook.presto.SystemSessionProperties.isAggregationSpillEnabled;
 import static com.facebook.presto.SystemSessionProperties.isDistinctAggregationSpillEnabled;
+import static com.facebook.presto.SystemSessionProperties.isEnableDistributedDynamicFiltering;
 import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isExchangeChecksumEnabled;
-import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isJoinSpillingEnabled;
+import static com.facebook.presto.SystemSessionProperties.isMarkDistinctSpillEnabled;
+import static com.facebook.presto.SystemSessionProperties.isSemiJoinSpillEnabled;
 import static com.facebook.presto.SystemSessionProperties.isOptimizeCommonSubExpressions;
 import static com.facebook.presto.SystemSessionProperties.isOptimizedRepartitioningEnabled;
 import static com.facebook.presto.SystemSessionProperties.isOrderByAggregationSpillEnabled;
 import static com.facebook.presto.SystemSessionProperties.isOrderBySpillEnabled;
 import static com.facebook.presto.SystemSessionProperties.isQuickDistinctLimitEnabled;
+import static com.facebook.presto.SystemSessionProperties.isRowNumberSpillEnabled;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
+import static com.facebook.presto.SystemSessionProperties.isTopNRowNumberSpillEnabled;
 import static com.facebook.presto.SystemSessionProperties.isWindowSpillEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.common.type.TypeUtils.writeNativeValue;
 import static com.facebook.presto.execution.FragmentResultCacheContext.createFragmentResultCacheContext;
+import static com.facebook.presto.execution.buffer.SpooledResultsManager.isSpooledResultsEnabled;
 import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
 import static com.facebook.presto.geospatial.SphericalGeographyUtils.sphericalDistance;
@@ -333,6 +353,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.DiscreteDomain.integers;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
@@ -373,6 +394,7 @@ public class LocalExecutionPlanner
     private final ObjectMapper sortedMapObjectMapper;
     private final boolean tableFinishOperatorMemoryTrackingEnabled;
     private final StandaloneSpillerFactory standaloneSpillerFactory;
+    private final SpooledResultsManager spooledResultsManager;
 
     private static final TypeSignature SPHERICAL_GEOGRAPHY_TYPE_SIGNATURE = parseTypeSignature("SphericalGeography");
 
@@ -404,7 +426,8 @@ public class LocalExecutionPlanner
             DeterminismEvaluator determinismEvaluator,
             FragmentResultCacheManager fragmentResultCacheManager,
             ObjectMapper objectMapper,
-            StandaloneSpillerFactory standaloneSpillerFactory)
+            StandaloneSpillerFactory standaloneSpillerFactory,
+            SpooledResultsManager spooledResultsManager)
     {
         this.explainAnalyzeContext = requireNonNull(explainAnalyzeContext, "explainAnalyzeContext is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -441,6 +464,7 @@ public class LocalExecutionPlanner
                 .configure(ORDER_MAP_ENTRIES_BY_KEYS, true);
         this.tableFinishOperatorMemoryTrackingEnabled = requireNonNull(memoryManagerConfig, "memoryManagerConfig is null").isTableFinishOperatorMemoryTrackingEnabled();
         this.standaloneSpillerFactory = requireNonNull(standaloneSpillerFactory, "standaloneSpillerFactory is null");
+        this.spooledResultsManager = requireNonNull(spooledResultsManager, "spooledResultsManager is null");
     }
 
     public LocalExecutionPlan plan(
@@ -453,7 +477,7 @@ public class LocalExecutionPlanner
         return plan(
                 taskContext,
                 planFragment,
-                createOutputFactory(taskContext, planFragment.getPartitioningScheme(), outputBuffer),
+                createOutputFactory(taskContext, planFragment, outputBuffer),
                 remoteSourceFactory,
                 tableWriteInfo,
                 false,
@@ -471,7 +495,7 @@ public class LocalExecutionPlanner
         return plan(
                 taskContext,
                 planFragment,
-                createOutputFactory(taskContext, planFragment.getPartitioningScheme(), outputBuffer),
+                createOutputFactory(taskContext, planFragment, outputBuffer),
                 remoteSourceFactory,
                 tableWriteInfo,
                 false,
@@ -517,8 +541,14 @@ public class LocalExecutionPlanner
                 customPlanTranslators);
     }
 
-    private OutputFactory createOutputFactory(TaskContext taskContext, PartitioningScheme partitioningScheme, OutputBuffer outputBuffer)
+    private OutputFactory createOutputFactory(TaskContext taskContext, PlanFragment planFragment, OutputBuffer outputBuffer)
     {
+        // the root fragment writes the results to segments, that the clients download from this node
+        if (planFragment.getRoot() instanceof OutputNode && isSpooledResultsEnabled(taskContext.getSession(), planFragment.getTypes())) {
+            return new SpooledResultsOutputFactory(outputBuffer, spooledResultsManager, new PagesSerdeFactory(blockEncodingSerde, true));
+        }
+
+        PartitioningScheme partitioningScheme = planFragment.getPartitioningScheme();
         if (partitioningScheme.getPartitioning().getHandle().equals(FIXED_BROADCAST_DISTRIBUTION) ||
                 partitioningScheme.getPartitioning().getHandle().equals(FIXED_ARBITRARY_DISTRIBUTION) ||
                 partitioningScheme.getPartitioning().getHandle().equals(SCALED_WRITER_DISTRIBUTION) ||
@@ -629,7 +659,7 @@ public class LocalExecutionPlanner
                                 outputTypes,
                                 pagePreprocessor,
                                 outputPartitioning,
-                                new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session), isExchangeChecksumEnabled(session))))
+                                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), getExchangeCompressionLevel(session), isExchangeAdaptiveCompressionEnabled(session), isExchangeChecksumEnabled(session))))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy(),
@@ -698,7 +728,7 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(TaskContext taskContext, TableWriteInfo tableWriteInfo)
         {
-            this(taskContext, new ArrayList<>(), Optional.empty(), new LocalDynamicFiltersCollector(), new AtomicInteger(0), tableWriteInfo);
+            this(taskContext, new ArrayList<>(), Optional.empty(), taskContext.getDynamicFiltersCollector(), new AtomicInteger(0), tableWriteInfo);
         }
 
         private LocalExecutionPlanContext(
@@ -1029,7 +1059,9 @@ public class LocalExecutionPlanner
                     node.getMaxRowCountPerPartition(),
                     hashChannel,
                     10_000,
-                    joinCompiler);
+                    joinCompiler,
+                    isRowNumberSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
 
@@ -1078,7 +1110,9 @@ public class LocalExecutionPlanner
                     node.isPartial(),
                     hashChannel,
                     1000,
-                    joinCompiler);
+                    joinCompiler,
+                    isTopNRowNumberSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
@@ -1341,7 +1375,15 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForVariables(node.getDistinctVariables(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashVariable().map(variableChannelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, joinCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    joinCompiler,
+                    isMarkDistinctSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, makeLayout(node), context, source);
         }
 
@@ -1463,13 +1505,23 @@ public class LocalExecutionPlanner
 
             Optional<List<DynamicFilterPlaceholder>> dynamicFilters = extractDynamicFilterResult.map(DynamicFilterExtractResult::getDynamicConjuncts);
             Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier = Optional.empty();
+            Optional<Supplier<Map<ColumnHandle, SplitBlockBloomFilter>>> dynamicBloomFilterSupplier = Optional.empty();
             if (dynamicFilters.isPresent() && !dynamicFilters.get().isEmpty() && sourceNode instanceof TableScanNode) {
                 TableScanNode tableScanNode = (TableScanNode) sourceNode;
                 LocalDynamicFiltersCollector collector = context.getDynamicFiltersCollector();
+                if (isEnableDistributedDynamicFiltering(session)) {
+                    // Dynamic filters produced in other stages are provided by the coordinator
+                    dynamicFilters.get().stream()
+                            .filter(placeholder -> placeholder.getInput() instanceof VariableReferenceExpression)
+                            .forEach(collector::registerRemoteDynamicFilter);
+                }
                 dynamicFilterSupplier = Optional.of(() -> {
                     TupleDomain<VariableReferenceExpression> predicate = collector.getPredicate();
                     return predicate.transform(tableScanNode.getAssignments()::get);
                 });
+                dynamicBloomFilterSupplier = Optional.of(() -> collector.getBloomFilters().entrySet().stream()
+                        .filter(entry -> tableScanNode.getAssignments().containsKey(entry.getKey()))
+                        .collect(toImmutableMap(entry -> tableScanNode.getAssignments().get(entry.getKey()), Map.Entry::getValue)));
             }
 
             // compiler uses inputs instead of variables, so rewrite the expressions first
@@ -1506,6 +1558,7 @@ public class LocalExecutionPlanner
                             columns,
                             projections.stream().map(RowExpression::getType).collect(toImmutableList()),
                             dynamicFilterSupplier,
+                            dynamicBloomFilterSupplier,
                             getFilterAndProjectMinOutputPageSize(session),
                             getFilterAndProjectMinOutputPageRowCount(session));
 
@@ -1895,6 +1948,73 @@ public class LocalExecutionPlanner
             }
         }
 
+        @Override
+        public PhysicalOperation visitMergeJoin(MergeJoinNode node, LocalExecutionPlanContext context)
+        {
+            checkArgument(!node.getFilter().isPresent(), "Merge join does not support join filters");
+
+            // Plan left
+            PhysicalOperation leftSource = node.getLeft().accept(this, context);
+
+            // Plan right
+            LocalExecutionPlanContext rightContext = context.createSubContext();
+            PhysicalOperation rightSource = node.getRight().accept(this, rightContext);
+            checkState(
+                    leftSource.getPipelineExecutionStrategy() == rightSource.getPipelineExecutionStrategy(),
+                    "Both sides of a merge join are expected to have the same execution strategy");
+            // The inputs must stay sorted, so they are not read by parallel drivers. A side that scans a table
+            // still runs a driver per split, which the merge join source counts, and only one of them may have rows.
+            checkState(
+                    context.getDriverInstanceCount().orElse(1) == 1 && rightContext.getDriverInstanceCount().orElse(1) == 1,
+                    "Expected merge join inputs to not be parallel");
+
+            JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager = new JoinBridgeManager<>(
+                    false,
+                    leftSource.getPipelineExecutionStrategy(),
+                    rightSource.getPipelineExecutionStrategy(),
+                    () -> new MergeJoinSource(maxLocalExchangeBufferSize.toBytes()),
+                    rightSource.getTypes());
+
+            context.addDriverFactory(
+                    rightContext.isInputDriver(),
+                    false,
+                    ImmutableList.<OperatorFactory>builder()
+                            .addAll(rightSource.getOperatorFactories())
+                            .add(new MergeJoinSourceOperatorFactory(rightContext.getNextOperatorId(), node.getId(), mergeJoinSourceManager))
+                            .build(),
+                    rightContext.getDriverInstanceCount(),
+                    rightSource.getPipelineExecutionStrategy(),
+                    Optional.empty());
+
+            List<VariableReferenceExpression> leftOutputVariables = node.getOutputVariables().stream()
+                    .filter(node.getLeft().getOutputVariables()::contains)
+                    .collect(toImmutableList());
+            List<VariableReferenceExpression> rightOutputVariables = node.getOutputVariables().stream()
+                    .filter(node.getRight().getOutputVariables()::contains)
+                    .collect(toImmutableList());
+
+            OperatorFactory operatorFactory = new MergeJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    mergeJoinSourceManager,
+                    node.getType(),
+                    leftSource.getTypes(),
+                    getChannelsForVariables(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getLeft), leftSource.getLayout()),
+                    getChannelsForVariables(leftOutputVariables, leftSource.getLayout()),
+                    rightSource.getTypes(),
+                    getChannelsForVariables(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getRight), rightSource.getLayout()),
+                    getChannelsForVariables(rightOutputVariables, rightSource.getLayout()));
+
+            ImmutableMap.Builder<VariableReferenceExpression, Integer> outputMappings = ImmutableMap.builder();
+            int channel = 0;
+            for (VariableReferenceExpression variable : Iterables.concat(leftOutputVariables, rightOutputVariables)) {
+                outputMappings.put(variable, channel);
+                channel++;
+            }
+
+            return new PhysicalOperation(operatorFactory, outputMappings.build(), context, leftSource);
+        }
+
         @Override
         public PhysicalOperation visitSpatialJoin(SpatialJoinNode node, LocalExecutionPlanContext context)
         {
@@ -2420,7 +2540,9 @@ public class LocalExecutionPlanner
                     filterBuildChannels,
                     getDynamicFilteringMaxPerDriverRowCount(context.getSession()),
                     getDynamicFilteringMaxPerDriverSize(context.getSession()),
-                    getDynamicFilteringRangeRowLimitPerDriver(context.getSession()));
+                    getDynamicFilteringRangeRowLimitPerDriver(context.getSession()),
+                    dynamicFilter.getBloomFilterConsumer(),
+                    getDynamicFilteringBloomFilterRowLimitPerDriver(context.getSession()));
         }
 
         private Optional<LocalDynamicFilter> createDynamicFilter(PhysicalOperation buildSource, AbstractJoinNode node, LocalExecutionPlanContext context, int partitionCount)
@@ -2436,11 +2558,14 @@ public class LocalExecutionPlanner
             }
             LocalDynamicFiltersCollector collector = context.getDynamicFiltersCollector();
             return LocalDynamicFilter
-                    .create(node, partitionCount)
+                    .create(node, partitionCount, isEnableDistributedDynamicFiltering(context.getSession()))
                     .map(filter -> {
                         // Intersect dynamic filters' predicates when they become ready,
                         // in order to support multiple join nodes in the same plan fragment.
+                        addSuccessCallback(filter.getBloomFilterResultFuture(), collector::addBloomFilters);
                         addSuccessCallback(filter.getResultFuture(), collector::intersect);
+                        // Make the domains and the Bloom filters available to the coordinator for the table scans in other stages
+                        addSuccessCallback(filter.getDistributedResultFuture(), collector::addProducedFilters);
                         return filter;
                     });
         }
@@ -2538,6 +2663,9 @@ public class LocalExecutionPlanner
             Optional<Integer> buildHashChannel = node.getFilteringSourceHashVariable().map(variableChannelGetter(buildSource));
             Optional<Integer> probeHashChannel = node.getSourceHashVariable().map(variableChannelGetter(probeSource));
 
+            // the spilled partitions of the set are restored once all the probe operators of the plan are created,
+            // which is not known per lifespan
+            boolean spillEnabled = isSemiJoinSpillEnabled(context.getSession()) && buildSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION;
             SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
@@ -2545,7 +2673,9 @@ public class LocalExecutionPlanner
                     buildChannel,
                     buildHashChannel,
                     10_000,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
 
             ImmutableList.Builder<OperatorFactory> factoriesBuilder = ImmutableList.builder();
             factoriesBuilder.addAll(buildSource.getOperatorFactories());
@@ -2572,7 +2702,14 @@ public class LocalExecutionPlanner
                     .put(node.getSemiJoinOutput(), probeSource.getLayout().size())
                     .build();
 
-            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(context.getNextOperatorId(), node.getId(), setProvider, probeSource.getTypes(), probeChannel, probeHashChannel);
+            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    setProvider,
+                    probeSource.getTypes(),
+                    probeChannel,
+                    probeHashChannel,
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, outputMappings, context, probeSource);
         }
 
@@ -3253,6 +3390,13 @@ public class LocalExecutionPlanner
             else {
                 Optional<Integer> hashChannel = hashVariable.map(variableChannelGetter(source));
                 List<Integer> preGroupedChannels = getChannelsForVariables(preGroupedVariables, source.getLayout());
+                // partial aggregations without a memory limit behave as intermediate aggregations, and must not be skipped
+                Optional<PartialAggregationController> partialAggregationController = Optional.empty();
+                if (step == PARTIAL && maxPartialAggregationMemorySize.isPresent() && preGroupedChannels.isEmpty() && isAdaptivePartialAggregationEnabled(session)) {
+                    partialAggregationController = Optional.of(new PartialAggregationController(
+                            getAdaptivePartialAggregationMinRows(session),
+                            getAdaptivePartialAggregationUniqueRowsRatioThreshold(session)));
+                }
                 return new HashAggregationOperatorFactory(
                         context.getNextOperatorId(),
                         planNodeId,
@@ -3271,7 +3415,8 @@ public class LocalExecutionPlanner
                         unspillMemoryLimit,
                         spillerFactory,
                         joinCompiler,
-                        useSystemMemory);
+                        useSystemMemory,
+                        partialAggregationController);
             }
         }
 
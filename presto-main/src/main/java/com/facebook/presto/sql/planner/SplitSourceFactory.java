@@ -15,8 +15,10 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.Session;
+import com.facebook.presto.execution.scheduler.DynamicFilterService;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.execution.scheduler.TableWriteInfo.DeleteScanInfo;
+import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
 import com.facebook.presto.operator.StageExecutionDescriptor;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.WarningCollector;
@@ -64,15 +66,20 @@ import com.facebook.presto.sql.planner.plan.UnnestNode;
 import com.facebook.presto.sql.planner.plan.WindowNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.SystemSessionProperties.getDistributedDynamicFilteringWaitTimeout;
+import static com.facebook.presto.SystemSessionProperties.isEnableDistributedDynamicFiltering;
+import static com.facebook.presto.execution.scheduler.DynamicFilterService.getRemoteDynamicFilters;
 import static com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.GROUPED_SCHEDULING;
 import static com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.REWINDABLE_GROUPED_SCHEDULING;
 import static com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.UNGROUPED_SCHEDULING;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.Objects.requireNonNull;
 
@@ -82,18 +89,25 @@ public class SplitSourceFactory
 
     private final SplitSourceProvider splitSourceProvider;
     private final WarningCollector warningCollector;
+    private final Optional<DynamicFilterService> dynamicFilterService;
 
     public SplitSourceFactory(SplitSourceProvider splitSourceProvider, WarningCollector warningCollector)
+    {
+        this(splitSourceProvider, warningCollector, Optional.empty());
+    }
+
+    public SplitSourceFactory(SplitSourceProvider splitSourceProvider, WarningCollector warningCollector, Optional<DynamicFilterService> dynamicFilterService)
     {
         this.splitSourceProvider = requireNonNull(splitSourceProvider, "splitSourceProvider is null");
         this.warningCollector = requireNonNull(warningCollector, "warningCollector is null");
+        this.dynamicFilterService = requireNonNull(dynamicFilterService, "dynamicFilterService is null");
     }
 
     public Map<PlanNodeId, SplitSource> createSplitSources(PlanFragment fragment, Session session, TableWriteInfo tableWriteInfo)
     {
         ImmutableList.Builder<SplitSource> splitSources = ImmutableList.builder();
         try {
-            return fragment.getRoot().accept(new Visitor(session, fragment.getStageExecutionDescriptor(), splitSources), new Context(tableWriteInfo));
+            return fragment.getRoot().accept(new Visitor(session, fragment.getRoot(), fragment.getStageExecutionDescriptor(), splitSources), new Context(tableWriteInfo));
         }
         catch (Throwable t) {
             splitSources.build().forEach(SplitSourceFactory::closeSplitSource);
@@ -126,12 +140,14 @@ public class SplitSourceFactory
             extends InternalPlanVisitor<Map<PlanNodeId, SplitSource>, Context>
     {
         private final Session session;
+        private final PlanNode root;
         private final StageExecutionDescriptor stageExecutionDescriptor;
         private final ImmutableList.Builder<SplitSource> splitSources;
 
-        private Visitor(Session session, StageExecutionDescriptor stageExecutionDescriptor, ImmutableList.Builder<SplitSource> allSplitSources)
+        private Visitor(Session session, PlanNode root, StageExecutionDescriptor stageExecutionDescriptor, ImmutableList.Builder<SplitSource> allSplitSources)
         {
             this.session = session;
+            this.root = root;
             this.stageExecutionDescriptor = stageExecutionDescriptor;
             this.splitSources = allSplitSources;
         }
@@ -154,13 +170,26 @@ public class SplitSourceFactory
             else {
                 table = node.getTable();
             }
+            List<DynamicFilterPlaceholder> dynamicFilters = context.getDynamicFilters();
+            if (!dynamicFilters.isEmpty()) {
+                table = table.withDynamicFilter(dynamicFilterService.get().createDynamicFilterSupplier(session.getQueryId(), dynamicFilters, node.getAssignments()));
+            }
+            TableHandle splitSourceTable = table;
             Supplier<SplitSource> splitSourceSupplier = () -> splitSourceProvider.getSplits(
                     session,
-                    table,
+                    splitSourceTable,
                     getSplitSchedulingStrategy(stageExecutionDescriptor, node.getId()),
                     warningCollector);
 
             SplitSource splitSource = new LazySplitSource(splitSourceSupplier);
+            if (!dynamicFilters.isEmpty()) {
+                // delay split enumeration until the dynamic filters produced by the other stages are available
+                ListenableFuture<?> dynamicFiltersFuture = dynamicFilterService.get().getDynamicFiltersFuture(
+                        session.getQueryId(),
+                        dynamicFilters.stream().map(DynamicFilterPlaceholder::getId).collect(toImmutableSet()),
+                        getDistributedDynamicFilteringWaitTimeout(session));
+                splitSource = new DynamicFilterWaitingSplitSource(table.getConnectorId(), table.getTransaction(), dynamicFiltersFuture, splitSource);
+            }
 
             splitSources.add(splitSource);
 
@@ -234,6 +263,12 @@ public class SplitSourceFactory
         @Override
         public Map<PlanNodeId, SplitSource> visitFilter(FilterNode node, Context context)
         {
+            if (dynamicFilterService.isPresent() && isEnableDistributedDynamicFiltering(session) && node.getSource() instanceof TableScanNode) {
+                List<DynamicFilterPlaceholder> dynamicFilters = getRemoteDynamicFilters(root, node);
+                if (!dynamicFilters.isEmpty()) {
+                    return node.getSource().accept(this, context.withDynamicFilters(dynamicFilters));
+                }
+            }
             return node.getSource().accept(this, context);
         }
 
@@ -424,15 +459,33 @@ public class SplitSourceFactory
     private static class Context
     {
         private final TableWriteInfo tableWriteInfo;
+        // dynamic filters produced by other stages, applied to the table scan being visited
+        private final List<DynamicFilterPlaceholder> dynamicFilters;
 
         public Context(TableWriteInfo tableWriteInfo)
+        {
+            this(tableWriteInfo, ImmutableList.of());
+        }
+
+        private Context(TableWriteInfo tableWriteInfo, List<DynamicFilterPlaceholder> dynamicFilters)
         {
             this.tableWriteInfo = tableWriteInfo;
+            this.dynamicFilters = dynamicFilters;
         }
 
         public TableWriteInfo getTableWriteInfo()
         {
             return tableWriteInfo;
         }
+
+        public List<DynamicFilterPlaceholder> getDynamicFilters()
+        {
+            return dynamicFilters;
+        }
+
+        public Context withDynamicFilters(List<DynamicFilterPlaceholder> dynamicFilters)
+        {
+            return new Context(tableWriteInfo, dynamicFilters);
+        }
     }
 }
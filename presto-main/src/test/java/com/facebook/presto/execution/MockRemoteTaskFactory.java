@@ -42,6 +42,8 @@ import com.facebook.presto.spi.plan.TableScanNode;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.facebook.presto.spiller.SpillSpaceTracker;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
+import com.facebook.presto.sql.planner.LocalDynamicFiltersCollector;
 import com.facebook.presto.sql.planner.Partitioning;
 import com.facebook.presto.sql.planner.PartitioningScheme;
 import com.facebook.presto.sql.planner.PlanFragment;
@@ -91,6 +93,7 @@ import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DI
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
 import static com.facebook.presto.util.Failures.toFailures;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
@@ -555,5 +558,23 @@ public class MockRemoteTaskFactory
         {
             return unacknowledgedSplits;
         }
+
+        @Override
+        public ListenableFuture<Map<String, DynamicFilterSummary>> getDynamicFilters()
+        {
+            return immediateFuture(taskContext.getDynamicFiltersCollector().getProducedFilters());
+        }
+
+        @Override
+        public ListenableFuture<?> addDynamicFilters(Map<String, DynamicFilterSummary> dynamicFilters)
+        {
+            taskContext.getDynamicFiltersCollector().addRemoteFilters(dynamicFilters);
+            return immediateFuture(null);
+        }
+
+        public LocalDynamicFiltersCollector getDynamicFiltersCollector()
+        {
+            return taskContext.getDynamicFiltersCollector();
+        }
     }
 }
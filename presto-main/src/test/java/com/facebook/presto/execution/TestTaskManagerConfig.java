@@ -25,6 +25,8 @@ import java.util.concurrent.TimeUnit;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static com.facebook.presto.execution.TaskManagerConfig.SplitQueuePolicy.SHARED;
+import static com.facebook.presto.execution.TaskManagerConfig.SplitQueuePolicy.WORK_STEALING;
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.QUERY_FAIR;
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.TASK_FAIR;
 import static io.airlift.units.DataSize.Unit;
@@ -70,6 +72,11 @@ public class TestTaskManagerConfig
                 .setStatisticsCpuTimerEnabled(true)
                 .setLegacyLifespanCompletionCondition(false)
                 .setTaskPriorityTracking(TASK_FAIR)
+                .setSplitQueuePolicy(SHARED)
+                .setNumaAwareSchedulingEnabled(false)
+                .setBlockingPageSourceOffloadEnabled(false)
+                .setBlockingPageSourceMaxThreads(100)
+                .setParallelSortThreads(1)
                 .setInterruptRunawaySplitsTimeout(new Duration(600, SECONDS)));
     }
 
@@ -111,6 +118,11 @@ public class TestTaskManagerConfig
                 .put("task.statistics-cpu-timer-enabled", "false")
                 .put("task.legacy-lifespan-completion-condition", "true")
                 .put("task.task-priority-tracking", "QUERY_FAIR")
+                .put("task.split-queue-policy", "WORK_STEALING")
+                .put("task.numa-aware-scheduling-enabled", "true")
+                .put("task.blocking-page-source-offload-enabled", "true")
+                .put("task.blocking-page-source-max-threads", "17")
+                .put("task.parallel-sort-threads", "8")
                 .put("task.interrupt-runaway-splits-timeout", "599s")
                 .build();
 
@@ -149,6 +161,11 @@ public class TestTaskManagerConfig
                 .setStatisticsCpuTimerEnabled(false)
                 .setLegacyLifespanCompletionCondition(true)
                 .setTaskPriorityTracking(QUERY_FAIR)
+                .setSplitQueuePolicy(WORK_STEALING)
+                .setNumaAwareSchedulingEnabled(true)
+                .setBlockingPageSourceOffloadEnabled(true)
+                .setBlockingPageSourceMaxThreads(17)
+                .setParallelSortThreads(8)
                 .setInterruptRunawaySplitsTimeout(new Duration(599, SECONDS));
 
         assertFullMapping(properties, expected);
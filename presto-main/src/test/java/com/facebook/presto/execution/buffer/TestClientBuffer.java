@@ -208,6 +208,37 @@ public class TestClientBuffer
         assertBufferInfo(buffer, 0, 3);
     }
 
+    @Test
+    public void testPrefetchPages()
+    {
+        ClientBuffer buffer = new ClientBuffer(TASK_INSTANCE_ID, BUFFER_ID, NOOP_RELEASE_LISTENER);
+
+        // add five pages
+        for (int i = 0; i < 5; i++) {
+            addPage(buffer, createPage(i));
+        }
+        assertBufferInfo(buffer, 5, 0);
+
+        // prefetch two consecutive ranges of the buffer
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(0, sizeOfPages(10), 2), bufferResult(0, createPage(0), createPage(1)));
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(2, sizeOfPages(10), 2), bufferResult(2, createPage(2), createPage(3)));
+        // prefetching does not acknowledge the pages before the token
+        assertBufferInfo(buffer, 5, 0);
+
+        // the last range is limited by the size and the pages in the buffer
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(3, sizeOfPages(1), 2), bufferResult(3, createPage(3)));
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(4, sizeOfPages(10), 2), bufferResult(4, createPage(4)));
+
+        // prefetching past the end of the buffer does not wait for more pages
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(5, sizeOfPages(10), 2), emptyResults(TASK_INSTANCE_ID, 5, false));
+
+        // acknowledge the pages, which are then no longer available to prefetch
+        buffer.getPages(4, sizeOfPages(10)).cancel(true);
+        assertBufferInfo(buffer, 1, 4);
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(0, sizeOfPages(10), 2), emptyResults(TASK_INSTANCE_ID, 0, false));
+        assertBufferResultEquals(TYPES, buffer.prefetchPages(4, sizeOfPages(10), 2), bufferResult(4, createPage(4)));
+    }
+
     @Test
     public void testAddAfterNoMorePages()
     {
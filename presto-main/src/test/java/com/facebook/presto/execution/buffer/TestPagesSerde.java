@@ -14,10 +14,13 @@
 package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.BlockEncodingManager;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
@@ -28,9 +31,14 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.LongStream;
 
+import static com.facebook.presto.common.RuntimeMetricName.PAGE_COMPRESSION_SAVED_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.PAGE_COMPRESSION_SKIPPED_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.PAGE_COMPRESSION_TIME_NANOS;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.execution.buffer.PagesSerdeFactory.DEFAULT_ZSTD_COMPRESSION_LEVEL;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readPages;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writePages;
 import static org.testng.Assert.assertEquals;
@@ -138,6 +146,53 @@ public class TestPagesSerde
         assertTrue(actualSize < expectedMaxSize, "Expected round trip size difference less than 20% of original page");
     }
 
+    @Test
+    public void testCompressionCodecs()
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        LongStream.range(0, 1000).forEach(value -> BIGINT.writeLong(builder, value % 10));
+        Page page = new Page(builder.build());
+
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(), codec, DEFAULT_ZSTD_COMPRESSION_LEVEL, false, false).createPagesSerde();
+            SerializedPage serializedPage = serde.serialize(page);
+            assertEquals(COMPRESSED.isSet(serializedPage.getPageCodecMarkers()), codec != CompressionCodec.NONE, codec.name());
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serializedPage), page);
+        }
+    }
+
+    @Test
+    public void testAdaptiveCompression()
+    {
+        BlockBuilder incompressibleBuilder = VARCHAR.createBlockBuilder(null, 100);
+        LongStream.range(0, 100).forEach(value -> VARCHAR.writeString(incompressibleBuilder, UUID.randomUUID().toString().replace("-", "")));
+        Page incompressiblePage = new Page(incompressibleBuilder.build());
+
+        BlockBuilder compressibleBuilder = VARCHAR.createBlockBuilder(null, 100);
+        LongStream.range(0, 100).forEach(value -> VARCHAR.writeString(compressibleBuilder, "alice"));
+        Page compressiblePage = new Page(compressibleBuilder.build());
+
+        RuntimeStats runtimeStats = new RuntimeStats();
+        PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(), CompressionCodec.LZ4, DEFAULT_ZSTD_COMPRESSION_LEVEL, true, false).createPagesSerde(runtimeStats);
+
+        // the compression of the pages that do not compress is attempted less and less often
+        for (int i = 0; i < 20; i++) {
+            assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(serde.serialize(incompressiblePage)), incompressiblePage);
+        }
+        assertTrue(runtimeStats.getMetric(PAGE_COMPRESSION_TIME_NANOS).getCount() < 10);
+        assertTrue(runtimeStats.getMetric(PAGE_COMPRESSION_SKIPPED_BYTES).getSum() > 0);
+
+        // the compression resumes once the pages compress again
+        boolean compressed = false;
+        for (int i = 0; i < 20 && !compressed; i++) {
+            SerializedPage serializedPage = serde.serialize(compressiblePage);
+            compressed = COMPRESSED.isSet(serializedPage.getPageCodecMarkers());
+            assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(serializedPage), compressiblePage);
+        }
+        assertTrue(compressed);
+        assertTrue(runtimeStats.getMetric(PAGE_COMPRESSION_SAVED_BYTES).getSum() > 0);
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage)
     {
         PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
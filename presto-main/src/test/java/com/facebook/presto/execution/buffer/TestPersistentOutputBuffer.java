@@ -0,0 +1,287 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.BigintType;
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.execution.QueryIdGenerator;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.execution.buffer.BufferResult.emptyResults;
+import static com.facebook.presto.execution.buffer.BufferState.FAILED;
+import static com.facebook.presto.execution.buffer.BufferState.FINISHED;
+import static com.facebook.presto.execution.buffer.BufferState.FLUSHING;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.MAX_WAIT;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.NO_WAIT;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.PAGES_SERDE;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.addPage;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.assertBufferResultEquals;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.createBufferResult;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.createPage;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.getBufferResult;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.getFuture;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.sizeOfPages;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PERSISTENT;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class TestPersistentOutputBuffer
+{
+    private static final String TASK_INSTANCE_ID = "task-instance-id";
+
+    private static final DataSize THRESHOLD = sizeOfPages(3);
+    private static final List<BigintType> TYPES = ImmutableList.of(BIGINT);
+    private static final OutputBufferId FIRST = new OutputBufferId(0);
+    private static final OutputBufferId SECOND = new OutputBufferId(1);
+    private static final OutputBuffers OUTPUT_BUFFERS = createInitialEmptyOutputBuffers(PERSISTENT)
+            .withBuffer(FIRST, 0)
+            .withBuffer(SECOND, 1)
+            .withNoMoreBufferIds();
+
+    private static final QueryIdGenerator queryIdGenerator = new QueryIdGenerator();
+
+    private static SpoolingOutputBufferFactory spoolingOutputBufferFactory;
+
+    private ScheduledExecutorService stateNotificationExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        stateNotificationExecutor = newScheduledThreadPool(5, daemonThreadsNamed("test-%s"));
+
+        FeaturesConfig featuresConfig = new FeaturesConfig();
+        featuresConfig.setSpoolingOutputBufferThreshold(THRESHOLD);
+        spoolingOutputBufferFactory = new SpoolingOutputBufferFactory(featuresConfig);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        if (stateNotificationExecutor != null) {
+            stateNotificationExecutor.shutdownNow();
+            stateNotificationExecutor = null;
+        }
+        spoolingOutputBufferFactory.shutdown();
+    }
+
+    @Test
+    public void testReadableAfterCommit()
+    {
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer();
+
+        addPage(buffer, createPage(0), 0);
+        addPage(buffer, createPage(1), 0);
+        addPage(buffer, createPage(2), 1);
+
+        // the pages are not readable before all of them are written
+        ListenableFuture<BufferResult> pendingRead = buffer.get(FIRST, 0, sizeOfPages(10));
+        assertFalse(pendingRead.isDone());
+
+        buffer.setNoMorePages();
+        assertBufferResultEquals(TYPES, getFuture(pendingRead, MAX_WAIT), bufferResult(0, createPage(0), createPage(1)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(2)));
+    }
+
+    @Test
+    public void testSpillToMultipleFiles()
+    {
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer();
+
+        // the first three pages exceed the threshold, and are written to a first file
+        for (int i = 0; i < 5; i++) {
+            addPage(buffer, createPage(i), 0);
+        }
+        buffer.setNoMorePages();
+
+        // a read does not span files
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(0), createPage(1), createPage(2)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 1, sizeOfPages(1), MAX_WAIT), bufferResult(1, createPage(1)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 3, sizeOfPages(10), MAX_WAIT), bufferResult(3, createPage(3), createPage(4)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 5, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 5, true));
+    }
+
+    @Test
+    public void testRereadAfterAbort()
+    {
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer();
+
+        addPage(buffer, createPage(0), 0);
+        addPage(buffer, createPage(1), 0);
+        addPage(buffer, createPage(2), 1);
+        buffer.setNoMorePages();
+
+        // a consumer that fails before reading its buffer to the end does not complete it
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(1), MAX_WAIT), bufferResult(0, createPage(0)));
+        buffer.acknowledge(FIRST, 1);
+        buffer.abort(FIRST);
+
+        // a retried consumer reads its partition again
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(0), createPage(1)));
+        buffer.acknowledge(FIRST, 2);
+        buffer.abort(FIRST);
+        assertEquals(buffer.getInfo().getState(), FLUSHING);
+
+        // the buffer finishes once every consumer read its buffer to the end and aborted it
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(2)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 1, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 1, true));
+        assertEquals(buffer.getInfo().getState(), FLUSHING);
+        buffer.abort(SECOND);
+        assertEquals(buffer.getInfo().getState(), FINISHED);
+
+    }
+
+    @Test
+    public void testOutputKeptUntilQueryRemoved()
+    {
+        TaskId taskId = createTaskId();
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer(taskId, sizeOfPages(10), newSimpleAggregatedMemoryContext());
+
+        addPage(buffer, createPage(0), 0);
+        buffer.setNoMorePages();
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(0)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 1, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 1, true));
+
+        // a consumer that is retried after the task finished reads the output again
+        buffer.destroy();
+        assertEquals(buffer.getInfo().getState(), FINISHED);
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(0)));
+
+        // the files are removed once the worker removed the tasks of the query
+        spoolingOutputBufferFactory.removePersistentOutputs(taskId.getQueryId());
+        ListenableFuture<BufferResult> read = buffer.get(FIRST, 0, sizeOfPages(10));
+        assertTrue(read.isDone());
+        assertThrows(PrestoException.class, () -> getFutureValue(read));
+    }
+
+    @Test
+    public void testSequentialReads()
+    {
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer();
+
+        for (int i = 0; i < 5; i++) {
+            addPage(buffer, createPage(i), 0);
+        }
+        buffer.setNoMorePages();
+
+        // the consumers go on reading from the position of their last read, including when a read goes back
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(1), MAX_WAIT), bufferResult(0, createPage(0)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 1, sizeOfPages(1), MAX_WAIT), bufferResult(1, createPage(1)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(2), MAX_WAIT), bufferResult(0, createPage(0), createPage(1)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 2, sizeOfPages(10), MAX_WAIT), bufferResult(2, createPage(2)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 3, sizeOfPages(1), MAX_WAIT), bufferResult(3, createPage(3)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 4, sizeOfPages(1), MAX_WAIT), bufferResult(4, createPage(4)));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 5, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 5, true));
+    }
+
+    @Test
+    public void testBackPressure()
+            throws Exception
+    {
+        AggregatedMemoryContext memoryContext = newSimpleAggregatedMemoryContext();
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer(sizeOfPages(2), memoryContext);
+
+        // none of the partitions reach the threshold, so the pages are held in memory
+        addPage(buffer, createPage(0), 0);
+        addPage(buffer, createPage(1), 1);
+        buffer.enqueue(Lifespan.taskWide(), 0, ImmutableList.of(PAGES_SERDE.serialize(createPage(2))));
+        assertEquals(memoryContext.getBytes(), sizeOfPages(3).toBytes());
+        assertTrue(buffer.isOverutilized());
+        ListenableFuture<?> full = buffer.isFull();
+        assertFalse(full.isDone());
+
+        // the producer is not blocked once it produced all pages, and the memory is released once the pages are written
+        buffer.setNoMorePages();
+        full.get(10, SECONDS);
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), bufferResult(0, createPage(0), createPage(2)));
+        assertEquals(memoryContext.getBytes(), 0);
+        assertEquals(buffer.getPeakMemoryUsage(), sizeOfPages(3).toBytes());
+    }
+
+    @Test
+    public void testFail()
+    {
+        PersistentOutputBuffer buffer = createPersistentOutputBuffer();
+
+        addPage(buffer, createPage(0), 0);
+        ListenableFuture<BufferResult> pendingRead = buffer.get(FIRST, 0, sizeOfPages(10));
+
+        buffer.fail();
+        assertEquals(buffer.getInfo().getState(), FAILED);
+        assertFalse(pendingRead.isDone());
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 0, false));
+        assertTrue(buffer.isFull().isDone());
+    }
+
+    private PersistentOutputBuffer createPersistentOutputBuffer()
+    {
+        return createPersistentOutputBuffer(sizeOfPages(10), newSimpleAggregatedMemoryContext());
+    }
+
+    private PersistentOutputBuffer createPersistentOutputBuffer(DataSize maxBufferSize, AggregatedMemoryContext memoryContext)
+    {
+        return createPersistentOutputBuffer(createTaskId(), maxBufferSize, memoryContext);
+    }
+
+    private PersistentOutputBuffer createPersistentOutputBuffer(TaskId taskId, DataSize maxBufferSize, AggregatedMemoryContext memoryContext)
+    {
+        PersistentOutputBuffer buffer = spoolingOutputBufferFactory.createPersistentOutputBuffer(
+                taskId,
+                TASK_INSTANCE_ID,
+                new StateMachine<>("bufferState", stateNotificationExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                maxBufferSize,
+                () -> new SimpleLocalMemoryContext(memoryContext, "test"));
+        buffer.setOutputBuffers(OUTPUT_BUFFERS);
+        return buffer;
+    }
+
+    private static TaskId createTaskId()
+    {
+        return new TaskId(queryIdGenerator.createNextQueryId().toString(), 0, 0, 0);
+    }
+
+    private static BufferResult bufferResult(long token, Page firstPage, Page... otherPages)
+    {
+        List<Page> pages = ImmutableList.<Page>builder().add(firstPage).add(otherPages).build();
+        return createBufferResult(TASK_INSTANCE_ID, token, pages);
+    }
+}
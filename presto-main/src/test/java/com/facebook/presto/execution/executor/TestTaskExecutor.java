@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.execution.executor;
 
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
 import com.facebook.airlift.testing.TestingTicker;
 import com.facebook.presto.execution.SplitRunner;
 import com.facebook.presto.execution.TaskId;
@@ -20,6 +22,7 @@ import com.facebook.presto.server.ServerConfig;
 import com.facebook.presto.version.EmbedVersion;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -221,9 +224,22 @@ public class TestTaskExecutor
     @Test(invocationCount = 100)
     public void testLevelMultipliers()
             throws Exception
+    {
+        assertLevelMultipliers(new MultilevelSplitQueue(2));
+    }
+
+    @Test(invocationCount = 100)
+    public void testWorkStealingLevelMultipliers()
+            throws Exception
+    {
+        assertLevelMultipliers(new WorkStealingSplitQueue(2, 1, 1));
+    }
+
+    private void assertLevelMultipliers(MultilevelSplitQueue splitQueue)
+            throws Exception
     {
         TestingTicker ticker = new TestingTicker();
-        TaskExecutor taskExecutor = new TaskExecutor(1, 3, 3, 4, TASK_FAIR, new MultilevelSplitQueue(2), ticker);
+        TaskExecutor taskExecutor = new TaskExecutor(1, 3, 3, 4, TASK_FAIR, splitQueue, ticker);
         taskExecutor.start();
         ticker.increment(20, MILLISECONDS);
 
@@ -378,9 +394,19 @@ public class TestTaskExecutor
 
     @Test(timeOut = 30_000)
     public void testMinMaxDriversPerTask()
+    {
+        assertMinMaxDriversPerTask(new MultilevelSplitQueue(2));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testWorkStealingMinMaxDriversPerTask()
+    {
+        assertMinMaxDriversPerTask(new WorkStealingSplitQueue(2, 4, 2));
+    }
+
+    private void assertMinMaxDriversPerTask(MultilevelSplitQueue splitQueue)
     {
         int maxDriversPerTask = 2;
-        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
         TestingTicker ticker = new TestingTicker();
         TaskExecutor taskExecutor = new TaskExecutor(4, 16, 1, maxDriversPerTask, QUERY_FAIR, splitQueue, ticker);
         taskExecutor.start();
@@ -416,6 +442,35 @@ public class TestTaskExecutor
         }
     }
 
+    @Test
+    public void testWorkStealingSplitQueue()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        WorkStealingSplitQueue splitQueue = new WorkStealingSplitQueue(2, 4, 2);
+        assertEquals(splitQueue.getNumaNodes(), 2);
+        TaskHandle taskHandle = new TaskHandle(new TaskId("test", 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+
+        PrioritizedSplitRunner split1 = createSplitRunner(taskHandle, ticker);
+        PrioritizedSplitRunner split2 = createSplitRunner(taskHandle, ticker);
+        PrioritizedSplitRunner split3 = createSplitRunner(taskHandle, ticker);
+        splitQueue.offer(split1);
+        splitQueue.offer(split2);
+        splitQueue.offer(split3);
+        assertEquals(splitQueue.size(), 3);
+
+        // every runner slot can take the splits, stealing them from the runners of the home node of the task
+        PrioritizedSplitRunner taken1 = splitQueue.take(0);
+        PrioritizedSplitRunner taken2 = splitQueue.take(3);
+        assertEquals(splitQueue.size(), 1);
+        assertEquals(ImmutableSet.of(taken1, taken2).size(), 2);
+
+        // removed splits are no longer taken
+        splitQueue.removeAll(ImmutableList.of(split1, split2, split3));
+        assertEquals(splitQueue.size(), 0);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 1);
+    }
+
     @Test(timeOut = 30_000)
     public void testUserSpecifiedMaxDriversPerTask()
     {
@@ -503,6 +558,18 @@ public class TestTaskExecutor
         }
     }
 
+    private static PrioritizedSplitRunner createSplitRunner(TaskHandle taskHandle, TestingTicker ticker)
+    {
+        return new PrioritizedSplitRunner(
+                taskHandle,
+                new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 1, 0),
+                ticker,
+                new CounterStat(),
+                new CounterStat(),
+                new TimeStat(MILLISECONDS),
+                new TimeStat(MILLISECONDS));
+    }
+
     private static void waitUntilSplitsStart(List<TestingJob> splits)
     {
         while (splits.stream().anyMatch(split -> !split.isStarted())) {
@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.execution.MockRemoteTaskFactory;
+import com.facebook.presto.execution.MockRemoteTaskFactory.MockRemoteTask;
+import com.facebook.presto.execution.NodeTaskMap;
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
+import com.facebook.presto.testing.TestingMetadata.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static com.facebook.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static java.util.Optional.empty;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterService
+{
+    private static final String FILTER_ID = "df";
+    private static final QueryId QUERY_ID = new QueryId("test");
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("stageExecutor-%s"));
+    private final ScheduledExecutorService scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("stageScheduledExecutor-%s"));
+    private final MockRemoteTaskFactory taskFactory = new MockRemoteTaskFactory(executor, scheduledExecutor);
+
+    @AfterClass(alwaysRun = true)
+    public void destroyExecutor()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdown();
+    }
+
+    @Test
+    public void testCollectAndDistribute()
+    {
+        DynamicFilterService service = new DynamicFilterService(scheduledExecutor);
+        MockRemoteTask producer1 = createTask(1, 1);
+        MockRemoteTask producer2 = createTask(1, 2);
+        MockRemoteTask consumer = createTask(2, 1);
+        List<RemoteTask> producers = ImmutableList.of(producer1, producer2);
+        AtomicBoolean noMoreTasks = new AtomicBoolean();
+
+        VariableReferenceExpression probeVariable = new VariableReferenceExpression(empty(), "probe", BIGINT);
+        consumer.getDynamicFiltersCollector().registerRemoteDynamicFilter(new DynamicFilterPlaceholder(FILTER_ID, probeVariable));
+
+        service.registerProducerStage(QUERY_ID, ImmutableSet.of(FILTER_ID), () -> producers, noMoreTasks::get, () -> false);
+        service.registerConsumerStage(QUERY_ID, ImmutableSet.of(FILTER_ID), () -> ImmutableList.of(consumer));
+        ListenableFuture<?> future = service.getDynamicFiltersFuture(QUERY_ID, ImmutableSet.of(FILTER_ID), new Duration(1, MINUTES));
+
+        producer1.getDynamicFiltersCollector().addProducedFilters(ImmutableMap.of(FILTER_ID, DynamicFilterSummary.of(Domain.singleValue(BIGINT, 1L))));
+        service.collectDynamicFilters();
+        assertFalse(future.isDone());
+
+        // all the tasks reported their filters, but more tasks may still be created
+        producer2.getDynamicFiltersCollector().addProducedFilters(ImmutableMap.of(FILTER_ID, DynamicFilterSummary.of(Domain.singleValue(BIGINT, 2L))));
+        service.collectDynamicFilters();
+        assertFalse(future.isDone());
+
+        noMoreTasks.set(true);
+        service.collectDynamicFilters();
+        assertTrue(future.isDone());
+
+        Domain expected = Domain.multipleValues(BIGINT, ImmutableList.of(1L, 2L));
+        assertEquals(service.getCompletedDynamicFilters(QUERY_ID), ImmutableMap.of(FILTER_ID, expected));
+        assertEquals(consumer.getDynamicFiltersCollector().getPredicate(), TupleDomain.withColumnDomains(ImmutableMap.of(probeVariable, expected)));
+
+        service.removeQuery(QUERY_ID);
+        assertEquals(service.getCompletedDynamicFilters(QUERY_ID), ImmutableMap.of());
+    }
+
+    @Test
+    public void testBloomFilters()
+    {
+        DynamicFilterService service = new DynamicFilterService(scheduledExecutor);
+        MockRemoteTask producer1 = createTask(1, 1);
+        MockRemoteTask producer2 = createTask(1, 2);
+        MockRemoteTask consumer = createTask(2, 1);
+        List<RemoteTask> producers = ImmutableList.of(producer1, producer2);
+
+        VariableReferenceExpression probeVariable = new VariableReferenceExpression(empty(), "probe", BIGINT);
+        consumer.getDynamicFiltersCollector().registerRemoteDynamicFilter(new DynamicFilterPlaceholder(FILTER_ID, probeVariable));
+
+        service.registerProducerStage(QUERY_ID, ImmutableSet.of(FILTER_ID), () -> producers, () -> true, () -> false);
+        service.registerConsumerStage(QUERY_ID, ImmutableSet.of(FILTER_ID), () -> ImmutableList.of(consumer));
+
+        // the domain of the first producer became too large, and the second producer kept an exact domain
+        SplitBlockBloomFilter bloomFilter = SplitBlockBloomFilter.create(1_000, 0.01);
+        LongStream.range(0, 1_000).forEach(value -> bloomFilter.insert(SplitBlockBloomFilter.hashLong(value)));
+        producer1.getDynamicFiltersCollector().addProducedFilters(ImmutableMap.of(
+                FILTER_ID,
+                new DynamicFilterSummary(Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 0L, true, 999L, true)), false), Optional.of(bloomFilter))));
+        producer2.getDynamicFiltersCollector().addProducedFilters(ImmutableMap.of(FILTER_ID, DynamicFilterSummary.of(Domain.singleValue(BIGINT, 5_000L))));
+        service.collectDynamicFilters();
+
+        // the Bloom filters are merged with the values of the exact domains and sent to the consumer
+        SplitBlockBloomFilter merged = consumer.getDynamicFiltersCollector().getBloomFilters().get(probeVariable);
+        LongStream.range(0, 1_000).forEach(value -> assertTrue(merged.mightContainLong(value)));
+        assertTrue(merged.mightContainLong(5_000L));
+        assertEquals(
+                consumer.getDynamicFiltersCollector().getPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(probeVariable, Domain.create(
+                        ValueSet.ofRanges(Range.range(BIGINT, 0L, true, 999L, true), Range.equal(BIGINT, 5_000L)),
+                        false))));
+
+        // the split enumeration only uses the domains
+        assertEquals(service.getCompletedDynamicFilters(QUERY_ID), ImmutableMap.of(FILTER_ID, Domain.create(
+                ValueSet.ofRanges(Range.range(BIGINT, 0L, true, 999L, true), Range.equal(BIGINT, 5_000L)),
+                false)));
+        service.removeQuery(QUERY_ID);
+    }
+
+    @Test
+    public void testFailedProducer()
+    {
+        DynamicFilterService service = new DynamicFilterService(scheduledExecutor);
+        MockRemoteTask producer = createTask(1, 1);
+
+        service.registerProducerStage(QUERY_ID, ImmutableSet.of(FILTER_ID), () -> ImmutableList.of(producer), () -> true, () -> true);
+        ListenableFuture<?> future = service.getDynamicFiltersFuture(QUERY_ID, ImmutableSet.of(FILTER_ID), new Duration(100, MILLISECONDS));
+
+        producer.getDynamicFiltersCollector().addProducedFilters(ImmutableMap.of(FILTER_ID, DynamicFilterSummary.of(Domain.singleValue(BIGINT, 1L))));
+        service.collectDynamicFilters();
+        assertEquals(service.getCompletedDynamicFilters(QUERY_ID), ImmutableMap.of());
+
+        // the split enumeration is not blocked forever by a failed producer
+        tryGetFutureValue(future, 10, SECONDS);
+        assertTrue(future.isDone());
+        service.removeQuery(QUERY_ID);
+    }
+
+    @Test
+    public void testDynamicFilterSupplier()
+    {
+        DynamicFilterService service = new DynamicFilterService(scheduledExecutor);
+        MockRemoteTask producer = createTask(1, 1);
+        VariableReferenceExpression probeVariable = new VariableReferenceExpression(empty(), "probe", BIGINT);
+        ColumnHandle probeColumn = new TestingColumnHandle("probe");
+
+        service.registerProducerStage(QUERY_ID, ImmutableSet.of(FILTER_ID), () -> ImmutableList.of(producer), () -> true, () -> false);
+        Supplier<TupleDomain<ColumnHandle>> supplier = service.createDynamicFilterSupplier(
+                QUERY_ID,
+                ImmutableList.of(new DynamicFilterPlaceholder(FILTER_ID, probeVariable)),
+                ImmutableMap.of(probeVariable, probeColumn));
+        assertEquals(supplier.get(), TupleDomain.all());
+
+        producer.getDynamicFiltersCollector().addProducedFilters(ImmutableMap.of(FILTER_ID, DynamicFilterSummary.of(Domain.singleValue(BIGINT, 1L))));
+        service.collectDynamicFilters();
+        assertEquals(supplier.get(), TupleDomain.withColumnDomains(ImmutableMap.of(probeColumn, Domain.singleValue(BIGINT, 1L))));
+        service.removeQuery(QUERY_ID);
+    }
+
+    private MockRemoteTask createTask(int stageId, int taskId)
+    {
+        return taskFactory.createTableScanTask(
+                new TaskId(QUERY_ID.getId(), stageId, 0, taskId),
+                new InternalNode("node", URI.create("http://127.0.0.1:11"), NodeVersion.UNKNOWN, false),
+                ImmutableList.of(),
+                new NodeTaskMap.NodeStatsTracker(delta -> {}, delta -> {}, (age, delta) -> {}));
+    }
+}
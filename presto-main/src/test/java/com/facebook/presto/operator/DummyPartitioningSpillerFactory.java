@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
+import com.facebook.presto.spiller.SingleStreamSpiller;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+
+public class DummyPartitioningSpillerFactory
+        implements PartitioningSpillerFactory
+{
+    private final AtomicLong spilledPages = new AtomicLong();
+    private final PartitioningSpillerFactory delegate = new GenericPartitioningSpillerFactory(this::createSingleStreamSpiller);
+
+    @Override
+    public PartitioningSpiller create(List<Type> types, PartitionFunction partitionFunction, SpillContext spillContext, AggregatedMemoryContext memoryContext)
+    {
+        return delegate.create(types, partitionFunction, spillContext, memoryContext);
+    }
+
+    public long getSpilledPages()
+    {
+        return spilledPages.get();
+    }
+
+    private SingleStreamSpiller createSingleStreamSpiller(List<Type> types, SpillContext spillContext, LocalMemoryContext memoryContext)
+    {
+        return new SingleStreamSpiller()
+        {
+            private final List<Page> spills = new ArrayList<>();
+
+            @Override
+            public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+            {
+                int pages = spills.size();
+                Iterators.addAll(spills, pageIterator);
+                spilledPages.addAndGet(spills.size() - pages);
+                return immediateFuture(null);
+            }
+
+            @Override
+            public Iterator<Page> getSpilledPages()
+            {
+                return ImmutableList.copyOf(spills).iterator();
+            }
+
+            @Override
+            public long getSpilledPagesInMemorySize()
+            {
+                return spills.stream()
+                        .mapToLong(Page::getSizeInBytes)
+                        .sum();
+            }
+
+            @Override
+            public ListenableFuture<List<Page>> getAllSpilledPages()
+            {
+                return immediateFuture(ImmutableList.copyOf(spills));
+            }
+
+            @Override
+            public void commit()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+                spills.clear();
+            }
+        };
+    }
+}
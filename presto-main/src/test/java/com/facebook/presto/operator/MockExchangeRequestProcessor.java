@@ -33,11 +33,13 @@ import io.airlift.units.DataSize;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
@@ -45,6 +47,7 @@ import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREFETCH_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
 import static com.google.common.base.Preconditions.checkState;
@@ -57,6 +60,7 @@ public class MockExchangeRequestProcessor
         implements TestingHttpClient.Processor
 {
     private static final String TASK_INSTANCE_ID = "task-instance-id";
+    private static final String ACKNOWLEDGE_SUFFIX = "/acknowledge";
 
     private final LoadingCache<URI, MockBuffer> buffers = CacheBuilder.newBuilder().build(CacheLoader.from(MockBuffer::new));
 
@@ -65,6 +69,7 @@ public class MockExchangeRequestProcessor
     private final Function<byte[], byte[]> dataChanger;
 
     private final List<DataSize> requestMaxSizes = synchronizedList(new ArrayList<>());
+    private final AtomicInteger prefetchRequests = new AtomicInteger();
 
     public MockExchangeRequestProcessor(DataSize expectedMaxSize)
     {
@@ -95,6 +100,13 @@ public class MockExchangeRequestProcessor
             return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
         }
 
+        String path = request.getUri().toString();
+        if (path.endsWith(ACKNOWLEDGE_SUFFIX)) {
+            RequestLocation requestLocation = new RequestLocation(URI.create(path.substring(0, path.length() - ACKNOWLEDGE_SUFFIX.length())));
+            buffers.getUnchecked(requestLocation.getLocation()).acknowledge(requestLocation.getSequenceId());
+            return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
+        }
+
         // verify we got a data size and it parses correctly
         assertTrue(!request.getHeaders().get(PrestoHeaders.PRESTO_MAX_SIZE).isEmpty());
         DataSize maxSize = DataSize.valueOf(request.getHeader(PrestoHeaders.PRESTO_MAX_SIZE));
@@ -104,7 +116,15 @@ public class MockExchangeRequestProcessor
         RequestLocation requestLocation = new RequestLocation(request.getUri());
         URI location = requestLocation.getLocation();
 
-        BufferResult result = buffers.getUnchecked(location).getPages(requestLocation.getSequenceId(), maxSize);
+        BufferResult result;
+        String prefetchPages = request.getHeader(PRESTO_PREFETCH_PAGES);
+        if (prefetchPages != null) {
+            prefetchRequests.incrementAndGet();
+            result = buffers.getUnchecked(location).prefetchPages(requestLocation.getSequenceId(), maxSize, Integer.parseInt(prefetchPages));
+        }
+        else {
+            result = buffers.getUnchecked(location).getPages(requestLocation.getSequenceId(), maxSize);
+        }
 
         byte[] bytes = new byte[0];
         HttpStatus status;
@@ -134,6 +154,11 @@ public class MockExchangeRequestProcessor
         return requestMaxSizes;
     }
 
+    public int getPrefetchRequestCount()
+    {
+        return prefetchRequests.get();
+    }
+
     private class RequestLocation
     {
         private final URI location;
@@ -181,13 +206,23 @@ public class MockExchangeRequestProcessor
             serializedPages.add(pagesSerde.serialize(page));
         }
 
-        public BufferResult getPages(long sequenceId, DataSize maxSize)
+        public synchronized void acknowledge(long sequenceId)
+        {
+            // drop the pages before the sequence id
+            while (token.get() < sequenceId && serializedPages.poll() != null) {
+                token.incrementAndGet();
+            }
+        }
+
+        public synchronized BufferResult getPages(long sequenceId, DataSize maxSize)
         {
             // if location is complete return GONE
             if (completed.get() && serializedPages.isEmpty()) {
                 return BufferResult.emptyResults(TASK_INSTANCE_ID, token.get(), true);
             }
 
+            // a request for the next pages acknowledges the pages read by the prefetches
+            acknowledge(sequenceId);
             assertEquals(sequenceId, token.get(), "token");
 
             // wait for a single page to arrive
@@ -225,5 +260,30 @@ public class MockExchangeRequestProcessor
 
             return bufferResult;
         }
+
+        public synchronized BufferResult prefetchPages(long sequenceId, DataSize maxSize, int maxPages)
+        {
+            // pages that have been acknowledged are no longer available
+            if (sequenceId < token.get()) {
+                return BufferResult.emptyResults(TASK_INSTANCE_ID, sequenceId, false);
+            }
+
+            // add the buffered serializedPages from the sequence id up to the size limit, without waiting for more
+            Iterator<SerializedPage> iterator = serializedPages.iterator();
+            for (long i = token.get(); i < sequenceId && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            List<SerializedPage> responsePages = new ArrayList<>();
+            long responseSize = 0;
+            while (iterator.hasNext() && responsePages.size() < maxPages && (responsePages.isEmpty() || responseSize < maxSize.toBytes())) {
+                SerializedPage serializedPage = iterator.next();
+                responsePages.add(serializedPage);
+                responseSize += serializedPage.getSizeInBytes();
+            }
+            if (responsePages.isEmpty()) {
+                return BufferResult.emptyResults(TASK_INSTANCE_ID, sequenceId, false);
+            }
+            return new BufferResult(TASK_INSTANCE_ID, sequenceId, sequenceId + responsePages.size(), false, responsePages);
+        }
     }
 }
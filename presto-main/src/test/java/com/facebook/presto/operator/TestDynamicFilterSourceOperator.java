@@ -17,6 +17,7 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.Type;
@@ -32,9 +33,11 @@ import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
@@ -48,6 +51,7 @@ import static com.facebook.presto.block.BlockAssertions.createLongRepeatBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
 import static com.facebook.presto.block.BlockAssertions.createSequenceBlockOfReal;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
 import static com.facebook.presto.common.predicate.Range.range;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
@@ -64,11 +68,13 @@ import static com.facebook.presto.testing.assertions.Assert.assertEquals;
 import static com.facebook.presto.type.ColorType.COLOR;
 import static com.google.common.base.Strings.repeat;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Float.floatToRawIntBits;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestDynamicFilterSourceOperator
@@ -78,6 +84,7 @@ public class TestDynamicFilterSourceOperator
     private PipelineContext pipelineContext;
 
     private ImmutableList.Builder<TupleDomain<String>> partitions;
+    private ImmutableList.Builder<Map<String, SplitBlockBloomFilter>> bloomFilters;
 
     @BeforeMethod
     public void setUp()
@@ -88,6 +95,7 @@ public class TestDynamicFilterSourceOperator
                 .addPipelineContext(0, true, true, false);
 
         partitions = ImmutableList.builder();
+        bloomFilters = ImmutableList.builder();
     }
 
     @AfterMethod(alwaysRun = true)
@@ -132,11 +140,31 @@ public class TestDynamicFilterSourceOperator
                 minMaxCollectionLimit);
     }
 
+    private OperatorFactory createBloomFilterOperatorFactory(int maxFilterPositionsCount, int minMaxCollectionLimit, int bloomFilterCollectionLimit, Type type)
+    {
+        return new DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory(
+                0,
+                new PlanNodeId("PLAN_NODE_ID"),
+                this::consumePredicate,
+                ImmutableList.of(channel(0, type)),
+                maxFilterPositionsCount,
+                new DataSize(10, KILOBYTE),
+                minMaxCollectionLimit,
+                this::consumeBloomFilters,
+                bloomFilterCollectionLimit);
+    }
+
     private void consumePredicate(TupleDomain<String> partitionPredicate)
     {
         partitions.add(partitionPredicate);
     }
 
+    private void consumeBloomFilters(TupleDomain<String> partitionPredicate, Map<String, SplitBlockBloomFilter> partitionBloomFilters)
+    {
+        partitions.add(partitionPredicate);
+        bloomFilters.add(partitionBloomFilters);
+    }
+
     private Operator createOperator(OperatorFactory operatorFactory)
     {
         return operatorFactory.createOperator(pipelineContext.addDriverContext());
@@ -537,4 +565,66 @@ public class TestDynamicFilterSourceOperator
                         new Page(createLongSequenceBlock(0, maxPositionsCount + 1))),
                 ImmutableList.of(TupleDomain.all()));
     }
+
+    @Test
+    public void testCollectBloomFilterWhenTooManyPositions()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createBloomFilterOperatorFactory(maxPositionsCount, 1_000_000, 10_000, BIGINT);
+        verifyPassthrough(
+                createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(0, maxPositionsCount + 1)),
+                new Page(createLongSequenceBlock(1_000, 2_000)));
+        operatorFactory.noMoreOperators();
+
+        assertEquals(partitions.build(), ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0",
+                Domain.create(ValueSet.ofRanges(range(BIGINT, 0L, true, 1_999L, true)), false)))));
+        List<Map<String, SplitBlockBloomFilter>> collectedBloomFilters = bloomFilters.build();
+        assertEquals(collectedBloomFilters.size(), 1);
+        SplitBlockBloomFilter bloomFilter = collectedBloomFilters.get(0).get("0");
+        for (long value = 0; value <= maxPositionsCount; value++) {
+            assertTrue(bloomFilter.mightContainLong(value));
+        }
+        for (long value = 1_000; value < 2_000; value++) {
+            assertTrue(bloomFilter.mightContainLong(value));
+        }
+        long falsePositives = LongStream.range(maxPositionsCount + 1, 1_000).filter(bloomFilter::mightContainLong).count();
+        assertTrue(falsePositives < 100, "Too many false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testCollectBloomFilterWithoutMinMax()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createBloomFilterOperatorFactory(maxPositionsCount, 0, 10_000, VARCHAR);
+        verifyPassthrough(
+                createOperator(operatorFactory),
+                ImmutableList.of(VARCHAR),
+                new Page(createStringSequenceBlock(0, maxPositionsCount + 1)));
+        operatorFactory.noMoreOperators();
+
+        assertEquals(partitions.build(), ImmutableList.of(TupleDomain.all()));
+        SplitBlockBloomFilter bloomFilter = getOnlyElement(bloomFilters.build()).get("0");
+        for (int value = 0; value <= maxPositionsCount; value++) {
+            assertTrue(bloomFilter.mightContain(SplitBlockBloomFilter.hashBytes(utf8Slice(String.valueOf(value)))));
+        }
+    }
+
+    @Test
+    public void testCollectBloomFilterLimit()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createBloomFilterOperatorFactory(maxPositionsCount, 0, 1_000, BIGINT);
+        verifyPassthrough(
+                createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(0, maxPositionsCount + 1)),
+                new Page(createLongSequenceBlock(0, 1_000)));
+        operatorFactory.noMoreOperators();
+
+        assertEquals(partitions.build(), ImmutableList.of(TupleDomain.all()));
+        assertEquals(bloomFilters.build(), ImmutableList.of());
+    }
 }
@@ -48,6 +48,7 @@ import static com.facebook.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.testing.Assertions.assertLessThan;
 import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.google.common.collect.Maps.uniqueIndex;
@@ -480,11 +481,53 @@ public class TestExchangeClient
         assertStatus(clientStatus2, location2, "closed", "not scheduled");
     }
 
+    @Test(timeOut = 10000)
+    public void testPipelinedRequests()
+    {
+        // every response of two pages is limited by its size, so the client pipelines the requests for the backlog
+        DataSize maxResponseSize = new DataSize(PAGES_SERDE.serialize(createSequencePage(0)).getSizeInBytes() * 2, BYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        URI location = URI.create("http://localhost:8080");
+        for (int i = 0; i < 20; i++) {
+            processor.addPage(location, createSequencePage(i));
+        }
+
+        SimpleLocalMemoryContext systemMemoryContext = new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test");
+        ExchangeClient exchangeClient = createExchangeClient(processor, new DataSize(32, MEGABYTE), maxResponseSize, 3, systemMemoryContext);
+        exchangeClient.addLocation(location, TaskId.valueOf("queryid.0.0.0"));
+
+        // the pages of the concurrent ranges are received in token order
+        for (int i = 0; i < 20; i++) {
+            assertSequencePage(getNextPage(exchangeClient), i);
+        }
+        assertTrue(processor.getPrefetchRequestCount() > 0);
+
+        // the buffer space reserved for the pipelined responses is released when they arrive
+        waitUntilEquals(systemMemoryContext::getBytes, 0L, new Duration(5, SECONDS));
+
+        processor.setComplete(location);
+        exchangeClient.noMoreLocations();
+        assertNull(getNextPage(exchangeClient));
+        assertEquals(exchangeClient.isClosed(), true);
+    }
+
     private static Page createPage(int size)
     {
         return new Page(BlockAssertions.createLongSequenceBlock(0, size));
     }
 
+    private static Page createSequencePage(int sequence)
+    {
+        return new Page(BlockAssertions.createLongSequenceBlock(sequence * 10, sequence * 10 + 10));
+    }
+
+    private static void assertSequencePage(SerializedPage actualPage, int sequence)
+    {
+        assertNotNull(actualPage);
+        assertEquals(BIGINT.getLong(PAGES_SERDE.deserialize(actualPage).getBlock(0), 0), sequence * 10L);
+    }
+
     private static SerializedPage getNextPage(ExchangeClient exchangeClient)
     {
         ListenableFuture<SerializedPage> futurePage = Futures.transform(exchangeClient.isBlocked(), ignored -> exchangeClient.pollPage(), directExecutor());
@@ -544,11 +587,22 @@ public class TestExchangeClient
     }
 
     private ExchangeClient createExchangeClient(MockExchangeRequestProcessor processor, DataSize bufferCapacity, DataSize maxResponseSize)
+    {
+        return createExchangeClient(processor, bufferCapacity, maxResponseSize, 1, new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"));
+    }
+
+    private ExchangeClient createExchangeClient(
+            MockExchangeRequestProcessor processor,
+            DataSize bufferCapacity,
+            DataSize maxResponseSize,
+            int maxPipelinedRequests,
+            SimpleLocalMemoryContext systemMemoryContext)
     {
         return new ExchangeClient(
                 bufferCapacity,
                 maxResponseSize,
                 1,
+                maxPipelinedRequests,
                 new Duration(1, MINUTES),
                 true,
                 false,
@@ -556,7 +610,7 @@ public class TestExchangeClient
                 new TestingHttpClient(processor, testingHttpClientExecutor),
                 new TestingDriftClient<>(),
                 scheduler,
-                new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                systemMemoryContext,
                 pageBufferClientCallbackExecutor);
     }
 }
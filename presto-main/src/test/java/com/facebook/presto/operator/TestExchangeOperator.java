@@ -89,6 +89,7 @@ public class TestExchangeOperator
                 new DataSize(32, MEGABYTE),
                 new DataSize(10, MEGABYTE),
                 3,
+                1,
                 new Duration(1, TimeUnit.MINUTES),
                 true,
                 false,
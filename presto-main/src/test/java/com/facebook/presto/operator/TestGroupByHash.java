@@ -38,12 +38,14 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.block.BlockAssertions.createIntsBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
 import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
 import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.type.TypeUtils.getHashBlock;
@@ -233,6 +235,63 @@ public class TestGroupByHash
         assertTrue(groupByHash.contains(0, new Page(testValuesBlock, testStringValuesBlock, testHashBlock), hashChannels));
     }
 
+    @Test
+    public void testFixedWidthMultipleColumns()
+    {
+        List<Long> longValues = new ArrayList<>();
+        List<Integer> intValues = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            longValues.add(i % 100 == 99 ? null : (long) (i % 100));
+            intValues.add(i % 7 == 6 ? null : i % 7);
+        }
+        // the first 700 rows are distinct, the others repeat them
+        Block longsBlock = createLongsBlock(longValues);
+        Block intsBlock = createIntsBlock(intValues);
+        List<Type> types = ImmutableList.of(BIGINT, INTEGER);
+        Block hashBlock = getHashBlock(types, longsBlock, intsBlock);
+        Page page = new Page(longsBlock, intsBlock, hashBlock);
+        int[] hashChannels = {0, 1};
+
+        // Create group by hash with extremely small size
+        GroupByHash groupByHash = createGroupByHash(TEST_SESSION, types, hashChannels, Optional.of(2), 4, JOIN_COMPILER);
+        assertTrue(groupByHash instanceof FixedWidthGroupByHash);
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        work.process();
+        GroupByIdBlock groupIds = work.getResult();
+        assertEquals(groupByHash.getGroupCount(), 700);
+        for (int i = 0; i < page.getPositionCount(); i++) {
+            assertEquals(groupIds.getGroupId(i), i % 700);
+            assertEquals(groupByHash.getRawHash(i % 700), BIGINT.getLong(hashBlock, i));
+            assertTrue(groupByHash.contains(i, page, hashChannels));
+        }
+        assertFalse(groupByHash.contains(0, new Page(createLongsBlock(100L), createIntsBlock(0)), hashChannels));
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int i = 0; i < groupByHash.getGroupCount(); i++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(i, pageBuilder, 0);
+        }
+        Page outputPage = pageBuilder.build();
+        BlockAssertions.assertBlockEquals(BIGINT, outputPage.getBlock(0), longsBlock.getRegion(0, 700));
+        BlockAssertions.assertBlockEquals(INTEGER, outputPage.getBlock(1), intsBlock.getRegion(0, 700));
+        BlockAssertions.assertBlockEquals(BIGINT, outputPage.getBlock(2), hashBlock.getRegion(0, 700));
+
+        // the buffered pages hold the keys of the groups, without the hash
+        List<Page> bufferedPages = groupByHash.getBufferedPages();
+        assertEquals(bufferedPages.size(), 1);
+        assertEquals(bufferedPages.get(0).getChannelCount(), 2);
+        BlockAssertions.assertBlockEquals(BIGINT, bufferedPages.get(0).getBlock(0), longsBlock.getRegion(0, 700));
+        BlockAssertions.assertBlockEquals(INTEGER, bufferedPages.get(0).getBlock(1), intsBlock.getRegion(0, 700));
+
+        // the raw hash is computed when there is no precomputed hash channel
+        groupByHash = createGroupByHash(TEST_SESSION, types, hashChannels, Optional.empty(), 4, JOIN_COMPILER);
+        groupByHash.addPage(new Page(longsBlock, intsBlock)).process();
+        assertEquals(groupByHash.getGroupCount(), 700);
+        for (int i = 0; i < groupByHash.getGroupCount(); i++) {
+            assertEquals(groupByHash.getRawHash(i), BIGINT.getLong(hashBlock, i));
+        }
+    }
+
     @Test
     public void testForceRehash()
     {
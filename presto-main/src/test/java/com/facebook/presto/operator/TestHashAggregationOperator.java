@@ -61,6 +61,7 @@ import static com.facebook.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.common.RuntimeMetricName.PARTIAL_AGGREGATION_SKIPPED_ROWS;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
@@ -577,6 +578,68 @@ public class TestHashAggregationOperator
         assertEquals(driverContext.getMemoryUsage(), 0);
     }
 
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 10)
+                .build();
+
+        PartialAggregationController partialAggregationController = new PartialAggregationController(10, 0.8);
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                ImmutableList.of(),
+                Step.PARTIAL,
+                false,
+                ImmutableList.of(
+                        generateAccumulatorFactory(LONG_SUM, ImmutableList.of(0), Optional.empty()),
+                        generateAccumulatorFactory(COUNT, ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.of(new DataSize(16, MEGABYTE)),
+                false,
+                new DataSize(0, MEGABYTE),
+                (types, spillContext, memoryContext) -> {
+                    throw new UnsupportedOperationException();
+                },
+                joinCompiler,
+                true,
+                Optional.of(partialAggregationController));
+
+        DriverContext driverContext = createDriverContext(1024);
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (long i = 0; i < 10; i++) {
+            // the first page is aggregated, the following ones are passed through once the reduction is found to be poor
+            expected.row(i, i, 1L);
+            expected.row(i, i, 1L);
+            expected.row(i + 10, i + 10, 1L);
+        }
+
+        List<Page> outputPages;
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            outputPages = toPages(operator, input.iterator());
+            assertEquals(operator.getOperatorContext().getRuntimeStats().getMetric(PARTIAL_AGGREGATION_SKIPPED_ROWS).getSum(), 20);
+        }
+        assertTrue(partialAggregationController.isPartialAggregationDisabled());
+
+        if (hashEnabled) {
+            outputPages = dropChannel(outputPages, ImmutableList.of(1));
+        }
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), expected.build().getTypes(), outputPages);
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+        assertEquals(driverContext.getSystemMemoryUsage(), 0);
+    }
+
     @Test
     public void testMergeWithMemorySpill()
     {
@@ -31,6 +31,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -54,6 +55,7 @@ import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashSemiJoinOperator
@@ -422,6 +424,77 @@ public class TestHashSemiJoinOperator
         OperatorAssertion.assertOperatorEquals(joinOperatorFactory, driverContext, probeInput, expected, hashEnabled, ImmutableList.of(probeTypes.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSemiJoinWithSpill(boolean hashEnabled)
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+        DummyPartitioningSpillerFactory partitioningSpillerFactory = new DummyPartitioningSpillerFactory();
+
+        // build, spilling the set after every page
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> buildInput = rowPagesBuilder
+                .addSequencePage(100, 0)
+                .addSequencePage(100, 50)
+                .build();
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes().get(0),
+                0,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                new JoinCompiler(createTestMetadataManager(), new FeaturesConfig()),
+                true,
+                partitioningSpillerFactory);
+        Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
+        OperatorAssertion.toPagesPartial(setBuilderOperator, buildInput.iterator(), true);
+        assertGreaterThan(partitioningSpillerFactory.getSpilledPages(), 0L);
+
+        // probe
+        RowPagesBuilder rowPagesBuilderProbe = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        Iterator<Page> probeInput = rowPagesBuilderProbe
+                .addSequencePage(100, 100)
+                .row((Object) null)
+                .build()
+                .iterator();
+        Optional<Integer> probeHashChannel = hashEnabled ? Optional.of(1) : Optional.empty();
+        HashSemiJoinOperatorFactory joinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                setBuilderOperatorFactory.getSetProvider(),
+                rowPagesBuilderProbe.getTypes(),
+                0,
+                probeHashChannel,
+                partitioningSpillerFactory);
+        Operator joinOperator = joinOperatorFactory.createOperator(driverContext);
+        joinOperatorFactory.noMoreOperators();
+
+        // the set builder restores a partition once the probe operator has finished its input and requested it
+        ImmutableList.Builder<Page> output = ImmutableList.builder();
+        for (int i = 0; i < 1_000 && !(setBuilderOperator.isFinished() && joinOperator.isFinished()); i++) {
+            setBuilderOperator.finish();
+            if (!probeInput.hasNext()) {
+                joinOperator.finish();
+            }
+            else if (joinOperator.needsInput()) {
+                joinOperator.addInput(probeInput.next());
+            }
+            Page page = joinOperator.getOutput();
+            if (page != null) {
+                output.add(page);
+            }
+        }
+        assertTrue(setBuilderOperator.isFinished());
+        assertTrue(joinOperator.isFinished());
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BOOLEAN);
+        for (long i = 100; i < 200; i++) {
+            expected.row(i, i < 150);
+        }
+        expected.row(null, null);
+        OperatorAssertion.assertPagesEqualIgnoreOrder(driverContext, output.build(), expected.build(), hashEnabled, probeHashChannel);
+    }
+
     @Test(dataProvider = "hashEnabledValues", expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded per-node user memory limit of.*")
     public void testMemoryLimit(boolean hashEnabled)
     {
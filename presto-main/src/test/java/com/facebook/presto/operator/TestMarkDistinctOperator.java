@@ -112,6 +112,40 @@ public class TestMarkDistinctOperator
         OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testMarkDistinctWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0)
+                .addSequencePage(100, 50)
+                .addSequencePage(100, 0)
+                .build();
+
+        DummyPartitioningSpillerFactory partitioningSpillerFactory = new DummyPartitioningSpillerFactory();
+        OperatorFactory operatorFactory = new MarkDistinctOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                ImmutableList.of(0),
+                rowPagesBuilder.getHashChannel(),
+                joinCompiler,
+                true,
+                partitioningSpillerFactory);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BOOLEAN);
+        for (long i = 0; i < 100; i++) {
+            expected.row(i, true);
+            expected.row(i, false);
+        }
+        for (long i = 50; i < 150; i++) {
+            expected.row(i, i >= 100);
+        }
+
+        OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1), true);
+        assertGreaterThan(partitioningSpillerFactory.getSpilledPages(), 0L);
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testRleDistinctMask(boolean hashEnabled)
     {
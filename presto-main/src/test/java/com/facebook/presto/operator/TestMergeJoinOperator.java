@@ -0,0 +1,384 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.operator.MergeJoinOperator.MergeJoinOperatorFactory;
+import com.facebook.presto.operator.MergeJoinSourceOperator.MergeJoinSourceOperatorFactory;
+import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.TestingTaskContext;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.google.common.collect.Iterables.concat;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMergeJoinOperator
+{
+    private static final List<Type> LEFT_TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final List<Type> RIGHT_TYPES = ImmutableList.of(BIGINT, VARCHAR);
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testInnerJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = newJoinOperatorFactoryWithCompletedRightSide(taskContext, INNER, rightPages());
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(LEFT_TYPES, RIGHT_TYPES))
+                .row(2L, "l2", 2L, "r2a")
+                .row(2L, "l2", 2L, "r2b")
+                .row(2L, "l2", 2L, "r2c")
+                .row(4L, "l4a", 4L, "r4")
+                .row(4L, "l4b", 4L, "r4")
+                .row(4L, "l4c", 4L, "r4")
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), leftPages().build(), expected);
+    }
+
+    @Test
+    public void testLeftJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = newJoinOperatorFactoryWithCompletedRightSide(taskContext, LEFT, rightPages());
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(LEFT_TYPES, RIGHT_TYPES))
+                .row(null, "lnull", null, null)
+                .row(1L, "l1", null, null)
+                .row(2L, "l2", 2L, "r2a")
+                .row(2L, "l2", 2L, "r2b")
+                .row(2L, "l2", 2L, "r2c")
+                .row(4L, "l4a", 4L, "r4")
+                .row(4L, "l4b", 4L, "r4")
+                .row(4L, "l4c", 4L, "r4")
+                .row(6L, "l6", null, null)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), leftPages().build(), expected);
+    }
+
+    @Test
+    public void testRightJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = newJoinOperatorFactoryWithCompletedRightSide(taskContext, RIGHT, rightPages());
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(LEFT_TYPES, RIGHT_TYPES))
+                .row(null, null, null, "rnull")
+                .row(2L, "l2", 2L, "r2a")
+                .row(2L, "l2", 2L, "r2b")
+                .row(2L, "l2", 2L, "r2c")
+                .row(null, null, 3L, "r3")
+                .row(4L, "l4a", 4L, "r4")
+                .row(4L, "l4b", 4L, "r4")
+                .row(4L, "l4c", 4L, "r4")
+                .row(null, null, 7L, "r7")
+                .row(null, null, 8L, "r8")
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), leftPages().build(), expected);
+    }
+
+    @Test
+    public void testFullJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = newJoinOperatorFactoryWithCompletedRightSide(taskContext, FULL, rightPages());
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(LEFT_TYPES, RIGHT_TYPES))
+                .row(null, "lnull", null, null)
+                .row(null, null, null, "rnull")
+                .row(1L, "l1", null, null)
+                .row(2L, "l2", 2L, "r2a")
+                .row(2L, "l2", 2L, "r2b")
+                .row(2L, "l2", 2L, "r2c")
+                .row(null, null, 3L, "r3")
+                .row(4L, "l4a", 4L, "r4")
+                .row(4L, "l4b", 4L, "r4")
+                .row(4L, "l4c", 4L, "r4")
+                .row(6L, "l6", null, null)
+                .row(null, null, 7L, "r7")
+                .row(null, null, 8L, "r8")
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), leftPages().build(), expected);
+    }
+
+    @Test
+    public void testEmptyRightSide()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = newJoinOperatorFactoryWithCompletedRightSide(taskContext, LEFT, rowPagesBuilder(RIGHT_TYPES));
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(LEFT_TYPES, RIGHT_TYPES))
+                .row(1L, "a", null, null)
+                .row(2L, "b", null, null)
+                .build();
+
+        List<Page> leftInput = rowPagesBuilder(LEFT_TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .build();
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), leftInput, expected);
+    }
+
+    @Test
+    public void testBackPressure()
+    {
+        TaskContext taskContext = createTaskContext();
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+
+        MergeJoinSource mergeJoinSource = new MergeJoinSource(1);
+        MergeJoinSourceOperator sourceOperator = new MergeJoinSourceOperator(driverContext.addOperatorContext(0, new PlanNodeId("test"), "source"), mergeJoinSource);
+        int consumer = mergeJoinSource.addConsumer();
+
+        List<Page> pages = rightPages().build();
+        sourceOperator.addInput(pages.get(0));
+        assertFalse(sourceOperator.isBlocked().isDone());
+        assertFalse(sourceOperator.needsInput());
+
+        // consuming the page releases the producer
+        assertTrue(mergeJoinSource.pollPage(consumer) != null);
+        assertTrue(sourceOperator.isBlocked().isDone());
+        assertTrue(sourceOperator.needsInput());
+
+        // once the consumer is closed, pages are dropped and the producer finishes
+        sourceOperator.addInput(pages.get(1));
+        mergeJoinSource.consumerFinished(consumer);
+        assertTrue(sourceOperator.isBlocked().isDone());
+        assertNull(mergeJoinSource.pollPage(consumer));
+        sourceOperator.finish();
+        assertTrue(sourceOperator.isFinished());
+    }
+
+    @Test
+    public void testMultipleDrivers()
+    {
+        TaskContext taskContext = createTaskContext();
+        PipelineContext pipelineContext = taskContext.addPipelineContext(0, true, true, false);
+
+        MergeJoinSource mergeJoinSource = new MergeJoinSource(Long.MAX_VALUE);
+        MergeJoinSourceOperator firstProducer = createSourceOperator(pipelineContext, mergeJoinSource);
+        MergeJoinSourceOperator secondProducer = createSourceOperator(pipelineContext, mergeJoinSource);
+        int firstConsumer = mergeJoinSource.addConsumer();
+        int secondConsumer = mergeJoinSource.addConsumer();
+
+        List<Page> pages = rightPages().build();
+        firstProducer.addInput(pages.get(0));
+
+        // the pages of a second producer would not be in order with the pages of the first one
+        assertThrows(PrestoException.class, () -> secondProducer.addInput(pages.get(1)));
+
+        // an empty producer does not finish the right side
+        secondProducer.finish();
+        assertFalse(mergeJoinSource.whenBuildFinishes().isDone());
+
+        // the right side finishes once all producers finished and no more producers will be created
+        firstProducer.finish();
+        assertFalse(mergeJoinSource.whenBuildFinishes().isDone());
+        mergeJoinSource.noMoreProducers();
+        assertTrue(mergeJoinSource.whenBuildFinishes().isDone());
+
+        // only one consumer may read the right side, and an empty consumer does not release it
+        assertTrue(mergeJoinSource.pollPage(firstConsumer) != null);
+        assertThrows(PrestoException.class, () -> mergeJoinSource.pollPage(secondConsumer));
+        mergeJoinSource.consumerFinished(secondConsumer);
+        assertFalse(mergeJoinSource.getDrainedFuture().isDone());
+        mergeJoinSource.consumerFinished(firstConsumer);
+        assertTrue(mergeJoinSource.getDrainedFuture().isDone());
+    }
+
+    @Test
+    public void testMultipleDriversWithOneProducingDriver()
+    {
+        TaskContext taskContext = createTaskContext();
+        RowPagesBuilder rightPages = rightPages();
+        JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager = new JoinBridgeManager<>(
+                false,
+                PipelineExecutionStrategy.UNGROUPED_EXECUTION,
+                PipelineExecutionStrategy.UNGROUPED_EXECUTION,
+                () -> new MergeJoinSource(Long.MAX_VALUE),
+                rightPages.getTypes());
+        MergeJoinSourceOperatorFactory sourceOperatorFactory = new MergeJoinSourceOperatorFactory(1, new PlanNodeId("test"), mergeJoinSourceManager);
+
+        // the right side is read by a driver per split, and only one of the splits has rows
+        PipelineContext pipelineContext = taskContext.addPipelineContext(0, true, true, false);
+        Driver emptyDriver = createSourceDriver(pipelineContext.addDriverContext(), ImmutableList.of(), sourceOperatorFactory);
+        Driver driver = createSourceDriver(pipelineContext.addDriverContext(), rightPages.build(), sourceOperatorFactory);
+        sourceOperatorFactory.noMoreOperators();
+
+        MergeJoinSource mergeJoinSource = mergeJoinSourceManager.getJoinBridge(Lifespan.taskWide());
+        processUntilBlocked(emptyDriver);
+        assertFalse(mergeJoinSource.whenBuildFinishes().isDone());
+        processUntilBlocked(driver);
+        assertTrue(mergeJoinSource.whenBuildFinishes().isDone());
+
+        // both drivers finish once the right side is consumed
+        int consumer = mergeJoinSource.addConsumer();
+        int positionCount = 0;
+        for (Page page = mergeJoinSource.pollPage(consumer); page != null; page = mergeJoinSource.pollPage(consumer)) {
+            positionCount += page.getPositionCount();
+        }
+        assertEquals(positionCount, rightPages.build().stream().mapToInt(Page::getPositionCount).sum());
+        processUntilBlocked(emptyDriver);
+        processUntilBlocked(driver);
+        assertTrue(emptyDriver.isFinished());
+        assertTrue(driver.isFinished());
+    }
+
+    private static RowPagesBuilder leftPages()
+    {
+        return rowPagesBuilder(LEFT_TYPES)
+                .row(null, "lnull")
+                .row(1L, "l1")
+                .row(2L, "l2")
+                .pageBreak()
+                .row(4L, "l4a")
+                .row(4L, "l4b")
+                .pageBreak()
+                .row(4L, "l4c")
+                .row(6L, "l6");
+    }
+
+    private static RowPagesBuilder rightPages()
+    {
+        return rowPagesBuilder(RIGHT_TYPES)
+                .row(null, "rnull")
+                .row(2L, "r2a")
+                .pageBreak()
+                .row(2L, "r2b")
+                .pageBreak()
+                .row(2L, "r2c")
+                .row(3L, "r3")
+                .row(4L, "r4")
+                .pageBreak()
+                .row(7L, "r7")
+                .row(8L, "r8");
+    }
+
+    private static MergeJoinSourceOperator createSourceOperator(PipelineContext pipelineContext, MergeJoinSource mergeJoinSource)
+    {
+        return new MergeJoinSourceOperator(pipelineContext.addDriverContext().addOperatorContext(0, new PlanNodeId("test"), "source"), mergeJoinSource);
+    }
+
+    private static void processUntilBlocked(Driver driver)
+    {
+        while (!driver.isFinished() && driver.process().isDone()) {
+            // keep processing
+        }
+    }
+
+    private static Driver createSourceDriver(DriverContext driverContext, List<Page> pages, MergeJoinSourceOperatorFactory sourceOperatorFactory)
+    {
+        return Driver.createDriver(
+                driverContext,
+                new ValuesOperatorFactory(0, new PlanNodeId("test"), pages).createOperator(driverContext),
+                sourceOperatorFactory.createOperator(driverContext));
+    }
+
+    private TaskContext createTaskContext()
+    {
+        return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+    }
+
+    private static MergeJoinOperatorFactory newJoinOperatorFactoryWithCompletedRightSide(TaskContext taskContext, JoinNode.Type joinType, RowPagesBuilder rightPages)
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+
+        ValuesOperatorFactory valuesOperatorFactory = new ValuesOperatorFactory(0, new PlanNodeId("test"), rightPages.build());
+
+        JoinBridgeManager<MergeJoinSource> mergeJoinSourceManager = new JoinBridgeManager<>(
+                false,
+                PipelineExecutionStrategy.UNGROUPED_EXECUTION,
+                PipelineExecutionStrategy.UNGROUPED_EXECUTION,
+                () -> new MergeJoinSource(Long.MAX_VALUE),
+                rightPages.getTypes());
+        MergeJoinSourceOperatorFactory sourceOperatorFactory = new MergeJoinSourceOperatorFactory(1, new PlanNodeId("test"), mergeJoinSourceManager);
+        MergeJoinOperatorFactory joinOperatorFactory = new MergeJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                mergeJoinSourceManager,
+                joinType,
+                LEFT_TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(0, 1),
+                RIGHT_TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(0, 1));
+
+        Operator valuesOperator = valuesOperatorFactory.createOperator(driverContext);
+        Operator sourceOperator = sourceOperatorFactory.createOperator(driverContext);
+        Driver driver = Driver.createDriver(
+                driverContext,
+                valuesOperator,
+                sourceOperator);
+
+        valuesOperatorFactory.noMoreOperators();
+        sourceOperatorFactory.noMoreOperators();
+
+        while (!driver.isFinished() && sourceOperator.isBlocked().isDone()) {
+            driver.process();
+        }
+
+        return joinOperatorFactory;
+    }
+}
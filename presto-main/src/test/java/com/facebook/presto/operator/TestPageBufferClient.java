@@ -21,10 +21,15 @@ import com.facebook.airlift.http.client.testing.TestingResponse;
 import com.facebook.airlift.testing.TestingTicker;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.operator.PageBufferClient.ClientCallback;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import io.airlift.units.Duration;
@@ -34,13 +39,16 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -53,13 +61,19 @@ import static com.facebook.airlift.testing.Assertions.assertContains;
 import static com.facebook.airlift.testing.Assertions.assertInstanceOf;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
 import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static com.facebook.presto.operator.PageBufferClient.PagesResponse.createPagesResponse;
 import static com.facebook.presto.spi.StandardErrorCode.PAGE_TOO_LARGE;
 import static com.facebook.presto.spi.StandardErrorCode.PAGE_TRANSPORT_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.PAGE_TRANSPORT_TIMEOUT;
 import static com.facebook.presto.util.Failures.WORKER_NODE_ERROR;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
 public class TestPageBufferClient
 {
@@ -67,6 +81,10 @@ public class TestPageBufferClient
     private ExecutorService pageBufferClientCallbackExecutor;
 
     private static final PagesSerde PAGES_SERDE = testingPagesSerde();
+    private static final String TASK_INSTANCE_ID = "task-instance-id";
+    private static final URI LOCATION = URI.create("http://localhost:8080");
+    // any page exceeds half of the size, so every response with pages shows a backlog
+    private static final DataSize PIPELINED_MAX_SIZE = new DataSize(1, Unit.BYTE);
 
     @BeforeClass
     public void setUp()
@@ -407,6 +425,185 @@ public class TestPageBufferClient
         assertStatus(client, location, "queued", 0, 3, 3, 3, "not scheduled");
     }
 
+    @Test
+    public void testPipelinedRequestsCompleteOutOfOrder()
+            throws Exception
+    {
+        TestingPrefetchShuffleClient resultClient = new TestingPrefetchShuffleClient(true);
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+        PageBufferClient client = createPageBufferClient(resultClient, callback);
+
+        receiveBacklog(client, resultClient, requestComplete, callback);
+
+        // the backlog is read with concurrent prefetches of consecutive ranges
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 3);
+        TestingRequest first = resultClient.takeRequest();
+        TestingRequest second = resultClient.takeRequest();
+        TestingRequest third = resultClient.takeRequest();
+        assertPrefetch(first, 2, 2);
+        assertPrefetch(second, 4, 2);
+        assertPrefetch(third, 6, 2);
+
+        // the ranges complete out of order, but the pages are added in token order
+        third.respond(createResponse(6, 7, 8));
+        first.respond(createResponse(2, 3, 4));
+        assertEquals(callback.getCompletedRequests(), 0);
+        second.respond(createResponse(4, 5, 6));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertPositionCounts(callback.getPages(), 3, 4, 5, 6, 7, 8);
+        assertEquals(callback.getFailedBuffers(), 0);
+        // the prefetches do not acknowledge the pages, so the client acknowledges the last token
+        assertEquals(resultClient.getAcknowledgedTokens(), ImmutableList.of(2L, 8L));
+        assertStatus(client, LOCATION, "queued", 8, 4, 4, 0, "not scheduled");
+
+        // the backlog continues, so the next request is pipelined from the last token
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 2), 2);
+        assertPrefetch(resultClient.takeRequest(), 8, 2);
+        assertPrefetch(resultClient.takeRequest(), 10, 2);
+    }
+
+    @Test
+    public void testPipelinedRequestFailure()
+            throws Exception
+    {
+        TestingPrefetchShuffleClient resultClient = new TestingPrefetchShuffleClient(true);
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+        PageBufferClient client = createPageBufferClient(resultClient, callback);
+
+        receiveBacklog(client, resultClient, requestComplete, callback);
+
+        // the middle range fails
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 3);
+        TestingRequest first = resultClient.takeRequest();
+        TestingRequest second = resultClient.takeRequest();
+        TestingRequest third = resultClient.takeRequest();
+        first.respond(createResponse(2, 3, 4));
+        second.fail(new RuntimeException("Foo"));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        // none of the ranges is added and the token does not move
+        assertEquals(callback.getPages().size(), 0);
+        assertEquals(callback.getFailedBuffers(), 0);
+        assertEquals(resultClient.getAcknowledgedTokens(), ImmutableList.of(2L));
+        assertEquals(client.getStatus().getRequestsFailed(), 1);
+
+        // a late response of the failed request is ignored
+        third.respond(createResponse(6, 7, 8));
+        assertEquals(callback.getPages().size(), 0);
+
+        // the ranges are read again
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 3);
+        first = resultClient.takeRequest();
+        second = resultClient.takeRequest();
+        third = resultClient.takeRequest();
+        assertPrefetch(first, 2, 2);
+        assertPrefetch(second, 4, 2);
+        assertPrefetch(third, 6, 2);
+        first.respond(createResponse(2, 3, 4));
+        second.respond(createResponse(4, 5, 6));
+        third.respond(createResponse(6, 7, 8));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertPositionCounts(callback.getPages(), 3, 4, 5, 6, 7, 8);
+        assertEquals(resultClient.getAcknowledgedTokens(), ImmutableList.of(2L, 8L));
+        assertEquals(client.getStatus().getPagesReceived(), 8);
+    }
+
+    @Test
+    public void testPipelinedRequestShortRange()
+            throws Exception
+    {
+        TestingPrefetchShuffleClient resultClient = new TestingPrefetchShuffleClient(true);
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+        PageBufferClient client = createPageBufferClient(resultClient, callback);
+
+        receiveBacklog(client, resultClient, requestComplete, callback);
+
+        // the second range reaches the end of the backlog
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 3);
+        resultClient.takeRequest().respond(createResponse(2, 3, 4));
+        resultClient.takeRequest().respond(createResponse(4, 5));
+        // the range after the short one does not follow the received pages and is ignored
+        resultClient.takeRequest().respond(createResponse(6, 7, 8));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertPositionCounts(callback.getPages(), 3, 4, 5);
+        assertEquals(resultClient.getAcknowledgedTokens(), ImmutableList.of(2L, 5L));
+
+        // the client falls back to a single request from the next token
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 1);
+        TestingRequest request = resultClient.takeRequest();
+        assertFalse(request.isPrefetch());
+        assertEquals(request.getToken(), 5);
+        request.respond(createResponse(5, 6));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertPositionCounts(callback.getPages(), 6);
+        assertStatus(client, LOCATION, "queued", 6, 5, 5, 0, "not scheduled");
+    }
+
+    @Test
+    public void testPipelinedRequestEmptyRange()
+            throws Exception
+    {
+        TestingPrefetchShuffleClient resultClient = new TestingPrefetchShuffleClient(true);
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+        PageBufferClient client = createPageBufferClient(resultClient, callback);
+
+        receiveBacklog(client, resultClient, requestComplete, callback);
+
+        // the prefetches find no buffered pages
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 2), 2);
+        resultClient.takeRequest().respond(createResponse(2));
+        resultClient.takeRequest().respond(createResponse(4));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        // nothing is added or acknowledged
+        assertEquals(callback.getPages().size(), 0);
+        assertEquals(resultClient.getAcknowledgedTokens(), ImmutableList.of(2L));
+
+        // the client falls back to a single request, which waits for more pages
+        callback.resetStats();
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 2), 1);
+        TestingRequest request = resultClient.takeRequest();
+        assertFalse(request.isPrefetch());
+        assertEquals(request.getToken(), 2);
+        request.respond(createResponse(2, 3));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertPositionCounts(callback.getPages(), 3);
+    }
+
+    @Test
+    public void testPipelinedRequestsNotSupported()
+            throws Exception
+    {
+        TestingPrefetchShuffleClient resultClient = new TestingPrefetchShuffleClient(false);
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+        PageBufferClient client = createPageBufferClient(resultClient, callback);
+
+        receiveBacklog(client, resultClient, requestComplete, callback);
+
+        // a client without prefetch support does not pipeline the requests
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 1);
+        TestingRequest request = resultClient.takeRequest();
+        assertFalse(request.isPrefetch());
+        assertEquals(request.getToken(), 2);
+    }
+
     @Test
     public void testErrorCodes()
     {
@@ -415,6 +612,57 @@ public class TestPageBufferClient
         assertEquals(new PageTransportTimeoutException(HostAddress.fromParts("127.0.0.1", 8080), "", null).getErrorCode(), PAGE_TRANSPORT_TIMEOUT.toErrorCode());
     }
 
+    private PageBufferClient createPageBufferClient(RpcShuffleClient resultClient, ClientCallback callback)
+    {
+        return new PageBufferClient(
+                resultClient,
+                new Duration(1, TimeUnit.MINUTES),
+                true,
+                LOCATION,
+                Optional.empty(),
+                callback,
+                scheduler,
+                pageBufferClientCallbackExecutor);
+    }
+
+    /**
+     * Receives a response of two pages that is limited by its size, which shows the client
+     * that the remote buffer has a backlog.
+     */
+    private static void receiveBacklog(PageBufferClient client, TestingPrefetchShuffleClient resultClient, CyclicBarrier requestComplete, TestingClientCallback callback)
+            throws Exception
+    {
+        assertEquals(client.scheduleRequest(PIPELINED_MAX_SIZE, 3), 1);
+        TestingRequest request = resultClient.takeRequest();
+        assertFalse(request.isPrefetch());
+        assertEquals(request.getToken(), 0);
+        request.respond(createResponse(0, 1, 2));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertPositionCounts(callback.getPages(), 1, 2);
+        assertEquals(resultClient.getAcknowledgedTokens(), ImmutableList.of(2L));
+    }
+
+    private static PagesResponse createResponse(long token, int... positionCounts)
+    {
+        List<SerializedPage> pages = Arrays.stream(positionCounts)
+                .mapToObj(positionCount -> PAGES_SERDE.serialize(new Page(positionCount)))
+                .collect(toImmutableList());
+        return createPagesResponse(TASK_INSTANCE_ID, token, token + pages.size(), pages, false);
+    }
+
+    private static void assertPrefetch(TestingRequest request, long token, int maxPages)
+    {
+        assertTrue(request.isPrefetch());
+        assertEquals(request.getToken(), token);
+        assertEquals(request.getMaxPages(), maxPages);
+    }
+
+    private static void assertPositionCounts(List<Page> pages, int... positionCounts)
+    {
+        assertEquals(pages.stream().map(Page::getPositionCount).collect(toImmutableList()), Ints.asList(positionCounts));
+    }
+
     private static void assertStatus(
             PageBufferClient client,
             URI location, String status,
@@ -568,4 +816,115 @@ public class TestPageBufferClient
             }
         }
     }
+
+    private static class TestingPrefetchShuffleClient
+            implements RpcShuffleClient
+    {
+        private final boolean prefetchSupported;
+        private final BlockingQueue<TestingRequest> requests = new LinkedBlockingQueue<>();
+        private final List<Long> acknowledgedTokens = Collections.synchronizedList(new ArrayList<>());
+
+        private TestingPrefetchShuffleClient(boolean prefetchSupported)
+        {
+            this.prefetchSupported = prefetchSupported;
+        }
+
+        public TestingRequest takeRequest()
+                throws InterruptedException
+        {
+            TestingRequest request = requests.poll(10, TimeUnit.SECONDS);
+            assertNotNull(request, "request was not sent");
+            return request;
+        }
+
+        public List<Long> getAcknowledgedTokens()
+        {
+            return ImmutableList.copyOf(acknowledgedTokens);
+        }
+
+        @Override
+        public ListenableFuture<PagesResponse> getResults(long token, DataSize maxResponseSize)
+        {
+            TestingRequest request = new TestingRequest(token, false, 0);
+            requests.add(request);
+            return request.getResponse();
+        }
+
+        @Override
+        public boolean isPrefetchSupported()
+        {
+            return prefetchSupported;
+        }
+
+        @Override
+        public ListenableFuture<PagesResponse> prefetchResults(long token, DataSize maxResponseSize, int maxPages)
+        {
+            TestingRequest request = new TestingRequest(token, true, maxPages);
+            requests.add(request);
+            return request.getResponse();
+        }
+
+        @Override
+        public void acknowledgeResultsAsync(long nextToken)
+        {
+            acknowledgedTokens.add(nextToken);
+        }
+
+        @Override
+        public ListenableFuture<?> abortResults()
+        {
+            return immediateFuture(null);
+        }
+
+        @Override
+        public Throwable rewriteException(Throwable throwable)
+        {
+            return throwable;
+        }
+    }
+
+    private static class TestingRequest
+    {
+        private final long token;
+        private final boolean prefetch;
+        private final int maxPages;
+        private final SettableFuture<PagesResponse> response = SettableFuture.create();
+
+        private TestingRequest(long token, boolean prefetch, int maxPages)
+        {
+            this.token = token;
+            this.prefetch = prefetch;
+            this.maxPages = maxPages;
+        }
+
+        public long getToken()
+        {
+            return token;
+        }
+
+        public boolean isPrefetch()
+        {
+            return prefetch;
+        }
+
+        public int getMaxPages()
+        {
+            return maxPages;
+        }
+
+        public ListenableFuture<PagesResponse> getResponse()
+        {
+            return response;
+        }
+
+        public void respond(PagesResponse pagesResponse)
+        {
+            response.set(pagesResponse);
+        }
+
+        public void fail(Throwable cause)
+        {
+            response.setException(cause);
+        }
+    }
 }
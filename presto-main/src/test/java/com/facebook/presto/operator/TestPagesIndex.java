@@ -14,18 +14,31 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.type.Type;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
 import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.common.block.SortOrder.DESC_NULLS_FIRST;
+import static com.facebook.presto.common.block.SortOrder.DESC_NULLS_LAST;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.operator.PagesIndexRadixSort.MAX_SORT_POSITIONS;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.String.format;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 public class TestPagesIndex
@@ -82,6 +95,94 @@ public class TestPagesIndex
         assertEquals(lazyCompactPagesIndex.getEstimatedSize(), eagerCompactPagesIndex.getEstimatedSize());
     }
 
+    @Test
+    public void testParallelSort()
+    {
+        PagesIndexSortPool sortPool = new PagesIndexSortPool(4);
+        try {
+            PagesIndex pagesIndex = new PagesIndex.TestingFactory(false, sortPool.getPool(), false).newPagesIndex(ImmutableList.of(BIGINT), 1024);
+            long[] expected = new long[500_000];
+            Random random = new Random(42);
+            for (int pageStart = 0; pageStart < expected.length; pageStart += 10_000) {
+                BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 10_000);
+                for (int position = pageStart; position < pageStart + 10_000; position++) {
+                    // many duplicates exercise the handling of the values equal to the pivot
+                    expected[position] = random.nextInt(100_000);
+                    BIGINT.writeLong(blockBuilder, expected[position]);
+                }
+                pagesIndex.addPage(new Page(blockBuilder.build()));
+            }
+            Arrays.sort(expected);
+
+            long cpuNanos = pagesIndex.parallelSort(ImmutableList.of(0), ImmutableList.of(ASC_NULLS_FIRST));
+            assertTrue(cpuNanos >= 0);
+            for (int position = 0; position < expected.length; position++) {
+                assertEquals(pagesIndex.getLong(0, position), expected[position]);
+            }
+        }
+        finally {
+            sortPool.stop();
+        }
+    }
+
+    @Test
+    public void testRadixSort()
+    {
+        List<Type> types = ImmutableList.of(BIGINT, DOUBLE, VARCHAR);
+        Random random = new Random(42);
+        BlockBuilder bigints = BIGINT.createBlockBuilder(null, 1000);
+        BlockBuilder doubles = DOUBLE.createBlockBuilder(null, 1000);
+        BlockBuilder varchars = VARCHAR.createBlockBuilder(null, 1000);
+        double[] specialDoubles = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        for (int position = 0; position < 1000; position++) {
+            if (random.nextInt(10) == 0) {
+                bigints.appendNull();
+                doubles.appendNull();
+                varchars.appendNull();
+                continue;
+            }
+            BIGINT.writeLong(bigints, random.nextInt(200) - 100);
+            DOUBLE.writeDouble(doubles, random.nextInt(10) == 0 ? specialDoubles[random.nextInt(specialDoubles.length)] : random.nextGaussian());
+            // long values with shared prefixes
+            VARCHAR.writeSlice(varchars, utf8Slice("prefix-" + random.nextInt(50)));
+        }
+        Page page = new Page(bigints.build(), doubles.build(), varchars.build());
+
+        for (SortOrder sortOrder : ImmutableList.of(ASC_NULLS_FIRST, ASC_NULLS_LAST, DESC_NULLS_FIRST, DESC_NULLS_LAST)) {
+            for (List<Integer> sortChannels : ImmutableList.of(ImmutableList.of(0), ImmutableList.of(1), ImmutableList.of(2), ImmutableList.of(0, 2, 1), ImmutableList.of(2, 0))) {
+                List<SortOrder> sortOrders = sortChannels.stream()
+                        .map(channel -> sortOrder)
+                        .collect(toImmutableList());
+
+                PagesIndex expected = new PagesIndex.TestingFactory(false).newPagesIndex(types, 1000);
+                expected.addPage(page);
+                expected.sort(sortChannels, sortOrders);
+
+                PagesIndex actual = new PagesIndex.TestingFactory(false, Optional.empty(), true).newPagesIndex(types, 1000);
+                actual.addPage(page);
+                actual.sort(sortChannels, sortOrders);
+
+                for (int position = 0; position < expected.getPositionCount(); position++) {
+                    for (int channel : sortChannels) {
+                        assertEquals(actual.isNull(channel, position), expected.isNull(channel, position));
+                        if (!expected.isNull(channel, position)) {
+                            assertEquals(actual.getType(channel).getObjectValue(null, actual.getSingleValueBlock(channel, position), 0),
+                                    expected.getType(channel).getObjectValue(null, expected.getSingleValueBlock(channel, position), 0));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRadixSortMaxPositions()
+    {
+        // the larger ranges are sorted with the comparator, so that the unaccounted encoded keys stay bounded
+        assertTrue(PagesIndexRadixSort.isSupported(BIGINT, MAX_SORT_POSITIONS));
+        assertFalse(PagesIndexRadixSort.isSupported(BIGINT, MAX_SORT_POSITIONS + 1));
+    }
+
     private static PagesIndex newPagesIndex(List<Type> types, int expectedPositions, boolean eagerCompact)
     {
         return new PagesIndex.TestingFactory(eagerCompact).newPagesIndex(types, expectedPositions);
@@ -249,6 +249,60 @@ public class TestRowNumberOperator
         assertEquals(Sets.intersection(expectedPartition3Set, actualSet).size(), 2);
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testRowNumberPartitionedWithSpill(boolean hashEnabled)
+    {
+        DriverContext driverContext = getDriverContext();
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, DOUBLE);
+        List<Page> input = rowPagesBuilder
+                .row(1L, 0.3)
+                .row(2L, 0.2)
+                .row(3L, 0.1)
+                .row(3L, 0.19)
+                .pageBreak()
+                .row(1L, 0.4)
+                .pageBreak()
+                .row(1L, 0.5)
+                .row(1L, 0.6)
+                .row(2L, 0.7)
+                .row(4L, 0.8)
+                .row(2L, 0.9)
+                .build();
+
+        DummyPartitioningSpillerFactory partitioningSpillerFactory = new DummyPartitioningSpillerFactory();
+        RowNumberOperator.RowNumberOperatorFactory operatorFactory = new RowNumberOperator.RowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Optional.of(3),
+                rowPagesBuilder.getHashChannel(),
+                10,
+                joinCompiler,
+                true,
+                partitioningSpillerFactory);
+
+        // row numbers keep counting from the spilled state of each partition
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
+                .row(0.3, 1L, 1L)
+                .row(0.4, 1L, 2L)
+                .row(0.5, 1L, 3L)
+                .row(0.2, 2L, 1L)
+                .row(0.7, 2L, 2L)
+                .row(0.9, 2L, 3L)
+                .row(0.1, 3L, 1L)
+                .row(0.19, 3L, 2L)
+                .row(0.8, 4L, 1L)
+                .build();
+
+        List<Page> pages = toPages(operatorFactory, driverContext, input, true);
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), expected.getTypes(), pages);
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+        assertGreaterThan(partitioningSpillerFactory.getSpilledPages(), 0L);
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testRowNumberPartitionedLimit(boolean hashEnabled)
     {
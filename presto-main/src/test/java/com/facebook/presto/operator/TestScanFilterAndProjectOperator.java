@@ -19,6 +19,12 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.LazyBlock;
 import com.facebook.presto.common.block.LazyBlockLoader;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.execution.ScheduledSplit;
 import com.facebook.presto.metadata.FunctionAndTypeManager;
 import com.facebook.presto.metadata.Metadata;
@@ -32,11 +38,13 @@ import com.facebook.presto.operator.project.PageProjectionWithOutputs;
 import com.facebook.presto.operator.project.TestPageProcessor.LazyPagePageProjection;
 import com.facebook.presto.operator.project.TestPageProcessor.SelectAllFilter;
 import com.facebook.presto.operator.scalar.AbstractTestFunctions;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.SplitContext;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.facebook.presto.spi.plan.PlanNodeId;
@@ -44,19 +52,23 @@ import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.sql.gen.ExpressionCompiler;
 import com.facebook.presto.sql.gen.PageFunctionCompiler;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.TestingMetadata.TestingColumnHandle;
 import com.facebook.presto.testing.TestingSplit;
 import com.facebook.presto.testing.TestingTransactionHandle;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
@@ -77,6 +89,7 @@ import static com.facebook.presto.sql.relational.Expressions.field;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static com.facebook.presto.testing.assertions.Assert.assertEquals;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.util.Objects.requireNonNull;
@@ -146,6 +159,64 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testPageSourceBloomFilter()
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(BIGINT), 1_000, 0);
+        DriverContext driverContext = newDriverContext();
+        ColumnHandle column = new TestingColumnHandle("a");
+        TupleDomain<ColumnHandle> predicate = TupleDomain.withColumnDomains(ImmutableMap.of(column, Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 500L)), false)));
+        SplitBlockBloomFilter bloomFilter = SplitBlockBloomFilter.create(100, 0.01);
+        LongStream.range(0, 100).forEach(value -> bloomFilter.insert(SplitBlockBloomFilter.hashLong(value)));
+
+        List<RowExpression> projections = ImmutableList.of(field(0, BIGINT));
+        Supplier<CursorProcessor> cursorProcessor = expressionCompiler.compileCursorProcessor(driverContext.getSession().getSqlFunctionProperties(), Optional.empty(), projections, "key");
+        Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(driverContext.getSession().getSqlFunctionProperties(), Optional.empty(), projections);
+
+        List<Split> pageSourceSplits = new ArrayList<>();
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                (session, split, table, columns) -> {
+                    pageSourceSplits.add(split);
+                    return new FixedPageSource(ImmutableList.of(input));
+                },
+                cursorProcessor,
+                pageProcessor,
+                TESTING_TABLE_HANDLE,
+                ImmutableList.of(column),
+                ImmutableList.of(BIGINT),
+                Optional.of(TupleDomain::all),
+                Optional.of(() -> ImmutableMap.of(column, bloomFilter)),
+                new DataSize(0, BYTE),
+                0);
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(
+                new ScheduledSplit(
+                        0,
+                        operator.getSourceId(),
+                        new Split(
+                                new ConnectorId("test"),
+                                TestingTransactionHandle.create(),
+                                TestingSplit.createLocalSplit(),
+                                Lifespan.taskWide(),
+                                new SplitContext(true, predicate))));
+        operator.noMoreSplits();
+
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT), toPages(operator));
+
+        // the Bloom filters are provided to the connector along with the predicate of the split
+        SplitContext splitContext = getOnlyElement(pageSourceSplits).getSplitContext();
+        assertTrue(splitContext.isCacheable());
+        assertEquals(splitContext.getDynamicFilterPredicate(), Optional.of(predicate));
+        assertEquals(splitContext.getDynamicFilterBloomFilters(), ImmutableMap.of(column, bloomFilter));
+
+        // the rows are only filtered by the connector
+        assertEquals(actual.getRowCount(), input.getPositionCount());
+    }
+
     @Test
     public void testPageSourceMergeOutput()
     {
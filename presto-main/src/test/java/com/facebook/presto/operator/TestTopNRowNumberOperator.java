@@ -43,6 +43,7 @@ import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static com.facebook.presto.operator.TopNRowNumberOperator.TopNRowNumberOperatorFactory;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
@@ -137,6 +138,59 @@ public class TestTopNRowNumberOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testPartitionedWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, DOUBLE);
+        List<Page> input = rowPagesBuilder
+                .row(1L, 0.3)
+                .row(2L, 0.2)
+                .row(3L, 0.1)
+                .row(3L, 0.91)
+                .pageBreak()
+                .row(1L, 0.4)
+                .pageBreak()
+                .row(1L, 0.5)
+                .row(1L, 0.6)
+                .row(2L, 0.7)
+                .row(2L, 0.8)
+                .pageBreak()
+                .row(2L, 0.9)
+                .build();
+
+        DummyPartitioningSpillerFactory partitioningSpillerFactory = new DummyPartitioningSpillerFactory();
+        TopNRowNumberOperatorFactory operatorFactory = new TopNRowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                hashEnabled ? Ints.asList(1, 0, 2) : Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                3,
+                false,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                joinCompiler,
+                true,
+                partitioningSpillerFactory);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
+                .row(0.3, 1L, 1L)
+                .row(0.4, 1L, 2L)
+                .row(0.5, 1L, 3L)
+                .row(0.2, 2L, 1L)
+                .row(0.7, 2L, 2L)
+                .row(0.8, 2L, 3L)
+                .row(0.1, 3L, 1L)
+                .row(0.91, 3L, 2L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, hashEnabled, Optional.of(2), true);
+        assertGreaterThan(partitioningSpillerFactory.getSpilledPages(), 0L);
+    }
+
     @Test(dataProvider = "partial")
     public void testUnPartitioned(boolean partial)
     {
@@ -17,6 +17,8 @@ import com.facebook.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import com.facebook.airlift.http.client.HttpClient;
 import com.facebook.airlift.http.client.HttpUriBuilder;
 import com.facebook.airlift.http.client.Request;
+import com.facebook.airlift.http.client.Response;
+import com.facebook.airlift.http.client.ResponseHandler;
 import com.facebook.airlift.http.client.StatusResponseHandler;
 import com.facebook.airlift.http.client.jetty.JettyHttpClient;
 import com.facebook.airlift.json.JsonCodec;
@@ -24,30 +26,49 @@ import com.facebook.airlift.testing.Closeables;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.common.type.TimeZoneNotSupportedException;
+import com.facebook.presto.execution.buffer.SpooledResultsManager;
 import com.facebook.presto.server.testing.TestingPrestoServer;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.function.SqlFunctionId;
 import com.facebook.presto.spi.function.SqlInvokedFunction;
+import com.facebook.presto.sql.parser.SqlParserOptions;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import com.google.common.io.ByteStreams;
+import com.google.inject.Key;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static com.facebook.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static com.facebook.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static com.facebook.airlift.http.client.Request.Builder.prepareDelete;
 import static com.facebook.airlift.http.client.Request.Builder.prepareGet;
 import static com.facebook.airlift.http.client.Request.Builder.prepareHead;
 import static com.facebook.airlift.http.client.Request.Builder.preparePost;
+import static com.facebook.airlift.http.client.ResponseHandlerUtils.propagate;
 import static com.facebook.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static com.facebook.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static com.facebook.airlift.http.client.StringResponseHandler.createStringResponseHandler;
 import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.airlift.json.JsonCodec.mapJsonCodec;
 import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_COUNT;
 import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_MEMORY;
+import static com.facebook.presto.SystemSessionProperties.SPOOLED_QUERY_RESULTS_ENABLED;
+import static com.facebook.presto.client.BinaryDataUtils.decodeSegment;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_BINARY_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLIENT_INFO;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREPARED_STATEMENT;
@@ -55,6 +76,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SESSION_FUNCTION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SOURCE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_SPOOLED_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_STARTED_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TIME_ZONE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TRANSACTION_ID;
@@ -63,6 +85,7 @@ import static com.facebook.presto.server.TestHttpRequestSessionContext.createFun
 import static com.facebook.presto.server.TestHttpRequestSessionContext.createSqlFunctionIdAdd;
 import static com.facebook.presto.server.TestHttpRequestSessionContext.urlEncode;
 import static com.facebook.presto.spi.StandardErrorCode.INCOMPATIBLE_CLIENT;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
@@ -71,11 +94,13 @@ import static javax.ws.rs.core.Response.Status.OK;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestServer
 {
     private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+    private static final JsonCodec<Map<String, Object>> RAW_RESULTS_CODEC = mapJsonCodec(String.class, Object.class);
 
     private static final SqlFunctionId SQL_FUNCTION_ID_ADD = createSqlFunctionIdAdd();
     private static final SqlInvokedFunction SQL_FUNCTION_ADD = createFunctionAdd();
@@ -191,6 +216,95 @@ public class TestServer
         assertEquals(rows, ImmutableList.of(ImmutableList.of("system")));
     }
 
+    @Test
+    public void testBinaryResults()
+    {
+        Request request = preparePost()
+                .setUri(uriFor("/v1/statement"))
+                .setBodyGenerator(createStaticBodyGenerator("SELECT * FROM (VALUES (1, 'a'), (2, 'b'), (3, NULL))", UTF_8))
+                .setHeader(PRESTO_USER, "user")
+                .setHeader(PRESTO_SOURCE, "source")
+                .setHeader(PRESTO_BINARY_RESULTS, "true")
+                .build();
+
+        QueryResults queryResults = QUERY_RESULTS_CODEC.fromJson(client.execute(request, createStringResponseHandler()).getBody());
+
+        ImmutableSet.Builder<List<Object>> data = ImmutableSet.builder();
+        boolean binaryData = false;
+        while (queryResults.getNextUri() != null) {
+            String json = client.execute(prepareGet().setUri(queryResults.getNextUri()).setHeader(PRESTO_BINARY_RESULTS, "true").build(), createStringResponseHandler()).getBody();
+            Map<String, Object> rawResults = RAW_RESULTS_CODEC.fromJson(json);
+            assertNull(rawResults.get("data"));
+            binaryData |= rawResults.get("binaryData") != null;
+
+            queryResults = QUERY_RESULTS_CODEC.fromJson(json);
+            if (queryResults.getData() != null) {
+                data.addAll(queryResults.getData());
+            }
+        }
+        assertNull(queryResults.getError());
+        assertTrue(binaryData);
+        assertEquals(data.build(), ImmutableSet.of(ImmutableList.of(1, "a"), ImmutableList.of(2, "b"), Arrays.asList(3, null)));
+    }
+
+    @Test
+    public void testSpooledResults()
+            throws Exception
+    {
+        try (TestingPrestoServer spoolingServer = new TestingPrestoServer(
+                true,
+                ImmutableMap.of("spooled-query-results-segment-size", "1kB"),
+                null,
+                null,
+                new SqlParserOptions(),
+                ImmutableList.of())) {
+            // the results are larger than a segment, so they are downloaded from the spooled segments
+            List<List<Object>> rows = executeSpooled(spoolingServer, "SELECT * FROM UNNEST(sequence(1, 5000))", true);
+            assertEquals(rows.size(), 5000);
+            assertEquals(ImmutableSet.copyOf(rows), ContiguousSet.create(Range.closed(1L, 5000L), DiscreteDomain.longs()).stream()
+                    .map(ImmutableList::of)
+                    .collect(toImmutableSet()));
+            assertEquals(spoolingServer.getInstance(Key.get(SpooledResultsManager.class)).getSegmentCount(), 0);
+
+            // small results are sent inline
+            rows = executeSpooled(spoolingServer, "SELECT * FROM (VALUES (1, 'a'), (2, 'b'))", false);
+            assertEquals(ImmutableSet.copyOf(rows), ImmutableSet.of(ImmutableList.of(1, "a"), ImmutableList.of(2, "b")));
+        }
+    }
+
+    private List<List<Object>> executeSpooled(TestingPrestoServer spoolingServer, String sql, boolean expectSegments)
+    {
+        Request request = preparePost()
+                .setUri(spoolingServer.resolve("/v1/statement"))
+                .setBodyGenerator(createStaticBodyGenerator(sql, UTF_8))
+                .setHeader(PRESTO_USER, "user")
+                .setHeader(PRESTO_SOURCE, "source")
+                .setHeader(PRESTO_SESSION, SPOOLED_QUERY_RESULTS_ENABLED + "=true")
+                .setHeader(PRESTO_SPOOLED_RESULTS, "true")
+                .build();
+
+        QueryResults queryResults = client.execute(request, createJsonResponseHandler(QUERY_RESULTS_CODEC));
+        ImmutableList.Builder<List<Object>> data = ImmutableList.builder();
+        boolean segments = false;
+        while (queryResults.getNextUri() != null) {
+            queryResults = client.execute(prepareGet().setUri(queryResults.getNextUri()).setHeader(PRESTO_SPOOLED_RESULTS, "true").build(), createJsonResponseHandler(QUERY_RESULTS_CODEC));
+            if (queryResults.getData() != null) {
+                data.addAll(queryResults.getData());
+            }
+            if (queryResults.getSegments() != null) {
+                segments = true;
+                for (URI segment : queryResults.getSegments()) {
+                    byte[] bytes = client.execute(prepareGet().setUri(segment).build(), new BytesResponseHandler());
+                    data.addAll(decodeSegment(queryResults.getColumns(), bytes));
+                    client.execute(prepareDelete().setUri(segment).build(), createStatusResponseHandler());
+                }
+            }
+        }
+        assertNull(queryResults.getError());
+        assertEquals(segments, expectSegments);
+        return data.build();
+    }
+
     @Test
     public void testTransactionSupport()
     {
@@ -253,4 +367,26 @@ public class TestServer
     {
         return HttpUriBuilder.uriBuilderFrom(server.getBaseUrl()).replacePath(path).build();
     }
+
+    private static class BytesResponseHandler
+            implements ResponseHandler<byte[], RuntimeException>
+    {
+        @Override
+        public byte[] handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public byte[] handle(Request request, Response response)
+        {
+            assertEquals(response.getStatusCode(), OK.getStatusCode());
+            try {
+                return ByteStreams.toByteArray(response.getInputStream());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
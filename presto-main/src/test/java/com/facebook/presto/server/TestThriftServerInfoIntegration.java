@@ -44,6 +44,7 @@ import com.facebook.presto.server.testing.TestingPrestoServer;
 import com.facebook.presto.server.thrift.ThriftServerInfoClient;
 import com.facebook.presto.server.thrift.ThriftServerInfoService;
 import com.facebook.presto.spi.NodeState;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -62,6 +63,7 @@ import org.testng.annotations.Test;
 import javax.inject.Singleton;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.airlift.configuration.ConfigBinder.configBinder;
@@ -215,6 +217,12 @@ public class TestThriftServerInfoIntegration
                     throw new UnsupportedOperationException();
                 }
 
+                @Override
+                public BufferResult prefetchTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, int maxPages)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
                 @Override
                 public void acknowledgeTaskResults(TaskId taskId, OutputBufferId bufferId, long sequenceId)
                 {
@@ -244,6 +252,18 @@ public class TestThriftServerInfoIntegration
                 {
                     throw new UnsupportedOperationException();
                 }
+
+                @Override
+                public Map<String, DynamicFilterSummary> getTaskDynamicFilters(TaskId taskId)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void addTaskDynamicFilters(TaskId taskId, Map<String, DynamicFilterSummary> dynamicFilters)
+                {
+                    throw new UnsupportedOperationException();
+                }
             };
         }
     }
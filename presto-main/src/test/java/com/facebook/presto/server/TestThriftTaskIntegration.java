@@ -42,6 +42,7 @@ import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.metadata.MetadataUpdates;
 import com.facebook.presto.server.thrift.ThriftTaskClient;
 import com.facebook.presto.server.thrift.ThriftTaskService;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.net.HostAndPort;
@@ -60,6 +61,7 @@ import org.testng.annotations.Test;
 import javax.inject.Singleton;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -245,6 +247,12 @@ public class TestThriftTaskIntegration
                     return Futures.immediateFuture(emptyResults("test", 1, true));
                 }
 
+                @Override
+                public BufferResult prefetchTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, int maxPages)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
                 @Override
                 public void acknowledgeTaskResults(TaskId taskId, OutputBufferId bufferId, long sequenceId)
                 {
@@ -280,6 +288,18 @@ public class TestThriftTaskIntegration
                 {
                     throw new UnsupportedOperationException();
                 }
+
+                @Override
+                public Map<String, DynamicFilterSummary> getTaskDynamicFilters(TaskId taskId)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void addTaskDynamicFilters(TaskId taskId, Map<String, DynamicFilterSummary> dynamicFilters)
+                {
+                    throw new UnsupportedOperationException();
+                }
             };
         }
     }
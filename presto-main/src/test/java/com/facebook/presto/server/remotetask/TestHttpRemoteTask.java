@@ -60,6 +60,7 @@ import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.facebook.presto.sql.Serialization;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.testing.TestingHandleResolver;
 import com.facebook.presto.testing.TestingSplit;
@@ -298,6 +299,7 @@ public class TestHttpRemoteTask
                         jsonCodecBinder(binder).bindJsonCodec(TaskUpdateRequest.class);
                         jsonCodecBinder(binder).bindJsonCodec(PlanFragment.class);
                         jsonCodecBinder(binder).bindJsonCodec(MetadataUpdates.class);
+                        jsonCodecBinder(binder).bindMapJsonCodec(String.class, DynamicFilterSummary.class);
                         jsonBinder(binder).addKeySerializerBinding(VariableReferenceExpression.class).to(Serialization.VariableReferenceExpressionSerializer.class);
                         jsonBinder(binder).addKeyDeserializerBinding(VariableReferenceExpression.class).to(Serialization.VariableReferenceExpressionDeserializer.class);
                         thriftCodecBinder(binder).bindThriftCodec(TaskStatus.class);
@@ -322,7 +324,8 @@ public class TestHttpRemoteTask
                             JsonCodec<PlanFragment> planFragmentJsonCodec,
                             SmileCodec<PlanFragment> planFragmentSmileCodec,
                             JsonCodec<MetadataUpdates> metadataUpdatesJsonCodec,
-                            SmileCodec<MetadataUpdates> metadataUpdatesSmileCodec)
+                            SmileCodec<MetadataUpdates> metadataUpdatesSmileCodec,
+                            JsonCodec<Map<String, DynamicFilterSummary>> dynamicFiltersCodec)
                     {
                         JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper, thriftMapper);
                         TestingHttpClient testingHttpClient = new TestingHttpClient(jaxrsTestingHttpProcessor.setTrace(TRACE_HTTP));
@@ -344,6 +347,7 @@ public class TestHttpRemoteTask
                                 planFragmentSmileCodec,
                                 metadataUpdatesJsonCodec,
                                 metadataUpdatesSmileCodec,
+                                dynamicFiltersCodec,
                                 new RemoteTaskStats(),
                                 new InternalCommunicationConfig().setThriftTransportEnabled(useThriftEncoding),
                                 createTestMetadataManager(),
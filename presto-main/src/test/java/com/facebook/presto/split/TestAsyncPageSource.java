@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestAsyncPageSource
+{
+    private static final List<Page> PAGES = ImmutableList.of(
+            new Page(createLongSequenceBlock(0, 10)),
+            new Page(createLongSequenceBlock(10, 20)),
+            new Page(createLongSequenceBlock(20, 30)));
+
+    @Test
+    public void testReadAllPages()
+            throws IOException
+    {
+        try (ConnectorPageSource pageSource = new AsyncPageSource(new FixedPageSource(PAGES), directExecutor(), getClass().getClassLoader())) {
+            List<Page> pages = new ArrayList<>();
+            while (!pageSource.isFinished()) {
+                assertTrue(pageSource.isBlocked().isDone());
+                Page page = pageSource.getNextPage();
+                if (page != null) {
+                    pages.add(page);
+                }
+            }
+            assertEquals(pages, PAGES);
+        }
+    }
+
+    @Test
+    public void testBlockedWhileReading()
+            throws IOException
+    {
+        ManualExecutor executor = new ManualExecutor();
+        try (ConnectorPageSource pageSource = new AsyncPageSource(new FixedPageSource(PAGES), executor, getClass().getClassLoader())) {
+            assertTrue(pageSource.isBlocked().isDone());
+
+            // the first call starts the read
+            assertNull(pageSource.getNextPage());
+            CompletableFuture<?> blocked = pageSource.isBlocked();
+            assertFalse(blocked.isDone());
+            assertFalse(pageSource.isFinished());
+
+            executor.runAll();
+            assertTrue(blocked.isDone());
+            assertSame(pageSource.getNextPage(), PAGES.get(0));
+
+            // the next page is read ahead
+            assertFalse(pageSource.isBlocked().isDone());
+            executor.runAll();
+            assertTrue(pageSource.getSystemMemoryUsage() >= PAGES.get(1).getRetainedSizeInBytes());
+            assertSame(pageSource.getNextPage(), PAGES.get(1));
+        }
+    }
+
+    @Test
+    public void testCloseWhileReading()
+            throws IOException
+    {
+        ManualExecutor executor = new ManualExecutor();
+        FixedPageSource delegate = new FixedPageSource(PAGES);
+        ConnectorPageSource pageSource = new AsyncPageSource(delegate, executor, getClass().getClassLoader());
+
+        assertNull(pageSource.getNextPage());
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+
+        // the delegate is closed once the pending read completes
+        assertFalse(delegate.isFinished());
+        executor.runAll();
+        assertTrue(delegate.isFinished());
+    }
+
+    @Test
+    public void testStatsNotReadDuringRead()
+            throws IOException
+    {
+        ManualExecutor executor = new ManualExecutor();
+        StatsCheckingPageSource delegate = new StatsCheckingPageSource(PAGES);
+        try (ConnectorPageSource pageSource = new AsyncPageSource(delegate, executor, getClass().getClassLoader())) {
+            long memoryUsage = pageSource.getSystemMemoryUsage();
+            assertNull(pageSource.getNextPage());
+            delegate.setReading(true);
+
+            // the values captured before the read are reported while it is pending
+            assertEquals(pageSource.getCompletedPositions(), 0);
+            assertEquals(pageSource.getCompletedBytes(), 0);
+            assertEquals(pageSource.getReadTimeNanos(), 0);
+            assertEquals(pageSource.getSystemMemoryUsage(), memoryUsage);
+
+            delegate.setReading(false);
+            executor.runAll();
+            assertEquals(pageSource.getCompletedPositions(), PAGES.get(0).getPositionCount());
+            assertEquals(pageSource.getCompletedBytes(), PAGES.get(0).getSizeInBytes());
+        }
+    }
+
+    private static class StatsCheckingPageSource
+            extends FixedPageSource
+    {
+        private boolean reading;
+
+        public StatsCheckingPageSource(List<Page> pages)
+        {
+            super(pages);
+        }
+
+        public void setReading(boolean reading)
+        {
+            this.reading = reading;
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            checkNotReading();
+            return super.getCompletedBytes();
+        }
+
+        @Override
+        public long getCompletedPositions()
+        {
+            checkNotReading();
+            return super.getCompletedPositions();
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            checkNotReading();
+            return super.getReadTimeNanos();
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            checkNotReading();
+            return super.getSystemMemoryUsage();
+        }
+
+        private void checkNotReading()
+        {
+            assertFalse(reading, "statistics read while the page source is reading");
+        }
+    }
+
+    private static class ManualExecutor
+            implements Executor
+    {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command)
+        {
+            tasks.add(command);
+        }
+
+        public void runAll()
+        {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.sql.analyzer;
 
 import com.facebook.airlift.configuration.ConfigurationFactory;
 import com.facebook.airlift.configuration.testing.ConfigAssertions;
+import com.facebook.presto.execution.buffer.CompressionCodec;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.facebook.presto.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -29,10 +30,15 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
 import java.util.Map;
 
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static com.facebook.airlift.testing.ValidationAssertions.assertFailsValidation;
+import static com.facebook.airlift.testing.ValidationAssertions.assertValidates;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationPartitioningMergingStrategy.LEGACY;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationPartitioningMergingStrategy.TOP_DOWN;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType.BROADCAST;
@@ -47,6 +53,7 @@ import static com.facebook.presto.sql.analyzer.RegexLibrary.RE2J;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -105,6 +112,10 @@ public class TestFeaturesConfig
                 .setOrderByAggregationSpillEnabled(true)
                 .setWindowSpillEnabled(true)
                 .setOrderBySpillEnabled(true)
+                .setTopNRowNumberSpillEnabled(true)
+                .setRowNumberSpillEnabled(true)
+                .setMarkDistinctSpillEnabled(true)
+                .setSemiJoinSpillEnabled(true)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("4MB"))
                 .setSpillerSpillPaths("")
                 .setSpillerThreads(4)
@@ -125,6 +136,9 @@ public class TestFeaturesConfig
                 .setDynamicFilteringMaxPerDriverRowCount(100)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(10, KILOBYTE))
                 .setDynamicFilteringRangeRowLimitPerDriver(0)
+                .setDynamicFilteringBloomFilterRowLimitPerDriver(0)
+                .setEnableDistributedDynamicFiltering(false)
+                .setDistributedDynamicFilteringWaitTimeout(new Duration(1, SECONDS))
                 .setFragmentResultCachingEnabled(false)
                 .setEnableStatsCalculator(true)
                 .setEnableStatsCollectionForTemporaryTable(false)
@@ -132,6 +146,9 @@ public class TestFeaturesConfig
                 .setPrintStatsForNonJoinQuery(false)
                 .setDefaultFilterFactorEnabled(false)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeCompressionCodec(CompressionCodec.LZ4)
+                .setExchangeCompressionLevel(3)
+                .setExchangeAdaptiveCompressionEnabled(false)
                 .setExchangeChecksumEnabled(false)
                 .setLegacyTimestamp(true)
                 .setLegacyRowFieldOrdinalAccess(false)
@@ -142,6 +159,7 @@ public class TestFeaturesConfig
                 .setParseDecimalLiteralsAsDouble(false)
                 .setForceSingleNodeOutput(true)
                 .setPagesIndexEagerCompactionEnabled(false)
+                .setPagesIndexRadixSortEnabled(false)
                 .setFilterAndProjectMinOutputPageSize(new DataSize(500, KILOBYTE))
                 .setFilterAndProjectMinOutputPageRowCount(256)
                 .setUseMarkDistinct(true)
@@ -185,6 +203,12 @@ public class TestFeaturesConfig
                 .setSpoolingOutputBufferEnabled(false)
                 .setSpoolingOutputBufferThreshold(new DataSize(8, MEGABYTE))
                 .setSpoolingOutputBufferTempStorage("local")
+                .setSpooledQueryResultsEnabled(false)
+                .setSpooledQueryResultsSegmentSize(new DataSize(4, MEGABYTE))
+                .setSpooledQueryResultsTempStorage("local")
+                .setSpooledQueryResultsTtl(new Duration(1, HOURS))
+                .setPersistentExchangeEnabled(false)
+                .setPersistentExchangeTempStorage("local")
                 .setPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled(false)
                 .setPartialResultsEnabled(false)
                 .setPartialResultsCompletionRatioThreshold(0.5)
@@ -197,6 +221,9 @@ public class TestFeaturesConfig
                 .setAggregationIfToFilterRewriteStrategy(AggregationIfToFilterRewriteStrategy.DISABLED)
                 .setAnalyzerType("BUILTIN")
                 .setStreamingForPartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationMinRows(100_000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8)
                 .setMaxStageCountForEagerScheduling(25)
                 .setHyperloglogStandardErrorWarningThreshold(0.004)
                 .setPreferMergeJoin(false)
@@ -228,6 +255,9 @@ public class TestFeaturesConfig
                 .put("experimental.dynamic-filtering-max-per-driver-row-count", "256")
                 .put("experimental.dynamic-filtering-max-per-driver-size", "64kB")
                 .put("experimental.dynamic-filtering-range-row-limit-per-driver", "1000")
+                .put("experimental.dynamic-filtering-bloom-filter-row-limit-per-driver", "1000000")
+                .put("experimental.enable-distributed-dynamic-filtering", "true")
+                .put("experimental.distributed-dynamic-filtering-wait-timeout", "5s")
                 .put("experimental.fragment-result-caching-enabled", "true")
                 .put("experimental.enable-stats-calculator", "false")
                 .put("experimental.enable-stats-collection-for-temporary-table", "true")
@@ -286,6 +316,10 @@ public class TestFeaturesConfig
                 .put("experimental.order-by-aggregation-spill-enabled", "false")
                 .put("experimental.window-spill-enabled", "false")
                 .put("experimental.order-by-spill-enabled", "false")
+                .put("experimental.topn-row-number-spill-enabled", "false")
+                .put("experimental.row-number-spill-enabled", "false")
+                .put("experimental.mark-distinct-spill-enabled", "false")
+                .put("experimental.semi-join-spill-enabled", "false")
                 .put("experimental.aggregation-operator-unspill-memory-limit", "100MB")
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .put("experimental.spiller-threads", "42")
@@ -298,12 +332,16 @@ public class TestFeaturesConfig
                 .put("experimental.spiller.spiller-temp-storage", "crail")
                 .put("experimental.spiller.max-revocable-task-memory", "1GB")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.compression-codec", "ZSTD")
+                .put("exchange.compression-level", "7")
+                .put("exchange.adaptive-compression-enabled", "true")
                 .put("exchange.checksum-enabled", "true")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
                 .put("optimizer.force-single-node-output", "false")
                 .put("pages-index.eager-compaction-enabled", "true")
+                .put("pages-index.radix-sort-enabled", "true")
                 .put("experimental.filter-and-project-min-output-page-size", "1MB")
                 .put("experimental.filter-and-project-min-output-page-row-count", "2048")
                 .put("histogram.implementation", "LEGACY")
@@ -347,6 +385,12 @@ public class TestFeaturesConfig
                 .put("spooling-output-buffer-enabled", "true")
                 .put("spooling-output-buffer-threshold", "16MB")
                 .put("spooling-output-buffer-temp-storage", "tempfs")
+                .put("spooled-query-results-enabled", "true")
+                .put("spooled-query-results-segment-size", "16MB")
+                .put("spooled-query-results-temp-storage", "tempfs")
+                .put("spooled-query-results-ttl", "10m")
+                .put("persistent-exchange-enabled", "true")
+                .put("persistent-exchange-temp-storage", "tempfs")
                 .put("spark.assign-bucket-to-partition-for-partitioned-table-write-enabled", "true")
                 .put("partial-results-enabled", "true")
                 .put("partial-results-completion-ratio-threshold", "0.9")
@@ -359,6 +403,9 @@ public class TestFeaturesConfig
                 .put("verbose-runtime-stats-enabled", "true")
                 .put("optimizer.aggregation-if-to-filter-rewrite-strategy", "filter_with_if")
                 .put("streaming-for-partial-aggregation-enabled", "true")
+                .put("adaptive-partial-aggregation-enabled", "true")
+                .put("adaptive-partial-aggregation-min-rows", "1000")
+                .put("adaptive-partial-aggregation-unique-rows-ratio-threshold", "0.5")
                 .put("execution-policy.max-stage-count-for-eager-scheduling", "123")
                 .put("hyperloglog-standard-error-warning-threshold", "0.02")
                 .put("optimizer.prefer-merge-join", "true")
@@ -387,6 +434,9 @@ public class TestFeaturesConfig
                 .setDynamicFilteringMaxPerDriverRowCount(256)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(64, KILOBYTE))
                 .setDynamicFilteringRangeRowLimitPerDriver(1000)
+                .setDynamicFilteringBloomFilterRowLimitPerDriver(1000000)
+                .setEnableDistributedDynamicFiltering(true)
+                .setDistributedDynamicFilteringWaitTimeout(new Duration(5, SECONDS))
                 .setFragmentResultCachingEnabled(true)
                 .setEnableStatsCalculator(false)
                 .setEnableStatsCollectionForTemporaryTable(true)
@@ -440,6 +490,10 @@ public class TestFeaturesConfig
                 .setOrderByAggregationSpillEnabled(false)
                 .setWindowSpillEnabled(false)
                 .setOrderBySpillEnabled(false)
+                .setTopNRowNumberSpillEnabled(false)
+                .setRowNumberSpillEnabled(false)
+                .setMarkDistinctSpillEnabled(false)
+                .setSemiJoinSpillEnabled(false)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"))
                 .setSpillerSpillPaths("/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .setSpillerThreads(42)
@@ -453,6 +507,9 @@ public class TestFeaturesConfig
                 .setMaxRevocableMemoryPerTask(new DataSize(1, GIGABYTE))
                 .setLegacyLogFunction(true)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeCompressionCodec(CompressionCodec.ZSTD)
+                .setExchangeCompressionLevel(7)
+                .setExchangeAdaptiveCompressionEnabled(true)
                 .setExchangeChecksumEnabled(true)
                 .setLegacyTimestamp(false)
                 .setLegacyRowFieldOrdinalAccess(true)
@@ -462,6 +519,7 @@ public class TestFeaturesConfig
                 .setParseDecimalLiteralsAsDouble(true)
                 .setForceSingleNodeOutput(false)
                 .setPagesIndexEagerCompactionEnabled(true)
+                .setPagesIndexRadixSortEnabled(true)
                 .setFilterAndProjectMinOutputPageSize(new DataSize(1, MEGABYTE))
                 .setFilterAndProjectMinOutputPageRowCount(2048)
                 .setUseMarkDistinct(false)
@@ -507,6 +565,12 @@ public class TestFeaturesConfig
                 .setSpoolingOutputBufferEnabled(true)
                 .setSpoolingOutputBufferThreshold(new DataSize(16, MEGABYTE))
                 .setSpoolingOutputBufferTempStorage("tempfs")
+                .setSpooledQueryResultsEnabled(true)
+                .setSpooledQueryResultsSegmentSize(new DataSize(16, MEGABYTE))
+                .setSpooledQueryResultsTempStorage("tempfs")
+                .setSpooledQueryResultsTtl(new Duration(10, MINUTES))
+                .setPersistentExchangeEnabled(true)
+                .setPersistentExchangeTempStorage("tempfs")
                 .setPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled(true)
                 .setPartialResultsEnabled(true)
                 .setPartialResultsCompletionRatioThreshold(0.9)
@@ -519,6 +583,9 @@ public class TestFeaturesConfig
                 .setAggregationIfToFilterRewriteStrategy(AggregationIfToFilterRewriteStrategy.FILTER_WITH_IF)
                 .setAnalyzerType("CRUX")
                 .setStreamingForPartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationMinRows(1000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.5)
                 .setMaxStageCountForEagerScheduling(123)
                 .setHyperloglogStandardErrorWarningThreshold(0.02)
                 .setPreferMergeJoin(true)
@@ -543,4 +610,13 @@ public class TestFeaturesConfig
         new ConfigurationFactory(ImmutableMap.of(SPILL_ENABLED, "true"))
                 .build(FeaturesConfig.class);
     }
+
+    @Test
+    public void testExchangeCompressionLevelValidation()
+    {
+        assertValidates(new FeaturesConfig().setExchangeCompressionLevel(-5));
+        assertValidates(new FeaturesConfig().setExchangeCompressionLevel(22));
+        assertFailsValidation(new FeaturesConfig().setExchangeCompressionLevel(23), "exchangeCompressionLevel", "must be less than or equal to 22", Max.class);
+        assertFailsValidation(new FeaturesConfig().setExchangeCompressionLevel(-(1 << 17) - 1), "exchangeCompressionLevel", "must be greater than or equal to -131072", Min.class);
+    }
 }
@@ -16,7 +16,10 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.facebook.presto.sql.planner.assertions.BasePlanTest;
@@ -45,6 +48,7 @@ import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.testing.assertions.Assert.assertEquals;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestLocalDynamicFilter
         extends BasePlanTest
@@ -122,6 +126,52 @@ public class TestLocalDynamicFilter
                 new VariableReferenceExpression(Optional.empty(), "a", INTEGER), Domain.multipleValues(INTEGER, ImmutableList.of(10L, 20L)))));
     }
 
+    @Test
+    public void testMultiplePartitionsWithBloomFilters()
+            throws ExecutionException, InterruptedException
+    {
+        VariableReferenceExpression probeVariable = new VariableReferenceExpression(Optional.empty(), "a", INTEGER);
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMultimap.of("123", new DynamicFilterPlaceholder("123", probeVariable, EQUAL)),
+                ImmutableMap.of("123", 0),
+                2);
+        ListenableFuture<Map<VariableReferenceExpression, SplitBlockBloomFilter>> bloomFilterResult = filter.getBloomFilterResultFuture();
+
+        SplitBlockBloomFilter partitionBloomFilter = SplitBlockBloomFilter.create(100, 0.01);
+        partitionBloomFilter.insert(SplitBlockBloomFilter.hash(INTEGER, 10L));
+        filter.getBloomFilterConsumer().accept(
+                TupleDomain.withColumnDomains(ImmutableMap.of("123", Domain.create(ValueSet.ofRanges(Range.range(INTEGER, 10L, true, 15L, true)), false))),
+                ImmutableMap.of("123", partitionBloomFilter));
+        assertFalse(bloomFilterResult.isDone());
+
+        // the values of the partitions with an exact predicate are added to the Bloom filter
+        filter.getTupleDomainConsumer().accept(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "123", Domain.singleValue(INTEGER, 20L))));
+        SplitBlockBloomFilter bloomFilter = bloomFilterResult.get().get(probeVariable);
+        assertTrue(bloomFilter.mightContainLong(10L));
+        assertTrue(bloomFilter.mightContainLong(20L));
+        // the Bloom filters of the partitions are not modified
+        assertFalse(partitionBloomFilter.mightContainLong(20L));
+        assertEquals(filter.getResultFuture().get(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                probeVariable, Domain.create(ValueSet.ofRanges(Range.range(INTEGER, 10L, true, 15L, true), Range.equal(INTEGER, 20L)), false))));
+    }
+
+    @Test
+    public void testBloomFiltersWithRangePartition()
+            throws ExecutionException, InterruptedException
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMultimap.of("123", new DynamicFilterPlaceholder("123", new VariableReferenceExpression(Optional.empty(), "a", INTEGER), EQUAL)),
+                ImmutableMap.of("123", 0),
+                2);
+
+        filter.getBloomFilterConsumer().accept(TupleDomain.all(), ImmutableMap.of("123", SplitBlockBloomFilter.create(100, 0.01)));
+        // a partition without Bloom filter nor exact predicate could not be represented by the merged Bloom filter
+        filter.getTupleDomainConsumer().accept(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "123", Domain.create(ValueSet.ofRanges(Range.range(INTEGER, 10L, true, 15L, true)), false))));
+        assertEquals(filter.getBloomFilterResultFuture().get(), ImmutableMap.of());
+    }
+
     @Test
     public void testNone()
             throws ExecutionException, InterruptedException
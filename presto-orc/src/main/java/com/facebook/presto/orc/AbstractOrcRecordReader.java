@@ -96,6 +96,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
     private int maxBatchSize = MAX_BATCH_SIZE;
 
     private final List<StripeInformation> stripes;
+    private final Set<Integer> includedOrcColumns;
     private final StripeReader stripeReader;
     private int currentStripe = -1;
     private OrcAggregatedMemoryContext currentStripeSystemMemoryContext;
@@ -108,6 +109,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
     private Iterator<RowGroup> rowGroups = ImmutableList.<RowGroup>of().iterator();
     private int currentRowGroup = -1;
     private int currentGroupRowCount;
+    private long currentGroupRowOffset;
     private int nextRowInGroup;
 
     private final long[] maxBytesPerCell;
@@ -242,7 +244,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
 
         this.currentStripeSystemMemoryContext = this.systemMemoryUsage.newOrcAggregatedMemoryContext();
 
-        Set<Integer> includedOrcColumns = getIncludedOrcColumns(types, this.presentColumns, requireNonNull(requiredSubfields, "requiredSubfields is null"));
+        this.includedOrcColumns = ImmutableSet.copyOf(getIncludedOrcColumns(types, this.presentColumns, requireNonNull(requiredSubfields, "requiredSubfields is null")));
         this.encryptionLibrary = encryptionLibrary;
         this.dwrfEncryptionGroupMap = ImmutableMap.copyOf(dwrfEncryptionGroupMap);
         this.intermediateKeyMetadata = createIntermediateKeysMap(columnToIntermediateKeyMap, dwrfEncryptionGroupMap, orcDataSource.getId());
@@ -489,6 +491,14 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         return totalRowCount;
     }
 
+    /**
+     * @return the ORC columns, including the nested ones, whose streams are read
+     */
+    public Set<Integer> getIncludedOrcColumns()
+    {
+        return includedOrcColumns;
+    }
+
     public long getSplitLength()
     {
         return splitLength;
@@ -560,6 +570,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         currentRowGroup++;
         RowGroup currentRowGroup = rowGroups.next();
         currentGroupRowCount = toIntExact(currentRowGroup.getRowCount());
+        currentGroupRowOffset = currentRowGroup.getRowOffset();
         if (currentRowGroup.getMinAverageRowBytes() > 0) {
             maxBatchSize = adjustMaxBatchSize(maxBatchSize, maxBlockBytes, currentRowGroup.getMinAverageRowBytes());
         }
@@ -583,6 +594,24 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         return toIntExact(min(maxBatchSize, max(1, maxBlockBytes / averageRowBytes)));
     }
 
+    protected long getCurrentStripeOffset()
+    {
+        return stripes.get(currentStripe).getOffset();
+    }
+
+    /**
+     * @return the offset of the first row of the current row group in the current stripe
+     */
+    protected long getCurrentGroupRowOffset()
+    {
+        return currentGroupRowOffset;
+    }
+
+    protected int getCurrentGroupRowCount()
+    {
+        return currentGroupRowCount;
+    }
+
     protected int getNextRowInGroup()
     {
         return nextRowInGroup;
@@ -707,7 +736,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         }
     }
 
-    private static Map<Integer, ColumnStatistics> getStatisticsByColumnOrdinal(OrcType rootStructType, List<ColumnStatistics> fileStats)
+    static Map<Integer, ColumnStatistics> getStatisticsByColumnOrdinal(OrcType rootStructType, List<ColumnStatistics> fileStats)
     {
         requireNonNull(rootStructType, "rootStructType is null");
         checkArgument(rootStructType.getOrcTypeKind() == STRUCT);
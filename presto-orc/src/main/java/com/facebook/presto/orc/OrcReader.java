@@ -19,6 +19,7 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.predicate.FilterFunction;
 import com.facebook.presto.common.predicate.TupleDomainFilter;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.orc.cache.DecodedBlockCache;
 import com.facebook.presto.orc.cache.OrcFileTailSource;
 import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.CompressionKind;
@@ -32,7 +33,10 @@ import com.facebook.presto.orc.metadata.Metadata;
 import com.facebook.presto.orc.metadata.OrcFileTail;
 import com.facebook.presto.orc.metadata.OrcType;
 import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
+import com.facebook.presto.orc.metadata.StripeFooter;
 import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
 import com.facebook.presto.orc.stream.OrcInputStream;
 import com.facebook.presto.orc.stream.SharedBuffer;
 import com.google.common.annotations.VisibleForTesting;
@@ -51,10 +55,12 @@ import java.util.TimeZone;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import static com.facebook.presto.orc.AbstractOrcRecordReader.getStatisticsByColumnOrdinal;
 import static com.facebook.presto.orc.DwrfEncryptionInfo.createNodeToGroupMap;
 import static com.facebook.presto.orc.NoopOrcAggregatedMemoryContext.NOOP_ORC_AGGREGATED_MEMORY_CONTEXT;
 import static com.facebook.presto.orc.NoopOrcLocalMemoryContext.NOOP_ORC_LOCAL_MEMORY_CONTEXT;
 import static com.facebook.presto.orc.OrcDecompressor.createOrcDecompressor;
+import static com.facebook.presto.orc.cache.DecodedBlockCache.disabledDecodedBlockCache;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -287,6 +293,37 @@ public class OrcReader
         return metadata;
     }
 
+    /**
+     * @return the statistics of the columns of a stripe by the ordinal of the column, or empty if the file does not have stripe statistics
+     */
+    public Optional<Map<Integer, ColumnStatistics>> getStripeStatisticsByColumnOrdinal(int stripe)
+    {
+        List<StripeStatistics> stripeStatistics = metadata.getStripeStatsList();
+        if (stripeStatistics.size() != footer.getStripes().size()) {
+            return Optional.empty();
+        }
+        return Optional.of(getStatisticsByColumnOrdinal(footer.getTypes().get(0), stripeStatistics.get(stripe).getColumnStatistics()));
+    }
+
+    /**
+     * Decodes the footer of a stripe that is read by the caller.
+     */
+    public StripeFooter readStripeFooter(Slice footerSlice)
+            throws IOException
+    {
+        try (InputStream inputStream = new OrcInputStream(
+                orcDataSource.getId(),
+                // Memory is not accounted as the buffer is expected to be tiny and will be immediately discarded
+                new SharedBuffer(NOOP_ORC_LOCAL_MEMORY_CONTEXT),
+                footerSlice.getInput(),
+                decompressor,
+                Optional.empty(),
+                NOOP_ORC_AGGREGATED_MEMORY_CONTEXT,
+                footerSlice.length())) {
+            return metadataReader.readStripeFooter(orcDataSource.getId(), footer.getTypes(), inputStream);
+        }
+    }
+
     public int getBufferSize()
     {
         return bufferSize;
@@ -383,6 +420,48 @@ public class OrcReader
             OrcAggregatedMemoryContext systemMemoryUsage,
             Optional<OrcWriteValidation> writeValidation,
             int initialBatchSize)
+    {
+        return createSelectiveRecordReader(
+                includedColumns,
+                outputColumns,
+                filters,
+                filterFunctions,
+                filterFunctionInputs,
+                requiredSubfields,
+                constantValues,
+                coercers,
+                predicate,
+                offset,
+                length,
+                hiveStorageTimeZone,
+                systemMemoryUsage,
+                writeValidation,
+                initialBatchSize,
+                disabledDecodedBlockCache(),
+                0);
+    }
+
+    /**
+     * @param fileModificationTime part of the decoded block cache key, so that a rewritten file does not return stale values
+     */
+    public OrcSelectiveRecordReader createSelectiveRecordReader(
+            Map<Integer, Type> includedColumns,
+            List<Integer> outputColumns,
+            Map<Integer, Map<Subfield, TupleDomainFilter>> filters,
+            List<FilterFunction> filterFunctions,
+            Map<Integer, Integer> filterFunctionInputs,
+            Map<Integer, List<Subfield>> requiredSubfields,
+            Map<Integer, Object> constantValues,
+            Map<Integer, Function<Block, Block>> coercers,
+            OrcPredicate predicate,
+            long offset,
+            long length,
+            DateTimeZone hiveStorageTimeZone,
+            OrcAggregatedMemoryContext systemMemoryUsage,
+            Optional<OrcWriteValidation> writeValidation,
+            int initialBatchSize,
+            DecodedBlockCache decodedBlockCache,
+            long fileModificationTime)
     {
         return new OrcSelectiveRecordReader(
                 includedColumns,
@@ -418,7 +497,9 @@ public class OrcReader
                 stripeMetadataSource,
                 cacheable,
                 runtimeStats,
-                fileIntrospector);
+                fileIntrospector,
+                decodedBlockCache,
+                fileModificationTime);
     }
 
     private static OrcDataSource wrapWithCacheIfTiny(OrcDataSource dataSource, DataSize maxCacheSize, OrcAggregatedMemoryContext systemMemoryContext)
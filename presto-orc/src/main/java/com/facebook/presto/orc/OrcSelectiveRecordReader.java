@@ -31,6 +31,8 @@ import com.facebook.presto.common.predicate.TupleDomainFilter.BigintValuesUsingH
 import com.facebook.presto.common.type.CharType;
 import com.facebook.presto.common.type.DecimalType;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.orc.cache.DecodedBlockCache;
+import com.facebook.presto.orc.cache.DecodedBlockCache.DecodedBlockId;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcType;
 import com.facebook.presto.orc.metadata.PostScript;
@@ -110,6 +112,16 @@ public class OrcSelectiveRecordReader
 
     private final OrcLocalMemoryContext localMemoryContext;
 
+    // the values of the output columns without filters are read a row group at a time through the decoded block cache
+    private final DecodedBlockCache decodedBlockCache;
+    private final long fileModificationTime;
+    private final boolean[] cachedColumns;                            // aligned with hiveColumnIndices array
+    private final Block[] rowGroupBlocks;                             // aligned with hiveColumnIndices array; values of the current row group
+    private final boolean[] rowGroupBlocksMissing;                    // aligned with hiveColumnIndices array
+
+    // An immutable list of the positions of a row group: 0,1,2,3,4,..
+    private int[] rowGroupPositions;
+
     // Optimal order of stream readers
     private int[] streamReaderOrder;                                  // elements are indices into hiveColumnIndices array
 
@@ -187,7 +199,9 @@ public class OrcSelectiveRecordReader
             StripeMetadataSource stripeMetadataSource,
             boolean cacheable,
             RuntimeStats runtimeStats,
-            Optional<OrcFileIntrospector> fileIntrospector)
+            Optional<OrcFileIntrospector> fileIntrospector,
+            DecodedBlockCache decodedBlockCache,
+            long fileModificationTime)
     {
         super(includedColumns,
                 requiredSubfields,
@@ -257,6 +271,21 @@ public class OrcSelectiveRecordReader
 
         this.localMemoryContext = systemMemoryUsage.newOrcLocalMemoryContext(OrcSelectiveRecordReader.class.getSimpleName());
 
+        // the decoded values of encrypted columns are not shared, since the users may not have access to the keys
+        this.decodedBlockCache = requireNonNull(decodedBlockCache, "decodedBlockCache is null");
+        this.fileModificationTime = fileModificationTime;
+        this.cachedColumns = new boolean[this.hiveColumnIndices.length];
+        if (decodedBlockCache.isEnabled() && cacheable && !encryptionLibrary.isPresent()) {
+            for (int columnIndex : this.outputColumns) {
+                cachedColumns[columnIndex] = this.hiveColumnIndices[columnIndex] >= 0 &&
+                        !columnsWithFilterScores.containsKey(columnIndex) &&
+                        !this.filterFunctionInputMapping.containsKey(columnIndex) &&
+                        !requiredSubfields.containsKey(this.hiveColumnIndices[columnIndex]);
+            }
+        }
+        this.rowGroupBlocks = new Block[this.hiveColumnIndices.length];
+        this.rowGroupBlocksMissing = new boolean[this.hiveColumnIndices.length];
+
         requireNonNull(coercers, "coercers is null");
         this.coercers = new Function[this.hiveColumnIndices.length];
         for (Map.Entry<Integer, Function<Block, Block>> entry : coercers.entrySet()) {
@@ -636,6 +665,10 @@ public class OrcSelectiveRecordReader
         if (batchSize < 0) {
             return null;
         }
+        if (getNextRowInGroup() == 0) {
+            Arrays.fill(rowGroupBlocks, null);
+            Arrays.fill(rowGroupBlocksMissing, false);
+        }
         readPositions += batchSize;
         initializePositions(batchSize);
 
@@ -761,7 +794,11 @@ public class OrcSelectiveRecordReader
                 sizeOf(positions) +
                 sizeOf(outputPositions) +
                 sizeOf(errors) +
-                sizeOf(tmpErrors);
+                sizeOf(tmpErrors) +
+                sizeOf(cachedColumns) +
+                sizeOf(rowGroupBlocks) +
+                sizeOf(rowGroupBlocksMissing) +
+                sizeOf(rowGroupPositions);
     }
 
     private SelectiveStreamReader getStreamReader(int columnIndex)
@@ -769,6 +806,66 @@ public class OrcSelectiveRecordReader
         return getStreamReaders()[hiveColumnIndices[columnIndex]];
     }
 
+    /**
+     * @return the values of the current row group of the column, or null if the column is read a batch at a time
+     */
+    @Nullable
+    private Block getRowGroupBlock(int columnIndex, int offset)
+            throws IOException
+    {
+        if (!cachedColumns[columnIndex] || rowGroupBlocksMissing[columnIndex]) {
+            return null;
+        }
+        if (rowGroupBlocks[columnIndex] != null) {
+            return rowGroupBlocks[columnIndex];
+        }
+
+        DecodedBlockId id = new DecodedBlockId(
+                getOrcDataSourceId(),
+                fileModificationTime,
+                getCurrentStripeOffset(),
+                getCurrentGroupRowOffset(),
+                hiveColumnIndices[columnIndex],
+                columnTypes.get(columnIndex));
+        Block block = decodedBlockCache.get(id);
+        // the stream reader can only read the whole row group before it has read any row of it
+        if (block == null && offset == 0) {
+            block = readRowGroup(getStreamReader(columnIndex));
+            decodedBlockCache.put(id, block);
+        }
+        rowGroupBlocks[columnIndex] = block;
+        rowGroupBlocksMissing[columnIndex] = block == null;
+        return block;
+    }
+
+    private Block readRowGroup(SelectiveStreamReader streamReader)
+            throws IOException
+    {
+        int rowCount = getCurrentGroupRowCount();
+        if (rowGroupPositions == null || rowGroupPositions.length < rowCount) {
+            rowGroupPositions = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                rowGroupPositions[i] = i;
+            }
+        }
+
+        streamReader.read(0, rowGroupPositions, rowCount);
+        return streamReader.getBlock(rowGroupPositions, rowCount);
+    }
+
+    private static Block getBatchPositions(Block rowGroupBlock, int offset, int[] positions, int positionCount)
+    {
+        if (positionCount == 0 || positions[positionCount - 1] - positions[0] == positionCount - 1) {
+            return rowGroupBlock.getRegion(positionCount == 0 ? 0 : offset + positions[0], positionCount);
+        }
+
+        int[] rowGroupPositions = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            rowGroupPositions[i] = offset + positions[i];
+        }
+        return rowGroupBlock.copyPositions(rowGroupPositions, 0, positionCount);
+    }
+
     private boolean hasAnyFilter(int columnIndex)
     {
         return columnsWithFilterScores.containsKey(columnIndex) || filterFunctionInputMapping.containsKey(columnIndex);
@@ -933,8 +1030,16 @@ public class OrcSelectiveRecordReader
                 return;
             }
 
+            Block block;
             try {
-                reader.read(offset, positions, positionCount);
+                Block rowGroupBlock = getRowGroupBlock(columnIndex, offset);
+                if (rowGroupBlock != null) {
+                    block = getBatchPositions(rowGroupBlock, offset, positions, positionCount);
+                }
+                else {
+                    reader.read(offset, positions, positionCount);
+                    block = reader.getBlock(positions, positionCount);
+                }
             }
             catch (IOException e) {
                 OrcSelectiveRecordReader.this.getOrcDataSourceId().attachToException(e);
@@ -945,7 +1050,6 @@ public class OrcSelectiveRecordReader
                 throw e;
             }
 
-            Block block = reader.getBlock(positions, positionCount);
             if (coercer != null) {
                 block = coercer.apply(block);
             }
@@ -179,7 +179,6 @@ public class TupleDomainOrcPredicate<C>
         return true;
     }
 
-    @VisibleForTesting
     public static Domain getDomain(Type type, long rowCount, ColumnStatistics columnStatistics)
     {
         if (rowCount == 0) {
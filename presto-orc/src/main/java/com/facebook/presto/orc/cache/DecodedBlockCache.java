@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.google.common.cache.Cache;
+
+import javax.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caches the decoded values of the columns of the row groups of ORC files, which are shared by the readers of a worker.
+ */
+public class DecodedBlockCache
+{
+    private final Optional<Cache<DecodedBlockId, Block>> cache;
+
+    public DecodedBlockCache(Cache<DecodedBlockId, Block> cache)
+    {
+        this(Optional.of(requireNonNull(cache, "cache is null")));
+    }
+
+    private DecodedBlockCache(Optional<Cache<DecodedBlockId, Block>> cache)
+    {
+        this.cache = cache;
+    }
+
+    public static DecodedBlockCache disabledDecodedBlockCache()
+    {
+        return new DecodedBlockCache(Optional.empty());
+    }
+
+    public boolean isEnabled()
+    {
+        return cache.isPresent();
+    }
+
+    @Nullable
+    public Block get(DecodedBlockId id)
+    {
+        return cache.map(blocks -> blocks.getIfPresent(id)).orElse(null);
+    }
+
+    public void put(DecodedBlockId id, Block block)
+    {
+        cache.ifPresent(blocks -> blocks.put(id, block));
+    }
+
+    public static class DecodedBlockId
+    {
+        private final OrcDataSourceId sourceId;
+        private final long modificationTime;
+        private final long stripeOffset;
+        private final long rowGroupOffset;
+        private final int column;
+        private final Type type;
+
+        /**
+         * @param rowGroupOffset the offset of the first row of the row group in the stripe
+         * @param column the ordinal of the column in the file
+         * @param type the type the column is read as
+         */
+        public DecodedBlockId(OrcDataSourceId sourceId, long modificationTime, long stripeOffset, long rowGroupOffset, int column, Type type)
+        {
+            this.sourceId = requireNonNull(sourceId, "sourceId is null");
+            this.modificationTime = modificationTime;
+            this.stripeOffset = stripeOffset;
+            this.rowGroupOffset = rowGroupOffset;
+            this.column = column;
+            this.type = requireNonNull(type, "type is null");
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DecodedBlockId that = (DecodedBlockId) o;
+            return modificationTime == that.modificationTime &&
+                    stripeOffset == that.stripeOffset &&
+                    rowGroupOffset == that.rowGroupOffset &&
+                    column == that.column &&
+                    Objects.equals(sourceId, that.sourceId) &&
+                    Objects.equals(type, that.type);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sourceId, modificationTime, stripeOffset, rowGroupOffset, column, type);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("sourceId", sourceId)
+                    .add("modificationTime", modificationTime)
+                    .add("stripeOffset", stripeOffset)
+                    .add("rowGroupOffset", rowGroupOffset)
+                    .add("column", column)
+                    .add("type", type)
+                    .toString();
+        }
+    }
+}
@@ -40,6 +40,10 @@ public class OrcCacheConfig
     private DataSize rowGroupIndexCacheSize = new DataSize(0, BYTE);
     private Duration rowGroupIndexCacheTtlSinceLastAccess = new Duration(0, SECONDS);
 
+    private boolean decodedBlockCacheEnabled;
+    private DataSize decodedBlockCacheSize = new DataSize(0, BYTE);
+    private Duration decodedBlockCacheTtlSinceLastAccess = new Duration(0, SECONDS);
+
     private boolean dwrfStripeCacheEnabled;
     private DataSize expectedFileTailSize = new DataSize(EXPECTED_FOOTER_SIZE_IN_BYTES, BYTE);
 
@@ -193,6 +197,49 @@ public class OrcCacheConfig
         return this;
     }
 
+    public boolean isDecodedBlockCacheEnabled()
+    {
+        return decodedBlockCacheEnabled;
+    }
+
+    @Config("orc.decoded-block-cache-enabled")
+    @ConfigDescription("Enable cache for the decoded values of the columns of row groups")
+    public OrcCacheConfig setDecodedBlockCacheEnabled(boolean decodedBlockCacheEnabled)
+    {
+        this.decodedBlockCacheEnabled = decodedBlockCacheEnabled;
+        return this;
+    }
+
+    @MinDataSize("0B")
+    public DataSize getDecodedBlockCacheSize()
+    {
+        return decodedBlockCacheSize;
+    }
+
+    // The cache is shared by all the queries of a worker, and is not accounted in the memory pools of the queries.
+    // The size should be reserved out of the heap by raising memory.heap-headroom-per-node accordingly.
+    @Config("orc.decoded-block-cache-size")
+    @ConfigDescription("Size of the decoded block cache")
+    public OrcCacheConfig setDecodedBlockCacheSize(DataSize decodedBlockCacheSize)
+    {
+        this.decodedBlockCacheSize = decodedBlockCacheSize;
+        return this;
+    }
+
+    @MinDuration("0s")
+    public Duration getDecodedBlockCacheTtlSinceLastAccess()
+    {
+        return decodedBlockCacheTtlSinceLastAccess;
+    }
+
+    @Config("orc.decoded-block-cache-ttl-since-last-access")
+    @ConfigDescription("Time-to-live for decoded block cache entry after last access")
+    public OrcCacheConfig setDecodedBlockCacheTtlSinceLastAccess(Duration decodedBlockCacheTtlSinceLastAccess)
+    {
+        this.decodedBlockCacheTtlSinceLastAccess = decodedBlockCacheTtlSinceLastAccess;
+        return this;
+    }
+
     public boolean isDwrfStripeCacheEnabled()
     {
         return dwrfStripeCacheEnabled;
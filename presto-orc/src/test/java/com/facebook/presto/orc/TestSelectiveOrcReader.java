@@ -15,6 +15,7 @@ package com.facebook.presto.orc;
 
 import com.facebook.presto.common.InvalidFunctionArgumentException;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.Subfield;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.predicate.TupleDomainFilter;
@@ -33,8 +34,13 @@ import com.facebook.presto.common.type.SqlTimestamp;
 import com.facebook.presto.common.type.SqlVarbinary;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.orc.OrcTester.OrcReaderSettings;
+import com.facebook.presto.orc.cache.DecodedBlockCache;
+import com.facebook.presto.orc.cache.DecodedBlockCache.DecodedBlockId;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
@@ -46,10 +52,12 @@ import com.google.common.collect.Streams;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
 import org.joda.time.DateTimeZone;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,6 +69,7 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static com.facebook.airlift.testing.Assertions.assertBetweenInclusive;
 import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NOT_NULL;
@@ -78,7 +87,9 @@ import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
 import static com.facebook.presto.orc.NoOpOrcWriterStats.NOOP_WRITER_STATS;
+import static com.facebook.presto.orc.NoopOrcAggregatedMemoryContext.NOOP_ORC_AGGREGATED_MEMORY_CONTEXT;
 import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
 import static com.facebook.presto.orc.OrcTester.Format.DWRF;
 import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
@@ -101,6 +112,7 @@ import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.cycle;
 import static com.google.common.collect.Iterables.limit;
 import static com.google.common.collect.Lists.newArrayList;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.nCopies;
 import static java.util.stream.Collectors.toList;
@@ -1096,6 +1108,92 @@ public class TestSelectiveOrcReader
         }
     }
 
+    @Test
+    public void testDecodedBlockCache()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, BIGINT);
+        TempFile tempFile = new TempFile();
+
+        // three row groups of 10000 rows
+        List<Long> keys = LongStream.range(0, 30_000).boxed().collect(toImmutableList());
+        List<Long> values = keys.stream().map(key -> key * 2).collect(toImmutableList());
+        writeOrcColumnsPresto(tempFile.getFile(), DWRF, NONE, Optional.empty(), types, ImmutableList.of(keys, values), NOOP_WRITER_STATS);
+
+        Cache<DecodedBlockId, Block> cache = CacheBuilder.newBuilder()
+                .maximumSize(100)
+                .recordStats()
+                .build();
+        DecodedBlockCache decodedBlockCache = new DecodedBlockCache(cache);
+
+        // the first rows of every batch are filtered out, so that the values are read at an offset into the cached row groups
+        Map<Integer, Map<Subfield, TupleDomainFilter>> filters = ImmutableMap.of(0, ImmutableMap.of(new Subfield("c"), BigintRange.of(100, Long.MAX_VALUE, false)));
+        List<Long> expectedValues = values.subList(100, values.size());
+
+        assertDecodedBlockCacheRead(tempFile, types, filters, decodedBlockCache, expectedValues);
+        assertEquals(cache.stats().missCount(), 3);
+        assertEquals(cache.stats().hitCount(), 0);
+        assertEquals(cache.size(), 3);
+
+        assertDecodedBlockCacheRead(tempFile, types, filters, decodedBlockCache, expectedValues);
+        assertEquals(cache.stats().missCount(), 3);
+        assertEquals(cache.stats().hitCount(), 3);
+    }
+
+    private static void assertDecodedBlockCacheRead(
+            TempFile tempFile,
+            List<Type> types,
+            Map<Integer, Map<Subfield, TupleDomainFilter>> filters,
+            DecodedBlockCache decodedBlockCache,
+            List<Long> expectedValues)
+            throws IOException
+    {
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+        OrcReader orcReader = new OrcReader(
+                orcDataSource,
+                DWRF.getOrcEncoding(),
+                new StorageOrcFileTailSource(),
+                new StorageStripeMetadataSource(),
+                NOOP_ORC_AGGREGATED_MEMORY_CONTEXT,
+                OrcReaderOptions.builder()
+                        .withMaxMergeDistance(new DataSize(1, MEGABYTE))
+                        .withTinyStripeThreshold(new DataSize(1, MEGABYTE))
+                        .withMaxBlockSize(MAX_BLOCK_SIZE)
+                        .build(),
+                true,
+                NO_ENCRYPTION,
+                DwrfKeyProvider.EMPTY,
+                new RuntimeStats());
+
+        try (OrcSelectiveRecordReader recordReader = orcReader.createSelectiveRecordReader(
+                ImmutableMap.of(0, types.get(0), 1, types.get(1)),
+                ImmutableList.of(1),
+                filters,
+                ImmutableList.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                OrcPredicate.TRUE,
+                0,
+                orcDataSource.getSize(),
+                HIVE_STORAGE_TIME_ZONE,
+                new TestingHiveOrcAggregatedMemoryContext(),
+                Optional.empty(),
+                MAX_BATCH_SIZE,
+                decodedBlockCache,
+                tempFile.getFile().lastModified())) {
+            List<Long> actualValues = new ArrayList<>();
+            for (Page page = recordReader.getNextPage(); page != null; page = recordReader.getNextPage()) {
+                Block block = page.getBlock(0).getLoadedBlock();
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    actualValues.add(BIGINT.getLong(block, position));
+                }
+            }
+            assertEquals(actualValues, expectedValues);
+        }
+    }
+
     @Test
     public void testAdaptiveBatchSizes()
             throws Exception
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ColumnReader} that decodes only some positions of the next batch.
+ */
+public interface SelectiveColumnReader
+        extends ColumnReader
+{
+    /**
+     * Decodes the values at the given positions of the next batch and keeps the positions whose
+     * values pass the filter. The values of the other positions are skipped in the value decoders,
+     * and the filter is evaluated once per dictionary entry for dictionary encoded pages.
+     * The positions must be sorted. The kept positions are written to the front of the array.
+     *
+     * @param filter the filter of the column, or null to keep all the given positions
+     * @return the number of kept positions
+     */
+    int read(int[] positions, int positionCount, @Nullable TupleDomainFilter filter);
+
+    /**
+     * Returns the values decoded by the last {@link #read} at the given positions, which must be a
+     * subset of the kept positions.
+     */
+    Block getBlock(int[] positions, int positionCount);
+}
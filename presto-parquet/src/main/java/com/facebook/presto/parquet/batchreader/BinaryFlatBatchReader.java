@@ -17,15 +17,18 @@ package com.facebook.presto.parquet.batchreader;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.block.VariableWidthBlock;
-import com.facebook.presto.parquet.ColumnReader;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
 import com.facebook.presto.parquet.DataPage;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
 import com.facebook.presto.parquet.batchreader.decoders.Decoders.FlatDecoders;
 import com.facebook.presto.parquet.batchreader.decoders.FlatDefinitionLevelDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder.ValueBuffer;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.DictionaryValuesDecoder;
+import com.facebook.presto.parquet.batchreader.dictionary.BinaryBatchDictionary;
 import com.facebook.presto.parquet.batchreader.dictionary.Dictionaries;
 import com.facebook.presto.parquet.dictionary.Dictionary;
 import com.facebook.presto.parquet.reader.ColumnChunk;
@@ -34,9 +37,11 @@ import com.facebook.presto.spi.PrestoException;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.apache.parquet.internal.filter2.columnindex.RowRanges;
+import org.apache.parquet.io.ParquetDecodingException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -44,10 +49,12 @@ import java.util.Optional;
 import static com.facebook.presto.parquet.ParquetErrorCode.PARQUET_IO_READ_ERROR;
 import static com.facebook.presto.parquet.batchreader.decoders.Decoders.readFlatPage;
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 public class BinaryFlatBatchReader
-        implements ColumnReader
+        implements SelectiveColumnReader
 {
     private final RichColumnDescriptor columnDescriptor;
 
@@ -61,6 +68,20 @@ public class BinaryFlatBatchReader
     private int readOffset;
     private PageReader pageReader;
 
+    // positions and values kept by the last selective read
+    private int[] selectedPositions = new int[0];
+    private int[] selectedOffsets = new int[1];
+    private byte[] selectedBytes = new byte[0];
+    private boolean[] selectedNulls = new boolean[0];
+    private int selectedCount;
+    private boolean selectedHasNulls;
+
+    private boolean[] chunkNulls = new boolean[0];
+    private int[] runDictionaryIds = new int[0];
+    private int[] runOffsets = new int[0];
+    private byte[] runBytes = new byte[0];
+    private final DictionaryFilterResults dictionaryFilterResults = new DictionaryFilterResults();
+
     public BinaryFlatBatchReader(RichColumnDescriptor columnDescriptor)
     {
         this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
@@ -115,6 +136,209 @@ public class BinaryFlatBatchReader
         return columnChunk;
     }
 
+    @Override
+    public int read(int[] positions, int positionCount, TupleDomainFilter filter)
+    {
+        checkArgument(positionCount == 0 || positions[positionCount - 1] < nextBatchSize, "positions are out of the batch");
+        try {
+            seek();
+            if (selectedPositions.length < positionCount) {
+                selectedPositions = new int[positionCount];
+                selectedOffsets = new int[positionCount + 1];
+                selectedNulls = new boolean[positionCount];
+            }
+            selectedCount = 0;
+            selectedHasNulls = false;
+
+            int batchOffset = 0;
+            int positionIndex = 0;
+            while (positionIndex < positionCount) {
+                if (remainingCountInPage == 0 && !readNextPage()) {
+                    throw new ParquetDecodingException(format("Corrupted Parquet file: position %d of the batch is beyond the end of column %s", positions[positionIndex], columnDescriptor));
+                }
+
+                // the rows of the page after the last position of the batch are left to the next seek
+                int pageEnd = batchOffset + remainingCountInPage;
+                int pagePositionEnd = positionIndex;
+                while (pagePositionEnd < positionCount && positions[pagePositionEnd] < pageEnd) {
+                    pagePositionEnd++;
+                }
+                int chunkSize = pagePositionEnd == positionCount ? positions[positionCount - 1] + 1 - batchOffset : remainingCountInPage;
+                readPositionsInPage(positions, positionIndex, pagePositionEnd, batchOffset, chunkSize, filter);
+
+                batchOffset += chunkSize;
+                positionIndex = pagePositionEnd;
+                remainingCountInPage -= chunkSize;
+            }
+
+            readOffset = nextBatchSize - batchOffset;
+            nextBatchSize = 0;
+        }
+        catch (IOException exception) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
+        }
+
+        System.arraycopy(selectedPositions, 0, positions, 0, selectedCount);
+        return selectedCount;
+    }
+
+    @Override
+    public Block getBlock(int[] positions, int positionCount)
+    {
+        int[] selectedIndexes = new int[positionCount];
+        int bufferSize = 0;
+        int selectedIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (selectedIndex < selectedCount && selectedPositions[selectedIndex] < positions[i]) {
+                selectedIndex++;
+            }
+            checkArgument(selectedIndex < selectedCount && selectedPositions[selectedIndex] == positions[i], "position %s was not kept by the last read", positions[i]);
+            selectedIndexes[i] = selectedIndex;
+            bufferSize += selectedOffsets[selectedIndex + 1] - selectedOffsets[selectedIndex];
+        }
+
+        byte[] byteBuffer = new byte[bufferSize];
+        int[] offsets = new int[positionCount + 1];
+        boolean[] isNull = selectedHasNulls ? new boolean[positionCount] : null;
+        for (int i = 0; i < positionCount; i++) {
+            int index = selectedIndexes[i];
+            int length = selectedOffsets[index + 1] - selectedOffsets[index];
+            System.arraycopy(selectedBytes, selectedOffsets[index], byteBuffer, offsets[i], length);
+            offsets[i + 1] = offsets[i] + length;
+            if (isNull != null) {
+                isNull[i] = selectedNulls[index];
+            }
+        }
+        return new VariableWidthBlock(positionCount, Slices.wrappedBuffer(byteBuffer), offsets, Optional.ofNullable(isNull));
+    }
+
+    private void readPositionsInPage(int[] positions, int positionStart, int positionEnd, int batchOffset, int chunkSize, TupleDomainFilter filter)
+            throws IOException
+    {
+        boolean[] isNull = null;
+        if (!field.isRequired()) {
+            if (chunkNulls.length < chunkSize) {
+                chunkNulls = new boolean[chunkSize];
+            }
+            isNull = chunkNulls;
+            definitionLevelDecoder.readNext(isNull, 0, chunkSize);
+        }
+
+        int row = 0;
+        int positionIndex = positionStart;
+        while (positionIndex < positionEnd) {
+            // decode the consecutive positions together, and skip the values of the rows between them
+            int runStart = positions[positionIndex] - batchOffset;
+            int runEnd = runStart + 1;
+            positionIndex++;
+            while (positionIndex < positionEnd && positions[positionIndex] - batchOffset == runEnd) {
+                runEnd++;
+                positionIndex++;
+            }
+            skipValues(countNonNulls(isNull, row, runStart));
+            readRun(isNull, runStart, runEnd, batchOffset, filter);
+            row = runEnd;
+        }
+        skipValues(countNonNulls(isNull, row, chunkSize));
+    }
+
+    private void readRun(boolean[] isNull, int runStart, int runEnd, int batchOffset, TupleDomainFilter filter)
+            throws IOException
+    {
+        int nonNullCount = countNonNulls(isNull, runStart, runEnd);
+        // with a filter, dictionary encoded values are tested once per dictionary entry, and only the values that pass are copied
+        BinaryBatchDictionary binaryDictionary = null;
+        if (filter != null && valuesDecoder instanceof DictionaryValuesDecoder) {
+            binaryDictionary = (BinaryBatchDictionary) dictionary;
+            if (runDictionaryIds.length < nonNullCount) {
+                runDictionaryIds = new int[nonNullCount];
+            }
+            ((DictionaryValuesDecoder) valuesDecoder).readDictionaryIds(runDictionaryIds, 0, nonNullCount);
+        }
+        else if (nonNullCount > 0) {
+            ValueBuffer valueBuffer = valuesDecoder.readNext(nonNullCount);
+            if (runBytes.length < valueBuffer.getBufferSize()) {
+                runBytes = new byte[valueBuffer.getBufferSize()];
+            }
+            if (runOffsets.length < nonNullCount + 1) {
+                runOffsets = new int[nonNullCount + 1];
+            }
+            valuesDecoder.readIntoBuffer(runBytes, 0, runOffsets, 0, valueBuffer);
+        }
+
+        int valueIndex = 0;
+        for (int row = runStart; row < runEnd; row++) {
+            int selectedOffset = selectedOffsets[selectedCount];
+            if (isNull != null && isNull[row]) {
+                if (filter == null || filter.testNull()) {
+                    selectedPositions[selectedCount] = batchOffset + row;
+                    selectedNulls[selectedCount] = true;
+                    selectedHasNulls = true;
+                    selectedCount++;
+                    selectedOffsets[selectedCount] = selectedOffset;
+                }
+                continue;
+            }
+
+            int length;
+            if (binaryDictionary != null) {
+                int dictionaryId = runDictionaryIds[valueIndex++];
+                if (!dictionaryFilterResults.isTested(filter, dictionaryId)) {
+                    dictionaryFilterResults.record(dictionaryId, binaryDictionary.test(filter, dictionaryId));
+                }
+                if (!dictionaryFilterResults.isPassed(dictionaryId)) {
+                    continue;
+                }
+                length = binaryDictionary.getLength(dictionaryId);
+                ensureSelectedBytesCapacity(selectedOffset + length);
+                binaryDictionary.copyTo(selectedBytes, selectedOffset, dictionaryId);
+            }
+            else {
+                int start = runOffsets[valueIndex];
+                length = runOffsets[valueIndex + 1] - start;
+                valueIndex++;
+                if (filter != null && !filter.testBytes(runBytes, start, length)) {
+                    continue;
+                }
+                ensureSelectedBytesCapacity(selectedOffset + length);
+                System.arraycopy(runBytes, start, selectedBytes, selectedOffset, length);
+            }
+            selectedPositions[selectedCount] = batchOffset + row;
+            selectedNulls[selectedCount] = false;
+            selectedCount++;
+            selectedOffsets[selectedCount] = selectedOffset + length;
+        }
+    }
+
+    private void ensureSelectedBytesCapacity(int size)
+    {
+        if (selectedBytes.length < size) {
+            selectedBytes = Arrays.copyOf(selectedBytes, max(size, 2 * selectedBytes.length));
+        }
+    }
+
+    private void skipValues(int count)
+            throws IOException
+    {
+        if (count > 0) {
+            valuesDecoder.skip(count);
+        }
+    }
+
+    private static int countNonNulls(boolean[] isNull, int start, int end)
+    {
+        if (isNull == null) {
+            return end - start;
+        }
+        int nonNullCount = 0;
+        for (int i = start; i < end; i++) {
+            if (!isNull[i]) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
     protected boolean readNextPage()
     {
         definitionLevelDecoder = null;
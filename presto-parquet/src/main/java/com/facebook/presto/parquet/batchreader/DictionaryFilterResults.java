@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+
+/**
+ * Results of a filter on the entries of the dictionary of a column chunk, so that the filter is
+ * evaluated once per entry instead of once per row.
+ */
+final class DictionaryFilterResults
+{
+    private static final byte NOT_TESTED = 0;
+    private static final byte PASSED = 1;
+    private static final byte FAILED = 2;
+
+    private TupleDomainFilter filter;
+    private byte[] results = new byte[0];
+
+    public boolean isTested(TupleDomainFilter filter, int dictionaryId)
+    {
+        if (filter != this.filter) {
+            this.filter = filter;
+            Arrays.fill(results, NOT_TESTED);
+        }
+        if (dictionaryId >= results.length) {
+            results = Arrays.copyOf(results, max(dictionaryId + 1, 2 * results.length));
+        }
+        return results[dictionaryId] != NOT_TESTED;
+    }
+
+    public boolean isPassed(int dictionaryId)
+    {
+        return results[dictionaryId] == PASSED;
+    }
+
+    public void record(int dictionaryId, boolean passed)
+    {
+        results[dictionaryId] = passed ? PASSED : FAILED;
+    }
+}
@@ -16,13 +16,15 @@ package com.facebook.presto.parquet.batchreader;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.IntArrayBlock;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
-import com.facebook.presto.parquet.ColumnReader;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
 import com.facebook.presto.parquet.DataPage;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
 import com.facebook.presto.parquet.batchreader.decoders.Decoders.FlatDecoders;
 import com.facebook.presto.parquet.batchreader.decoders.FlatDefinitionLevelDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.DictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
 import com.facebook.presto.parquet.batchreader.dictionary.Dictionaries;
 import com.facebook.presto.parquet.dictionary.Dictionary;
@@ -42,7 +44,7 @@ import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 public class Int32FlatBatchReader
-        implements ColumnReader
+        implements SelectiveColumnReader
 {
     private final RichColumnDescriptor columnDescriptor;
 
@@ -56,6 +58,18 @@ public class Int32FlatBatchReader
     private int readOffset;
     private PageReader pageReader;
 
+    // positions and values kept by the last selective read
+    private int[] selectedPositions = new int[0];
+    private int[] selectedValues = new int[0];
+    private boolean[] selectedNulls = new boolean[0];
+    private int selectedCount;
+    private boolean selectedHasNulls;
+
+    private boolean[] chunkNulls = new boolean[0];
+    private int[] runDictionaryIds = new int[0];
+    private int[] runValues = new int[0];
+    private final DictionaryFilterResults dictionaryFilterResults = new DictionaryFilterResults();
+
     public Int32FlatBatchReader(RichColumnDescriptor columnDescriptor)
     {
         this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
@@ -110,6 +124,178 @@ public class Int32FlatBatchReader
         return columnChunk;
     }
 
+    @Override
+    public int read(int[] positions, int positionCount, TupleDomainFilter filter)
+    {
+        checkArgument(positionCount == 0 || positions[positionCount - 1] < nextBatchSize, "positions are out of the batch");
+        try {
+            seek();
+            if (selectedPositions.length < positionCount) {
+                selectedPositions = new int[positionCount];
+                selectedValues = new int[positionCount];
+                selectedNulls = new boolean[positionCount];
+            }
+            selectedCount = 0;
+            selectedHasNulls = false;
+
+            int batchOffset = 0;
+            int positionIndex = 0;
+            while (positionIndex < positionCount) {
+                if (remainingCountInPage == 0 && !readNextPage()) {
+                    throw new ParquetDecodingException(format("Corrupted Parquet file: position %d of the batch is beyond the end of column %s", positions[positionIndex], columnDescriptor));
+                }
+
+                // the rows of the page after the last position of the batch are left to the next seek
+                int pageEnd = batchOffset + remainingCountInPage;
+                int pagePositionEnd = positionIndex;
+                while (pagePositionEnd < positionCount && positions[pagePositionEnd] < pageEnd) {
+                    pagePositionEnd++;
+                }
+                int chunkSize = pagePositionEnd == positionCount ? positions[positionCount - 1] + 1 - batchOffset : remainingCountInPage;
+                readPositionsInPage(positions, positionIndex, pagePositionEnd, batchOffset, chunkSize, filter);
+
+                batchOffset += chunkSize;
+                positionIndex = pagePositionEnd;
+                remainingCountInPage -= chunkSize;
+            }
+
+            readOffset = nextBatchSize - batchOffset;
+            nextBatchSize = 0;
+        }
+        catch (IOException exception) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
+        }
+
+        System.arraycopy(selectedPositions, 0, positions, 0, selectedCount);
+        return selectedCount;
+    }
+
+    @Override
+    public Block getBlock(int[] positions, int positionCount)
+    {
+        int[] values = new int[positionCount];
+        boolean[] isNull = selectedHasNulls ? new boolean[positionCount] : null;
+        int selectedIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (selectedIndex < selectedCount && selectedPositions[selectedIndex] < positions[i]) {
+                selectedIndex++;
+            }
+            checkArgument(selectedIndex < selectedCount && selectedPositions[selectedIndex] == positions[i], "position %s was not kept by the last read", positions[i]);
+            values[i] = selectedValues[selectedIndex];
+            if (isNull != null) {
+                isNull[i] = selectedNulls[selectedIndex];
+            }
+        }
+        return new IntArrayBlock(positionCount, Optional.ofNullable(isNull), values);
+    }
+
+    private void readPositionsInPage(int[] positions, int positionStart, int positionEnd, int batchOffset, int chunkSize, TupleDomainFilter filter)
+            throws IOException
+    {
+        boolean[] isNull = null;
+        if (!field.isRequired()) {
+            if (chunkNulls.length < chunkSize) {
+                chunkNulls = new boolean[chunkSize];
+            }
+            isNull = chunkNulls;
+            definitionLevelDecoder.readNext(isNull, 0, chunkSize);
+        }
+
+        int row = 0;
+        int positionIndex = positionStart;
+        while (positionIndex < positionEnd) {
+            // decode the consecutive positions together, and skip the values of the rows between them
+            int runStart = positions[positionIndex] - batchOffset;
+            int runEnd = runStart + 1;
+            positionIndex++;
+            while (positionIndex < positionEnd && positions[positionIndex] - batchOffset == runEnd) {
+                runEnd++;
+                positionIndex++;
+            }
+            skipValues(countNonNulls(isNull, row, runStart));
+            readRun(isNull, runStart, runEnd, batchOffset, filter);
+            row = runEnd;
+        }
+        skipValues(countNonNulls(isNull, row, chunkSize));
+    }
+
+    private void readRun(boolean[] isNull, int runStart, int runEnd, int batchOffset, TupleDomainFilter filter)
+            throws IOException
+    {
+        int nonNullCount = countNonNulls(isNull, runStart, runEnd);
+        // with a filter, dictionary encoded values are tested once per dictionary entry, and only the values that pass are looked up
+        boolean readDictionaryIds = filter != null && valuesDecoder instanceof DictionaryValuesDecoder;
+        if (readDictionaryIds) {
+            if (runDictionaryIds.length < nonNullCount) {
+                runDictionaryIds = new int[nonNullCount];
+            }
+            ((DictionaryValuesDecoder) valuesDecoder).readDictionaryIds(runDictionaryIds, 0, nonNullCount);
+        }
+        else {
+            if (runValues.length < nonNullCount) {
+                runValues = new int[nonNullCount];
+            }
+            valuesDecoder.readNext(runValues, 0, nonNullCount);
+        }
+
+        int valueIndex = 0;
+        for (int row = runStart; row < runEnd; row++) {
+            if (isNull != null && isNull[row]) {
+                if (filter == null || filter.testNull()) {
+                    selectedPositions[selectedCount] = batchOffset + row;
+                    selectedNulls[selectedCount] = true;
+                    selectedHasNulls = true;
+                    selectedCount++;
+                }
+                continue;
+            }
+
+            int value;
+            if (readDictionaryIds) {
+                int dictionaryId = runDictionaryIds[valueIndex++];
+                if (!dictionaryFilterResults.isTested(filter, dictionaryId)) {
+                    dictionaryFilterResults.record(dictionaryId, filter.testLong(dictionary.decodeToInt(dictionaryId)));
+                }
+                if (!dictionaryFilterResults.isPassed(dictionaryId)) {
+                    continue;
+                }
+                value = dictionary.decodeToInt(dictionaryId);
+            }
+            else {
+                value = runValues[valueIndex++];
+                if (filter != null && !filter.testLong(value)) {
+                    continue;
+                }
+            }
+            selectedPositions[selectedCount] = batchOffset + row;
+            selectedValues[selectedCount] = value;
+            selectedNulls[selectedCount] = false;
+            selectedCount++;
+        }
+    }
+
+    private void skipValues(int count)
+            throws IOException
+    {
+        if (count > 0) {
+            valuesDecoder.skip(count);
+        }
+    }
+
+    private static int countNonNulls(boolean[] isNull, int start, int end)
+    {
+        if (isNull == null) {
+            return end - start;
+        }
+        int nonNullCount = 0;
+        for (int i = start; i < end; i++) {
+            if (!isNull[i]) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
     protected boolean readNextPage()
     {
         definitionLevelDecoder = null;
@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader.decoders;
+
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder.ValueBuffer;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.LongDecimalValuesDecoder;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the unscaled values of a long decimal stored as big-endian two's complement bytes,
+ * in either a BINARY or a FIXED_LEN_BYTE_ARRAY column, with any of the byte array encodings.
+ * The values are converted to the sign and magnitude representation of {@code UnscaledDecimal128Arithmetic}.
+ */
+public class BinaryLongDecimalValuesDecoder
+        implements LongDecimalValuesDecoder
+{
+    private static final long SIGN_LONG_MASK = 1L << 63;
+
+    private final BinaryValuesDecoder delegate;
+
+    private byte[] byteBuffer = new byte[0];
+    private int[] offsets = new int[0];
+
+    public BinaryLongDecimalValuesDecoder(BinaryValuesDecoder delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public void readNext(long[] values, int offset, int length)
+            throws IOException
+    {
+        ValueBuffer valueBuffer = delegate.readNext(length);
+        if (byteBuffer.length < valueBuffer.getBufferSize()) {
+            byteBuffer = new byte[valueBuffer.getBufferSize()];
+        }
+        if (offsets.length < length + 1) {
+            offsets = new int[length + 1];
+        }
+        delegate.readIntoBuffer(byteBuffer, 0, offsets, 0, valueBuffer);
+
+        final byte[] localByteBuffer = byteBuffer;
+        final int[] localOffsets = offsets;
+        for (int i = 0; i < length; i++) {
+            int start = localOffsets[i];
+            int end = localOffsets[i + 1];
+
+            // sign extend the big-endian two's complement value to 128 bits
+            long high = start < end && localByteBuffer[start] < 0 ? -1 : 0;
+            long low = high;
+            for (int index = start; index < end; index++) {
+                high = (high << 8) | (low >>> 56);
+                low = (low << 8) | (localByteBuffer[index] & 0xFFL);
+            }
+
+            if (high < 0) {
+                low = -low;
+                high = ~high + (low == 0 ? 1 : 0);
+                high |= SIGN_LONG_MASK;
+            }
+            values[2 * (offset + i)] = low;
+            values[2 * (offset + i) + 1] = high;
+        }
+    }
+
+    @Override
+    public void skip(int length)
+            throws IOException
+    {
+        delegate.skip(length);
+    }
+}
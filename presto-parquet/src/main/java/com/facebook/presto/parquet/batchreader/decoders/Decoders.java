@@ -18,12 +18,16 @@ import com.facebook.presto.parquet.DataPageV1;
 import com.facebook.presto.parquet.DataPageV2;
 import com.facebook.presto.parquet.ParquetEncoding;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int64ValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.delta.BinaryDeltaValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.delta.Int32DeltaBinaryPackedValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.delta.Int64DeltaBinaryPackedValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.delta.Int64TimestampMicrosDeltaBinaryPackedValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.BinaryPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.BooleanPlainValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.plain.FixedLenByteArrayPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int32PlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int64PlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int64TimestampMicrosPlainValuesDecoder;
@@ -50,6 +54,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
+import static com.facebook.presto.common.type.Decimals.MAX_SHORT_PRECISION;
 import static com.facebook.presto.parquet.ParquetEncoding.DELTA_BINARY_PACKED;
 import static com.facebook.presto.parquet.ParquetEncoding.DELTA_BYTE_ARRAY;
 import static com.facebook.presto.parquet.ParquetEncoding.DELTA_LENGTH_BYTE_ARRAY;
@@ -66,6 +71,7 @@ import static java.lang.String.format;
 import static org.apache.parquet.bytes.BytesUtils.getWidthFromMaxInt;
 import static org.apache.parquet.bytes.BytesUtils.readIntLittleEndian;
 import static org.apache.parquet.bytes.BytesUtils.readIntLittleEndianOnOneByte;
+import static org.apache.parquet.schema.OriginalType.DECIMAL;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN;
 
 public class Decoders
@@ -89,6 +95,34 @@ public class Decoders
 
     private static final ValuesDecoder createValuesDecoder(ColumnDescriptor columnDescriptor, Dictionary dictionary, int valueCount, ParquetEncoding encoding, byte[] buffer, int offset, int length)
             throws IOException
+    {
+        ValuesDecoder valuesDecoder = createPrimitiveValuesDecoder(columnDescriptor, dictionary, valueCount, encoding, buffer, offset, length);
+        if (columnDescriptor.getPrimitiveType().getOriginalType() == DECIMAL) {
+            return createDecimalValuesDecoder(columnDescriptor, valuesDecoder);
+        }
+        return valuesDecoder;
+    }
+
+    private static final ValuesDecoder createDecimalValuesDecoder(ColumnDescriptor columnDescriptor, ValuesDecoder valuesDecoder)
+    {
+        switch (columnDescriptor.getPrimitiveType().getPrimitiveTypeName()) {
+            case INT32:
+                return new Int32ShortDecimalValuesDecoder((Int32ValuesDecoder) valuesDecoder);
+            case INT64:
+                return new Int64ShortDecimalValuesDecoder((Int64ValuesDecoder) valuesDecoder);
+            case BINARY:
+            case FIXED_LEN_BYTE_ARRAY:
+                if (columnDescriptor.getPrimitiveType().getDecimalMetadata().getPrecision() <= MAX_SHORT_PRECISION) {
+                    return new BinaryShortDecimalValuesDecoder((BinaryValuesDecoder) valuesDecoder);
+                }
+                return new BinaryLongDecimalValuesDecoder((BinaryValuesDecoder) valuesDecoder);
+            default:
+                throw new PrestoException(PARQUET_UNSUPPORTED_COLUMN_TYPE, format("Column: %s, decimal stored as %s", columnDescriptor, columnDescriptor.getPrimitiveType().getPrimitiveTypeName()));
+        }
+    }
+
+    private static final ValuesDecoder createPrimitiveValuesDecoder(ColumnDescriptor columnDescriptor, Dictionary dictionary, int valueCount, ParquetEncoding encoding, byte[] buffer, int offset, int length)
+            throws IOException
     {
         final PrimitiveTypeName type = columnDescriptor.getPrimitiveType().getPrimitiveTypeName();
 
@@ -111,6 +145,7 @@ public class Decoders
                 case BINARY:
                     return new BinaryPlainValuesDecoder(buffer, offset, length);
                 case FIXED_LEN_BYTE_ARRAY:
+                    return new FixedLenByteArrayPlainValuesDecoder(columnDescriptor.getPrimitiveType().getTypeLength(), buffer, offset, length);
                 default:
                     throw new PrestoException(PARQUET_UNSUPPORTED_COLUMN_TYPE, format("Column: %s, Encoding: %s", columnDescriptor, encoding));
             }
@@ -141,10 +176,10 @@ public class Decoders
                 case INT96: {
                     return new TimestampRLEDictionaryValuesDecoder(bitWidth, inputStream, (TimestampDictionary) dictionary);
                 }
-                case BINARY: {
+                case BINARY:
+                case FIXED_LEN_BYTE_ARRAY: {
                     return new BinaryRLEDictionaryValuesDecoder(bitWidth, inputStream, (BinaryBatchDictionary) dictionary);
                 }
-                case FIXED_LEN_BYTE_ARRAY:
                 default:
                     throw new PrestoException(PARQUET_UNSUPPORTED_COLUMN_TYPE, format("Column: %s, Encoding: %s", columnDescriptor, encoding));
             }
@@ -170,7 +205,7 @@ public class Decoders
             }
         }
 
-        if ((encoding == DELTA_BYTE_ARRAY || encoding == DELTA_LENGTH_BYTE_ARRAY) && type == PrimitiveTypeName.BINARY) {
+        if ((encoding == DELTA_BYTE_ARRAY || encoding == DELTA_LENGTH_BYTE_ARRAY) && (type == PrimitiveTypeName.BINARY || type == PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY)) {
             ByteBufferInputStream inputStream = ByteBufferInputStream.wrap(ByteBuffer.wrap(buffer, offset, length));
             return new BinaryDeltaValuesDecoder(encoding, valueCount, inputStream);
         }
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader.decoders;
+
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.ShortDecimalValuesDecoder;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the unscaled values of a short decimal stored as INT32, with any of the INT32 encodings.
+ */
+public class Int32ShortDecimalValuesDecoder
+        implements ShortDecimalValuesDecoder
+{
+    private final Int32ValuesDecoder delegate;
+
+    private int[] buffer = new int[0];
+
+    public Int32ShortDecimalValuesDecoder(Int32ValuesDecoder delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public void readNext(long[] values, int offset, int length)
+            throws IOException
+    {
+        if (buffer.length < length) {
+            buffer = new int[length];
+        }
+        delegate.readNext(buffer, 0, length);
+
+        final int[] localBuffer = buffer;
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = localBuffer[i];
+        }
+    }
+
+    @Override
+    public void skip(int length)
+            throws IOException
+    {
+        delegate.skip(length);
+    }
+}
@@ -81,4 +81,39 @@ public interface ValuesDecoder
 
         void skip(int length);
     }
+
+    interface ShortDecimalValuesDecoder
+            extends ValuesDecoder
+    {
+        void readNext(long[] values, int offset, int length)
+                throws IOException;
+
+        void skip(int length)
+                throws IOException;
+    }
+
+    /**
+     * Decoder of dictionary encoded values, which can return the dictionary ids of the values
+     * instead of looking them up in the dictionary.
+     */
+    interface DictionaryValuesDecoder
+            extends ValuesDecoder
+    {
+        void readDictionaryIds(int[] ids, int offset, int length)
+                throws IOException;
+    }
+
+    interface LongDecimalValuesDecoder
+            extends ValuesDecoder
+    {
+        /**
+         * Reads the next {@code length} values into {@code values}, two longs (low, then high) per value,
+         * starting at the value position {@code offset}.
+         */
+        void readNext(long[] values, int offset, int length)
+                throws IOException;
+
+        void skip(int length)
+                throws IOException;
+    }
 }
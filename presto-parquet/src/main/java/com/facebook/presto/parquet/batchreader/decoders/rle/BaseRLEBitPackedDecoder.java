@@ -20,10 +20,12 @@ import org.apache.parquet.io.ParquetDecodingException;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import static com.facebook.presto.parquet.batchreader.decoders.rle.BaseRLEBitPackedDecoder.Mode.PACKED;
 import static com.facebook.presto.parquet.batchreader.decoders.rle.BaseRLEBitPackedDecoder.Mode.RLE;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Math.ceil;
 import static org.apache.parquet.bytes.BytesUtils.readIntLittleEndianPaddedOnBitWidth;
 import static org.apache.parquet.bytes.BytesUtils.readUnsignedVarInt;
@@ -111,6 +113,41 @@ public abstract class BaseRLEBitPackedDecoder
         }
     }
 
+    /**
+     * Reads the next {@code length} raw values, which are the dictionary ids for dictionary encoded values.
+     */
+    protected void readRawValues(int[] values, int offset, int length)
+            throws IOException
+    {
+        int destinationIndex = offset;
+        int remainingToCopy = length;
+        while (remainingToCopy > 0) {
+            if (currentCount == 0) {
+                if (!decode()) {
+                    break;
+                }
+            }
+
+            int chunkSize = Math.min(remainingToCopy, currentCount);
+            switch (mode) {
+                case RLE: {
+                    Arrays.fill(values, destinationIndex, destinationIndex + chunkSize, currentValue);
+                    break;
+                }
+                case PACKED: {
+                    System.arraycopy(currentBuffer, currentBuffer.length - currentCount, values, destinationIndex, chunkSize);
+                    break;
+                }
+                default:
+                    throw new ParquetDecodingException("not a valid mode " + mode);
+            }
+            destinationIndex += chunkSize;
+            currentCount -= chunkSize;
+            remainingToCopy -= chunkSize;
+        }
+        checkState(remainingToCopy == 0, "End of stream: Invalid read size request: %s", length);
+    }
+
     public enum Mode
     {
         RLE,
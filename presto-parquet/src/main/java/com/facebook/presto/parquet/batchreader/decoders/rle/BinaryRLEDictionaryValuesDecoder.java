@@ -14,6 +14,7 @@
 package com.facebook.presto.parquet.batchreader.decoders.rle;
 
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.DictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.dictionary.BinaryBatchDictionary;
 import org.apache.parquet.io.ParquetDecodingException;
 
@@ -25,7 +26,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 public class BinaryRLEDictionaryValuesDecoder
         extends BaseRLEBitPackedDecoder
-        implements BinaryValuesDecoder
+        implements BinaryValuesDecoder, DictionaryValuesDecoder
 {
     private final BinaryBatchDictionary dictionary;
 
@@ -100,6 +101,13 @@ public class BinaryRLEDictionaryValuesDecoder
         return bufferIndex;
     }
 
+    @Override
+    public void readDictionaryIds(int[] ids, int offset, int length)
+            throws IOException
+    {
+        readRawValues(ids, offset, length);
+    }
+
     @Override
     public void skip(int length)
             throws IOException
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.parquet.batchreader.decoders.rle;
 
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.DictionaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
 import com.facebook.presto.parquet.dictionary.IntegerDictionary;
 import org.apache.parquet.io.ParquetDecodingException;
@@ -25,7 +26,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 public class Int32RLEDictionaryValuesDecoder
         extends BaseRLEBitPackedDecoder
-        implements Int32ValuesDecoder
+        implements Int32ValuesDecoder, DictionaryValuesDecoder
 {
     private final IntegerDictionary dictionary;
 
@@ -77,6 +78,13 @@ public class Int32RLEDictionaryValuesDecoder
         }
     }
 
+    @Override
+    public void readDictionaryIds(int[] ids, int offset, int length)
+            throws IOException
+    {
+        readRawValues(ids, offset, length);
+    }
+
     @Override
     public void skip(int length)
             throws IOException
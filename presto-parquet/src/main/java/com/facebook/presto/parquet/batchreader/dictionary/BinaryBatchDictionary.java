@@ -14,6 +14,7 @@
 
 package com.facebook.presto.parquet.batchreader.dictionary;
 
+import com.facebook.presto.common.predicate.TupleDomainFilter;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.batchreader.BytesUtils;
 import com.facebook.presto.parquet.dictionary.Dictionary;
@@ -29,6 +30,7 @@ public final class BinaryBatchDictionary
     private final byte[] pageBuffer;
     private final int dictionarySize;
     private final int[] offsets;
+    private final int lengthPrefixSize;
 
     public BinaryBatchDictionary(DictionaryPage dictionaryPage)
     {
@@ -49,20 +51,51 @@ public final class BinaryBatchDictionary
         }
         offsetList.add(offset);
         this.offsets = offsetList.toIntArray();
+        this.lengthPrefixSize = 4;
 
         checkArgument(offsets.length - 1 == dictionarySize, "Dictionary size and number of entries don't match");
     }
 
+    /**
+     * Creates a dictionary of FIXED_LEN_BYTE_ARRAY values, which are stored without a length prefix.
+     */
+    public BinaryBatchDictionary(DictionaryPage dictionaryPage, int typeLength)
+    {
+        super(dictionaryPage.getEncoding());
+        requireNonNull(dictionaryPage, "dictionaryPage is null");
+        checkArgument(dictionaryPage.getDictionarySize() >= 0, "Dictionary size should be greater than or equal to zero");
+        checkArgument(typeLength > 0, "invalid type length: %s", typeLength);
+
+        this.dictionarySize = dictionaryPage.getDictionarySize();
+        this.pageBuffer = requireNonNull(dictionaryPage.getSlice(), "dictionary slice is null").getBytes();
+        checkArgument(pageBuffer.length == dictionarySize * typeLength, "Dictionary size and number of entries don't match");
+
+        this.offsets = new int[dictionarySize + 1];
+        for (int i = 0; i <= dictionarySize; i++) {
+            offsets[i] = i * typeLength;
+        }
+        this.lengthPrefixSize = 0;
+    }
+
     public int getLength(int dictionaryId)
     {
         checkArgument(dictionaryId >= 0 && dictionaryId < dictionarySize, "invalid dictionary id: %s", dictionaryId);
-        return offsets[dictionaryId + 1] - (offsets[dictionaryId] + 4);
+        return offsets[dictionaryId + 1] - (offsets[dictionaryId] + lengthPrefixSize);
+    }
+
+    /**
+     * Tests the entry with the filter in place, without copying it out of the dictionary page.
+     */
+    public boolean test(TupleDomainFilter filter, int dictionaryId)
+    {
+        int offset = offsets[dictionaryId] + lengthPrefixSize;
+        return filter.testBytes(pageBuffer, offset, offsets[dictionaryId + 1] - offset);
     }
 
     public int copyTo(byte[] byteBuffer, int offset, int dictionaryId)
     {
-        int length = offsets[dictionaryId + 1] - (offsets[dictionaryId] + 4);
-        System.arraycopy(pageBuffer, offsets[dictionaryId] + 4, byteBuffer, offset, length);
+        int length = offsets[dictionaryId + 1] - (offsets[dictionaryId] + lengthPrefixSize);
+        System.arraycopy(pageBuffer, offsets[dictionaryId] + lengthPrefixSize, byteBuffer, offset, length);
         return length;
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.cache;
+
+import com.facebook.presto.parquet.ParquetDataSourceId;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+public final class BloomFilterCacheKey
+{
+    private final ParquetDataSourceId dataSourceId;
+    private final long offset;
+
+    public BloomFilterCacheKey(ParquetDataSourceId dataSourceId, long offset)
+    {
+        this.dataSourceId = requireNonNull(dataSourceId, "dataSourceId is null");
+        this.offset = offset;
+    }
+
+    public ParquetDataSourceId getDataSourceId()
+    {
+        return dataSourceId;
+    }
+
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BloomFilterCacheKey that = (BloomFilterCacheKey) o;
+        return offset == that.offset &&
+                Objects.equals(dataSourceId, that.dataSourceId);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(dataSourceId, offset);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("dataSourceId", dataSourceId)
+                .add("offset", offset)
+                .toString();
+    }
+}
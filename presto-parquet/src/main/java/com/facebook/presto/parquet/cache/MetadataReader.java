@@ -18,6 +18,8 @@ import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.ParquetDataSourceId;
 import io.airlift.slice.BasicSliceInput;
 import io.airlift.slice.Slice;
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.crypto.AesCipher;
 import org.apache.parquet.crypto.AesGcmEncryptor;
 import org.apache.parquet.crypto.HiddenColumnChunkMetaData;
@@ -28,6 +30,7 @@ import org.apache.parquet.crypto.ModuleCipherFactory.ModuleType;
 import org.apache.parquet.crypto.ParquetCryptoRuntimeException;
 import org.apache.parquet.crypto.TagVerificationException;
 import org.apache.parquet.format.BlockCipher.Decryptor;
+import org.apache.parquet.format.BloomFilterHeader;
 import org.apache.parquet.format.ColumnChunk;
 import org.apache.parquet.format.ColumnCryptoMetaData;
 import org.apache.parquet.format.ColumnMetaData;
@@ -94,6 +97,8 @@ public final class MetadataReader
     private static final int EXPECTED_FOOTER_SIZE = 16 * 1024;
     private static final ParquetMetadataConverter PARQUET_METADATA_CONVERTER = new ParquetMetadataConverter();
     private static final long MODIFICATION_TIME_NOT_SET = 0L;
+    // a Bloom filter header takes about 15 bytes; the bitset that follows it is at least 32 bytes long
+    private static final int EXPECTED_BLOOM_FILTER_HEADER_SIZE = 32;
 
     public static ParquetFileMetadata readFooter(ParquetDataSource parquetDataSource, long fileSize, Optional<InternalFileDecryptor> fileDecryptor, boolean readMaskedValue)
             throws IOException
@@ -135,6 +140,36 @@ public final class MetadataReader
         return readParquetMetadata(tailSlice.slice(tailSlice.length() - completeFooterSize, metadataLength).getInput(), metadataLength, modificationTime, fileDecryptor, encryptedFooterMode, parquetDataSource.getId(), readMaskedValue);
     }
 
+    public static Optional<BloomFilter> readBloomFilter(ParquetDataSource parquetDataSource, ColumnChunkMetaData columnChunk)
+            throws IOException
+    {
+        long offset = columnChunk.getBloomFilterOffset();
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        byte[] buffer = new byte[EXPECTED_BLOOM_FILTER_HEADER_SIZE];
+        parquetDataSource.readFully(offset, buffer);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(buffer);
+        BloomFilterHeader header = Util.readBloomFilterHeader(inputStream);
+        int headerSize = buffer.length - inputStream.available();
+
+        // only the split block algorithm with xxHash and no compression is defined by the specification
+        int bitsetSize = header.getNumBytes();
+        if (!header.getAlgorithm().isSetBLOCK() || !header.getHash().isSetXXHASH() || !header.getCompression().isSetUNCOMPRESSED() ||
+                bitsetSize <= 0 || bitsetSize > BlockSplitBloomFilter.UPPER_BOUND_BYTES) {
+            return Optional.empty();
+        }
+
+        byte[] bitset = new byte[bitsetSize];
+        int bufferedSize = min(bitsetSize, buffer.length - headerSize);
+        System.arraycopy(buffer, headerSize, bitset, 0, bufferedSize);
+        if (bufferedSize < bitsetSize) {
+            parquetDataSource.readFully(offset + headerSize + bufferedSize, bitset, bufferedSize, bitsetSize - bufferedSize);
+        }
+        return Optional.of(new BlockSplitBloomFilter(bitset));
+    }
+
     private static ParquetFileMetadata readParquetMetadata(BasicSliceInput input, int metadataLength, long modificationTime, Optional<InternalFileDecryptor> fileDecryptor, boolean encryptedFooterMode, ParquetDataSourceId id, boolean readMaskedValue)
             throws IOException
     {
@@ -291,7 +326,7 @@ public final class MetadataReader
 
     public static ColumnChunkMetaData buildColumnChunkMetaData(ColumnMetaData metaData, ColumnPath columnPath, PrimitiveType type)
     {
-        return ColumnChunkMetaData.get(
+        ColumnChunkMetaData column = ColumnChunkMetaData.get(
                 columnPath,
                 type,
                 CompressionCodecName.fromParquet(metaData.codec),
@@ -303,6 +338,10 @@ public final class MetadataReader
                 metaData.num_values,
                 metaData.total_compressed_size,
                 metaData.total_uncompressed_size);
+        if (metaData.isSetBloom_filter_offset()) {
+            column.setBloomFilterOffset(metaData.getBloom_filter_offset());
+        }
+        return column;
     }
 
     private static ColumnPath getPath(ColumnMetaData metaData)
@@ -488,6 +527,17 @@ public final class MetadataReader
         return readFooter(parquetDataSource, fileSize, modificationTime, fileDecryptor, readMaskedValue);
     }
 
+    @Override
+    public Optional<BloomFilter> getBloomFilter(
+            ParquetDataSource parquetDataSource,
+            ColumnChunkMetaData columnChunk,
+            boolean cacheable,
+            long modificationTime)
+            throws IOException
+    {
+        return readBloomFilter(parquetDataSource, columnChunk);
+    }
+
     private static IndexReference toColumnIndexReference(ColumnChunk columnChunk)
     {
         if (columnChunk.isSetColumn_index_offset() && columnChunk.isSetColumn_index_length()) {
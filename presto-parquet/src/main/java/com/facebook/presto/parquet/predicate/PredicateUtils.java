@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.parquet.predicate;
 
+import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.DictionaryPage;
@@ -31,6 +32,7 @@ import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.Encoding;
 import org.apache.parquet.column.EncodingStats;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.crypto.HiddenColumnChunkMetaData;
 import org.apache.parquet.format.DictionaryPageHeader;
 import org.apache.parquet.format.PageHeader;
@@ -55,6 +57,7 @@ import static com.facebook.presto.common.type.SmallintType.SMALLINT;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.parquet.ParquetCompressionUtils.decompress;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getParquetEncoding;
+import static com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate.isBloomFilterPredicate;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.lang.Math.toIntExact;
@@ -117,6 +120,29 @@ public final class PredicateUtils
             Optional<ColumnIndexStore> columnIndexStore,
             boolean readColumnIndex,
             Optional<WarningCollector> warningCollector)
+    {
+        return predicateMatches(
+                parquetPredicate,
+                block,
+                dataSource,
+                descriptorsByPath,
+                parquetTupleDomain,
+                columnIndexStore,
+                readColumnIndex,
+                warningCollector,
+                Optional.empty());
+    }
+
+    public static boolean predicateMatches(
+            Predicate parquetPredicate,
+            BlockMetaData block,
+            ParquetDataSource dataSource,
+            Map<List<String>, RichColumnDescriptor> descriptorsByPath,
+            TupleDomain<ColumnDescriptor> parquetTupleDomain,
+            Optional<ColumnIndexStore> columnIndexStore,
+            boolean readColumnIndex,
+            Optional<WarningCollector> warningCollector,
+            Optional<BloomFilterStore> bloomFilterStore)
     {
         Map<ColumnDescriptor, Statistics<?>> columnStatistics = getStatistics(block, descriptorsByPath);
         if (!parquetPredicate.matches(block.getRowCount(), columnStatistics, dataSource.getId(), warningCollector)) {
@@ -128,7 +154,12 @@ public final class PredicateUtils
             return false;
         }
 
-        return dictionaryPredicatesMatch(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain);
+        if (!dictionaryPredicatesMatch(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain)) {
+            return false;
+        }
+
+        // Bloom filters only help with the columns that are not fully dictionary encoded, whose dictionary was checked above
+        return !bloomFilterStore.isPresent() || bloomFilterPredicatesMatch(parquetPredicate, block, bloomFilterStore.get(), descriptorsByPath, parquetTupleDomain);
     }
 
     private static Map<ColumnDescriptor, Statistics<?>> getStatistics(BlockMetaData blockMetadata, Map<List<String>, RichColumnDescriptor> descriptorsByPath)
@@ -164,6 +195,27 @@ public final class PredicateUtils
         return true;
     }
 
+    private static boolean bloomFilterPredicatesMatch(Predicate parquetPredicate, BlockMetaData blockMetadata, BloomFilterStore bloomFilterStore, Map<List<String>, RichColumnDescriptor> descriptorsByPath, TupleDomain<ColumnDescriptor> parquetTupleDomain)
+    {
+        Map<ColumnDescriptor, Domain> domains = parquetTupleDomain.getDomains().get();
+        for (ColumnChunkMetaData columnMetaData : blockMetadata.getColumns()) {
+            if (!HiddenColumnChunkMetaData.isHiddenColumn(columnMetaData) && columnMetaData.getBloomFilterOffset() >= 0) {
+                RichColumnDescriptor descriptor = descriptorsByPath.get(Arrays.asList(columnMetaData.getPath().toArray()));
+                if (descriptor != null &&
+                        !isOnlyDictionaryEncodingPages(columnMetaData) &&
+                        domains.containsKey(descriptor) &&
+                        isBloomFilterPredicate(descriptor, domains.get(descriptor))) {
+                    Optional<BloomFilter> bloomFilter = bloomFilterStore.getBloomFilter(columnMetaData);
+                    //  Early abort, predicate already filters block so no more Bloom filters need be read
+                    if (bloomFilter.isPresent() && !parquetPredicate.matches(descriptor, bloomFilter.get())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
     private static Optional<DictionaryPage> readDictionaryPage(byte[] data, CompressionCodecName codecName)
     {
         try {
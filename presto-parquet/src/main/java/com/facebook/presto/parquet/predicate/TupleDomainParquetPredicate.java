@@ -18,6 +18,7 @@ import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.ParquetDataSourceId;
 import com.facebook.presto.parquet.RichColumnDescriptor;
@@ -31,6 +32,7 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.filter2.predicate.FilterApi;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
@@ -63,6 +65,7 @@ import static com.facebook.presto.hive.HiveWarningCode.HIVE_FILE_STATISTICS_CORR
 import static com.facebook.presto.parquet.predicate.PredicateUtils.isStatisticsOverflow;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Objects.requireNonNull;
@@ -444,6 +447,74 @@ public class TupleDomainParquetPredicate
         return Domain.create(ValueSet.all(type), hasNullValue);
     }
 
+    @Override
+    public boolean matches(ColumnDescriptor column, BloomFilter bloomFilter)
+    {
+        requireNonNull(bloomFilter, "bloomFilter is null");
+        if (effectivePredicate.isNone()) {
+            return false;
+        }
+
+        Domain domain = effectivePredicate.getDomains()
+                .orElseThrow(() -> new IllegalStateException("Effective predicate other than none should have domains"))
+                .get(column);
+        if (domain == null || !isBloomFilterPredicate(column, domain)) {
+            return true;
+        }
+
+        PrimitiveTypeName primitiveType = column.getPrimitiveType().getPrimitiveTypeName();
+        for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
+            if (bloomFilter.findHash(getBloomFilterHash(bloomFilter, primitiveType, range.getSingleValue()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bloom filters can only eliminate a file section for a domain that is a set of discrete values, without nulls.
+     * The values are hashed on their Parquet plain encoding, so only the types whose encoding is canonical are
+     * supported: floating point values are not, as -0.0 and 0.0 are equal but encoded differently.
+     */
+    static boolean isBloomFilterPredicate(ColumnDescriptor column, Domain domain)
+    {
+        if (domain.isNullAllowed() || domain.isNone() || domain.isAll() || !domain.getType().isOrderable()) {
+            return false;
+        }
+        if (!isBloomFilterSupported(column.getPrimitiveType().getPrimitiveTypeName(), domain.getType())) {
+            return false;
+        }
+        return domain.getValues().getRanges().getOrderedRanges().stream().allMatch(Range::isSingleValue);
+    }
+
+    private static boolean isBloomFilterSupported(PrimitiveTypeName primitiveType, Type type)
+    {
+        switch (primitiveType) {
+            case INT32:
+                return type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(DATE);
+            case INT64:
+                return type.equals(BIGINT);
+            case BINARY:
+                return isVarcharType(type) || type instanceof VarbinaryType;
+            default:
+                return false;
+        }
+    }
+
+    private static long getBloomFilterHash(BloomFilter bloomFilter, PrimitiveTypeName primitiveType, Object value)
+    {
+        switch (primitiveType) {
+            case INT32:
+                return bloomFilter.hash(toIntExact((long) value));
+            case INT64:
+                return bloomFilter.hash((long) value);
+            case BINARY:
+                return bloomFilter.hash(Binary.fromConstantByteArray(((Slice) value).getBytes()));
+            default:
+                throw new IllegalArgumentException("Unsupported Bloom filter type: " + primitiveType);
+        }
+    }
+
     private boolean isCorruptedColumnIndex(ColumnIndex columnIndex)
     {
         if (columnIndex.getMaxValues() == null || columnIndex.getMinValues() == null ||
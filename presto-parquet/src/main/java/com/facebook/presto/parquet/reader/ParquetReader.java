@@ -20,9 +20,11 @@ import com.facebook.presto.common.block.IntArrayBlock;
 import com.facebook.presto.common.block.LongArrayBlock;
 import com.facebook.presto.common.block.RowBlock;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
 import com.facebook.presto.common.type.MapType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeSignatureParameter;
+import com.facebook.presto.common.type.VarcharType;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.parquet.ColumnReader;
@@ -34,6 +36,7 @@ import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.ParquetResultVerifierUtils;
 import com.facebook.presto.parquet.PrimitiveField;
 import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
 import com.facebook.presto.parquet.predicate.Predicate;
 import com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate;
 import com.facebook.presto.parquet.reader.ColumnIndexFilterUtils.OffsetRange;
@@ -58,6 +61,8 @@ import org.apache.parquet.io.MessageColumnIO;
 import org.apache.parquet.io.PrimitiveColumnIO;
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -71,12 +76,14 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.SmallintType.SMALLINT;
 import static com.facebook.presto.common.type.StandardTypes.ARRAY;
 import static com.facebook.presto.common.type.StandardTypes.MAP;
 import static com.facebook.presto.common.type.StandardTypes.ROW;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.parquet.ParquetValidationUtils.validateParquet;
 import static com.facebook.presto.parquet.reader.ListColumnReader.calculateCollectionOffsets;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -317,7 +324,26 @@ public class ParquetReader
         ColumnDescriptor columnDescriptor = field.getDescriptor();
 
         int fieldId = field.getId();
-        ColumnReader columnReader = columnReaders[fieldId];
+        ColumnReader columnReader = initializeColumnReader(field);
+
+        ColumnChunk columnChunk = columnReader.readNext();
+        columnChunk = typeCoercion(columnChunk, field.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType());
+
+        if (enableVerification) {
+            ColumnReader verificationColumnReader = verificationColumnReaders[field.getId()];
+            ColumnChunk expected = verificationColumnReader.readNext();
+            ParquetResultVerifierUtils.verifyColumnChunks(columnChunk, expected, columnDescriptor.getPath().length > 1, field, dataSource.getId());
+        }
+
+        updateMaxBytesPerCell(fieldId, columnChunk.getBlock().getSizeInBytes() / batchSize);
+        return columnChunk;
+    }
+
+    private ColumnReader initializeColumnReader(PrimitiveField field)
+            throws IOException
+    {
+        ColumnDescriptor columnDescriptor = field.getDescriptor();
+        ColumnReader columnReader = columnReaders[field.getId()];
         if (!columnReader.isInitialized()) {
             validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
             ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
@@ -357,24 +383,18 @@ public class ParquetReader
             }
         }
 
-        ColumnChunk columnChunk = columnReader.readNext();
-        columnChunk = typeCoercion(columnChunk, field.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType());
-
-        if (enableVerification) {
-            ColumnReader verificationColumnReader = verificationColumnReaders[field.getId()];
-            ColumnChunk expected = verificationColumnReader.readNext();
-            ParquetResultVerifierUtils.verifyColumnChunks(columnChunk, expected, columnDescriptor.getPath().length > 1, field, dataSource.getId());
-        }
+        return columnReader;
+    }
 
+    private void updateMaxBytesPerCell(int fieldId, long bytesPerCell)
+    {
         // update max size per primitive column chunk
-        long bytesPerCell = columnChunk.getBlock().getSizeInBytes() / batchSize;
         if (maxBytesPerCell[fieldId] < bytesPerCell) {
             // update batch size
             maxCombinedBytesPerRow = maxCombinedBytesPerRow - maxBytesPerCell[fieldId] + bytesPerCell;
             maxBatchSize = toIntExact(min(maxBatchSize, max(1, maxReadBlockBytes / maxCombinedBytesPerRow)));
             maxBytesPerCell[fieldId] = bytesPerCell;
         }
-        return columnChunk;
     }
 
     private boolean shouldUseColumnIndex(ColumnPath path)
@@ -466,6 +486,59 @@ public class ParquetReader
         return readColumnChunk(field).getBlock();
     }
 
+    /**
+     * Returns whether the positions of the current batch of the field can be read with {@link #readPositions}.
+     */
+    public boolean canReadPositions(Field field)
+    {
+        return !enableVerification && field instanceof PrimitiveField && columnReaders[((PrimitiveField) field).getId()] instanceof SelectiveColumnReader;
+    }
+
+    /**
+     * Returns whether the filters of the field can be evaluated by {@link #readPositions}, which tests the values
+     * of integer and string columns as they are decoded.
+     */
+    public boolean canFilterPositions(Field field)
+    {
+        if (!canReadPositions(field)) {
+            return false;
+        }
+        Type type = field.getType();
+        switch (((PrimitiveField) field).getDescriptor().getPrimitiveType().getPrimitiveTypeName()) {
+            case INT32:
+                return BIGINT.equals(type) || INTEGER.equals(type) || SMALLINT.equals(type) || TINYINT.equals(type) || DATE.equals(type);
+            case BINARY:
+                return type instanceof VarcharType || VARBINARY.equals(type);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads the values of the field at the given positions of the current batch, and keeps the positions whose
+     * values pass the filter. See {@link SelectiveColumnReader#read}.
+     */
+    public int readPositions(Field field, int[] positions, int positionCount, @Nullable TupleDomainFilter filter)
+            throws IOException
+    {
+        checkArgument(filter == null ? canReadPositions(field) : canFilterPositions(field), "field does not support selective reads: %s", field);
+        return ((SelectiveColumnReader) initializeColumnReader((PrimitiveField) field)).read(positions, positionCount, filter);
+    }
+
+    /**
+     * Returns the values of the field at positions kept by the last {@link #readPositions} of the field.
+     */
+    public Block getPositions(Field field, int[] positions, int positionCount)
+    {
+        PrimitiveField primitiveField = (PrimitiveField) field;
+        Block block = ((SelectiveColumnReader) columnReaders[primitiveField.getId()]).getBlock(positions, positionCount);
+        block = typeCoercion(new ColumnChunk(block, new int[0], new int[0]), primitiveField.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType()).getBlock();
+        if (positionCount > 0) {
+            updateMaxBytesPerCell(primitiveField.getId(), block.getSizeInBytes() / positionCount);
+        }
+        return block;
+    }
+
     private ColumnChunk readColumnChunk(Field field)
             throws IOException
     {
@@ -35,6 +35,9 @@ import org.apache.parquet.column.statistics.FloatStatistics;
 import org.apache.parquet.column.statistics.IntStatistics;
 import org.apache.parquet.column.statistics.LongStatistics;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.PrimitiveType;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -391,6 +394,58 @@ public class TestTupleDomainParquetPredicate
         assertTrue(parquetPredicate.matches(new DictionaryDescriptor(column, Optional.of(page))));
     }
 
+    @Test
+    public void testBigintMatchesWithBloomFilter()
+    {
+        RichColumnDescriptor column = new RichColumnDescriptor(
+                new ColumnDescriptor(new String[] {"path"}, INT64, 0, 0),
+                new PrimitiveType(OPTIONAL, INT64, "Test column"));
+        BloomFilter bloomFilter = new BlockSplitBloomFilter(1024);
+        bloomFilter.insertHash(bloomFilter.hash(42L));
+        bloomFilter.insertHash(bloomFilter.hash(404L));
+
+        assertTrue(bloomFilterPredicate(column, Domain.create(ValueSet.of(BIGINT, 42L), false)).matches(column, bloomFilter));
+        assertTrue(bloomFilterPredicate(column, Domain.create(ValueSet.of(BIGINT, 7L, 404L), false)).matches(column, bloomFilter));
+        assertFalse(bloomFilterPredicate(column, Domain.create(ValueSet.of(BIGINT, 7L, 43L), false)).matches(column, bloomFilter));
+
+        // nulls are not recorded in Bloom filters
+        assertTrue(bloomFilterPredicate(column, Domain.create(ValueSet.of(BIGINT, 7L), true)).matches(column, bloomFilter));
+        // only discrete values can be looked up
+        assertTrue(bloomFilterPredicate(column, Domain.create(ValueSet.ofRanges(range(BIGINT, 0L, true, 10L, true)), false)).matches(column, bloomFilter));
+        // other columns are not filtered
+        assertTrue(new TupleDomainParquetPredicate(TupleDomain.all(), singletonList(column)).matches(column, bloomFilter));
+    }
+
+    @Test(dataProvider = "typeForParquetInt32")
+    public void testIntegerMatchesWithBloomFilter(Type typeForParquetInt32)
+    {
+        RichColumnDescriptor column = new RichColumnDescriptor(
+                new ColumnDescriptor(new String[] {"path"}, INT32, 0, 0),
+                new PrimitiveType(OPTIONAL, INT32, "Test column"));
+        BloomFilter bloomFilter = new BlockSplitBloomFilter(1024);
+        bloomFilter.insertHash(bloomFilter.hash(42));
+
+        assertTrue(bloomFilterPredicate(column, Domain.create(ValueSet.of(typeForParquetInt32, 42L, 43L), false)).matches(column, bloomFilter));
+        assertFalse(bloomFilterPredicate(column, Domain.create(ValueSet.of(typeForParquetInt32, 43L), false)).matches(column, bloomFilter));
+    }
+
+    @Test
+    public void testVarcharMatchesWithBloomFilter()
+    {
+        ColumnDescriptor columnDescriptor = new ColumnDescriptor(new String[] {"path"}, new PrimitiveType(OPTIONAL, BINARY, 0, ""), 0, 0);
+        RichColumnDescriptor column = new RichColumnDescriptor(columnDescriptor, new PrimitiveType(OPTIONAL, BINARY, "Test column"));
+        BloomFilter bloomFilter = new BlockSplitBloomFilter(1024);
+        bloomFilter.insertHash(bloomFilter.hash(Binary.fromString("apple")));
+
+        assertTrue(new TupleDomainParquetPredicate(getEffectivePredicate(column, createVarcharType(255), utf8Slice("apple")), singletonList(column)).matches(column, bloomFilter));
+        assertFalse(new TupleDomainParquetPredicate(getEffectivePredicate(column, createVarcharType(255), utf8Slice("banana")), singletonList(column)).matches(column, bloomFilter));
+    }
+
+    private static TupleDomainParquetPredicate bloomFilterPredicate(RichColumnDescriptor column, Domain domain)
+    {
+        return new TupleDomainParquetPredicate(withColumnDomains(ImmutableMap.of(column, domain)), singletonList(column));
+    }
+
     private TupleDomain<ColumnDescriptor> getEffectivePredicate(RichColumnDescriptor column, VarcharType type, Slice value)
     {
         ColumnDescriptor predicateColumn = new ColumnDescriptor(column.getPath(), column.getType(), 0, 0);
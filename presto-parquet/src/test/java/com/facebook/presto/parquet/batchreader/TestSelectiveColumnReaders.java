@@ -0,0 +1,262 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.TupleDomainFilter.AbstractTupleDomainFilter;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BigintRange;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.parquet.DataPage;
+import com.facebook.presto.parquet.DataPageV1;
+import com.facebook.presto.parquet.DictionaryPage;
+import com.facebook.presto.parquet.ParquetEncoding;
+import com.facebook.presto.parquet.PrimitiveField;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.SelectiveColumnReader;
+import com.facebook.presto.parquet.reader.PageReader;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.parquet.ParquetEncoding.PLAIN;
+import static com.facebook.presto.parquet.ParquetEncoding.PLAIN_DICTIONARY;
+import static com.facebook.presto.parquet.ParquetEncoding.RLE;
+import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.getDictionaryDataPageEncoder;
+import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.getSimpleDLEncoder;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
+import static org.apache.parquet.schema.Type.Repetition.REQUIRED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSelectiveColumnReaders
+{
+    private static final int PAGE_SIZE = 100;
+
+    @Test
+    public void testSkipPositions()
+    {
+        // two plain pages with the values 0, 10, 20, ...
+        DynamicSliceOutput firstPage = new DynamicSliceOutput(PAGE_SIZE * SIZE_OF_INT);
+        DynamicSliceOutput secondPage = new DynamicSliceOutput(PAGE_SIZE * SIZE_OF_INT);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            firstPage.appendInt(i * 10);
+            secondPage.appendInt((PAGE_SIZE + i) * 10);
+        }
+        SelectiveColumnReader reader = createReader(
+                INT32,
+                INTEGER,
+                true,
+                ImmutableList.of(dataPage(firstPage.slice(), PAGE_SIZE, PLAIN), dataPage(secondPage.slice(), PAGE_SIZE, PLAIN)),
+                null);
+
+        // the positions span both pages, and the last one is dropped by the filter
+        reader.prepareNextRead(150);
+        int[] positions = {3, 4, 5, 50, 99, 100, 101, 149};
+        int positionCount = reader.read(positions, positions.length, BigintRange.of(0, 1000, false));
+        assertEquals(positionCount, 6);
+        assertPositions(positions, positionCount, 3, 4, 5, 50, 99, 100);
+
+        Block block = reader.getBlock(new int[] {4, 99, 100}, 3);
+        assertEquals(block.getPositionCount(), 3);
+        assertEquals(block.getInt(0), 40);
+        assertEquals(block.getInt(1), 990);
+        assertEquals(block.getInt(2), 1000);
+
+        // the rows of the batch after the last position are skipped before the next batch is read
+        reader.prepareNextRead(50);
+        block = reader.readNext().getBlock();
+        for (int i = 0; i < 50; i++) {
+            assertEquals(block.getInt(i), (150 + i) * 10);
+        }
+    }
+
+    @Test
+    public void testDictionaryFilteredOncePerEntry()
+            throws IOException
+    {
+        // every eighth row is null, and the other rows refer to the dictionary entries in turn
+        DynamicSliceOutput dictionary = new DynamicSliceOutput(4 * SIZE_OF_INT);
+        for (int value : new int[] {10, 20, 30, 40}) {
+            dictionary.appendInt(value);
+        }
+
+        int rowCount = 64;
+        RunLengthBitPackingHybridEncoder definitionLevels = getSimpleDLEncoder();
+        RunLengthBitPackingHybridEncoder dictionaryIds = getDictionaryDataPageEncoder(3);
+        int nonNullCount = 0;
+        for (int row = 0; row < rowCount; row++) {
+            boolean isNull = row % 8 == 7;
+            definitionLevels.writeInt(isNull ? 0 : 1);
+            if (!isNull) {
+                dictionaryIds.writeInt(nonNullCount % 4);
+                nonNullCount++;
+            }
+        }
+        byte[] definitionLevelBytes = definitionLevels.toBytes().toByteArray();
+        DynamicSliceOutput page = new DynamicSliceOutput(128);
+        page.appendInt(definitionLevelBytes.length);
+        page.appendBytes(definitionLevelBytes);
+        page.appendByte(2);
+        page.appendBytes(dictionaryIds.toBytes().toByteArray());
+
+        SelectiveColumnReader reader = createReader(
+                INT32,
+                INTEGER,
+                false,
+                ImmutableList.of(dataPage(page.slice(), rowCount, PLAIN_DICTIONARY)),
+                new DictionaryPage(dictionary.slice(), 4, PLAIN_DICTIONARY));
+
+        CountingFilter filter = new CountingFilter();
+        reader.prepareNextRead(rowCount);
+        int[] positions = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            positions[i] = i;
+        }
+        int positionCount = reader.read(positions, rowCount, filter);
+
+        // the entries 30 and 40 pass, and the nulls do not
+        assertEquals(filter.getTestCount(), 4);
+        assertEquals(positionCount, 28);
+        Block block = reader.getBlock(positions, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            assertTrue(positions[i] % 8 != 7);
+            assertTrue(block.getInt(i) >= 30);
+        }
+    }
+
+    @Test
+    public void testBinaryPositions()
+            throws IOException
+    {
+        List<String> values = ImmutableList.of("apple", "banana", "cherry");
+        DynamicSliceOutput dictionary = new DynamicSliceOutput(64);
+        for (String value : values) {
+            dictionary.appendInt(value.length());
+            dictionary.appendBytes(Slices.utf8Slice(value));
+        }
+
+        RunLengthBitPackingHybridEncoder dictionaryIds = getDictionaryDataPageEncoder(2);
+        DynamicSliceOutput plainPage = new DynamicSliceOutput(1024);
+        for (int row = 0; row < PAGE_SIZE; row++) {
+            dictionaryIds.writeInt(row % 3);
+            String value = values.get(row % 3) + row;
+            plainPage.appendInt(value.length());
+            plainPage.appendBytes(Slices.utf8Slice(value));
+        }
+        DynamicSliceOutput dictionaryPage = new DynamicSliceOutput(128);
+        dictionaryPage.appendByte(2);
+        dictionaryPage.appendBytes(dictionaryIds.toBytes().toByteArray());
+
+        SelectiveColumnReader reader = createReader(
+                BINARY,
+                VARCHAR,
+                true,
+                ImmutableList.of(dataPage(dictionaryPage.slice(), PAGE_SIZE, PLAIN_DICTIONARY), dataPage(plainPage.slice(), PAGE_SIZE, PLAIN)),
+                new DictionaryPage(dictionary.slice(), 3, PLAIN_DICTIONARY));
+
+        // the dictionary encoded page keeps the rows that refer to "banana"
+        CountingFilter filter = new CountingFilter();
+        reader.prepareNextRead(PAGE_SIZE);
+        int[] positions = {0, 1, 2, 3, 4, 10, 11, 12};
+        int positionCount = reader.read(positions, positions.length, filter);
+        assertEquals(filter.getTestCount(), 3);
+        assertPositions(positions, positionCount, 1, 4, 10);
+        Block block = reader.getBlock(positions, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            assertEquals(VARCHAR.getSlice(block, i).toStringUtf8(), "banana");
+        }
+
+        // the plain encoded page is read without a filter
+        reader.prepareNextRead(PAGE_SIZE);
+        positions = new int[] {7, 8, 98};
+        positionCount = reader.read(positions, positions.length, null);
+        assertPositions(positions, positionCount, 7, 8, 98);
+        block = reader.getBlock(new int[] {8, 98}, 2);
+        assertEquals(VARCHAR.getSlice(block, 0).toStringUtf8(), "cherry8");
+        assertEquals(VARCHAR.getSlice(block, 1).toStringUtf8(), "cherry98");
+    }
+
+    private static SelectiveColumnReader createReader(PrimitiveTypeName typeName, Type type, boolean required, List<DataPage> pages, DictionaryPage dictionaryPage)
+    {
+        PrimitiveType primitiveType = Types.primitive(typeName, required ? REQUIRED : OPTIONAL).named("column");
+        int definitionLevel = required ? 0 : 1;
+        RichColumnDescriptor descriptor = new RichColumnDescriptor(new ColumnDescriptor(new String[] {"column"}, primitiveType, 0, definitionLevel), primitiveType);
+        SelectiveColumnReader reader = typeName == INT32 ? new Int32FlatBatchReader(descriptor) : new BinaryFlatBatchReader(descriptor);
+        reader.init(
+                new PageReader(UNCOMPRESSED, new LinkedList<>(pages), dictionaryPage),
+                new PrimitiveField(type, 0, definitionLevel, required, descriptor, 0),
+                null);
+        return reader;
+    }
+
+    private static DataPage dataPage(Slice slice, int valueCount, ParquetEncoding valuesEncoding)
+    {
+        return new DataPageV1(slice, valueCount, slice.length(), -1, null, RLE, RLE, valuesEncoding);
+    }
+
+    private static void assertPositions(int[] positions, int positionCount, int... expected)
+    {
+        assertEquals(positionCount, expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(positions[i], expected[i]);
+        }
+    }
+
+    private static class CountingFilter
+            extends AbstractTupleDomainFilter
+    {
+        private int testCount;
+
+        public CountingFilter()
+        {
+            super(true, false);
+        }
+
+        @Override
+        public boolean testLong(long value)
+        {
+            testCount++;
+            return value >= 30;
+        }
+
+        @Override
+        public boolean testBytes(byte[] buffer, int offset, int length)
+        {
+            testCount++;
+            return buffer[offset] == 'b';
+        }
+
+        public int getTestCount()
+        {
+            return testCount;
+        }
+    }
+}
@@ -25,7 +25,9 @@ import org.apache.parquet.column.values.plain.PlainValuesWriter;
 import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
 import org.apache.parquet.io.api.Binary;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -35,6 +37,7 @@ import java.util.Random;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static java.math.BigInteger.TEN;
 
 public class TestParquetUtils
 {
@@ -156,6 +159,46 @@ public class TestParquetUtils
         }
     }
 
+    /**
+     * Generates a page of decimal unscaled values with at most {@code precision} digits, encoded as big-endian
+     * two's complement bytes: with the minimal length for BINARY (typeLength -1), or sign extended to typeLength
+     * for FIXED_LEN_BYTE_ARRAY.
+     */
+    public static byte[] generateDecimalValuesPage(int valueCount, int typeLength, int precision, Random random, List<Object> addedValues)
+    {
+        ValuesWriter writer = new PlainValuesWriter(20, 1024 * 1000, new HeapByteBufferAllocator());
+        ByteArrayOutputStream fixedLengthValues = new ByteArrayOutputStream();
+        BigInteger maxUnscaledValue = TEN.pow(precision);
+        for (int i = 0; i < valueCount; i++) {
+            BigInteger value = new BigInteger(maxUnscaledValue.bitLength(), random).mod(maxUnscaledValue);
+            if (random.nextBoolean()) {
+                value = value.negate();
+            }
+            byte[] bytes = value.toByteArray();
+            if (typeLength == -1) {
+                writer.writeBytes(Binary.fromConstantByteArray(bytes));
+            }
+            else {
+                checkArgument(bytes.length <= typeLength, "value %s does not fit in %s bytes", value, typeLength);
+                for (int j = bytes.length; j < typeLength; j++) {
+                    fixedLengthValues.write(value.signum() < 0 ? 0xFF : 0);
+                }
+                fixedLengthValues.write(bytes, 0, bytes.length);
+            }
+            addedValues.add(value);
+        }
+
+        if (typeLength != -1) {
+            return fixedLengthValues.toByteArray();
+        }
+        try {
+            return writer.getBytes().toByteArray();
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static byte[] generateDictionaryIdPage2048(int maxValue, Random random, List<Integer> addedValues)
     {
         RunLengthBitPackingHybridEncoder encoder = getDictionaryDataPageEncoder(maxValue);
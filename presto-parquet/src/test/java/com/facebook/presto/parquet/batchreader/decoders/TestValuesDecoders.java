@@ -19,9 +19,12 @@ import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BooleanVal
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int32ValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int64TimestampMicrosValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.Int64ValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.LongDecimalValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.ShortDecimalValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.TimestampValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.BinaryPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.BooleanPlainValuesDecoder;
+import com.facebook.presto.parquet.batchreader.decoders.plain.FixedLenByteArrayPlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int32PlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int64PlainValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.plain.Int64TimestampMicrosPlainValuesDecoder;
@@ -36,11 +39,13 @@ import com.facebook.presto.parquet.batchreader.dictionary.BinaryBatchDictionary;
 import com.facebook.presto.parquet.batchreader.dictionary.TimestampDictionary;
 import com.facebook.presto.parquet.dictionary.IntegerDictionary;
 import com.facebook.presto.parquet.dictionary.LongDictionary;
+import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -48,9 +53,12 @@ import java.util.List;
 import java.util.Random;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.common.type.Decimals.encodeUnscaledValue;
 import static com.facebook.presto.parquet.ParquetEncoding.PLAIN_DICTIONARY;
+import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.generateDecimalValuesPage;
 import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.generateDictionaryIdPage2048;
 import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.generatePlainValuesPage;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.lang.Math.min;
 import static org.apache.parquet.bytes.BytesUtils.UTF8;
 import static org.apache.parquet.bytes.BytesUtils.getWidthFromMaxInt;
@@ -118,6 +126,11 @@ public class TestValuesDecoders
         return new BooleanRLEValuesDecoder(ByteBuffer.wrap(pageBytes));
     }
 
+    private static BinaryValuesDecoder fixedLenByteArrayPlain(int typeLength, byte[] pageBytes)
+    {
+        return new FixedLenByteArrayPlainValuesDecoder(typeLength, pageBytes, 0, pageBytes.length);
+    }
+
     private static void int32BatchReadWithSkipHelper(int batchSize, int skipSize, int valueCount, Int32ValuesDecoder decoder, List<Object> expectedValues)
             throws IOException
     {
@@ -213,6 +226,54 @@ public class TestValuesDecoders
         }
     }
 
+    private static void shortDecimalBatchReadWithSkipHelper(int batchSize, int skipSize, int valueCount, ShortDecimalValuesDecoder decoder, List<Object> expectedValues)
+            throws IOException
+    {
+        long[] actualValues = new long[valueCount];
+        int inputOffset = 0;
+        int outputOffset = 0;
+        while (inputOffset < valueCount) {
+            int readBatchSize = min(batchSize, valueCount - inputOffset);
+            decoder.readNext(actualValues, outputOffset, readBatchSize);
+
+            for (int i = 0; i < readBatchSize; i++) {
+                assertEquals(actualValues[outputOffset + i], ((Number) expectedValues.get(inputOffset + i)).longValue());
+            }
+
+            inputOffset += readBatchSize;
+            outputOffset += readBatchSize;
+
+            int skipBatchSize = min(skipSize, valueCount - inputOffset);
+            decoder.skip(skipBatchSize);
+            inputOffset += skipBatchSize;
+        }
+    }
+
+    private static void longDecimalBatchReadWithSkipHelper(int batchSize, int skipSize, int valueCount, LongDecimalValuesDecoder decoder, List<Object> expectedValues)
+            throws IOException
+    {
+        long[] actualValues = new long[valueCount * 2];
+        int inputOffset = 0;
+        int outputOffset = 0;
+        while (inputOffset < valueCount) {
+            int readBatchSize = min(batchSize, valueCount - inputOffset);
+            decoder.readNext(actualValues, outputOffset, readBatchSize);
+
+            for (int i = 0; i < readBatchSize; i++) {
+                Slice expected = encodeUnscaledValue((BigInteger) expectedValues.get(inputOffset + i));
+                assertEquals(actualValues[2 * (outputOffset + i)], expected.getLong(0));
+                assertEquals(actualValues[2 * (outputOffset + i) + 1], expected.getLong(SIZE_OF_LONG));
+            }
+
+            inputOffset += readBatchSize;
+            outputOffset += readBatchSize;
+
+            int skipBatchSize = min(skipSize, valueCount - inputOffset);
+            decoder.skip(skipBatchSize);
+            inputOffset += skipBatchSize;
+        }
+    }
+
     private static void timestampBatchReadWithSkipHelper(int batchSize, int skipSize, int valueCount, TimestampValuesDecoder decoder, List<Object> expectedValues)
             throws IOException
     {
@@ -515,4 +576,134 @@ public class TestValuesDecoders
         booleanBatchReadWithSkipHelper(89, 29, valueCount, booleanRLE(dataPage), expectedValues);
         booleanBatchReadWithSkipHelper(1024, 1024, valueCount, booleanRLE(dataPage), expectedValues);
     }
+
+    @Test
+    public void testShortDecimalInt32()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generatePlainValuesPage(valueCount, 32, new Random(89), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new Int32ShortDecimalValuesDecoder(int32Plain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(29, 0, valueCount, new Int32ShortDecimalValuesDecoder(int32Plain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new Int32ShortDecimalValuesDecoder(int32Plain(pageBytes)), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(89, 29, valueCount, new Int32ShortDecimalValuesDecoder(int32Plain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new Int32ShortDecimalValuesDecoder(int32Plain(pageBytes)), expectedValues);
+    }
+
+    @Test
+    public void testShortDecimalInt64()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generatePlainValuesPage(valueCount, 64, new Random(89), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new Int64ShortDecimalValuesDecoder(int64Plain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(29, 0, valueCount, new Int64ShortDecimalValuesDecoder(int64Plain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new Int64ShortDecimalValuesDecoder(int64Plain(pageBytes)), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(89, 29, valueCount, new Int64ShortDecimalValuesDecoder(int64Plain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new Int64ShortDecimalValuesDecoder(int64Plain(pageBytes)), expectedValues);
+    }
+
+    @Test
+    public void testShortDecimalBinaryPlain()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generateDecimalValuesPage(valueCount, -1, 18, new Random(113), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new BinaryShortDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(29, 0, valueCount, new BinaryShortDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new BinaryShortDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(89, 29, valueCount, new BinaryShortDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new BinaryShortDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+    }
+
+    @Test
+    public void testShortDecimalFixedLenByteArrayPlain()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generateDecimalValuesPage(valueCount, 6, 12, new Random(113), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new BinaryShortDecimalValuesDecoder(fixedLenByteArrayPlain(6, pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(29, 0, valueCount, new BinaryShortDecimalValuesDecoder(fixedLenByteArrayPlain(6, pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new BinaryShortDecimalValuesDecoder(fixedLenByteArrayPlain(6, pageBytes)), expectedValues);
+
+        shortDecimalBatchReadWithSkipHelper(89, 29, valueCount, new BinaryShortDecimalValuesDecoder(fixedLenByteArrayPlain(6, pageBytes)), expectedValues);
+        shortDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new BinaryShortDecimalValuesDecoder(fixedLenByteArrayPlain(6, pageBytes)), expectedValues);
+    }
+
+    @Test
+    public void testLongDecimalBinaryPlain()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generateDecimalValuesPage(valueCount, -1, 38, new Random(113), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new BinaryLongDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(29, 0, valueCount, new BinaryLongDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new BinaryLongDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(89, 29, valueCount, new BinaryLongDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new BinaryLongDecimalValuesDecoder(binaryPlain(pageBytes)), expectedValues);
+    }
+
+    @Test
+    public void testLongDecimalFixedLenByteArrayPlain()
+            throws IOException
+    {
+        int valueCount = 2048;
+        List<Object> expectedValues = new ArrayList<>();
+
+        byte[] pageBytes = generateDecimalValuesPage(valueCount, 16, 38, new Random(113), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new BinaryLongDecimalValuesDecoder(fixedLenByteArrayPlain(16, pageBytes)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(29, 0, valueCount, new BinaryLongDecimalValuesDecoder(fixedLenByteArrayPlain(16, pageBytes)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new BinaryLongDecimalValuesDecoder(fixedLenByteArrayPlain(16, pageBytes)), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(89, 29, valueCount, new BinaryLongDecimalValuesDecoder(fixedLenByteArrayPlain(16, pageBytes)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new BinaryLongDecimalValuesDecoder(fixedLenByteArrayPlain(16, pageBytes)), expectedValues);
+    }
+
+    @Test
+    public void testLongDecimalFixedLenByteArrayRLEDictionary()
+            throws IOException
+    {
+        Random random = new Random(83);
+        int valueCount = 2048;
+        int dictionarySize = 29;
+        List<Object> dictionary = new ArrayList<>();
+        List<Integer> dictionaryIds = new ArrayList<>();
+
+        byte[] dictionaryPage = generateDecimalValuesPage(dictionarySize, 16, 38, random, dictionary);
+        byte[] dataPage = generateDictionaryIdPage2048(dictionarySize - 1, random, dictionaryIds);
+
+        List<Object> expectedValues = new ArrayList<>();
+        for (Integer dictionaryId : dictionaryIds) {
+            expectedValues.add(dictionary.get(dictionaryId));
+        }
+
+        BinaryBatchDictionary binaryDictionary = new BinaryBatchDictionary(new DictionaryPage(Slices.wrappedBuffer(dictionaryPage), dictionarySize, PLAIN_DICTIONARY), 16);
+
+        longDecimalBatchReadWithSkipHelper(valueCount, 0, valueCount, new BinaryLongDecimalValuesDecoder(binaryDictionary(dataPage, dictionarySize, binaryDictionary)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(29, 0, valueCount, new BinaryLongDecimalValuesDecoder(binaryDictionary(dataPage, dictionarySize, binaryDictionary)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 0, valueCount, new BinaryLongDecimalValuesDecoder(binaryDictionary(dataPage, dictionarySize, binaryDictionary)), expectedValues);
+
+        longDecimalBatchReadWithSkipHelper(89, 29, valueCount, new BinaryLongDecimalValuesDecoder(binaryDictionary(dataPage, dictionarySize, binaryDictionary)), expectedValues);
+        longDecimalBatchReadWithSkipHelper(1024, 1024, valueCount, new BinaryLongDecimalValuesDecoder(binaryDictionary(dataPage, dictionarySize, binaryDictionary)), expectedValues);
+    }
 }
@@ -13,16 +13,49 @@
  */
 package com.facebook.presto.parquet.predicate;
 
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.cache.MetadataReader;
+import com.facebook.presto.parquet.reader.MockParquetDataSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.Encoding;
 import org.apache.parquet.column.EncodingStats;
 import org.apache.parquet.column.statistics.BinaryStatistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getDescriptors;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.isOnlyDictionaryEncodingPages;
+import static com.facebook.presto.parquet.predicate.PredicateUtils.predicateMatches;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Sets.union;
 import static org.apache.parquet.column.Encoding.BIT_PACKED;
 import static org.apache.parquet.column.Encoding.PLAIN;
@@ -32,6 +65,8 @@ import static org.apache.parquet.column.Encoding.RLE_DICTIONARY;
 import static org.apache.parquet.hadoop.metadata.ColumnPath.fromDotString;
 import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static org.apache.parquet.schema.Type.Repetition.REQUIRED;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -72,6 +107,62 @@ public class TestPredicateUtils
         assertFalse(isOnlyDictionaryEncodingPages(createColumnMetaDataV2(RLE_DICTIONARY, PLAIN)));
     }
 
+    @Test
+    public void testBloomFilterPredicatesMatch()
+            throws IOException
+    {
+        MessageType schema = new MessageType("test", new PrimitiveType(REQUIRED, INT64, "id"));
+        File file = File.createTempFile("bloom_filter", ".parquet");
+        verify(file.delete());
+        try {
+            Configuration conf = new Configuration();
+            GroupWriteSupport.setSchema(schema, conf);
+            try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(file.getAbsolutePath()))
+                    .withConf(conf)
+                    .withDictionaryEncoding(false)
+                    .withBloomFilterEnabled(true)
+                    .build()) {
+                SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+                for (long value = 0; value < 1000; value += 2) {
+                    writer.write(groupFactory.newGroup().append("id", value));
+                }
+            }
+
+            Path path = new Path(file.getAbsolutePath());
+            FileSystem fileSystem = path.getFileSystem(conf);
+            try (FSDataInputStream inputStream = fileSystem.open(path)) {
+                ParquetDataSource dataSource = new MockParquetDataSource(new ParquetDataSourceId(path.toString()), file.length(), inputStream);
+                ParquetMetadata parquetMetadata = MetadataReader.readFooter(dataSource, file.length(), Optional.empty(), false).getParquetMetadata();
+                BlockMetaData block = getOnlyElement(parquetMetadata.getBlocks());
+                assertTrue(getOnlyElement(block.getColumns()).getBloomFilterOffset() >= 0);
+
+                Map<List<String>, RichColumnDescriptor> descriptorsByPath = getDescriptors(schema, schema);
+                BloomFilterStore bloomFilterStore = new BloomFilterStore(new MetadataReader(), dataSource, false, 0);
+
+                // the absent values are within the range of the column statistics, only the Bloom filter can eliminate the block
+                assertTrue(bloomFilterPredicateMatches(block, dataSource, descriptorsByPath, bloomFilterStore, 500L));
+                assertTrue(bloomFilterPredicateMatches(block, dataSource, descriptorsByPath, bloomFilterStore, 501L, 998L));
+                assertFalse(bloomFilterPredicateMatches(block, dataSource, descriptorsByPath, bloomFilterStore, 501L, 503L));
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private static boolean bloomFilterPredicateMatches(
+            BlockMetaData block,
+            ParquetDataSource dataSource,
+            Map<List<String>, RichColumnDescriptor> descriptorsByPath,
+            BloomFilterStore bloomFilterStore,
+            Long... values)
+    {
+        RichColumnDescriptor column = getOnlyElement(descriptorsByPath.values());
+        TupleDomain<ColumnDescriptor> parquetTupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(column, Domain.multipleValues(BIGINT, ImmutableList.copyOf(values))));
+        Predicate parquetPredicate = new TupleDomainParquetPredicate(parquetTupleDomain, ImmutableList.of(column));
+        return predicateMatches(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain, Optional.empty(), false, Optional.empty(), Optional.of(bloomFilterStore));
+    }
+
     private ColumnChunkMetaData createColumnMetaDataV2(Encoding... dataEncodings)
     {
         EncodingStats encodingStats = new EncodingStats.Builder()
@@ -160,7 +160,10 @@ public class PostgreSqlClient
     {
         return ReadMapping.sliceReadMapping(
                 jsonType,
-                (resultSet, columnIndex) -> jsonParse(utf8Slice(resultSet.getString(columnIndex))));
+                (resultSet, columnIndex) -> {
+                    String value = resultSet.getString(columnIndex);
+                    return value == null ? null : jsonParse(utf8Slice(value));
+                });
     }
 
     public static Slice jsonParse(Slice slice)
@@ -191,7 +194,10 @@ public class PostgreSqlClient
     {
         return ReadMapping.sliceReadMapping(
                 uuidType,
-                (resultSet, columnIndex) -> uuidSlice((UUID) resultSet.getObject(columnIndex)));
+                (resultSet, columnIndex) -> {
+                    UUID value = (UUID) resultSet.getObject(columnIndex);
+                    return value == null ? null : uuidSlice(value);
+                });
     }
 
     private static Slice uuidSlice(UUID uuid)
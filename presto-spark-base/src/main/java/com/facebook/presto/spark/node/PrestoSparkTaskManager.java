@@ -26,11 +26,13 @@ import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.metadata.MetadataUpdates;
+import com.facebook.presto.sql.planner.DynamicFilterSummary;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class PrestoSparkTaskManager
@@ -102,6 +104,12 @@ public class PrestoSparkTaskManager
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public BufferResult prefetchTaskResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId, long startingSequenceId, DataSize maxSize, int maxPages)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void acknowledgeTaskResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId, long sequenceId)
     {
@@ -131,4 +139,16 @@ public class PrestoSparkTaskManager
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public Map<String, DynamicFilterSummary> getTaskDynamicFilters(TaskId taskId)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addTaskDynamicFilters(TaskId taskId, Map<String, DynamicFilterSummary> dynamicFilters)
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -13,12 +13,17 @@
  */
 package com.facebook.presto.spi;
 
+import com.facebook.presto.common.predicate.SplitBlockBloomFilter;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Objects.requireNonNull;
 
 // TODO: Use builder pattern for SplitContext if we are to add optional field
@@ -29,22 +34,29 @@ public class SplitContext
     private final boolean cacheable;
     // For local execution only; no need for serialization.
     private final Optional<TupleDomain<ColumnHandle>> dynamicFilterPredicate;
+    private final Map<ColumnHandle, SplitBlockBloomFilter> dynamicFilterBloomFilters;
 
     @JsonCreator
     public SplitContext(@JsonProperty boolean cacheable)
     {
-        this(cacheable, Optional.empty());
+        this(cacheable, Optional.empty(), emptyMap());
     }
 
     public SplitContext(boolean cacheable, TupleDomain<ColumnHandle> dynamicFilterPredicate)
     {
-        this(cacheable, Optional.of(requireNonNull(dynamicFilterPredicate, "dynamicFilterPredicate is null")));
+        this(cacheable, dynamicFilterPredicate, emptyMap());
     }
 
-    private SplitContext(boolean cacheable, Optional<TupleDomain<ColumnHandle>> dynamicFilterPredicate)
+    public SplitContext(boolean cacheable, TupleDomain<ColumnHandle> dynamicFilterPredicate, Map<ColumnHandle, SplitBlockBloomFilter> dynamicFilterBloomFilters)
+    {
+        this(cacheable, Optional.of(requireNonNull(dynamicFilterPredicate, "dynamicFilterPredicate is null")), dynamicFilterBloomFilters);
+    }
+
+    private SplitContext(boolean cacheable, Optional<TupleDomain<ColumnHandle>> dynamicFilterPredicate, Map<ColumnHandle, SplitBlockBloomFilter> dynamicFilterBloomFilters)
     {
         this.cacheable = cacheable;
         this.dynamicFilterPredicate = dynamicFilterPredicate;
+        this.dynamicFilterBloomFilters = unmodifiableMap(new HashMap<>(requireNonNull(dynamicFilterBloomFilters, "dynamicFilterBloomFilters is null")));
     }
 
     @JsonProperty
@@ -57,4 +69,18 @@ public class SplitContext
     {
         return dynamicFilterPredicate;
     }
+
+    /**
+     * Bloom filters of the join build-side values, which the rows of the columns must match
+     * in addition to the dynamic filter predicate. For local execution only.
+     */
+    public Map<ColumnHandle, SplitBlockBloomFilter> getDynamicFilterBloomFilters()
+    {
+        return dynamicFilterBloomFilters;
+    }
+
+    public SplitContext withDynamicFilterBloomFilters(Map<ColumnHandle, SplitBlockBloomFilter> dynamicFilterBloomFilters)
+    {
+        return new SplitContext(cacheable, dynamicFilterPredicate, dynamicFilterBloomFilters);
+    }
 }
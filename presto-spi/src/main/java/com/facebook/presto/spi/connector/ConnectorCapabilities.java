@@ -18,4 +18,9 @@ public enum ConnectorCapabilities
     NOT_NULL_COLUMN_CONSTRAINT,
     SUPPORTS_REWINDABLE_SPLIT_SOURCE,
     SUPPORTS_PAGE_SINK_COMMIT,
+    /**
+     * The page sources of the connector block on I/O in getNextPage
+     * instead of reporting the wait with isBlocked.
+     */
+    BLOCKING_PAGE_SOURCE,
 }
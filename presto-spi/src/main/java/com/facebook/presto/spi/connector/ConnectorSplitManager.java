@@ -13,11 +13,16 @@
  */
 package com.facebook.presto.spi.connector;
 
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.WarningCollector;
 
+import java.util.Optional;
+import java.util.function.Supplier;
+
 import static java.util.Objects.requireNonNull;
 
 public interface ConnectorSplitManager
@@ -40,6 +45,7 @@ public interface ConnectorSplitManager
         private final SplitSchedulingStrategy splitSchedulingStrategy;
         private final boolean schedulerUsesHostAddresses;
         private final WarningCollector warningCollector;
+        private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilter;
 
         /**
          * @param splitSchedulingStrategy the method by which splits are scheduled
@@ -50,10 +56,25 @@ public interface ConnectorSplitManager
          * need to provide host addresses.
          */
         public SplitSchedulingContext(SplitSchedulingStrategy splitSchedulingStrategy, boolean schedulerUsesHostAddresses, WarningCollector warningCollector)
+        {
+            this(splitSchedulingStrategy, schedulerUsesHostAddresses, warningCollector, Optional.empty());
+        }
+
+        /**
+         * @param dynamicFilter the predicate over the table columns derived from the dynamic filters
+         * produced by the other stages of the query. It only narrows down over time, so connectors
+         * may read it again before enumerating each batch of splits.
+         */
+        public SplitSchedulingContext(
+                SplitSchedulingStrategy splitSchedulingStrategy,
+                boolean schedulerUsesHostAddresses,
+                WarningCollector warningCollector,
+                Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilter)
         {
             this.splitSchedulingStrategy = requireNonNull(splitSchedulingStrategy, "splitSchedulingStrategy is null");
             this.schedulerUsesHostAddresses = schedulerUsesHostAddresses;
             this.warningCollector = requireNonNull(warningCollector, "warningCollector is null ");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         public SplitSchedulingStrategy getSplitSchedulingStrategy()
@@ -70,5 +91,10 @@ public interface ConnectorSplitManager
         {
             return warningCollector;
         }
+
+        public Optional<Supplier<TupleDomain<ColumnHandle>>> getDynamicFilter()
+        {
+            return dynamicFilter;
+        }
     }
 }
@@ -14,6 +14,7 @@
 package com.facebook.presto.spi.page;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.spi.spiller.SpillCipher;
 import io.airlift.slice.DynamicSliceOutput;
@@ -26,6 +27,11 @@ import javax.annotation.concurrent.NotThreadSafe;
 import java.nio.ByteBuffer;
 import java.util.Optional;
 
+import static com.facebook.presto.common.RuntimeMetricName.PAGE_COMPRESSION_SAVED_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.PAGE_COMPRESSION_SKIPPED_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.PAGE_COMPRESSION_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeUnit.BYTE;
+import static com.facebook.presto.common.RuntimeUnit.NANO;
 import static com.facebook.presto.spi.page.PageCodecMarker.CHECKSUMMED;
 import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.spi.page.PageCodecMarker.ENCRYPTED;
@@ -33,6 +39,7 @@ import static com.facebook.presto.spi.page.PagesSerdeUtil.computeSerializedPageC
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readRawPage;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writeRawPage;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
@@ -41,14 +48,21 @@ import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    // with adaptive compression, the number of pages serialized without attempting compression
+    // doubles after every page that does not compress well, up to this limit
+    private static final int MAX_COMPRESSION_SKIPPED_PAGES = 64;
 
     private final BlockEncodingSerde blockEncodingSerde;
     private final Optional<PageCompressor> compressor;
     private final Optional<PageDecompressor> decompressor;
     private final Optional<SpillCipher> spillCipher;
     private final boolean checksumEnabled;
+    private final boolean adaptiveCompression;
+    private final Optional<RuntimeStats> runtimeStats;
 
     private byte[] compressionBuffer;
+    private int compressionSkippedPages;
+    private int pagesToSkipCompression;
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher)
     {
@@ -56,6 +70,22 @@ public class PagesSerde
     }
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher, boolean checksumEnabled)
+    {
+        this(blockEncodingSerde, compressor, decompressor, spillCipher, checksumEnabled, false, Optional.empty());
+    }
+
+    /**
+     * @param adaptiveCompression whether to stop attempting compression for a while after pages that do not compress well
+     * @param runtimeStats where to report the time spent compressing pages and the bytes saved by compression
+     */
+    public PagesSerde(
+            BlockEncodingSerde blockEncodingSerde,
+            Optional<PageCompressor> compressor,
+            Optional<PageDecompressor> decompressor,
+            Optional<SpillCipher> spillCipher,
+            boolean checksumEnabled,
+            boolean adaptiveCompression,
+            Optional<RuntimeStats> runtimeStats)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
@@ -64,6 +94,8 @@ public class PagesSerde
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
         this.checksumEnabled = checksumEnabled;
+        this.adaptiveCompression = adaptiveCompression;
+        this.runtimeStats = requireNonNull(runtimeStats, "runtimeStats is null");
     }
 
     public SerializedPage serialize(Page page)
@@ -122,7 +154,14 @@ public class PagesSerde
         int uncompressedSize = slice.length();
         byte markers = PageCodecMarker.none();
 
-        if (compressor.isPresent()) {
+        if (compressor.isPresent() && pagesToSkipCompression > 0) {
+            pagesToSkipCompression--;
+            if (runtimeStats.isPresent()) {
+                runtimeStats.get().addMetricValue(PAGE_COMPRESSION_SKIPPED_BYTES, BYTE, uncompressedSize);
+            }
+        }
+        else if (compressor.isPresent()) {
+            long start = System.nanoTime();
             int maxCompressedSize = compressor.get().maxCompressedLength(uncompressedSize);
             compressionBuffer = ensureCapacity(compressionBuffer, maxCompressedSize);
             int compressedSize = compressor.get().compress(
@@ -133,9 +172,20 @@ public class PagesSerde
                     0,
                     maxCompressedSize);
 
-            if (compressedSize / (double) uncompressedSize <= MINIMUM_COMPRESSION_RATIO) {
+            boolean compressed = compressedSize / (double) uncompressedSize <= MINIMUM_COMPRESSION_RATIO;
+            if (compressed) {
                 slice = Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, compressedSize));
                 markers = COMPRESSED.set(markers);
+                compressionSkippedPages = 0;
+            }
+            else if (adaptiveCompression) {
+                compressionSkippedPages = compressionSkippedPages == 0 ? 1 : min(compressionSkippedPages * 2, MAX_COMPRESSION_SKIPPED_PAGES);
+                pagesToSkipCompression = compressionSkippedPages;
+            }
+
+            if (runtimeStats.isPresent()) {
+                runtimeStats.get().addMetricValue(PAGE_COMPRESSION_TIME_NANOS, NANO, System.nanoTime() - start);
+                runtimeStats.get().addMetricValue(PAGE_COMPRESSION_SAVED_BYTES, BYTE, compressed ? uncompressedSize - compressedSize : 0);
             }
         }
 
@@ -74,6 +74,13 @@ public class SqlServerClient
         }
     }
 
+    @Override
+    protected String moduloExpression(String column)
+    {
+        // SQL Server has no MOD function
+        return format("(%s %% ?)", column);
+    }
+
     private static String singleQuote(String... objects)
     {
         return singleQuote(DOT_JOINER.join(objects));
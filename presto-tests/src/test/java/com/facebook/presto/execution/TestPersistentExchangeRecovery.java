@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.server.testing.TestingPrestoServer;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.DistributedQueryRunner;
+import com.facebook.presto.tests.ResultWithQueryId;
+import com.facebook.presto.tpch.TpchPlugin;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_COUNT;
+import static com.facebook.presto.SystemSessionProperties.PERSISTENT_EXCHANGE_ENABLED;
+import static com.facebook.presto.spi.StandardErrorCode.REMOTE_TASK_ERROR;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static com.facebook.presto.tests.QueryAssertions.assertEqualsIgnoreOrder;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPersistentExchangeRecovery
+{
+    // the stage of the final aggregation, between the stage that scans the table and the output stage
+    private static final int INTERMEDIATE_STAGE_ID = 1;
+    // the stage that scans the table
+    private static final int LEAF_STAGE_ID = 2;
+    private static final int PARTITION_COUNT = 4;
+
+    private static final Session SESSION = testSessionBuilder()
+            .setCatalog("tpch")
+            .setSchema("tiny")
+            .setSystemProperty(PERSISTENT_EXCHANGE_ENABLED, "true")
+            .setSystemProperty(HASH_PARTITION_COUNT, String.valueOf(PARTITION_COUNT))
+            .build();
+    @Language("SQL")
+    private static final String SQL = "SELECT orderkey % 10, count(*), sum(quantity) FROM lineitem GROUP BY orderkey % 10";
+
+    @Test(timeOut = 240_000)
+    public void testRetryIntermediateTask()
+            throws Exception
+    {
+        try (DistributedQueryRunner queryRunner = createQueryRunner(SESSION)) {
+            TaskId failedTaskId = executeWithFailedTask(queryRunner, INTERMEDIATE_STAGE_ID);
+
+            // the failed task was replaced by a task with an id that follows the ids of the partitions
+            List<TaskInfo> tasks = getStageTasks(queryRunner, failedTaskId.getQueryId(), INTERMEDIATE_STAGE_ID);
+            assertTrue(tasks.stream().anyMatch(task -> task.getTaskId().equals(failedTaskId) && task.getTaskStatus().getState() == TaskState.FAILED));
+            assertTrue(tasks.stream().anyMatch(task -> task.getTaskId().getId() == PARTITION_COUNT && task.getTaskStatus().getState() == TaskState.FINISHED));
+        }
+    }
+
+    @Test(timeOut = 240_000)
+    public void testRetryLeafTask()
+            throws Exception
+    {
+        try (DistributedQueryRunner queryRunner = createQueryRunner(SESSION)) {
+            TaskId failedTaskId = executeWithFailedTask(queryRunner, LEAF_STAGE_ID);
+
+            // the failed task was replaced by a task that scanned its splits
+            List<TaskInfo> tasks = getStageTasks(queryRunner, failedTaskId.getQueryId(), LEAF_STAGE_ID);
+            assertTrue(tasks.stream().anyMatch(task -> task.getTaskId().equals(failedTaskId) && task.getTaskStatus().getState() == TaskState.FAILED));
+            assertTrue(tasks.stream()
+                    .filter(task -> !task.getTaskId().equals(failedTaskId))
+                    .allMatch(task -> task.getTaskStatus().getState() == TaskState.FINISHED));
+            assertTrue(tasks.size() > 1);
+        }
+    }
+
+    /**
+     * Runs the query while failing a task of the given stage, and checks that the query returns the same result.
+     */
+    private static TaskId executeWithFailedTask(DistributedQueryRunner queryRunner, int stageId)
+            throws Exception
+    {
+        ExecutorService executor = newSingleThreadExecutor();
+        try {
+            MaterializedResult expected = queryRunner.execute(SESSION, SQL);
+
+            Future<ResultWithQueryId<MaterializedResult>> result = executor.submit(() -> queryRunner.executeWithQueryId(SESSION, SQL));
+            TaskId failedTaskId = failTask(queryRunner, stageId);
+
+            ResultWithQueryId<MaterializedResult> actual = result.get(120, SECONDS);
+            assertEquals(actual.getQueryId(), failedTaskId.getQueryId());
+            assertEqualsIgnoreOrder(actual.getResult().getMaterializedRows(), expected.getMaterializedRows());
+            return failedTaskId;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fails a task of the given stage of the running query as soon as it is created. The tasks of both stages
+     * aggregate their input before they produce any output, so the task fails before its output is read.
+     */
+    private static TaskId failTask(DistributedQueryRunner queryRunner, int stageId)
+            throws InterruptedException
+    {
+        while (true) {
+            for (TestingPrestoServer server : queryRunner.getServers()) {
+                Optional<SqlTask> task = ((SqlTaskManager) server.getTaskManager()).getAllTasks().stream()
+                        .filter(sqlTask -> sqlTask.getTaskId().getStageExecutionId().getStageId().getId() == stageId)
+                        .filter(sqlTask -> !sqlTask.getTaskState().isDone())
+                        .findFirst();
+                if (task.isPresent()) {
+                    task.get().failed(new PrestoException(REMOTE_TASK_ERROR, "Injected failure"));
+                    return task.get().getTaskId();
+                }
+            }
+            MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static List<TaskInfo> getStageTasks(DistributedQueryRunner queryRunner, QueryId queryId, int stageId)
+    {
+        return queryRunner.getQueryInfo(queryId).getOutputStage().get().getAllStages().stream()
+                .filter(stage -> stage.getStageId().getId() == stageId)
+                .flatMap(stage -> stage.getLatestAttemptExecutionInfo().getTasks().stream())
+                .collect(toImmutableList());
+    }
+
+    private static DistributedQueryRunner createQueryRunner(Session session)
+            throws Exception
+    {
+        DistributedQueryRunner queryRunner = DistributedQueryRunner.builder(session)
+                .setNodeCount(3)
+                .build();
+
+        try {
+            queryRunner.installPlugin(new TpchPlugin());
+            queryRunner.createCatalog("tpch", "tpch");
+            return queryRunner;
+        }
+        catch (Exception e) {
+            queryRunner.close();
+            throw e;
+        }
+    }
+}
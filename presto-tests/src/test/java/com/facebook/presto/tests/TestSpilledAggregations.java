@@ -140,6 +140,13 @@ public class TestSpilledAggregations
         assertQuery("SELECT orderpriority, custkey, sum(custkey), count(DISTINCT totalprice) FROM orders GROUP BY orderpriority, custkey ORDER BY 1, 2");
     }
 
+    @Test
+    public void testDistinctSpillingFixedWidthArguments()
+    {
+        // the group id and a fixed width argument are deduplicated by a FixedWidthGroupByHash
+        assertQuery("SELECT custkey, count(DISTINCT orderkey), sum(DISTINCT shippriority), count(DISTINCT orderdate) FROM orders GROUP BY custkey");
+    }
+
     @Test
     public void testDistinctSpillingGroupingSets()
     {